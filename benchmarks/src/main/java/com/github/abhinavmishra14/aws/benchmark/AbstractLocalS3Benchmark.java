@@ -0,0 +1,205 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.abhinavmishra14.aws.jets3.service.JetS3RESTService;
+import com.github.abhinavmishra14.aws.jets3.service.impl.JetS3RESTServiceImpl;
+import com.github.abhinavmishra14.aws.local.DiskObjectStore;
+import com.github.abhinavmishra14.aws.local.InMemoryObjectStore;
+import com.github.abhinavmishra14.aws.local.LocalS3Server;
+import com.github.abhinavmishra14.aws.s3.service.AwsS3IamService;
+import com.github.abhinavmishra14.aws.s3.service.impl.AwsS3IamServiceImpl;
+import com.github.abhinavmishra14.aws.s3.transfer.TransferConfig;
+
+/**
+ * The Class AbstractLocalS3Benchmark.<br/>
+ * Starts a {@link LocalS3Server} with an empty bucket once per trial and
+ * creates both services against it. Subclasses prepare their data in
+ * {@link #prepare()} and remove it in {@link #cleanUp()}.<br/>
+ * The server runs in the benchmark JVM, so its own CPU time and allocations
+ * are part of the results, compare runs with each other and not with the
+ * figures of a remote bucket.<br/>
+ * Throughput gives the ops/s (and the MB/s of {@link TransferCounters}),
+ * sample time gives the latency percentiles, add '-prof gc' for the allocation rate.
+ *
+ * @author Abhinav kumar mishra
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx2g", "-Dlog4j.configuration=log4j-benchmark.properties" })
+public abstract class AbstractLocalS3Benchmark {
+
+	/** The Constant BUCKET. */
+	protected static final String BUCKET = "benchmark";
+
+	/** The object store of the server, 'disk' or 'memory'. Use 'disk' for 1GB objects unless the heap is large enough. */
+	@Param({ "disk" })
+	public String store;
+
+	/** The server. */
+	protected LocalS3Server server;
+
+	/** The aws s3 service. */
+	protected AwsS3IamService awsS3IamService;
+
+	/** The jets3t service. */
+	protected JetS3RESTService jetS3RESTService;
+
+	/** The work directory, holding the disk store and the local files. */
+	protected File workDirectory;
+
+	/**
+	 * Starts the server and the services, then prepares the benchmark data.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Setup(Level.Trial)
+	public final void setUpTrial() throws Exception {
+		workDirectory = Files.createTempDirectory("s3-benchmark").toFile();
+		if ("memory".equals(store)) {
+			server = new LocalS3Server(new InMemoryObjectStore());
+		} else {
+			server = new LocalS3Server(new DiskObjectStore(new File(workDirectory, "store")));
+		}
+		server.start();
+		awsS3IamService = new AwsS3IamServiceImpl(server.newAmazonS3Client(), transferConfig());
+		jetS3RESTService = new JetS3RESTServiceImpl(LocalS3Server.ACCESS_KEY, LocalS3Server.SECRET_KEY,
+				server.newJets3tProperties());
+		awsS3IamService.createBucket(BUCKET);
+		prepare();
+	}
+
+	/**
+	 * Cleans up the benchmark data, then stops the services and the server.
+	 *
+	 * @throws Exception the exception
+	 */
+	@TearDown(Level.Trial)
+	public final void tearDownTrial() throws Exception {
+		try {
+			cleanUp();
+		} finally {
+			awsS3IamService.shutdown();
+			jetS3RESTService.shutdown();
+			server.stop();
+			FileUtils.deleteDirectory(workDirectory);
+		}
+	}
+
+	/**
+	 * Gets the transfer config of the aws s3 service, the defaults unless overridden.
+	 *
+	 * @return the transfer config
+	 */
+	protected TransferConfig transferConfig() {
+		return new TransferConfig();
+	}
+
+	/**
+	 * Prepares the benchmark data, called once per trial after the server started.
+	 *
+	 * @throws Exception the exception
+	 */
+	protected abstract void prepare() throws Exception;
+
+	/**
+	 * Cleans up the benchmark data, called once per trial before the server stops.
+	 *
+	 * @throws Exception the exception
+	 */
+	protected void cleanUp() throws Exception {
+		// Nothing by default, the work directory is deleted anyway
+	}
+
+	/**
+	 * Parses a size such as '1KB', '64MB' or '1GB' into bytes.
+	 *
+	 * @param size the size
+	 * @return the bytes
+	 */
+	protected static long parseSize(final String size) {
+		final String upperSize = size.trim().toUpperCase(Locale.ENGLISH);
+		final long unit;
+		if (upperSize.endsWith("GB")) {
+			unit = 1024L * 1024L * 1024L;
+		} else if (upperSize.endsWith("MB")) {
+			unit = 1024L * 1024L;
+		} else if (upperSize.endsWith("KB")) {
+			unit = 1024L;
+		} else {
+			return Long.parseLong(upperSize);
+		}
+		return Long.parseLong(upperSize.substring(0, upperSize.length() - 2)) * unit;
+	}
+
+	/**
+	 * Stores an object straight into the object store of the server, without a request.
+	 *
+	 * @param key the key
+	 * @param length the length
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	protected void storeObject(final String key, final long length) throws IOException {
+		server.getObjectStore().putObject(BUCKET, key, new RepeatingInputStream(length),
+				Collections.<String, String> emptyMap(), null);
+	}
+
+	/**
+	 * Creates a local file of the given length in the work directory.
+	 *
+	 * @param name the name
+	 * @param length the length
+	 * @return the file
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	protected File createFile(final String name, final long length) throws IOException {
+		final File file = new File(workDirectory, name);
+		try (InputStream content = new RepeatingInputStream(length);
+				OutputStream out = Files.newOutputStream(file.toPath())) {
+			IOUtils.copyLarge(content, out);
+		}
+		return file;
+	}
+}
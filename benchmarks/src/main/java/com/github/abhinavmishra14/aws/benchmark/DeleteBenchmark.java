@@ -0,0 +1,94 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+import com.amazonaws.services.s3.model.DeleteObjectsRequest.KeyVersion;
+import com.amazonaws.services.s3.model.DeleteObjectsResult;
+import com.github.abhinavmishra14.aws.util.BulkDeleteSummary;
+
+/**
+ * The Class DeleteBenchmark.<br/>
+ * Deletes a directory with one multi object delete request and with
+ * {@link com.github.abhinavmishra14.aws.s3.service.AwsS3IamService#deleteDirectory(String, String)}.
+ * The objects are stored again before every invocation, outside of the measurement.
+ *
+ * @author Abhinav kumar mishra
+ */
+public class DeleteBenchmark extends AbstractLocalS3Benchmark {
+
+	/** The Constant PREFIX. */
+	private static final String PREFIX = "delete/";
+
+	/** The number of objects deleted, at most 1000 for a single delete request. */
+	@Param({ "1000" })
+	public int objectCount;
+
+	/** The keys. */
+	private final List<KeyVersion> keys = new ArrayList<KeyVersion>();
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.benchmark.AbstractLocalS3Benchmark#prepare()
+	 */
+	@Override
+	protected void prepare() {
+		for (int idx = 0; idx < objectCount; idx++) {
+			keys.add(new KeyVersion(String.format("%sobject%06d", PREFIX, idx)));
+		}
+	}
+
+	/**
+	 * Stores the objects to delete.
+	 *
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	@Setup(Level.Invocation)
+	public void storeObjects() throws IOException {
+		for (final KeyVersion key : keys) {
+			storeObject(key.getKey(), 0);
+		}
+	}
+
+	/**
+	 * Delete the objects with a single request.
+	 *
+	 * @return the delete objects result
+	 */
+	@Benchmark
+	public DeleteObjectsResult deleteObjects() {
+		return awsS3IamService.deleteObjects(BUCKET, keys);
+	}
+
+	/**
+	 * Delete the directory.
+	 *
+	 * @return the bulk delete summary
+	 */
+	@Benchmark
+	public BulkDeleteSummary deleteDirectory() {
+		return awsS3IamService.deleteDirectory(BUCKET, PREFIX);
+	}
+}
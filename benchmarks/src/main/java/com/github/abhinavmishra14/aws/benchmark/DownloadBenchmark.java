@@ -0,0 +1,111 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.github.abhinavmishra14.aws.s3.transfer.TransferConfig;
+
+/**
+ * The Class DownloadBenchmark.<br/>
+ * Downloads with {@link com.github.abhinavmishra14.aws.s3.service.AwsS3IamService#downloadObject(String, String, String)},
+ * with ranged requests or a single request, and reads with
+ * {@link com.github.abhinavmishra14.aws.s3.service.AwsS3IamService#getObject(String, String)}.
+ * Run single threaded, the threads would share the target file.
+ *
+ * @author Abhinav kumar mishra
+ */
+public class DownloadBenchmark extends AbstractLocalS3Benchmark {
+
+	/** The Constant KEY. */
+	private static final String KEY = "download/object.bin";
+
+	/** The object size. */
+	@Param({ "1KB", "1MB", "64MB", "1GB" })
+	public String size;
+
+	/** Whether large objects are downloaded with concurrent ranged requests. */
+	@Param({ "true", "false" })
+	public boolean parallelDownload;
+
+	/** The length. */
+	private long length;
+
+	/** The target file. */
+	private File target;
+
+	/** The read buffer. */
+	private final byte[] buffer = new byte[64 * 1024];
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.benchmark.AbstractLocalS3Benchmark#transferConfig()
+	 */
+	@Override
+	protected TransferConfig transferConfig() {
+		return new TransferConfig().setParallelDownloadEnabled(parallelDownload);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.benchmark.AbstractLocalS3Benchmark#prepare()
+	 */
+	@Override
+	protected void prepare() throws IOException {
+		length = parseSize(size);
+		storeObject(KEY, length);
+		target = new File(workDirectory, "download.bin");
+	}
+
+	/**
+	 * Download an object into a file.
+	 *
+	 * @param counters the counters
+	 * @return the object metadata
+	 */
+	@Benchmark
+	public ObjectMetadata downloadObject(final TransferCounters counters) {
+		final ObjectMetadata metadata = awsS3IamService.downloadObject(BUCKET, KEY, target.getAbsolutePath());
+		counters.add(length);
+		return metadata;
+	}
+
+	/**
+	 * Read an object from the stream.
+	 *
+	 * @param counters the counters
+	 * @return the bytes read
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	@Benchmark
+	public long getObject(final TransferCounters counters) throws IOException {
+		long total = 0;
+		try (InputStream content = awsS3IamService.getObject(BUCKET, KEY)) {
+			int read;
+			while ((read = content.read(buffer)) != -1) {
+				total += read;
+			}
+		}
+		counters.add(total);
+		return total;
+	}
+}
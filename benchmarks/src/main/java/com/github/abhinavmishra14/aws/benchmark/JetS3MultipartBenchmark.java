@@ -0,0 +1,88 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.security.NoSuchAlgorithmException;
+
+import org.jets3t.service.ServiceException;
+import org.jets3t.service.model.StorageObject;
+import org.jets3t.service.utils.MultipartUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * The Class JetS3MultipartBenchmark.<br/>
+ * Uploads a local file as multiparts of 5 MB with the jets3t service, objects
+ * not larger than a part are uploaded with a single request.
+ *
+ * @author Abhinav kumar mishra
+ */
+public class JetS3MultipartBenchmark extends AbstractLocalS3Benchmark {
+
+	/** The object size. */
+	@Param({ "1KB", "1MB", "64MB", "1GB" })
+	public String size;
+
+	/** The length. */
+	private long length;
+
+	/** The file to upload. */
+	private File file;
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.benchmark.AbstractLocalS3Benchmark#prepare()
+	 */
+	@Override
+	protected void prepare() throws IOException {
+		length = parseSize(size);
+		file = createFile("multipart.bin", length);
+	}
+
+	/**
+	 * Upload the file as multiparts.
+	 *
+	 * @param counters the counters
+	 * @throws ServiceException the service exception
+	 * @throws NoSuchAlgorithmException the no such algorithm exception
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	@Benchmark
+	public void uploadObjectAsMultiparts(final TransferCounters counters)
+			throws ServiceException, NoSuchAlgorithmException, IOException {
+		jetS3RESTService.uploadObjectAsMultiparts(BUCKET, new StorageObject(file), MultipartUtils.MIN_PART_SIZE);
+		counters.add(length);
+	}
+
+	/**
+	 * Upload the file as multiparts, journaling the uploaded parts.
+	 *
+	 * @param counters the counters
+	 * @throws ServiceException the service exception
+	 * @throws NoSuchAlgorithmException the no such algorithm exception
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	@Benchmark
+	public void uploadObjectAsMultipartsResumable(final TransferCounters counters)
+			throws ServiceException, NoSuchAlgorithmException, IOException {
+		jetS3RESTService.uploadObjectAsMultipartsResumable(BUCKET, new StorageObject(file),
+				MultipartUtils.MIN_PART_SIZE);
+		counters.add(length);
+	}
+}
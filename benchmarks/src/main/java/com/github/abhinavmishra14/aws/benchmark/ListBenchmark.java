@@ -0,0 +1,93 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.benchmark;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.github.abhinavmishra14.aws.s3.listing.ShardedObjectIterator;
+
+/**
+ * The Class ListBenchmark.<br/>
+ * Lists a directory spread over sub directories, page by page and in parallel shards.
+ *
+ * @author Abhinav kumar mishra
+ */
+public class ListBenchmark extends AbstractLocalS3Benchmark {
+
+	/** The Constant PREFIX. */
+	private static final String PREFIX = "list/";
+
+	/** The Constant SUB_DIRECTORIES. */
+	private static final int SUB_DIRECTORIES = 16;
+
+	/** The Constant PARALLELISM. */
+	private static final int PARALLELISM = 4;
+
+	/** The number of objects listed. */
+	@Param({ "1000", "10000" })
+	public int objectCount;
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.benchmark.AbstractLocalS3Benchmark#prepare()
+	 */
+	@Override
+	protected void prepare() throws IOException {
+		for (int idx = 0; idx < objectCount; idx++) {
+			storeObject(String.format("%sdir%02d/object%06d", PREFIX, idx % SUB_DIRECTORIES, idx), 0);
+		}
+	}
+
+	/**
+	 * List the objects a page at a time.
+	 *
+	 * @return the number of objects
+	 */
+	@Benchmark
+	public int listObjects() {
+		int count = 0;
+		final Iterator<S3ObjectSummary> objects = awsS3IamService.listObjects(BUCKET, PREFIX, null);
+		while (objects.hasNext()) {
+			objects.next();
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * List the objects with shards listed at the same time.
+	 *
+	 * @return the number of objects
+	 */
+	@Benchmark
+	public int listObjectsInParallel() {
+		int count = 0;
+		try (ShardedObjectIterator objects = awsS3IamService.listObjectsInParallel(BUCKET, PREFIX, PARALLELISM,
+				false)) {
+			while (objects.hasNext()) {
+				objects.next();
+				count++;
+			}
+		}
+		return count;
+	}
+}
@@ -0,0 +1,82 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.benchmark;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * The Class PresignBenchmark.<br/>
+ * Presigns the urls of a batch of keys one at a time with the SDK and at once
+ * with {@link com.github.abhinavmishra14.aws.s3.service.AwsS3IamService#presign(String, java.util.Collection, Date)}.
+ * No request is sent, the server only serves the bucket. Divide the ops/s by
+ * the key count for the urls per second.
+ *
+ * @author Abhinav kumar mishra
+ */
+public class PresignBenchmark extends AbstractLocalS3Benchmark {
+
+	/** The Constant EXPIRES_MILLIS, the urls are valid for an hour. */
+	private static final long EXPIRES_MILLIS = 60 * 60 * 1000L;
+
+	/** The number of urls presigned per invocation. */
+	@Param({ "1", "100" })
+	public int keyCount;
+
+	/** The keys. */
+	private final List<String> keys = new ArrayList<String>();
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.benchmark.AbstractLocalS3Benchmark#prepare()
+	 */
+	@Override
+	protected void prepare() {
+		for (int idx = 0; idx < keyCount; idx++) {
+			keys.add(String.format("assets/images/image %06d.png", idx));
+		}
+	}
+
+	/**
+	 * Presign the urls one at a time.
+	 *
+	 * @return the urls
+	 */
+	@Benchmark
+	public List<String> generateObjectUrls() {
+		final Date expires = new Date(System.currentTimeMillis() + EXPIRES_MILLIS);
+		final List<String> urls = new ArrayList<String>(keys.size());
+		for (final String key : keys) {
+			urls.add(awsS3IamService.generateObjectUrlAsString(BUCKET, key, expires));
+		}
+		return urls;
+	}
+
+	/**
+	 * Presign the urls at once.
+	 *
+	 * @return the urls
+	 */
+	@Benchmark
+	public List<String> presign() {
+		return awsS3IamService.presign(BUCKET, keys, new Date(System.currentTimeMillis() + EXPIRES_MILLIS));
+	}
+}
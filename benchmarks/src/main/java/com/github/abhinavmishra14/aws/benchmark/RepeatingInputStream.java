@@ -0,0 +1,130 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.benchmark;
+
+import java.io.InputStream;
+import java.util.Random;
+
+/**
+ * The Class RepeatingInputStream.<br/>
+ * Serves the given number of bytes by repeating a shared block of random data,
+ * so that generating the content of a 1 GB upload neither allocates nor costs
+ * more than an array copy. Supports mark and reset, the SDK then does not
+ * buffer the stream to be able to retry.
+ *
+ * @author Abhinav kumar mishra
+ */
+public final class RepeatingInputStream extends InputStream {
+
+	/** The Constant BLOCK. */
+	private static final byte[] BLOCK = new byte[64 * 1024];
+
+	static {
+		new Random(42).nextBytes(BLOCK);
+	}
+
+	/** The length. */
+	private final long length;
+
+	/** The position. */
+	private long position;
+
+	/** The marked position. */
+	private long markedPosition;
+
+	/**
+	 * Instantiates a new repeating input stream.
+	 *
+	 * @param length the number of bytes to serve
+	 */
+	public RepeatingInputStream(final long length) {
+		super();
+		this.length = length;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.io.InputStream#read()
+	 */
+	@Override
+	public int read() {
+		if (position >= length) {
+			return -1;
+		}
+		return BLOCK[(int) (position++ % BLOCK.length)] & 0xff;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.io.InputStream#read(byte[], int, int)
+	 */
+	@Override
+	public int read(final byte[] buffer, final int offset, final int len) {
+		if (len == 0) {
+			return 0;
+		}
+		if (position >= length) {
+			return -1;
+		}
+		final int blockOffset = (int) (position % BLOCK.length);
+		final int count = (int) Math.min(Math.min(len, BLOCK.length - blockOffset), length - position);
+		System.arraycopy(BLOCK, blockOffset, buffer, offset, count);
+		position += count;
+		return count;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.io.InputStream#skip(long)
+	 */
+	@Override
+	public long skip(final long count) {
+		final long skipped = Math.max(0, Math.min(count, length - position));
+		position += skipped;
+		return skipped;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.io.InputStream#available()
+	 */
+	@Override
+	public int available() {
+		return (int) Math.min(Integer.MAX_VALUE, length - position);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.io.InputStream#markSupported()
+	 */
+	@Override
+	public boolean markSupported() {
+		return true;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.io.InputStream#mark(int)
+	 */
+	@Override
+	public synchronized void mark(final int readLimit) {
+		markedPosition = position;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.io.InputStream#reset()
+	 */
+	@Override
+	public synchronized void reset() {
+		position = markedPosition;
+	}
+}
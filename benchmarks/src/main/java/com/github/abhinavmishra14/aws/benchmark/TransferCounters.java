@@ -0,0 +1,58 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.github.abhinavmishra14.aws.util.AWSUtilConstants;
+
+/**
+ * The Class TransferCounters.<br/>
+ * Counts the megabytes moved by a benchmark thread, JMH reports the counter
+ * as MB/s next to the ops/s of the throughput mode.
+ *
+ * @author Abhinav kumar mishra
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class TransferCounters {
+
+	/** The megabytes transferred, public for JMH. */
+	public double megabytes;
+
+	/**
+	 * Resets the counter before each iteration.
+	 */
+	@Setup(Level.Iteration)
+	public void reset() {
+		megabytes = 0;
+	}
+
+	/**
+	 * Adds the transferred bytes.
+	 *
+	 * @param bytes the bytes
+	 */
+	public void add(final long bytes) {
+		megabytes += (double) bytes / AWSUtilConstants.MEGABYTE;
+	}
+}
@@ -0,0 +1,98 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.PutObjectResult;
+import com.github.abhinavmishra14.aws.s3.transfer.TransferConfig;
+
+/**
+ * The Class UploadBenchmark.<br/>
+ * Uploads with {@link com.github.abhinavmishra14.aws.s3.service.AwsS3IamService#uploadObject(String, String, java.io.InputStream)},
+ * streamed as multiparts or spooled to a temporary file first, and from a local file.
+ *
+ * @author Abhinav kumar mishra
+ */
+public class UploadBenchmark extends AbstractLocalS3Benchmark {
+
+	/** The object size. */
+	@Param({ "1KB", "1MB", "64MB", "1GB" })
+	public String size;
+
+	/** Whether streams are uploaded as they are read, false to spool them to a temporary file. */
+	@Param({ "true", "false" })
+	public boolean streamingUpload;
+
+	/** The length. */
+	private long length;
+
+	/** The file to upload. */
+	private File file;
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.benchmark.AbstractLocalS3Benchmark#transferConfig()
+	 */
+	@Override
+	protected TransferConfig transferConfig() {
+		return new TransferConfig().setStreamingUploadEnabled(streamingUpload);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.benchmark.AbstractLocalS3Benchmark#prepare()
+	 */
+	@Override
+	protected void prepare() throws IOException {
+		length = parseSize(size);
+		file = createFile("upload.bin", length);
+	}
+
+	/**
+	 * Upload an object from a stream.
+	 *
+	 * @param counters the counters
+	 * @return the put object result
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	@Benchmark
+	public PutObjectResult uploadStream(final TransferCounters counters) throws IOException {
+		final PutObjectResult result = awsS3IamService.uploadObject(BUCKET, "upload/stream.bin",
+				new RepeatingInputStream(length));
+		counters.add(length);
+		return result;
+	}
+
+	/**
+	 * Upload an object from a file.
+	 *
+	 * @param counters the counters
+	 * @return the put object result
+	 */
+	@Benchmark
+	public PutObjectResult uploadFile(final TransferCounters counters) {
+		final PutObjectResult result = awsS3IamService
+				.uploadObject(new PutObjectRequest(BUCKET, "upload/file.bin", file));
+		counters.add(length);
+		return result;
+	}
+}
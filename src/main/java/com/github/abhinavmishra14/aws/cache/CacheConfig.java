@@ -0,0 +1,119 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.cache;
+
+/**
+ * The Class CacheConfig.<br/>
+ * Holds the settings of the caches of a service: objects, presigned urls and
+ * permission checks. A cache whose config is not set is not created.<br/>
+ * The values are read once when the service is created.
+ *
+ * @author Abhinav kumar mishra
+ */
+public class CacheConfig {
+
+	/** The object cache config. */
+	private ObjectCacheConfig objectCacheConfig;
+
+	/** The presigned url cache config. */
+	private PresignedUrlCacheConfig presignedUrlCacheConfig;
+
+	/** The permission cache config. */
+	private PermissionCacheConfig permissionCacheConfig;
+
+	/**
+	 * Gets the object cache config.
+	 *
+	 * @return the object cache config, null when objects are not cached
+	 */
+	public ObjectCacheConfig getObjectCacheConfig() {
+		return objectCacheConfig;
+	}
+
+	/**
+	 * Sets the object cache config.<br/>
+	 * Objects read with getObject(bucketName, key) are then cached by the
+	 * service, on the heap or on disk, and revalidated once their time to live
+	 * has passed. Writes and deletes through the service drop the cached copies,
+	 * changes made by other clients are seen after the time to live.
+	 *
+	 * @param objectCacheConfig the object cache config, null to not cache objects
+	 * @return the cache config
+	 */
+	public CacheConfig setObjectCacheConfig(final ObjectCacheConfig objectCacheConfig) {
+		this.objectCacheConfig = objectCacheConfig;
+		return this;
+	}
+
+	/**
+	 * Gets the presigned url cache config.
+	 *
+	 * @return the presigned url cache config, null when urls are not cached
+	 */
+	public PresignedUrlCacheConfig getPresignedUrlCacheConfig() {
+		return presignedUrlCacheConfig;
+	}
+
+	/**
+	 * Sets the presigned url cache config.<br/>
+	 * The urls of generateObjectURL and generateObjectUrlAsString with an
+	 * expiration, and of presign, are then cached by bucket, key and expiry
+	 * window: their expiration is rounded up to the end of the window and one
+	 * url serves the requests of the window.
+	 *
+	 * @param presignedUrlCacheConfig the presigned url cache config, null to not cache urls
+	 * @return the cache config
+	 */
+	public CacheConfig setPresignedUrlCacheConfig(final PresignedUrlCacheConfig presignedUrlCacheConfig) {
+		this.presignedUrlCacheConfig = presignedUrlCacheConfig;
+		return this;
+	}
+
+	/**
+	 * Gets the permission cache config.
+	 *
+	 * @return the permission cache config, null when permissions are not cached
+	 */
+	public PermissionCacheConfig getPermissionCacheConfig() {
+		return permissionCacheConfig;
+	}
+
+	/**
+	 * Sets the permission cache config.<br/>
+	 * The acl checks of hasFullControlPermission, checkBucketPermission and
+	 * checkObjectPermission, and the write probe of hasWritePermissionOnBucket,
+	 * are then reused for the time to live; setBucketAcl, setObjectAcl and
+	 * deleteBucket drop them at once.
+	 *
+	 * @param permissionCacheConfig the permission cache config, null to not cache permissions
+	 * @return the cache config
+	 */
+	public CacheConfig setPermissionCacheConfig(final PermissionCacheConfig permissionCacheConfig) {
+		this.permissionCacheConfig = permissionCacheConfig;
+		return this;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "CacheConfig [objectCacheConfig=" + objectCacheConfig + ", presignedUrlCacheConfig="
+				+ presignedUrlCacheConfig + ", permissionCacheConfig=" + permissionCacheConfig + "]";
+	}
+}
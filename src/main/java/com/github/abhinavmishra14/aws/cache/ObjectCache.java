@@ -0,0 +1,961 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.abhinavmishra14.aws.util.AWSUtilConstants;
+import com.github.abhinavmishra14.aws.util.NamedThreadFactory;
+
+/**
+ * The Class ObjectCache.<br/>
+ * Read-through cache of objects in two tiers: small objects are kept on the
+ * heap and larger ones in files of a local directory, each tier within its own
+ * byte budget and evicted least recently used first. Objects larger than a tier
+ * are streamed from the store and not cached.<br/>
+ * A cached object is served without a request for its time to live, it is then
+ * revalidated with its entity tag: the store sends the content again only if the
+ * object changed.<br/>
+ * Concurrent reads of an object missing from the cache share one read of the
+ * store. An object going to disk is written to its file by a fill thread and
+ * served from the file while it grows, so the first bytes do not wait for the
+ * whole object. An object invalidated while it is read from the store is served
+ * to the readers already waiting for it but not cached.<br/>
+ * Files of the disk tier are deleted by {@link #clear()}, those left by a JVM
+ * which exited without clearing its cache are deleted when a cache is created
+ * on the directory.
+ *
+ * @author Abhinav kumar mishra
+ */
+public final class ObjectCache {
+
+	/** The Constant LOGGER. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(ObjectCache.class);
+
+	/** The Constant CACHE_FILE_PREFIX. */
+	private static final String CACHE_FILE_PREFIX = "object";
+
+	/** The Constant CACHE_FILE_SUFFIX. */
+	private static final String CACHE_FILE_SUFFIX = ".cache";
+
+	/** The Constant FILL_BUFFER_SIZE. */
+	private static final int FILL_BUFFER_SIZE = 64 * 1024;
+
+	/** The max heap bytes. */
+	private final long maxHeapBytes;
+
+	/** The max disk bytes. */
+	private final long maxDiskBytes;
+
+	/** The max heap object size. */
+	private final long maxHeapObjectSize;
+
+	/** The time to live millis. */
+	private final long timeToLiveMillis;
+
+	/** The disk directory. */
+	private final File diskDirectory;
+
+	/** The heap entries, in access order. */
+	private final Map<String, CachedObject> heapEntries = new LinkedHashMap<String, CachedObject>(16, 0.75f, true);
+
+	/** The disk entries, in access order. */
+	private final Map<String, CachedObject> diskEntries = new LinkedHashMap<String, CachedObject>(16, 0.75f, true);
+
+	/** The loads from the store in progress, by key. */
+	private final Map<String, Load> loads = new HashMap<String, Load>();
+
+	/** The executor of the fills of the disk tier, null without disk tier. */
+	private final ExecutorService fillExecutor;
+
+	/** The heap bytes. */
+	private long heapBytes;
+
+	/** The disk bytes. */
+	private long diskBytes;
+
+	/** The hits. */
+	private final AtomicLong hits = new AtomicLong();
+
+	/** The misses. */
+	private final AtomicLong misses = new AtomicLong();
+
+	/** The revalidations. */
+	private final AtomicLong revalidations = new AtomicLong();
+
+	/** The evictions. */
+	private final AtomicLong evictions = new AtomicLong();
+
+	/**
+	 * Instantiates a new object cache.
+	 *
+	 * @param cacheConfig the cache config
+	 */
+	public ObjectCache(final ObjectCacheConfig cacheConfig) {
+		super();
+		this.maxHeapBytes = cacheConfig.getMaxHeapBytes();
+		this.maxDiskBytes = cacheConfig.getMaxDiskBytes();
+		this.maxHeapObjectSize = cacheConfig.getMaxHeapObjectSize();
+		this.timeToLiveMillis = cacheConfig.getTimeToLiveMillis();
+		this.diskDirectory = cacheConfig.getDiskDirectory();
+		if (maxDiskBytes > 0 && !diskDirectory.isDirectory() && !diskDirectory.mkdirs()) {
+			throw new IllegalArgumentException("Cache directory cannot be created: " + diskDirectory);
+		}
+		if (maxDiskBytes > 0) {
+			deleteStaleFiles();
+			// A fill lasts as long as the read of its object, fills are not queued
+			fillExecutor = Executors.newCachedThreadPool(
+					new NamedThreadFactory(AWSUtilConstants.CACHE_FILL_THREAD_NAME_PREFIX));
+		} else {
+			fillExecutor = null;
+		}
+	}
+
+	/**
+	 * Reads an object, from the cache while it is fresh or still current and from
+	 * the source otherwise.
+	 *
+	 * @param key the key of the object in the cache, e.g. bucket and key
+	 * @param source the source reading the object from the store
+	 * @return the content of the object, to be closed by the caller
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public InputStream read(final String key, final ObjectSource source) throws IOException {
+		final CachedObject cached = lookup(key);
+		if (cached != null && System.currentTimeMillis() - cached.getValidatedAtMillis() < timeToLiveMillis) {
+			final InputStream content = cached.openStream();
+			if (content != null) {
+				hits.incrementAndGet();
+				return content;
+			}
+		}
+		final Load load;
+		final boolean leader;
+		synchronized (this) {
+			final Load current = loads.get(key);
+			leader = current == null;
+			load = leader ? new Load() : current;
+			if (leader) {
+				loads.put(key, load);
+			}
+		}
+		if (leader) {
+			return load(key, source, cached, load);
+		}
+		final InputStream content = load.follow();
+		if (content != null) {
+			hits.incrementAndGet();
+			return content;
+		}
+		// The load failed or its object is not cached
+		return read(key, source);
+	}
+
+	/**
+	 * Loads an object from the store for all its concurrent readers, the
+	 * object is revalidated when cached.
+	 *
+	 * @param key the key
+	 * @param source the source
+	 * @param cached the cached object, null when not cached
+	 * @param load the load
+	 * @return the content of the object
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private InputStream load(final String key, final ObjectSource source, final CachedObject cached,
+			final Load load) throws IOException {
+		boolean filling = false;
+		SourceObject fillObject = null;
+		File file = null;
+		try {
+			SourceObject sourceObject = source.open(cached == null ? null : cached.getETag());
+			if (sourceObject == null) {
+				if (cached != null) {
+					cached.setValidatedAtMillis(System.currentTimeMillis());
+					final InputStream content = cached.openStream();
+					if (content != null) {
+						revalidations.incrementAndGet();
+						load.finish(cached);
+						return content;
+					}
+				}
+				// Evicted while being revalidated
+				sourceObject = source.open(null);
+				if (sourceObject == null) {
+					throw new IOException("Source answered not modified for the uncached object " + key);
+				}
+			}
+			misses.incrementAndGet();
+			final long length = sourceObject.getLength();
+			final boolean onHeap = length <= maxHeapObjectSize && length <= maxHeapBytes;
+			if (sourceObject.getETag() == null || length < 0 || !onHeap && length > maxDiskBytes) {
+				invalidate(key);
+				return sourceObject.getContent();
+			}
+			if (onHeap) {
+				final CachedObject loaded;
+				try (InputStream content = sourceObject.getContent()) {
+					loaded = new CachedObject(sourceObject.getETag(), length, IOUtils.toByteArray(content, length),
+							null);
+				}
+				put(key, loaded, load);
+				load.finish(loaded);
+				return loaded.openStream();
+			}
+			final SourceObject filledObject = sourceObject;
+			fillObject = filledObject;
+			file = File.createTempFile(CACHE_FILE_PREFIX, CACHE_FILE_SUFFIX, diskDirectory);
+			final InputStream content = new FillingInputStream(load, new FileInputStream(file));
+			load.startFill(file, length);
+			fillExecutor.execute(() -> fill(key, filledObject, load));
+			filling = true;
+			return content;
+		} finally {
+			if (!filling && fillObject != null) {
+				closeContent(key, fillObject);
+				if (file != null && !file.delete()) {
+					LOGGER.debug("Cache file {} of {} could not be deleted", file, key);
+				}
+			}
+			if (!filling) {
+				removeLoad(key, load);
+				// Followers of a failed load read the object again
+				load.finish(null);
+			}
+		}
+	}
+
+	/**
+	 * Writes an object to its file on the fill thread, then caches it.
+	 *
+	 * @param key the key
+	 * @param sourceObject the source object
+	 * @param load the load
+	 */
+	private void fill(final String key, final SourceObject sourceObject, final Load load) {
+		final File file = load.getFile();
+		try {
+			copy(key, sourceObject, load);
+			final CachedObject filled = new CachedObject(sourceObject.getETag(), load.getLength(), null, file);
+			put(key, filled, load);
+			removeLoad(key, load);
+			load.finish(filled);
+		} catch (IOException ioex) {
+			abandonFill(key, load, ioex);
+		} catch (RuntimeException runtimeEx) {
+			abandonFill(key, load, new IOException("Failed to cache " + key, runtimeEx));
+		}
+	}
+
+	/**
+	 * Copy the content of an object to the file of its load, the readers of the
+	 * file are told of every block written.
+	 *
+	 * @param key the key
+	 * @param sourceObject the source object
+	 * @param load the load
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static void copy(final String key, final SourceObject sourceObject, final Load load)
+			throws IOException {
+		final long length = load.getLength();
+		try (InputStream content = sourceObject.getContent();
+				OutputStream outStream = new FileOutputStream(load.getFile())) {
+			// Not buffered, the readers must find in the file the bytes they are told of
+			final byte[] buffer = new byte[FILL_BUFFER_SIZE];
+			long written = 0;
+			int count = content.read(buffer);
+			while (count != -1 && written + count <= length) {
+				outStream.write(buffer, 0, count);
+				written += count;
+				load.advance(written);
+				count = content.read(buffer);
+			}
+			if (count != -1 || written != length) {
+				throw new IOException("Object " + key + " is shorter or longer than " + length + " bytes");
+			}
+		}
+	}
+
+	/**
+	 * Abandon a failed fill, its readers get the failure.
+	 *
+	 * @param key the key
+	 * @param load the load
+	 * @param failure the failure
+	 */
+	private void abandonFill(final String key, final Load load, final IOException failure) {
+		LOGGER.warn("Failed to cache {}", key, failure);
+		removeLoad(key, load);
+		if (!load.getFile().delete()) {
+			LOGGER.debug("Cache file {} of {} could not be deleted", load.getFile(), key);
+		}
+		load.fail(failure);
+	}
+
+	/**
+	 * Close the content of an object which could not be filled.
+	 *
+	 * @param key the key
+	 * @param sourceObject the source object
+	 */
+	private static void closeContent(final String key, final SourceObject sourceObject) {
+		try {
+			sourceObject.getContent().close();
+		} catch (IOException ioex) {
+			LOGGER.debug("Failed to close the content of {}", key, ioex);
+		}
+	}
+
+	/**
+	 * Removes a load once over, unless it was replaced.
+	 *
+	 * @param key the key
+	 * @param load the load
+	 */
+	private synchronized void removeLoad(final String key, final Load load) {
+		loads.remove(key, load);
+	}
+
+	/**
+	 * Drops an object from the cache, e.g. when it is overwritten or deleted.
+	 *
+	 * @param key the key of the object in the cache
+	 */
+	public void invalidate(final String key) {
+		final CachedObject removed;
+		synchronized (this) {
+			removed = remove(key);
+			// The object being read may be the old one, it must not be cached
+			final Load load = loads.remove(key);
+			if (load != null) {
+				load.invalidate();
+			}
+		}
+		if (removed != null) {
+			removed.delete();
+		}
+	}
+
+	/**
+	 * Drops the objects whose key starts with the given prefix, e.g. when a
+	 * directory or a bucket is deleted.
+	 *
+	 * @param keyPrefix the key prefix
+	 */
+	public void invalidatePrefix(final String keyPrefix) {
+		final List<CachedObject> removed = new ArrayList<CachedObject>();
+		synchronized (this) {
+			for (final Map<String, CachedObject> entries : Arrays.asList(heapEntries, diskEntries)) {
+				final Iterator<Map.Entry<String, CachedObject>> entryIterator = entries.entrySet().iterator();
+				while (entryIterator.hasNext()) {
+					final Map.Entry<String, CachedObject> entry = entryIterator.next();
+					if (entry.getKey().startsWith(keyPrefix)) {
+						entryIterator.remove();
+						removed.add(entry.getValue());
+					}
+				}
+			}
+			for (final CachedObject cached : removed) {
+				if (cached.isOnHeap()) {
+					heapBytes -= cached.getLength();
+				} else {
+					diskBytes -= cached.getLength();
+				}
+			}
+			final Iterator<Map.Entry<String, Load>> loadIterator = loads.entrySet().iterator();
+			while (loadIterator.hasNext()) {
+				final Map.Entry<String, Load> entry = loadIterator.next();
+				if (entry.getKey().startsWith(keyPrefix)) {
+					loadIterator.remove();
+					entry.getValue().invalidate();
+				}
+			}
+		}
+		for (final CachedObject cached : removed) {
+			cached.delete();
+		}
+	}
+
+	/**
+	 * Drops all the objects and deletes the files of the disk tier.
+	 */
+	public void clear() {
+		final CachedObject[] removed;
+		synchronized (this) {
+			removed = diskEntries.values().toArray(new CachedObject[diskEntries.size()]);
+			heapEntries.clear();
+			diskEntries.clear();
+			heapBytes = 0;
+			diskBytes = 0;
+			for (final Load load : loads.values()) {
+				load.invalidate();
+			}
+			loads.clear();
+		}
+		for (final CachedObject cachedObject : removed) {
+			cachedObject.delete();
+		}
+	}
+
+	/**
+	 * Gets the stats.
+	 *
+	 * @return a snapshot of the counters and the occupancy of the cache
+	 */
+	public synchronized ObjectCacheStats getStats() {
+		return new ObjectCacheStats(hits.get(), misses.get(), revalidations.get(), evictions.get(),
+				heapEntries.size(), heapBytes, diskEntries.size(), diskBytes);
+	}
+
+	/**
+	 * Looks an object up and marks it as used.
+	 *
+	 * @param key the key
+	 * @return the cached object, null when not cached
+	 */
+	private synchronized CachedObject lookup(final String key) {
+		final CachedObject cached = heapEntries.get(key);
+		return cached == null ? diskEntries.get(key) : cached;
+	}
+
+	/**
+	 * Deletes the files of the disk tier left by a JVM which exited without
+	 * clearing its cache. The files of this JVM are newer than its start.
+	 */
+	private void deleteStaleFiles() {
+		final long jvmStartMillis = ManagementFactory.getRuntimeMXBean().getStartTime();
+		final File[] files = diskDirectory.listFiles(
+				(dir, name) -> name.startsWith(CACHE_FILE_PREFIX) && name.endsWith(CACHE_FILE_SUFFIX));
+		int deleted = 0;
+		if (files != null) {
+			for (final File file : files) {
+				if (file.lastModified() < jvmStartMillis && file.delete()) {
+					deleted++;
+				}
+			}
+		}
+		if (deleted > 0) {
+			LOGGER.info("Deleted {} cache files left in {}", deleted, diskDirectory);
+		}
+	}
+
+	/**
+	 * Puts an object in its tier and evicts the least recently used objects of
+	 * the tier above its budget. The object is dropped when it was invalidated
+	 * since its load started, it may be older than the write invalidating it.
+	 *
+	 * @param key the key
+	 * @param cached the cached object
+	 * @param load the load of the object
+	 */
+	private void put(final String key, final CachedObject cached, final Load load) {
+		final boolean onHeap = cached.isOnHeap();
+		final CachedObject[] evicted;
+		synchronized (this) {
+			if (load.isInvalidated()) {
+				evicted = null;
+			} else {
+				evicted = putInTier(key, cached, onHeap);
+			}
+		}
+		if (evicted == null) {
+			cached.delete();
+			LOGGER.debug("Object {} was invalidated while it was read, it is not cached", key);
+			return;
+		}
+		evictions.addAndGet(evicted.length);
+		for (final CachedObject evictedObject : evicted) {
+			evictedObject.delete();
+		}
+		if (evicted.length > 0 && LOGGER.isDebugEnabled()) {
+			LOGGER.debug("Evicted {} objects to cache {}", evicted.length, key);
+		}
+	}
+
+	/**
+	 * Puts an object in its tier, must be called holding the lock.
+	 *
+	 * @param key the key
+	 * @param cached the cached object
+	 * @param onHeap true, to put the object on the heap tier
+	 * @return the objects evicted
+	 */
+	private CachedObject[] putInTier(final String key, final CachedObject cached, final boolean onHeap) {
+		final CachedObject replaced = remove(key);
+		if (replaced != null) {
+			replaced.delete();
+		}
+		final CachedObject[] evicted;
+		if (onHeap) {
+			heapEntries.put(key, cached);
+			heapBytes += cached.getLength();
+			evicted = evict(heapEntries, heapBytes - maxHeapBytes);
+			heapBytes -= bytesOf(evicted);
+		} else {
+			diskEntries.put(key, cached);
+			diskBytes += cached.getLength();
+			evicted = evict(diskEntries, diskBytes - maxDiskBytes);
+			diskBytes -= bytesOf(evicted);
+		}
+		return evicted;
+	}
+
+	/**
+	 * Removes the least recently used objects of a tier until the given number of
+	 * bytes is freed.
+	 *
+	 * @param entries the entries of the tier
+	 * @param bytesToFree the bytes to free
+	 * @return the evicted objects
+	 */
+	private static CachedObject[] evict(final Map<String, CachedObject> entries, final long bytesToFree) {
+		long freed = 0;
+		int count = 0;
+		final CachedObject[] evicted = new CachedObject[entries.size()];
+		final Iterator<CachedObject> leastRecentlyUsed = entries.values().iterator();
+		while (freed < bytesToFree && leastRecentlyUsed.hasNext()) {
+			final CachedObject cached = leastRecentlyUsed.next();
+			leastRecentlyUsed.remove();
+			freed += cached.getLength();
+			evicted[count++] = cached;
+		}
+		final CachedObject[] result = new CachedObject[count];
+		System.arraycopy(evicted, 0, result, 0, count);
+		return result;
+	}
+
+	/**
+	 * Removes an object from both tiers, must be called holding the lock.
+	 *
+	 * @param key the key
+	 * @return the removed object, null when not cached
+	 */
+	private CachedObject remove(final String key) {
+		final CachedObject onHeap = heapEntries.remove(key);
+		if (onHeap != null) {
+			heapBytes -= onHeap.getLength();
+			return onHeap;
+		}
+		final CachedObject onDisk = diskEntries.remove(key);
+		if (onDisk != null) {
+			diskBytes -= onDisk.getLength();
+		}
+		return onDisk;
+	}
+
+	/**
+	 * Gets the bytes of the given objects.
+	 *
+	 * @param cachedObjects the cached objects
+	 * @return the bytes
+	 */
+	private static long bytesOf(final CachedObject... cachedObjects) {
+		long bytes = 0;
+		for (final CachedObject cached : cachedObjects) {
+			bytes += cached.getLength();
+		}
+		return bytes;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "ObjectCache [maxHeapBytes=" + maxHeapBytes + ", maxDiskBytes=" + maxDiskBytes
+				+ ", maxHeapObjectSize=" + maxHeapObjectSize + ", timeToLiveMillis=" + timeToLiveMillis
+				+ ", diskDirectory=" + diskDirectory + "]";
+	}
+
+	/**
+	 * The Class CachedObject.<br/>
+	 * The content of an object on the heap or in a file, with the entity tag it
+	 * is revalidated with.
+	 */
+	private static final class CachedObject {
+
+		/** The e tag. */
+		private final String eTag;
+
+		/** The length. */
+		private final long length;
+
+		/** The content, null when on disk. */
+		private final byte[] content;
+
+		/** The file, null when on the heap. */
+		private final File file;
+
+		/** The validated at millis. */
+		private volatile long validatedAtMillis = System.currentTimeMillis();
+
+		/**
+		 * Instantiates a new cached object.
+		 *
+		 * @param eTag the entity tag
+		 * @param length the length in bytes
+		 * @param content the content, null when on disk
+		 * @param file the file, null when on the heap
+		 */
+		private CachedObject(final String eTag, final long length, final byte[] content, final File file) {
+			this.eTag = eTag;
+			this.length = length;
+			this.content = content;
+			this.file = file;
+		}
+
+		/**
+		 * Opens the content.
+		 *
+		 * @return the content, null when the file has been evicted meanwhile
+		 */
+		public InputStream openStream() {
+			if (content != null) {
+				return new ByteArrayInputStream(content);
+			}
+			try {
+				return new FileInputStream(file);
+			} catch (FileNotFoundException fnfe) {
+				LOGGER.debug("Cached file {} is gone", file);
+				return null;
+			}
+		}
+
+		/**
+		 * Deletes the file of an object cached on disk.
+		 */
+		public void delete() {
+			if (file != null && file.exists() && !file.delete()) {
+				// Still open by a reader on some platforms
+				LOGGER.warn("Cached file {} could not be deleted", file);
+				file.deleteOnExit();
+			}
+		}
+
+		/**
+		 * Checks if the object is on the heap.
+		 *
+		 * @return true, if on the heap tier
+		 */
+		public boolean isOnHeap() {
+			return content != null;
+		}
+
+		/**
+		 * Gets the entity tag.
+		 *
+		 * @return the entity tag
+		 */
+		public String getETag() {
+			return eTag;
+		}
+
+		/**
+		 * Gets the length.
+		 *
+		 * @return the length in bytes
+		 */
+		public long getLength() {
+			return length;
+		}
+
+		/**
+		 * Gets the validated at millis.
+		 *
+		 * @return the time the object was last read or revalidated from the store
+		 */
+		public long getValidatedAtMillis() {
+			return validatedAtMillis;
+		}
+
+		/**
+		 * Sets the validated at millis.
+		 *
+		 * @param validatedAtMillis the time the object was last revalidated
+		 */
+		public void setValidatedAtMillis(final long validatedAtMillis) {
+			this.validatedAtMillis = validatedAtMillis;
+		}
+	}
+
+	/**
+	 * The Class Load.<br/>
+	 * A read of an object from the store shared by its concurrent readers. An
+	 * object going to disk is announced with its file as soon as the fill
+	 * starts, its readers follow the bytes written.
+	 */
+	private static final class Load {
+
+		/** The invalidated flag, guarded by the lock of the cache. */
+		private boolean invalidated;
+
+		/** The file filled, null for an object not going to disk. */
+		private File file;
+
+		/** The length of the object filled. */
+		private long length;
+
+		/** The bytes written to the file. */
+		private long written;
+
+		/** The done flag. */
+		private boolean done;
+
+		/** The object loaded, null when not cached. */
+		private CachedObject loaded;
+
+		/** The failure of the fill. */
+		private IOException failure;
+
+		/**
+		 * Marks the load as invalidated, must be called holding the lock of the cache.
+		 */
+		public void invalidate() {
+			invalidated = true;
+		}
+
+		/**
+		 * Checks if the load was invalidated, must be called holding the lock of the cache.
+		 *
+		 * @return true, if invalidated since it started
+		 */
+		public boolean isInvalidated() {
+			return invalidated;
+		}
+
+		/**
+		 * Starts the fill of the file of the object.
+		 *
+		 * @param fillFile the file
+		 * @param fillLength the length of the object
+		 */
+		public synchronized void startFill(final File fillFile, final long fillLength) {
+			this.file = fillFile;
+			this.length = fillLength;
+			notifyAll();
+		}
+
+		/**
+		 * Gets the file filled.
+		 *
+		 * @return the file
+		 */
+		public synchronized File getFile() {
+			return file;
+		}
+
+		/**
+		 * Gets the length of the object filled.
+		 *
+		 * @return the length
+		 */
+		public synchronized long getLength() {
+			return length;
+		}
+
+		/**
+		 * Tells the readers bytes were written to the file.
+		 *
+		 * @param bytesWritten the bytes written so far
+		 */
+		public synchronized void advance(final long bytesWritten) {
+			this.written = bytesWritten;
+			notifyAll();
+		}
+
+		/**
+		 * Finish the load, ignored if already finished.
+		 *
+		 * @param cachedObject the object loaded, null when not cached
+		 */
+		public synchronized void finish(final CachedObject cachedObject) {
+			if (!done) {
+				done = true;
+				loaded = cachedObject;
+				notifyAll();
+			}
+		}
+
+		/**
+		 * Fail the fill.
+		 *
+		 * @param fillFailure the failure
+		 */
+		public synchronized void fail(final IOException fillFailure) {
+			failure = fillFailure;
+			done = true;
+			notifyAll();
+		}
+
+		/**
+		 * Creates the exception thrown when a wait for the load is interrupted.
+		 *
+		 * @param intrEx the interruption
+		 * @return the interrupted IO exception
+		 */
+		private InterruptedIOException interrupted(final InterruptedException intrEx) {
+			final InterruptedIOException interruptedIOEx = new InterruptedIOException(
+					"Interrupted while waiting for an object of the cache");
+			interruptedIOEx.initCause(intrEx);
+			return interruptedIOEx;
+		}
+
+		/**
+		 * Waits for the object of the load.
+		 *
+		 * @return the content of the object, null when the object is not cached or the load failed
+		 * @throws InterruptedIOException when interrupted while waiting
+		 */
+		public synchronized InputStream follow() throws InterruptedIOException {
+			try {
+				while (file == null && !done) {
+					wait();
+				}
+			} catch (InterruptedException intrEx) {
+				Thread.currentThread().interrupt();
+				throw interrupted(intrEx);
+			}
+			if (file == null) {
+				return loaded == null ? null : loaded.openStream();
+			}
+			if (failure != null) {
+				return null;
+			}
+			try {
+				return new FillingInputStream(this, new FileInputStream(file));
+			} catch (FileNotFoundException fnfe) {
+				LOGGER.debug("Cache file {} is gone", file);
+				return null;
+			}
+		}
+
+		/**
+		 * Waits for bytes to be written after the given position of the file.
+		 *
+		 * @param position the position
+		 * @return the bytes that can be read, -1 at the end of the object
+		 * @throws IOException Signals that the fill failed or the wait was interrupted.
+		 */
+		public synchronized long awaitReadable(final long position) throws IOException {
+			try {
+				while (written <= position && !done) {
+					wait();
+				}
+			} catch (InterruptedException intrEx) {
+				Thread.currentThread().interrupt();
+				throw interrupted(intrEx);
+			}
+			if (written > position) {
+				return written - position;
+			}
+			if (failure != null) {
+				throw new IOException("Failed to read the object from the store", failure);
+			}
+			return -1;
+		}
+	}
+
+	/**
+	 * The Class FillingInputStream.<br/>
+	 * Reads the file of an object while it is filled, up to the bytes written.
+	 */
+	private static final class FillingInputStream extends InputStream {
+
+		/** The load. */
+		private final Load load;
+
+		/** The stream of the file. */
+		private final InputStream fileStream;
+
+		/** The position. */
+		private long position;
+
+		/**
+		 * Instantiates a new filling input stream.
+		 *
+		 * @param load the load
+		 * @param fileStream the stream of the file
+		 */
+		private FillingInputStream(final Load load, final InputStream fileStream) {
+			super();
+			this.load = load;
+			this.fileStream = fileStream;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.io.InputStream#read()
+		 */
+		@Override
+		public int read() throws IOException {
+			final byte[] single = new byte[1];
+			final int count = read(single, 0, 1);
+			return count == -1 ? -1 : single[0] & 0xFF;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.io.InputStream#read(byte[], int, int)
+		 */
+		@Override
+		public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+			if (length == 0) {
+				return 0;
+			}
+			final long readable = load.awaitReadable(position);
+			if (readable < 0) {
+				return -1;
+			}
+			final int count = fileStream.read(buffer, offset, (int) Math.min(length, readable));
+			if (count > 0) {
+				position += count;
+			}
+			return count;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.io.InputStream#close()
+		 */
+		@Override
+		public void close() throws IOException {
+			fileStream.close();
+		}
+	}
+}
@@ -0,0 +1,177 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.cache;
+
+import java.io.File;
+
+import com.github.abhinavmishra14.aws.util.AWSUtil;
+import com.github.abhinavmishra14.aws.util.AWSUtilConstants;
+
+/**
+ * The Class ObjectCacheConfig.<br/>
+ * Holds the settings of an {@link ObjectCache}: the byte budgets of the heap
+ * and disk tiers, the size up to which objects are kept on the heap and the time
+ * after which a cached object is revalidated.<br/>
+ * The values are read once when the cache is created.
+ *
+ * @author Abhinav kumar mishra
+ */
+public class ObjectCacheConfig {
+
+	/** The max heap bytes. */
+	private long maxHeapBytes = AWSUtilConstants.DEFAULT_CACHE_HEAP_BYTES;
+
+	/** The max disk bytes. */
+	private long maxDiskBytes = AWSUtilConstants.DEFAULT_CACHE_DISK_BYTES;
+
+	/** The max heap object size. */
+	private long maxHeapObjectSize = AWSUtilConstants.DEFAULT_CACHE_MAX_HEAP_OBJECT_SIZE;
+
+	/** The time to live millis. */
+	private long timeToLiveMillis = AWSUtilConstants.DEFAULT_CACHE_TTL_MILLIS;
+
+	/** The disk directory. */
+	private File diskDirectory = new File(System.getProperty("java.io.tmpdir"),
+			AWSUtilConstants.OBJECT_CACHE_DIR_NAME);
+
+	/**
+	 * Gets the max heap bytes.
+	 *
+	 * @return the bytes of the objects cached on the heap
+	 */
+	public long getMaxHeapBytes() {
+		return maxHeapBytes;
+	}
+
+	/**
+	 * Sets the max heap bytes.
+	 *
+	 * @param maxHeapBytes the bytes of the objects cached on the heap, 0 to cache on disk only
+	 * @return the object cache config
+	 */
+	public ObjectCacheConfig setMaxHeapBytes(final long maxHeapBytes) {
+		if (maxHeapBytes < 0) {
+			throw new IllegalArgumentException("Max heap bytes must not be negative.");
+		}
+		this.maxHeapBytes = maxHeapBytes;
+		return this;
+	}
+
+	/**
+	 * Gets the max disk bytes.
+	 *
+	 * @return the bytes of the objects cached on disk
+	 */
+	public long getMaxDiskBytes() {
+		return maxDiskBytes;
+	}
+
+	/**
+	 * Sets the max disk bytes.<br/>
+	 * Objects larger than the disk tier are streamed and not cached.
+	 *
+	 * @param maxDiskBytes the bytes of the objects cached on disk, 0 to cache on the heap only
+	 * @return the object cache config
+	 */
+	public ObjectCacheConfig setMaxDiskBytes(final long maxDiskBytes) {
+		if (maxDiskBytes < 0) {
+			throw new IllegalArgumentException("Max disk bytes must not be negative.");
+		}
+		this.maxDiskBytes = maxDiskBytes;
+		return this;
+	}
+
+	/**
+	 * Gets the max heap object size.
+	 *
+	 * @return the size in bytes up to which objects are cached on the heap
+	 */
+	public long getMaxHeapObjectSize() {
+		return maxHeapObjectSize;
+	}
+
+	/**
+	 * Sets the max heap object size.
+	 *
+	 * @param maxHeapObjectSize the size in bytes up to which objects are cached on the heap, larger ones go to disk
+	 * @return the object cache config
+	 */
+	public ObjectCacheConfig setMaxHeapObjectSize(final long maxHeapObjectSize) {
+		if (maxHeapObjectSize < 0 || maxHeapObjectSize > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Max heap object size must be between 0 and 2 GB.");
+		}
+		this.maxHeapObjectSize = maxHeapObjectSize;
+		return this;
+	}
+
+	/**
+	 * Gets the time to live millis.
+	 *
+	 * @return the time after which a cached object is revalidated
+	 */
+	public long getTimeToLiveMillis() {
+		return timeToLiveMillis;
+	}
+
+	/**
+	 * Sets the time to live millis.<br/>
+	 * A cached object older than this is revalidated with a conditional request,
+	 * which costs a round trip but no content when the object did not change.
+	 *
+	 * @param timeToLiveMillis the time after which a cached object is revalidated, 0 to revalidate on every read
+	 * @return the object cache config
+	 */
+	public ObjectCacheConfig setTimeToLiveMillis(final long timeToLiveMillis) {
+		if (timeToLiveMillis < 0) {
+			throw new IllegalArgumentException("Time to live must not be negative.");
+		}
+		this.timeToLiveMillis = timeToLiveMillis;
+		return this;
+	}
+
+	/**
+	 * Gets the disk directory.
+	 *
+	 * @return the directory holding the disk tier
+	 */
+	public File getDiskDirectory() {
+		return diskDirectory;
+	}
+
+	/**
+	 * Sets the disk directory.
+	 *
+	 * @param diskDirectory the directory holding the disk tier, created when missing
+	 * @return the object cache config
+	 */
+	public ObjectCacheConfig setDiskDirectory(final File diskDirectory) {
+		AWSUtil.notNull(diskDirectory, "Disk directory is null!");
+		this.diskDirectory = diskDirectory;
+		return this;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "ObjectCacheConfig [maxHeapBytes=" + maxHeapBytes + ", maxDiskBytes=" + maxDiskBytes
+				+ ", maxHeapObjectSize=" + maxHeapObjectSize + ", timeToLiveMillis=" + timeToLiveMillis
+				+ ", diskDirectory=" + diskDirectory + "]";
+	}
+}
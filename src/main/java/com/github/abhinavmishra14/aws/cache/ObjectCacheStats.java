@@ -0,0 +1,173 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.cache;
+
+/**
+ * The Class ObjectCacheStats.<br/>
+ * Point in time snapshot of the counters and the occupancy of an
+ * {@link ObjectCache}. A read is either a hit, served from the cache, a
+ * revalidation, served from the cache after the store answered that the object
+ * did not change, or a miss, read from the store.
+ *
+ * @author Abhinav kumar mishra
+ */
+public final class ObjectCacheStats {
+
+	/** The hit count. */
+	private final long hitCount;
+
+	/** The miss count. */
+	private final long missCount;
+
+	/** The revalidation count. */
+	private final long revalidationCount;
+
+	/** The eviction count. */
+	private final long evictionCount;
+
+	/** The heap entry count. */
+	private final int heapEntryCount;
+
+	/** The heap bytes. */
+	private final long heapBytes;
+
+	/** The disk entry count. */
+	private final int diskEntryCount;
+
+	/** The disk bytes. */
+	private final long diskBytes;
+
+	/**
+	 * Instantiates a new object cache stats.
+	 *
+	 * @param hitCount the hit count
+	 * @param missCount the miss count
+	 * @param revalidationCount the revalidation count
+	 * @param evictionCount the eviction count
+	 * @param heapEntryCount the heap entry count
+	 * @param heapBytes the heap bytes
+	 * @param diskEntryCount the disk entry count
+	 * @param diskBytes the disk bytes
+	 */
+	public ObjectCacheStats(final long hitCount, final long missCount, final long revalidationCount,
+			final long evictionCount, final int heapEntryCount, final long heapBytes, final int diskEntryCount,
+			final long diskBytes) {
+		super();
+		this.hitCount = hitCount;
+		this.missCount = missCount;
+		this.revalidationCount = revalidationCount;
+		this.evictionCount = evictionCount;
+		this.heapEntryCount = heapEntryCount;
+		this.heapBytes = heapBytes;
+		this.diskEntryCount = diskEntryCount;
+		this.diskBytes = diskBytes;
+	}
+
+	/**
+	 * Gets the hit count.
+	 *
+	 * @return the number of reads served from the cache without a request
+	 */
+	public long getHitCount() {
+		return hitCount;
+	}
+
+	/**
+	 * Gets the miss count.
+	 *
+	 * @return the number of reads which downloaded the object
+	 */
+	public long getMissCount() {
+		return missCount;
+	}
+
+	/**
+	 * Gets the revalidation count.
+	 *
+	 * @return the number of reads served from the cache after a not modified answer
+	 */
+	public long getRevalidationCount() {
+		return revalidationCount;
+	}
+
+	/**
+	 * Gets the eviction count.
+	 *
+	 * @return the number of objects dropped to stay within the byte budgets
+	 */
+	public long getEvictionCount() {
+		return evictionCount;
+	}
+
+	/**
+	 * Gets the heap entry count.
+	 *
+	 * @return the number of objects cached on the heap
+	 */
+	public int getHeapEntryCount() {
+		return heapEntryCount;
+	}
+
+	/**
+	 * Gets the heap bytes.
+	 *
+	 * @return the bytes cached on the heap
+	 */
+	public long getHeapBytes() {
+		return heapBytes;
+	}
+
+	/**
+	 * Gets the disk entry count.
+	 *
+	 * @return the number of objects cached on disk
+	 */
+	public int getDiskEntryCount() {
+		return diskEntryCount;
+	}
+
+	/**
+	 * Gets the disk bytes.
+	 *
+	 * @return the bytes cached on disk
+	 */
+	public long getDiskBytes() {
+		return diskBytes;
+	}
+
+	/**
+	 * Gets the hit ratio.
+	 *
+	 * @return the share of the reads which did not download the object, revalidations included
+	 */
+	public double getHitRatio() {
+		final long reads = hitCount + revalidationCount + missCount;
+		return reads == 0 ? 0 : (double) (hitCount + revalidationCount) / reads;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "ObjectCacheStats [hitCount=" + hitCount + ", missCount=" + missCount + ", revalidationCount="
+				+ revalidationCount + ", evictionCount=" + evictionCount + ", heapEntryCount=" + heapEntryCount
+				+ ", heapBytes=" + heapBytes + ", diskEntryCount=" + diskEntryCount + ", diskBytes=" + diskBytes
+				+ "]";
+	}
+}
@@ -0,0 +1,40 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.cache;
+
+import java.io.IOException;
+
+/**
+ * The Interface ObjectSource.<br/>
+ * Reads an object from the store on a cache miss or revalidation, e.g. with a
+ * GET request carrying an If-None-Match header.
+ *
+ * @author Abhinav kumar mishra
+ */
+@FunctionalInterface
+public interface ObjectSource {
+
+	/**
+	 * Opens the object unless it still has the given entity tag.
+	 *
+	 * @param cachedETag the entity tag of the cached copy, null when nothing is cached
+	 * @return the object, null when the cached copy is still current
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	SourceObject open(final String cachedETag) throws IOException;
+}
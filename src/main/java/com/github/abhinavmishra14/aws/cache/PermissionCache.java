@@ -0,0 +1,271 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.cache;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * The Class PermissionCache.<br/>
+ * Cache of permission checks, e.g. the permissions granted by the acl of a
+ * bucket or the result of a write probe, by key. A check is reused for the
+ * configured time to live, then done again on the next lookup; the callers
+ * changing an acl invalidate its checks at once.<br/>
+ * Concurrent lookups of a key which is not cached wait for a single check
+ * instead of each sending its own request. A failed check is not cached, the
+ * callers waiting for it get its exception.<br/>
+ * The cache holds a bounded number of checks, the expired are evicted first.
+ * This class is thread safe.
+ *
+ * @author Abhinav kumar mishra
+ * @param <V> the type of the checked value
+ */
+public final class PermissionCache<V> {
+
+	/** The time to live nanos. */
+	private final long timeToLiveNanos;
+
+	/** The max entries. */
+	private final int maxEntries;
+
+	/** The entries, done or in flight. */
+	private final ConcurrentMap<String, CachedCheck<V>> entries = new ConcurrentHashMap<String, CachedCheck<V>>();
+
+	/** The hits. */
+	private final AtomicLong hits = new AtomicLong();
+
+	/** The misses. */
+	private final AtomicLong misses = new AtomicLong();
+
+	/** The evictions. */
+	private final AtomicLong evictions = new AtomicLong();
+
+	/**
+	 * Instantiates a new permission cache.
+	 *
+	 * @param cacheConfig the cache config
+	 */
+	public PermissionCache(final PermissionCacheConfig cacheConfig) {
+		super();
+		this.timeToLiveNanos = TimeUnit.MILLISECONDS.toNanos(cacheConfig.getTimeToLiveMillis());
+		this.maxEntries = cacheConfig.getMaxEntries();
+	}
+
+	/**
+	 * Gets a check, doing it when it is not cached or expired.<br/>
+	 * When the check of the key is in flight on another thread, waits for it.
+	 *
+	 * @param key the key
+	 * @param loader does the check, called on the current thread
+	 * @return the checked value
+	 */
+	public V get(final String key, final Supplier<V> loader) {
+		while (true) {
+			final CachedCheck<V> cached = entries.get(key);
+			if (cached != null && !cached.isExpired(System.nanoTime(), timeToLiveNanos)) {
+				hits.incrementAndGet();
+				return cached.await();
+			}
+			final CachedCheck<V> loading = new CachedCheck<V>();
+			final boolean owner = cached == null ? entries.putIfAbsent(key, loading) == null
+					: entries.replace(key, cached, loading);
+			if (owner) {
+				misses.incrementAndGet();
+				evictIfFull();
+				return load(key, loading, loader);
+			}
+			// Another thread started the check first, wait for it
+		}
+	}
+
+	/**
+	 * Drops the check of a key, e.g. when its acl is changed.
+	 *
+	 * @param key the key
+	 */
+	public void invalidate(final String key) {
+		entries.remove(key);
+	}
+
+	/**
+	 * Drops the checks whose key starts with the given prefix, e.g. when a
+	 * bucket is deleted.
+	 *
+	 * @param keyPrefix the key prefix
+	 */
+	public void invalidatePrefix(final String keyPrefix) {
+		entries.keySet().removeIf(key -> key.startsWith(keyPrefix));
+	}
+
+	/**
+	 * Drops all the checks.
+	 */
+	public void clear() {
+		entries.clear();
+	}
+
+	/**
+	 * Gets the stats.
+	 *
+	 * @return a snapshot of the counters and the occupancy of the cache
+	 */
+	public PermissionCacheStats getStats() {
+		return new PermissionCacheStats(hits.get(), misses.get(), evictions.get(), entries.size());
+	}
+
+	/**
+	 * Does a check and publishes its outcome to the waiting callers.
+	 *
+	 * @param key the key
+	 * @param loading the entry of the check in flight
+	 * @param loader the loader
+	 * @return the checked value
+	 */
+	private V load(final String key, final CachedCheck<V> loading, final Supplier<V> loader) {
+		final V value;
+		try {
+			value = loader.get();
+		} catch (RuntimeException | Error checkEx) {
+			// Not cached, the next lookup checks again
+			entries.remove(key, loading);
+			loading.fail(checkEx);
+			throw checkEx;
+		}
+		loading.complete(value, System.nanoTime());
+		return value;
+	}
+
+	/**
+	 * Evicts the expired checks, then any done check, while the cache holds
+	 * more than the max entries.
+	 */
+	private void evictIfFull() {
+		if (entries.size() <= maxEntries) {
+			return;
+		}
+		final long nowNanos = System.nanoTime();
+		for (final boolean expiredOnly : new boolean[] { true, false }) {
+			final Iterator<Map.Entry<String, CachedCheck<V>>> entryIterator = entries.entrySet().iterator();
+			while (entries.size() > maxEntries && entryIterator.hasNext()) {
+				final Map.Entry<String, CachedCheck<V>> entry = entryIterator.next();
+				final CachedCheck<V> cached = entry.getValue();
+				if (cached.isDone() && (!expiredOnly || cached.isExpired(nowNanos, timeToLiveNanos))
+						&& entries.remove(entry.getKey(), cached)) {
+					evictions.incrementAndGet();
+				}
+			}
+		}
+	}
+
+	/**
+	 * The Class CachedCheck.<br/>
+	 * A check in flight, then its value or failure and the time it was done.
+	 *
+	 * @param <V> the type of the checked value
+	 */
+	private static final class CachedCheck<V> {
+
+		/** The value. */
+		private V value;
+
+		/** The failure, null when the check succeeded. */
+		private Throwable failure;
+
+		/** The done. */
+		private boolean done;
+
+		/** The loaded at nanos. */
+		private long loadedAtNanos;
+
+		/**
+		 * Publishes the value of the check.
+		 *
+		 * @param checkedValue the checked value
+		 * @param nowNanos the time the check was done
+		 */
+		private synchronized void complete(final V checkedValue, final long nowNanos) {
+			this.value = checkedValue;
+			this.loadedAtNanos = nowNanos;
+			this.done = true;
+			notifyAll();
+		}
+
+		/**
+		 * Publishes the failure of the check.
+		 *
+		 * @param checkFailure the check failure
+		 */
+		private synchronized void fail(final Throwable checkFailure) {
+			this.failure = checkFailure;
+			this.done = true;
+			notifyAll();
+		}
+
+		/**
+		 * Checks if the check is done.
+		 *
+		 * @return true, if done
+		 */
+		private synchronized boolean isDone() {
+			return done;
+		}
+
+		/**
+		 * Checks if the check is expired, a check in flight is not.
+		 *
+		 * @param nowNanos the now nanos
+		 * @param timeToLiveNanos the time to live nanos
+		 * @return true, if expired
+		 */
+		private synchronized boolean isExpired(final long nowNanos, final long timeToLiveNanos) {
+			return done && nowNanos - loadedAtNanos >= timeToLiveNanos;
+		}
+
+		/**
+		 * Waits for the check to be done.
+		 *
+		 * @return the checked value
+		 */
+		private synchronized V await() {
+			boolean interrupted = false;
+			while (!done) {
+				try {
+					wait();
+				} catch (InterruptedException intEx) {
+					// The check is bounded by the client timeouts, keep waiting
+					interrupted = true;
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+			if (failure instanceof RuntimeException) {
+				throw (RuntimeException) failure;
+			}
+			if (failure instanceof Error) {
+				throw (Error) failure;
+			}
+			return value;
+		}
+	}
+}
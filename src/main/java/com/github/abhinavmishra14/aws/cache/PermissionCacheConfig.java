@@ -0,0 +1,93 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.cache;
+
+import com.github.abhinavmishra14.aws.util.AWSUtilConstants;
+
+/**
+ * The Class PermissionCacheConfig.<br/>
+ * Holds the settings of a {@link PermissionCache}: how long a permission check
+ * is reused and the number of checks kept.<br/>
+ * The values are read once when the cache is created.
+ *
+ * @author Abhinav kumar mishra
+ */
+public class PermissionCacheConfig {
+
+	/** The time to live millis. */
+	private long timeToLiveMillis = AWSUtilConstants.DEFAULT_PERMISSION_CACHE_TTL_MILLIS;
+
+	/** The max entries. */
+	private int maxEntries = AWSUtilConstants.DEFAULT_PERMISSION_CACHE_MAX_ENTRIES;
+
+	/**
+	 * Gets the time to live millis.
+	 *
+	 * @return the time a check is reused for
+	 */
+	public long getTimeToLiveMillis() {
+		return timeToLiveMillis;
+	}
+
+	/**
+	 * Sets the time to live millis.<br/>
+	 * A change of the acl made by another client is seen at the latest after
+	 * this time, the changes made through the service are seen at once.
+	 *
+	 * @param timeToLiveMillis the time a check is reused for
+	 * @return the permission cache config
+	 */
+	public PermissionCacheConfig setTimeToLiveMillis(final long timeToLiveMillis) {
+		if (timeToLiveMillis <= 0) {
+			throw new IllegalArgumentException("Time to live must be positive.");
+		}
+		this.timeToLiveMillis = timeToLiveMillis;
+		return this;
+	}
+
+	/**
+	 * Gets the max entries.
+	 *
+	 * @return the number of checks kept
+	 */
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+
+	/**
+	 * Sets the max entries.
+	 *
+	 * @param maxEntries the number of checks kept, the expired are evicted first
+	 * @return the permission cache config
+	 */
+	public PermissionCacheConfig setMaxEntries(final int maxEntries) {
+		if (maxEntries <= 0) {
+			throw new IllegalArgumentException("Max entries must be positive.");
+		}
+		this.maxEntries = maxEntries;
+		return this;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "PermissionCacheConfig [timeToLiveMillis=" + timeToLiveMillis + ", maxEntries=" + maxEntries + "]";
+	}
+}
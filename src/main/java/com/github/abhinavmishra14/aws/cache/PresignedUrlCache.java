@@ -0,0 +1,181 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The Class PresignedUrlCache.<br/>
+ * Cache of presigned urls by bucket, key and expiry window. The expiration
+ * asked for a url is rounded up to the end of its window, see
+ * {@link #roundExpiration(long)}, and the url is signed to expire then: all the
+ * requests whose expiration falls in the same window get the same url, which is
+ * valid at least as long as each of them asked. A url is never served after its
+ * expiration.<br/>
+ * The cache holds a bounded number of urls, the least recently used are evicted
+ * first. This class is thread safe.
+ *
+ * @author Abhinav kumar mishra
+ */
+public final class PresignedUrlCache {
+
+	/** The expiry window millis. */
+	private final long expiryWindowMillis;
+
+	/** The max entries. */
+	private final int maxEntries;
+
+	/** The entries, in access order. */
+	private final Map<String, CachedUrl> entries = new LinkedHashMap<String, CachedUrl>(16, 0.75f, true);
+
+	/** The hits. */
+	private final AtomicLong hits = new AtomicLong();
+
+	/** The misses. */
+	private final AtomicLong misses = new AtomicLong();
+
+	/** The evictions. */
+	private final AtomicLong evictions = new AtomicLong();
+
+	/**
+	 * Instantiates a new presigned url cache.
+	 *
+	 * @param cacheConfig the cache config
+	 */
+	public PresignedUrlCache(final PresignedUrlCacheConfig cacheConfig) {
+		super();
+		this.expiryWindowMillis = cacheConfig.getExpiryWindowMillis();
+		this.maxEntries = cacheConfig.getMaxEntries();
+	}
+
+	/**
+	 * Round an expiration up to the end of its window.
+	 *
+	 * @param expirationMillis the expiration asked
+	 * @return the first multiple of the expiry window at or after the expiration
+	 */
+	public long roundExpiration(final long expirationMillis) {
+		final long remainder = Math.floorMod(expirationMillis, expiryWindowMillis);
+		return remainder == 0 ? expirationMillis : expirationMillis - remainder + expiryWindowMillis;
+	}
+
+	/**
+	 * Gets a cached url.
+	 *
+	 * @param bucketName the bucket name
+	 * @param key the key
+	 * @param windowEndMillis the rounded expiration, see {@link #roundExpiration(long)}
+	 * @return the url, null when not cached or expired
+	 */
+	public String get(final String bucketName, final String key, final long windowEndMillis) {
+		final String cacheKey = cacheKey(bucketName, key, windowEndMillis);
+		final long nowMillis = System.currentTimeMillis();
+		CachedUrl cached;
+		synchronized (this) {
+			cached = entries.get(cacheKey);
+			if (cached != null && cached.expirationMillis <= nowMillis) {
+				entries.remove(cacheKey);
+				cached = null;
+			}
+		}
+		if (cached == null) {
+			misses.incrementAndGet();
+			return null;
+		}
+		hits.incrementAndGet();
+		return cached.url;
+	}
+
+	/**
+	 * Caches a url.
+	 *
+	 * @param bucketName the bucket name
+	 * @param key the key
+	 * @param windowEndMillis the rounded expiration the url was signed with
+	 * @param url the url
+	 */
+	public void put(final String bucketName, final String key, final long windowEndMillis, final String url) {
+		final String cacheKey = cacheKey(bucketName, key, windowEndMillis);
+		synchronized (this) {
+			entries.put(cacheKey, new CachedUrl(url, windowEndMillis));
+			final Iterator<CachedUrl> eldest = entries.values().iterator();
+			while (entries.size() > maxEntries) {
+				eldest.next();
+				eldest.remove();
+				evictions.incrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * Drops all the urls.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+	}
+
+	/**
+	 * Gets the stats.
+	 *
+	 * @return a snapshot of the counters and the occupancy of the cache
+	 */
+	public synchronized PresignedUrlCacheStats getStats() {
+		return new PresignedUrlCacheStats(hits.get(), misses.get(), evictions.get(), entries.size());
+	}
+
+	/**
+	 * Builds the key of a url in the cache.
+	 *
+	 * @param bucketName the bucket name
+	 * @param key the key
+	 * @param windowEndMillis the window end millis
+	 * @return the cache key
+	 */
+	private static String cacheKey(final String bucketName, final String key, final long windowEndMillis) {
+		// A bucket name has no new line, the key may have any character
+		return new StringBuilder(bucketName.length() + key.length() + 21).append(bucketName).append('\n')
+				.append(windowEndMillis).append('\n').append(key).toString();
+	}
+
+	/**
+	 * The Class CachedUrl.<br/>
+	 * A url and the time it expires.
+	 */
+	private static final class CachedUrl {
+
+		/** The url. */
+		private final String url;
+
+		/** The expiration millis. */
+		private final long expirationMillis;
+
+		/**
+		 * Instantiates a new cached url.
+		 *
+		 * @param url the url
+		 * @param expirationMillis the expiration millis
+		 */
+		CachedUrl(final String url, final long expirationMillis) {
+			this.url = url;
+			this.expirationMillis = expirationMillis;
+		}
+	}
+}
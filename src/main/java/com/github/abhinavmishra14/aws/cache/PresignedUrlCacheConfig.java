@@ -0,0 +1,95 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.cache;
+
+import com.github.abhinavmishra14.aws.util.AWSUtilConstants;
+
+/**
+ * The Class PresignedUrlCacheConfig.<br/>
+ * Holds the settings of a {@link PresignedUrlCache}: the window the expirations
+ * are rounded up to and the number of urls kept.<br/>
+ * The values are read once when the cache is created.
+ *
+ * @author Abhinav kumar mishra
+ */
+public class PresignedUrlCacheConfig {
+
+	/** The expiry window millis. */
+	private long expiryWindowMillis = AWSUtilConstants.DEFAULT_PRESIGN_EXPIRY_WINDOW_MILLIS;
+
+	/** The max entries. */
+	private int maxEntries = AWSUtilConstants.DEFAULT_PRESIGN_CACHE_MAX_ENTRIES;
+
+	/**
+	 * Gets the expiry window millis.
+	 *
+	 * @return the window the expirations are rounded up to
+	 */
+	public long getExpiryWindowMillis() {
+		return expiryWindowMillis;
+	}
+
+	/**
+	 * Sets the expiry window millis.<br/>
+	 * An expiration is rounded up to the next multiple of the window, so that
+	 * the requests of a window share a url. A url is then valid up to one window
+	 * longer than asked, and served for about one window.
+	 *
+	 * @param expiryWindowMillis the window the expirations are rounded up to
+	 * @return the presigned url cache config
+	 */
+	public PresignedUrlCacheConfig setExpiryWindowMillis(final long expiryWindowMillis) {
+		if (expiryWindowMillis <= 0) {
+			throw new IllegalArgumentException("Expiry window must be positive.");
+		}
+		this.expiryWindowMillis = expiryWindowMillis;
+		return this;
+	}
+
+	/**
+	 * Gets the max entries.
+	 *
+	 * @return the number of urls kept
+	 */
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+
+	/**
+	 * Sets the max entries.
+	 *
+	 * @param maxEntries the number of urls kept, the least recently used are evicted first
+	 * @return the presigned url cache config
+	 */
+	public PresignedUrlCacheConfig setMaxEntries(final int maxEntries) {
+		if (maxEntries <= 0) {
+			throw new IllegalArgumentException("Max entries must be positive.");
+		}
+		this.maxEntries = maxEntries;
+		return this;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "PresignedUrlCacheConfig [expiryWindowMillis=" + expiryWindowMillis + ", maxEntries=" + maxEntries
+				+ "]";
+	}
+}
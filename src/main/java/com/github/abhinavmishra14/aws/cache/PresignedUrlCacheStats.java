@@ -0,0 +1,112 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.cache;
+
+/**
+ * The Class PresignedUrlCacheStats.<br/>
+ * Point in time snapshot of the counters and the occupancy of a
+ * {@link PresignedUrlCache}.
+ *
+ * @author Abhinav kumar mishra
+ */
+public final class PresignedUrlCacheStats {
+
+	/** The hit count. */
+	private final long hitCount;
+
+	/** The miss count. */
+	private final long missCount;
+
+	/** The eviction count. */
+	private final long evictionCount;
+
+	/** The entry count. */
+	private final int entryCount;
+
+	/**
+	 * Instantiates a new presigned url cache stats.
+	 *
+	 * @param hitCount the hit count
+	 * @param missCount the miss count
+	 * @param evictionCount the eviction count
+	 * @param entryCount the entry count
+	 */
+	public PresignedUrlCacheStats(final long hitCount, final long missCount, final long evictionCount,
+			final int entryCount) {
+		super();
+		this.hitCount = hitCount;
+		this.missCount = missCount;
+		this.evictionCount = evictionCount;
+		this.entryCount = entryCount;
+	}
+
+	/**
+	 * Gets the hit count.
+	 *
+	 * @return the number of urls served from the cache
+	 */
+	public long getHitCount() {
+		return hitCount;
+	}
+
+	/**
+	 * Gets the miss count.
+	 *
+	 * @return the number of urls signed
+	 */
+	public long getMissCount() {
+		return missCount;
+	}
+
+	/**
+	 * Gets the eviction count.
+	 *
+	 * @return the number of urls dropped to stay within the max entries
+	 */
+	public long getEvictionCount() {
+		return evictionCount;
+	}
+
+	/**
+	 * Gets the entry count.
+	 *
+	 * @return the number of urls cached
+	 */
+	public int getEntryCount() {
+		return entryCount;
+	}
+
+	/**
+	 * Gets the hit ratio.
+	 *
+	 * @return the share of the urls served from the cache
+	 */
+	public double getHitRatio() {
+		final long lookups = hitCount + missCount;
+		return lookups == 0 ? 0 : (double) hitCount / lookups;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "PresignedUrlCacheStats [hitCount=" + hitCount + ", missCount=" + missCount + ", evictionCount="
+				+ evictionCount + ", entryCount=" + entryCount + "]";
+	}
+}
@@ -0,0 +1,80 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.cache;
+
+import java.io.InputStream;
+
+/**
+ * The Class SourceObject.<br/>
+ * An object opened by an {@link ObjectSource}, its content is read once by the
+ * cache.
+ *
+ * @author Abhinav kumar mishra
+ */
+public final class SourceObject {
+
+	/** The content. */
+	private final InputStream content;
+
+	/** The e tag. */
+	private final String eTag;
+
+	/** The length. */
+	private final long length;
+
+	/**
+	 * Instantiates a new source object.
+	 *
+	 * @param content the content
+	 * @param eTag the entity tag, null to not cache the object
+	 * @param length the length in bytes
+	 */
+	public SourceObject(final InputStream content, final String eTag, final long length) {
+		super();
+		this.content = content;
+		this.eTag = eTag;
+		this.length = length;
+	}
+
+	/**
+	 * Gets the content.
+	 *
+	 * @return the content
+	 */
+	public InputStream getContent() {
+		return content;
+	}
+
+	/**
+	 * Gets the entity tag.
+	 *
+	 * @return the entity tag
+	 */
+	public String getETag() {
+		return eTag;
+	}
+
+	/**
+	 * Gets the length.
+	 *
+	 * @return the length in bytes
+	 */
+	public long getLength() {
+		return length;
+	}
+}
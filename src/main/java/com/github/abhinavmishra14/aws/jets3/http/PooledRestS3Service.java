@@ -0,0 +1,166 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.jets3.http;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.pool.ConnPoolControl;
+import org.apache.http.protocol.HttpContext;
+import org.jets3t.service.Jets3tProperties;
+import org.jets3t.service.ServiceException;
+import org.jets3t.service.impl.rest.httpclient.RestS3Service;
+import org.jets3t.service.security.ProviderCredentials;
+
+import com.github.abhinavmishra14.aws.util.ConnectionPoolStats;
+
+/**
+ * The Class PooledRestS3Service.<br/>
+ * A RestS3Service whose connection pool reports its usage, see
+ * {@link #getConnectionPoolStats()}, and which closes the connections idle for
+ * too long. Besides the http client properties of JetS3t it reads:
+ * <ul>
+ * <li>httpclient.tcp-no-delay: sets TCP_NODELAY, true by default as in JetS3t</li>
+ * <li>httpclient.tcp-keep-alive: sets SO_KEEPALIVE, false by default</li>
+ * <li>httpclient.socket-send-buffer-size and httpclient.socket-receive-buffer-size:
+ * the SO_SNDBUF and SO_RCVBUF hints, system default when not set</li>
+ * <li>httpclient.connection-max-idle-ms: closes pooled connections idle for longer,
+ * never closed by default</li>
+ * </ul>
+ * The http client 4.x parameters and connection manager used by JetS3t are
+ * deprecated, their types are not imported since deprecation warnings of
+ * imports cannot be suppressed at source level 1.8.
+ *
+ * @author Abhinav kumar mishra
+ */
+public class PooledRestS3Service extends RestS3Service {
+
+	/** The Constant TCP_NO_DELAY_PROPERTY. */
+	public static final String TCP_NO_DELAY_PROPERTY = "httpclient.tcp-no-delay";
+
+	/** The Constant TCP_KEEP_ALIVE_PROPERTY. */
+	public static final String TCP_KEEP_ALIVE_PROPERTY = "httpclient.tcp-keep-alive";
+
+	/** The Constant SOCKET_SEND_BUFFER_SIZE_PROPERTY. */
+	public static final String SOCKET_SEND_BUFFER_SIZE_PROPERTY = "httpclient.socket-send-buffer-size";
+
+	/** The Constant SOCKET_RECEIVE_BUFFER_SIZE_PROPERTY. */
+	public static final String SOCKET_RECEIVE_BUFFER_SIZE_PROPERTY = "httpclient.socket-receive-buffer-size";
+
+	/** The Constant CONNECTION_MAX_IDLE_PROPERTY. */
+	public static final String CONNECTION_MAX_IDLE_PROPERTY = "httpclient.connection-max-idle-ms";
+
+	/** The Constant MIN_EVICTION_INTERVAL_MILLIS. */
+	private static final long MIN_EVICTION_INTERVAL_MILLIS = 1000;
+
+	/** The connection max idle millis. */
+	private final long connectionMaxIdleMillis;
+
+	/** The eviction interval nanos. */
+	private final long evictionIntervalNanos;
+
+	/** The last eviction nanos. */
+	private final AtomicLong lastEvictionNanos = new AtomicLong(System.nanoTime());
+
+	/**
+	 * Instantiates a new pooled rest s3 service.
+	 *
+	 * @param credentials the credentials
+	 * @param jets3tProperties the jets3t properties
+	 */
+	public PooledRestS3Service(final ProviderCredentials credentials, final Jets3tProperties jets3tProperties) {
+		super(credentials, null, null, jets3tProperties);
+		this.connectionMaxIdleMillis = jets3tProperties.getLongProperty(CONNECTION_MAX_IDLE_PROPERTY, -1);
+		// Idle connections are looked for at most twice per idle time, not on every request
+		this.evictionIntervalNanos = TimeUnit.MILLISECONDS
+				.toNanos(Math.max(MIN_EVICTION_INTERVAL_MILLIS, connectionMaxIdleMillis / 2));
+	}
+
+	/* (non-Javadoc)
+	 * @see org.jets3t.service.impl.rest.httpclient.RestStorageService#initHttpConnection()
+	 */
+	// JetS3t 0.9.4 configures its http client through the http client 4.x parameters only
+	@Override
+	@SuppressWarnings("deprecation")
+	protected HttpClient initHttpConnection() {
+		// Called by the constructor of the super class, only the properties are set at this point
+		final HttpClient httpClient = super.initHttpConnection();
+		final Jets3tProperties jets3tProperties = getJetS3tProperties();
+		final org.apache.http.params.HttpParams params = httpClient.getParams();
+		// The connection manager is created on first use, from the factory named here
+		params.setParameter(org.apache.http.client.params.ClientPNames.CONNECTION_MANAGER_FACTORY_CLASS_NAME,
+				PoolingConnManagerFactory.class.getName());
+		org.apache.http.params.HttpConnectionParams.setTcpNoDelay(params,
+				jets3tProperties.getBoolProperty(TCP_NO_DELAY_PROPERTY, true));
+		org.apache.http.params.HttpConnectionParams.setSoKeepalive(params,
+				jets3tProperties.getBoolProperty(TCP_KEEP_ALIVE_PROPERTY, false));
+		params.setIntParameter(PoolingConnManagerFactory.SOCKET_SEND_BUFFER_PARAM,
+				jets3tProperties.getIntProperty(SOCKET_SEND_BUFFER_SIZE_PROPERTY, 0));
+		params.setIntParameter(PoolingConnManagerFactory.SOCKET_RECEIVE_BUFFER_PARAM,
+				jets3tProperties.getIntProperty(SOCKET_RECEIVE_BUFFER_SIZE_PROPERTY, 0));
+		return httpClient;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.jets3t.service.impl.rest.httpclient.RestStorageService#performRequest(org.apache.http.client.methods.HttpUriRequest, int[], org.apache.http.protocol.HttpContext)
+	 */
+	@Override
+	protected HttpResponse performRequest(final HttpUriRequest httpMethod, final int[] expectedResponseCodes,
+			final HttpContext context) throws ServiceException {
+		evictIdleConnections();
+		return super.performRequest(httpMethod, expectedResponseCodes, context);
+	}
+
+	/**
+	 * Gets the connection pool stats.
+	 *
+	 * @return the connection pool stats, null if the connection manager was replaced
+	 */
+	// JetS3t 0.9.4 only exposes its pool as an http client 4.x connection manager
+	@SuppressWarnings("deprecation")
+	public ConnectionPoolStats getConnectionPoolStats() {
+		final org.apache.http.conn.ClientConnectionManager connectionManager = getHttpConnectionManager();
+		if (connectionManager instanceof ConnPoolControl) {
+			return new ConnectionPoolStats((ConnPoolControl<?>) connectionManager);
+		}
+		return null;
+	}
+
+	/**
+	 * Closes the expired connections and the connections idle for longer than the
+	 * max idle time. Runs on the request path, so an idle service holds no thread
+	 * for it, and at most once per eviction interval.
+	 */
+	// JetS3t 0.9.4 only exposes its pool as an http client 4.x connection manager
+	@SuppressWarnings("deprecation")
+	private void evictIdleConnections() {
+		if (connectionMaxIdleMillis <= 0) {
+			return;
+		}
+		final long lastNanos = lastEvictionNanos.get();
+		final long nowNanos = System.nanoTime();
+		if (nowNanos - lastNanos >= evictionIntervalNanos && lastEvictionNanos.compareAndSet(lastNanos, nowNanos)) {
+			final org.apache.http.conn.ClientConnectionManager connectionManager = getHttpConnectionManager();
+			connectionManager.closeExpiredConnections();
+			connectionManager.closeIdleConnections(connectionMaxIdleMillis, TimeUnit.MILLISECONDS);
+		}
+	}
+}
@@ -0,0 +1,139 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.jets3.http;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.protocol.HttpContext;
+import org.jets3t.service.Jets3tProperties;
+
+/**
+ * A factory for creating the connection manager of a {@link PooledRestS3Service}.<br/>
+ * Replaces the connection manager of JetS3t by a pooling one which reports its
+ * usage and applies the socket options of {@link PooledRestS3Service}. The pool
+ * is sized by the same JetS3t properties: httpclient.max-connections,
+ * httpclient.max-connections-per-host and httpclient.connection.ttl.<br/>
+ * The connection manager API of JetS3t is the deprecated one of http client 4.x,
+ * its types are not imported since deprecation warnings of imports cannot be
+ * suppressed at source level 1.8.
+ *
+ * @author Abhinav kumar mishra
+ */
+// The whole class implements the connection manager API of http client 4.x that JetS3t 0.9.4 requires
+@SuppressWarnings("deprecation")
+public class PoolingConnManagerFactory implements org.apache.http.conn.ClientConnectionManagerFactory {
+
+	/** The Constant JETS3T_PROPERTIES_PARAM. Http parameter under which JetS3t keeps its properties. */
+	public static final String JETS3T_PROPERTIES_PARAM = "org.jets3t.service.JetS3tProperties";
+
+	/** The Constant SOCKET_SEND_BUFFER_PARAM. */
+	public static final String SOCKET_SEND_BUFFER_PARAM = "awsutils.socket.send-buffer-size";
+
+	/** The Constant SOCKET_RECEIVE_BUFFER_PARAM. */
+	public static final String SOCKET_RECEIVE_BUFFER_PARAM = "awsutils.socket.receive-buffer-size";
+
+	/** The Constant DEFAULT_MAX_CONNECTIONS. Default of JetS3t. */
+	private static final int DEFAULT_MAX_CONNECTIONS = 20;
+
+	/* (non-Javadoc)
+	 * @see org.apache.http.conn.ClientConnectionManagerFactory#newInstance(org.apache.http.params.HttpParams, org.apache.http.conn.scheme.SchemeRegistry)
+	 */
+	@Override
+	public org.apache.http.conn.ClientConnectionManager newInstance(final org.apache.http.params.HttpParams params,
+			final org.apache.http.conn.scheme.SchemeRegistry schemeRegistry) {
+		final Object properties = params.getParameter(JETS3T_PROPERTIES_PARAM);
+		final Jets3tProperties jets3tProperties = properties instanceof Jets3tProperties
+				? (Jets3tProperties) properties : new Jets3tProperties();
+		final int maxConnections = jets3tProperties.getIntProperty("httpclient.max-connections",
+				DEFAULT_MAX_CONNECTIONS);
+		final int maxConnectionsPerHost = jets3tProperties.getIntProperty("httpclient.max-connections-per-host", 0);
+		final org.apache.http.impl.conn.PoolingClientConnectionManager connectionManager =
+				new SocketOptionsConnectionManager(schemeRegistry,
+						jets3tProperties.getLongProperty("httpclient.connection.ttl", -1));
+		connectionManager.setMaxTotal(maxConnections);
+		// Requests of a service go to one endpoint, they may use the whole pool
+		connectionManager.setDefaultMaxPerRoute(maxConnectionsPerHost > 0 ? maxConnectionsPerHost : maxConnections);
+		return connectionManager;
+	}
+
+	/**
+	 * The Class SocketOptionsConnectionManager.<br/>
+	 * Pooling connection manager opening its sockets with {@link SocketOptionsConnectionOperator}.
+	 */
+	private static final class SocketOptionsConnectionManager
+			extends org.apache.http.impl.conn.PoolingClientConnectionManager {
+
+		/**
+		 * Instantiates a new socket options connection manager.
+		 *
+		 * @param schemeRegistry the scheme registry
+		 * @param connectionTtlMillis the connection ttl millis, -1 for no limit
+		 */
+		public SocketOptionsConnectionManager(final org.apache.http.conn.scheme.SchemeRegistry schemeRegistry,
+				final long connectionTtlMillis) {
+			super(schemeRegistry, connectionTtlMillis, TimeUnit.MILLISECONDS);
+		}
+
+		/* (non-Javadoc)
+		 * @see org.apache.http.impl.conn.PoolingClientConnectionManager#createConnectionOperator(org.apache.http.conn.scheme.SchemeRegistry)
+		 */
+		@Override
+		protected org.apache.http.conn.ClientConnectionOperator createConnectionOperator(
+				final org.apache.http.conn.scheme.SchemeRegistry schemeRegistry) {
+			return new SocketOptionsConnectionOperator(schemeRegistry);
+		}
+	}
+
+	/**
+	 * The Class SocketOptionsConnectionOperator.<br/>
+	 * Sets SO_KEEPALIVE and the socket buffer sizes from the http parameters, the
+	 * default operator only sets TCP_NODELAY, the timeout and SO_LINGER.
+	 */
+	private static final class SocketOptionsConnectionOperator
+			extends org.apache.http.impl.conn.DefaultClientConnectionOperator {
+
+		/**
+		 * Instantiates a new socket options connection operator.
+		 *
+		 * @param schemeRegistry the scheme registry
+		 */
+		public SocketOptionsConnectionOperator(final org.apache.http.conn.scheme.SchemeRegistry schemeRegistry) {
+			super(schemeRegistry);
+		}
+
+		/* (non-Javadoc)
+		 * @see org.apache.http.impl.conn.DefaultClientConnectionOperator#prepareSocket(java.net.Socket, org.apache.http.protocol.HttpContext, org.apache.http.params.HttpParams)
+		 */
+		@Override
+		protected void prepareSocket(final Socket sock, final HttpContext context,
+				final org.apache.http.params.HttpParams params) throws IOException {
+			super.prepareSocket(sock, context, params);
+			sock.setKeepAlive(org.apache.http.params.HttpConnectionParams.getSoKeepalive(params));
+			final int sendBufferSize = params.getIntParameter(SOCKET_SEND_BUFFER_PARAM, 0);
+			if (sendBufferSize > 0) {
+				sock.setSendBufferSize(sendBufferSize);
+			}
+			final int receiveBufferSize = params.getIntParameter(SOCKET_RECEIVE_BUFFER_PARAM, 0);
+			if (receiveBufferSize > 0) {
+				sock.setReceiveBufferSize(receiveBufferSize);
+			}
+		}
+	}
+}
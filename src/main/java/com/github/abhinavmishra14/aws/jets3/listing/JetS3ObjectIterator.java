@@ -0,0 +1,92 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.jets3.listing;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import org.jets3t.service.S3Service;
+import org.jets3t.service.ServiceException;
+import org.jets3t.service.StorageObjectsChunk;
+import org.jets3t.service.model.StorageObject;
+
+import com.github.abhinavmishra14.aws.util.AWSUtilConstants;
+import com.github.abhinavmishra14.aws.util.AbstractPrefetchingPageIterator;
+
+/**
+ * The Class JetS3ObjectIterator.<br/>
+ * Lazy iterator over the objects of a bucket, pages are listed with JetS3t
+ * chunked listing and the next page is prefetched in the background.
+ *
+ * @author Abhinav kumar mishra
+ */
+public final class JetS3ObjectIterator extends AbstractPrefetchingPageIterator<StorageObject> {
+
+	/** The s3Service. */
+	private final S3Service s3Service;
+
+	/** The bucket name. */
+	private final String bucketName;
+
+	/** The prefix. */
+	private final String prefix;
+
+	/** The delimiter. */
+	private final String delimiter;
+
+	/** The last chunk, null before the first page. */
+	private StorageObjectsChunk lastChunk;
+
+	/**
+	 * Instantiates a new jet s3 object iterator.
+	 *
+	 * @param s3Service the s3 service
+	 * @param executor the executor used to prefetch pages
+	 * @param bucketName the bucket name
+	 * @param prefix the prefix, null for the whole bucket
+	 * @param delimiter the delimiter, null to list recursively
+	 */
+	public JetS3ObjectIterator(final S3Service s3Service, final ExecutorService executor, final String bucketName,
+			final String prefix, final String delimiter) {
+		super(executor);
+		this.s3Service = s3Service;
+		this.bucketName = bucketName;
+		this.prefix = prefix;
+		this.delimiter = delimiter;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.util.AbstractPrefetchingPageIterator#fetchPage()
+	 */
+	@Override
+	protected List<StorageObject> fetchPage() throws ServiceException {
+		final String priorLastKey = lastChunk == null ? null : lastChunk.getPriorLastKey();
+		lastChunk = s3Service.listObjectsChunked(bucketName, prefix, delimiter,
+				AWSUtilConstants.MAX_KEYS_PER_REQUEST, priorLastKey);
+		return Arrays.asList(lastChunk.getObjects());
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.util.AbstractPrefetchingPageIterator#hasMorePages()
+	 */
+	@Override
+	protected boolean hasMorePages() {
+		return !lastChunk.isListingComplete();
+	}
+}
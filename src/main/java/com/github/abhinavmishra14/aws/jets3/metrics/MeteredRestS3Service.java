@@ -0,0 +1,221 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.jets3.metrics;
+
+import java.net.URI;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.protocol.HttpContext;
+import org.jets3t.service.Jets3tProperties;
+import org.jets3t.service.ServiceException;
+import org.jets3t.service.security.ProviderCredentials;
+
+import com.github.abhinavmishra14.aws.jets3.http.PooledRestS3Service;
+import com.github.abhinavmishra14.aws.metrics.S3MetricsCollector;
+import com.github.abhinavmishra14.aws.metrics.S3Operation;
+
+/**
+ * The Class MeteredRestS3Service.<br/>
+ * A PooledRestS3Service reporting every request to a {@link S3MetricsCollector}. The
+ * latency covers the retries on internal errors and ends when the response
+ * headers are read, object content streamed afterwards is not included.
+ *
+ * @author Abhinav kumar mishra
+ */
+public class MeteredRestS3Service extends PooledRestS3Service {
+
+	/** The Constant COPY_SOURCE_HEADER. */
+	private static final String COPY_SOURCE_HEADER = "x-amz-copy-source";
+
+	/** The Constant CURRENT_OPERATION. Operation of the request performed by the thread, for the retries. */
+	private static final ThreadLocal<S3Operation> CURRENT_OPERATION = new ThreadLocal<S3Operation>();
+
+	/** The metrics collector. */
+	private final S3MetricsCollector metricsCollector;
+
+	/**
+	 * Instantiates a new metered rest s3 service.
+	 *
+	 * @param credentials the credentials
+	 * @param jets3tProperties the jets3t properties
+	 * @param metricsCollector the metrics collector
+	 */
+	public MeteredRestS3Service(final ProviderCredentials credentials, final Jets3tProperties jets3tProperties,
+			final S3MetricsCollector metricsCollector) {
+		super(credentials, jets3tProperties);
+		this.metricsCollector = metricsCollector;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.jets3t.service.impl.rest.httpclient.RestStorageService#performRequest(org.apache.http.client.methods.HttpUriRequest, int[], org.apache.http.protocol.HttpContext)
+	 */
+	@Override
+	protected HttpResponse performRequest(final HttpUriRequest httpMethod, final int[] expectedResponseCodes,
+			final HttpContext context) throws ServiceException {
+		final S3Operation operation = operationOf(httpMethod);
+		final S3Operation outerOperation = CURRENT_OPERATION.get();
+		CURRENT_OPERATION.set(operation);
+		final long startNanos = System.nanoTime();
+		metricsCollector.operationStarted(operation);
+		try {
+			final HttpResponse response = super.performRequest(httpMethod, expectedResponseCodes, context);
+			metricsCollector.operationSucceeded(operation, System.nanoTime() - startNanos, bytesSent(httpMethod),
+					bytesReceived(response));
+			return response;
+		} catch (ServiceException serviceEx) {
+			final String errorCode = serviceEx.getErrorCode() != null ? serviceEx.getErrorCode()
+					: serviceEx.getResponseCode() > 0 ? String.valueOf(serviceEx.getResponseCode())
+							: "ServiceException";
+			metricsCollector.operationFailed(operation, System.nanoTime() - startNanos, errorCode);
+			throw serviceEx;
+		} catch (RuntimeException runtimeEx) {
+			metricsCollector.operationFailed(operation, System.nanoTime() - startNanos,
+					runtimeEx.getClass().getSimpleName());
+			throw runtimeEx;
+		} finally {
+			if (outerOperation == null) {
+				CURRENT_OPERATION.remove();
+			} else {
+				CURRENT_OPERATION.set(outerOperation);
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.jets3t.service.impl.rest.httpclient.RestStorageService#sleepOnInternalError(int, org.jets3t.service.ServiceException)
+	 */
+	@Override
+	protected void sleepOnInternalError(final int internalErrorCount, final ServiceException serviceEx)
+			throws ServiceException, InterruptedException {
+		// Throws once the retries are exhausted, only the retries that happen are recorded
+		super.sleepOnInternalError(internalErrorCount, serviceEx);
+		final S3Operation operation = CURRENT_OPERATION.get();
+		metricsCollector.operationRetried(operation == null ? S3Operation.OTHER : operation, 1);
+	}
+
+	/**
+	 * Gets the operation of a request from its method, sub resources and path.
+	 *
+	 * @param httpMethod the http method
+	 * @return the operation
+	 */
+	private S3Operation operationOf(final HttpUriRequest httpMethod) {
+		final URI uri = httpMethod.getURI();
+		final Set<String> subResources = subResourcesOf(uri.getRawQuery());
+		if (subResources.contains("acl")) {
+			return S3Operation.ACL;
+		}
+		if (subResources.contains("delete")) {
+			return S3Operation.DELETE;
+		}
+		final String method = httpMethod.getMethod();
+		if (subResources.contains("uploads")) {
+			return "GET".equals(method) ? S3Operation.LIST : S3Operation.MULTIPART;
+		}
+		final boolean copy = httpMethod.containsHeader(COPY_SOURCE_HEADER);
+		if (subResources.contains("uploadId")) {
+			if ("PUT".equals(method) && subResources.contains("partNumber")) {
+				return copy ? S3Operation.COPY : S3Operation.PUT;
+			}
+			return S3Operation.MULTIPART;
+		}
+		if (!hasObjectKey(uri)) {
+			if ("GET".equals(method)) {
+				return S3Operation.LIST;
+			}
+			return "POST".equals(method) ? S3Operation.OTHER : S3Operation.BUCKET;
+		}
+		switch (method) {
+		case "GET":
+			return S3Operation.GET;
+		case "HEAD":
+			return S3Operation.HEAD;
+		case "PUT":
+			return copy ? S3Operation.COPY : S3Operation.PUT;
+		case "DELETE":
+			return S3Operation.DELETE;
+		default:
+			return S3Operation.OTHER;
+		}
+	}
+
+	/**
+	 * Checks whether the request addresses an object, for path style as well as
+	 * virtual host style requests.
+	 *
+	 * @param uri the uri
+	 * @return true, if the path holds an object key
+	 */
+	private boolean hasObjectKey(final URI uri) {
+		final String path = uri.getRawPath();
+		final String resource = path == null || path.length() <= 1 ? "" : path.substring(1);
+		if (uri.getHost() != null && !uri.getHost().equalsIgnoreCase(getEndpoint())) {
+			// Virtual host style, the bucket is part of the host name
+			return !resource.isEmpty();
+		}
+		final int slash = resource.indexOf('/');
+		return slash != -1 && slash < resource.length() - 1;
+	}
+
+	/**
+	 * Gets the names of the query parameters.
+	 *
+	 * @param rawQuery the raw query
+	 * @return the parameter names
+	 */
+	private static Set<String> subResourcesOf(final String rawQuery) {
+		final Set<String> names = new HashSet<String>();
+		if (rawQuery != null) {
+			for (final String parameter : rawQuery.split("&")) {
+				final int equals = parameter.indexOf('=');
+				names.add(equals == -1 ? parameter : parameter.substring(0, equals));
+			}
+		}
+		return names;
+	}
+
+	/**
+	 * Gets the bytes sent in the request body.
+	 *
+	 * @param httpMethod the http method
+	 * @return the bytes sent, 0 if none or unknown
+	 */
+	private static long bytesSent(final HttpUriRequest httpMethod) {
+		if (httpMethod instanceof HttpEntityEnclosingRequest) {
+			final HttpEntity entity = ((HttpEntityEnclosingRequest) httpMethod).getEntity();
+			return entity == null ? 0 : Math.max(0, entity.getContentLength());
+		}
+		return 0;
+	}
+
+	/**
+	 * Gets the bytes of the response body.
+	 *
+	 * @param response the response
+	 * @return the bytes received, 0 if none or unknown
+	 */
+	private static long bytesReceived(final HttpResponse response) {
+		final HttpEntity entity = response == null ? null : response.getEntity();
+		return entity == null ? 0 : Math.max(0, entity.getContentLength());
+	}
+}
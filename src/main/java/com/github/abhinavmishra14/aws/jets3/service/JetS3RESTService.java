@@ -17,10 +17,13 @@
  */
 package com.github.abhinavmishra14.aws.jets3.service;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
 
 import org.jets3t.service.S3ServiceException;
@@ -31,13 +34,21 @@ import org.jets3t.service.model.S3Bucket;
 import org.jets3t.service.model.S3Object;
 import org.jets3t.service.model.StorageObject;
 
+import com.github.abhinavmishra14.aws.upload.UploadResult;
+import com.github.abhinavmishra14.aws.util.BulkDeleteSummary;
+import com.github.abhinavmishra14.aws.util.ConnectionPoolStats;
+import com.github.abhinavmishra14.aws.util.DirectoryTransferSummary;
+import com.github.abhinavmishra14.aws.util.DirectoryUploadConfig;
+
 /**
  * The Class JetS3RESTService.<br/>
- * This class can be used to manually store and delete contents from the s3 bucket.
+ * This class can be used to manually store and delete contents from the s3 bucket.<br/>
+ * The service owns worker threads and http connections, call {@link #shutdown()}
+ * (or use try-with-resources) when it is no longer needed.
  *
  * @author Abhinav kumar mishra
  */
-public interface JetS3RESTService {
+public interface JetS3RESTService extends Closeable {
 
 	/**
 	 * Put object.
@@ -98,14 +109,18 @@ public interface JetS3RESTService {
 	S3Bucket createBucket(final String bucketName) throws ServiceException;
 	
 	/**
-	 * Clean and delete bucket.
+	 * Clean and delete bucket.<br/>
+	 * Objects are listed a page at a time and deleted in batches of up to 1000 keys,
+	 * the bucket is deleted only when every object could be deleted.
 	 *
 	 * @param bucketName the bucket name
-	 * @throws ServiceException the service exception
+	 * @return the bulk delete summary
+	 * @throws ServiceException the service exception, also thrown when some objects could not be deleted
 	 * @throws NoSuchAlgorithmException the no such algorithm exception
 	 * @throws IOException Signals that an I/O exception has occurred.
 	 */
-	void cleanAndDeleteBucket(final String bucketName) throws ServiceException, NoSuchAlgorithmException, IOException;
+	BulkDeleteSummary cleanAndDeleteBucket(final String bucketName)
+			throws ServiceException, NoSuchAlgorithmException, IOException;
 	
 	/**
 	 * Delete bucket.
@@ -141,6 +156,23 @@ public interface JetS3RESTService {
 	 * @throws S3ServiceException the s3 service exception
 	 */
 	List<S3Object> getAllObjects(final String bucketName) throws S3ServiceException;
+
+	/**
+	 * List objects.<br/>
+	 * Returns a lazy iterator, objects are listed a page (1000 keys) at a time and
+	 * the next page is fetched in the background while the current one is
+	 * iterated, so memory use does not depend on the number of objects. Prefer it
+	 * over {@link #getAllObjects(String)} for large buckets.<br/>
+	 * When a delimiter is given only the objects directly under the prefix are
+	 * returned. Listing failures are thrown by the iterator wrapped in an
+	 * {@link IllegalStateException}.
+	 *
+	 * @param bucketName the bucket name
+	 * @param prefix the prefix, null for the whole bucket
+	 * @param delimiter the delimiter, null to list recursively
+	 * @return the iterator of objects
+	 */
+	Iterator<StorageObject> listObjects(final String bucketName, final String prefix, final String delimiter);
 	
 	/**
 	 * Delete objects.
@@ -194,6 +226,71 @@ public interface JetS3RESTService {
 	void uploadObjectAsMultiparts(final String bucketName, final StorageObject object, final long maxPartSize)
 			throws ServiceException;
 
+	/**
+	 * Upload object as a resumable multipart upload.<br/>
+	 * The object must be backed by a file (created from a File). The upload id
+	 * and part e tags are recorded in a journal under the upload journal
+	 * directory of the service, java.io.tmpdir by default, so that when the
+	 * upload fails or the JVM exits, calling this method again for the
+	 * same unchanged file only uploads the missing parts. A failed upload is
+	 * not aborted, see {@link #abortMultipartUploads(String, Date)}.
+	 *
+	 * @param bucketName the bucket name
+	 * @param object the object, backed by a file
+	 * @param maxPartSize the part size, at least 5 MB, raised if the file needs more than 10000 parts
+	 * @throws ServiceException the service exception
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	void uploadObjectAsMultipartsResumable(final String bucketName, final StorageObject object,
+			final long maxPartSize) throws ServiceException, IOException;
+
+	/**
+	 * Upload a file with the strategy suiting its size.<br/>
+	 * Files of at most one part, and below the multipart threshold, are sent with
+	 * a single PUT. Larger files, or files which would take too long to send at
+	 * the throughput measured on the previous uploads, are sent as a resumable
+	 * multipart upload with parts uploaded concurrently. The part size is raised
+	 * so that the file fits in 10,000 parts.
+	 *
+	 * @param bucketName the bucket name
+	 * @param key the key
+	 * @param source the source file
+	 * @return the upload result, reporting the strategy chosen
+	 * @throws ServiceException the service exception
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	UploadResult upload(final String bucketName, final String key, final File source)
+			throws ServiceException, IOException;
+
+	/**
+	 * Upload a stream with the strategy suiting its length.<br/>
+	 * A stream of known length up to one part, and below the multipart threshold,
+	 * is sent with a single PUT. Other streams are spooled to a temporary file
+	 * and uploaded as a file, see {@link #upload(String, String, File)}. The
+	 * stream is read till the end but it is not closed.
+	 *
+	 * @param bucketName the bucket name
+	 * @param key the key
+	 * @param inputStream the input stream
+	 * @param contentLength the content length, -1 when unknown
+	 * @return the upload result, reporting the strategy chosen
+	 * @throws ServiceException the service exception
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	UploadResult upload(final String bucketName, final String key, final InputStream inputStream,
+			final long contentLength) throws ServiceException, IOException;
+
+	/**
+	 * Abort the multipart uploads initiated before the given date, so that
+	 * their parts are not billed anymore. An aborted upload can not be resumed.
+	 *
+	 * @param bucketName the bucket name
+	 * @param initiatedBefore the date before which uploads are considered orphaned
+	 * @return the number of uploads aborted
+	 * @throws ServiceException the service exception
+	 */
+	int abortMultipartUploads(final String bucketName, final Date initiatedBefore) throws ServiceException;
+
 	/**
 	 * Upload objects as multiparts.
 	 *
@@ -206,15 +303,37 @@ public interface JetS3RESTService {
 			throws ServiceException, Exception;
 	
 	/**
-	 * Upload directory as multiparts.
+	 * Upload directory as multiparts.<br/>
+	 * Uploads the files of the directory with the default {@link DirectoryUploadConfig},
+	 * keyed by their path relative to the directory. Multipart uploads are
+	 * journaled under the upload journal directory of the service.
 	 *
 	 * @param bucketName the bucket name
 	 * @param folderPath the folder path
-	 * @throws ServiceException the service exception
+	 * @throws ServiceException the service exception, if a file could not be uploaded
 	 * @throws Exception the exception
 	 */
 	void uploadDirectoryAsMultiparts(final String bucketName, final File folderPath) throws ServiceException, Exception;
 
+	/**
+	 * Upload directory.<br/>
+	 * The directory is walked, the objects prepared and uploaded by concurrent
+	 * stages connected by bounded queues, so uploads start while the walk goes
+	 * on. File <code>folderPath/a/b.txt</code> is uploaded as key
+	 * <code>prefix/a/b.txt</code>. Files up to the multipart threshold of the
+	 * config are sent with a single PUT, larger ones as resumable multipart uploads.
+	 *
+	 * @param bucketName the bucket name
+	 * @param folderPath the folder path
+	 * @param prefix the prefix of the keys, null or empty for the root of the bucket
+	 * @param config the upload config, globs and concurrency of each stage
+	 * @return the directory transfer summary, failed files are reported there
+	 * @throws ServiceException the service exception
+	 * @throws IOException Signals that an I/O exception has occurred, if the directory cannot be walked
+	 */
+	DirectoryTransferSummary uploadDirectory(final String bucketName, final File folderPath, final String prefix,
+			final DirectoryUploadConfig config) throws ServiceException, IOException;
+
 	/**
 	 * Sets the object acl.<br/>
 	 * AccessControlList could be: REST_CANNED_AUTHENTICATED_READ,
@@ -240,4 +359,30 @@ public interface JetS3RESTService {
 	 * @throws ServiceException the service exception
 	 */
 	void setBucketAcl(final String bucketName, final AccessControlList acl) throws ServiceException;
+
+	/**
+	 * Gets the connection pool stats.<br/>
+	 * Returns a snapshot of the http connection pool of this service, use it to
+	 * find out whether requests wait for a connection.
+	 *
+	 * @return the connection pool stats
+	 */
+	ConnectionPoolStats getConnectionPoolStats();
+
+	/**
+	 * Shutdown the service.<br/>
+	 * Stops the worker threads of the service and releases the http connections.
+	 * The service can not be used after shutdown, calling it more than once has no effect.
+	 *
+	 * @throws ServiceException the service exception
+	 */
+	void shutdown() throws ServiceException;
+
+	/**
+	 * Close the service, same as {@link #shutdown()}.
+	 *
+	 * @throws IOException Signals that the service could not be shut down.
+	 */
+	@Override
+	void close() throws IOException;
 }
@@ -18,33 +18,59 @@
 package com.github.abhinavmishra14.aws.jets3.service.impl;
 
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.security.NoSuchAlgorithmException;
-import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
-import org.jets3t.service.S3Service;
+import org.jets3t.service.Constants;
+import org.jets3t.service.Jets3tProperties;
+import org.jets3t.service.MultipartUploadChunk;
 import org.jets3t.service.S3ServiceException;
 import org.jets3t.service.ServiceException;
 import org.jets3t.service.acl.AccessControlList;
-import org.jets3t.service.impl.rest.httpclient.RestS3Service;
+import org.jets3t.service.model.MultipartUpload;
 import org.jets3t.service.model.MultipleDeleteResult;
 import org.jets3t.service.model.S3Bucket;
 import org.jets3t.service.model.S3Object;
 import org.jets3t.service.model.StorageObject;
 import org.jets3t.service.security.AWSCredentials;
+import org.jets3t.service.utils.Mimetypes;
 import org.jets3t.service.utils.MultipartUtils;
-import org.jets3t.service.utils.ObjectUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.github.abhinavmishra14.aws.jets3.http.PooledRestS3Service;
+import com.github.abhinavmishra14.aws.jets3.listing.JetS3ObjectIterator;
+import com.github.abhinavmishra14.aws.jets3.metrics.MeteredRestS3Service;
 import com.github.abhinavmishra14.aws.jets3.service.JetS3RESTService;
+import com.github.abhinavmishra14.aws.jets3.transfer.JetS3BatchDeleteAction;
+import com.github.abhinavmishra14.aws.jets3.transfer.JetS3DirectoryUploader;
+import com.github.abhinavmishra14.aws.jets3.transfer.JetS3MultipartUploadAction;
+import com.github.abhinavmishra14.aws.metrics.NoOpMetricsCollector;
+import com.github.abhinavmishra14.aws.metrics.S3MetricsCollector;
+import com.github.abhinavmishra14.aws.upload.UploadResult;
+import com.github.abhinavmishra14.aws.upload.UploadStrategy;
+import com.github.abhinavmishra14.aws.upload.UploadStrategySelector;
 import com.github.abhinavmishra14.aws.util.AWSUtil;
 import com.github.abhinavmishra14.aws.util.AWSUtilConstants;
-import com.github.abhinavmishra14.aws.util.DirectoryTraverser;
+import com.github.abhinavmishra14.aws.util.BulkDeleteSummary;
+import com.github.abhinavmishra14.aws.util.BulkDeleter;
+import com.github.abhinavmishra14.aws.util.ConnectionPoolConfig;
+import com.github.abhinavmishra14.aws.util.ConnectionPoolStats;
+import com.github.abhinavmishra14.aws.util.DirectoryTransferSummary;
+import com.github.abhinavmishra14.aws.util.DirectoryUploadConfig;
+import com.github.abhinavmishra14.aws.util.MultipartUploadJournal;
+import com.github.abhinavmishra14.aws.util.NamedThreadFactory;
+import com.github.abhinavmishra14.aws.util.ResumableUploader;
 
 /**
  * The Class JetS3RESTService.<br/>
@@ -58,7 +84,26 @@ public class JetS3RESTServiceImpl implements JetS3RESTService{
 	private static final Logger LOGGER = LoggerFactory.getLogger(JetS3RESTServiceImpl.class);
 
 	/** The s3Service. */
-	private final S3Service s3Service;
+	private final PooledRestS3Service s3Service;
+
+	/** The worker executor. */
+	private final ThreadPoolExecutor workerExecutor;
+
+	/** The shutdown flag. */
+	private final AtomicBoolean shutdownInvoked = new AtomicBoolean(false);
+
+	/** The resumable uploader. */
+	private final ResumableUploader resumableUploader;
+
+	/** The directory uploader. */
+	private final JetS3DirectoryUploader directoryUploader;
+
+	/** The upload journal directory. */
+	private final File uploadJournalDirectory;
+
+	/** The upload strategy selector. */
+	private final UploadStrategySelector uploadStrategySelector = new UploadStrategySelector(
+			AWSUtilConstants.DEFAULT_MULTIPART_UPLOAD_THRESHOLD, AWSUtilConstants.DEFAULT_MINIMUM_UPLOAD_PART_SIZE);
 
 	/**
 	 * Instantiates a new rEST service.<br/>
@@ -70,13 +115,87 @@ public class JetS3RESTServiceImpl implements JetS3RESTService{
 	 * @param secretKey the secret key
 	 */
 	public JetS3RESTServiceImpl(final String accessKey, final String secretKey) {
+		this(accessKey, secretKey, Jets3tProperties.getInstance(Constants.JETS3T_PROPERTIES_FILENAME));
+	}
+
+	/**
+	 * Instantiates a new rEST service with the given JetS3t properties.<br/>
+	 * Use this constructor to point the service at another endpoint, e.g. a
+	 * LocalS3Server in tests and benchmarks, through the
+	 * <code>s3service.s3-endpoint</code> family of properties.
+	 *
+	 * @param accessKey the access key
+	 * @param secretKey the secret key
+	 * @param jets3tProperties the jets3t properties
+	 */
+	public JetS3RESTServiceImpl(final String accessKey, final String secretKey,
+			final Jets3tProperties jets3tProperties) {
+		this(accessKey, secretKey, jets3tProperties, NoOpMetricsCollector.INSTANCE);
+	}
+
+	/**
+	 * Instantiates a new rEST service with the given JetS3t properties, reporting
+	 * every request to the given metrics collector.
+	 *
+	 * @param accessKey the access key
+	 * @param secretKey the secret key
+	 * @param jets3tProperties the jets3t properties
+	 * @param metricsCollector the metrics collector
+	 */
+	public JetS3RESTServiceImpl(final String accessKey, final String secretKey,
+			final Jets3tProperties jets3tProperties, final S3MetricsCollector metricsCollector) {
+		this(accessKey, secretKey, jets3tProperties, metricsCollector,
+				MultipartUploadJournal.defaultJournalDirectory());
+	}
+
+	/**
+	 * Instantiates a new rEST service with the given JetS3t properties and
+	 * metrics collector, journaling the resumable uploads in the given directory.
+	 *
+	 * @param accessKey the access key
+	 * @param secretKey the secret key
+	 * @param jets3tProperties the jets3t properties
+	 * @param metricsCollector the metrics collector
+	 * @param uploadJournalDirectory the upload journal directory, it must survive a restart of the JVM for the uploads to resume
+	 */
+	public JetS3RESTServiceImpl(final String accessKey, final String secretKey,
+			final Jets3tProperties jets3tProperties, final S3MetricsCollector metricsCollector,
+			final File uploadJournalDirectory) {
 		AWSUtil.notNull(accessKey, AWSUtilConstants.ERR_MSG_ACCESSKEY);
 		AWSUtil.notNull(secretKey, AWSUtilConstants.ERR_MSG_SECRETKEY);
+		AWSUtil.notNull(jets3tProperties, "Jets3tProperties is null!");
+		AWSUtil.notNull(metricsCollector, "Metrics collector is null!");
+		AWSUtil.notNull(uploadJournalDirectory, "Upload journal directory is null!");
+		this.uploadJournalDirectory = uploadJournalDirectory;
 		if(LOGGER.isDebugEnabled()){
 			LOGGER.debug("Initializing JetS3 service..");
 		}
-		s3Service = new RestS3Service(new AWSCredentials(accessKey, secretKey));
-	} 
+		final AWSCredentials credentials = new AWSCredentials(accessKey, secretKey);
+		if (NoOpMetricsCollector.isEnabled(metricsCollector)) {
+			s3Service = new MeteredRestS3Service(credentials, jets3tProperties, metricsCollector);
+		} else {
+			s3Service = new PooledRestS3Service(credentials, jets3tProperties);
+		}
+		workerExecutor = new ThreadPoolExecutor(AWSUtilConstants.DEFAULT_TRANSFER_THREAD_COUNT,
+				AWSUtilConstants.DEFAULT_TRANSFER_THREAD_COUNT, AWSUtilConstants.DEFAULT_TRANSFER_KEEP_ALIVE_SECONDS,
+				TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+				new NamedThreadFactory(AWSUtilConstants.JETS3_TRANSFER_THREAD_NAME_PREFIX));
+		// Idle services should not hold on to threads
+		workerExecutor.allowCoreThreadTimeOut(true);
+		resumableUploader = new ResumableUploader(workerExecutor, AWSUtilConstants.DEFAULT_STREAMING_PARTS_IN_FLIGHT);
+		directoryUploader = new JetS3DirectoryUploader(s3Service, resumableUploader);
+	}
+
+	/**
+	 * Creates a builder of the service.<br/>
+	 * Use it to size the http connection pool and to tune the sockets, e.g. for
+	 * hundreds of concurrent transfers.
+	 *
+	 * @return the builder
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
 
 	/* (non-Javadoc)
 	 * @see com.github.abhinavmishra14.aws.jets3.service.JetS3RESTService#putObject(java.lang.String)
@@ -148,6 +267,170 @@ public class JetS3RESTServiceImpl implements JetS3RESTService{
 		 
 	}
 
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.jets3.service.JetS3RESTService#uploadObjectAsMultipartsResumable(java.lang.String, org.jets3t.service.model.StorageObject, long)
+	 */
+	@Override
+	public void uploadObjectAsMultipartsResumable(final String bucketName, final StorageObject object,
+			final long maxPartSize) throws ServiceException, IOException {
+		LOGGER.info("uploadObjectAsMultipartsResumable invoked, bucketName: {}, key: {}, maxPartSize: {}", bucketName,
+				object.getKey(), maxPartSize);
+		final File source = object.getDataInputFile();
+		AWSUtil.notNull(source, "Resumable upload needs an object created from a file!");
+		if (maxPartSize < AWSUtilConstants.DEFAULT_MINIMUM_UPLOAD_PART_SIZE) {
+			throw new IllegalArgumentException("Part size must be at least 5 MB.");
+		}
+		final long partSize = ResumableUploader.partSizeFor(source.length(), maxPartSize);
+		if (source.length() <= partSize) {
+			// Single request, nothing to resume
+			s3Service.putObject(bucketName, object);
+			return;
+		}
+		uploadResumable(bucketName, object, source, partSize);
+	}
+
+	/**
+	 * Upload an object as a resumable multipart upload, its progress is
+	 * journaled so that a later call uploads only the missing parts.
+	 *
+	 * @param bucketName the bucket name
+	 * @param object the object
+	 * @param source the file backing the object
+	 * @param partSize the part size
+	 * @return the e tag of the object
+	 * @throws ServiceException the service exception
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private String uploadResumable(final String bucketName, final StorageObject object, final File source,
+			final long partSize) throws ServiceException, IOException {
+		final File journalFile = MultipartUploadJournal.journalFileFor(uploadJournalDirectory, bucketName,
+				object.getKey(), source);
+		try {
+			return resumableUploader.upload(new JetS3MultipartUploadAction(s3Service, bucketName, object),
+					bucketName, object.getKey(), source, journalFile, partSize);
+		} catch (InterruptedException intrEx) {
+			Thread.currentThread().interrupt();
+			throw new ServiceException("Interrupted while uploading " + object.getKey(), intrEx);
+		} catch (Exception excp) {
+			if (excp instanceof ServiceException) {
+				throw (ServiceException) excp;
+			}
+			if (excp instanceof IOException) {
+				throw (IOException) excp;
+			}
+			if (excp instanceof IllegalArgumentException) {
+				throw (IllegalArgumentException) excp;
+			}
+			throw new ServiceException("Failed to upload " + object.getKey(), excp);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.jets3.service.JetS3RESTService#upload(java.lang.String, java.lang.String, java.io.File)
+	 */
+	@Override
+	public UploadResult upload(final String bucketName, final String key, final File source)
+			throws ServiceException, IOException {
+		LOGGER.info("upload invoked, bucketName: {}, key: {}, source: {}", bucketName, key, source);
+		if (!source.isFile()) {
+			throw new FileNotFoundException("Source is not a regular file " + source);
+		}
+		final long startTime = System.currentTimeMillis();
+		final long contentLength = source.length();
+		final UploadStrategy strategy = uploadStrategySelector.select(contentLength, true);
+		final S3Object object = new S3Object(key);
+		object.setDataInputFile(source);
+		object.setContentLength(contentLength);
+		object.setContentType(Mimetypes.getInstance().getMimetype(source));
+		final String eTag;
+		long partSize = 0;
+		if (strategy == UploadStrategy.SINGLE_PUT) {
+			eTag = s3Service.putObject(bucketName, object).getETag();
+		} else {
+			partSize = uploadStrategySelector.partSizeFor(contentLength);
+			eTag = uploadResumable(bucketName, object, source, partSize);
+		}
+		return completeUpload(bucketName, key, eTag, contentLength, strategy, partSize, startTime);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.jets3.service.JetS3RESTService#upload(java.lang.String, java.lang.String, java.io.InputStream, long)
+	 */
+	@Override
+	public UploadResult upload(final String bucketName, final String key, final InputStream inputStream,
+			final long contentLength) throws ServiceException, IOException {
+		LOGGER.info("upload invoked, bucketName: {}, key: {}, contentLength: {}", bucketName, key, contentLength);
+		final long startTime = System.currentTimeMillis();
+		if (uploadStrategySelector.select(contentLength, false) == UploadStrategy.SINGLE_PUT) {
+			final S3Object object = new S3Object(key);
+			object.setDataInputStream(inputStream);
+			object.setContentLength(contentLength);
+			final String eTag = s3Service.putObject(bucketName, object).getETag();
+			return completeUpload(bucketName, key, eTag, contentLength, UploadStrategy.SINGLE_PUT, 0, startTime);
+		}
+		File tempFile = null;
+		try {
+			// JetS3t has no streaming multipart upload, the parts are read from a temporary file
+			tempFile = AWSUtil.createTempFileFromStream(inputStream);
+			return upload(bucketName, key, tempFile);
+		} finally {
+			AWSUtil.deleteTempFile(tempFile);
+		}
+	}
+
+	/**
+	 * Complete an upload, the throughput of the upload is recorded for the next
+	 * selections.
+	 *
+	 * @param bucketName the bucket name
+	 * @param key the key
+	 * @param eTag the e tag
+	 * @param contentLength the content length
+	 * @param strategy the strategy
+	 * @param partSize the part size, 0 for a single PUT
+	 * @param startTime the start time
+	 * @return the upload result
+	 */
+	private UploadResult completeUpload(final String bucketName, final String key, final String eTag,
+			final long contentLength, final UploadStrategy strategy, final long partSize, final long startTime) {
+		final long elapsedMillis = System.currentTimeMillis() - startTime;
+		uploadStrategySelector.recordUpload(strategy, contentLength, elapsedMillis);
+		final UploadResult uploadResult = new UploadResult(bucketName, key, eTag, contentLength, strategy, partSize,
+				elapsedMillis);
+		LOGGER.info("upload completed, {}", uploadResult);
+		return uploadResult;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.jets3.service.JetS3RESTService#abortMultipartUploads(java.lang.String, java.util.Date)
+	 */
+	@Override
+	public int abortMultipartUploads(final String bucketName, final Date initiatedBefore) throws ServiceException {
+		LOGGER.info("abortMultipartUploads invoked, bucketName: {}, initiatedBefore: {}", bucketName, initiatedBefore);
+		int aborted = 0;
+		String keyMarker = null;
+		String uploadIdMarker = null;
+		MultipartUploadChunk uploadChunk;
+		do {
+			uploadChunk = s3Service.multipartListUploadsChunked(bucketName, null, null, keyMarker, uploadIdMarker,
+					AWSUtilConstants.MAX_KEYS_PER_REQUEST, false);
+			for (final MultipartUpload upload : uploadChunk.getUploads()) {
+				if (upload.getInitiatedDate().before(initiatedBefore)) {
+					LOGGER.info("Aborting multipart upload of key: {}, uploadId: {}, initiated: {}",
+							upload.getObjectKey(), upload.getUploadId(), upload.getInitiatedDate());
+					// Listed uploads do not carry the bucket name
+					s3Service.multipartAbortUpload(new MultipartUpload(upload.getUploadId(), bucketName,
+							upload.getObjectKey()));
+					aborted++;
+				}
+			}
+			keyMarker = uploadChunk.getPriorLastKey();
+			uploadIdMarker = uploadChunk.getPriorLastIdMarker();
+		} while (!uploadChunk.isListingComplete());
+		LOGGER.info("abortMultipartUploads completed, bucketName: {}, uploads aborted: {}", bucketName, aborted);
+		return aborted;
+	}
+
 	/* (non-Javadoc)
 	 * @see com.github.abhinavmishra14.aws.jets3.service.JetS3RESTService#getAllBuckets()
 	 */
@@ -185,6 +468,16 @@ public class JetS3RESTServiceImpl implements JetS3RESTService{
 		return Arrays.asList(s3Service.listObjects(bucketName));
 	}
 
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.jets3.service.JetS3RESTService#listObjects(java.lang.String, java.lang.String, java.lang.String)
+	 */
+	@Override
+	public Iterator<StorageObject> listObjects(final String bucketName, final String prefix,
+			final String delimiter) {
+		LOGGER.info("listObjects invoked, bucketName: {}, prefix: {}, delimiter: {}", bucketName, prefix, delimiter);
+		return new JetS3ObjectIterator(s3Service, workerExecutor, bucketName, prefix, delimiter);
+	}
+
 	/* (non-Javadoc)
 	 * @see com.github.abhinavmishra14.aws.jets3.service.JetS3RESTService#deleteObjects(java.lang.String, java.lang.String[])
 	 */
@@ -217,14 +510,39 @@ public class JetS3RESTServiceImpl implements JetS3RESTService{
 	 * @see com.github.abhinavmishra14.aws.jets3.service.JetS3RESTService#cleanAndDeleteBucket(java.lang.String)
 	 */
 	@Override
-	public void cleanAndDeleteBucket(final String bucketName)
+	public BulkDeleteSummary cleanAndDeleteBucket(final String bucketName)
 			throws ServiceException, NoSuchAlgorithmException, IOException {
 		LOGGER.info("cleanAndDeleteBucket invoked, bucketName: {}", bucketName);
-		final List<S3Object> s3Objects = getAllObjects(bucketName);
-		for (final S3Object s3Object : s3Objects) {
-			deleteObject(bucketName, s3Object.getKey());
+		final BulkDeleter bulkDeleter = new BulkDeleter(workerExecutor, new JetS3BatchDeleteAction(s3Service,
+				bucketName), AWSUtilConstants.DEFAULT_DELETE_BATCHES_IN_FLIGHT,
+				AWSUtilConstants.DEFAULT_DELETE_MAX_RETRIES);
+		BulkDeleteSummary deleteSummary;
+		try {
+			final Iterator<StorageObject> storageObjects = new JetS3ObjectIterator(s3Service, workerExecutor,
+					bucketName, null, null);
+			while (storageObjects.hasNext()) {
+				bulkDeleter.submit(storageObjects.next().getKey());
+			}
+			deleteSummary = bulkDeleter.finish();
+		} catch (InterruptedException intrEx) {
+			Thread.currentThread().interrupt();
+			throw new ServiceException("Interrupted while deleting objects from " + bucketName, intrEx);
+		} catch (IllegalStateException listEx) {
+			// Listing failures are wrapped by the iterator
+			if (listEx.getCause() instanceof ServiceException) {
+				throw (ServiceException) listEx.getCause();
+			}
+			throw listEx;
+		} finally {
+			bulkDeleter.awaitSubmitted();
+		}
+		LOGGER.info("cleanAndDeleteBucket objects deleted, {}", deleteSummary);
+		if (!deleteSummary.isComplete()) {
+			throw new ServiceException("Bucket '" + bucketName + "' not deleted, " + deleteSummary.getKeysFailed()
+					+ " objects could not be deleted, first failed keys: " + deleteSummary.getFailedKeys());
 		}
 		deleteBucket(bucketName);
+		return deleteSummary;
 	}
 
 	/* (non-Javadoc)
@@ -245,16 +563,32 @@ public class JetS3RESTServiceImpl implements JetS3RESTService{
 	public void uploadDirectoryAsMultiparts(final String bucketName, final File dirPath)
 			throws ServiceException, Exception {
 		LOGGER.info("uploadDirectoryAsMultiparts invoked, bucketName: {} and dirPath: {}", bucketName, dirPath);
-		final Set<File> setOfFilePath = DirectoryTraverser.getFileUris(dirPath);
-		final List<StorageObject> objects = new ArrayList<StorageObject>();
-		for (final File file : setOfFilePath) {
-			objects.add(ObjectUtils.createObjectForUpload(file.getName(), file, null, // encryptionUtil
-					false // gzipFile
-			));
+		final DirectoryTransferSummary summary = uploadDirectory(bucketName, dirPath, null,
+				new DirectoryUploadConfig().setUploadJournalDirectory(uploadJournalDirectory));
+		if (!summary.isComplete()) {
+			throw new ServiceException(summary.getFilesFailed() + " files of " + dirPath
+					+ " could not be uploaded, first failed keys: " + summary.getFailedKeys());
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.jets3.service.JetS3RESTService#uploadDirectory(java.lang.String, java.io.File, java.lang.String, com.github.abhinavmishra14.aws.util.DirectoryUploadConfig)
+	 */
+	@Override
+	public DirectoryTransferSummary uploadDirectory(final String bucketName, final File dirPath, final String prefix,
+			final DirectoryUploadConfig config) throws ServiceException, IOException {
+		LOGGER.info("uploadDirectory invoked, bucketName: {}, dirPath: {}, prefix: {}, config: {}", bucketName,
+				dirPath, prefix, config);
+		AWSUtil.notNull(dirPath, "Directory should not be null.");
+		AWSUtil.notNull(config, "DirectoryUploadConfig is null!");
+		try {
+			final DirectoryTransferSummary summary = directoryUploader.upload(bucketName, dirPath, prefix, config);
+			LOGGER.info("uploadDirectory completed, {}", summary);
+			return summary;
+		} catch (InterruptedException intrEx) {
+			Thread.currentThread().interrupt();
+			throw new ServiceException("Interrupted while uploading " + dirPath, intrEx);
 		}
-		
-		final MultipartUtils multipartUtils = new MultipartUtils();
-		multipartUtils.uploadObjects(bucketName, s3Service, objects, null);
 	}
 
 	/* (non-Javadoc)
@@ -275,4 +609,166 @@ public class JetS3RESTServiceImpl implements JetS3RESTService{
 		LOGGER.info("setObjectAcl invoked, bucketName: {}", bucketName);
 		s3Service.putBucketAcl(bucketName, acl);
 	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.jets3.service.JetS3RESTService#getConnectionPoolStats()
+	 */
+	@Override
+	public ConnectionPoolStats getConnectionPoolStats() {
+		return s3Service.getConnectionPoolStats();
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.jets3.service.JetS3RESTService#shutdown()
+	 */
+	@Override
+	public void shutdown() throws ServiceException {
+		if (shutdownInvoked.compareAndSet(false, true)) {
+			LOGGER.info("shutdown invoked, stopping JetS3 service");
+			workerExecutor.shutdownNow();
+			s3Service.shutdown();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see java.io.Closeable#close()
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			shutdown();
+		} catch (ServiceException servEx) {
+			throw new IOException("Failed to shutdown JetS3 service", servEx);
+		}
+	}
+
+	/**
+	 * The Class Builder.<br/>
+	 * Builds a JetS3RESTServiceImpl whose JetS3t properties are completed with the
+	 * settings of a {@link ConnectionPoolConfig}. The given properties are copied,
+	 * they are not modified.
+	 */
+	public static final class Builder {
+
+		/** The access key. */
+		private String accessKey;
+
+		/** The secret key. */
+		private String secretKey;
+
+		/** The jets3t properties. */
+		private Jets3tProperties jets3tProperties;
+
+		/** The connection pool config. */
+		private ConnectionPoolConfig connectionPoolConfig = new ConnectionPoolConfig();
+
+		/** The metrics collector. */
+		private S3MetricsCollector metricsCollector = NoOpMetricsCollector.INSTANCE;
+
+		/** The upload journal directory. */
+		private File uploadJournalDirectory = MultipartUploadJournal.defaultJournalDirectory();
+
+		/**
+		 * Instantiates a new builder.
+		 */
+		private Builder() {
+			super();
+		}
+
+		/**
+		 * With credentials.
+		 *
+		 * @param accessKey the access key
+		 * @param secretKey the secret key
+		 * @return the builder
+		 */
+		public Builder withCredentials(final String accessKey, final String secretKey) {
+			this.accessKey = accessKey;
+			this.secretKey = secretKey;
+			return this;
+		}
+
+		/**
+		 * With jets3t properties.
+		 *
+		 * @param jets3tProperties the jets3t properties, endpoint etc. The default jets3t.properties when not set.
+		 * @return the builder
+		 */
+		public Builder withJets3tProperties(final Jets3tProperties jets3tProperties) {
+			this.jets3tProperties = jets3tProperties;
+			return this;
+		}
+
+		/**
+		 * With connection pool config.
+		 *
+		 * @param connectionPoolConfig the connection pool config
+		 * @return the builder
+		 */
+		public Builder withConnectionPoolConfig(final ConnectionPoolConfig connectionPoolConfig) {
+			AWSUtil.notNull(connectionPoolConfig, "ConnectionPoolConfig is null!");
+			this.connectionPoolConfig = connectionPoolConfig;
+			return this;
+		}
+
+		/**
+		 * With metrics collector.
+		 *
+		 * @param metricsCollector the metrics collector
+		 * @return the builder
+		 */
+		public Builder withMetricsCollector(final S3MetricsCollector metricsCollector) {
+			AWSUtil.notNull(metricsCollector, "Metrics collector is null!");
+			this.metricsCollector = metricsCollector;
+			return this;
+		}
+
+		/**
+		 * With upload journal directory.<br/>
+		 * Resumable uploads record their progress there, it must survive a restart
+		 * of the JVM for the uploads to resume.
+		 *
+		 * @param uploadJournalDirectory the upload journal directory, under java.io.tmpdir by default
+		 * @return the builder
+		 */
+		public Builder withUploadJournalDirectory(final File uploadJournalDirectory) {
+			AWSUtil.notNull(uploadJournalDirectory, "Upload journal directory is null!");
+			this.uploadJournalDirectory = uploadJournalDirectory;
+			return this;
+		}
+
+		/**
+		 * Builds the service.
+		 *
+		 * @return the JetS3 REST service
+		 */
+		public JetS3RESTServiceImpl build() {
+			final Jets3tProperties properties = new Jets3tProperties();
+			properties.loadAndReplaceProperties(jets3tProperties == null
+					? Jets3tProperties.getInstance(Constants.JETS3T_PROPERTIES_FILENAME) : jets3tProperties,
+					Builder.class.getName());
+			properties.setProperty("httpclient.max-connections",
+					String.valueOf(connectionPoolConfig.getMaxConnections()));
+			properties.setProperty("httpclient.max-connections-per-host",
+					String.valueOf(connectionPoolConfig.getMaxConnections()));
+			properties.setProperty("httpclient.connection-timeout-ms",
+					String.valueOf(connectionPoolConfig.getConnectionTimeoutMillis()));
+			properties.setProperty("httpclient.socket-timeout-ms",
+					String.valueOf(connectionPoolConfig.getSocketTimeoutMillis()));
+			properties.setProperty("httpclient.connection.ttl",
+					String.valueOf(connectionPoolConfig.getConnectionTtlMillis()));
+			properties.setProperty(PooledRestS3Service.CONNECTION_MAX_IDLE_PROPERTY,
+					String.valueOf(connectionPoolConfig.getConnectionMaxIdleMillis()));
+			properties.setProperty(PooledRestS3Service.TCP_NO_DELAY_PROPERTY,
+					String.valueOf(connectionPoolConfig.isTcpNoDelay()));
+			properties.setProperty(PooledRestS3Service.TCP_KEEP_ALIVE_PROPERTY,
+					String.valueOf(connectionPoolConfig.isTcpKeepAlive()));
+			properties.setProperty(PooledRestS3Service.SOCKET_SEND_BUFFER_SIZE_PROPERTY,
+					String.valueOf(connectionPoolConfig.getSocketSendBufferSize()));
+			properties.setProperty(PooledRestS3Service.SOCKET_RECEIVE_BUFFER_SIZE_PROPERTY,
+					String.valueOf(connectionPoolConfig.getSocketReceiveBufferSize()));
+			return new JetS3RESTServiceImpl(accessKey, secretKey, properties, metricsCollector,
+					uploadJournalDirectory);
+		}
+	}
 }
@@ -0,0 +1,73 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.jets3.transfer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.jets3t.service.S3Service;
+import org.jets3t.service.ServiceException;
+import org.jets3t.service.model.MultipleDeleteResult;
+import org.jets3t.service.model.MultipleDeleteResult.ErrorResult;
+
+import com.github.abhinavmishra14.aws.util.BatchDeleteAction;
+
+/**
+ * The Class JetS3BatchDeleteAction.<br/>
+ * Deletes a batch of keys with one JetS3t multiple delete request.
+ *
+ * @author Abhinav kumar mishra
+ */
+public final class JetS3BatchDeleteAction implements BatchDeleteAction {
+
+	/** The s3Service. */
+	private final S3Service s3Service;
+
+	/** The bucket name. */
+	private final String bucketName;
+
+	/**
+	 * Instantiates a new jet s3 batch delete action.
+	 *
+	 * @param s3Service the s3 service
+	 * @param bucketName the bucket name
+	 */
+	public JetS3BatchDeleteAction(final S3Service s3Service, final String bucketName) {
+		super();
+		this.s3Service = s3Service;
+		this.bucketName = bucketName;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.util.BatchDeleteAction#deleteBatch(java.util.List)
+	 */
+	@Override
+	public List<String> deleteBatch(final List<String> keys) throws ServiceException {
+		final MultipleDeleteResult deleteResult = s3Service.deleteMultipleObjects(bucketName,
+				keys.toArray(new String[keys.size()]));
+		if (!deleteResult.hasErrors()) {
+			return Collections.emptyList();
+		}
+		final List<String> failedKeys = new ArrayList<String>(deleteResult.getErrorResults().size());
+		for (final ErrorResult errorResult : deleteResult.getErrorResults()) {
+			failedKeys.add(errorResult.getKey());
+		}
+		return failedKeys;
+	}
+}
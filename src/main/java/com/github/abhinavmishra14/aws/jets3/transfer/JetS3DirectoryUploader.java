@@ -0,0 +1,329 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.jets3.transfer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.jets3t.service.S3Service;
+import org.jets3t.service.model.S3Object;
+import org.jets3t.service.utils.Mimetypes;
+import org.jets3t.service.utils.ObjectUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.abhinavmishra14.aws.util.AWSUtil;
+import com.github.abhinavmishra14.aws.util.AWSUtilConstants;
+import com.github.abhinavmishra14.aws.util.DirectoryTransferCounters;
+import com.github.abhinavmishra14.aws.util.DirectoryTransferSummary;
+import com.github.abhinavmishra14.aws.util.DirectoryUploadConfig;
+import com.github.abhinavmishra14.aws.util.MultipartUploadJournal;
+import com.github.abhinavmishra14.aws.util.NamedThreadFactory;
+import com.github.abhinavmishra14.aws.util.ParallelDirectoryWalker;
+import com.github.abhinavmishra14.aws.util.ResumableUploader;
+
+/**
+ * The Class JetS3DirectoryUploader.<br/>
+ * Uploads a local directory through JetS3t with three stages running at the
+ * same time: the tree is walked by a {@link ParallelDirectoryWalker}, build
+ * threads prepare the objects (content type and, for small files, the MD5) and
+ * upload threads send them. Bounded queues between the stages hold back a stage
+ * running ahead, so uploads start with the first files found and memory does not
+ * grow with the size of the tree.<br/>
+ * Keys are the paths relative to the directory, so files of the same name in
+ * different sub directories do not overwrite each other. Files up to the
+ * multipart threshold are sent with a single PUT, larger ones as resumable
+ * multipart uploads whose parts run on the executor of the resumable uploader.
+ *
+ * @author Abhinav kumar mishra
+ */
+public class JetS3DirectoryUploader {
+
+	/** The Constant LOGGER. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(JetS3DirectoryUploader.class);
+
+	/** The Constant END_OF_STAGE. Marks the end of the files given to a stage. */
+	private static final PendingFile END_OF_STAGE = new PendingFile(null, null, 0);
+
+	/** The s3Service. */
+	private final S3Service s3Service;
+
+	/** The resumable uploader of the large files. */
+	private final ResumableUploader resumableUploader;
+
+	/**
+	 * Instantiates a new jet s3 directory uploader.
+	 *
+	 * @param s3Service the s3 service
+	 * @param resumableUploader the resumable uploader of the files above the multipart threshold
+	 */
+	public JetS3DirectoryUploader(final S3Service s3Service, final ResumableUploader resumableUploader) {
+		super();
+		this.s3Service = s3Service;
+		this.resumableUploader = resumableUploader;
+	}
+
+	/**
+	 * Upload the files of the directory under the prefix.<br/>
+	 * File <code>dir/a/b.txt</code> is uploaded as key <code>prefix/a/b.txt</code>.
+	 * Failed files are counted in the summary and do not stop the upload of the
+	 * others.
+	 *
+	 * @param bucketName the bucket name
+	 * @param dir the directory
+	 * @param prefix the prefix, null or empty to upload at the root of the bucket
+	 * @param config the upload config
+	 * @return the directory transfer summary
+	 * @throws IOException Signals that an I/O exception has occurred, if the directory cannot be walked
+	 * @throws InterruptedException the interrupted exception
+	 */
+	public DirectoryTransferSummary upload(final String bucketName, final File dir, final String prefix,
+			final DirectoryUploadConfig config) throws IOException, InterruptedException {
+		final UploadRun uploadRun = new UploadRun(bucketName, config);
+		final ExecutorService buildExecutor = Executors.newFixedThreadPool(config.getBuildThreads(),
+				new NamedThreadFactory(AWSUtilConstants.JETS3_BUILD_THREAD_NAME_PREFIX));
+		final ExecutorService uploadExecutor = Executors.newFixedThreadPool(config.getUploadThreads(),
+				new NamedThreadFactory(AWSUtilConstants.JETS3_UPLOAD_THREAD_NAME_PREFIX));
+		try {
+			final List<Future<?>> builders = new ArrayList<Future<?>>();
+			for (int thread = 0; thread < config.getBuildThreads(); thread++) {
+				builders.add(buildExecutor.submit(() -> {
+					uploadRun.build();
+					return null;
+				}));
+			}
+			final List<Future<?>> uploaders = new ArrayList<Future<?>>();
+			for (int thread = 0; thread < config.getUploadThreads(); thread++) {
+				uploaders.add(uploadExecutor.submit(() -> {
+					uploadRun.upload();
+					return null;
+				}));
+			}
+			final Path root = dir.toPath();
+			final String dirPrefix = AWSUtil.toDirectoryPrefix(prefix);
+			new ParallelDirectoryWalker(config.getWalkConfig()).walk(root, (file, attributes) -> uploadRun.enqueue(
+					new PendingFile(dirPrefix + root.relativize(file).toString().replace(File.separatorChar, '/'),
+							file.toFile(), attributes.size())));
+			endStage(uploadRun.walkedFiles, builders);
+			endStage(uploadRun.builtFiles, uploaders);
+		} finally {
+			// Stops the stages early when the walk failed
+			buildExecutor.shutdownNow();
+			uploadExecutor.shutdownNow();
+		}
+		return uploadRun.toSummary();
+	}
+
+	/**
+	 * Tell the threads of a stage there are no more files and wait for them.
+	 *
+	 * @param queue the queue of the stage
+	 * @param workers the threads of the stage
+	 * @throws InterruptedException the interrupted exception
+	 */
+	private static void endStage(final BlockingQueue<PendingFile> queue, final List<Future<?>> workers)
+			throws InterruptedException {
+		for (int worker = 0; worker < workers.size(); worker++) {
+			queue.put(END_OF_STAGE);
+		}
+		for (final Future<?> worker : workers) {
+			try {
+				worker.get();
+			} catch (ExecutionException execEx) {
+				throw new IllegalStateException("Directory upload stage failed", execEx);
+			}
+		}
+	}
+
+	/**
+	 * The Class PendingFile.<br/>
+	 * A file going through the stages.
+	 */
+	private static final class PendingFile {
+
+		/** The key. */
+		private final String key;
+
+		/** The file. */
+		private final File file;
+
+		/** The length. */
+		private final long length;
+
+		/** The object, null until built. */
+		private S3Object object;
+
+		/**
+		 * Instantiates a new pending file.
+		 *
+		 * @param key the key
+		 * @param file the file
+		 * @param length the length
+		 */
+		PendingFile(final String key, final File file, final long length) {
+			this.key = key;
+			this.file = file;
+			this.length = length;
+		}
+
+		/**
+		 * Checks if this marks the end of a stage.
+		 *
+		 * @return true, if there are no more files
+		 */
+		public boolean isEndOfStage() {
+			return key == null;
+		}
+	}
+
+	/**
+	 * The Class UploadRun.<br/>
+	 * State of one directory upload.
+	 */
+	private final class UploadRun {
+
+		/** The bucket name. */
+		private final String bucketName;
+
+		/** The config. */
+		private final DirectoryUploadConfig config;
+
+		/** The files walked, waiting to be built. */
+		private final BlockingQueue<PendingFile> walkedFiles;
+
+		/** The files built, waiting to be uploaded. */
+		private final BlockingQueue<PendingFile> builtFiles;
+
+		/** The counters. */
+		private final DirectoryTransferCounters counters = new DirectoryTransferCounters();
+
+		/**
+		 * Instantiates a new upload run.
+		 *
+		 * @param bucketName the bucket name
+		 * @param config the config
+		 */
+		UploadRun(final String bucketName, final DirectoryUploadConfig config) {
+			this.bucketName = bucketName;
+			this.config = config;
+			this.walkedFiles = new ArrayBlockingQueue<PendingFile>(config.getQueueCapacity());
+			this.builtFiles = new ArrayBlockingQueue<PendingFile>(config.getQueueCapacity());
+		}
+
+		/**
+		 * Hand a walked file to the build stage, waits while the stage is behind.
+		 *
+		 * @param pendingFile the pending file
+		 */
+		public void enqueue(final PendingFile pendingFile) {
+			try {
+				walkedFiles.put(pendingFile);
+			} catch (InterruptedException intrEx) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while walking the directory", intrEx);
+			}
+		}
+
+		/**
+		 * Build stage: prepare the objects until the end of the walk.
+		 *
+		 * @throws InterruptedException the interrupted exception
+		 */
+		public void build() throws InterruptedException {
+			PendingFile pendingFile = walkedFiles.take();
+			while (!pendingFile.isEndOfStage()) {
+				try {
+					if (pendingFile.length > config.getMultipartUploadThreshold()) {
+						// Parts are checked one by one, the MD5 of the whole file is not needed
+						pendingFile.object = new S3Object(pendingFile.key);
+						pendingFile.object.setContentType(Mimetypes.getInstance().getMimetype(pendingFile.file));
+					} else {
+						pendingFile.object = ObjectUtils.createObjectForUpload(pendingFile.key, pendingFile.file,
+								null, false);
+					}
+				} catch (Exception excp) {
+					recordFailure(pendingFile.key, excp);
+				}
+				if (pendingFile.object != null) {
+					builtFiles.put(pendingFile);
+				}
+				pendingFile = walkedFiles.take();
+			}
+		}
+
+		/**
+		 * Upload stage: send the objects until the end of the build stage.
+		 *
+		 * @throws InterruptedException the interrupted exception
+		 */
+		public void upload() throws InterruptedException {
+			PendingFile pendingFile = builtFiles.take();
+			while (!pendingFile.isEndOfStage()) {
+				try {
+					if (pendingFile.length > config.getMultipartUploadThreshold()) {
+						final File journalFile = MultipartUploadJournal.journalFileFor(
+								config.getUploadJournalDirectory(), bucketName, pendingFile.key, pendingFile.file);
+						resumableUploader.upload(new JetS3MultipartUploadAction(s3Service, bucketName,
+								pendingFile.object), bucketName, pendingFile.key, pendingFile.file, journalFile,
+								ResumableUploader.partSizeFor(pendingFile.length, config.getMinimumPartSize()));
+					} else {
+						s3Service.putObject(bucketName, pendingFile.object);
+					}
+					counters.recordTransfer(pendingFile.length);
+				} catch (Exception excp) {
+					recordFailure(pendingFile.key, excp);
+					if (excp instanceof InterruptedException) {
+						// The upload was stopped, the journal lets it resume
+						Thread.currentThread().interrupt();
+						return;
+					}
+				}
+				pendingFile = builtFiles.take();
+			}
+		}
+
+		/**
+		 * Record a failed key.
+		 *
+		 * @param key the key
+		 * @param cause the cause
+		 */
+		private void recordFailure(final String key, final Exception cause) {
+			LOGGER.warn("Failed to upload {}: {}", key, cause.getMessage());
+			counters.recordFailure(key);
+		}
+
+		/**
+		 * Snapshot of the counters.
+		 *
+		 * @return the directory transfer summary
+		 */
+		public DirectoryTransferSummary toSummary() {
+			return counters.toSummary();
+		}
+	}
+}
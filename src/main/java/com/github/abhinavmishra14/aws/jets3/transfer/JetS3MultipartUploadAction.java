@@ -0,0 +1,153 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.jets3.transfer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.jets3t.service.S3Service;
+import org.jets3t.service.S3ServiceException;
+import org.jets3t.service.io.SegmentedRepeatableFileInputStream;
+import org.jets3t.service.model.MultipartPart;
+import org.jets3t.service.model.MultipartUpload;
+import org.jets3t.service.model.S3Object;
+import org.jets3t.service.model.StorageObject;
+
+import com.github.abhinavmishra14.aws.util.MultipartUploadAction;
+import com.github.abhinavmishra14.aws.util.UploadedPart;
+
+/**
+ * The Class JetS3MultipartUploadAction.<br/>
+ * Multipart upload requests of one object through JetS3t, parts are read
+ * straight from the file.
+ *
+ * @author Abhinav kumar mishra
+ */
+public final class JetS3MultipartUploadAction implements MultipartUploadAction {
+
+	/** The Constant NO_SUCH_UPLOAD. */
+	private static final String NO_SUCH_UPLOAD = "NoSuchUpload";
+
+	/** The s3Service. */
+	private final S3Service s3Service;
+
+	/** The bucket name. */
+	private final String bucketName;
+
+	/** The object, its key, metadata and acl are used to initiate the upload. */
+	private final StorageObject object;
+
+	/**
+	 * Instantiates a new jet s3 multipart upload action.
+	 *
+	 * @param s3Service the s3 service
+	 * @param bucketName the bucket name
+	 * @param object the object
+	 */
+	public JetS3MultipartUploadAction(final S3Service s3Service, final String bucketName,
+			final StorageObject object) {
+		super();
+		this.s3Service = s3Service;
+		this.bucketName = bucketName;
+		this.object = object;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.util.MultipartUploadAction#initiate()
+	 */
+	@Override
+	public String initiate() throws S3ServiceException {
+		return s3Service.multipartStartUpload(bucketName, object.getKey(), object.getMetadataMap(), object.getAcl(),
+				object.getStorageClass()).getUploadId();
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.util.MultipartUploadAction#listParts(java.lang.String)
+	 */
+	@Override
+	public Map<Integer, UploadedPart> listParts(final String uploadId) throws S3ServiceException {
+		final Map<Integer, UploadedPart> uploadedParts = new TreeMap<Integer, UploadedPart>();
+		try {
+			for (final MultipartPart part : s3Service.multipartListParts(toMultipartUpload(uploadId))) {
+				uploadedParts.put(part.getPartNumber(), new UploadedPart(part.getPartNumber(), part.getEtag(),
+						part.getSize()));
+			}
+		} catch (S3ServiceException s3Ex) {
+			if (NO_SUCH_UPLOAD.equals(s3Ex.getErrorCode())) {
+				return null;
+			}
+			throw s3Ex;
+		}
+		return uploadedParts;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.util.MultipartUploadAction#uploadPart(java.lang.String, int, java.io.File, long, long)
+	 */
+	@Override
+	public String uploadPart(final String uploadId, final int partNumber, final File file, final long offset,
+			final long length) throws S3ServiceException, IOException {
+		final S3Object partObject = new S3Object(object.getKey());
+		partObject.setDataInputStream(new SegmentedRepeatableFileInputStream(file, offset, length));
+		partObject.setContentLength(length);
+		try {
+			return s3Service.multipartUploadPart(toMultipartUpload(uploadId), partNumber, partObject).getEtag();
+		} finally {
+			partObject.closeDataInputStream();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.util.MultipartUploadAction#complete(java.lang.String, java.util.SortedMap)
+	 */
+	@Override
+	public String complete(final String uploadId, final SortedMap<Integer, String> partETags)
+			throws S3ServiceException {
+		final List<MultipartPart> parts = new ArrayList<MultipartPart>(partETags.size());
+		// Only the part numbers and ETags are sent, JetS3t rejects a null date or size
+		final Date placeholderDate = new Date();
+		for (final Map.Entry<Integer, String> partETag : partETags.entrySet()) {
+			parts.add(new MultipartPart(partETag.getKey(), placeholderDate, partETag.getValue(), 0L));
+		}
+		return s3Service.multipartCompleteUpload(toMultipartUpload(uploadId), parts).getEtag();
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.util.MultipartUploadAction#abort(java.lang.String)
+	 */
+	@Override
+	public void abort(final String uploadId) throws S3ServiceException {
+		s3Service.multipartAbortUpload(toMultipartUpload(uploadId));
+	}
+
+	/**
+	 * To multipart upload.
+	 *
+	 * @param uploadId the upload id
+	 * @return the multipart upload
+	 */
+	private MultipartUpload toMultipartUpload(final String uploadId) {
+		return new MultipartUpload(uploadId, bucketName, object.getKey());
+	}
+}
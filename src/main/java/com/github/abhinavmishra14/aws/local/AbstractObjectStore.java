@@ -0,0 +1,141 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.local;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * The Class AbstractObjectStore.<br/>
+ * Keeps the bucket and object index in memory, sub classes only decide where
+ * the content lives.
+ *
+ * @author Abhinav kumar mishra
+ */
+abstract class AbstractObjectStore implements ObjectStore {
+
+	/** The Constant HEX_DIGITS. */
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+	/** The buckets. */
+	protected final ConcurrentSkipListMap<String, BucketIndex> buckets = new ConcurrentSkipListMap<String, BucketIndex>();
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.local.ObjectStore#getBuckets()
+	 */
+	@Override
+	public SortedMap<String, Date> getBuckets() {
+		final SortedMap<String, Date> bucketNames = new TreeMap<String, Date>();
+		for (final Map.Entry<String, BucketIndex> bucket : buckets.entrySet()) {
+			bucketNames.put(bucket.getKey(), new Date(bucket.getValue().getCreated()));
+		}
+		return bucketNames;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.local.ObjectStore#getObjects(java.lang.String)
+	 */
+	@Override
+	public NavigableMap<String, ObjectEntry> getObjects(final String bucketName) {
+		final BucketIndex bucket = buckets.get(bucketName);
+		return bucket == null ? null : Collections.unmodifiableNavigableMap(bucket.getObjects());
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.local.ObjectStore#getObject(java.lang.String, java.lang.String)
+	 */
+	@Override
+	public ObjectEntry getObject(final String bucketName, final String key) {
+		final BucketIndex bucket = buckets.get(bucketName);
+		return bucket == null ? null : bucket.getObjects().get(key);
+	}
+
+	/**
+	 * Creates a new MD5 digest.
+	 *
+	 * @return the message digest
+	 */
+	protected static MessageDigest newMd5() {
+		try {
+			return MessageDigest.getInstance("MD5");
+		} catch (NoSuchAlgorithmException noAlgoEx) {
+			throw new IllegalStateException("MD5 is not supported by this JVM", noAlgoEx);
+		}
+	}
+
+	/**
+	 * Encodes the bytes as lower case hex.
+	 *
+	 * @param bytes the bytes
+	 * @return the hex string
+	 */
+	protected static String toHex(final byte[] bytes) {
+		final char[] hex = new char[bytes.length * 2];
+		for (int idx = 0; idx < bytes.length; idx++) {
+			hex[idx * 2] = HEX_DIGITS[(bytes[idx] >> 4) & 0xf];
+			hex[idx * 2 + 1] = HEX_DIGITS[bytes[idx] & 0xf];
+		}
+		return new String(hex);
+	}
+
+	/**
+	 * The Class BucketIndex.
+	 */
+	protected static final class BucketIndex {
+
+		/** The creation time in millis. */
+		private final long created;
+
+		/** The objects in key order. */
+		private final ConcurrentSkipListMap<String, ObjectEntry> objects = new ConcurrentSkipListMap<String, ObjectEntry>();
+
+		/**
+		 * Instantiates a new bucket index.
+		 *
+		 * @param created the creation time in millis
+		 */
+		protected BucketIndex(final long created) {
+			this.created = created;
+		}
+
+		/**
+		 * Gets the creation time in millis.
+		 *
+		 * @return the creation time in millis
+		 */
+		public long getCreated() {
+			return created;
+		}
+
+		/**
+		 * Gets the objects in key order.
+		 *
+		 * @return the objects
+		 */
+		public ConcurrentSkipListMap<String, ObjectEntry> getObjects() {
+			return objects;
+		}
+	}
+}
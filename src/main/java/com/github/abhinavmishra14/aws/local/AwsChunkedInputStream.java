@@ -0,0 +1,145 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.local;
+
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The Class AwsChunkedInputStream.<br/>
+ * Decodes a request body sent with the <code>aws-chunked</code> content encoding
+ * of signature version 4 streaming uploads. Chunk signatures are not verified.
+ *
+ * @author Abhinav kumar mishra
+ */
+final class AwsChunkedInputStream extends FilterInputStream {
+
+	/** The Constant MAX_CHUNK_HEADER_LENGTH. */
+	private static final int MAX_CHUNK_HEADER_LENGTH = 4096;
+
+	/** The bytes left in the current chunk. */
+	private long chunkRemaining;
+
+	/** Whether the last, empty chunk has been read. */
+	private boolean finished;
+
+	/**
+	 * Instantiates a new aws chunked input stream.
+	 *
+	 * @param encoded the encoded body
+	 */
+	AwsChunkedInputStream(final InputStream encoded) {
+		super(encoded);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.io.FilterInputStream#read()
+	 */
+	@Override
+	public int read() throws IOException {
+		final byte[] single = new byte[1];
+		final int read = read(single, 0, 1);
+		return read == -1 ? -1 : single[0] & 0xff;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.io.FilterInputStream#read(byte[], int, int)
+	 */
+	@Override
+	public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+		if (finished) {
+			return -1;
+		}
+		if (chunkRemaining == 0) {
+			chunkRemaining = readChunkHeader();
+			if (chunkRemaining == 0) {
+				finished = true;
+				return -1;
+			}
+		}
+		final int read = in.read(buffer, offset, (int) Math.min(length, chunkRemaining));
+		if (read == -1) {
+			throw new EOFException("Truncated aws-chunked body");
+		}
+		chunkRemaining -= read;
+		if (chunkRemaining == 0) {
+			readLine(); // CRLF closing the chunk data
+		}
+		return read;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.io.FilterInputStream#available()
+	 */
+	@Override
+	public int available() throws IOException {
+		return (int) Math.min(chunkRemaining, in.available());
+	}
+
+	/* (non-Javadoc)
+	 * @see java.io.FilterInputStream#markSupported()
+	 */
+	@Override
+	public boolean markSupported() {
+		return false;
+	}
+
+	/**
+	 * Reads a chunk header, <code>hex-size;chunk-signature=...</code>.
+	 *
+	 * @return the chunk size
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private long readChunkHeader() throws IOException {
+		final String header = readLine();
+		final int extension = header.indexOf(';');
+		try {
+			return Long.parseLong((extension == -1 ? header : header.substring(0, extension)).trim(), 16);
+		} catch (NumberFormatException numFormatEx) {
+			throw new IOException("Malformed aws-chunked chunk header: " + header, numFormatEx);
+		}
+	}
+
+	/**
+	 * Reads a CRLF terminated line.
+	 *
+	 * @return the line without the terminator
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private String readLine() throws IOException {
+		final byte[] line = new byte[MAX_CHUNK_HEADER_LENGTH];
+		int length = 0;
+		int read;
+		while ((read = in.read()) != '\n') {
+			if (read == -1) {
+				throw new EOFException("Truncated aws-chunked body");
+			}
+			if (length == line.length) {
+				throw new IOException("aws-chunked chunk header too long");
+			}
+			line[length++] = (byte) read;
+		}
+		if (length > 0 && line[length - 1] == '\r') {
+			length--;
+		}
+		return new String(line, 0, length, StandardCharsets.US_ASCII);
+	}
+}
@@ -0,0 +1,363 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.local;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.input.BoundedInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The Class DiskObjectStore.<br/>
+ * Keeps the content of every object in a file under a root directory so that
+ * data sets larger than the heap can be served, and reloads the buckets and
+ * objects found there when created again on the same directory. Each bucket is
+ * a directory, each object a <code>.data</code> file with a <code>.meta</code>
+ * properties file next to it. Parts of pending multipart uploads are not kept
+ * across restarts.
+ *
+ * @author Abhinav kumar mishra
+ */
+public class DiskObjectStore extends AbstractObjectStore {
+
+	/** The Constant LOGGER. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(DiskObjectStore.class);
+
+	/** The Constant MULTIPART_DIR_NAME. Bucket names never start with a dot. */
+	private static final String MULTIPART_DIR_NAME = ".multipart";
+
+	/** The Constant BUCKET_MARKER_NAME. */
+	private static final String BUCKET_MARKER_NAME = ".bucket";
+
+	/** The Constant DATA_SUFFIX. */
+	private static final String DATA_SUFFIX = ".data";
+
+	/** The Constant META_SUFFIX. */
+	private static final String META_SUFFIX = ".meta";
+
+	/** The Constant TEMP_SUFFIX. */
+	private static final String TEMP_SUFFIX = ".tmp";
+
+	/** The Constant HEADER_PREFIX. */
+	private static final String HEADER_PREFIX = "header.";
+
+	/** The root directory. */
+	private final File rootDirectory;
+
+	/** The blob name of each object, keyed by entry identity so that replaced entries are told apart. */
+	private final ConcurrentMap<ObjectEntry, String> blobs = new ConcurrentHashMap<ObjectEntry, String>();
+
+	/**
+	 * Instantiates a new disk object store and loads the buckets already kept under the root directory.
+	 *
+	 * @param rootDirectory the root directory, created if missing
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public DiskObjectStore(final File rootDirectory) throws IOException {
+		super();
+		this.rootDirectory = rootDirectory;
+		Files.createDirectories(rootDirectory.toPath());
+		FileUtils.deleteDirectory(new File(rootDirectory, MULTIPART_DIR_NAME));
+		final File[] bucketDirs = rootDirectory.listFiles();
+		if (bucketDirs != null) {
+			for (final File bucketDir : bucketDirs) {
+				if (bucketDir.isDirectory() && !bucketDir.getName().startsWith(".")) {
+					loadBucket(bucketDir);
+				}
+			}
+		}
+		LOGGER.info("DiskObjectStore loaded {} buckets from {}", buckets.size(), rootDirectory);
+	}
+
+	/**
+	 * Gets the root directory.
+	 *
+	 * @return the root directory
+	 */
+	public File getRootDirectory() {
+		return rootDirectory;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.local.ObjectStore#createBucket(java.lang.String)
+	 */
+	@Override
+	public synchronized boolean createBucket(final String bucketName) throws IOException {
+		if (buckets.containsKey(bucketName)) {
+			return false;
+		}
+		final File bucketDir = new File(rootDirectory, bucketName);
+		Files.createDirectories(bucketDir.toPath());
+		final long created = System.currentTimeMillis();
+		Files.write(new File(bucketDir, BUCKET_MARKER_NAME).toPath(),
+				String.valueOf(created).getBytes(StandardCharsets.UTF_8));
+		buckets.put(bucketName, new BucketIndex(created));
+		return true;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.local.ObjectStore#deleteBucket(java.lang.String)
+	 */
+	@Override
+	public synchronized boolean deleteBucket(final String bucketName) throws IOException {
+		final BucketIndex bucket = buckets.remove(bucketName);
+		if (bucket == null) {
+			return false;
+		}
+		for (final ObjectEntry entry : bucket.getObjects().values()) {
+			blobs.remove(entry);
+		}
+		FileUtils.deleteDirectory(new File(rootDirectory, bucketName));
+		return true;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.local.ObjectStore#putObject(java.lang.String, java.lang.String, java.io.InputStream, java.util.Map, java.lang.String)
+	 */
+	@Override
+	public ObjectEntry putObject(final String bucketName, final String key, final InputStream content,
+			final Map<String, String> headers, final String eTag) throws IOException {
+		final BucketIndex bucket = buckets.get(bucketName);
+		if (bucket == null) {
+			throw new FileNotFoundException("No such bucket: " + bucketName);
+		}
+		final File bucketDir = new File(rootDirectory, bucketName);
+		final String blobName = UUID.randomUUID().toString();
+		final File dataFile = new File(bucketDir, blobName + DATA_SUFFIX);
+		final MessageDigest md5 = newMd5();
+		final long length = Files.copy(new DigestInputStream(content, md5), dataFile.toPath());
+		final ObjectEntry entry = new ObjectEntry(key, length, eTag == null ? toHex(md5.digest()) : eTag,
+				System.currentTimeMillis(), headers);
+		writeMeta(new File(bucketDir, blobName + META_SUFFIX), entry);
+		blobs.put(entry, blobName);
+		final ObjectEntry replaced = bucket.getObjects().put(key, entry);
+		if (replaced != null) {
+			deleteBlob(bucketDir, blobs.remove(replaced));
+		}
+		return entry;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.local.ObjectStore#getContent(java.lang.String, com.github.abhinavmishra14.aws.local.ObjectEntry, long, long)
+	 */
+	@Override
+	public InputStream getContent(final String bucketName, final ObjectEntry entry, final long offset,
+			final long length) throws IOException {
+		final String blobName = blobs.get(entry);
+		if (blobName == null) {
+			return null;
+		}
+		final File dataFile = new File(new File(rootDirectory, bucketName), blobName + DATA_SUFFIX);
+		try {
+			final FileChannel channel = FileChannel.open(dataFile.toPath(), StandardOpenOption.READ);
+			channel.position(offset);
+			return new BoundedInputStream(Channels.newInputStream(channel), length);
+		} catch (NoSuchFileException noFileEx) {
+			// Replaced or deleted after the entry was read
+			return null;
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.local.ObjectStore#deleteObject(java.lang.String, java.lang.String)
+	 */
+	@Override
+	public boolean deleteObject(final String bucketName, final String key) throws IOException {
+		final BucketIndex bucket = buckets.get(bucketName);
+		final ObjectEntry removed = bucket == null ? null : bucket.getObjects().remove(key);
+		if (removed == null) {
+			return false;
+		}
+		deleteBlob(new File(rootDirectory, bucketName), blobs.remove(removed));
+		return true;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.local.ObjectStore#putPart(java.lang.String, int, java.io.InputStream)
+	 */
+	@Override
+	public ObjectEntry putPart(final String uploadId, final int partNumber, final InputStream content)
+			throws IOException {
+		final File uploadDir = new File(new File(rootDirectory, MULTIPART_DIR_NAME), uploadId);
+		Files.createDirectories(uploadDir.toPath());
+		final File tempFile = new File(uploadDir, partNumber + "." + UUID.randomUUID() + TEMP_SUFFIX);
+		final MessageDigest md5 = newMd5();
+		final long length = Files.copy(new DigestInputStream(content, md5), tempFile.toPath());
+		Files.move(tempFile.toPath(), new File(uploadDir, partNumber + DATA_SUFFIX).toPath(),
+				StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		return new ObjectEntry(String.valueOf(partNumber), length, toHex(md5.digest()), System.currentTimeMillis(),
+				null);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.local.ObjectStore#getPartContent(java.lang.String, int)
+	 */
+	@Override
+	public InputStream getPartContent(final String uploadId, final int partNumber) throws IOException {
+		final File partFile = new File(new File(new File(rootDirectory, MULTIPART_DIR_NAME), uploadId),
+				partNumber + DATA_SUFFIX);
+		try {
+			return Files.newInputStream(partFile.toPath());
+		} catch (NoSuchFileException noFileEx) {
+			return null;
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.local.ObjectStore#deleteParts(java.lang.String)
+	 */
+	@Override
+	public void deleteParts(final String uploadId) throws IOException {
+		FileUtils.deleteDirectory(new File(new File(rootDirectory, MULTIPART_DIR_NAME), uploadId));
+	}
+
+	/**
+	 * Loads a bucket directory into the index.<br/>
+	 * Data files without meta data are left overs of an interrupted put and are
+	 * removed, as is the older of two entries with the same key.
+	 *
+	 * @param bucketDir the bucket dir
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private void loadBucket(final File bucketDir) throws IOException {
+		final File marker = new File(bucketDir, BUCKET_MARKER_NAME);
+		long created = bucketDir.lastModified();
+		if (marker.isFile()) {
+			try {
+				created = Long.parseLong(new String(Files.readAllBytes(marker.toPath()), StandardCharsets.UTF_8).trim());
+			} catch (NumberFormatException numFormatEx) {
+				LOGGER.warn("Ignoring unreadable bucket marker {}", marker);
+			}
+		}
+		final BucketIndex bucket = new BucketIndex(created);
+		final File[] files = bucketDir.listFiles();
+		if (files != null) {
+			for (final File file : files) {
+				final String fileName = file.getName();
+				if (fileName.endsWith(META_SUFFIX)) {
+					final String blobName = fileName.substring(0, fileName.length() - META_SUFFIX.length());
+					if (!new File(bucketDir, blobName + DATA_SUFFIX).isFile()) {
+						Files.delete(file.toPath());
+						continue;
+					}
+					final ObjectEntry entry = readMeta(file);
+					final ObjectEntry existing = bucket.getObjects().get(entry.getKey());
+					if (existing == null || existing.getLastModified() < entry.getLastModified()) {
+						bucket.getObjects().put(entry.getKey(), entry);
+						blobs.put(entry, blobName);
+						if (existing != null) {
+							deleteBlob(bucketDir, blobs.remove(existing));
+						}
+					} else {
+						deleteBlob(bucketDir, blobName);
+					}
+				}
+			}
+			for (final File file : files) {
+				final String fileName = file.getName();
+				if (fileName.endsWith(TEMP_SUFFIX) || fileName.endsWith(DATA_SUFFIX)
+						&& !new File(bucketDir, fileName.substring(0, fileName.length() - DATA_SUFFIX.length())
+								+ META_SUFFIX).isFile()) {
+					Files.deleteIfExists(file.toPath());
+				}
+			}
+		}
+		buckets.put(bucketDir.getName(), bucket);
+	}
+
+	/**
+	 * Writes the meta data of an entry, atomically.
+	 *
+	 * @param metaFile the meta file
+	 * @param entry the entry
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static void writeMeta(final File metaFile, final ObjectEntry entry) throws IOException {
+		final Properties meta = new Properties();
+		meta.setProperty("key", entry.getKey());
+		meta.setProperty("length", String.valueOf(entry.getLength()));
+		meta.setProperty("eTag", entry.getETag());
+		meta.setProperty("lastModified", String.valueOf(entry.getLastModified()));
+		for (final Map.Entry<String, String> header : entry.getHeaders().entrySet()) {
+			meta.setProperty(HEADER_PREFIX + header.getKey(), header.getValue());
+		}
+		final File tempFile = new File(metaFile.getPath() + TEMP_SUFFIX);
+		try (OutputStream out = Files.newOutputStream(tempFile.toPath())) {
+			meta.store(out, null);
+		}
+		Files.move(tempFile.toPath(), metaFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Reads the meta data of an entry.
+	 *
+	 * @param metaFile the meta file
+	 * @return the object entry
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static ObjectEntry readMeta(final File metaFile) throws IOException {
+		final Properties meta = new Properties();
+		try (InputStream metaStream = Files.newInputStream(metaFile.toPath())) {
+			meta.load(metaStream);
+		}
+		final Map<String, String> headers = new HashMap<String, String>();
+		for (final String name : meta.stringPropertyNames()) {
+			if (name.startsWith(HEADER_PREFIX)) {
+				headers.put(name.substring(HEADER_PREFIX.length()), meta.getProperty(name));
+			}
+		}
+		return new ObjectEntry(meta.getProperty("key"), Long.parseLong(meta.getProperty("length")),
+				meta.getProperty("eTag"), Long.parseLong(meta.getProperty("lastModified")), headers);
+	}
+
+	/**
+	 * Deletes the files of a blob.
+	 *
+	 * @param bucketDir the bucket dir
+	 * @param blobName the blob name, ignored when null
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static void deleteBlob(final File bucketDir, final String blobName) throws IOException {
+		if (blobName != null) {
+			Files.deleteIfExists(new File(bucketDir, blobName + META_SUFFIX).toPath());
+			Files.deleteIfExists(new File(bucketDir, blobName + DATA_SUFFIX).toPath());
+		}
+	}
+}
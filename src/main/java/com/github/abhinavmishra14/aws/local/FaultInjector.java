@@ -0,0 +1,178 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.local;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The Class FaultInjector.<br/>
+ * Adds latency to, and fails, requests served by the {@link LocalS3Server} so
+ * that throughput and retry behaviour can be exercised without a network.
+ * Settings can be changed while the server is running.
+ *
+ * @author Abhinav kumar mishra
+ */
+public final class FaultInjector {
+
+	/** The Constant NO_FAULT. */
+	public static final int NO_FAULT = 0;
+
+	/** The minimum latency millis. */
+	private volatile long minLatencyMillis;
+
+	/** The maximum latency millis. */
+	private volatile long maxLatencyMillis;
+
+	/** The probability of failing a request. */
+	private volatile double errorRate;
+
+	/** The status code of the randomly failed requests. */
+	private volatile int errorStatus = 503;
+
+	/** The number of upcoming requests to fail. */
+	private final AtomicInteger failNextCount = new AtomicInteger();
+
+	/** The status code of the upcoming failed requests. */
+	private volatile int failNextStatus = 503;
+
+	/** The request count. */
+	private final AtomicLong requestCount = new AtomicLong();
+
+	/** The injected error count. */
+	private final AtomicLong injectedErrorCount = new AtomicLong();
+
+	/**
+	 * Delays every request by a random latency between the bounds, both zero disables the delay.
+	 *
+	 * @param minMillis the min millis
+	 * @param maxMillis the max millis
+	 * @return the fault injector
+	 */
+	public FaultInjector setLatency(final long minMillis, final long maxMillis) {
+		if (minMillis < 0 || maxMillis < minMillis) {
+			throw new IllegalArgumentException("Invalid latency bounds: " + minMillis + ".." + maxMillis);
+		}
+		this.minLatencyMillis = minMillis;
+		this.maxLatencyMillis = maxMillis;
+		return this;
+	}
+
+	/**
+	 * Fails requests at random with the given probability.
+	 *
+	 * @param rate the probability between 0 and 1
+	 * @param status the HTTP status code, 500 and 503 are the ones Amazon S3 asks clients to retry
+	 * @return the fault injector
+	 */
+	public FaultInjector setErrorRate(final double rate, final int status) {
+		if (rate < 0 || rate > 1) {
+			throw new IllegalArgumentException("Error rate must be between 0 and 1: " + rate);
+		}
+		this.errorRate = rate;
+		this.errorStatus = status;
+		return this;
+	}
+
+	/**
+	 * Fails the next requests, whatever the error rate.
+	 *
+	 * @param count the number of requests to fail
+	 * @param status the HTTP status code
+	 * @return the fault injector
+	 */
+	public FaultInjector failNextRequests(final int count, final int status) {
+		this.failNextStatus = status;
+		failNextCount.set(count);
+		return this;
+	}
+
+	/**
+	 * Removes every fault and resets the counters.
+	 *
+	 * @return the fault injector
+	 */
+	public FaultInjector reset() {
+		minLatencyMillis = 0;
+		maxLatencyMillis = 0;
+		errorRate = 0;
+		failNextCount.set(0);
+		requestCount.set(0);
+		injectedErrorCount.set(0);
+		return this;
+	}
+
+	/**
+	 * Gets the request count.
+	 *
+	 * @return the number of requests received since start or the last reset
+	 */
+	public long getRequestCount() {
+		return requestCount.get();
+	}
+
+	/**
+	 * Gets the injected error count.
+	 *
+	 * @return the number of requests failed on purpose since start or the last reset
+	 */
+	public long getInjectedErrorCount() {
+		return injectedErrorCount.get();
+	}
+
+	/**
+	 * Applies the latency and decides whether the request fails, called once per request.
+	 *
+	 * @return the status code to fail the request with, {@link #NO_FAULT} to serve it
+	 * @throws InterruptedException the interrupted exception
+	 */
+	public int beforeRequest() throws InterruptedException {
+		requestCount.incrementAndGet();
+		final long minMillis = minLatencyMillis;
+		final long maxMillis = maxLatencyMillis;
+		if (maxMillis > 0) {
+			Thread.sleep(minMillis == maxMillis ? minMillis
+					: ThreadLocalRandom.current().nextLong(minMillis, maxMillis + 1));
+		}
+		int remaining = failNextCount.get();
+		while (remaining > 0) {
+			if (failNextCount.compareAndSet(remaining, remaining - 1)) {
+				injectedErrorCount.incrementAndGet();
+				return failNextStatus;
+			}
+			remaining = failNextCount.get();
+		}
+		final double rate = errorRate;
+		if (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate) {
+			injectedErrorCount.incrementAndGet();
+			return errorStatus;
+		}
+		return NO_FAULT;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "FaultInjector [minLatencyMillis=" + minLatencyMillis + ", maxLatencyMillis=" + maxLatencyMillis
+				+ ", errorRate=" + errorRate + ", errorStatus=" + errorStatus + ", failNextCount="
+				+ failNextCount.get() + ", failNextStatus=" + failNextStatus + "]";
+	}
+}
@@ -0,0 +1,174 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.local;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The Class InMemoryObjectStore.<br/>
+ * Keeps the content of every object on the heap, suited to tests and to
+ * benchmarks whose data set fits in memory. Nothing survives the JVM.
+ *
+ * @author Abhinav kumar mishra
+ */
+public class InMemoryObjectStore extends AbstractObjectStore {
+
+	/** The Constant BUFFER_SIZE. */
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/** The content of each object, keyed by entry identity so that replaced entries are told apart. */
+	private final ConcurrentMap<ObjectEntry, byte[]> contents = new ConcurrentHashMap<ObjectEntry, byte[]>();
+
+	/** The parts of the pending multipart uploads. */
+	private final ConcurrentMap<String, ConcurrentMap<Integer, byte[]>> parts = new ConcurrentHashMap<String, ConcurrentMap<Integer, byte[]>>();
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.local.ObjectStore#createBucket(java.lang.String)
+	 */
+	@Override
+	public boolean createBucket(final String bucketName) {
+		return buckets.putIfAbsent(bucketName, new BucketIndex(System.currentTimeMillis())) == null;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.local.ObjectStore#deleteBucket(java.lang.String)
+	 */
+	@Override
+	public boolean deleteBucket(final String bucketName) {
+		final BucketIndex bucket = buckets.remove(bucketName);
+		if (bucket == null) {
+			return false;
+		}
+		for (final ObjectEntry entry : bucket.getObjects().values()) {
+			contents.remove(entry);
+		}
+		return true;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.local.ObjectStore#putObject(java.lang.String, java.lang.String, java.io.InputStream, java.util.Map, java.lang.String)
+	 */
+	@Override
+	public ObjectEntry putObject(final String bucketName, final String key, final InputStream content,
+			final Map<String, String> headers, final String eTag) throws IOException {
+		final BucketIndex bucket = buckets.get(bucketName);
+		if (bucket == null) {
+			throw new FileNotFoundException("No such bucket: " + bucketName);
+		}
+		final MessageDigest md5 = newMd5();
+		final byte[] data = readFully(content, md5);
+		final ObjectEntry entry = new ObjectEntry(key, data.length, eTag == null ? toHex(md5.digest()) : eTag,
+				System.currentTimeMillis(), headers);
+		contents.put(entry, data);
+		final ObjectEntry replaced = bucket.getObjects().put(key, entry);
+		if (replaced != null) {
+			contents.remove(replaced);
+		}
+		return entry;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.local.ObjectStore#getContent(java.lang.String, com.github.abhinavmishra14.aws.local.ObjectEntry, long, long)
+	 */
+	@Override
+	public InputStream getContent(final String bucketName, final ObjectEntry entry, final long offset,
+			final long length) {
+		final byte[] data = contents.get(entry);
+		return data == null ? null : new ByteArrayInputStream(data, (int) offset, (int) length);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.local.ObjectStore#deleteObject(java.lang.String, java.lang.String)
+	 */
+	@Override
+	public boolean deleteObject(final String bucketName, final String key) {
+		final BucketIndex bucket = buckets.get(bucketName);
+		final ObjectEntry removed = bucket == null ? null : bucket.getObjects().remove(key);
+		if (removed == null) {
+			return false;
+		}
+		contents.remove(removed);
+		return true;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.local.ObjectStore#putPart(java.lang.String, int, java.io.InputStream)
+	 */
+	@Override
+	public ObjectEntry putPart(final String uploadId, final int partNumber, final InputStream content)
+			throws IOException {
+		final MessageDigest md5 = newMd5();
+		final byte[] data = readFully(content, md5);
+		ConcurrentMap<Integer, byte[]> uploadParts = parts.get(uploadId);
+		if (uploadParts == null) {
+			final ConcurrentMap<Integer, byte[]> created = new ConcurrentHashMap<Integer, byte[]>();
+			uploadParts = parts.putIfAbsent(uploadId, created);
+			if (uploadParts == null) {
+				uploadParts = created;
+			}
+		}
+		uploadParts.put(partNumber, data);
+		return new ObjectEntry(String.valueOf(partNumber), data.length, toHex(md5.digest()),
+				System.currentTimeMillis(), null);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.local.ObjectStore#getPartContent(java.lang.String, int)
+	 */
+	@Override
+	public InputStream getPartContent(final String uploadId, final int partNumber) {
+		final Map<Integer, byte[]> uploadParts = parts.get(uploadId);
+		final byte[] data = uploadParts == null ? null : uploadParts.get(partNumber);
+		return data == null ? null : new ByteArrayInputStream(data);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.local.ObjectStore#deleteParts(java.lang.String)
+	 */
+	@Override
+	public void deleteParts(final String uploadId) {
+		parts.remove(uploadId);
+	}
+
+	/**
+	 * Reads the stream fully while updating the digest.
+	 *
+	 * @param content the content
+	 * @param md5 the md5 digest
+	 * @return the bytes read
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static byte[] readFully(final InputStream content, final MessageDigest md5) throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final byte[] buffer = new byte[BUFFER_SIZE];
+		int read;
+		while ((read = content.read(buffer)) != -1) {
+			md5.update(buffer, 0, read);
+			bytes.write(buffer, 0, read);
+		}
+		return bytes.toByteArray();
+	}
+}
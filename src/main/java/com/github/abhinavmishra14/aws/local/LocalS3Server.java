@@ -0,0 +1,272 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.local;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.jets3t.service.Jets3tProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.internal.StaticCredentialsProvider;
+import com.amazonaws.services.s3.S3ClientOptions;
+import com.github.abhinavmishra14.aws.s3.http.PooledAmazonS3Client;
+import com.github.abhinavmishra14.aws.util.AWSUtil;
+import com.github.abhinavmishra14.aws.util.AWSUtilConstants;
+import com.github.abhinavmishra14.aws.util.NamedThreadFactory;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * The Class LocalS3Server.<br/>
+ * An embeddable, S3 compatible HTTP server bound to the loopback interface,
+ * backed by an {@link InMemoryObjectStore} or a {@link DiskObjectStore}. Both
+ * AwsS3IamServiceImpl and JetS3RESTServiceImpl can be pointed at it, see
+ * {@link #newAmazonS3Client()} and {@link #newJets3tProperties()}, so that tests
+ * and benchmarks run without credentials or a network. Latency and errors are
+ * injected through {@link #getFaultInjector()}.<br/>
+ * Requests must use path style addressing, signatures are not verified.
+ * 
+ * <pre>
+ * try (LocalS3Server server = new LocalS3Server().start()) {
+ *     AwsS3IamService s3Service = new AwsS3IamServiceImpl(server.newAmazonS3Client());
+ *     ...
+ * }
+ * </pre>
+ *
+ * @author Abhinav kumar mishra
+ */
+public class LocalS3Server implements Closeable {
+
+	/** The Constant LOGGER. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(LocalS3Server.class);
+
+	/** The Constant ACCESS_KEY. Any key is accepted, this one is used by the clients created here. */
+	public static final String ACCESS_KEY = "local-access-key";
+
+	/** The Constant SECRET_KEY. */
+	public static final String SECRET_KEY = "local-secret-key";
+
+	/** The object store. */
+	private final ObjectStore objectStore;
+
+	/** The requested port, 0 for any free port. */
+	private final int requestedPort;
+
+	/** The fault injector. */
+	private final FaultInjector faultInjector = new FaultInjector();
+
+	/** The minimum size of every multipart upload part but the last one. */
+	private long minimumPartSize = AWSUtilConstants.DEFAULT_MINIMUM_UPLOAD_PART_SIZE;
+
+	/** The http server. */
+	private HttpServer httpServer;
+
+	/** The request executor. */
+	private ExecutorService requestExecutor;
+
+	/**
+	 * Instantiates a new local s3 server keeping objects in memory, on any free port.
+	 */
+	public LocalS3Server() {
+		this(new InMemoryObjectStore());
+	}
+
+	/**
+	 * Instantiates a new local s3 server on any free port.
+	 *
+	 * @param objectStore the object store
+	 */
+	public LocalS3Server(final ObjectStore objectStore) {
+		this(objectStore, 0);
+	}
+
+	/**
+	 * Instantiates a new local s3 server.
+	 *
+	 * @param objectStore the object store
+	 * @param port the port, 0 for any free port
+	 */
+	public LocalS3Server(final ObjectStore objectStore, final int port) {
+		super();
+		AWSUtil.notNull(objectStore, "ObjectStore is null!");
+		this.objectStore = objectStore;
+		this.requestedPort = port;
+	}
+
+	/**
+	 * Sets the minimum size of every multipart upload part but the last one, 5 MB by default as on Amazon S3.
+	 * Lower it to exercise multipart code paths with small files.
+	 *
+	 * @param minimumPartSize the minimum part size in bytes
+	 * @return the local s3 server
+	 */
+	public synchronized LocalS3Server setMinimumPartSize(final long minimumPartSize) {
+		if (httpServer != null) {
+			throw new IllegalStateException("Server is already started");
+		}
+		if (minimumPartSize < 0) {
+			throw new IllegalArgumentException("Minimum part size must not be negative: " + minimumPartSize);
+		}
+		this.minimumPartSize = minimumPartSize;
+		return this;
+	}
+
+	/**
+	 * Starts the server.
+	 *
+	 * @return the local s3 server
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public synchronized LocalS3Server start() throws IOException {
+		if (httpServer != null) {
+			throw new IllegalStateException("Server is already started");
+		}
+		httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), requestedPort), 0);
+		httpServer.createContext("/", new S3RequestHandler(objectStore, faultInjector, minimumPartSize));
+		requestExecutor = Executors.newCachedThreadPool(
+				new NamedThreadFactory(AWSUtilConstants.LOCAL_S3_THREAD_NAME_PREFIX));
+		httpServer.setExecutor(requestExecutor);
+		httpServer.start();
+		LOGGER.info("LocalS3Server listening on {}", getEndpoint());
+		return this;
+	}
+
+	/**
+	 * Stops the server, pending requests are dropped. The object store is left as it is.
+	 */
+	public synchronized void stop() {
+		if (httpServer != null) {
+			LOGGER.info("Stopping LocalS3Server on {}", getEndpoint());
+			httpServer.stop(0);
+			requestExecutor.shutdownNow();
+			httpServer = null;
+			requestExecutor = null;
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see java.io.Closeable#close()
+	 */
+	@Override
+	public void close() {
+		stop();
+	}
+
+	/**
+	 * Gets the port.
+	 *
+	 * @return the port the server listens on
+	 */
+	public synchronized int getPort() {
+		if (httpServer == null) {
+			throw new IllegalStateException("Server is not started");
+		}
+		return httpServer.getAddress().getPort();
+	}
+
+	/**
+	 * Gets the host.
+	 *
+	 * @return the loopback address the server listens on
+	 */
+	public String getHost() {
+		return InetAddress.getLoopbackAddress().getHostAddress();
+	}
+
+	/**
+	 * Gets the endpoint.
+	 *
+	 * @return the endpoint, such as http://127.0.0.1:port
+	 */
+	public String getEndpoint() {
+		return "http://" + getHost() + ":" + getPort();
+	}
+
+	/**
+	 * Gets the fault injector.
+	 *
+	 * @return the fault injector
+	 */
+	public FaultInjector getFaultInjector() {
+		return faultInjector;
+	}
+
+	/**
+	 * Gets the object store.
+	 *
+	 * @return the object store
+	 */
+	public ObjectStore getObjectStore() {
+		return objectStore;
+	}
+
+	/**
+	 * Creates an Amazon S3 client pointed at this server.
+	 *
+	 * @return the amazon s3 client, to be shut down by the caller unless handed over to a service
+	 */
+	public PooledAmazonS3Client newAmazonS3Client() {
+		return newAmazonS3Client(new ClientConfiguration());
+	}
+
+	/**
+	 * Creates an Amazon S3 client pointed at this server, with path style access.
+	 *
+	 * @param clientConfiguration the client configuration, retry policy, timeouts etc.
+	 * @return the amazon s3 client
+	 */
+	public PooledAmazonS3Client newAmazonS3Client(final ClientConfiguration clientConfiguration) {
+		final PooledAmazonS3Client s3client = PooledAmazonS3Client.create(
+				new StaticCredentialsProvider(new BasicAWSCredentials(ACCESS_KEY, SECRET_KEY)), clientConfiguration);
+		s3client.setEndpoint(getEndpoint());
+		s3client.setS3ClientOptions(S3ClientOptions.builder().setPathStyleAccess(true).build());
+		return s3client;
+	}
+
+	/**
+	 * Creates the JetS3t properties pointing a RestS3Service at this server, over
+	 * plain HTTP and with path style access.
+	 *
+	 * @return the jets3t properties
+	 */
+	public Jets3tProperties newJets3tProperties() {
+		final Jets3tProperties properties = new Jets3tProperties();
+		properties.setProperty("s3service.s3-endpoint", getHost());
+		properties.setProperty("s3service.s3-endpoint-http-port", String.valueOf(getPort()));
+		properties.setProperty("s3service.https-only", "false");
+		properties.setProperty("s3service.disable-dns-buckets", "true");
+		return properties;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public synchronized String toString() {
+		return "LocalS3Server [objectStore=" + objectStore.getClass().getSimpleName() + ", port="
+				+ (httpServer == null ? requestedPort : httpServer.getAddress().getPort()) + ", minimumPartSize="
+				+ minimumPartSize + ", faultInjector=" + faultInjector + "]";
+	}
+}
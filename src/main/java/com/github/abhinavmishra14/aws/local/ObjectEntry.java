@@ -0,0 +1,133 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.local;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The Class ObjectEntry.<br/>
+ * Metadata of an object, or of a multipart upload part, held by an {@link ObjectStore}.
+ *
+ * @author Abhinav kumar mishra
+ */
+public final class ObjectEntry {
+
+	/** The key. */
+	private final String key;
+
+	/** The length. */
+	private final long length;
+
+	/** The e tag. */
+	private final String eTag;
+
+	/** The last modified. */
+	private final long lastModified;
+
+	/** The headers, content type, user metadata etc. echoed back on GET and HEAD. */
+	private final Map<String, String> headers;
+
+	/**
+	 * Instantiates a new object entry.
+	 *
+	 * @param key the key
+	 * @param length the length in bytes
+	 * @param eTag the e tag without quotes
+	 * @param lastModified the last modified time in millis
+	 * @param headers the headers to echo back, may be null
+	 */
+	public ObjectEntry(final String key, final long length, final String eTag, final long lastModified,
+			final Map<String, String> headers) {
+		super();
+		this.key = key;
+		this.length = length;
+		this.eTag = eTag;
+		this.lastModified = lastModified;
+		final Map<String, String> copy = new TreeMap<String, String>(String.CASE_INSENSITIVE_ORDER);
+		if (headers != null) {
+			copy.putAll(headers);
+		}
+		this.headers = Collections.unmodifiableMap(copy);
+	}
+
+	/**
+	 * Gets the key.
+	 *
+	 * @return the key
+	 */
+	public String getKey() {
+		return key;
+	}
+
+	/**
+	 * Gets the length.
+	 *
+	 * @return the length in bytes
+	 */
+	public long getLength() {
+		return length;
+	}
+
+	/**
+	 * Gets the e tag.
+	 *
+	 * @return the e tag without quotes
+	 */
+	public String getETag() {
+		return eTag;
+	}
+
+	/**
+	 * Gets the last modified.
+	 *
+	 * @return the last modified time in millis
+	 */
+	public long getLastModified() {
+		return lastModified;
+	}
+
+	/**
+	 * Gets the last modified date.
+	 *
+	 * @return the last modified date
+	 */
+	public Date getLastModifiedDate() {
+		return new Date(lastModified);
+	}
+
+	/**
+	 * Gets the headers.
+	 *
+	 * @return the unmodifiable, case insensitive headers
+	 */
+	public Map<String, String> getHeaders() {
+		return headers;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "ObjectEntry [key=" + key + ", length=" + length + ", eTag=" + eTag + ", lastModified="
+				+ lastModified + ", headers=" + headers + "]";
+	}
+}
@@ -0,0 +1,144 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.local;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Date;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.SortedMap;
+
+/**
+ * The Interface ObjectStore.<br/>
+ * Backend of the {@link LocalS3Server}, it keeps buckets, objects and the parts
+ * of pending multipart uploads. Implementations must be thread safe, the server
+ * handles requests concurrently.
+ *
+ * @author Abhinav kumar mishra
+ */
+public interface ObjectStore {
+
+	/**
+	 * Creates the bucket.
+	 *
+	 * @param bucketName the bucket name
+	 * @return true, if the bucket was created, false if it already exists
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	boolean createBucket(final String bucketName) throws IOException;
+
+	/**
+	 * Deletes the bucket along with any object left in it.
+	 *
+	 * @param bucketName the bucket name
+	 * @return true, if the bucket existed
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	boolean deleteBucket(final String bucketName) throws IOException;
+
+	/**
+	 * Gets the buckets.
+	 *
+	 * @return the bucket names mapped to their creation date, in name order
+	 */
+	SortedMap<String, Date> getBuckets();
+
+	/**
+	 * Gets the objects of a bucket.
+	 *
+	 * @param bucketName the bucket name
+	 * @return the read only, live view of the objects in key order, null if the bucket does not exist
+	 */
+	NavigableMap<String, ObjectEntry> getObjects(final String bucketName);
+
+	/**
+	 * Gets the object.
+	 *
+	 * @param bucketName the bucket name
+	 * @param key the key
+	 * @return the object entry, null if either the bucket or the object does not exist
+	 */
+	ObjectEntry getObject(final String bucketName, final String key);
+
+	/**
+	 * Stores the object, replacing any object with the same key.
+	 *
+	 * @param bucketName the bucket name
+	 * @param key the key
+	 * @param content the content, read till end of stream and not closed
+	 * @param headers the headers to keep with the object
+	 * @param eTag the e tag, null to use the MD5 of the content
+	 * @return the object entry
+	 * @throws IOException Signals that an I/O exception has occurred, FileNotFoundException if the bucket does not exist.
+	 */
+	ObjectEntry putObject(final String bucketName, final String key, final InputStream content,
+			final Map<String, String> headers, final String eTag) throws IOException;
+
+	/**
+	 * Opens the content of an object.
+	 *
+	 * @param bucketName the bucket name
+	 * @param entry the entry returned by {@link #getObject(String, String)}
+	 * @param offset the offset of the first byte
+	 * @param length the number of bytes
+	 * @return the content, null if the entry has been replaced or deleted since it was read
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	InputStream getContent(final String bucketName, final ObjectEntry entry, final long offset, final long length)
+			throws IOException;
+
+	/**
+	 * Deletes the object.
+	 *
+	 * @param bucketName the bucket name
+	 * @param key the key
+	 * @return true, if the object existed
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	boolean deleteObject(final String bucketName, final String key) throws IOException;
+
+	/**
+	 * Stores a part of a multipart upload, replacing any part with the same number.
+	 *
+	 * @param uploadId the upload id
+	 * @param partNumber the part number
+	 * @param content the content, read till end of stream and not closed
+	 * @return the part entry, keyed by the part number
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	ObjectEntry putPart(final String uploadId, final int partNumber, final InputStream content) throws IOException;
+
+	/**
+	 * Opens the content of a part.
+	 *
+	 * @param uploadId the upload id
+	 * @param partNumber the part number
+	 * @return the content, null if the part does not exist
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	InputStream getPartContent(final String uploadId, final int partNumber) throws IOException;
+
+	/**
+	 * Deletes every part of a multipart upload.
+	 *
+	 * @param uploadId the upload id
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	void deleteParts(final String uploadId) throws IOException;
+}
@@ -0,0 +1,1618 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.local;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import com.github.abhinavmishra14.aws.util.AWSUtilConstants;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+/**
+ * The Class S3RequestHandler.<br/>
+ * Serves the subset of the Amazon S3 REST API used by this library, path style
+ * only: buckets, objects with ranges and conditions, copy, listings, multi object
+ * delete, multipart uploads and canned ACLs. Signatures are not verified.
+ *
+ * @author Abhinav kumar mishra
+ */
+final class S3RequestHandler implements HttpHandler {
+
+	/** The Constant LOGGER. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(S3RequestHandler.class);
+
+	/** The Constant OWNER_ID. */
+	private static final String OWNER_ID = "75aa57f09aa0c8caeab4f8c24e99d10f8e7faeebf76c078efc7c6caea54ba06a";
+
+	/** The Constant OWNER_NAME. */
+	private static final String OWNER_NAME = "local";
+
+	/** The Constant ISO_DATE. */
+	private static final DateTimeFormatter ISO_DATE = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'")
+			.withZone(ZoneOffset.UTC);
+
+	/** The Constant HTTP_DATE. */
+	private static final DateTimeFormatter HTTP_DATE = DateTimeFormatter
+			.ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US).withZone(ZoneOffset.UTC);
+
+	/** The Constant DEFAULT_CONTENT_TYPE. */
+	private static final String DEFAULT_CONTENT_TYPE = "binary/octet-stream";
+
+	/** The Constant AWS_CHUNKED. */
+	private static final String AWS_CHUNKED = "aws-chunked";
+
+	/** The Constant STREAMING_PAYLOAD. */
+	private static final String STREAMING_PAYLOAD = "STREAMING-AWS4-HMAC-SHA256-PAYLOAD";
+
+	/** The Constant USER_METADATA_PREFIX. */
+	private static final String USER_METADATA_PREFIX = "x-amz-meta-";
+
+	/** The Constant CONTENT_ENCODING. */
+	private static final String CONTENT_ENCODING = "content-encoding";
+
+	/** The Constant ACL. */
+	private static final String ACL = "acl";
+
+	/** The Constant HEAD. */
+	private static final String HEAD = "HEAD";
+
+	/** The Constant OWNER_ELEMENT. */
+	private static final String OWNER_ELEMENT = "Owner";
+
+	/** The Constant BUCKET. */
+	private static final String BUCKET = "Bucket";
+
+	/** The Constant PREFIX. */
+	private static final String PREFIX = "prefix";
+
+	/** The Constant KEY. */
+	private static final String KEY = "Key";
+
+	/** The Constant ETAG. */
+	private static final String ETAG = "ETag";
+
+	/** The Constant MALFORMED_XML. */
+	private static final String MALFORMED_XML = "MalformedXML";
+
+	/** The Constant LOCATION_CONSTRAINT. */
+	private static final String LOCATION_CONSTRAINT = "LocationConstraint";
+
+	/** The Constant STORED_HEADERS. Request headers kept with an object and returned on GET and HEAD. */
+	private static final Set<String> STORED_HEADERS = new HashSet<String>(Arrays.asList("content-type",
+			CONTENT_ENCODING, "content-disposition", "content-language", "cache-control", "expires",
+			"x-amz-server-side-encryption", "x-amz-server-side-encryption-aws-kms-key-id", "x-amz-storage-class",
+			"x-amz-website-redirect-location"));
+
+	/** The Constant UNSUPPORTED_SUB_RESOURCES. */
+	private static final Set<String> UNSUPPORTED_SUB_RESOURCES = new HashSet<String>(Arrays.asList("versioning",
+			"versions", "lifecycle", "policy", "cors", "tagging", "website", "logging", "notification",
+			"replication", "accelerate", "requestPayment", "torrent", "restore", "analytics", "inventory",
+			"metrics"));
+
+	/** The Constant MAX_PART_NUMBER. */
+	private static final int MAX_PART_NUMBER = AWSUtilConstants.MAX_MULTIPART_PARTS;
+
+	/** The Constant MAX_KEYS. */
+	private static final int MAX_KEYS = AWSUtilConstants.MAX_KEYS_PER_REQUEST;
+
+	/** The Constant MAX_CONTENT_ATTEMPTS. Reads racing with overwrites of the same key are retried. */
+	private static final int MAX_CONTENT_ATTEMPTS = 3;
+
+	/** The object store. */
+	private final ObjectStore objectStore;
+
+	/** The fault injector. */
+	private final FaultInjector faultInjector;
+
+	/** The minimum size of every part but the last one. */
+	private final long minimumPartSize;
+
+	/** The pending multipart uploads by upload id. */
+	private final ConcurrentMap<String, PendingUpload> uploads = new ConcurrentHashMap<String, PendingUpload>();
+
+	/** The ACLs set on buckets and objects, either a canned ACL name or an AccessControlPolicy document. */
+	private final ConcurrentMap<String, String> acls = new ConcurrentHashMap<String, String>();
+
+	/** The location constraints of the buckets created outside of us-east-1. */
+	private final ConcurrentMap<String, String> locations = new ConcurrentHashMap<String, String>();
+
+	/** The request id sequence. */
+	private final AtomicLong requestIds = new AtomicLong();
+
+	/**
+	 * Instantiates a new s3 request handler.
+	 *
+	 * @param objectStore the object store
+	 * @param faultInjector the fault injector
+	 * @param minimumPartSize the minimum size of every multipart upload part but the last one
+	 */
+	S3RequestHandler(final ObjectStore objectStore, final FaultInjector faultInjector, final long minimumPartSize) {
+		this.objectStore = objectStore;
+		this.faultInjector = faultInjector;
+		this.minimumPartSize = minimumPartSize;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.sun.net.httpserver.HttpHandler#handle(com.sun.net.httpserver.HttpExchange)
+	 */
+	@Override
+	public void handle(final HttpExchange exchange) throws IOException {
+		final String requestId = Long.toHexString(requestIds.incrementAndGet()).toUpperCase(Locale.ROOT);
+		final Headers responseHeaders = exchange.getResponseHeaders();
+		responseHeaders.set("x-amz-request-id", requestId);
+		responseHeaders.set("x-amz-id-2", requestId);
+		responseHeaders.set("Date", HTTP_DATE.format(Instant.now()));
+		responseHeaders.set("Server", "LocalS3Server");
+		try {
+			final int faultStatus = faultInjector.beforeRequest();
+			if (faultStatus == FaultInjector.NO_FAULT) {
+				dispatch(exchange);
+			} else {
+				throw new S3Exception(faultStatus, faultStatus == 503 ? "SlowDown" : "InternalError",
+						"Fault injected by LocalS3Server");
+			}
+		} catch (S3Exception s3Ex) {
+			sendError(exchange, s3Ex, requestId);
+		} catch (InterruptedException intrEx) {
+			Thread.currentThread().interrupt();
+			sendError(exchange, new S3Exception(503, "ServiceUnavailable", "Server is stopping"), requestId);
+		} catch (IOException | RuntimeException excp) {
+			LOGGER.error("Failed to serve {} {}", exchange.getRequestMethod(), exchange.getRequestURI(), excp);
+			sendError(exchange, new S3Exception(500, "InternalError", String.valueOf(excp.getMessage())), requestId);
+		} finally {
+			exchange.close();
+		}
+	}
+
+	/**
+	 * Routes the request to the operation it addresses.
+	 *
+	 * @param exchange the exchange
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 * @throws S3Exception the s3 exception
+	 */
+	private void dispatch(final HttpExchange exchange) throws IOException, S3Exception {
+		final Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+		for (final String parameter : query.keySet()) {
+			if (UNSUPPORTED_SUB_RESOURCES.contains(parameter)) {
+				throw new S3Exception(501, "NotImplemented", "Sub resource is not supported: " + parameter);
+			}
+		}
+		final String method = exchange.getRequestMethod();
+		final String path = exchange.getRequestURI().getPath();
+		final String resource = path == null || path.length() <= 1 ? "" : path.substring(1);
+		final int slash = resource.indexOf('/');
+		final String bucketName = slash == -1 ? resource : resource.substring(0, slash);
+		final String key = slash == -1 || slash == resource.length() - 1 ? null : resource.substring(slash + 1);
+		if (bucketName.isEmpty()) {
+			if ("GET".equals(method)) {
+				listBuckets(exchange);
+				return;
+			}
+		} else if (key == null) {
+			if (dispatchBucket(exchange, method, bucketName, query)) {
+				return;
+			}
+		} else if (dispatchObject(exchange, method, bucketName, key, query)) {
+			return;
+		}
+		throw new S3Exception(405, "MethodNotAllowed", method + " is not allowed on " + path);
+	}
+
+	/**
+	 * Routes a bucket request.
+	 *
+	 * @param exchange the exchange
+	 * @param method the method
+	 * @param bucketName the bucket name
+	 * @param query the query
+	 * @return true, if the request was served
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 * @throws S3Exception the s3 exception
+	 */
+	private boolean dispatchBucket(final HttpExchange exchange, final String method, final String bucketName,
+			final Map<String, String> query) throws IOException, S3Exception {
+		boolean served = true;
+		if ("PUT".equals(method)) {
+			if (query.containsKey(ACL)) {
+				putAcl(exchange, bucketName, null);
+			} else {
+				createBucket(exchange, bucketName);
+			}
+		} else if ("GET".equals(method)) {
+			if (query.containsKey(ACL)) {
+				getAcl(exchange, bucketName, null);
+			} else if (query.containsKey("location")) {
+				requireBucket(bucketName);
+				sendXml(exchange, 200, new XmlWriter().root(LOCATION_CONSTRAINT).text(locations.get(bucketName))
+						.end(LOCATION_CONSTRAINT));
+			} else if (query.containsKey("uploads")) {
+				listMultipartUploads(exchange, bucketName, query);
+			} else {
+				listObjects(exchange, bucketName, query);
+			}
+		} else if (HEAD.equals(method)) {
+			requireBucket(bucketName);
+			sendEmpty(exchange, 200);
+		} else if ("DELETE".equals(method)) {
+			deleteBucket(exchange, bucketName);
+		} else if ("POST".equals(method) && query.containsKey("delete")) {
+			deleteObjects(exchange, bucketName);
+		} else {
+			served = false;
+		}
+		return served;
+	}
+
+	/**
+	 * Routes an object request.
+	 *
+	 * @param exchange the exchange
+	 * @param method the method
+	 * @param bucketName the bucket name
+	 * @param key the key
+	 * @param query the query
+	 * @return true, if the request was served
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 * @throws S3Exception the s3 exception
+	 */
+	private boolean dispatchObject(final HttpExchange exchange, final String method, final String bucketName,
+			final String key, final Map<String, String> query) throws IOException, S3Exception {
+		final String uploadId = query.get("uploadId");
+		boolean served = true;
+		if ("PUT".equals(method)) {
+			if (uploadId != null) {
+				uploadPart(exchange, bucketName, key, uploadId, query.get("partNumber"));
+			} else if (query.containsKey(ACL)) {
+				putAcl(exchange, bucketName, key);
+			} else if (exchange.getRequestHeaders().containsKey("x-amz-copy-source")) {
+				copyObject(exchange, bucketName, key);
+			} else {
+				putObject(exchange, bucketName, key);
+			}
+		} else if ("GET".equals(method) || HEAD.equals(method)) {
+			if (uploadId != null) {
+				listParts(exchange, bucketName, key, uploadId, query);
+			} else if (query.containsKey(ACL)) {
+				getAcl(exchange, bucketName, key);
+			} else {
+				getObject(exchange, bucketName, key, HEAD.equals(method));
+			}
+		} else if ("DELETE".equals(method)) {
+			if (uploadId != null) {
+				abortMultipartUpload(exchange, bucketName, key, uploadId);
+			} else {
+				requireBucket(bucketName);
+				objectStore.deleteObject(bucketName, key);
+				acls.remove(bucketName + '/' + key);
+				sendEmpty(exchange, 204);
+			}
+		} else if ("POST".equals(method) && query.containsKey("uploads")) {
+			initiateMultipartUpload(exchange, bucketName, key);
+		} else if ("POST".equals(method) && uploadId != null) {
+			completeMultipartUpload(exchange, bucketName, key, uploadId);
+		} else {
+			served = false;
+		}
+		return served;
+	}
+
+	/**
+	 * Lists the buckets.
+	 *
+	 * @param exchange the exchange
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private void listBuckets(final HttpExchange exchange) throws IOException {
+		final XmlWriter xml = new XmlWriter().root("ListAllMyBucketsResult");
+		owner(xml, OWNER_ELEMENT).start("Buckets");
+		for (final Map.Entry<String, Date> bucket : objectStore.getBuckets().entrySet()) {
+			xml.start(BUCKET).element("Name", bucket.getKey())
+					.element("CreationDate", ISO_DATE.format(bucket.getValue().toInstant())).end(BUCKET);
+		}
+		sendXml(exchange, 200, xml.end("Buckets").end("ListAllMyBucketsResult"));
+	}
+
+	/**
+	 * Creates the bucket. Creating a bucket that exists succeeds, as it does in us-east-1.
+	 * The location constraint is kept and returned by the location of the bucket.
+	 *
+	 * @param exchange the exchange
+	 * @param bucketName the bucket name
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 * @throws S3Exception the s3 exception
+	 */
+	private void createBucket(final HttpExchange exchange, final String bucketName) throws IOException, S3Exception {
+		if (!bucketName.matches("[a-z0-9][a-z0-9.\\-]{1,61}[a-z0-9]")) {
+			throw new S3Exception(400, "InvalidBucketName", "The specified bucket is not valid: " + bucketName);
+		}
+		final byte[] body = readBody(exchange);
+		final String location = body.length == 0 ? null : childText(parseXml(body), LOCATION_CONSTRAINT);
+		if (objectStore.createBucket(bucketName)) {
+			LOGGER.info("Created bucket {}", bucketName);
+			if (location != null && !location.isEmpty()) {
+				locations.put(bucketName, location);
+			}
+			setCannedAcl(exchange, bucketName);
+		}
+		exchange.getResponseHeaders().set("Location", "/" + bucketName);
+		sendEmpty(exchange, 200);
+	}
+
+	/**
+	 * Deletes the bucket, which must be empty. Its pending multipart uploads are aborted.
+	 *
+	 * @param exchange the exchange
+	 * @param bucketName the bucket name
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 * @throws S3Exception the s3 exception
+	 */
+	private void deleteBucket(final HttpExchange exchange, final String bucketName) throws IOException, S3Exception {
+		if (!requireBucket(bucketName).isEmpty()) {
+			throw new S3Exception(409, "BucketNotEmpty", "The bucket you tried to delete is not empty");
+		}
+		for (final PendingUpload upload : uploads.values()) {
+			if (upload.bucketName.equals(bucketName) && uploads.remove(upload.uploadId, upload)) {
+				objectStore.deleteParts(upload.uploadId);
+			}
+		}
+		objectStore.deleteBucket(bucketName);
+		acls.remove(bucketName);
+		locations.remove(bucketName);
+		LOGGER.info("Deleted bucket {}", bucketName);
+		sendEmpty(exchange, 204);
+	}
+
+	/**
+	 * Lists the objects, version 1 or version 2 of the API depending on the <code>list-type</code> parameter.
+	 *
+	 * @param exchange the exchange
+	 * @param bucketName the bucket name
+	 * @param query the query
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 * @throws S3Exception the s3 exception
+	 */
+	private void listObjects(final HttpExchange exchange, final String bucketName, final Map<String, String> query)
+			throws IOException, S3Exception {
+		final NavigableMap<String, ObjectEntry> objects = requireBucket(bucketName);
+		final boolean version2 = "2".equals(query.get("list-type"));
+		final boolean urlEncoded = "url".equals(query.get("encoding-type"));
+		final String prefix = query.containsKey(PREFIX) ? query.get(PREFIX) : "";
+		final String delimiter = emptyToNull(query.get("delimiter"));
+		final int maxKeys = parseInt(query.get("max-keys"), MAX_KEYS, 0, Integer.MAX_VALUE);
+		final String continuationToken = emptyToNull(query.get("continuation-token"));
+		final String marker;
+		if (version2) {
+			marker = continuationToken == null ? emptyToNull(query.get("start-after"))
+					: new String(Base64.getUrlDecoder().decode(continuationToken), StandardCharsets.UTF_8);
+		} else {
+			marker = emptyToNull(query.get("marker"));
+		}
+		final ListingPage page = list(objects, prefix, delimiter, marker, Math.min(maxKeys, MAX_KEYS));
+
+		final XmlWriter xml = new XmlWriter().root("ListBucketResult").element("Name", bucketName)
+				.element("Prefix", encode(prefix, urlEncoded));
+		if (version2) {
+			xml.element("KeyCount", page.contents.size() + page.commonPrefixes.size())
+					.element("ContinuationToken", continuationToken)
+					.element("StartAfter", encode(emptyToNull(query.get("start-after")), urlEncoded));
+			if (page.truncated) {
+				xml.element("NextContinuationToken",
+						Base64.getUrlEncoder().encodeToString(page.lastKey.getBytes(StandardCharsets.UTF_8)));
+			}
+		} else {
+			xml.element("Marker", encode(marker == null ? "" : marker, urlEncoded));
+			if (page.truncated && delimiter != null) {
+				xml.element("NextMarker", encode(page.lastKey, urlEncoded));
+			}
+		}
+		xml.element("MaxKeys", maxKeys).element("Delimiter", encode(delimiter, urlEncoded))
+				.element("IsTruncated", page.truncated);
+		if (urlEncoded) {
+			xml.element("EncodingType", "url");
+		}
+		final boolean withOwner = !version2 || "true".equals(query.get("fetch-owner"));
+		for (final ObjectEntry entry : page.contents) {
+			xml.start("Contents").element(KEY, encode(entry.getKey(), urlEncoded))
+					.element("LastModified", ISO_DATE.format(Instant.ofEpochMilli(entry.getLastModified())))
+					.element(ETAG, quote(entry.getETag())).element("Size", entry.getLength());
+			if (withOwner) {
+				owner(xml, OWNER_ELEMENT);
+			}
+			xml.element("StorageClass", storageClass(entry)).end("Contents");
+		}
+		for (final String commonPrefix : page.commonPrefixes) {
+			xml.start("CommonPrefixes").element("Prefix", encode(commonPrefix, urlEncoded)).end("CommonPrefixes");
+		}
+		sendXml(exchange, 200, xml.end("ListBucketResult"));
+	}
+
+	/**
+	 * Collects one page of a listing. Keys sharing a common prefix are skipped in
+	 * one seek, so listing a directory level does not walk the whole tree.
+	 *
+	 * @param objects the objects
+	 * @param prefix the prefix
+	 * @param delimiter the delimiter, may be null
+	 * @param marker the key or common prefix to start after, may be null
+	 * @param maxKeys the max keys and common prefixes
+	 * @return the listing page
+	 */
+	private static ListingPage list(final NavigableMap<String, ObjectEntry> objects, final String prefix,
+			final String delimiter, final String marker, final int maxKeys) {
+		final ListingPage page = new ListingPage();
+		Map.Entry<String, ObjectEntry> next;
+		if (marker == null || marker.compareTo(prefix) < 0) {
+			next = objects.ceilingEntry(prefix);
+		} else if (delimiter != null && marker.endsWith(delimiter) && marker.startsWith(prefix)) {
+			next = objects.ceilingEntry(marker + Character.MAX_VALUE);
+		} else {
+			next = objects.higherEntry(marker);
+		}
+		while (next != null && next.getKey().startsWith(prefix)) {
+			if (page.contents.size() + page.commonPrefixes.size() == maxKeys) {
+				page.truncated = true;
+				break;
+			}
+			final String key = next.getKey();
+			final int delimiterIdx = delimiter == null ? -1 : key.indexOf(delimiter, prefix.length());
+			if (delimiterIdx == -1) {
+				page.contents.add(next.getValue());
+				page.lastKey = key;
+				next = objects.higherEntry(key);
+			} else {
+				final String commonPrefix = key.substring(0, delimiterIdx + delimiter.length());
+				page.commonPrefixes.add(commonPrefix);
+				page.lastKey = commonPrefix;
+				next = objects.ceilingEntry(commonPrefix + Character.MAX_VALUE);
+			}
+		}
+		return page;
+	}
+
+	/**
+	 * Stores an object.
+	 *
+	 * @param exchange the exchange
+	 * @param bucketName the bucket name
+	 * @param key the key
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 * @throws S3Exception the s3 exception
+	 */
+	private void putObject(final HttpExchange exchange, final String bucketName, final String key)
+			throws IOException, S3Exception {
+		requireBucket(bucketName);
+		final ObjectEntry entry;
+		try (InputStream body = requestBody(exchange)) {
+			entry = objectStore.putObject(bucketName, key, body, storedHeaders(exchange.getRequestHeaders()), null);
+		}
+		setCannedAcl(exchange, bucketName + '/' + key);
+		exchange.getResponseHeaders().set(ETAG, quote(entry.getETag()));
+		sendEmpty(exchange, 200);
+	}
+
+	/**
+	 * Copies an object, keeping or replacing its headers as per <code>x-amz-metadata-directive</code>.
+	 *
+	 * @param exchange the exchange
+	 * @param bucketName the bucket name
+	 * @param key the key
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 * @throws S3Exception the s3 exception
+	 */
+	private void copyObject(final HttpExchange exchange, final String bucketName, final String key)
+			throws IOException, S3Exception {
+		requireBucket(bucketName);
+		final Headers requestHeaders = exchange.getRequestHeaders();
+		String source = decode(requestHeaders.getFirst("x-amz-copy-source"));
+		final int versionIdx = source.indexOf("?versionId=");
+		if (versionIdx != -1) {
+			source = source.substring(0, versionIdx);
+		}
+		if (source.startsWith("/")) {
+			source = source.substring(1);
+		}
+		final int slash = source.indexOf('/');
+		if (slash <= 0 || slash == source.length() - 1) {
+			throw new S3Exception(400, "InvalidArgument", "Invalid copy source: " + source);
+		}
+		final String sourceBucket = source.substring(0, slash);
+		final String sourceKey = source.substring(slash + 1);
+		requireBucket(sourceBucket);
+		readBody(exchange);
+		ObjectEntry copied = null;
+		for (int attempt = 0; copied == null && attempt < MAX_CONTENT_ATTEMPTS; attempt++) {
+			final ObjectEntry sourceEntry = requireObject(sourceBucket, sourceKey);
+			checkPreconditions(sourceEntry, requestHeaders.getFirst("x-amz-copy-source-if-match"),
+					requestHeaders.getFirst("x-amz-copy-source-if-unmodified-since"));
+			if (matchesAny(sourceEntry, requestHeaders.getFirst("x-amz-copy-source-if-none-match"))
+					|| !modifiedSince(sourceEntry, requestHeaders.getFirst("x-amz-copy-source-if-modified-since"))) {
+				throw new S3Exception(412, "PreconditionFailed", "At least one of the preconditions you specified did not hold");
+			}
+			final Map<String, String> headers = "REPLACE".equals(requestHeaders.getFirst("x-amz-metadata-directive"))
+					? storedHeaders(requestHeaders) : sourceEntry.getHeaders();
+			try (InputStream content = objectStore.getContent(sourceBucket, sourceEntry, 0, sourceEntry.getLength())) {
+				if (content != null) {
+					copied = objectStore.putObject(bucketName, key, content, headers, null);
+				}
+			}
+		}
+		if (copied == null) {
+			throw new S3Exception(503, "SlowDown", "Source object is being rewritten");
+		}
+		setCannedAcl(exchange, bucketName + '/' + key);
+		sendXml(exchange, 200, new XmlWriter().root("CopyObjectResult")
+				.element("LastModified", ISO_DATE.format(Instant.ofEpochMilli(copied.getLastModified())))
+				.element(ETAG, quote(copied.getETag())).end("CopyObjectResult"));
+	}
+
+	/**
+	 * Serves a GET or HEAD object request, with conditions and a single byte range.
+	 *
+	 * @param exchange the exchange
+	 * @param bucketName the bucket name
+	 * @param key the key
+	 * @param headOnly true for HEAD
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 * @throws S3Exception the s3 exception
+	 */
+	private void getObject(final HttpExchange exchange, final String bucketName, final String key,
+			final boolean headOnly) throws IOException, S3Exception {
+		requireBucket(bucketName);
+		final Headers requestHeaders = exchange.getRequestHeaders();
+		for (int attempt = 0; attempt < MAX_CONTENT_ATTEMPTS; attempt++) {
+			final ObjectEntry entry = requireObject(bucketName, key);
+			checkPreconditions(entry, requestHeaders.getFirst("If-Match"),
+					requestHeaders.getFirst("If-Unmodified-Since"));
+			final Headers responseHeaders = exchange.getResponseHeaders();
+			responseHeaders.set(ETAG, quote(entry.getETag()));
+			responseHeaders.set("Last-Modified", HTTP_DATE.format(Instant.ofEpochMilli(entry.getLastModified())));
+			final String ifNoneMatch = requestHeaders.getFirst("If-None-Match");
+			if (matchesAny(entry, ifNoneMatch) || ifNoneMatch == null
+					&& !modifiedSince(entry, requestHeaders.getFirst("If-Modified-Since"))) {
+				sendEmpty(exchange, 304);
+				return;
+			}
+			for (final Map.Entry<String, String> header : entry.getHeaders().entrySet()) {
+				responseHeaders.set(header.getKey(), header.getValue());
+			}
+			responseHeaders.set("Accept-Ranges", "bytes");
+			final long length = entry.getLength();
+			long first = 0;
+			long last = length - 1;
+			int status = 200;
+			final long[] range = parseRange(requestHeaders.getFirst("Range"), length);
+			if (range != null) {
+				first = range[0];
+				last = range[1];
+				status = 206;
+				responseHeaders.set("Content-Range", "bytes " + first + "-" + last + "/" + length);
+			}
+			final long contentLength = last - first + 1;
+			if (headOnly) {
+				responseHeaders.set("Content-Length", String.valueOf(contentLength));
+				exchange.sendResponseHeaders(status, -1);
+				return;
+			}
+			try (InputStream content = objectStore.getContent(bucketName, entry, first, contentLength)) {
+				if (content != null) {
+					exchange.sendResponseHeaders(status, contentLength == 0 ? -1 : contentLength);
+					try (OutputStream out = exchange.getResponseBody()) {
+						copy(content, out);
+					}
+					return;
+				}
+			}
+		}
+		throw new S3Exception(503, "SlowDown", "Object is being rewritten");
+	}
+
+	/**
+	 * Deletes up to 1000 objects in one request.
+	 *
+	 * @param exchange the exchange
+	 * @param bucketName the bucket name
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 * @throws S3Exception the s3 exception
+	 */
+	private void deleteObjects(final HttpExchange exchange, final String bucketName) throws IOException, S3Exception {
+		requireBucket(bucketName);
+		final Element delete = parseXml(readBody(exchange));
+		final NodeList objects = delete.getElementsByTagName("Object");
+		if (objects.getLength() > MAX_KEYS) {
+			throw new S3Exception(400, MALFORMED_XML, "At most " + MAX_KEYS + " keys can be deleted per request");
+		}
+		final boolean quiet = "true".equals(childText(delete, "Quiet"));
+		final XmlWriter xml = new XmlWriter().root("DeleteResult");
+		for (int idx = 0; idx < objects.getLength(); idx++) {
+			final String key = childText((Element) objects.item(idx), KEY);
+			if (key == null || key.isEmpty()) {
+				throw new S3Exception(400, MALFORMED_XML, "Object without a key");
+			}
+			objectStore.deleteObject(bucketName, key);
+			acls.remove(bucketName + '/' + key);
+			if (!quiet) {
+				xml.start("Deleted").element(KEY, key).end("Deleted");
+			}
+		}
+		sendXml(exchange, 200, xml.end("DeleteResult"));
+	}
+
+	/**
+	 * Initiates a multipart upload.
+	 *
+	 * @param exchange the exchange
+	 * @param bucketName the bucket name
+	 * @param key the key
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 * @throws S3Exception the s3 exception
+	 */
+	private void initiateMultipartUpload(final HttpExchange exchange, final String bucketName, final String key)
+			throws IOException, S3Exception {
+		requireBucket(bucketName);
+		readBody(exchange);
+		final PendingUpload upload = new PendingUpload(bucketName, key,
+				UUID.randomUUID().toString().replace("-", ""), storedHeaders(exchange.getRequestHeaders()),
+				exchange.getRequestHeaders().getFirst("x-amz-acl"));
+		uploads.put(upload.uploadId, upload);
+		sendXml(exchange, 200, new XmlWriter().root("InitiateMultipartUploadResult").element(BUCKET, bucketName)
+				.element(KEY, key).element("UploadId", upload.uploadId).end("InitiateMultipartUploadResult"));
+	}
+
+	/**
+	 * Stores a part of a multipart upload.
+	 *
+	 * @param exchange the exchange
+	 * @param bucketName the bucket name
+	 * @param key the key
+	 * @param uploadId the upload id
+	 * @param partNumberParam the part number parameter
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 * @throws S3Exception the s3 exception
+	 */
+	private void uploadPart(final HttpExchange exchange, final String bucketName, final String key,
+			final String uploadId, final String partNumberParam) throws IOException, S3Exception {
+		if (exchange.getRequestHeaders().containsKey("x-amz-copy-source")) {
+			throw new S3Exception(501, "NotImplemented", "Upload part copy is not supported");
+		}
+		final int partNumber = parseInt(partNumberParam, -1, 1, MAX_PART_NUMBER);
+		if (partNumber == -1) {
+			throw new S3Exception(400, "InvalidArgument",
+					"Part number must be an integer between 1 and " + MAX_PART_NUMBER);
+		}
+		final PendingUpload upload = requireUpload(bucketName, key, uploadId);
+		final ObjectEntry part;
+		try (InputStream body = requestBody(exchange)) {
+			part = objectStore.putPart(uploadId, partNumber, body);
+		}
+		upload.parts.put(partNumber, part);
+		exchange.getResponseHeaders().set(ETAG, quote(part.getETag()));
+		sendEmpty(exchange, 200);
+	}
+
+	/**
+	 * Lists the parts of a multipart upload.
+	 *
+	 * @param exchange the exchange
+	 * @param bucketName the bucket name
+	 * @param key the key
+	 * @param uploadId the upload id
+	 * @param query the query
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 * @throws S3Exception the s3 exception
+	 */
+	private void listParts(final HttpExchange exchange, final String bucketName, final String key,
+			final String uploadId, final Map<String, String> query) throws IOException, S3Exception {
+		final PendingUpload upload = requireUpload(bucketName, key, uploadId);
+		final int marker = parseInt(query.get("part-number-marker"), 0, 0, MAX_PART_NUMBER);
+		final int maxParts = Math.min(parseInt(query.get("max-parts"), MAX_KEYS, 0, Integer.MAX_VALUE), MAX_KEYS);
+		final Iterator<Map.Entry<Integer, ObjectEntry>> parts = upload.parts.tailMap(marker, false).entrySet()
+				.iterator();
+		final XmlWriter xml = new XmlWriter().root("ListPartsResult").element(BUCKET, bucketName)
+				.element(KEY, key).element("UploadId", uploadId);
+		owner(xml, "Initiator");
+		owner(xml, OWNER_ELEMENT);
+		xml.element("StorageClass", "STANDARD").element("PartNumberMarker", marker);
+		int listed = 0;
+		int lastPart = marker;
+		while (listed < maxParts && parts.hasNext()) {
+			final Map.Entry<Integer, ObjectEntry> part = parts.next();
+			lastPart = part.getKey();
+			listed++;
+			xml.start("Part").element("PartNumber", lastPart)
+					.element("LastModified", ISO_DATE.format(Instant.ofEpochMilli(part.getValue().getLastModified())))
+					.element(ETAG, quote(part.getValue().getETag())).element("Size", part.getValue().getLength())
+					.end("Part");
+		}
+		xml.element("NextPartNumberMarker", lastPart).element("MaxParts", maxParts)
+				.element("IsTruncated", parts.hasNext());
+		sendXml(exchange, 200, xml.end("ListPartsResult"));
+	}
+
+	/**
+	 * Completes a multipart upload, concatenating the listed parts in order.
+	 *
+	 * @param exchange the exchange
+	 * @param bucketName the bucket name
+	 * @param key the key
+	 * @param uploadId the upload id
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 * @throws S3Exception the s3 exception
+	 */
+	private void completeMultipartUpload(final HttpExchange exchange, final String bucketName, final String key,
+			final String uploadId) throws IOException, S3Exception {
+		final NodeList partElements = parseXml(readBody(exchange)).getElementsByTagName("Part");
+		if (partElements.getLength() == 0) {
+			throw new S3Exception(400, MALFORMED_XML, "The XML you provided did not list any part");
+		}
+		final PendingUpload upload = requireUpload(bucketName, key, uploadId);
+		final List<Integer> partNumbers = new ArrayList<Integer>();
+		final MessageDigest md5 = AbstractObjectStore.newMd5();
+		for (int idx = 0; idx < partElements.getLength(); idx++) {
+			final Element partElement = (Element) partElements.item(idx);
+			final int partNumber = parseInt(childText(partElement, "PartNumber"), -1, 1, MAX_PART_NUMBER);
+			if (!partNumbers.isEmpty() && partNumber <= partNumbers.get(partNumbers.size() - 1)) {
+				throw new S3Exception(400, "InvalidPartOrder", "The list of parts was not in ascending order");
+			}
+			final ObjectEntry part = upload.parts.get(partNumber);
+			if (part == null || !part.getETag().equals(unquote(childText(partElement, ETAG)))) {
+				throw new S3Exception(400, "InvalidPart", "One or more of the specified parts could not be found: "
+						+ partNumber);
+			}
+			if (idx < partElements.getLength() - 1 && part.getLength() < minimumPartSize) {
+				throw new S3Exception(400, "EntityTooSmall",
+						"Your proposed upload is smaller than the minimum allowed size, part " + partNumber);
+			}
+			md5.update(fromHex(part.getETag()));
+			partNumbers.add(partNumber);
+		}
+		if (!uploads.remove(uploadId, upload)) {
+			throw new S3Exception(404, "NoSuchUpload", "The specified upload does not exist: " + uploadId);
+		}
+		final ObjectEntry entry;
+		try (InputStream content = new SequenceInputStream(new PartEnumeration(uploadId, partNumbers))) {
+			entry = objectStore.putObject(bucketName, key, content, upload.headers,
+					AbstractObjectStore.toHex(md5.digest()) + "-" + partNumbers.size());
+		} finally {
+			objectStore.deleteParts(uploadId);
+		}
+		if (upload.cannedAcl != null) {
+			acls.put(bucketName + '/' + key, upload.cannedAcl);
+		}
+		sendXml(exchange, 200, new XmlWriter().root("CompleteMultipartUploadResult")
+				.element("Location", "/" + bucketName + "/" + key).element(BUCKET, bucketName).element(KEY, key)
+				.element(ETAG, quote(entry.getETag())).end("CompleteMultipartUploadResult"));
+	}
+
+	/**
+	 * Aborts a multipart upload.
+	 *
+	 * @param exchange the exchange
+	 * @param bucketName the bucket name
+	 * @param key the key
+	 * @param uploadId the upload id
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 * @throws S3Exception the s3 exception
+	 */
+	private void abortMultipartUpload(final HttpExchange exchange, final String bucketName, final String key,
+			final String uploadId) throws IOException, S3Exception {
+		final PendingUpload upload = requireUpload(bucketName, key, uploadId);
+		if (uploads.remove(uploadId, upload)) {
+			objectStore.deleteParts(uploadId);
+		}
+		sendEmpty(exchange, 204);
+	}
+
+	/**
+	 * Lists the pending multipart uploads of a bucket, in key then upload id order.
+	 *
+	 * @param exchange the exchange
+	 * @param bucketName the bucket name
+	 * @param query the query
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 * @throws S3Exception the s3 exception
+	 */
+	private void listMultipartUploads(final HttpExchange exchange, final String bucketName,
+			final Map<String, String> query) throws IOException, S3Exception {
+		requireBucket(bucketName);
+		final String prefix = query.containsKey(PREFIX) ? query.get(PREFIX) : "";
+		final String keyMarker = emptyToNull(query.get("key-marker"));
+		final String uploadIdMarker = emptyToNull(query.get("upload-id-marker"));
+		final int maxUploads = Math.min(parseInt(query.get("max-uploads"), MAX_KEYS, 0, Integer.MAX_VALUE), MAX_KEYS);
+		final ConcurrentSkipListMap<String, PendingUpload> sorted = new ConcurrentSkipListMap<String, PendingUpload>();
+		for (final PendingUpload upload : uploads.values()) {
+			if (upload.bucketName.equals(bucketName) && upload.key.startsWith(prefix)) {
+				sorted.put(upload.key + '\u0000' + upload.uploadId, upload);
+			}
+		}
+		final String from = keyMarker == null ? null
+				: keyMarker + (uploadIdMarker == null ? Character.MAX_VALUE : '\u0000' + uploadIdMarker);
+		final Iterator<PendingUpload> pending = (from == null ? sorted : sorted.tailMap(from, false)).values()
+				.iterator();
+		final XmlWriter xml = new XmlWriter().root("ListMultipartUploadsResult").element(BUCKET, bucketName)
+				.element("KeyMarker", keyMarker == null ? "" : keyMarker)
+				.element("UploadIdMarker", uploadIdMarker == null ? "" : uploadIdMarker)
+				.element("Prefix", prefix).element("MaxUploads", maxUploads);
+		PendingUpload last = null;
+		int listed = 0;
+		while (listed < maxUploads && pending.hasNext()) {
+			last = pending.next();
+			listed++;
+			xml.start("Upload").element(KEY, last.key).element("UploadId", last.uploadId);
+			owner(xml, "Initiator");
+			owner(xml, OWNER_ELEMENT);
+			xml.element("StorageClass", "STANDARD")
+					.element("Initiated", ISO_DATE.format(Instant.ofEpochMilli(last.initiated))).end("Upload");
+		}
+		if (last != null) {
+			xml.element("NextKeyMarker", last.key).element("NextUploadIdMarker", last.uploadId);
+		}
+		xml.element("IsTruncated", pending.hasNext());
+		sendXml(exchange, 200, xml.end("ListMultipartUploadsResult"));
+	}
+
+	/**
+	 * Returns the ACL of a bucket or an object.
+	 *
+	 * @param exchange the exchange
+	 * @param bucketName the bucket name
+	 * @param key the key, null for the bucket
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 * @throws S3Exception the s3 exception
+	 */
+	private void getAcl(final HttpExchange exchange, final String bucketName, final String key)
+			throws IOException, S3Exception {
+		requireBucket(bucketName);
+		if (key != null) {
+			requireObject(bucketName, key);
+		}
+		final String acl = acls.get(key == null ? bucketName : bucketName + '/' + key);
+		if (acl != null && acl.startsWith("<")) {
+			final byte[] policy = acl.getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", "application/xml");
+			exchange.sendResponseHeaders(200, policy.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(policy);
+			}
+			return;
+		}
+		final XmlWriter xml = new XmlWriter().root("AccessControlPolicy");
+		owner(xml, OWNER_ELEMENT).start("AccessControlList");
+		grant(xml, null, "FULL_CONTROL");
+		if ("public-read".equals(acl) || "public-read-write".equals(acl)) {
+			grant(xml, "http://acs.amazonaws.com/groups/global/AllUsers", "READ");
+		}
+		if ("public-read-write".equals(acl)) {
+			grant(xml, "http://acs.amazonaws.com/groups/global/AllUsers", "WRITE");
+		}
+		if ("authenticated-read".equals(acl)) {
+			grant(xml, "http://acs.amazonaws.com/groups/global/AuthenticatedUsers", "READ");
+		}
+		sendXml(exchange, 200, xml.end("AccessControlList").end("AccessControlPolicy"));
+	}
+
+	/**
+	 * Sets the ACL of a bucket or an object, from the <code>x-amz-acl</code> header or an AccessControlPolicy body.
+	 * Grants are stored and returned as they are, they are not enforced.
+	 *
+	 * @param exchange the exchange
+	 * @param bucketName the bucket name
+	 * @param key the key, null for the bucket
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 * @throws S3Exception the s3 exception
+	 */
+	private void putAcl(final HttpExchange exchange, final String bucketName, final String key)
+			throws IOException, S3Exception {
+		requireBucket(bucketName);
+		if (key != null) {
+			requireObject(bucketName, key);
+		}
+		final String aclKey = key == null ? bucketName : bucketName + '/' + key;
+		final String policy = new String(readBody(exchange), StandardCharsets.UTF_8).trim();
+		if (policy.isEmpty()) {
+			final String cannedAcl = exchange.getRequestHeaders().getFirst("x-amz-acl");
+			acls.put(aclKey, cannedAcl == null ? "private" : cannedAcl);
+		} else {
+			parseXml(policy.getBytes(StandardCharsets.UTF_8));
+			acls.put(aclKey, policy);
+		}
+		sendEmpty(exchange, 200);
+	}
+
+	/**
+	 * Keeps the canned ACL sent along a create or put request.
+	 *
+	 * @param exchange the exchange
+	 * @param aclKey the bucket name, or bucket name and key
+	 */
+	private void setCannedAcl(final HttpExchange exchange, final String aclKey) {
+		final String cannedAcl = exchange.getRequestHeaders().getFirst("x-amz-acl");
+		if (cannedAcl == null) {
+			acls.remove(aclKey);
+		} else {
+			acls.put(aclKey, cannedAcl);
+		}
+	}
+
+	/**
+	 * Requires the bucket to exist.
+	 *
+	 * @param bucketName the bucket name
+	 * @return the objects of the bucket
+	 * @throws S3Exception the s3 exception
+	 */
+	private NavigableMap<String, ObjectEntry> requireBucket(final String bucketName) throws S3Exception {
+		final NavigableMap<String, ObjectEntry> objects = objectStore.getObjects(bucketName);
+		if (objects == null) {
+			throw new S3Exception(404, "NoSuchBucket", "The specified bucket does not exist: " + bucketName);
+		}
+		return objects;
+	}
+
+	/**
+	 * Requires the object to exist.
+	 *
+	 * @param bucketName the bucket name
+	 * @param key the key
+	 * @return the object entry
+	 * @throws S3Exception the s3 exception
+	 */
+	private ObjectEntry requireObject(final String bucketName, final String key) throws S3Exception {
+		final ObjectEntry entry = objectStore.getObject(bucketName, key);
+		if (entry == null) {
+			throw new S3Exception(404, "NoSuchKey", "The specified key does not exist: " + key);
+		}
+		return entry;
+	}
+
+	/**
+	 * Requires the multipart upload to exist for the bucket and key.
+	 *
+	 * @param bucketName the bucket name
+	 * @param key the key
+	 * @param uploadId the upload id
+	 * @return the pending upload
+	 * @throws S3Exception the s3 exception
+	 */
+	private PendingUpload requireUpload(final String bucketName, final String key, final String uploadId)
+			throws S3Exception {
+		requireBucket(bucketName);
+		final PendingUpload upload = uploads.get(uploadId);
+		if (upload == null || !upload.bucketName.equals(bucketName) || !upload.key.equals(key)) {
+			throw new S3Exception(404, "NoSuchUpload", "The specified upload does not exist: " + uploadId);
+		}
+		return upload;
+	}
+
+	/**
+	 * Fails with 412 when If-Match or If-Unmodified-Since does not hold.
+	 *
+	 * @param entry the entry
+	 * @param ifMatch the if match header
+	 * @param ifUnmodifiedSince the if unmodified since header
+	 * @throws S3Exception the s3 exception
+	 */
+	private static void checkPreconditions(final ObjectEntry entry, final String ifMatch,
+			final String ifUnmodifiedSince) throws S3Exception {
+		if (ifMatch != null && !matchesAny(entry, ifMatch)) {
+			throw new S3Exception(412, "PreconditionFailed", "At least one of the preconditions you specified did not hold");
+		}
+		final Instant unmodifiedSince = parseHttpDate(ifUnmodifiedSince);
+		if (ifMatch == null && unmodifiedSince != null
+				&& entry.getLastModified() / 1000 > unmodifiedSince.getEpochSecond()) {
+			throw new S3Exception(412, "PreconditionFailed", "At least one of the preconditions you specified did not hold");
+		}
+	}
+
+	/**
+	 * Checks whether an If-Match or If-None-Match header lists the entity tag of the entry.
+	 *
+	 * @param entry the entry
+	 * @param eTags the comma separated entity tags, may be null
+	 * @return true, if any matches
+	 */
+	private static boolean matchesAny(final ObjectEntry entry, final String eTags) {
+		if (eTags == null) {
+			return false;
+		}
+		for (final String eTag : eTags.split(",")) {
+			final String trimmed = unquote(eTag.trim());
+			if ("*".equals(trimmed) || entry.getETag().equals(trimmed)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Checks an If-Modified-Since header, at the one second precision of HTTP dates.
+	 *
+	 * @param entry the entry
+	 * @param ifModifiedSince the if modified since header, may be null
+	 * @return true, if the header is absent or the entry changed after the date
+	 */
+	private static boolean modifiedSince(final ObjectEntry entry, final String ifModifiedSince) {
+		final Instant since = parseHttpDate(ifModifiedSince);
+		return since == null || entry.getLastModified() / 1000 > since.getEpochSecond();
+	}
+
+	/**
+	 * Parses a single byte range. Unparseable and multiple ranges are ignored, as Amazon S3 does.
+	 *
+	 * @param range the range header, may be null
+	 * @param length the object length
+	 * @return the first and last byte, null to serve the whole object
+	 * @throws S3Exception when the range starts beyond the object
+	 */
+	private static long[] parseRange(final String range, final long length) throws S3Exception {
+		if (range == null || !range.startsWith("bytes=") || range.indexOf(',') != -1 || length == 0) {
+			return null;
+		}
+		final String spec = range.substring("bytes=".length()).trim();
+		final int dash = spec.indexOf('-');
+		if (dash == -1) {
+			return null;
+		}
+		try {
+			final long first;
+			final long last;
+			if (dash == 0) {
+				final long suffix = Long.parseLong(spec.substring(1));
+				first = Math.max(0, length - suffix);
+				last = length - 1;
+			} else {
+				first = Long.parseLong(spec.substring(0, dash));
+				last = dash == spec.length() - 1 ? length - 1
+						: Math.min(Long.parseLong(spec.substring(dash + 1)), length - 1);
+			}
+			if (first >= length) {
+				throw new S3Exception(416, "InvalidRange", "The requested range is not satisfiable");
+			}
+			return last < first ? null : new long[] { first, last };
+		} catch (NumberFormatException numFormatEx) {
+			return null;
+		}
+	}
+
+	/**
+	 * Parses an HTTP date.
+	 *
+	 * @param date the date, may be null
+	 * @return the instant, null when absent or unparseable
+	 */
+	private static Instant parseHttpDate(final String date) {
+		if (date == null) {
+			return null;
+		}
+		try {
+			return ZonedDateTime.parse(date.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+		} catch (DateTimeParseException parseEx) {
+			return null;
+		}
+	}
+
+	/**
+	 * Opens the request body, decoding the aws-chunked encoding of streaming signed uploads.
+	 *
+	 * @param exchange the exchange
+	 * @return the body
+	 */
+	private static InputStream requestBody(final HttpExchange exchange) {
+		final Headers requestHeaders = exchange.getRequestHeaders();
+		final String contentEncoding = requestHeaders.getFirst("Content-Encoding");
+		if (STREAMING_PAYLOAD.equals(requestHeaders.getFirst("x-amz-content-sha256"))
+				|| contentEncoding != null && contentEncoding.contains(AWS_CHUNKED)) {
+			return new AwsChunkedInputStream(exchange.getRequestBody());
+		}
+		return exchange.getRequestBody();
+	}
+
+	/**
+	 * Reads the whole request body, for the small XML documents of control requests.
+	 *
+	 * @param exchange the exchange
+	 * @return the body bytes
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static byte[] readBody(final HttpExchange exchange) throws IOException {
+		final ByteArrayOutputStream body = new ByteArrayOutputStream();
+		try (InputStream bodyStream = requestBody(exchange)) {
+			copy(bodyStream, body);
+		}
+		return body.toByteArray();
+	}
+
+	/**
+	 * Picks the request headers kept with an object.
+	 *
+	 * @param requestHeaders the request headers
+	 * @return the stored headers
+	 */
+	private static Map<String, String> storedHeaders(final Headers requestHeaders) {
+		final Map<String, String> stored = new HashMap<String, String>();
+		for (final Map.Entry<String, List<String>> header : requestHeaders.entrySet()) {
+			final String name = header.getKey().toLowerCase(Locale.ROOT);
+			if (STORED_HEADERS.contains(name) || name.startsWith(USER_METADATA_PREFIX)) {
+				stored.put(name, header.getValue().get(0));
+			}
+		}
+		final String contentEncoding = stored.get(CONTENT_ENCODING);
+		if (contentEncoding != null && contentEncoding.contains(AWS_CHUNKED)) {
+			final String remaining = contentEncoding.replace(AWS_CHUNKED, "").replaceAll("^[,\\s]+|[,\\s]+$", "");
+			if (remaining.isEmpty()) {
+				stored.remove(CONTENT_ENCODING);
+			} else {
+				stored.put(CONTENT_ENCODING, remaining);
+			}
+		}
+		if (!stored.containsKey("content-type")) {
+			stored.put("content-type", DEFAULT_CONTENT_TYPE);
+		}
+		return stored;
+	}
+
+	/**
+	 * Parses the query string, parameters without a value map to an empty string.
+	 *
+	 * @param rawQuery the raw query
+	 * @return the parameters
+	 */
+	private static Map<String, String> parseQuery(final String rawQuery) {
+		if (rawQuery == null || rawQuery.isEmpty()) {
+			return Collections.emptyMap();
+		}
+		final Map<String, String> query = new HashMap<String, String>();
+		for (final String parameter : rawQuery.split("&")) {
+			final int equals = parameter.indexOf('=');
+			if (equals == -1) {
+				query.put(decode(parameter), "");
+			} else {
+				query.put(decode(parameter.substring(0, equals)), decode(parameter.substring(equals + 1)));
+			}
+		}
+		return query;
+	}
+
+	/**
+	 * Percent decodes a value, a plus sign is kept as it is.
+	 *
+	 * @param value the value
+	 * @return the decoded value
+	 */
+	private static String decode(final String value) {
+		try {
+			return URLDecoder.decode(value.replace("+", "%2B"), StandardCharsets.UTF_8.name());
+		} catch (UnsupportedEncodingException encodingEx) {
+			throw new IllegalStateException(encodingEx);
+		}
+	}
+
+	/**
+	 * URL encodes a listed value when the client asked for <code>encoding-type=url</code>.
+	 *
+	 * @param value the value, may be null
+	 * @param urlEncoded whether to encode
+	 * @return the value to write
+	 */
+	private static String encode(final String value, final boolean urlEncoded) {
+		if (value == null || !urlEncoded) {
+			return value;
+		}
+		try {
+			return URLEncoder.encode(value, StandardCharsets.UTF_8.name());
+		} catch (UnsupportedEncodingException encodingEx) {
+			throw new IllegalStateException(encodingEx);
+		}
+	}
+
+	/**
+	 * Parses an XML request body.
+	 *
+	 * @param body the body
+	 * @return the document element
+	 * @throws S3Exception when the body is not well formed
+	 */
+	private static Element parseXml(final byte[] body) throws S3Exception {
+		try {
+			final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+			factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+			final Document document = factory.newDocumentBuilder().parse(new ByteArrayInputStream(body));
+			return document.getDocumentElement();
+		} catch (ParserConfigurationException | SAXException | IOException parseEx) {
+			final S3Exception s3Ex = new S3Exception(400, MALFORMED_XML, "The XML you provided was not well-formed");
+			s3Ex.initCause(parseEx);
+			throw s3Ex;
+		}
+	}
+
+	/**
+	 * Gets the text of the first child element with the given name.
+	 *
+	 * @param parent the parent
+	 * @param name the name
+	 * @return the text, null if there is no such child
+	 */
+	private static String childText(final Element parent, final String name) {
+		final NodeList children = parent.getElementsByTagName(name);
+		return children.getLength() == 0 ? null : children.item(0).getTextContent().trim();
+	}
+
+	/**
+	 * Writes the owner element.
+	 *
+	 * @param xml the xml
+	 * @param name the element name
+	 * @return the xml writer
+	 */
+	private static XmlWriter owner(final XmlWriter xml, final String name) {
+		return xml.start(name).element("ID", OWNER_ID).element("DisplayName", OWNER_NAME).end(name);
+	}
+
+	/**
+	 * Writes a grant to the owner, or to a group when the uri is given.
+	 *
+	 * @param xml the xml
+	 * @param groupUri the group uri, null for the owner
+	 * @param permission the permission
+	 */
+	private static void grant(final XmlWriter xml, final String groupUri, final String permission) {
+		final String namespace = "xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" xsi:type=";
+		xml.start("Grant");
+		if (groupUri == null) {
+			xml.start("Grantee", namespace + "\"CanonicalUser\"").element("ID", OWNER_ID)
+					.element("DisplayName", OWNER_NAME);
+		} else {
+			xml.start("Grantee", namespace + "\"Group\"").element("URI", groupUri);
+		}
+		xml.end("Grantee").element("Permission", permission).end("Grant");
+	}
+
+	/**
+	 * Gets the storage class of an entry.
+	 *
+	 * @param entry the entry
+	 * @return the storage class
+	 */
+	private static String storageClass(final ObjectEntry entry) {
+		final String storageClass = entry.getHeaders().get("x-amz-storage-class");
+		return storageClass == null ? "STANDARD" : storageClass;
+	}
+
+	/**
+	 * Sends an XML document.
+	 *
+	 * @param exchange the exchange
+	 * @param status the status
+	 * @param xml the xml
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static void sendXml(final HttpExchange exchange, final int status, final XmlWriter xml)
+			throws IOException {
+		final byte[] body = xml.toBytes();
+		exchange.getResponseHeaders().set("Content-Type", "application/xml");
+		exchange.sendResponseHeaders(status, body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+
+	/**
+	 * Sends a response without a body.
+	 *
+	 * @param exchange the exchange
+	 * @param status the status
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static void sendEmpty(final HttpExchange exchange, final int status) throws IOException {
+		exchange.sendResponseHeaders(status, -1);
+	}
+
+	/**
+	 * Sends an error document, unless the response has already started.
+	 *
+	 * @param exchange the exchange
+	 * @param s3Ex the s3 exception
+	 * @param requestId the request id
+	 */
+	private static void sendError(final HttpExchange exchange, final S3Exception s3Ex, final String requestId) {
+		if (exchange.getResponseCode() != -1) {
+			return;
+		}
+		try {
+			if (HEAD.equals(exchange.getRequestMethod())) {
+				sendEmpty(exchange, s3Ex.status);
+			} else {
+				sendXml(exchange, s3Ex.status, new XmlWriter().start("Error").element("Code", s3Ex.code)
+						.element("Message", s3Ex.getMessage()).element("Resource", exchange.getRequestURI().getPath())
+						.element("RequestId", requestId).end("Error"));
+			}
+		} catch (IOException ioEx) {
+			LOGGER.debug("Could not send error {} to the client", s3Ex.code, ioEx);
+		}
+	}
+
+	/**
+	 * Copies a stream.
+	 *
+	 * @param source the source
+	 * @param out the out
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static void copy(final InputStream source, final OutputStream out) throws IOException {
+		final byte[] buffer = new byte[64 * 1024];
+		int read;
+		while ((read = source.read(buffer)) != -1) {
+			out.write(buffer, 0, read);
+		}
+	}
+
+	/**
+	 * Parses an integer parameter within bounds.
+	 *
+	 * @param value the value, may be null
+	 * @param defaultValue the value returned when absent or invalid
+	 * @param min the min
+	 * @param max the max
+	 * @return the int
+	 */
+	private static int parseInt(final String value, final int defaultValue, final int min, final int max) {
+		if (value == null) {
+			return defaultValue;
+		}
+		try {
+			final int parsed = Integer.parseInt(value.trim());
+			return parsed < min || parsed > max ? defaultValue : parsed;
+		} catch (NumberFormatException numFormatEx) {
+			return defaultValue;
+		}
+	}
+
+	/**
+	 * Empty to null.
+	 *
+	 * @param value the value
+	 * @return the value, null when empty
+	 */
+	private static String emptyToNull(final String value) {
+		return value == null || value.isEmpty() ? null : value;
+	}
+
+	/**
+	 * Quotes an entity tag.
+	 *
+	 * @param eTag the e tag
+	 * @return the quoted e tag
+	 */
+	private static String quote(final String eTag) {
+		return "\"" + eTag + "\"";
+	}
+
+	/**
+	 * Removes the quotes around an entity tag.
+	 *
+	 * @param eTag the e tag, may be null
+	 * @return the unquoted e tag
+	 */
+	private static String unquote(final String eTag) {
+		if (eTag != null && eTag.length() >= 2 && eTag.startsWith("\"") && eTag.endsWith("\"")) {
+			return eTag.substring(1, eTag.length() - 1);
+		}
+		return eTag;
+	}
+
+	/**
+	 * Decodes a hex string.
+	 *
+	 * @param hex the hex
+	 * @return the bytes
+	 */
+	private static byte[] fromHex(final String hex) {
+		final byte[] bytes = new byte[hex.length() / 2];
+		for (int idx = 0; idx < bytes.length; idx++) {
+			bytes[idx] = (byte) Integer.parseInt(hex.substring(idx * 2, idx * 2 + 2), 16);
+		}
+		return bytes;
+	}
+
+	/**
+	 * The Class ListingPage.
+	 */
+	private static final class ListingPage {
+
+		/** The contents. */
+		private final List<ObjectEntry> contents = new ArrayList<ObjectEntry>();
+
+		/** The common prefixes. */
+		private final List<String> commonPrefixes = new ArrayList<String>();
+
+		/** Whether more keys follow. */
+		private boolean truncated;
+
+		/** The last key or common prefix listed. */
+		private String lastKey;
+	}
+
+	/**
+	 * The Class PendingUpload.
+	 */
+	private static final class PendingUpload {
+
+		/** The bucket name. */
+		private final String bucketName;
+
+		/** The key. */
+		private final String key;
+
+		/** The upload id. */
+		private final String uploadId;
+
+		/** The headers of the object to create. */
+		private final Map<String, String> headers;
+
+		/** The canned acl of the object to create, may be null. */
+		private final String cannedAcl;
+
+		/** The initiated time in millis. */
+		private final long initiated = System.currentTimeMillis();
+
+		/** The parts uploaded so far. */
+		private final ConcurrentSkipListMap<Integer, ObjectEntry> parts = new ConcurrentSkipListMap<Integer, ObjectEntry>();
+
+		/**
+		 * Instantiates a new pending upload.
+		 *
+		 * @param bucketName the bucket name
+		 * @param key the key
+		 * @param uploadId the upload id
+		 * @param headers the headers
+		 * @param cannedAcl the canned acl
+		 */
+		private PendingUpload(final String bucketName, final String key, final String uploadId,
+				final Map<String, String> headers, final String cannedAcl) {
+			this.bucketName = bucketName;
+			this.key = key;
+			this.uploadId = uploadId;
+			this.headers = headers;
+			this.cannedAcl = cannedAcl;
+		}
+	}
+
+	/**
+	 * The Class PartEnumeration.<br/>
+	 * Opens the parts one at a time while the completed object is written.
+	 */
+	private final class PartEnumeration implements Enumeration<InputStream> {
+
+		/** The upload id. */
+		private final String uploadId;
+
+		/** The part numbers. */
+		private final Iterator<Integer> partNumbers;
+
+		/**
+		 * Instantiates a new part enumeration.
+		 *
+		 * @param uploadId the upload id
+		 * @param partNumbers the part numbers
+		 */
+		private PartEnumeration(final String uploadId, final List<Integer> partNumbers) {
+			this.uploadId = uploadId;
+			this.partNumbers = partNumbers.iterator();
+		}
+
+		/* (non-Javadoc)
+		 * @see java.util.Enumeration#hasMoreElements()
+		 */
+		@Override
+		public boolean hasMoreElements() {
+			return partNumbers.hasNext();
+		}
+
+		/* (non-Javadoc)
+		 * @see java.util.Enumeration#nextElement()
+		 */
+		@Override
+		public InputStream nextElement() {
+			final int partNumber = partNumbers.next();
+			try {
+				final InputStream part = objectStore.getPartContent(uploadId, partNumber);
+				if (part == null) {
+					throw new NoSuchElementException("Part " + partNumber + " of upload " + uploadId + " is gone");
+				}
+				return part;
+			} catch (IOException ioEx) {
+				throw new IllegalStateException("Could not open part " + partNumber + " of upload " + uploadId, ioEx);
+			}
+		}
+	}
+
+	/**
+	 * The Class S3Exception.<br/>
+	 * An error answered with an S3 error document.
+	 */
+	private static final class S3Exception extends Exception {
+
+		/** The Constant serialVersionUID. */
+		private static final long serialVersionUID = 1L;
+
+		/** The status. */
+		private final int status;
+
+		/** The code. */
+		private final String code;
+
+		/**
+		 * Instantiates a new s3 exception.
+		 *
+		 * @param status the status
+		 * @param code the code
+		 * @param message the message
+		 */
+		private S3Exception(final int status, final String code, final String message) {
+			super(message);
+			this.status = status;
+			this.code = code;
+		}
+	}
+}
@@ -0,0 +1,159 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.local;
+
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The Class XmlWriter.<br/>
+ * Minimal writer for the XML documents returned by the {@link LocalS3Server}.
+ *
+ * @author Abhinav kumar mishra
+ */
+final class XmlWriter {
+
+	/** The Constant S3_NAMESPACE. */
+	public static final String S3_NAMESPACE = "http://s3.amazonaws.com/doc/2006-03-01/";
+
+	/** The xml. */
+	private final StringWriter xml = new StringWriter(512)
+			.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+
+	/**
+	 * Starts the root element, in the S3 namespace.
+	 *
+	 * @param name the name
+	 * @return the xml writer
+	 */
+	public XmlWriter root(final String name) {
+		xml.append('<').append(name).append(" xmlns=\"").append(S3_NAMESPACE).append("\">");
+		return this;
+	}
+
+	/**
+	 * Starts an element.
+	 *
+	 * @param name the name
+	 * @return the xml writer
+	 */
+	public XmlWriter start(final String name) {
+		xml.append('<').append(name).append('>');
+		return this;
+	}
+
+	/**
+	 * Starts an element with raw attributes.
+	 *
+	 * @param name the name
+	 * @param attributes the attributes, already escaped
+	 * @return the xml writer
+	 */
+	public XmlWriter start(final String name, final String attributes) {
+		xml.append('<').append(name).append(' ').append(attributes).append('>');
+		return this;
+	}
+
+	/**
+	 * Ends an element.
+	 *
+	 * @param name the name
+	 * @return the xml writer
+	 */
+	public XmlWriter end(final String name) {
+		xml.append("</").append(name).append('>');
+		return this;
+	}
+
+	/**
+	 * Writes text content, nothing when the value is null.
+	 *
+	 * @param value the value
+	 * @return the xml writer
+	 */
+	public XmlWriter text(final Object value) {
+		if (value != null) {
+			escape(String.valueOf(value));
+		}
+		return this;
+	}
+
+	/**
+	 * Writes an element with text content, nothing when the value is null.
+	 *
+	 * @param name the name
+	 * @param value the value
+	 * @return the xml writer
+	 */
+	public XmlWriter element(final String name, final Object value) {
+		if (value != null) {
+			start(name);
+			escape(String.valueOf(value));
+			end(name);
+		}
+		return this;
+	}
+
+	/**
+	 * Gets the document as bytes.
+	 *
+	 * @return the UTF-8 bytes
+	 */
+	public byte[] toBytes() {
+		return xml.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return xml.toString();
+	}
+
+	/**
+	 * Appends the escaped text.
+	 *
+	 * @param text the text
+	 */
+	private void escape(final String text) {
+		for (int idx = 0; idx < text.length(); idx++) {
+			final char chr = text.charAt(idx);
+			switch (chr) {
+			case '&':
+				xml.append("&amp;");
+				break;
+			case '<':
+				xml.append("&lt;");
+				break;
+			case '>':
+				xml.append("&gt;");
+				break;
+			case '"':
+				xml.append("&quot;");
+				break;
+			case '\r':
+				xml.append("&#13;");
+				break;
+			default:
+				xml.append(chr);
+				break;
+			}
+		}
+	}
+}
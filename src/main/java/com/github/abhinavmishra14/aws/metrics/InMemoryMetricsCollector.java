@@ -0,0 +1,102 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.metrics;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The Class InMemoryMetricsCollector.<br/>
+ * Keeps the metrics of every {@link S3Operation} in memory, read them with
+ * {@link #getStats(S3Operation)} e.g. from a periodic reporter or a health check.
+ *
+ * @author Abhinav kumar mishra
+ */
+public final class InMemoryMetricsCollector implements S3MetricsCollector {
+
+	/** The stats by operation, filled once and read only afterwards. */
+	private final Map<S3Operation, OperationStats> stats = new EnumMap<S3Operation, OperationStats>(
+			S3Operation.class);
+
+	/**
+	 * Instantiates a new in memory metrics collector.
+	 */
+	public InMemoryMetricsCollector() {
+		super();
+		for (final S3Operation operation : S3Operation.values()) {
+			stats.put(operation, new OperationStats(operation));
+		}
+	}
+
+	/**
+	 * Gets the stats of an operation.
+	 *
+	 * @param operation the operation
+	 * @return the live operation stats
+	 */
+	public OperationStats getStats(final S3Operation operation) {
+		return stats.get(operation);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.metrics.S3MetricsCollector#operationStarted(com.github.abhinavmishra14.aws.metrics.S3Operation)
+	 */
+	@Override
+	public void operationStarted(final S3Operation operation) {
+		stats.get(operation).recordStarted();
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.metrics.S3MetricsCollector#operationSucceeded(com.github.abhinavmishra14.aws.metrics.S3Operation, long, long, long)
+	 */
+	@Override
+	public void operationSucceeded(final S3Operation operation, final long latencyNanos, final long bytesSent,
+			final long bytesReceived) {
+		stats.get(operation).recordSucceeded(latencyNanos, bytesSent, bytesReceived);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.metrics.S3MetricsCollector#operationFailed(com.github.abhinavmishra14.aws.metrics.S3Operation, long, java.lang.String)
+	 */
+	@Override
+	public void operationFailed(final S3Operation operation, final long latencyNanos, final String errorCode) {
+		stats.get(operation).recordFailed(latencyNanos, errorCode);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.metrics.S3MetricsCollector#operationRetried(com.github.abhinavmishra14.aws.metrics.S3Operation, int)
+	 */
+	@Override
+	public void operationRetried(final S3Operation operation, final int retries) {
+		stats.get(operation).recordRetries(retries);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		final StringBuilder description = new StringBuilder("InMemoryMetricsCollector [");
+		for (final OperationStats operationStats : stats.values()) {
+			if (operationStats.getCount() > 0 || operationStats.getInFlight() > 0) {
+				description.append(operationStats).append(' ');
+			}
+		}
+		return description.append(']').toString();
+	}
+}
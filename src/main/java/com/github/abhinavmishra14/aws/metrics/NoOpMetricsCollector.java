@@ -0,0 +1,89 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.metrics;
+
+/**
+ * The Class NoOpMetricsCollector.<br/>
+ * Records nothing. The services recognize it and do not install their metrics
+ * hooks, so disabled metrics cost nothing per request.
+ *
+ * @author Abhinav kumar mishra
+ */
+public final class NoOpMetricsCollector implements S3MetricsCollector {
+
+	/** The Constant INSTANCE. */
+	public static final NoOpMetricsCollector INSTANCE = new NoOpMetricsCollector();
+
+	/**
+	 * Instantiates a new no op metrics collector.
+	 */
+	private NoOpMetricsCollector() {
+		super();
+	}
+
+	/**
+	 * Checks if the given collector records anything.
+	 *
+	 * @param metricsCollector the metrics collector
+	 * @return true, if not null and not the no op collector
+	 */
+	public static boolean isEnabled(final S3MetricsCollector metricsCollector) {
+		return metricsCollector != null && !INSTANCE.equals(metricsCollector);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.metrics.S3MetricsCollector#operationStarted(com.github.abhinavmishra14.aws.metrics.S3Operation)
+	 */
+	@Override
+	public void operationStarted(final S3Operation operation) {
+		// Nothing to record
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.metrics.S3MetricsCollector#operationSucceeded(com.github.abhinavmishra14.aws.metrics.S3Operation, long, long, long)
+	 */
+	@Override
+	public void operationSucceeded(final S3Operation operation, final long latencyNanos, final long bytesSent,
+			final long bytesReceived) {
+		// Nothing to record
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.metrics.S3MetricsCollector#operationFailed(com.github.abhinavmishra14.aws.metrics.S3Operation, long, java.lang.String)
+	 */
+	@Override
+	public void operationFailed(final S3Operation operation, final long latencyNanos, final String errorCode) {
+		// Nothing to record
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.metrics.S3MetricsCollector#operationRetried(com.github.abhinavmishra14.aws.metrics.S3Operation, int)
+	 */
+	@Override
+	public void operationRetried(final S3Operation operation, final int retries) {
+		// Nothing to record
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "NoOpMetricsCollector";
+	}
+}
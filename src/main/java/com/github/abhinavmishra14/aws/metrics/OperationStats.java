@@ -0,0 +1,309 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The Class OperationStats.<br/>
+ * Live metrics of one {@link S3Operation}, kept by {@link InMemoryMetricsCollector}.
+ * Latencies go into a histogram of fixed size with 8 buckets per power of two
+ * of microseconds, percentiles are accurate to 12.5%.
+ *
+ * @author Abhinav kumar mishra
+ */
+public final class OperationStats {
+
+	/** The Constant SUB_BUCKET_BITS. */
+	private static final int SUB_BUCKET_BITS = 3;
+
+	/** The Constant SUB_BUCKETS. */
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	/** The Constant BUCKET_COUNT. Covers every positive long. */
+	private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+	/** The operation. */
+	private final S3Operation operation;
+
+	/** The succeeded count. */
+	private final LongAdder succeeded = new LongAdder();
+
+	/** The failed count. */
+	private final LongAdder failed = new LongAdder();
+
+	/** The retries. */
+	private final LongAdder retries = new LongAdder();
+
+	/** The in flight gauge. */
+	private final LongAdder inFlight = new LongAdder();
+
+	/** The bytes sent. */
+	private final LongAdder bytesSent = new LongAdder();
+
+	/** The bytes received. */
+	private final LongAdder bytesReceived = new LongAdder();
+
+	/** The total latency in micros. */
+	private final LongAdder totalLatencyMicros = new LongAdder();
+
+	/** The latency histogram, counts per bucket of micros. */
+	private final AtomicLongArray latencyBuckets = new AtomicLongArray(BUCKET_COUNT);
+
+	/** The error counts by error code. */
+	private final ConcurrentMap<String, LongAdder> errorCounts = new ConcurrentHashMap<String, LongAdder>();
+
+	/**
+	 * Instantiates a new operation stats.
+	 *
+	 * @param operation the operation
+	 */
+	public OperationStats(final S3Operation operation) {
+		super();
+		this.operation = operation;
+	}
+
+	/**
+	 * Record a started request.
+	 */
+	public void recordStarted() {
+		inFlight.increment();
+	}
+
+	/**
+	 * Record a succeeded request.
+	 *
+	 * @param latencyNanos the latency nanos
+	 * @param sent the bytes sent
+	 * @param received the bytes received
+	 */
+	public void recordSucceeded(final long latencyNanos, final long sent, final long received) {
+		inFlight.decrement();
+		succeeded.increment();
+		bytesSent.add(sent);
+		bytesReceived.add(received);
+		recordLatency(latencyNanos);
+	}
+
+	/**
+	 * Record a failed request.
+	 *
+	 * @param latencyNanos the latency nanos
+	 * @param errorCode the error code
+	 */
+	public void recordFailed(final long latencyNanos, final String errorCode) {
+		inFlight.decrement();
+		failed.increment();
+		recordLatency(latencyNanos);
+		LongAdder errorCount = errorCounts.get(errorCode);
+		if (errorCount == null) {
+			final LongAdder newCount = new LongAdder();
+			errorCount = errorCounts.putIfAbsent(errorCode, newCount);
+			if (errorCount == null) {
+				errorCount = newCount;
+			}
+		}
+		errorCount.increment();
+	}
+
+	/**
+	 * Record retries.
+	 *
+	 * @param count the count
+	 */
+	public void recordRetries(final int count) {
+		retries.add(count);
+	}
+
+	/**
+	 * Record a latency into the histogram.
+	 *
+	 * @param latencyNanos the latency nanos
+	 */
+	private void recordLatency(final long latencyNanos) {
+		final long micros = Math.max(0, TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+		totalLatencyMicros.add(micros);
+		latencyBuckets.incrementAndGet(bucketOf(micros));
+	}
+
+	/**
+	 * Gets the bucket index of a value, values below 8 have their own bucket,
+	 * larger values share a bucket with the values having the same highest 4 bits.
+	 *
+	 * @param value the value
+	 * @return the bucket index
+	 */
+	private static int bucketOf(final long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		final int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+		final int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	/**
+	 * Gets the highest value of a bucket.
+	 *
+	 * @param bucket the bucket index
+	 * @return the highest value
+	 */
+	private static long highestValueOf(final int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		final int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		final long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+		return lowest + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+	}
+
+	/**
+	 * Gets the operation.
+	 *
+	 * @return the operation
+	 */
+	public S3Operation getOperation() {
+		return operation;
+	}
+
+	/**
+	 * Gets the number of completed requests, succeeded or failed.
+	 *
+	 * @return the count
+	 */
+	public long getCount() {
+		return succeeded.sum() + failed.sum();
+	}
+
+	/**
+	 * Gets the number of failed requests.
+	 *
+	 * @return the error count
+	 */
+	public long getErrorCount() {
+		return failed.sum();
+	}
+
+	/**
+	 * Gets the error counts by error code.
+	 *
+	 * @return the error counts, sorted by error code
+	 */
+	public Map<String, Long> getErrorCounts() {
+		final Map<String, Long> counts = new TreeMap<String, Long>();
+		for (final Map.Entry<String, LongAdder> errorCount : errorCounts.entrySet()) {
+			counts.put(errorCount.getKey(), errorCount.getValue().sum());
+		}
+		return counts;
+	}
+
+	/**
+	 * Gets the number of retries.
+	 *
+	 * @return the retry count
+	 */
+	public long getRetryCount() {
+		return retries.sum();
+	}
+
+	/**
+	 * Gets the number of requests in flight.
+	 *
+	 * @return the in flight
+	 */
+	public long getInFlight() {
+		return inFlight.sum();
+	}
+
+	/**
+	 * Gets the bytes sent.
+	 *
+	 * @return the bytes sent
+	 */
+	public long getBytesSent() {
+		return bytesSent.sum();
+	}
+
+	/**
+	 * Gets the bytes received.
+	 *
+	 * @return the bytes received
+	 */
+	public long getBytesReceived() {
+		return bytesReceived.sum();
+	}
+
+	/**
+	 * Gets the mean latency.
+	 *
+	 * @return the mean latency millis, 0 when nothing was recorded
+	 */
+	public double getMeanLatencyMillis() {
+		final long count = getCount();
+		return count == 0 ? 0 : totalLatencyMicros.sum() / 1000.0 / count;
+	}
+
+	/**
+	 * Gets a latency percentile, e.g. 0.99 for the p99.
+	 *
+	 * @param percentile the percentile, between 0 and 1
+	 * @return the latency millis at or below which the given part of the requests completed,
+	 *         0 when nothing was recorded
+	 */
+	public double getLatencyPercentileMillis(final double percentile) {
+		if (percentile < 0 || percentile > 1) {
+			throw new IllegalArgumentException("Percentile must be between 0 and 1");
+		}
+		final long[] counts = new long[BUCKET_COUNT];
+		long total = 0;
+		for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+			counts[bucket] = latencyBuckets.get(bucket);
+			total += counts[bucket];
+		}
+		if (total == 0) {
+			return 0;
+		}
+		final long rank = Math.max(1, (long) Math.ceil(percentile * total));
+		long seen = 0;
+		for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+			seen += counts[bucket];
+			if (seen >= rank) {
+				return highestValueOf(bucket) / 1000.0;
+			}
+		}
+		return highestValueOf(BUCKET_COUNT - 1) / 1000.0;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "OperationStats [operation=" + operation + ", count=" + getCount() + ", errorCount="
+				+ getErrorCount() + ", errorCounts=" + getErrorCounts() + ", retryCount=" + getRetryCount()
+				+ ", inFlight=" + getInFlight() + ", bytesSent=" + getBytesSent() + ", bytesReceived="
+				+ getBytesReceived() + ", meanLatencyMillis=" + getMeanLatencyMillis() + ", p99LatencyMillis="
+				+ getLatencyPercentileMillis(0.99) + "]";
+	}
+}
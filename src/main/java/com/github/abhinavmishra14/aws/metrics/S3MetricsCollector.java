@@ -0,0 +1,68 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.metrics;
+
+/**
+ * The Interface S3MetricsCollector.<br/>
+ * Receives a callback for every request sent by the services, implement it to
+ * feed a metrics library (e.g. a Micrometer Timer and Counters per operation)
+ * or use {@link InMemoryMetricsCollector}.<br/>
+ * Callbacks come from the threads sending the requests, implementations must be
+ * thread safe and should not block. {@link NoOpMetricsCollector} is the default,
+ * the services then do not install any hook at all.
+ *
+ * @author Abhinav kumar mishra
+ */
+public interface S3MetricsCollector {
+
+	/**
+	 * Called before a request is sent, increments the in flight gauge.
+	 *
+	 * @param operation the operation
+	 */
+	void operationStarted(final S3Operation operation);
+
+	/**
+	 * Called when a request succeeded, decrements the in flight gauge.
+	 *
+	 * @param operation the operation
+	 * @param latencyNanos the latency nanos, including retries, till the response headers were read
+	 * @param bytesSent the bytes sent in the request body, 0 if none or unknown
+	 * @param bytesReceived the bytes of the response body, 0 if none or unknown
+	 */
+	void operationSucceeded(final S3Operation operation, final long latencyNanos, final long bytesSent,
+			final long bytesReceived);
+
+	/**
+	 * Called when a request failed, decrements the in flight gauge.
+	 *
+	 * @param operation the operation
+	 * @param latencyNanos the latency nanos, including retries
+	 * @param errorCode the S3 error code (e.g. SlowDown, NoSuchKey), or the simple name of the
+	 *        exception when no response was received
+	 */
+	void operationFailed(final S3Operation operation, final long latencyNanos, final String errorCode);
+
+	/**
+	 * Called when a request was retried.
+	 *
+	 * @param operation the operation
+	 * @param retries the number of retries
+	 */
+	void operationRetried(final S3Operation operation, final int retries);
+}
@@ -0,0 +1,60 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.metrics;
+
+/**
+ * The Enum S3Operation.<br/>
+ * Kinds of requests the metrics are recorded by.
+ *
+ * @author Abhinav kumar mishra
+ */
+public enum S3Operation {
+
+	/** Put object and upload part. */
+	PUT,
+
+	/** Get object. */
+	GET,
+
+	/** Head object. */
+	HEAD,
+
+	/** List objects, buckets and multipart uploads. */
+	LIST,
+
+	/** Delete object and multi object delete. */
+	DELETE,
+
+	/** Copy object and copy part. */
+	COPY,
+
+	/** Initiate, complete, abort and list the parts of a multipart upload. */
+	MULTIPART,
+
+	/** Generate a presigned url, no request is sent. */
+	PRESIGN,
+
+	/** Get and set bucket and object ACLs. */
+	ACL,
+
+	/** Create, delete and check buckets. */
+	BUCKET,
+
+	/** Any other request. */
+	OTHER
+}
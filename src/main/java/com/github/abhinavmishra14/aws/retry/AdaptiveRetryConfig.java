@@ -0,0 +1,307 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.retry;
+
+import com.github.abhinavmishra14.aws.util.AWSUtilConstants;
+
+/**
+ * The Class AdaptiveRetryConfig.<br/>
+ * Holds the settings of the adaptive retries: the number of retries and their
+ * jittered delays, the retry budget shared by all the requests of a client and
+ * the bounds of the request rate adapted per bucket prefix.<br/>
+ * The values are read once when the service is built, changing them afterwards
+ * has no effect on an already created service.
+ *
+ * @author Abhinav kumar mishra
+ */
+public class AdaptiveRetryConfig {
+
+	/** The max error retries. */
+	private int maxErrorRetries = AWSUtilConstants.DEFAULT_MAX_ERROR_RETRIES;
+
+	/** The base delay millis. */
+	private long baseDelayMillis = AWSUtilConstants.DEFAULT_RETRY_BASE_DELAY_MILLIS;
+
+	/** The throttle base delay millis. */
+	private long throttleBaseDelayMillis = AWSUtilConstants.DEFAULT_THROTTLE_BASE_DELAY_MILLIS;
+
+	/** The max delay millis. */
+	private long maxDelayMillis = AWSUtilConstants.DEFAULT_RETRY_MAX_DELAY_MILLIS;
+
+	/** The retry budget capacity. */
+	private int retryBudgetCapacity = AWSUtilConstants.DEFAULT_RETRY_BUDGET_CAPACITY;
+
+	/** The retry budget refill. */
+	private double retryBudgetRefill = AWSUtilConstants.DEFAULT_RETRY_BUDGET_REFILL;
+
+	/** The max requests per second. */
+	private double maxRequestsPerSecond = AWSUtilConstants.DEFAULT_MAX_REQUESTS_PER_SECOND;
+
+	/** The min requests per second. */
+	private double minRequestsPerSecond = AWSUtilConstants.DEFAULT_MIN_REQUESTS_PER_SECOND;
+
+	/** The rate decrease factor. */
+	private double rateDecreaseFactor = AWSUtilConstants.DEFAULT_RATE_DECREASE_FACTOR;
+
+	/** The rate increase per success. */
+	private double rateIncreasePerSuccess = AWSUtilConstants.DEFAULT_RATE_INCREASE_PER_SUCCESS;
+
+	/**
+	 * Gets the max error retries.
+	 *
+	 * @return the maximum number of retries of a request
+	 */
+	public int getMaxErrorRetries() {
+		return maxErrorRetries;
+	}
+
+	/**
+	 * Sets the max error retries.
+	 *
+	 * @param maxErrorRetries the maximum number of retries of a request
+	 * @return the adaptive retry config
+	 */
+	public AdaptiveRetryConfig setMaxErrorRetries(final int maxErrorRetries) {
+		if (maxErrorRetries < 0) {
+			throw new IllegalArgumentException("Max error retries must not be negative.");
+		}
+		this.maxErrorRetries = maxErrorRetries;
+		return this;
+	}
+
+	/**
+	 * Gets the base delay millis.
+	 *
+	 * @return the smallest delay before a retry
+	 */
+	public long getBaseDelayMillis() {
+		return baseDelayMillis;
+	}
+
+	/**
+	 * Sets the base delay millis.
+	 *
+	 * @param baseDelayMillis the smallest delay before a retry
+	 * @return the adaptive retry config
+	 */
+	public AdaptiveRetryConfig setBaseDelayMillis(final long baseDelayMillis) {
+		if (baseDelayMillis < 1) {
+			throw new IllegalArgumentException("Base delay must be greater than zero.");
+		}
+		this.baseDelayMillis = baseDelayMillis;
+		return this;
+	}
+
+	/**
+	 * Gets the throttle base delay millis.
+	 *
+	 * @return the smallest delay before a retry of a throttled request
+	 */
+	public long getThrottleBaseDelayMillis() {
+		return throttleBaseDelayMillis;
+	}
+
+	/**
+	 * Sets the throttle base delay millis.
+	 *
+	 * @param throttleBaseDelayMillis the smallest delay before a retry of a throttled request
+	 * @return the adaptive retry config
+	 */
+	public AdaptiveRetryConfig setThrottleBaseDelayMillis(final long throttleBaseDelayMillis) {
+		if (throttleBaseDelayMillis < 1) {
+			throw new IllegalArgumentException("Throttle base delay must be greater than zero.");
+		}
+		this.throttleBaseDelayMillis = throttleBaseDelayMillis;
+		return this;
+	}
+
+	/**
+	 * Gets the max delay millis.
+	 *
+	 * @return the largest delay before a retry
+	 */
+	public long getMaxDelayMillis() {
+		return maxDelayMillis;
+	}
+
+	/**
+	 * Sets the max delay millis.
+	 *
+	 * @param maxDelayMillis the largest delay before a retry
+	 * @return the adaptive retry config
+	 */
+	public AdaptiveRetryConfig setMaxDelayMillis(final long maxDelayMillis) {
+		if (maxDelayMillis < 1) {
+			throw new IllegalArgumentException("Max delay must be greater than zero.");
+		}
+		this.maxDelayMillis = maxDelayMillis;
+		return this;
+	}
+
+	/**
+	 * Gets the retry budget capacity.
+	 *
+	 * @return the number of retries allowed without a success in between
+	 */
+	public int getRetryBudgetCapacity() {
+		return retryBudgetCapacity;
+	}
+
+	/**
+	 * Sets the retry budget capacity.
+	 *
+	 * @param retryBudgetCapacity the number of retries allowed without a success in between
+	 * @return the adaptive retry config
+	 */
+	public AdaptiveRetryConfig setRetryBudgetCapacity(final int retryBudgetCapacity) {
+		if (retryBudgetCapacity < 0) {
+			throw new IllegalArgumentException("Retry budget capacity must not be negative.");
+		}
+		this.retryBudgetCapacity = retryBudgetCapacity;
+		return this;
+	}
+
+	/**
+	 * Gets the retry budget refill.
+	 *
+	 * @return the retries earned by a successful request
+	 */
+	public double getRetryBudgetRefill() {
+		return retryBudgetRefill;
+	}
+
+	/**
+	 * Sets the retry budget refill.<br/>
+	 * With 0.1 the retries stay below 10% of the requests once the budget is spent.
+	 *
+	 * @param retryBudgetRefill the retries earned by a successful request
+	 * @return the adaptive retry config
+	 */
+	public AdaptiveRetryConfig setRetryBudgetRefill(final double retryBudgetRefill) {
+		if (retryBudgetRefill < 0) {
+			throw new IllegalArgumentException("Retry budget refill must not be negative.");
+		}
+		this.retryBudgetRefill = retryBudgetRefill;
+		return this;
+	}
+
+	/**
+	 * Gets the max requests per second.
+	 *
+	 * @return the rate above which a prefix is no longer limited
+	 */
+	public double getMaxRequestsPerSecond() {
+		return maxRequestsPerSecond;
+	}
+
+	/**
+	 * Sets the max requests per second.
+	 *
+	 * @param maxRequestsPerSecond the rate above which a prefix is no longer limited
+	 * @return the adaptive retry config
+	 */
+	public AdaptiveRetryConfig setMaxRequestsPerSecond(final double maxRequestsPerSecond) {
+		if (maxRequestsPerSecond <= 0) {
+			throw new IllegalArgumentException("Max requests per second must be greater than zero.");
+		}
+		this.maxRequestsPerSecond = maxRequestsPerSecond;
+		return this;
+	}
+
+	/**
+	 * Gets the min requests per second.
+	 *
+	 * @return the lowest rate a throttled prefix is limited to
+	 */
+	public double getMinRequestsPerSecond() {
+		return minRequestsPerSecond;
+	}
+
+	/**
+	 * Sets the min requests per second.
+	 *
+	 * @param minRequestsPerSecond the lowest rate a throttled prefix is limited to
+	 * @return the adaptive retry config
+	 */
+	public AdaptiveRetryConfig setMinRequestsPerSecond(final double minRequestsPerSecond) {
+		if (minRequestsPerSecond <= 0) {
+			throw new IllegalArgumentException("Min requests per second must be greater than zero.");
+		}
+		this.minRequestsPerSecond = minRequestsPerSecond;
+		return this;
+	}
+
+	/**
+	 * Gets the rate decrease factor.
+	 *
+	 * @return the factor applied to the rate of a prefix when it is throttled
+	 */
+	public double getRateDecreaseFactor() {
+		return rateDecreaseFactor;
+	}
+
+	/**
+	 * Sets the rate decrease factor.
+	 *
+	 * @param rateDecreaseFactor the factor applied to the rate of a prefix when it is throttled
+	 * @return the adaptive retry config
+	 */
+	public AdaptiveRetryConfig setRateDecreaseFactor(final double rateDecreaseFactor) {
+		if (rateDecreaseFactor <= 0 || rateDecreaseFactor >= 1) {
+			throw new IllegalArgumentException("Rate decrease factor must be between 0 and 1.");
+		}
+		this.rateDecreaseFactor = rateDecreaseFactor;
+		return this;
+	}
+
+	/**
+	 * Gets the rate increase per success.
+	 *
+	 * @return the requests per second added to the rate of a limited prefix by a success
+	 */
+	public double getRateIncreasePerSuccess() {
+		return rateIncreasePerSuccess;
+	}
+
+	/**
+	 * Sets the rate increase per success.
+	 *
+	 * @param rateIncreasePerSuccess the requests per second added to the rate of a limited prefix by a success
+	 * @return the adaptive retry config
+	 */
+	public AdaptiveRetryConfig setRateIncreasePerSuccess(final double rateIncreasePerSuccess) {
+		if (rateIncreasePerSuccess <= 0) {
+			throw new IllegalArgumentException("Rate increase must be greater than zero.");
+		}
+		this.rateIncreasePerSuccess = rateIncreasePerSuccess;
+		return this;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "AdaptiveRetryConfig [maxErrorRetries=" + maxErrorRetries + ", baseDelayMillis=" + baseDelayMillis
+				+ ", throttleBaseDelayMillis=" + throttleBaseDelayMillis + ", maxDelayMillis=" + maxDelayMillis
+				+ ", retryBudgetCapacity=" + retryBudgetCapacity + ", retryBudgetRefill=" + retryBudgetRefill
+				+ ", maxRequestsPerSecond=" + maxRequestsPerSecond + ", minRequestsPerSecond=" + minRequestsPerSecond
+				+ ", rateDecreaseFactor=" + rateDecreaseFactor + ", rateIncreasePerSuccess=" + rateIncreasePerSuccess
+				+ "]";
+	}
+}
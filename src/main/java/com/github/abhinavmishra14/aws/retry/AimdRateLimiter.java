@@ -0,0 +1,282 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.retry;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The Class AimdRateLimiter.<br/>
+ * Adapts the request rate of each partition (bucket and key prefix) to the
+ * throttling responses, additive increase and multiplicative decrease as TCP
+ * does for its window. A partition runs unlimited until it is throttled, it is
+ * then limited to a fraction of the rate it was sent at, the rate grows back by
+ * a fixed step per success and the limit is lifted once it reaches the max rate.
+ *
+ * @author Abhinav kumar mishra
+ */
+public final class AimdRateLimiter {
+
+	/** The Constant NANOS_PER_SECOND. */
+	private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	/** The Constant MIN_DECREASE_INTERVAL_NANOS. Throttles of requests sent together decrease the rate once. */
+	private static final long MIN_DECREASE_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+	/** The Constant MAX_TRACKED_PARTITIONS. Unlimited partitions are dropped above this number. */
+	private static final int MAX_TRACKED_PARTITIONS = 1024;
+
+	/** The max rate. */
+	private final double maxRate;
+
+	/** The min rate. */
+	private final double minRate;
+
+	/** The decrease factor. */
+	private final double decreaseFactor;
+
+	/** The increase per success. */
+	private final double increasePerSuccess;
+
+	/** The partitions. */
+	private final ConcurrentMap<String, PartitionRate> partitions = new ConcurrentHashMap<String, PartitionRate>();
+
+	/**
+	 * Instantiates a new aimd rate limiter.
+	 *
+	 * @param maxRate the rate in requests per second above which a partition is no longer limited
+	 * @param minRate the lowest rate in requests per second a partition is limited to
+	 * @param decreaseFactor the factor applied to the rate of a throttled partition
+	 * @param increasePerSuccess the requests per second added to the rate of a limited partition by a success
+	 */
+	public AimdRateLimiter(final double maxRate, final double minRate, final double decreaseFactor,
+			final double increasePerSuccess) {
+		super();
+		if (minRate <= 0 || maxRate < minRate) {
+			throw new IllegalArgumentException("Min rate must be greater than zero and not above the max rate.");
+		}
+		if (decreaseFactor <= 0 || decreaseFactor >= 1 || increasePerSuccess <= 0) {
+			throw new IllegalArgumentException("Decrease factor must be between 0 and 1, increase above 0.");
+		}
+		this.maxRate = maxRate;
+		this.minRate = minRate;
+		this.decreaseFactor = decreaseFactor;
+		this.increasePerSuccess = increasePerSuccess;
+	}
+
+	/**
+	 * Waits until a request may be sent to the given partition. An interrupt ends
+	 * the wait early and is kept on the thread.
+	 *
+	 * @param partition the partition
+	 * @return the time waited in nanos
+	 */
+	public long acquire(final String partition) {
+		final long waitNanos = reserve(partition, 0);
+		if (waitNanos > 0) {
+			try {
+				TimeUnit.NANOSECONDS.sleep(waitNanos);
+			} catch (InterruptedException interruptedEx) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		return waitNanos;
+	}
+
+	/**
+	 * Reserves a slot for a request to be sent to the given partition after the
+	 * given delay, without waiting. Used for the retries which the client sends
+	 * itself once their backoff delay has passed.
+	 *
+	 * @param partition the partition
+	 * @param delayNanos the nanos after which the request is sent at the earliest
+	 * @return the nanos to wait past the delay for the slot
+	 */
+	public long reserve(final String partition, final long delayNanos) {
+		PartitionRate partitionRate = partitions.get(partition);
+		if (partitionRate == null) {
+			if (partitions.size() >= MAX_TRACKED_PARTITIONS) {
+				dropUnlimitedPartitions();
+			}
+			final PartitionRate created = new PartitionRate();
+			partitionRate = partitions.putIfAbsent(partition, created);
+			if (partitionRate == null) {
+				partitionRate = created;
+			}
+		}
+		return partitionRate.reserve(System.nanoTime() + delayNanos);
+	}
+
+	/**
+	 * Records a throttling response of the given partition.
+	 *
+	 * @param partition the partition
+	 */
+	public void onThrottle(final String partition) {
+		final PartitionRate partitionRate = partitions.get(partition);
+		if (partitionRate != null) {
+			partitionRate.decrease(System.nanoTime());
+		}
+	}
+
+	/**
+	 * Records a successful response of the given partition.
+	 *
+	 * @param partition the partition
+	 */
+	public void onSuccess(final String partition) {
+		final PartitionRate partitionRate = partitions.get(partition);
+		if (partitionRate != null) {
+			partitionRate.increase();
+		}
+	}
+
+	/**
+	 * Gets the rate of the given partition.
+	 *
+	 * @param partition the partition
+	 * @return the requests per second the partition is limited to, infinity if not limited
+	 */
+	public double getRate(final String partition) {
+		final PartitionRate partitionRate = partitions.get(partition);
+		return partitionRate == null ? Double.POSITIVE_INFINITY : partitionRate.getRate();
+	}
+
+	/**
+	 * Gets the limited partition count.
+	 *
+	 * @return the number of partitions currently limited
+	 */
+	public int getLimitedPartitionCount() {
+		int limited = 0;
+		for (final PartitionRate partitionRate : partitions.values()) {
+			if (partitionRate.getRate() < Double.POSITIVE_INFINITY) {
+				limited++;
+			}
+		}
+		return limited;
+	}
+
+	/**
+	 * Drops the partitions which are not limited, they are tracked again on their next request.
+	 */
+	private void dropUnlimitedPartitions() {
+		final Iterator<PartitionRate> partitionRates = partitions.values().iterator();
+		while (partitionRates.hasNext()) {
+			if (partitionRates.next().getRate() == Double.POSITIVE_INFINITY) {
+				partitionRates.remove();
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "AimdRateLimiter [maxRate=" + maxRate + ", minRate=" + minRate + ", decreaseFactor=" + decreaseFactor
+				+ ", increasePerSuccess=" + increasePerSuccess + ", limitedPartitions=" + getLimitedPartitionCount()
+				+ "]";
+	}
+
+	/**
+	 * The Class PartitionRate.<br/>
+	 * Rate of one partition: the requests sent in the last second while it is not
+	 * limited, the time the next request may be sent at once it is.
+	 */
+	private final class PartitionRate {
+
+		/** The rate, infinity while not limited. */
+		private double rate = Double.POSITIVE_INFINITY;
+
+		/** The next free nanos. */
+		private long nextFreeNanos;
+
+		/** The last decrease nanos. */
+		private long lastDecreaseNanos;
+
+		/** The window start nanos. */
+		private long windowStartNanos = System.nanoTime();
+
+		/** The window count. */
+		private long windowCount;
+
+		/** The previous window rate. */
+		private double previousWindowRate;
+
+		/**
+		 * Reserves the next slot.
+		 *
+		 * @param nowNanos the now nanos
+		 * @return the nanos to wait for the slot
+		 */
+		public synchronized long reserve(final long nowNanos) {
+			final long elapsedNanos = nowNanos - windowStartNanos;
+			if (elapsedNanos >= NANOS_PER_SECOND) {
+				previousWindowRate = windowCount * NANOS_PER_SECOND / elapsedNanos;
+				windowStartNanos = nowNanos;
+				windowCount = 0;
+			}
+			windowCount++;
+			if (rate == Double.POSITIVE_INFINITY) {
+				return 0;
+			}
+			final long slotNanos = Math.max(nextFreeNanos, nowNanos);
+			nextFreeNanos = slotNanos + (long) (NANOS_PER_SECOND / rate);
+			return slotNanos - nowNanos;
+		}
+
+		/**
+		 * Decreases the rate, from the rate the requests were sent at when not limited yet.
+		 *
+		 * @param nowNanos the now nanos
+		 */
+		public synchronized void decrease(final long nowNanos) {
+			if (rate != Double.POSITIVE_INFINITY && nowNanos - lastDecreaseNanos < MIN_DECREASE_INTERVAL_NANOS) {
+				return;
+			}
+			final double sentRate = rate == Double.POSITIVE_INFINITY
+					? Math.max(previousWindowRate, windowCount) : rate;
+			rate = Math.max(minRate, Math.min(maxRate, sentRate) * decreaseFactor);
+			lastDecreaseNanos = nowNanos;
+		}
+
+		/**
+		 * Increases the rate, the limit is lifted at the max rate.
+		 */
+		public synchronized void increase() {
+			if (rate != Double.POSITIVE_INFINITY) {
+				rate += increasePerSuccess;
+				if (rate >= maxRate) {
+					rate = Double.POSITIVE_INFINITY;
+				}
+			}
+		}
+
+		/**
+		 * Gets the rate.
+		 *
+		 * @return the rate, infinity while not limited
+		 */
+		public synchronized double getRate() {
+			return rate;
+		}
+	}
+}
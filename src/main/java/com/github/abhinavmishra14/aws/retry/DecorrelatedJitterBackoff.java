@@ -0,0 +1,91 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.retry;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The Class DecorrelatedJitterBackoff.<br/>
+ * Each delay is drawn at random between the base delay and three times the
+ * previous delay, capped. Clients retrying together spread out instead of
+ * hitting the server again in lock step, and the delays still grow while the
+ * errors last.
+ *
+ * @author Abhinav kumar mishra
+ */
+public final class DecorrelatedJitterBackoff {
+
+	/** The base delay millis. */
+	private final long baseDelayMillis;
+
+	/** The max delay millis. */
+	private final long maxDelayMillis;
+
+	/**
+	 * Instantiates a new decorrelated jitter backoff.
+	 *
+	 * @param baseDelayMillis the base delay millis, also the delay before the first retry is drawn from
+	 * @param maxDelayMillis the max delay millis
+	 */
+	public DecorrelatedJitterBackoff(final long baseDelayMillis, final long maxDelayMillis) {
+		super();
+		if (baseDelayMillis < 1 || maxDelayMillis < baseDelayMillis) {
+			throw new IllegalArgumentException("Base delay must be greater than zero and not above the max delay.");
+		}
+		this.baseDelayMillis = baseDelayMillis;
+		this.maxDelayMillis = maxDelayMillis;
+	}
+
+	/**
+	 * Gets the delay before the next retry.
+	 *
+	 * @param previousDelayMillis the previous delay, 0 before the first retry
+	 * @return the delay in millis, between the base and the max delay
+	 */
+	public long nextDelayMillis(final long previousDelayMillis) {
+		final long upperMillis = Math.min(maxDelayMillis, Math.max(baseDelayMillis, previousDelayMillis) * 3);
+		return ThreadLocalRandom.current().nextLong(baseDelayMillis, upperMillis + 1);
+	}
+
+	/**
+	 * Gets the base delay millis.
+	 *
+	 * @return the base delay millis
+	 */
+	public long getBaseDelayMillis() {
+		return baseDelayMillis;
+	}
+
+	/**
+	 * Gets the max delay millis.
+	 *
+	 * @return the max delay millis
+	 */
+	public long getMaxDelayMillis() {
+		return maxDelayMillis;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "DecorrelatedJitterBackoff [baseDelayMillis=" + baseDelayMillis + ", maxDelayMillis="
+				+ maxDelayMillis + "]";
+	}
+}
@@ -0,0 +1,123 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.retry;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The Class RetryBudget.<br/>
+ * Token bucket bounding the retries of a client: a retry takes a token, a
+ * success gives back a fraction of one. While the server is healthy the bucket
+ * stays full, during a brownout it drains and the requests fail fast instead of
+ * multiplying the load with retries.
+ *
+ * @author Abhinav kumar mishra
+ */
+public final class RetryBudget {
+
+	/** The Constant MILLI_TOKENS. Tokens are counted in thousandths for the fractional refill. */
+	private static final long MILLI_TOKENS = 1000;
+
+	/** The capacity in milli tokens. */
+	private final long capacity;
+
+	/** The refill per success in milli tokens. */
+	private final long refillPerSuccess;
+
+	/** The available milli tokens. */
+	private final AtomicLong available;
+
+	/** The rejected count. */
+	private final AtomicLong rejectedCount = new AtomicLong();
+
+	/**
+	 * Instantiates a new retry budget, full.
+	 *
+	 * @param capacity the number of retries allowed without a success in between
+	 * @param refillPerSuccess the retries earned by a successful request
+	 */
+	public RetryBudget(final int capacity, final double refillPerSuccess) {
+		super();
+		if (capacity < 0 || refillPerSuccess < 0) {
+			throw new IllegalArgumentException("Retry budget capacity and refill must not be negative.");
+		}
+		this.capacity = capacity * MILLI_TOKENS;
+		this.refillPerSuccess = Math.round(refillPerSuccess * MILLI_TOKENS);
+		this.available = new AtomicLong(this.capacity);
+	}
+
+	/**
+	 * Takes a token for a retry.
+	 *
+	 * @return true, if the retry may go ahead, false if the budget is spent
+	 */
+	public boolean tryAcquire() {
+		while (true) {
+			final long current = available.get();
+			if (current < MILLI_TOKENS) {
+				rejectedCount.incrementAndGet();
+				return false;
+			}
+			if (available.compareAndSet(current, current - MILLI_TOKENS)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Gives back a part of a token for a successful request.
+	 */
+	public void onSuccess() {
+		if (refillPerSuccess == 0) {
+			return;
+		}
+		while (true) {
+			final long current = available.get();
+			if (current >= capacity || available.compareAndSet(current, Math.min(capacity, current + refillPerSuccess))) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Gets the available retries.
+	 *
+	 * @return the number of retries which may go ahead now
+	 */
+	public double getAvailableRetries() {
+		return (double) available.get() / MILLI_TOKENS;
+	}
+
+	/**
+	 * Gets the rejected count.
+	 *
+	 * @return the number of retries refused because the budget was spent
+	 */
+	public long getRejectedCount() {
+		return rejectedCount.get();
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "RetryBudget [availableRetries=" + getAvailableRetries() + ", capacity=" + capacity / MILLI_TOKENS
+				+ ", rejectedCount=" + rejectedCount + "]";
+	}
+}
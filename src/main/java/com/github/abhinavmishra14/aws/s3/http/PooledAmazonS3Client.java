@@ -0,0 +1,253 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.s3.http;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.pool.ConnPoolControl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.auth.AWSCredentialsProvider;
+import com.amazonaws.http.IdleConnectionReaper;
+import com.amazonaws.regions.Regions;
+import com.amazonaws.services.s3.AmazonS3Client;
+import com.amazonaws.services.s3.S3ClientOptions;
+import com.amazonaws.services.s3.internal.Constants;
+import com.amazonaws.util.AwsHostNameUtils;
+import com.github.abhinavmishra14.aws.s3.presign.BatchUrlPresigner;
+import com.github.abhinavmishra14.aws.util.AWSUtilConstants;
+import com.github.abhinavmishra14.aws.util.ConnectionPoolConfig;
+import com.github.abhinavmishra14.aws.util.ConnectionPoolStats;
+
+/**
+ * The Class PooledAmazonS3Client.<br/>
+ * An AmazonS3Client which reports the usage of its http connection pool, see
+ * {@link #getConnectionPoolStats()}.<br/>
+ * The SDK does not expose the pool of a client, it is found among the pools the
+ * SDK registers with its idle connection reaper while the client is created.
+ *
+ * @author Abhinav kumar mishra
+ */
+public final class PooledAmazonS3Client extends AmazonS3Client {
+
+	/** The Constant LOGGER. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(PooledAmazonS3Client.class);
+
+	/** The Constant UNKNOWN_REGION. Cached for the buckets whose location could not be read. */
+	private static final String UNKNOWN_REGION = "";
+
+	/** The connection pool, null if it could not be found. */
+	private ConnPoolControl<?> connectionPool;
+
+	/** The path style access flag, the SDK does not expose the options of a client. */
+	private volatile boolean pathStyleAccess;
+
+	/** The batch url presigners by region. */
+	private final Map<String, BatchUrlPresigner> batchUrlPresigners = new HashMap<String, BatchUrlPresigner>();
+
+	/** The endpoint of the batch url presigners. */
+	private URI presignerEndpoint;
+
+	/** The path style access flag of the batch url presigners. */
+	private boolean presignerPathStyleAccess;
+
+	/** The regions of the buckets, least recently used dropped first. */
+	private final Map<String, String> bucketRegions = Collections.synchronizedMap(
+			new LinkedHashMap<String, String>(16, 0.75f, true) {
+
+				/** The Constant serialVersionUID. */
+				private static final long serialVersionUID = 1L;
+
+				/* (non-Javadoc)
+				 * @see java.util.LinkedHashMap#removeEldestEntry(java.util.Map.Entry)
+				 */
+				@Override
+				protected boolean removeEldestEntry(final Map.Entry<String, String> eldest) {
+					return size() > AWSUtilConstants.BUCKET_REGION_CACHE_SIZE;
+				}
+			});
+
+	/**
+	 * Instantiates a new pooled amazon s3 client.
+	 *
+	 * @param credentialsProvider the credentials provider
+	 * @param clientConfiguration the client configuration
+	 */
+	private PooledAmazonS3Client(final AWSCredentialsProvider credentialsProvider,
+			final ClientConfiguration clientConfiguration) {
+		super(credentialsProvider, clientConfiguration);
+	}
+
+	/**
+	 * Creates a new client.
+	 *
+	 * @param credentialsProvider the credentials provider
+	 * @param clientConfiguration the client configuration, the reaper must be enabled (the default)
+	 * @return the pooled amazon s3 client
+	 */
+	public static PooledAmazonS3Client create(final AWSCredentialsProvider credentialsProvider,
+			final ClientConfiguration clientConfiguration) {
+		// Registrations are synchronized on the reaper class, holding its lock keeps
+		// the pools of clients created by other threads out of the difference
+		synchronized (IdleConnectionReaper.class) {
+			final Set<HttpClientConnectionManager> registered = Collections
+					.newSetFromMap(new IdentityHashMap<HttpClientConnectionManager, Boolean>());
+			registered.addAll(IdleConnectionReaper.getRegisteredConnectionManagers());
+			final PooledAmazonS3Client s3client = new PooledAmazonS3Client(credentialsProvider, clientConfiguration);
+			for (final HttpClientConnectionManager connectionManager : IdleConnectionReaper
+					.getRegisteredConnectionManagers()) {
+				if (!registered.contains(connectionManager) && connectionManager instanceof ConnPoolControl) {
+					s3client.connectionPool = (ConnPoolControl<?>) connectionManager;
+				}
+			}
+			return s3client;
+		}
+	}
+
+	/**
+	 * Creates the client configuration from the given connection pool config.
+	 *
+	 * @param connectionPoolConfig the connection pool config
+	 * @return the client configuration
+	 */
+	public static ClientConfiguration newClientConfiguration(final ConnectionPoolConfig connectionPoolConfig) {
+		final ClientConfiguration clientConfiguration = new ClientConfiguration();
+		clientConfiguration.setMaxConnections(connectionPoolConfig.getMaxConnections());
+		clientConfiguration.setConnectionTimeout(connectionPoolConfig.getConnectionTimeoutMillis());
+		clientConfiguration.setSocketTimeout(connectionPoolConfig.getSocketTimeoutMillis());
+		clientConfiguration.setConnectionTTL(connectionPoolConfig.getConnectionTtlMillis());
+		clientConfiguration.setConnectionMaxIdleMillis(connectionPoolConfig.getConnectionMaxIdleMillis());
+		clientConfiguration.setUseTcpKeepAlive(connectionPoolConfig.isTcpKeepAlive());
+		// TCP_NODELAY is always set by the SDK
+		clientConfiguration.setSocketBufferSizeHints(connectionPoolConfig.getSocketSendBufferSize(),
+				connectionPoolConfig.getSocketReceiveBufferSize());
+		clientConfiguration.setUseReaper(true);
+		return clientConfiguration;
+	}
+
+	/**
+	 * Gets the connection pool stats.
+	 *
+	 * @return the connection pool stats, null if the pool could not be found
+	 */
+	public ConnectionPoolStats getConnectionPoolStats() {
+		return connectionPool == null ? null : new ConnectionPoolStats(connectionPool);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.amazonaws.services.s3.AmazonS3Client#setS3ClientOptions(com.amazonaws.services.s3.S3ClientOptions)
+	 */
+	@Override
+	public synchronized void setS3ClientOptions(final S3ClientOptions clientOptions) {
+		super.setS3ClientOptions(clientOptions);
+		pathStyleAccess = clientOptions.isPathStyleAccess();
+	}
+
+	/**
+	 * Gets a presigner of urls of the bucket for the current endpoint, region
+	 * and addressing style of this client, signing with its credentials.<br/>
+	 * The region is the signer region override when set, else the region named
+	 * by the endpoint. The global endpoint and the endpoints outside of AWS name
+	 * none, the location of the bucket is then read once and cached, as the SDK
+	 * does when it presigns a url. The presigners are reused until the endpoint
+	 * or the options of the client change.
+	 *
+	 * @param bucketName the bucket name
+	 * @return the batch url presigner, null if the region of the bucket is unknown
+	 */
+	public BatchUrlPresigner getBatchUrlPresigner(final String bucketName) {
+		final URI clientEndpoint = endpoint;
+		String region = getSignerRegionOverride();
+		if (region == null) {
+			region = getEndpointRegion(clientEndpoint);
+		}
+		if (region == null) {
+			region = getBucketRegion(bucketName);
+		}
+		if (region == null) {
+			return null;
+		}
+		synchronized (this) {
+			if (!clientEndpoint.equals(presignerEndpoint) || pathStyleAccess != presignerPathStyleAccess) {
+				batchUrlPresigners.clear();
+				presignerEndpoint = clientEndpoint;
+				presignerPathStyleAccess = pathStyleAccess;
+			}
+			BatchUrlPresigner batchUrlPresigner = batchUrlPresigners.get(region);
+			if (batchUrlPresigner == null) {
+				batchUrlPresigner = new BatchUrlPresigner(awsCredentialsProvider, clientEndpoint, region,
+						pathStyleAccess);
+				batchUrlPresigners.put(region, batchUrlPresigner);
+			}
+			return batchUrlPresigner;
+		}
+	}
+
+	/**
+	 * Gets the region named by a regional AWS endpoint.
+	 *
+	 * @param clientEndpoint the endpoint
+	 * @return the region, null for the global and accelerate endpoints and the endpoints outside of AWS
+	 */
+	private String getEndpointRegion(final URI clientEndpoint) {
+		final String host = clientEndpoint.getHost();
+		if (host == null || !host.endsWith(".amazonaws.com") || host.endsWith(Constants.S3_HOSTNAME)
+				|| host.endsWith(Constants.S3_ACCELERATE_HOSTNAME)) {
+			return null;
+		}
+		return AwsHostNameUtils.parseRegion(host, getEndpointPrefix());
+	}
+
+	/**
+	 * Gets the region of the bucket from its location, read once.
+	 *
+	 * @param bucketName the bucket name
+	 * @return the region, null if the location could not be read
+	 */
+	private String getBucketRegion(final String bucketName) {
+		String region = bucketRegions.get(bucketName);
+		if (region == null) {
+			try {
+				final String location = getBucketLocation(bucketName);
+				if (location == null || location.isEmpty() || "US".equals(location)) {
+					region = Regions.US_EAST_1.getName();
+				} else if ("EU".equals(location)) {
+					region = Regions.EU_WEST_1.getName();
+				} else {
+					region = location;
+				}
+			} catch (AmazonClientException clientEx) {
+				LOGGER.warn("Location of bucket {} could not be read, its urls are presigned by the SDK: {}",
+						bucketName, clientEx.getMessage());
+				region = UNKNOWN_REGION;
+			}
+			bucketRegions.put(bucketName, region);
+		}
+		return UNKNOWN_REGION.equals(region) ? null : region;
+	}
+}
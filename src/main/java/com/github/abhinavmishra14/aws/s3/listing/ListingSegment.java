@@ -0,0 +1,122 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.s3.listing;
+
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.github.abhinavmishra14.aws.util.SortedDirectoryWalker;
+
+/**
+ * The Class ListingSegment.<br/>
+ * A contiguous, sorted part of the key space found by {@link ShardedObjectLister}:
+ * either a single object found while discovering the key space, or a shard which
+ * holds every key under a common prefix.
+ *
+ * @author Abhinav kumar mishra
+ */
+final class ListingSegment implements Comparable<ListingSegment> {
+
+	/** The start key, the object key or the shard prefix. */
+	private final String startKey;
+
+	/** The object, null for a shard. */
+	private final S3ObjectSummary object;
+
+	/**
+	 * Instantiates a new listing segment.
+	 *
+	 * @param startKey the start key
+	 * @param object the object
+	 */
+	private ListingSegment(final String startKey, final S3ObjectSummary object) {
+		super();
+		this.startKey = startKey;
+		this.object = object;
+	}
+
+	/**
+	 * Create a segment for a single object.
+	 *
+	 * @param object the object
+	 * @return the listing segment
+	 */
+	public static ListingSegment forObject(final S3ObjectSummary object) {
+		return new ListingSegment(object.getKey(), object);
+	}
+
+	/**
+	 * Create a segment for a shard.
+	 *
+	 * @param prefix the common prefix of the shard
+	 * @return the listing segment
+	 */
+	public static ListingSegment forShard(final String prefix) {
+		return new ListingSegment(prefix, null);
+	}
+
+	/**
+	 * Checks if the segment is a shard.
+	 *
+	 * @return true, if shard
+	 */
+	public boolean isShard() {
+		return object == null;
+	}
+
+	/**
+	 * Gets the shard prefix.
+	 *
+	 * @return the shard prefix
+	 */
+	public String getPrefix() {
+		return startKey;
+	}
+
+	/**
+	 * Gets the object.
+	 *
+	 * @return the object, null for a shard
+	 */
+	public S3ObjectSummary getObject() {
+		return object;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Comparable#compareTo(java.lang.Object)
+	 */
+	@Override
+	public int compareTo(final ListingSegment other) {
+		// Segments are disjoint, so ordering by the start key orders all the keys the way S3 lists them
+		return SortedDirectoryWalker.compareKeys(startKey, other.startKey);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(final Object obj) {
+		return obj instanceof ListingSegment && startKey.equals(((ListingSegment) obj).startKey);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		return startKey.hashCode();
+	}
+}
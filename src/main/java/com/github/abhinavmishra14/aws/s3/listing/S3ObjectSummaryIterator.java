@@ -0,0 +1,85 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.s3.listing;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.github.abhinavmishra14.aws.util.AWSUtilConstants;
+import com.github.abhinavmishra14.aws.util.AbstractPrefetchingPageIterator;
+
+/**
+ * The Class S3ObjectSummaryIterator.<br/>
+ * Lazy iterator over the object summaries of a bucket, pages are listed with
+ * ListObjects markers and the next page is prefetched in the background.
+ *
+ * @author Abhinav kumar mishra
+ */
+public final class S3ObjectSummaryIterator extends AbstractPrefetchingPageIterator<S3ObjectSummary> {
+
+	/** The s3client. */
+	private final AmazonS3 s3client;
+
+	/** The list objects request of the first page. */
+	private final ListObjectsRequest listObjectsRequest;
+
+	/** The last listing, null before the first page. */
+	private ObjectListing lastListing;
+
+	/**
+	 * Instantiates a new s3 object summary iterator.
+	 *
+	 * @param s3client the s3client
+	 * @param executor the executor used to prefetch pages
+	 * @param bucketName the bucket name
+	 * @param prefix the prefix, null for the whole bucket
+	 * @param delimiter the delimiter, null to list recursively
+	 */
+	public S3ObjectSummaryIterator(final AmazonS3 s3client, final ExecutorService executor, final String bucketName,
+			final String prefix, final String delimiter) {
+		super(executor);
+		this.s3client = s3client;
+		this.listObjectsRequest = new ListObjectsRequest().withBucketName(bucketName).withPrefix(prefix)
+				.withDelimiter(delimiter).withMaxKeys(AWSUtilConstants.MAX_KEYS_PER_REQUEST);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.util.AbstractPrefetchingPageIterator#fetchPage()
+	 */
+	@Override
+	protected List<S3ObjectSummary> fetchPage() {
+		if (lastListing == null) {
+			lastListing = s3client.listObjects(listObjectsRequest);
+		} else {
+			lastListing = s3client.listNextBatchOfObjects(lastListing);
+		}
+		return lastListing.getObjectSummaries();
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.util.AbstractPrefetchingPageIterator#hasMorePages()
+	 */
+	@Override
+	protected boolean hasMorePages() {
+		return lastListing.isTruncated();
+	}
+}
@@ -0,0 +1,414 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.s3.listing;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.github.abhinavmishra14.aws.util.AWSUtilConstants;
+
+/**
+ * The Class ShardedObjectIterator.<br/>
+ * Iterator over the result of a {@link ShardedObjectLister} listing. At most
+ * parallelism shards are listed at the same time, each shard worker hands its
+ * pages over through a small bounded queue, so memory use does not depend on the
+ * size of the bucket. A worker never blocks on a full queue, it parks the shard
+ * and gives its pool thread back, the shard is submitted again once the reader
+ * takes a page off the queue.<br/>
+ * In ordered mode the shards are started and read in key order, each with its
+ * own queue. In unordered mode all the shards share one queue and objects are
+ * returned as soon as any shard lists them.<br/>
+ * Listing failures are thrown from {@link #hasNext()}. Close the iterator when it
+ * is not read till the end, otherwise the parked shards keep their pages. The
+ * iterator is not thread safe.
+ *
+ * @author Abhinav kumar mishra
+ */
+public final class ShardedObjectIterator implements Iterator<S3ObjectSummary>, Closeable {
+
+	/** The s3client. */
+	private final AmazonS3 s3client;
+
+	/** The executor. */
+	private final ExecutorService executor;
+
+	/** The bucket name. */
+	private final String bucketName;
+
+	/** The segments, sorted by key. */
+	private final List<ListingSegment> segments;
+
+	/** The parallelism. */
+	private final int parallelism;
+
+	/** The ordered flag. */
+	private final boolean ordered;
+
+	/** The started shards which are not fully read yet, in start order. */
+	private final Deque<ShardRun> startedShards = new ArrayDeque<ShardRun>();
+
+	/** The shards parked on a full queue, also the lock of the hand over. */
+	private final List<ShardRun> parkedShards = new ArrayList<ShardRun>();
+
+	/** The shared queue used in unordered mode. */
+	private final BlockingQueue<ShardPage> sharedQueue;
+
+	/** The index of the next segment to read, ordered mode only. */
+	private int nextSegment;
+
+	/** The index of the next segment to start. */
+	private int nextShardToStart;
+
+	/** The shard being read, ordered mode only. */
+	private ShardRun currentShard;
+
+	/** The current page. */
+	private Iterator<S3ObjectSummary> currentPage;
+
+	/** The closed flag. */
+	private boolean closed;
+
+	/**
+	 * Instantiates a new sharded object iterator.
+	 *
+	 * @param s3client the s3client
+	 * @param executor the executor
+	 * @param bucketName the bucket name
+	 * @param segments the segments sorted by key
+	 * @param parallelism the parallelism
+	 * @param ordered the ordered flag
+	 */
+	ShardedObjectIterator(final AmazonS3 s3client, final ExecutorService executor, final String bucketName,
+			final List<ListingSegment> segments, final int parallelism, final boolean ordered) {
+		super();
+		this.s3client = s3client;
+		this.executor = executor;
+		this.bucketName = bucketName;
+		this.segments = segments;
+		this.parallelism = parallelism;
+		this.ordered = ordered;
+		if (ordered) {
+			this.sharedQueue = null;
+			this.currentPage = Collections.<S3ObjectSummary> emptyList().iterator();
+		} else {
+			this.sharedQueue = new ArrayBlockingQueue<ShardPage>(parallelism
+					* AWSUtilConstants.LISTING_PAGES_BUFFERED);
+			// Objects found while discovering the key space are returned first
+			final List<S3ObjectSummary> discovered = new ArrayList<S3ObjectSummary>();
+			for (final ListingSegment segment : segments) {
+				if (!segment.isShard()) {
+					discovered.add(segment.getObject());
+				}
+			}
+			this.currentPage = discovered.iterator();
+		}
+		startShards();
+	}
+
+	/* (non-Javadoc)
+	 * @see java.util.Iterator#hasNext()
+	 */
+	@Override
+	public boolean hasNext() {
+		if (closed) {
+			return false;
+		}
+		try {
+			while (!currentPage.hasNext()) {
+				if (!(ordered ? advanceOrdered() : advanceUnordered())) {
+					return false;
+				}
+			}
+			return true;
+		} catch (InterruptedException intrEx) {
+			Thread.currentThread().interrupt();
+			close();
+			throw new AmazonClientException("Interrupted while listing " + bucketName, intrEx);
+		} catch (AmazonClientException clientEx) {
+			close();
+			throw clientEx;
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see java.util.Iterator#next()
+	 */
+	@Override
+	public S3ObjectSummary next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		return currentPage.next();
+	}
+
+	/* (non-Javadoc)
+	 * @see java.util.Iterator#remove()
+	 */
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException("Listing is read only");
+	}
+
+	/**
+	 * Stop the shard workers which are still running.
+	 */
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		for (final ShardRun shardRun : startedShards) {
+			shardRun.future.cancel(true);
+		}
+		if (currentShard != null) {
+			currentShard.future.cancel(true);
+		}
+		startedShards.clear();
+	}
+
+	/**
+	 * Move to the next page in key order.
+	 *
+	 * @return false, if there are no more objects
+	 * @throws InterruptedException the interrupted exception
+	 */
+	private boolean advanceOrdered() throws InterruptedException {
+		if (currentShard != null) {
+			final ShardPage shardPage = currentShard.queue.take();
+			resumeParked(currentShard);
+			shardPage.rethrowError();
+			currentPage = shardPage.objects.iterator();
+			if (shardPage.last) {
+				currentShard = null;
+				startShards();
+			}
+			return true;
+		}
+		if (nextSegment >= segments.size()) {
+			return false;
+		}
+		final ListingSegment segment = segments.get(nextSegment++);
+		if (segment.isShard()) {
+			// Shards are started in key order, the oldest one is the next to read
+			currentShard = startedShards.poll();
+		} else {
+			currentPage = Collections.singletonList(segment.getObject()).iterator();
+		}
+		return true;
+	}
+
+	/**
+	 * Move to the next page in arrival order.
+	 *
+	 * @return false, if there are no more objects
+	 * @throws InterruptedException the interrupted exception
+	 */
+	private boolean advanceUnordered() throws InterruptedException {
+		if (startedShards.isEmpty()) {
+			return false;
+		}
+		final ShardPage shardPage = sharedQueue.take();
+		resumeParked(null);
+		shardPage.rethrowError();
+		currentPage = shardPage.objects.iterator();
+		if (shardPage.last) {
+			startedShards.remove(shardPage.shardRun);
+			startShards();
+		}
+		return true;
+	}
+
+	/**
+	 * Start shards in key order until parallelism shards are running.
+	 */
+	private void startShards() {
+		final int running = startedShards.size() + (currentShard == null ? 0 : 1);
+		int toStart = parallelism - running;
+		while (toStart > 0 && nextShardToStart < segments.size()) {
+			final ListingSegment segment = segments.get(nextShardToStart++);
+			if (segment.isShard()) {
+				final ShardRun shardRun = new ShardRun(segment.getPrefix(), ordered
+						? new ArrayBlockingQueue<ShardPage>(AWSUtilConstants.LISTING_PAGES_BUFFERED) : sharedQueue);
+				shardRun.future = executor.submit(shardRun);
+				startedShards.add(shardRun);
+				toStart--;
+			}
+		}
+	}
+
+	/**
+	 * Submit the parked shards again, now that their queue has room.
+	 *
+	 * @param shardRun the shard whose own queue has room, null for all the shards
+	 *            sharing the queue of the unordered mode
+	 */
+	private void resumeParked(final ShardRun shardRun) {
+		synchronized (parkedShards) {
+			if (shardRun == null) {
+				for (final ShardRun parkedShard : parkedShards) {
+					parkedShard.future = executor.submit(parkedShard);
+				}
+				parkedShards.clear();
+			} else if (parkedShards.remove(shardRun)) {
+				shardRun.future = executor.submit(shardRun);
+			}
+		}
+	}
+
+	/**
+	 * The Class ShardRun.<br/>
+	 * Lists one shard and offers its pages to the queue, the last page is
+	 * flagged. When the queue is full the shard is parked with the page it could
+	 * not hand over and the listing to continue from, and the run returns.
+	 */
+	private final class ShardRun implements Runnable {
+
+		/** The prefix. */
+		private final String prefix;
+
+		/** The queue. */
+		private final BlockingQueue<ShardPage> queue;
+
+		/** The future. */
+		private Future<?> future;
+
+		/** The listing to continue from, null before the first page. */
+		private ObjectListing objectListing;
+
+		/** The page which is not handed over yet. */
+		private ShardPage pendingPage;
+
+		/**
+		 * Instantiates a new shard run.
+		 *
+		 * @param prefix the prefix
+		 * @param queue the queue
+		 */
+		ShardRun(final String prefix, final BlockingQueue<ShardPage> queue) {
+			this.prefix = prefix;
+			this.queue = queue;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.lang.Runnable#run()
+		 */
+		@Override
+		public void run() {
+			while (!Thread.currentThread().isInterrupted()) {
+				if (pendingPage == null) {
+					pendingPage = listNextPage();
+				}
+				synchronized (parkedShards) {
+					if (!queue.offer(pendingPage)) {
+						// Checked under the lock the reader takes after a page is taken
+						parkedShards.add(this);
+						return;
+					}
+				}
+				if (pendingPage.last) {
+					return;
+				}
+				pendingPage = null;
+			}
+			// Listing was closed
+		}
+
+		/**
+		 * List the next page of the shard.
+		 *
+		 * @return the page, the failure of the shard as a last page
+		 */
+		private ShardPage listNextPage() {
+			try {
+				if (objectListing == null) {
+					objectListing = s3client.listObjects(new ListObjectsRequest().withBucketName(bucketName)
+							.withPrefix(prefix.isEmpty() ? null : prefix)
+							.withMaxKeys(AWSUtilConstants.MAX_KEYS_PER_REQUEST));
+				} else {
+					objectListing = s3client.listNextBatchOfObjects(objectListing);
+				}
+				return new ShardPage(this, objectListing.getObjectSummaries(), !objectListing.isTruncated(), null);
+			} catch (RuntimeException runEx) {
+				final AmazonClientException error = runEx instanceof AmazonClientException
+						? (AmazonClientException) runEx
+						: new AmazonClientException("Failed to list shard " + prefix, runEx);
+				return new ShardPage(this, Collections.<S3ObjectSummary> emptyList(), true, error);
+			}
+		}
+	}
+
+	/**
+	 * The Class ShardPage.<br/>
+	 * One page of a shard, or the failure of the shard.
+	 */
+	private static final class ShardPage {
+
+		/** The shard run. */
+		private final ShardRun shardRun;
+
+		/** The objects. */
+		private final List<S3ObjectSummary> objects;
+
+		/** The last page flag. */
+		private final boolean last;
+
+		/** The error. */
+		private final AmazonClientException error;
+
+		/**
+		 * Instantiates a new shard page.
+		 *
+		 * @param shardRun the shard run
+		 * @param objects the objects
+		 * @param last the last page flag
+		 * @param error the error
+		 */
+		ShardPage(final ShardRun shardRun, final List<S3ObjectSummary> objects, final boolean last,
+				final AmazonClientException error) {
+			this.shardRun = shardRun;
+			this.objects = objects;
+			this.last = last;
+			this.error = error;
+		}
+
+		/**
+		 * Rethrow the error of the shard, if any.
+		 */
+		public void rethrowError() {
+			if (error != null) {
+				throw error;
+			}
+		}
+	}
+}
@@ -0,0 +1,172 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.s3.listing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.github.abhinavmishra14.aws.util.AWSUtilConstants;
+
+/**
+ * The Class ShardedObjectLister.<br/>
+ * Lists a bucket with several ListObjects calls at the same time. The key space
+ * is first split into shards using the common prefixes returned for a delimiter,
+ * going one level deeper while there are fewer shards than the parallelism.
+ * The shards are then listed concurrently on the given executor and merged into
+ * one {@link ShardedObjectIterator}, either in key order or in arrival order.<br/>
+ * Levels holding more than {@link AWSUtilConstants#MAX_DISCOVERY_OBJECTS} objects
+ * or {@link AWSUtilConstants#MAX_DISCOVERY_PREFIXES} common prefixes are not split
+ * and are listed as one shard, so a flat key space falls back to a serial listing.
+ * No level is listed once there are as many shards as the parallelism, which
+ * bounds the requests sent before the first object is returned.
+ *
+ * @author Abhinav kumar mishra
+ */
+public final class ShardedObjectLister {
+
+	/** The Constant LOGGER. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(ShardedObjectLister.class);
+
+	/** The s3client. */
+	private final AmazonS3 s3client;
+
+	/** The executor. */
+	private final ExecutorService executor;
+
+	/** The parallelism. */
+	private final int parallelism;
+
+	/**
+	 * Instantiates a new sharded object lister.
+	 *
+	 * @param s3client the s3client
+	 * @param executor the executor running the shard listings
+	 * @param parallelism the maximum number of shards listed at the same time
+	 */
+	public ShardedObjectLister(final AmazonS3 s3client, final ExecutorService executor, final int parallelism) {
+		super();
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("Parallelism must be greater than zero.");
+		}
+		this.s3client = s3client;
+		this.executor = executor;
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * List the objects under the prefix.<br/>
+	 * The key space is discovered on the calling thread, the shards are listed in
+	 * the background as the returned iterator is consumed. Close the iterator when
+	 * it is not read till the end.
+	 *
+	 * @param bucketName the bucket name
+	 * @param prefix the prefix, null for the whole bucket
+	 * @param delimiter the delimiter used to find the shards
+	 * @param ordered true to return the objects in key order, false to return them as soon as they are listed
+	 * @return the sharded object iterator
+	 * @throws AmazonClientException the amazon client exception
+	 */
+	public ShardedObjectIterator list(final String bucketName, final String prefix, final String delimiter,
+			final boolean ordered) throws AmazonClientException {
+		final List<ListingSegment> segments = discoverSegments(bucketName, prefix, delimiter);
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("Listing bucket {} with {} segments, parallelism: {}, ordered: {}", bucketName,
+					segments.size(), parallelism, ordered);
+		}
+		return new ShardedObjectIterator(s3client, executor, bucketName, segments, parallelism, ordered);
+	}
+
+	/**
+	 * Split the key space under the prefix into segments.
+	 *
+	 * @param bucketName the bucket name
+	 * @param prefix the prefix
+	 * @param delimiter the delimiter
+	 * @return the segments sorted by key
+	 */
+	private List<ListingSegment> discoverSegments(final String bucketName, final String prefix,
+			final String delimiter) {
+		final List<ListingSegment> segments = new ArrayList<ListingSegment>();
+		List<String> frontier = Collections.singletonList(prefix == null ? "" : prefix);
+		for (int depth = 0; depth < AWSUtilConstants.MAX_DISCOVERY_DEPTH && frontier.size() < parallelism; depth++) {
+			final List<String> nextFrontier = new ArrayList<String>();
+			for (int index = 0; index < frontier.size(); index++) {
+				final String levelPrefix = frontier.get(index);
+				if (nextFrontier.size() + frontier.size() - index >= parallelism) {
+					// Enough shards, the prefixes left are listed as they are
+					nextFrontier.add(levelPrefix);
+				} else if (!expandLevel(bucketName, levelPrefix, delimiter, segments, nextFrontier)) {
+					segments.add(ListingSegment.forShard(levelPrefix));
+				}
+			}
+			frontier = nextFrontier;
+		}
+		for (final String shardPrefix : frontier) {
+			segments.add(ListingSegment.forShard(shardPrefix));
+		}
+		Collections.sort(segments);
+		return segments;
+	}
+
+	/**
+	 * List one level of the key space.
+	 *
+	 * @param bucketName the bucket name
+	 * @param levelPrefix the level prefix
+	 * @param delimiter the delimiter
+	 * @param segments the segments, receives the objects of the level
+	 * @param commonPrefixes receives the common prefixes of the level
+	 * @return false, if the level holds too many objects or common prefixes to be split
+	 */
+	private boolean expandLevel(final String bucketName, final String levelPrefix, final String delimiter,
+			final List<ListingSegment> segments, final List<String> commonPrefixes) {
+		final List<ListingSegment> levelObjects = new ArrayList<ListingSegment>();
+		final List<String> levelPrefixes = new ArrayList<String>();
+		ObjectListing objectListing = s3client.listObjects(new ListObjectsRequest().withBucketName(bucketName)
+				.withPrefix(levelPrefix.isEmpty() ? null : levelPrefix).withDelimiter(delimiter)
+				.withMaxKeys(AWSUtilConstants.MAX_KEYS_PER_REQUEST));
+		while (true) {
+			for (final S3ObjectSummary objectSummary : objectListing.getObjectSummaries()) {
+				levelObjects.add(ListingSegment.forObject(objectSummary));
+			}
+			levelPrefixes.addAll(objectListing.getCommonPrefixes());
+			if (levelObjects.size() > AWSUtilConstants.MAX_DISCOVERY_OBJECTS
+					|| levelPrefixes.size() > AWSUtilConstants.MAX_DISCOVERY_PREFIXES) {
+				LOGGER.debug("Prefix '{}' holds too many objects or prefixes to be split", levelPrefix);
+				return false;
+			}
+			if (!objectListing.isTruncated()) {
+				break;
+			}
+			objectListing = s3client.listNextBatchOfObjects(objectListing);
+		}
+		segments.addAll(levelObjects);
+		commonPrefixes.addAll(levelPrefixes);
+		return true;
+	}
+}
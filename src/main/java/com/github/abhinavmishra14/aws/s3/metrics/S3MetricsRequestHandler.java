@@ -0,0 +1,263 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.s3.metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.Request;
+import com.amazonaws.Response;
+import com.amazonaws.handlers.HandlerContextKey;
+import com.amazonaws.handlers.RequestHandler2;
+import com.amazonaws.http.AmazonHttpClient;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CopyObjectRequest;
+import com.amazonaws.services.s3.model.CopyPartRequest;
+import com.amazonaws.services.s3.model.CreateBucketRequest;
+import com.amazonaws.services.s3.model.DeleteBucketRequest;
+import com.amazonaws.services.s3.model.DeleteObjectRequest;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
+import com.amazonaws.services.s3.model.DeleteVersionRequest;
+import com.amazonaws.services.s3.model.GetBucketAclRequest;
+import com.amazonaws.services.s3.model.GetBucketLocationRequest;
+import com.amazonaws.services.s3.model.GetObjectAclRequest;
+import com.amazonaws.services.s3.model.GetObjectMetadataRequest;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.HeadBucketRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.ListBucketsRequest;
+import com.amazonaws.services.s3.model.ListMultipartUploadsRequest;
+import com.amazonaws.services.s3.model.ListNextBatchOfObjectsRequest;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ListPartsRequest;
+import com.amazonaws.services.s3.model.ListVersionsRequest;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.SetBucketAclRequest;
+import com.amazonaws.services.s3.model.SetObjectAclRequest;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.github.abhinavmishra14.aws.metrics.S3MetricsCollector;
+import com.github.abhinavmishra14.aws.metrics.S3Operation;
+
+/**
+ * The Class S3MetricsRequestHandler.<br/>
+ * Reports every request of an Amazon S3 client to a {@link S3MetricsCollector}.
+ * The latency covers the retries done by the client and ends when the response
+ * headers are read, object content streamed afterwards is not included. The
+ * number of retries is taken from the retry header the client adds to retried
+ * requests.
+ *
+ * @author Abhinav kumar mishra
+ */
+public final class S3MetricsRequestHandler extends RequestHandler2 {
+
+	/** The Constant OPERATION_KEY. */
+	private static final HandlerContextKey<S3Operation> OPERATION_KEY = new HandlerContextKey<S3Operation>(
+			"S3Operation");
+
+	/** The Constant START_NANOS_KEY. */
+	private static final HandlerContextKey<Long> START_NANOS_KEY = new HandlerContextKey<Long>("StartNanos");
+
+	/** The Constant CONTENT_LENGTH. */
+	private static final String CONTENT_LENGTH = "Content-Length";
+
+	/** The Constant OPERATIONS. Operations by request class. */
+	private static final Map<Class<?>, S3Operation> OPERATIONS = new HashMap<Class<?>, S3Operation>();
+
+	static {
+		OPERATIONS.put(PutObjectRequest.class, S3Operation.PUT);
+		OPERATIONS.put(UploadPartRequest.class, S3Operation.PUT);
+		OPERATIONS.put(GetObjectRequest.class, S3Operation.GET);
+		OPERATIONS.put(GetObjectMetadataRequest.class, S3Operation.HEAD);
+		OPERATIONS.put(ListObjectsRequest.class, S3Operation.LIST);
+		OPERATIONS.put(ListNextBatchOfObjectsRequest.class, S3Operation.LIST);
+		OPERATIONS.put(ListVersionsRequest.class, S3Operation.LIST);
+		OPERATIONS.put(ListBucketsRequest.class, S3Operation.LIST);
+		OPERATIONS.put(ListMultipartUploadsRequest.class, S3Operation.LIST);
+		OPERATIONS.put(DeleteObjectRequest.class, S3Operation.DELETE);
+		OPERATIONS.put(DeleteObjectsRequest.class, S3Operation.DELETE);
+		OPERATIONS.put(DeleteVersionRequest.class, S3Operation.DELETE);
+		OPERATIONS.put(CopyObjectRequest.class, S3Operation.COPY);
+		OPERATIONS.put(CopyPartRequest.class, S3Operation.COPY);
+		OPERATIONS.put(InitiateMultipartUploadRequest.class, S3Operation.MULTIPART);
+		OPERATIONS.put(CompleteMultipartUploadRequest.class, S3Operation.MULTIPART);
+		OPERATIONS.put(AbortMultipartUploadRequest.class, S3Operation.MULTIPART);
+		OPERATIONS.put(ListPartsRequest.class, S3Operation.MULTIPART);
+		OPERATIONS.put(GetObjectAclRequest.class, S3Operation.ACL);
+		OPERATIONS.put(SetObjectAclRequest.class, S3Operation.ACL);
+		OPERATIONS.put(GetBucketAclRequest.class, S3Operation.ACL);
+		OPERATIONS.put(SetBucketAclRequest.class, S3Operation.ACL);
+		OPERATIONS.put(CreateBucketRequest.class, S3Operation.BUCKET);
+		OPERATIONS.put(DeleteBucketRequest.class, S3Operation.BUCKET);
+		OPERATIONS.put(HeadBucketRequest.class, S3Operation.BUCKET);
+		OPERATIONS.put(GetBucketLocationRequest.class, S3Operation.BUCKET);
+	}
+
+	/** The metrics collector. */
+	private final S3MetricsCollector metricsCollector;
+
+	/**
+	 * Instantiates a new s3 metrics request handler.
+	 *
+	 * @param metricsCollector the metrics collector
+	 */
+	public S3MetricsRequestHandler(final S3MetricsCollector metricsCollector) {
+		super();
+		this.metricsCollector = metricsCollector;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.amazonaws.handlers.RequestHandler2#beforeRequest(com.amazonaws.Request)
+	 */
+	@Override
+	public void beforeRequest(final Request<?> request) {
+		final S3Operation operation = operationOf(request);
+		request.addHandlerContext(OPERATION_KEY, operation);
+		request.addHandlerContext(START_NANOS_KEY, System.nanoTime());
+		metricsCollector.operationStarted(operation);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.amazonaws.handlers.RequestHandler2#afterResponse(com.amazonaws.Request, com.amazonaws.Response)
+	 */
+	@Override
+	public void afterResponse(final Request<?> request, final Response<?> response) {
+		final S3Operation operation = request.getHandlerContext(OPERATION_KEY);
+		if (operation == null) {
+			return;
+		}
+		recordRetries(request, operation);
+		final long bytesReceived = response == null || response.getHttpResponse() == null ? 0
+				: contentLength(response.getHttpResponse().getHeaders());
+		metricsCollector.operationSucceeded(operation, elapsedNanos(request), contentLength(request.getHeaders()),
+				bytesReceived);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.amazonaws.handlers.RequestHandler2#afterError(com.amazonaws.Request, com.amazonaws.Response, java.lang.Exception)
+	 */
+	@Override
+	public void afterError(final Request<?> request, final Response<?> response, final Exception excp) {
+		final S3Operation operation = request.getHandlerContext(OPERATION_KEY);
+		if (operation == null) {
+			return;
+		}
+		recordRetries(request, operation);
+		final String errorCode;
+		if (excp instanceof AmazonServiceException && ((AmazonServiceException) excp).getErrorCode() != null) {
+			errorCode = ((AmazonServiceException) excp).getErrorCode();
+		} else if (excp instanceof AmazonServiceException) {
+			errorCode = String.valueOf(((AmazonServiceException) excp).getStatusCode());
+		} else {
+			errorCode = excp.getClass().getSimpleName();
+		}
+		metricsCollector.operationFailed(operation, elapsedNanos(request), errorCode);
+	}
+
+	/**
+	 * Gets the operation of a request, ACL sub resource requests are ACL
+	 * operations whatever their request class.
+	 *
+	 * @param request the request
+	 * @return the operation
+	 */
+	private static S3Operation operationOf(final Request<?> request) {
+		if (request.getParameters().containsKey("acl")) {
+			return S3Operation.ACL;
+		}
+		final AmazonWebServiceRequest originalRequest = request.getOriginalRequest();
+		final S3Operation operation = originalRequest == null ? null : OPERATIONS.get(originalRequest.getClass());
+		if (operation != null) {
+			return operation;
+		}
+		switch (request.getHttpMethod()) {
+		case GET:
+			return S3Operation.GET;
+		case HEAD:
+			return S3Operation.HEAD;
+		case PUT:
+			return S3Operation.PUT;
+		case DELETE:
+			return S3Operation.DELETE;
+		default:
+			return S3Operation.OTHER;
+		}
+	}
+
+	/**
+	 * Records the retries of the request, if any.
+	 *
+	 * @param request the request
+	 * @param operation the operation
+	 */
+	private void recordRetries(final Request<?> request, final S3Operation operation) {
+		// The client sets 'retries/last backoff/capacity' on retried requests only
+		final String retryInfo = request.getHeaders().get(AmazonHttpClient.HEADER_SDK_RETRY_INFO);
+		if (retryInfo != null) {
+			final int slash = retryInfo.indexOf('/');
+			try {
+				final int retries = Integer.parseInt(slash == -1 ? retryInfo : retryInfo.substring(0, slash));
+				if (retries > 0) {
+					metricsCollector.operationRetried(operation, retries);
+				}
+			} catch (NumberFormatException numFormatEx) {
+				// Unknown format, the retries are not recorded
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Gets the nanos elapsed since the request started.
+	 *
+	 * @param request the request
+	 * @return the elapsed nanos
+	 */
+	private static long elapsedNanos(final Request<?> request) {
+		final Long startNanos = request.getHandlerContext(START_NANOS_KEY);
+		return startNanos == null ? 0 : System.nanoTime() - startNanos;
+	}
+
+	/**
+	 * Gets the content length from the headers, whatever the case of the header name.
+	 *
+	 * @param headers the headers
+	 * @return the content length, 0 if missing or invalid
+	 */
+	private static long contentLength(final Map<String, String> headers) {
+		String value = headers.get(CONTENT_LENGTH);
+		if (value == null) {
+			for (final Map.Entry<String, String> header : headers.entrySet()) {
+				if (CONTENT_LENGTH.equalsIgnoreCase(header.getKey())) {
+					value = header.getValue();
+					break;
+				}
+			}
+		}
+		if (value == null) {
+			return 0;
+		}
+		try {
+			return Long.parseLong(value.trim());
+		} catch (NumberFormatException numFormatEx) {
+			return 0;
+		}
+	}
+}
@@ -0,0 +1,374 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.s3.presign;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import com.amazonaws.auth.AWSCredentials;
+import com.amazonaws.auth.AWSCredentialsProvider;
+import com.amazonaws.auth.AWSSessionCredentials;
+import com.amazonaws.services.s3.internal.BucketNameUtils;
+import com.github.abhinavmishra14.aws.util.AWSUtil;
+
+/**
+ * The Class BatchUrlPresigner.<br/>
+ * Signs GET urls of objects with the query string form of AWS Signature
+ * Version 4, many keys at a time. The parts shared by the urls of a batch
+ * (timestamp, credential scope and query string) are built once, the signing
+ * key is derived once per day and the HMAC and SHA-256 instances are kept per
+ * thread, so that a url costs one digest, one HMAC and its string.<br/>
+ * The urls carry the payload hash UNSIGNED-PAYLOAD and sign the host header only,
+ * as the urls presigned by the SDK with the V4 signer.<br/>
+ * This class is thread safe.
+ *
+ * @author Abhinav kumar mishra
+ */
+public final class BatchUrlPresigner {
+
+	/** The Constant MAX_EXPIRES_SECONDS. A V4 presigned url is valid for at most 7 days. */
+	public static final long MAX_EXPIRES_SECONDS = 7 * 24 * 60 * 60;
+
+	/** The Constant ALGORITHM. */
+	private static final String ALGORITHM = "AWS4-HMAC-SHA256";
+
+	/** The Constant SERVICE_NAME. */
+	private static final String SERVICE_NAME = "s3";
+
+	/** The Constant TERMINATOR. */
+	private static final String TERMINATOR = "aws4_request";
+
+	/** The Constant HMAC_SHA256. */
+	private static final String HMAC_SHA256 = "HmacSHA256";
+
+	/** The Constant HEX_DIGITS. */
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+	/** The Constant UPPER_HEX_DIGITS, of the percent encoding. */
+	private static final char[] UPPER_HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+	/** The Constant AMZ_DATE_FORMAT. */
+	private static final DateTimeFormatter AMZ_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'")
+			.withZone(ZoneOffset.UTC);
+
+	/** The Constant MACS, HMAC-SHA256 instances are not thread safe and costly to look up. */
+	private static final ThreadLocal<Mac> MACS = new ThreadLocal<Mac>() {
+		@Override
+		protected Mac initialValue() {
+			try {
+				return Mac.getInstance(HMAC_SHA256);
+			} catch (GeneralSecurityException secEx) {
+				throw new IllegalStateException("HmacSHA256 is not available", secEx);
+			}
+		}
+	};
+
+	/** The Constant DIGESTS. */
+	private static final ThreadLocal<MessageDigest> DIGESTS = new ThreadLocal<MessageDigest>() {
+		@Override
+		protected MessageDigest initialValue() {
+			try {
+				return MessageDigest.getInstance("SHA-256");
+			} catch (GeneralSecurityException secEx) {
+				throw new IllegalStateException("SHA-256 is not available", secEx);
+			}
+		}
+	};
+
+	/** The credentials provider, asked once per batch so that rotated credentials are used. */
+	private final AWSCredentialsProvider credentialsProvider;
+
+	/** The scheme of the endpoint. */
+	private final String scheme;
+
+	/** The host of the endpoint, with its port when not the default one. */
+	private final String host;
+
+	/** The region. */
+	private final String region;
+
+	/** The path style access flag. */
+	private final boolean pathStyleAccess;
+
+	/** The signing key of the last batch. */
+	private volatile SigningKey signingKey;
+
+	/**
+	 * Instantiates a new batch url presigner.
+	 *
+	 * @param credentialsProvider the credentials provider
+	 * @param endpoint the endpoint, e.g. https://s3.amazonaws.com
+	 * @param region the region signed for, e.g. us-east-1
+	 * @param pathStyleAccess true, to put the bucket name in the path instead of the host name
+	 */
+	public BatchUrlPresigner(final AWSCredentialsProvider credentialsProvider, final URI endpoint,
+			final String region, final boolean pathStyleAccess) {
+		super();
+		AWSUtil.notNull(credentialsProvider, "AWSCredentialsProvider is null!");
+		AWSUtil.notNull(endpoint, "Endpoint is null!");
+		AWSUtil.notNull(region, "Region is null!");
+		this.credentialsProvider = credentialsProvider;
+		this.scheme = endpoint.getScheme() == null ? "https" : endpoint.getScheme();
+		this.host = endpoint.getPort() == -1 ? endpoint.getHost() : endpoint.getHost() + ':' + endpoint.getPort();
+		this.region = region;
+		this.pathStyleAccess = pathStyleAccess;
+	}
+
+	/**
+	 * Presign the GET urls of the given keys.
+	 *
+	 * @param bucketName the bucket name
+	 * @param keys the keys
+	 * @param expiration the expiration, at most 7 days ahead
+	 * @return the urls, in the order of the keys
+	 */
+	public List<String> presign(final String bucketName, final Collection<String> keys, final Date expiration) {
+		AWSUtil.notNull(expiration, "Expiration is null!");
+		// The signature time has a precision of a second, the urls must not expire before the expiration
+		final long signedAtMillis = System.currentTimeMillis() / 1000 * 1000;
+		return presign(bucketName, keys, signedAtMillis, (expiration.getTime() - signedAtMillis + 999) / 1000);
+	}
+
+	/**
+	 * Presign the GET urls of the given keys, signed at the given time.<br/>
+	 * The urls expire the given seconds after that time. Signing a key twice at
+	 * the same time with the same credentials gives the same url.
+	 *
+	 * @param bucketName the bucket name
+	 * @param keys the keys
+	 * @param signedAtMillis the time of the signature
+	 * @param expiresSeconds the seconds the urls are valid for
+	 * @return the urls, in the order of the keys
+	 */
+	public List<String> presign(final String bucketName, final Collection<String> keys, final long signedAtMillis,
+			final long expiresSeconds) {
+		AWSUtil.notNull(bucketName, "Bucket name is null!");
+		AWSUtil.notNull(keys, "Keys are null!");
+		if (expiresSeconds <= 0 || expiresSeconds > MAX_EXPIRES_SECONDS) {
+			throw new IllegalArgumentException("Expiration must be within 7 days of the signature.");
+		}
+		final AWSCredentials credentials = credentialsProvider.getCredentials();
+		final String amzDate = AMZ_DATE_FORMAT.format(Instant.ofEpochMilli(signedAtMillis));
+		final String dateStamp = amzDate.substring(0, 8);
+		final Mac mac = MACS.get();
+		try {
+			mac.init(new SecretKeySpec(getSigningKey(credentials.getAWSSecretKey(), dateStamp), HMAC_SHA256));
+		} catch (GeneralSecurityException secEx) {
+			throw new IllegalStateException("Failed to initialize the signature", secEx);
+		}
+		final String scope = dateStamp + '/' + region + '/' + SERVICE_NAME + '/' + TERMINATOR;
+
+		// Shared by all the urls of the batch
+		final StringBuilder query = new StringBuilder(256).append("X-Amz-Algorithm=").append(ALGORITHM)
+				.append("&X-Amz-Credential=");
+		appendUriEncoded(query, credentials.getAWSAccessKeyId() + '/' + scope, false);
+		query.append("&X-Amz-Date=").append(amzDate).append("&X-Amz-Expires=").append(expiresSeconds);
+		if (credentials instanceof AWSSessionCredentials) {
+			query.append("&X-Amz-Security-Token=");
+			appendUriEncoded(query, ((AWSSessionCredentials) credentials).getSessionToken(), false);
+		}
+		query.append("&X-Amz-SignedHeaders=host");
+		final boolean virtualHost = !pathStyleAccess && BucketNameUtils.isDNSBucketName(bucketName);
+		final String hostName = virtualHost ? bucketName + '.' + host : host;
+		final StringBuilder pathPrefix = new StringBuilder("/");
+		if (!virtualHost) {
+			appendUriEncoded(pathPrefix, bucketName, false);
+			pathPrefix.append('/');
+		}
+		final String canonicalSuffix = "\n" + query + "\nhost:" + hostName + "\n\nhost\nUNSIGNED-PAYLOAD";
+		final String stringToSignPrefix = ALGORITHM + '\n' + amzDate + '\n' + scope + '\n';
+		final String urlPrefix = scheme + "://" + hostName;
+		final String urlQuery = "?" + query + "&X-Amz-Signature=";
+
+		final MessageDigest digest = DIGESTS.get();
+		final List<String> urls = new ArrayList<String>(keys.size());
+		final StringBuilder path = new StringBuilder(128);
+		final StringBuilder buffer = new StringBuilder(512);
+		for (final String key : keys) {
+			path.setLength(0);
+			path.append(pathPrefix);
+			appendUriEncoded(path, key, true);
+
+			buffer.setLength(0);
+			buffer.append("GET\n").append(path).append(canonicalSuffix);
+			final byte[] canonicalRequestHash = digest.digest(buffer.toString().getBytes(StandardCharsets.UTF_8));
+
+			buffer.setLength(0);
+			buffer.append(stringToSignPrefix);
+			appendHex(buffer, canonicalRequestHash);
+			final byte[] signature = mac.doFinal(buffer.toString().getBytes(StandardCharsets.UTF_8));
+
+			buffer.setLength(0);
+			buffer.append(urlPrefix).append(path).append(urlQuery);
+			appendHex(buffer, signature);
+			urls.add(buffer.toString());
+		}
+		return urls;
+	}
+
+	/**
+	 * Gets the signing key of the day, derived again only when the day or the
+	 * secret key changed since the last batch. Only the digest of the secret
+	 * key is kept to tell it changed.
+	 *
+	 * @param secretKey the secret key
+	 * @param dateStamp the date stamp, yyyyMMdd
+	 * @return the signing key
+	 * @throws GeneralSecurityException the general security exception
+	 */
+	private byte[] getSigningKey(final String secretKey, final String dateStamp) throws GeneralSecurityException {
+		final byte[] secretKeyDigest = DIGESTS.get().digest(secretKey.getBytes(StandardCharsets.UTF_8));
+		final SigningKey cachedKey = signingKey;
+		if (cachedKey != null && cachedKey.dateStamp.equals(dateStamp)
+				&& MessageDigest.isEqual(cachedKey.secretKeyDigest, secretKeyDigest)) {
+			return cachedKey.key;
+		}
+		final byte[] dateKey = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), dateStamp);
+		final byte[] regionKey = hmac(dateKey, region);
+		final byte[] serviceKey = hmac(regionKey, SERVICE_NAME);
+		final byte[] key = hmac(serviceKey, TERMINATOR);
+		signingKey = new SigningKey(dateStamp, secretKeyDigest, key);
+		return key;
+	}
+
+	/**
+	 * Compute the HMAC-SHA256 of the data.
+	 *
+	 * @param key the key
+	 * @param data the data
+	 * @return the hmac
+	 * @throws GeneralSecurityException the general security exception
+	 */
+	private static byte[] hmac(final byte[] key, final String data) throws GeneralSecurityException {
+		final Mac mac = MACS.get();
+		mac.init(new SecretKeySpec(key, HMAC_SHA256));
+		return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Append the lower case hex of the bytes.
+	 *
+	 * @param builder the builder
+	 * @param bytes the bytes
+	 */
+	private static void appendHex(final StringBuilder builder, final byte[] bytes) {
+		for (final byte value : bytes) {
+			builder.append(HEX_DIGITS[(value >> 4) & 0xF]).append(HEX_DIGITS[value & 0xF]);
+		}
+	}
+
+	/**
+	 * Append the value percent encoded as required by the V4 signature: every
+	 * byte of its UTF-8 form is encoded, except the unreserved characters and,
+	 * in a path, the slashes.
+	 *
+	 * @param builder the builder
+	 * @param value the value
+	 * @param path true, to keep the slashes
+	 */
+	private static void appendUriEncoded(final StringBuilder builder, final String value, final boolean path) {
+		for (int index = 0; index < value.length(); index++) {
+			final char character = value.charAt(index);
+			if (isUnreserved(character) || (path && character == '/')) {
+				builder.append(character);
+			} else if (character < 0x80) {
+				appendEscaped(builder, character);
+			} else if (Character.isHighSurrogate(character) && index + 1 < value.length()
+					&& Character.isLowSurrogate(value.charAt(index + 1))) {
+				final int codePoint = Character.toCodePoint(character, value.charAt(++index));
+				appendEscaped(builder, 0xF0 | (codePoint >> 18));
+				appendEscaped(builder, 0x80 | ((codePoint >> 12) & 0x3F));
+				appendEscaped(builder, 0x80 | ((codePoint >> 6) & 0x3F));
+				appendEscaped(builder, 0x80 | (codePoint & 0x3F));
+			} else if (Character.isSurrogate(character)) {
+				// A lone surrogate has no UTF-8 form, String.getBytes replaces it by '?'
+				appendEscaped(builder, '?');
+			} else if (character < 0x800) {
+				appendEscaped(builder, 0xC0 | (character >> 6));
+				appendEscaped(builder, 0x80 | (character & 0x3F));
+			} else {
+				appendEscaped(builder, 0xE0 | (character >> 12));
+				appendEscaped(builder, 0x80 | ((character >> 6) & 0x3F));
+				appendEscaped(builder, 0x80 | (character & 0x3F));
+			}
+		}
+	}
+
+	/**
+	 * Checks if the character is unreserved.
+	 *
+	 * @param character the character
+	 * @return true, for A-Z, a-z, 0-9, '-', '.', '_' and '~'
+	 */
+	private static boolean isUnreserved(final char character) {
+		return (character >= 'A' && character <= 'Z') || (character >= 'a' && character <= 'z')
+				|| (character >= '0' && character <= '9') || character == '-' || character == '.'
+				|| character == '_' || character == '~';
+	}
+
+	/**
+	 * Append the percent encoding of a byte.
+	 *
+	 * @param builder the builder
+	 * @param value the byte value, 0 to 255
+	 */
+	private static void appendEscaped(final StringBuilder builder, final int value) {
+		builder.append('%').append(UPPER_HEX_DIGITS[value >> 4]).append(UPPER_HEX_DIGITS[value & 0xF]);
+	}
+
+	/**
+	 * The Class SigningKey.<br/>
+	 * The key derived from the secret key for a day, the region and the service.
+	 */
+	private static final class SigningKey {
+
+		/** The date stamp. */
+		private final String dateStamp;
+
+		/** The SHA-256 digest of the secret key. */
+		private final byte[] secretKeyDigest;
+
+		/** The key. */
+		private final byte[] key;
+
+		/**
+		 * Instantiates a new signing key.
+		 *
+		 * @param dateStamp the date stamp
+		 * @param secretKeyDigest the SHA-256 digest of the secret key
+		 * @param key the key
+		 */
+		SigningKey(final String dateStamp, final byte[] secretKeyDigest, final byte[] key) {
+			this.dateStamp = dateStamp;
+			this.secretKeyDigest = secretKeyDigest;
+			this.key = key;
+		}
+	}
+}
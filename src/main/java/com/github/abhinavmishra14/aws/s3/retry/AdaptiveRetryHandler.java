@@ -0,0 +1,272 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.s3.retry;
+
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.Request;
+import com.amazonaws.Response;
+import com.amazonaws.handlers.HandlerContextKey;
+import com.amazonaws.handlers.RequestHandler2;
+import com.amazonaws.retry.PredefinedRetryPolicies;
+import com.amazonaws.retry.RetryPolicy;
+import com.amazonaws.retry.RetryUtils;
+import com.github.abhinavmishra14.aws.retry.AdaptiveRetryConfig;
+import com.github.abhinavmishra14.aws.retry.AimdRateLimiter;
+import com.github.abhinavmishra14.aws.retry.DecorrelatedJitterBackoff;
+import com.github.abhinavmishra14.aws.retry.RetryBudget;
+import com.github.abhinavmishra14.aws.util.AWSUtilConstants;
+
+/**
+ * The Class AdaptiveRetryHandler.<br/>
+ * Retry policy and request handler of an Amazon S3 client which:
+ * <ul>
+ * <li>waits a decorrelated jitter delay before each retry, a longer one after a 503 SlowDown</li>
+ * <li>retries only while the {@link RetryBudget} of the client allows it, so a
+ * brownout does not turn into a retry storm</li>
+ * <li>paces the requests of each bucket prefix with an {@link AimdRateLimiter}
+ * fed by the throttling responses, the retries included: the SDK calls the
+ * handler once per request, the slot of a retry is reserved with its delay</li>
+ * </ul>
+ * Set {@link #newRetryPolicy()} on the client configuration and add the handler
+ * to the client, {@code AwsS3IamServiceImpl.builder().withRetryConfig(...)} does both.<br/>
+ * The SDK retries on the thread which sent the request, the delay of the
+ * previous retry is kept in a thread local between two retries.
+ *
+ * @author Abhinav kumar mishra
+ */
+public final class AdaptiveRetryHandler extends RequestHandler2
+		implements RetryPolicy.RetryCondition, RetryPolicy.BackoffStrategy {
+
+	/** The Constant LOGGER. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(AdaptiveRetryHandler.class);
+
+	/** The Constant PARTITION_KEY. */
+	private static final HandlerContextKey<String> PARTITION_KEY = new HandlerContextKey<String>("Partition");
+
+	/** The Constant CURRENT_PARTITION. Partition of the request sent by the thread, for its retries. */
+	private static final ThreadLocal<String> CURRENT_PARTITION = new ThreadLocal<String>();
+
+	/** The Constant PREVIOUS_DELAY. Delay before the previous retry of the request sent by the thread. */
+	private static final ThreadLocal<Long> PREVIOUS_DELAY = new ThreadLocal<Long>();
+
+	/** The Constant THROTTLE_STATUS. */
+	private static final int THROTTLE_STATUS = 503;
+
+	/** The retry config. */
+	private final AdaptiveRetryConfig retryConfig;
+
+	/** The backoff. */
+	private final DecorrelatedJitterBackoff backoff;
+
+	/** The throttle backoff. */
+	private final DecorrelatedJitterBackoff throttleBackoff;
+
+	/** The retry budget. */
+	private final RetryBudget retryBudget;
+
+	/** The rate limiter. */
+	private final AimdRateLimiter rateLimiter;
+
+	/**
+	 * Instantiates a new adaptive retry handler.
+	 *
+	 * @param retryConfig the retry config
+	 */
+	public AdaptiveRetryHandler(final AdaptiveRetryConfig retryConfig) {
+		super();
+		this.retryConfig = retryConfig;
+		this.backoff = new DecorrelatedJitterBackoff(retryConfig.getBaseDelayMillis(),
+				retryConfig.getMaxDelayMillis());
+		this.throttleBackoff = new DecorrelatedJitterBackoff(
+				Math.min(retryConfig.getThrottleBaseDelayMillis(), retryConfig.getMaxDelayMillis()),
+				retryConfig.getMaxDelayMillis());
+		this.retryBudget = new RetryBudget(retryConfig.getRetryBudgetCapacity(), retryConfig.getRetryBudgetRefill());
+		this.rateLimiter = new AimdRateLimiter(retryConfig.getMaxRequestsPerSecond(),
+				retryConfig.getMinRequestsPerSecond(), retryConfig.getRateDecreaseFactor(),
+				retryConfig.getRateIncreasePerSuccess());
+	}
+
+	/**
+	 * Creates the retry policy to set on the client configuration.
+	 *
+	 * @return the retry policy
+	 */
+	public RetryPolicy newRetryPolicy() {
+		return new RetryPolicy(this, this, retryConfig.getMaxErrorRetries(), false);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.amazonaws.handlers.RequestHandler2#beforeRequest(com.amazonaws.Request)
+	 */
+	@Override
+	public void beforeRequest(final Request<?> request) {
+		final String partition = partitionOf(request);
+		request.addHandlerContext(PARTITION_KEY, partition);
+		CURRENT_PARTITION.set(partition);
+		PREVIOUS_DELAY.remove();
+		rateLimiter.acquire(partition);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.amazonaws.handlers.RequestHandler2#afterResponse(com.amazonaws.Request, com.amazonaws.Response)
+	 */
+	@Override
+	public void afterResponse(final Request<?> request, final Response<?> response) {
+		rateLimiter.onSuccess(request.getHandlerContext(PARTITION_KEY));
+		retryBudget.onSuccess();
+		clearRetryState();
+	}
+
+	/* (non-Javadoc)
+	 * @see com.amazonaws.handlers.RequestHandler2#afterError(com.amazonaws.Request, com.amazonaws.Response, java.lang.Exception)
+	 */
+	@Override
+	public void afterError(final Request<?> request, final Response<?> response, final Exception excp) {
+		// Throttles followed by a retry are recorded before the retry
+		if (isThrottle(excp)) {
+			rateLimiter.onThrottle(request.getHandlerContext(PARTITION_KEY));
+		}
+		clearRetryState();
+	}
+
+	/* (non-Javadoc)
+	 * @see com.amazonaws.retry.RetryPolicy.RetryCondition#shouldRetry(com.amazonaws.AmazonWebServiceRequest, com.amazonaws.AmazonClientException, int)
+	 */
+	@Override
+	public boolean shouldRetry(final AmazonWebServiceRequest originalRequest, final AmazonClientException exception,
+			final int retriesAttempted) {
+		if (!PredefinedRetryPolicies.DEFAULT_RETRY_CONDITION.shouldRetry(originalRequest, exception,
+				retriesAttempted)) {
+			return false;
+		}
+		if (retryBudget.tryAcquire()) {
+			return true;
+		}
+		LOGGER.warn("Retry budget spent, not retrying: {}", exception.getMessage());
+		return false;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.amazonaws.retry.RetryPolicy.BackoffStrategy#delayBeforeNextRetry(com.amazonaws.AmazonWebServiceRequest, com.amazonaws.AmazonClientException, int)
+	 */
+	@Override
+	public long delayBeforeNextRetry(final AmazonWebServiceRequest originalRequest,
+			final AmazonClientException exception, final int retriesAttempted) {
+		final boolean throttled = isThrottle(exception);
+		final String partition = CURRENT_PARTITION.get();
+		if (throttled && partition != null) {
+			rateLimiter.onThrottle(partition);
+		}
+		final Long previousDelay = PREVIOUS_DELAY.get();
+		final long delayMillis = (throttled ? throttleBackoff : backoff)
+				.nextDelayMillis(previousDelay == null ? 0 : previousDelay);
+		PREVIOUS_DELAY.set(delayMillis);
+		final long retryDelayMillis = partition == null ? delayMillis
+				: delayMillis + TimeUnit.NANOSECONDS.toMillis(
+						rateLimiter.reserve(partition, TimeUnit.MILLISECONDS.toNanos(delayMillis)));
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("Retry {} of {} in {} ms", retriesAttempted + 1, partition, retryDelayMillis);
+		}
+		return retryDelayMillis;
+	}
+
+	/**
+	 * Gets the retry budget.
+	 *
+	 * @return the retry budget
+	 */
+	public RetryBudget getRetryBudget() {
+		return retryBudget;
+	}
+
+	/**
+	 * Gets the rate limiter.
+	 *
+	 * @return the rate limiter
+	 */
+	public AimdRateLimiter getRateLimiter() {
+		return rateLimiter;
+	}
+
+	/**
+	 * Gets the partition of a request: the host and the first segment of the path
+	 * followed by the first prefix of the key, if any. With path style access
+	 * that is the bucket and the first prefix, with virtual host style access the
+	 * first two levels of the key.
+	 *
+	 * @param request the request
+	 * @return the partition
+	 */
+	public static String partitionOf(final Request<?> request) {
+		String resourcePath = request.getResourcePath() == null ? "" : request.getResourcePath();
+		if (resourcePath.startsWith(AWSUtilConstants.SEPARATOR)) {
+			resourcePath = resourcePath.substring(1);
+		}
+		final int firstEnd = resourcePath.indexOf(AWSUtilConstants.SEPARATOR);
+		final int prefixEnd = firstEnd < 0 ? -1 : resourcePath.indexOf(AWSUtilConstants.SEPARATOR, firstEnd + 1);
+		final String partitionPath;
+		if (firstEnd < 0) {
+			partitionPath = resourcePath;
+		} else if (prefixEnd < 0) {
+			// Keys without a prefix share the partition of their bucket
+			partitionPath = resourcePath.substring(0, firstEnd);
+		} else {
+			partitionPath = resourcePath.substring(0, prefixEnd);
+		}
+		return request.getEndpoint().getHost() + AWSUtilConstants.SEPARATOR + partitionPath;
+	}
+
+	/**
+	 * Checks if the error is a throttling response, a 503 SlowDown of Amazon S3
+	 * or a throttling error code.
+	 *
+	 * @param excp the excp
+	 * @return true, if throttled
+	 */
+	private static boolean isThrottle(final Exception excp) {
+		if (excp instanceof AmazonServiceException) {
+			final AmazonServiceException serviceEx = (AmazonServiceException) excp;
+			return serviceEx.getStatusCode() == THROTTLE_STATUS || RetryUtils.isThrottlingException(serviceEx);
+		}
+		return false;
+	}
+
+	/**
+	 * Clears the retry state of the thread.
+	 */
+	private static void clearRetryState() {
+		CURRENT_PARTITION.remove();
+		PREVIOUS_DELAY.remove();
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "AdaptiveRetryHandler [retryConfig=" + retryConfig + ", retryBudget=" + retryBudget
+				+ ", rateLimiter=" + rateLimiter + "]";
+	}
+}
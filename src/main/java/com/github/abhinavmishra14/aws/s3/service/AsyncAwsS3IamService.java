@@ -0,0 +1,218 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.s3.service;
+
+import java.io.Closeable;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import com.amazonaws.services.s3.model.CopyObjectResult;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest.KeyVersion;
+import com.amazonaws.services.s3.model.DeleteObjectsResult;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.Permission;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.PutObjectResult;
+import com.amazonaws.services.s3.model.S3Object;
+import com.github.abhinavmishra14.aws.util.BulkDeleteSummary;
+
+/**
+ * The Interface AsyncAwsS3IamService.<br/>
+ * Non blocking counterpart of {@link AwsS3IamService}: every operation runs on
+ * the executor of the service and returns a {@link CompletableFuture}, the
+ * calling thread never waits on S3.<br/>
+ * The number of operations in flight is limited. When the limit is reached new
+ * operations are not queued, the returned future is completed exceptionally
+ * with a {@link java.util.concurrent.RejectedExecutionException} so that callers
+ * can shed load. Failures of S3 calls complete the future with the
+ * {@link com.amazonaws.AmazonClientException} thrown by the call, wrapped in a
+ * {@link java.util.concurrent.CompletionException} by dependent stages.
+ *
+ * @author Abhinav kumar mishra
+ */
+public interface AsyncAwsS3IamService extends Closeable {
+
+	/**
+	 * Gets the object.<br/>
+	 * The content stream of the returned object must be closed by the caller.
+	 *
+	 * @param getObjRequest the get object request
+	 * @return the future of the s3 object
+	 */
+	CompletableFuture<S3Object> getObject(final GetObjectRequest getObjRequest);
+
+	/**
+	 * Download object to a file.
+	 *
+	 * @param bucketName the bucket name
+	 * @param key the key
+	 * @param filePath the file path
+	 * @return the future of the object metadata
+	 */
+	CompletableFuture<ObjectMetadata> downloadObject(final String bucketName, final String key,
+			final String filePath);
+
+	/**
+	 * Upload object.
+	 *
+	 * @param putObjectRequest the put object request
+	 * @return the future of the put object result
+	 */
+	CompletableFuture<PutObjectResult> uploadObject(final PutObjectRequest putObjectRequest);
+
+	/**
+	 * Upload object from a stream.<br/>
+	 * The stream is read on the executor of the service and is closed once uploaded.
+	 *
+	 * @param bucketName the bucket name
+	 * @param fileName the file name
+	 * @param inputStream the input stream
+	 * @return the future of the put object result
+	 */
+	CompletableFuture<PutObjectResult> uploadObject(final String bucketName, final String fileName,
+			final InputStream inputStream);
+
+	/**
+	 * Delete object.
+	 *
+	 * @param bucketName the bucket name
+	 * @param fileName the file name
+	 * @return the future completed once deleted
+	 */
+	CompletableFuture<Void> deleteObject(final String bucketName, final String fileName);
+
+	/**
+	 * Delete objects.
+	 *
+	 * @param bucketName the bucket name
+	 * @param keys the keys
+	 * @return the future of the delete objects result
+	 */
+	CompletableFuture<DeleteObjectsResult> deleteObjects(final String bucketName, final List<KeyVersion> keys);
+
+	/**
+	 * Delete directory.
+	 *
+	 * @param bucketName the bucket name
+	 * @param dirName the dir name
+	 * @return the future of the bulk delete summary
+	 */
+	CompletableFuture<BulkDeleteSummary> deleteDirectory(final String bucketName, final String dirName);
+
+	/**
+	 * Copy object.
+	 *
+	 * @param sourceBucketName the source bucket name
+	 * @param sourceKey the source key
+	 * @param destinationBucketName the destination bucket name
+	 * @param destinationKey the destination key
+	 * @return the future of the copy object result
+	 */
+	CompletableFuture<CopyObjectResult> copyObject(final String sourceBucketName, final String sourceKey,
+			final String destinationBucketName, final String destinationKey);
+
+	/**
+	 * List one page of objects.<br/>
+	 * Chain {@link #listNextBatchOfObjects(ObjectListing)} while the listing is
+	 * truncated to read the following pages.
+	 *
+	 * @param listObjectsRequest the list objects request
+	 * @return the future of the object listing
+	 */
+	CompletableFuture<ObjectListing> listObjects(final ListObjectsRequest listObjectsRequest);
+
+	/**
+	 * List the next page of objects.
+	 *
+	 * @param previousListing the previous listing, must be truncated
+	 * @return the future of the object listing
+	 */
+	CompletableFuture<ObjectListing> listNextBatchOfObjects(final ObjectListing previousListing);
+
+	/**
+	 * Generate a pre-signed object URL.
+	 *
+	 * @param bucketName the bucket name
+	 * @param fileName the file name
+	 * @param expires the expiry date
+	 * @return the future of the URL
+	 */
+	CompletableFuture<URL> generateObjectURL(final String bucketName, final String fileName, final Date expires);
+
+	/**
+	 * Check bucket permission.
+	 *
+	 * @param bucketName the bucket name
+	 * @param permission the permission
+	 * @return the future of true, if the permission is granted
+	 */
+	CompletableFuture<Boolean> checkBucketPermission(final String bucketName, final Permission permission);
+
+	/**
+	 * Check object permission.
+	 *
+	 * @param bucketName the bucket name
+	 * @param key the key
+	 * @param permission the permission
+	 * @return the future of true, if the permission is granted
+	 */
+	CompletableFuture<Boolean> checkObjectPermission(final String bucketName, final String key,
+			final Permission permission);
+
+	/**
+	 * Checks for write permission on bucket.
+	 *
+	 * @param bucketName the bucket name
+	 * @return the future of true, if the bucket is writable
+	 */
+	CompletableFuture<Boolean> hasWritePermissionOnBucket(final String bucketName);
+
+	/**
+	 * Checks for full control permission.
+	 *
+	 * @param bucketName the bucket name
+	 * @return the future of true, if full control is granted
+	 */
+	CompletableFuture<Boolean> hasFullControlPermission(final String bucketName);
+
+	/**
+	 * Gets the number of operations in flight.
+	 *
+	 * @return the operations submitted and not completed yet
+	 */
+	int getInFlightCount();
+
+	/**
+	 * Shutdown the service.<br/>
+	 * Stops the executor if it was created by the service. The wrapped
+	 * {@link AwsS3IamService} is not shut down, it belongs to the caller.
+	 */
+	void shutdown();
+
+	/**
+	 * Close the service, same as {@link #shutdown()}.
+	 */
+	@Override
+	void close();
+}
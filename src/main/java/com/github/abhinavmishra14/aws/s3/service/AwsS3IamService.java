@@ -17,12 +17,15 @@
  */
 package com.github.abhinavmishra14.aws.s3.service;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.util.Collection;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
 
 import com.amazonaws.AmazonClientException;
@@ -31,28 +34,47 @@ import com.amazonaws.services.s3.model.AccessControlList;
 import com.amazonaws.services.s3.model.AmazonS3Exception;
 import com.amazonaws.services.s3.model.Bucket;
 import com.amazonaws.services.s3.model.CannedAccessControlList;
+import com.amazonaws.services.s3.model.CopyObjectResult;
 import com.amazonaws.services.s3.model.DeleteObjectsRequest.KeyVersion;
 import com.amazonaws.services.s3.model.DeleteObjectsResult;
 import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.Grant;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ObjectListing;
 import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.Permission;
 import com.amazonaws.services.s3.model.PutObjectRequest;
 import com.amazonaws.services.s3.model.PutObjectResult;
 import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
 import com.amazonaws.services.s3.transfer.Transfer;
 import com.amazonaws.services.s3.transfer.Upload;
+import com.github.abhinavmishra14.aws.cache.ObjectCacheStats;
+import com.github.abhinavmishra14.aws.cache.PermissionCacheStats;
+import com.github.abhinavmishra14.aws.cache.PresignedUrlCacheStats;
+import com.github.abhinavmishra14.aws.s3.listing.ShardedObjectIterator;
+import com.github.abhinavmishra14.aws.s3.transfer.TransferPoolStats;
+import com.github.abhinavmishra14.aws.throttle.RequestThrottle;
+import com.github.abhinavmishra14.aws.upload.UploadResult;
+import com.github.abhinavmishra14.aws.util.BulkDeleteSummary;
+import com.github.abhinavmishra14.aws.util.ConnectionPoolStats;
+import com.github.abhinavmishra14.aws.util.DirectorySyncOptions;
+import com.github.abhinavmishra14.aws.util.DirectorySyncSummary;
+import com.github.abhinavmishra14.aws.util.DirectoryTransferSummary;
+import com.github.abhinavmishra14.aws.util.TransferProgressListener;
 
 /**
  * The Interface AwsS3IamService.<br/>
  * This service class will use the IAM Roles to perform the operations on S3
  * buckets.<br/>
  * SDK Location:
- * http://mvnrepository.com/artifact/com.amazonaws/aws-java-sdk-core/1.10.2
+ * http://mvnrepository.com/artifact/com.amazonaws/aws-java-sdk-core/1.10.2<br/>
+ * Every service instance owns a transfer thread pool and an s3 client, call
+ * {@link #shutdown()} (or use try-with-resources) once the service is no longer needed.
  * 
  * @author Abhinav kumar mishra
  */
-public interface AwsS3IamService {
+public interface AwsS3IamService extends Closeable {
 
 	/**
 	 * Gets the all buckets.
@@ -124,13 +146,16 @@ public interface AwsS3IamService {
 	void deleteBucket(final String bucketName) throws AmazonClientException, AmazonServiceException;
 
 	/**
-	 * Clean and delete bucket.
+	 * Clean and delete bucket.<br/>
+	 * Objects are listed a page at a time and deleted in batches of up to 1000 keys,
+	 * the bucket is deleted only when every object could be deleted.
 	 *
 	 * @param bucketName the bucket name
-	 * @throws AmazonClientException the amazon client exception
+	 * @return the bulk delete summary
+	 * @throws AmazonClientException the amazon client exception, also thrown when some objects could not be deleted
 	 * @throws AmazonServiceException the amazon service exception
 	 */
-	void cleanAndDeleteBucket(final String bucketName) throws AmazonClientException, AmazonServiceException;
+	BulkDeleteSummary cleanAndDeleteBucket(final String bucketName) throws AmazonClientException, AmazonServiceException;
 
 	/**
 	 * Upload object.
@@ -144,7 +169,12 @@ public interface AwsS3IamService {
 			throws AmazonClientException, AmazonServiceException;
 
 	/**
-	 * Upload object.
+	 * Upload object.<br/>
+	 * By default the stream is read into a bounded set of part buffers which are
+	 * uploaded as multiparts while the rest of the stream is still being read,
+	 * the stream is not spooled to disk.
+	 * See {@link com.github.abhinavmishra14.aws.s3.transfer.TransferConfig#setStreamingUploadEnabled(boolean)}
+	 * for the temporary file fallback.
 	 *
 	 * @param bucketName the bucket name
 	 * @param fileName the file name
@@ -195,7 +225,7 @@ public interface AwsS3IamService {
 	 * Upload object and Listen progress.<br/> 
 	 * S3 will overwrite any existing objects that happen to have the same key,
 	 * just as when uploading individual files, so use with caution.<br/>
-	 * This method will upload the file to S3 and prints the progress.<br/>
+	 * This method will upload the file to S3 and logs the progress, it waits for the upload to complete.<br/>
 	 * It is implemented via {@link com.amazonaws.services.s3.transfer.TransferManager} <br/>
 	 * TransferManager provides a simple API for uploading content to Amazon S3,
 	 * and makes extensive use of Amazon S3 multipart uploads to achieve
@@ -219,7 +249,7 @@ public interface AwsS3IamService {
 	 * Upload object and Listen progress.<br/> 
 	 * S3 will overwrite any existing objects that happen to have the same key,
 	 * just as when uploading individual files, so use with caution.<br/>
-	 * This method will upload the file to S3 and prints the progress.<br/>
+	 * This method will upload the file to S3 and logs the progress, it waits for the upload to complete.<br/>
 	 * It is implemented via {@link com.amazonaws.services.s3.transfer.TransferManager} <br/>
 	 * TransferManager provides a simple API for uploading content to Amazon S3,
 	 * and makes extensive use of Amazon S3 multipart uploads to achieve
@@ -246,7 +276,7 @@ public interface AwsS3IamService {
 	 * Upload object and Listen progress.<br/> 
 	 * S3 will overwrite any existing objects that happen to have the same key,
 	 * just as when uploading individual files, so use with caution.<br/>
-	 * This method will upload the file to S3 and prints the progress.<br/>
+	 * This method will upload the file to S3 and logs the progress, it waits for the upload to complete.<br/>
 	 * It is implemented via {@link com.amazonaws.services.s3.transfer.TransferManager} <br/>
 	 * TransferManager provides a simple API for uploading content to Amazon S3,
 	 * and makes extensive use of Amazon S3 multipart uploads to achieve
@@ -272,7 +302,7 @@ public interface AwsS3IamService {
 	 * Upload directory or file and Listen Progress.<br/>
 	 * S3 will overwrite any existing objects that happen to have the same key,
 	 * just as when uploading individual files, so use with caution.<br/>
-	 * This method will upload the files or directory to S3 and prints the progress.<br/>
+	 * This method will upload the files or directory to S3 and logs the progress, it waits for the transfer to complete.<br/>
 	 * It is implemented via {@link com.amazonaws.services.s3.transfer.TransferManager} <br/>
 	 * TransferManager provides a simple API for uploading content to Amazon S3,
 	 * and makes extensive use of Amazon S3 multipart uploads to achieve
@@ -377,6 +407,28 @@ public interface AwsS3IamService {
 	Upload uploadFileAsync(final String bucketName, final String fileName, final File fileObj,
 			final boolean isPublicAccessible) throws AmazonClientException, AmazonServiceException, IOException;
 
+	/**
+	 * Upload file async and report its progress to the listener.<br/>
+	 * The method returns as soon as the upload is started, no thread waits for
+	 * it: the listener receives the throttled progress (bytes, throughput, ETA),
+	 * every completed part and finally the completion or the failure, on the
+	 * transfer threads. The progress interval is set with
+	 * {@link com.github.abhinavmishra14.aws.s3.transfer.TransferConfig#setProgressIntervalMillis(long)}.
+	 *
+	 * @param bucketName the bucket name
+	 * @param fileName the file name
+	 * @param fileObj the file object
+	 * @param cannedAcl the canned acl, can be null
+	 * @param progressListener the progress listener
+	 * @return the upload
+	 * @throws AmazonClientException the amazon client exception
+	 * @throws AmazonServiceException the amazon service exception
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	Upload uploadFileAsync(final String bucketName, final String fileName, final File fileObj,
+			final CannedAccessControlList cannedAcl, final TransferProgressListener progressListener)
+			throws AmazonClientException, AmazonServiceException, IOException;
+
 	/**
 	 * Upload directory or file.<br/>
 	 * S3 will overwrite any existing objects that happen to have the same key,
@@ -402,6 +454,108 @@ public interface AwsS3IamService {
 	 */
 	Transfer uploadDirectoryOrFile(final String bucketName, final File source, final String virtualDirectoryKeyPrefix)
 			throws AmazonClientException, AmazonServiceException, IOException;
+
+	/**
+	 * Upload file as a resumable multipart upload.<br/>
+	 * The upload id and the e tag of every uploaded part are recorded in a
+	 * journal under {@link com.github.abhinavmishra14.aws.s3.transfer.TransferConfig#getUploadJournalDirectory()},
+	 * under {@link com.github.abhinavmishra14.aws.util.MultipartUploadJournal#defaultJournalDirectory()}
+	 * when it is not configured.
+	 * If the upload fails or the JVM exits, calling this method again with the
+	 * same bucket, key and unchanged file lists the parts from S3 and only
+	 * uploads the missing ones. A failed upload is not aborted, use
+	 * {@link #abortMultipartUploads(String, Date)} to clean up the uploads which
+	 * are never resumed.<br/>
+	 * Files not larger than one part are uploaded with a single request.
+	 *
+	 * @param bucketName the bucket name
+	 * @param fileName the file name
+	 * @param fileObj the file object
+	 * @param cannedAcl the canned acl, can be null
+	 * @return the put object result, only the e tag is set
+	 * @throws AmazonClientException the amazon client exception
+	 * @throws AmazonServiceException the amazon service exception
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	PutObjectResult uploadFileResumable(final String bucketName, final String fileName, final File fileObj,
+			final CannedAccessControlList cannedAcl) throws AmazonClientException, AmazonServiceException, IOException;
+
+	/**
+	 * Upload a file with the strategy suiting its size.<br/>
+	 * Files of at most one part, and below the multipart threshold, are sent with
+	 * a single PUT. Larger files, or files which would take too long to send at
+	 * the throughput measured on the previous single PUTs, are sent as a
+	 * multipart upload with parts uploaded concurrently. The multipart upload is
+	 * journaled and resumable when an upload journal directory is configured,
+	 * otherwise a failed upload is aborted. The part size is raised so that the
+	 * file fits in 10,000 parts.
+	 *
+	 * @param bucketName the bucket name
+	 * @param key the key
+	 * @param source the source file
+	 * @return the upload result, reporting the strategy chosen
+	 * @throws AmazonClientException the amazon client exception
+	 * @throws AmazonServiceException the amazon service exception
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	UploadResult upload(final String bucketName, final String key, final File source)
+			throws AmazonClientException, AmazonServiceException, IOException;
+
+	/**
+	 * Upload a stream with the strategy suiting its length.<br/>
+	 * A stream of known length up to one part, and below the multipart threshold,
+	 * is sent with a single PUT. Longer streams and streams of unknown length are
+	 * sent as a streaming multipart upload when streaming uploads are enabled,
+	 * with the part size raised so that a known length fits in 10,000 parts, and
+	 * growing as the stream goes on when the length is unknown. They
+	 * are spooled to a temporary file and uploaded as a file otherwise. The stream
+	 * is read till the end but it is not closed.
+	 *
+	 * @param bucketName the bucket name
+	 * @param key the key
+	 * @param inputStream the input stream
+	 * @param contentLength the content length, -1 when unknown
+	 * @return the upload result, reporting the strategy chosen
+	 * @throws AmazonClientException the amazon client exception
+	 * @throws AmazonServiceException the amazon service exception
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	UploadResult upload(final String bucketName, final String key, final InputStream inputStream,
+			final long contentLength) throws AmazonClientException, AmazonServiceException, IOException;
+
+	/**
+	 * Abort the multipart uploads initiated before the given date.<br/>
+	 * Parts of uploads which were neither completed nor aborted are stored and
+	 * billed until the upload is aborted. Run it periodically with a threshold
+	 * longer than the longest upload, an aborted upload can not be resumed.
+	 *
+	 * @param bucketName the bucket name
+	 * @param initiatedBefore the date before which uploads are considered orphaned
+	 * @return the number of uploads aborted
+	 * @throws AmazonClientException the amazon client exception
+	 * @throws AmazonServiceException the amazon service exception
+	 */
+	int abortMultipartUploads(final String bucketName, final Date initiatedBefore)
+			throws AmazonClientException, AmazonServiceException;
+
+	/**
+	 * Upload directory or file async and report its progress to the listener.<br/>
+	 * The method returns as soon as the transfer is started, no thread waits for
+	 * it: the listener receives the throttled progress of all the files and
+	 * finally the completion or the failure, on the transfer threads.
+	 *
+	 * @param bucketName the bucket name
+	 * @param source the source file or directory
+	 * @param virtualDirectoryKeyPrefix the key prefix of the virtual directory to upload to. Use the null or empty string to upload files to the root of the bucket.
+	 * @param progressListener the progress listener
+	 * @return the transfer
+	 * @throws AmazonClientException the amazon client exception
+	 * @throws AmazonServiceException the amazon service exception
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	Transfer uploadDirectoryOrFile(final String bucketName, final File source,
+			final String virtualDirectoryKeyPrefix, final TransferProgressListener progressListener)
+			throws AmazonClientException, AmazonServiceException, IOException;
 	
 	/**
 	 * Gets the object.
@@ -426,7 +580,11 @@ public interface AwsS3IamService {
 			throws AmazonClientException, AmazonServiceException;
 
 	/**
-	 * Download object.
+	 * Download object.<br/>
+	 * Objects larger than the download part size are downloaded with concurrent
+	 * ranged requests written straight into the file, verified against the ETag
+	 * or the length, and resumed from a checkpoint when called again after a
+	 * failure. See {@link com.github.abhinavmishra14.aws.s3.transfer.TransferConfig#setParallelDownloadEnabled(boolean)}.
 	 *
 	 * @param bucketName the bucket name
 	 * @param key the key
@@ -438,6 +596,110 @@ public interface AwsS3IamService {
 	ObjectMetadata downloadObject(final String bucketName, final String key, final String filePath)
 			throws AmazonClientException, AmazonServiceException;
 
+	/**
+	 * Head object.<br/>
+	 * Reads the metadata of an object (size, ETag, last modified time, user
+	 * metadata) with a HEAD request, without its content.
+	 *
+	 * @param bucketName the bucket name
+	 * @param key the key
+	 * @return the object metadata, null if the object does not exist
+	 * @throws AmazonClientException the amazon client exception
+	 * @throws AmazonServiceException the amazon service exception
+	 */
+	ObjectMetadata headObject(final String bucketName, final String key)
+			throws AmazonClientException, AmazonServiceException;
+
+	/**
+	 * Gets the object if modified.<br/>
+	 * Sends a conditional GET: S3 answers 304 Not Modified without the content
+	 * if the object still has the given ETag or was not modified since the given
+	 * date.
+	 *
+	 * @param bucketName the bucket name
+	 * @param key the key
+	 * @param eTag the ETag of the copy at hand, null to not compare the ETag
+	 * @param modifiedSince the last modified time of the copy at hand, null to not compare the time
+	 * @return the object, to be closed by the caller, null if not modified
+	 * @throws AmazonClientException the amazon client exception
+	 * @throws AmazonServiceException the amazon service exception
+	 */
+	S3Object getObjectIfModified(final String bucketName, final String key, final String eTag,
+			final Date modifiedSince) throws AmazonClientException, AmazonServiceException;
+
+	/**
+	 * Download object if changed.<br/>
+	 * Downloads the object unless the file already holds it, with one GET
+	 * conditional on the MD5 of the file: S3 answers 304 Not Modified without the
+	 * content when the ETag of the object is that MD5. Objects whose ETag is not
+	 * the MD5 of the content (multipart uploads, SSE-KMS) are always downloaded.
+	 * The time of the file is set to the one of the object after the download.
+	 *
+	 * @param bucketName the bucket name
+	 * @param key the key
+	 * @param filePath the file path
+	 * @return the object metadata, null if the file was up to date
+	 * @throws AmazonClientException the amazon client exception
+	 * @throws AmazonServiceException the amazon service exception
+	 */
+	ObjectMetadata downloadObjectIfChanged(final String bucketName, final String key, final String filePath)
+			throws AmazonClientException, AmazonServiceException;
+
+	/**
+	 * Sync directory.<br/>
+	 * Uploads the new and changed files of the local directory under the prefix,
+	 * like rsync: file <code>localDir/a/b.txt</code> is compared with key
+	 * <code>prefix/a/b.txt</code> by size and modification time and is skipped when
+	 * its object is up to date. The local walk and the listing are streamed side
+	 * by side in key order and files are uploaded concurrently on the transfer pool.
+	 * Objects without a local file are kept.
+	 *
+	 * @param localDir the local directory
+	 * @param bucketName the bucket name
+	 * @param prefix the prefix of the directory, null or empty for the whole bucket
+	 * @return the directory sync summary, failed files are reported there
+	 * @throws AmazonClientException the amazon client exception
+	 * @throws AmazonServiceException the amazon service exception
+	 */
+	DirectorySyncSummary syncDirectory(final File localDir, final String bucketName, final String prefix)
+			throws AmazonClientException, AmazonServiceException;
+
+	/**
+	 * Sync directory.<br/>
+	 * Same as {@link #syncDirectory(File, String, String)}, the options can compare
+	 * files of the same size by MD5, delete the objects without a local file and
+	 * make a dry run, which only reports the keys it would upload and delete.
+	 *
+	 * @param localDir the local directory
+	 * @param bucketName the bucket name
+	 * @param prefix the prefix of the directory, null or empty for the whole bucket
+	 * @param options the synchronization options
+	 * @return the directory sync summary, failed files are reported there
+	 * @throws AmazonClientException the amazon client exception
+	 * @throws AmazonServiceException the amazon service exception
+	 */
+	DirectorySyncSummary syncDirectory(final File localDir, final String bucketName, final String prefix,
+			final DirectorySyncOptions options) throws AmazonClientException, AmazonServiceException;
+
+	/**
+	 * Download directory.<br/>
+	 * Downloads every object under the prefix into the local directory,
+	 * recreating the key hierarchy: key <code>prefix/a/b.txt</code> is saved as
+	 * <code>localDir/a/b.txt</code>. The listing is streamed and objects are
+	 * downloaded concurrently on the transfer pool, files whose size and ETag
+	 * already match are skipped. Progress and throughput are logged while
+	 * downloading.
+	 *
+	 * @param bucketName the bucket name
+	 * @param prefix the prefix of the directory, null or empty for the whole bucket
+	 * @param localDir the local directory
+	 * @return the directory transfer summary, failed files are reported there
+	 * @throws AmazonClientException the amazon client exception
+	 * @throws AmazonServiceException the amazon service exception
+	 */
+	DirectoryTransferSummary downloadDirectory(final String bucketName, final String prefix, final File localDir)
+			throws AmazonClientException, AmazonServiceException;
+
 	/**
 	 * Creates the directory.
 	 *
@@ -479,6 +741,81 @@ public interface AwsS3IamService {
 	PutObjectResult createDirectory(final String bucketName, final String dirName, final boolean isPublicAccessible)
 			throws AmazonClientException, AmazonServiceException;
 
+	/**
+	 * List objects.<br/>
+	 * Returns a lazy iterator, objects are listed a page (1000 keys) at a time and
+	 * the next page is fetched in the background while the current one is
+	 * iterated, so memory use does not depend on the number of objects.<br/>
+	 * When a delimiter is given only the objects directly under the prefix are
+	 * returned. Listing failures are thrown by the iterator.
+	 *
+	 * @param bucketName the bucket name
+	 * @param prefix the prefix, null for the whole bucket
+	 * @param delimiter the delimiter, null to list recursively
+	 * @return the iterator of object summaries
+	 */
+	Iterator<S3ObjectSummary> listObjects(final String bucketName, final String prefix, final String delimiter);
+
+	/**
+	 * List objects in parallel.<br/>
+	 * The key space under the prefix is split into shards using the common
+	 * prefixes of '/' delimited keys and up to parallelism shards are listed at
+	 * the same time on the transfer pool. The parallelism is capped below the
+	 * thread count of the pool, so listing leaves a thread to the transfers.
+	 * Useful to inventory very large buckets, keys without '/' can not be split
+	 * and are listed serially.<br/>
+	 * Close the returned iterator when it is not read till the end.
+	 *
+	 * @param bucketName the bucket name
+	 * @param prefix the prefix, null for the whole bucket
+	 * @param parallelism the maximum number of shards listed at the same time
+	 * @param ordered true to return the objects in key order, false to return them as soon as they are listed
+	 * @return the iterator of object summaries
+	 * @throws AmazonClientException the amazon client exception
+	 * @throws AmazonServiceException the amazon service exception
+	 */
+	ShardedObjectIterator listObjectsInParallel(final String bucketName, final String prefix, final int parallelism,
+			final boolean ordered) throws AmazonClientException, AmazonServiceException;
+
+	/**
+	 * List one page of objects.
+	 *
+	 * @param listObjectsRequest the list objects request
+	 * @return the object listing
+	 * @throws AmazonClientException the amazon client exception
+	 * @throws AmazonServiceException the amazon service exception
+	 */
+	ObjectListing listObjects(final ListObjectsRequest listObjectsRequest)
+			throws AmazonClientException, AmazonServiceException;
+
+	/**
+	 * List the next page of objects.
+	 *
+	 * @param previousListing the previous listing, must be truncated
+	 * @return the object listing
+	 * @throws AmazonClientException the amazon client exception
+	 * @throws AmazonServiceException the amazon service exception
+	 */
+	ObjectListing listNextBatchOfObjects(final ObjectListing previousListing)
+			throws AmazonClientException, AmazonServiceException;
+
+	/**
+	 * Copy object.<br/>
+	 * Server side copy, the content does not go through the client. Objects up to
+	 * 5 GB can be copied with a single request.
+	 *
+	 * @param sourceBucketName the source bucket name
+	 * @param sourceKey the source key
+	 * @param destinationBucketName the destination bucket name
+	 * @param destinationKey the destination key
+	 * @return the copy object result
+	 * @throws AmazonClientException the amazon client exception
+	 * @throws AmazonServiceException the amazon service exception
+	 */
+	CopyObjectResult copyObject(final String sourceBucketName, final String sourceKey,
+			final String destinationBucketName, final String destinationKey)
+			throws AmazonClientException, AmazonServiceException;
+
 	/**
 	 * Delete object.
 	 *
@@ -503,14 +840,18 @@ public interface AwsS3IamService {
 			throws AmazonClientException, AmazonServiceException;
 
 	/**
-	 * Delete directory.
+	 * Delete directory.<br/>
+	 * Objects under the directory are listed a page at a time and deleted in
+	 * batches of up to 1000 keys, keys which still fail after the configured
+	 * retries are reported in the returned summary.
 	 *
 	 * @param bucketName the bucket name
 	 * @param dirName the dir name
+	 * @return the bulk delete summary
 	 * @throws AmazonClientException the amazon client exception
 	 * @throws AmazonServiceException the amazon service exception
 	 */
-	void deleteDirectory(final String bucketName, final String dirName)
+	BulkDeleteSummary deleteDirectory(final String bucketName, final String dirName)
 			throws AmazonClientException, AmazonServiceException;
 
 	/**
@@ -572,6 +913,22 @@ public interface AwsS3IamService {
 	 */
 	URL generateObjectURL(final String bucketName, final String fileName,final Date expires)
 			throws AmazonClientException, AmazonServiceException;
+
+	/**
+	 * Presign the GET urls of many objects at once.<br/>
+	 * The urls are signed locally with AWS Signature Version 4, the signing key
+	 * is derived once per day and the urls are built as strings, see
+	 * {@link com.github.abhinavmishra14.aws.s3.presign.BatchUrlPresigner}. A
+	 * client which is not a PooledAmazonS3Client signs them one at a time.
+	 *
+	 * @param bucketName the bucket name
+	 * @param keys the keys
+	 * @param expires the expires, at most 7 days ahead
+	 * @return the urls, in the order of the keys
+	 * @throws AmazonClientException the amazon client exception
+	 */
+	List<String> presign(final String bucketName, final Collection<String> keys, final Date expires)
+			throws AmazonClientException;
 	
 	/**
 	 * Gets the bucket permissions.<br/>
@@ -663,8 +1020,135 @@ public interface AwsS3IamService {
 	 * It checks if user has write permissions on bucket or not, even if ReadACP is not granted.
 	 *
 	 * @param bucketName the bucket name
-	 * @return true, if successful
+	 * @return true, if successful, false if the test object is denied with 403 Forbidden
+	 * @throws AmazonClientException the amazon client exception, if the check failed for another reason, e.g. a timeout
+	 */
+	boolean hasWritePermissionOnBucket(final String bucketName) throws AmazonClientException;
+
+	/**
+	 * Sets the bucket access control list.<br/>
+	 * The cached permission checks of the bucket are dropped, see
+	 * CacheConfig#setPermissionCacheConfig.
+	 *
+	 * @param bucketName the bucket name
+	 * @param acl the access control list
+	 * @throws AmazonClientException the amazon client exception
+	 * @throws AmazonServiceException the amazon service exception
+	 * @see <a href="http://docs.aws.amazon.com/AmazonS3/latest/dev/acl-overview.html#permissions">Permissions</a>
+	 */
+	void setBucketAcl(final String bucketName, final AccessControlList acl)
+			throws AmazonClientException, AmazonServiceException;
+
+	/**
+	 * Sets the bucket access control list to a canned one.<br/>
+	 * The cached permission checks of the bucket are dropped, see
+	 * CacheConfig#setPermissionCacheConfig.
+	 *
+	 * @param bucketName the bucket name
+	 * @param cannedAcl the canned access control list
+	 * @throws AmazonClientException the amazon client exception
+	 * @throws AmazonServiceException the amazon service exception
+	 */
+	void setBucketAcl(final String bucketName, final CannedAccessControlList cannedAcl)
+			throws AmazonClientException, AmazonServiceException;
+
+	/**
+	 * Sets the object access control list.<br/>
+	 * The cached permission checks of the object are dropped, see
+	 * CacheConfig#setPermissionCacheConfig.
+	 *
+	 * @param bucketName the bucket name
+	 * @param key the full path of object in given bucket
+	 * @param acl the access control list
+	 * @throws AmazonClientException the amazon client exception
+	 * @throws AmazonServiceException the amazon service exception
+	 */
+	void setObjectAcl(final String bucketName, final String key, final AccessControlList acl)
+			throws AmazonClientException, AmazonServiceException;
+
+	/**
+	 * Sets the object access control list to a canned one.<br/>
+	 * The cached permission checks of the object are dropped, see
+	 * CacheConfig#setPermissionCacheConfig.
+	 *
+	 * @param bucketName the bucket name
+	 * @param key the full path of object in given bucket
+	 * @param cannedAcl the canned access control list
+	 * @throws AmazonClientException the amazon client exception
+	 * @throws AmazonServiceException the amazon service exception
 	 */
-	boolean hasWritePermissionOnBucket(final String bucketName);
+	void setObjectAcl(final String bucketName, final String key, final CannedAccessControlList cannedAcl)
+			throws AmazonClientException, AmazonServiceException;
 
+	/**
+	 * Gets the request throttle.<br/>
+	 * Created from TransferConfig#setThrottleConfig, its limits can be changed
+	 * while requests are running, e.g. to leave more bandwidth to other
+	 * applications during business hours.
+	 *
+	 * @return the request throttle, null if nothing is limited
+	 */
+	RequestThrottle getRequestThrottle();
+
+	/**
+	 * Gets the transfer pool stats.<br/>
+	 * Returns a snapshot of the thread pool shared by all the transfers of this
+	 * service, use it to find out whether the pool is saturated.
+	 *
+	 * @return the transfer pool stats
+	 */
+	TransferPoolStats getTransferPoolStats();
+
+	/**
+	 * Gets the connection pool stats.<br/>
+	 * Returns a snapshot of the http connection pool of the s3 client, use it to
+	 * find out whether requests wait for a connection.
+	 *
+	 * @return the connection pool stats, null if the service was created with a
+	 *         client which is not a PooledAmazonS3Client
+	 */
+	ConnectionPoolStats getConnectionPoolStats();
+
+	/**
+	 * Gets the object cache stats.<br/>
+	 * Returns the hits, misses, revalidations and evictions of the cache of
+	 * {@link #getObject(String, String)} and the bytes it holds.
+	 *
+	 * @return the object cache stats, null if objects are not cached, see
+	 *         CacheConfig#setObjectCacheConfig
+	 */
+	ObjectCacheStats getObjectCacheStats();
+
+	/**
+	 * Gets the presigned url cache stats.<br/>
+	 * Returns the hits, misses and evictions of the cache of the presigned urls.
+	 *
+	 * @return the presigned url cache stats, null if urls are not cached, see
+	 *         CacheConfig#setPresignedUrlCacheConfig
+	 */
+	PresignedUrlCacheStats getPresignedUrlCacheStats();
+
+	/**
+	 * Gets the permission cache stats.<br/>
+	 * Returns the hits, misses and evictions of the cache of the permission
+	 * checks and of the write probes.
+	 *
+	 * @return the permission cache stats, null if permissions are not cached, see
+	 *         CacheConfig#setPermissionCacheConfig
+	 */
+	PermissionCacheStats getPermissionCacheStats();
+
+	/**
+	 * Shutdown.<br/>
+	 * Aborts the transfers in progress, releases the shared transfer pool and the
+	 * underlying s3 client. The service can not be used after shutdown.<br/>
+	 * Calling it more than once has no effect.
+	 */
+	void shutdown();
+
+	/**
+	 * Closes the service, same as {@link #shutdown()}.
+	 */
+	@Override
+	void close();
 }
@@ -0,0 +1,370 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.s3.service.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.model.CopyObjectResult;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest.KeyVersion;
+import com.amazonaws.services.s3.model.DeleteObjectsResult;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.Permission;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.PutObjectResult;
+import com.amazonaws.services.s3.model.S3Object;
+import com.github.abhinavmishra14.aws.s3.service.AsyncAwsS3IamService;
+import com.github.abhinavmishra14.aws.s3.service.AwsS3IamService;
+import com.github.abhinavmishra14.aws.util.AWSUtil;
+import com.github.abhinavmishra14.aws.util.AWSUtilConstants;
+import com.github.abhinavmishra14.aws.util.BulkDeleteSummary;
+import com.github.abhinavmishra14.aws.util.NamedThreadFactory;
+
+/**
+ * The Class AsyncAwsS3IamServiceImpl.<br/>
+ * Runs the operations of a wrapped {@link AwsS3IamService} on an executor. The
+ * executor should not be the transfer pool of the wrapped service: operations
+ * like deleteDirectory wait on tasks of that pool.
+ *
+ * @author Abhinav kumar mishra
+ */
+public class AsyncAwsS3IamServiceImpl implements AsyncAwsS3IamService {
+
+	/** The Constant LOGGER. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(AsyncAwsS3IamServiceImpl.class);
+
+	/** The wrapped service. */
+	private final AwsS3IamService awsS3IamService;
+
+	/** The executor. */
+	private final Executor executor;
+
+	/** The executor created by this service, null when supplied by the caller. */
+	private final ExecutorService ownedExecutor;
+
+	/** The max in flight. */
+	private final int maxInFlight;
+
+	/** The in flight permits. */
+	private final Semaphore inFlightPermits;
+
+	/**
+	 * Instantiates a new async aws s3 iam service with at most
+	 * {@link AWSUtilConstants#DEFAULT_ASYNC_MAX_IN_FLIGHT} operations in flight.
+	 *
+	 * @param awsS3IamService the wrapped service
+	 */
+	public AsyncAwsS3IamServiceImpl(final AwsS3IamService awsS3IamService) {
+		this(awsS3IamService, AWSUtilConstants.DEFAULT_ASYNC_MAX_IN_FLIGHT);
+	}
+
+	/**
+	 * Instantiates a new async aws s3 iam service.<br/>
+	 * A pool of maxInFlight threads is created and stopped by {@link #shutdown()}.
+	 *
+	 * @param awsS3IamService the wrapped service
+	 * @param maxInFlight the maximum number of operations in flight
+	 */
+	public AsyncAwsS3IamServiceImpl(final AwsS3IamService awsS3IamService, final int maxInFlight) {
+		this(awsS3IamService, Executors.newFixedThreadPool(maxInFlight,
+				new NamedThreadFactory(AWSUtilConstants.ASYNC_THREAD_NAME_PREFIX)), maxInFlight, true);
+	}
+
+	/**
+	 * Instantiates a new async aws s3 iam service.<br/>
+	 * The executor belongs to the caller and is not stopped by {@link #shutdown()}.
+	 *
+	 * @param awsS3IamService the wrapped service
+	 * @param executor the executor running the operations
+	 * @param maxInFlight the maximum number of operations in flight
+	 */
+	public AsyncAwsS3IamServiceImpl(final AwsS3IamService awsS3IamService, final Executor executor,
+			final int maxInFlight) {
+		this(awsS3IamService, executor, maxInFlight, false);
+	}
+
+	/**
+	 * Instantiates a new async aws s3 iam service.
+	 *
+	 * @param awsS3IamService the wrapped service
+	 * @param executor the executor
+	 * @param maxInFlight the max in flight
+	 * @param ownsExecutor the owns executor flag
+	 */
+	private AsyncAwsS3IamServiceImpl(final AwsS3IamService awsS3IamService, final Executor executor,
+			final int maxInFlight, final boolean ownsExecutor) {
+		super();
+		AWSUtil.notNull(awsS3IamService, "AwsS3IamService is null!");
+		AWSUtil.notNull(executor, "Executor is null!");
+		if (maxInFlight < 1) {
+			throw new IllegalArgumentException("Max in flight must be greater than zero.");
+		}
+		this.awsS3IamService = awsS3IamService;
+		this.executor = executor;
+		this.ownedExecutor = ownsExecutor ? (ExecutorService) executor : null;
+		this.maxInFlight = maxInFlight;
+		this.inFlightPermits = new Semaphore(maxInFlight);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.s3.service.AsyncAwsS3IamService#getObject(com.amazonaws.services.s3.model.GetObjectRequest)
+	 */
+	@Override
+	public CompletableFuture<S3Object> getObject(final GetObjectRequest getObjRequest) {
+		return submit("getObject", () -> awsS3IamService.getObject(getObjRequest));
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.s3.service.AsyncAwsS3IamService#downloadObject(java.lang.String, java.lang.String, java.lang.String)
+	 */
+	@Override
+	public CompletableFuture<ObjectMetadata> downloadObject(final String bucketName, final String key,
+			final String filePath) {
+		return submit("downloadObject", () -> awsS3IamService.downloadObject(bucketName, key, filePath));
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.s3.service.AsyncAwsS3IamService#uploadObject(com.amazonaws.services.s3.model.PutObjectRequest)
+	 */
+	@Override
+	public CompletableFuture<PutObjectResult> uploadObject(final PutObjectRequest putObjectRequest) {
+		return submit("uploadObject", () -> awsS3IamService.uploadObject(putObjectRequest));
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.s3.service.AsyncAwsS3IamService#uploadObject(java.lang.String, java.lang.String, java.io.InputStream)
+	 */
+	@Override
+	public CompletableFuture<PutObjectResult> uploadObject(final String bucketName, final String fileName,
+			final InputStream inputStream) {
+		return submit("uploadObject", () -> {
+			try (InputStream inStream = inputStream) {
+				return awsS3IamService.uploadObject(bucketName, fileName, inStream);
+			} catch (IOException ioex) {
+				throw new AmazonClientException("Failed to upload " + fileName, ioex);
+			}
+		});
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.s3.service.AsyncAwsS3IamService#deleteObject(java.lang.String, java.lang.String)
+	 */
+	@Override
+	public CompletableFuture<Void> deleteObject(final String bucketName, final String fileName) {
+		return submit("deleteObject", () -> {
+			awsS3IamService.deleteObject(bucketName, fileName);
+			return null;
+		});
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.s3.service.AsyncAwsS3IamService#deleteObjects(java.lang.String, java.util.List)
+	 */
+	@Override
+	public CompletableFuture<DeleteObjectsResult> deleteObjects(final String bucketName,
+			final List<KeyVersion> keys) {
+		return submit("deleteObjects", () -> awsS3IamService.deleteObjects(bucketName, keys));
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.s3.service.AsyncAwsS3IamService#deleteDirectory(java.lang.String, java.lang.String)
+	 */
+	@Override
+	public CompletableFuture<BulkDeleteSummary> deleteDirectory(final String bucketName, final String dirName) {
+		return submit("deleteDirectory", () -> awsS3IamService.deleteDirectory(bucketName, dirName));
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.s3.service.AsyncAwsS3IamService#copyObject(java.lang.String, java.lang.String, java.lang.String, java.lang.String)
+	 */
+	@Override
+	public CompletableFuture<CopyObjectResult> copyObject(final String sourceBucketName, final String sourceKey,
+			final String destinationBucketName, final String destinationKey) {
+		return submit("copyObject", () -> awsS3IamService.copyObject(sourceBucketName, sourceKey,
+				destinationBucketName, destinationKey));
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.s3.service.AsyncAwsS3IamService#listObjects(com.amazonaws.services.s3.model.ListObjectsRequest)
+	 */
+	@Override
+	public CompletableFuture<ObjectListing> listObjects(final ListObjectsRequest listObjectsRequest) {
+		return submit("listObjects", () -> awsS3IamService.listObjects(listObjectsRequest));
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.s3.service.AsyncAwsS3IamService#listNextBatchOfObjects(com.amazonaws.services.s3.model.ObjectListing)
+	 */
+	@Override
+	public CompletableFuture<ObjectListing> listNextBatchOfObjects(final ObjectListing previousListing) {
+		return submit("listNextBatchOfObjects", () -> awsS3IamService.listNextBatchOfObjects(previousListing));
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.s3.service.AsyncAwsS3IamService#generateObjectURL(java.lang.String, java.lang.String, java.util.Date)
+	 */
+	@Override
+	public CompletableFuture<URL> generateObjectURL(final String bucketName, final String fileName,
+			final Date expires) {
+		return submit("generateObjectURL", () -> awsS3IamService.generateObjectURL(bucketName, fileName, expires));
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.s3.service.AsyncAwsS3IamService#checkBucketPermission(java.lang.String, com.amazonaws.services.s3.model.Permission)
+	 */
+	@Override
+	public CompletableFuture<Boolean> checkBucketPermission(final String bucketName, final Permission permission) {
+		return submit("checkBucketPermission", () -> awsS3IamService.checkBucketPermission(bucketName, permission));
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.s3.service.AsyncAwsS3IamService#checkObjectPermission(java.lang.String, java.lang.String, com.amazonaws.services.s3.model.Permission)
+	 */
+	@Override
+	public CompletableFuture<Boolean> checkObjectPermission(final String bucketName, final String key,
+			final Permission permission) {
+		return submit("checkObjectPermission",
+				() -> awsS3IamService.checkObjectPermission(bucketName, key, permission));
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.s3.service.AsyncAwsS3IamService#hasWritePermissionOnBucket(java.lang.String)
+	 */
+	@Override
+	public CompletableFuture<Boolean> hasWritePermissionOnBucket(final String bucketName) {
+		return submit("hasWritePermissionOnBucket", () -> awsS3IamService.hasWritePermissionOnBucket(bucketName));
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.s3.service.AsyncAwsS3IamService#hasFullControlPermission(java.lang.String)
+	 */
+	@Override
+	public CompletableFuture<Boolean> hasFullControlPermission(final String bucketName) {
+		return submit("hasFullControlPermission", () -> awsS3IamService.hasFullControlPermission(bucketName));
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.s3.service.AsyncAwsS3IamService#getInFlightCount()
+	 */
+	@Override
+	public int getInFlightCount() {
+		return maxInFlight - inFlightPermits.availablePermits();
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.s3.service.AsyncAwsS3IamService#shutdown()
+	 */
+	@Override
+	public void shutdown() {
+		if (ownedExecutor != null && !ownedExecutor.isShutdown()) {
+			LOGGER.info("shutdown invoked, stopping async executor");
+			ownedExecutor.shutdown();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.s3.service.AsyncAwsS3IamService#close()
+	 */
+	@Override
+	public void close() {
+		shutdown();
+	}
+
+	/**
+	 * Run the call on the executor if a slot is free.<br/>
+	 * The slot is released once the call returns: cancelling the future does not
+	 * stop the call, which still holds its thread and connection until then. A
+	 * call whose future is cancelled before it starts is skipped.
+	 *
+	 * @param <T> the result type
+	 * @param operation the operation name
+	 * @param call the call
+	 * @return the future, failed with RejectedExecutionException when too many operations are in flight
+	 */
+	private <T> CompletableFuture<T> submit(final String operation, final Supplier<T> call) {
+		if (!inFlightPermits.tryAcquire()) {
+			return rejected(operation + " rejected, " + maxInFlight + " operations already in flight");
+		}
+		final CompletableFuture<T> future = new CompletableFuture<T>();
+		try {
+			executor.execute(() -> runInSlot(future, call));
+			return future;
+		} catch (RejectedExecutionException rejEx) {
+			inFlightPermits.release();
+			return rejected(operation + " rejected by the executor: " + rejEx.getMessage());
+		}
+	}
+
+	/**
+	 * Runs the call of a future holding a slot, the slot is released before the
+	 * future completes so that the stages chained on it may use it.
+	 *
+	 * @param <T> the result type
+	 * @param future the future
+	 * @param call the call
+	 */
+	private <T> void runInSlot(final CompletableFuture<T> future, final Supplier<T> call) {
+		T result = null;
+		Throwable failure = null;
+		try {
+			if (!future.isDone()) {
+				result = call.get();
+			}
+		} catch (RuntimeException | Error callEx) {
+			failure = callEx;
+		} finally {
+			inFlightPermits.release();
+		}
+		if (failure == null) {
+			future.complete(result);
+		} else {
+			future.completeExceptionally(failure);
+		}
+	}
+
+	/**
+	 * Create a future failed with a RejectedExecutionException.
+	 *
+	 * @param <T> the result type
+	 * @param message the message
+	 * @return the failed future
+	 */
+	private static <T> CompletableFuture<T> rejected(final String message) {
+		LOGGER.warn(message);
+		final CompletableFuture<T> future = new CompletableFuture<T>();
+		future.completeExceptionally(new RejectedExecutionException(message));
+		return future;
+	}
+}
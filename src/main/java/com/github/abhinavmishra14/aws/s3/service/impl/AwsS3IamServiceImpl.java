@@ -22,23 +22,46 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.EnumSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.apache.commons.io.input.CountingInputStream;
+import org.apache.http.HttpStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.AmazonServiceException;
+import com.amazonaws.AmazonWebServiceClient;
+import com.amazonaws.ClientConfiguration;
 import com.amazonaws.auth.AWSCredentials;
+import com.amazonaws.auth.AWSCredentialsProvider;
 import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.auth.DefaultAWSCredentialsProviderChain;
+import com.amazonaws.event.ProgressEvent;
+import com.amazonaws.event.ProgressEventType;
+import com.amazonaws.internal.StaticCredentialsProvider;
 import com.amazonaws.services.s3.AmazonS3;
-import com.amazonaws.services.s3.AmazonS3Client;
+import com.amazonaws.services.s3.S3ClientOptions;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
 import com.amazonaws.services.s3.model.AccessControlList;
 import com.amazonaws.services.s3.model.AmazonS3Exception;
 import com.amazonaws.services.s3.model.Bucket;
 import com.amazonaws.services.s3.model.CannedAccessControlList;
+import com.amazonaws.services.s3.model.CopyObjectResult;
 import com.amazonaws.services.s3.model.CreateBucketRequest;
 import com.amazonaws.services.s3.model.DeleteObjectsRequest;
 import com.amazonaws.services.s3.model.DeleteObjectsRequest.KeyVersion;
@@ -46,18 +69,76 @@ import com.amazonaws.services.s3.model.DeleteObjectsResult;
 import com.amazonaws.services.s3.model.GeneratePresignedUrlRequest;
 import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.Grant;
+import com.amazonaws.services.s3.model.ListMultipartUploadsRequest;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.MultipartUpload;
+import com.amazonaws.services.s3.model.MultipartUploadListing;
+import com.amazonaws.services.s3.model.ObjectListing;
 import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.Permission;
 import com.amazonaws.services.s3.model.PutObjectRequest;
 import com.amazonaws.services.s3.model.PutObjectResult;
 import com.amazonaws.services.s3.model.S3Object;
 import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.amazonaws.services.s3.transfer.MultipleFileUpload;
 import com.amazonaws.services.s3.transfer.Transfer;
+import com.amazonaws.services.s3.transfer.Transfer.TransferState;
 import com.amazonaws.services.s3.transfer.TransferManager;
+import com.amazonaws.services.s3.transfer.TransferManagerConfiguration;
 import com.amazonaws.services.s3.transfer.Upload;
+import com.amazonaws.services.s3.transfer.internal.AbstractTransfer;
+import com.amazonaws.util.BinaryUtils;
+import com.amazonaws.util.Md5Utils;
+import com.github.abhinavmishra14.aws.cache.CacheConfig;
+import com.github.abhinavmishra14.aws.cache.ObjectCache;
+import com.github.abhinavmishra14.aws.cache.ObjectCacheStats;
+import com.github.abhinavmishra14.aws.cache.PermissionCache;
+import com.github.abhinavmishra14.aws.cache.PermissionCacheStats;
+import com.github.abhinavmishra14.aws.cache.PresignedUrlCache;
+import com.github.abhinavmishra14.aws.cache.PresignedUrlCacheStats;
+import com.github.abhinavmishra14.aws.cache.SourceObject;
+import com.github.abhinavmishra14.aws.metrics.NoOpMetricsCollector;
+import com.github.abhinavmishra14.aws.metrics.S3MetricsCollector;
+import com.github.abhinavmishra14.aws.metrics.S3Operation;
+import com.github.abhinavmishra14.aws.retry.AdaptiveRetryConfig;
+import com.github.abhinavmishra14.aws.s3.http.PooledAmazonS3Client;
+import com.github.abhinavmishra14.aws.s3.listing.S3ObjectSummaryIterator;
+import com.github.abhinavmishra14.aws.s3.listing.ShardedObjectIterator;
+import com.github.abhinavmishra14.aws.s3.listing.ShardedObjectLister;
+import com.github.abhinavmishra14.aws.s3.metrics.S3MetricsRequestHandler;
+import com.github.abhinavmishra14.aws.s3.presign.BatchUrlPresigner;
+import com.github.abhinavmishra14.aws.s3.retry.AdaptiveRetryHandler;
+import com.github.abhinavmishra14.aws.s3.throttle.ThrottlingRequestHandler;
 import com.github.abhinavmishra14.aws.s3.service.AwsS3IamService;
+import com.github.abhinavmishra14.aws.s3.transfer.DirectoryDownloader;
+import com.github.abhinavmishra14.aws.s3.transfer.DirectorySynchronizer;
+import com.github.abhinavmishra14.aws.s3.transfer.RangedParallelDownloader;
+import com.github.abhinavmishra14.aws.s3.transfer.S3BatchDeleteAction;
+import com.github.abhinavmishra14.aws.s3.transfer.S3MultipartUploadAction;
+import com.github.abhinavmishra14.aws.s3.transfer.StreamingMultipartUploader;
+import com.github.abhinavmishra14.aws.s3.transfer.ThrottledProgressTracker;
+import com.github.abhinavmishra14.aws.s3.transfer.TransferConfig;
+import com.github.abhinavmishra14.aws.s3.transfer.TransferPoolStats;
+import com.github.abhinavmishra14.aws.throttle.PriorityThreadPoolExecutor;
+import com.github.abhinavmishra14.aws.throttle.RequestPriority;
+import com.github.abhinavmishra14.aws.throttle.RequestThrottle;
+import com.github.abhinavmishra14.aws.upload.UploadResult;
+import com.github.abhinavmishra14.aws.upload.UploadStrategy;
+import com.github.abhinavmishra14.aws.upload.UploadStrategySelector;
 import com.github.abhinavmishra14.aws.util.AWSUtil;
 import com.github.abhinavmishra14.aws.util.AWSUtilConstants;
+import com.github.abhinavmishra14.aws.util.BulkDeleteSummary;
+import com.github.abhinavmishra14.aws.util.BulkDeleter;
+import com.github.abhinavmishra14.aws.util.ConnectionPoolConfig;
+import com.github.abhinavmishra14.aws.util.ConnectionPoolStats;
+import com.github.abhinavmishra14.aws.util.DirectorySyncOptions;
+import com.github.abhinavmishra14.aws.util.DirectorySyncSummary;
+import com.github.abhinavmishra14.aws.util.DirectoryTransferSummary;
+import com.github.abhinavmishra14.aws.util.LoggingProgressListener;
+import com.github.abhinavmishra14.aws.util.MultipartUploadJournal;
+import com.github.abhinavmishra14.aws.util.NamedThreadFactory;
+import com.github.abhinavmishra14.aws.util.ResumableUploader;
+import com.github.abhinavmishra14.aws.util.TransferProgressListener;
 
 /**
  * The Class AwsS3IamServiceImpl.
@@ -78,6 +159,69 @@ public class AwsS3IamServiceImpl implements AwsS3IamService {
 	/** The s3client. */
 	private AmazonS3 s3client;
 
+	/** The transfer executor, shared by all the transfers of this service. */
+	private ThreadPoolExecutor transferExecutor;
+
+	/** The transfer manager, shared by all the transfers of this service. */
+	private TransferManager transferMgr;
+
+	/** The streaming uploader, null when the stream uploads are spooled to a temporary file. */
+	private StreamingMultipartUploader streamingUploader;
+
+	/** The shutdown flag. */
+	private final AtomicBoolean shutdownInvoked = new AtomicBoolean(false);
+
+	/** The ranged downloader, null when parallel download is disabled. */
+	private RangedParallelDownloader rangedDownloader;
+
+	/** The directory downloader. */
+	private DirectoryDownloader directoryDownloader;
+
+	/** The directory synchronizer. */
+	private DirectorySynchronizer directorySynchronizer;
+
+	/** The delete batches in flight. */
+	private int deleteBatchesInFlight;
+
+	/** The delete max retries. */
+	private int deleteMaxRetries;
+
+	/** The progress interval millis. */
+	private long progressIntervalMillis;
+
+	/** The resumable uploader. */
+	private ResumableUploader resumableUploader;
+
+	/** The minimum upload part size. */
+	private long minimumUploadPartSize;
+
+	/** The upload journal directory. */
+	private File uploadJournalDirectory;
+
+	/** The metrics collector. */
+	private S3MetricsCollector metricsCollector;
+
+	/** The request throttle, null when nothing is limited. */
+	private RequestThrottle requestThrottle;
+
+	/** The object cache, null when objects are not cached. */
+	private ObjectCache objectCache;
+
+	/** The upload strategy selector. */
+	private UploadStrategySelector uploadStrategySelector;
+
+	/** The streaming parts in flight. */
+	private int streamingPartsInFlight;
+
+	/** The presigned url cache, null when urls are not cached. */
+	private PresignedUrlCache presignedUrlCache;
+
+	/** The permissions granted by the acls, by bucket and key, null when permissions are not cached. */
+	private PermissionCache<Set<Permission>> grantedPermissionCache;
+
+	/** The write probes by bucket, null when permissions are not cached. */
+	private PermissionCache<Boolean> writeProbeCache;
+
 	/**
 	 * Instantiates a new aws s3 iam service impl.<br/>
 	 * Use this constructor if you have keys and dont want to use IAM roles.
@@ -86,16 +230,30 @@ public class AwsS3IamServiceImpl implements AwsS3IamService {
 	 * UseCase: Assuming you are working on a developer machine and want to
 	 * upload contents on S3 bucket.<br/>
 	 * This service is implementation of core amazon sdk.
-	 * 
+	 *
 	 *
 	 * @param accessKey the access key
 	 * @param secretKey the secret key
 	 */
 	public AwsS3IamServiceImpl(final String accessKey, final String secretKey) {
+		this(accessKey, secretKey, new TransferConfig());
+	}
+
+	/**
+	 * Instantiates a new aws s3 iam service impl.<br/>
+	 * Use this constructor if you have keys and dont want to use IAM roles and
+	 * want to tune the shared transfer engine.
+	 *
+	 * @param accessKey the access key
+	 * @param secretKey the secret key
+	 * @param transferConfig the transfer config
+	 */
+	public AwsS3IamServiceImpl(final String accessKey, final String secretKey, final TransferConfig transferConfig) {
 		super();
 		this.accessKey = accessKey;
 		this.secretKey = secretKey;
 		initService(); // Initialize the AwsS3IamService
+		initTransferManager(transferConfig, NoOpMetricsCollector.INSTANCE);
 	}
 
 	/**
@@ -112,19 +270,262 @@ public class AwsS3IamServiceImpl implements AwsS3IamService {
 		}
 		final AWSCredentials credentials = new BasicAWSCredentials(accessKey, secretKey);
 		// create a client connection based on credentials
-		s3client = new AmazonS3Client(credentials);
+		s3client = PooledAmazonS3Client.create(new StaticCredentialsProvider(credentials), new ClientConfiguration());
 	}
 
 	/**
 	 * Instantiates a new aws s3 iam service impl.
 	 */
 	public AwsS3IamServiceImpl() {
+		this(new TransferConfig());
+	}
+
+	/**
+	 * Instantiates a new aws s3 iam service impl using IAM role and the given
+	 * settings for the shared transfer engine.
+	 *
+	 * @param transferConfig the transfer config
+	 */
+	public AwsS3IamServiceImpl(final TransferConfig transferConfig) {
 		super();
 		if (LOGGER.isDebugEnabled()) {
 			LOGGER.debug("AwsS3IamService is initializing using IAM Role..");
 		}
 		// create a client connection based on IAM role assigned
-		s3client = new AmazonS3Client();
+		s3client = PooledAmazonS3Client.create(new DefaultAWSCredentialsProviderChain(), new ClientConfiguration());
+		initTransferManager(transferConfig, NoOpMetricsCollector.INSTANCE);
+	}
+
+	/**
+	 * Instantiates a new aws s3 iam service impl on top of the given client.<br/>
+	 * Use this constructor to point the service at another endpoint, e.g. a
+	 * LocalS3Server in tests and benchmarks, or to configure the client yourself.
+	 * The client is shut down along with the service.
+	 *
+	 * @param s3client the s3 client
+	 */
+	public AwsS3IamServiceImpl(final AmazonS3 s3client) {
+		this(s3client, new TransferConfig());
+	}
+
+	/**
+	 * Instantiates a new aws s3 iam service impl on top of the given client and
+	 * with the given settings for the shared transfer engine.
+	 *
+	 * @param s3client the s3 client
+	 * @param transferConfig the transfer config
+	 */
+	public AwsS3IamServiceImpl(final AmazonS3 s3client, final TransferConfig transferConfig) {
+		this(s3client, transferConfig, NoOpMetricsCollector.INSTANCE);
+	}
+
+	/**
+	 * Instantiates a new aws s3 iam service impl on top of the given client,
+	 * with the given settings for the shared transfer engine and reporting its
+	 * requests to the given metrics collector.<br/>
+	 * Every request sent by the service, including the parts and ranges of the
+	 * transfers, is reported to the collector. With the {@link NoOpMetricsCollector}
+	 * nothing is recorded and no hook is installed on the client.
+	 *
+	 * @param s3client the s3 client
+	 * @param transferConfig the transfer config
+	 * @param metricsCollector the metrics collector
+	 */
+	public AwsS3IamServiceImpl(final AmazonS3 s3client, final TransferConfig transferConfig,
+			final S3MetricsCollector metricsCollector) {
+		super();
+		AWSUtil.notNull(s3client, "AmazonS3 client is null!");
+		AWSUtil.notNull(metricsCollector, "Metrics collector is null!");
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("AwsS3IamService is initializing using the given client..");
+		}
+		this.s3client = s3client;
+		initTransferManager(transferConfig, metricsCollector);
+	}
+
+	/**
+	 * Creates a builder of the service.<br/>
+	 * Use it to size the http connection pool and to tune the sockets, e.g. for
+	 * hundreds of concurrent transfers.
+	 *
+	 * @return the builder
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Inits the transfer manager.<br/>
+	 * One TransferManager and one thread pool are created per service instance
+	 * and reused by every transfer, they are released by {@link #shutdown()}.
+	 *
+	 * @param transferConfig the transfer config
+	 * @param metricsCollector the metrics collector
+	 */
+	private void initTransferManager(final TransferConfig transferConfig, final S3MetricsCollector metricsCollector) {
+		AWSUtil.notNull(transferConfig, "TransferConfig is null!");
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("Initializing shared transfer manager with {}", transferConfig);
+		}
+		final int threadCount = transferConfig.getThreadCount();
+		if (transferConfig.getThrottleConfig() != null) {
+			requestThrottle = transferConfig.getThrottleConfig().newRequestThrottle();
+		}
+		final ThreadFactory threadFactory = new NamedThreadFactory(AWSUtilConstants.TRANSFER_THREAD_NAME_PREFIX);
+		if (requestThrottle == null) {
+			transferExecutor = new ThreadPoolExecutor(threadCount, threadCount,
+					AWSUtilConstants.DEFAULT_TRANSFER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<Runnable>(), threadFactory);
+		} else {
+			// Tasks on the shared pool keep the priority of the caller which submitted them
+			transferExecutor = new PriorityThreadPoolExecutor(threadCount, threadCount,
+					AWSUtilConstants.DEFAULT_TRANSFER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<Runnable>(), threadFactory);
+		}
+		// Idle services should not hold on to threads
+		transferExecutor.allowCoreThreadTimeOut(true);
+		transferMgr = new TransferManager(s3client, transferExecutor);
+		final TransferManagerConfiguration transferMgrConfig = new TransferManagerConfiguration();
+		transferMgrConfig.setMultipartUploadThreshold(transferConfig.getMultipartUploadThreshold());
+		transferMgrConfig.setMinimumUploadPartSize(transferConfig.getMinimumUploadPartSize());
+		transferMgr.setConfiguration(transferMgrConfig);
+		if (transferConfig.isStreamingUploadEnabled()) {
+			streamingUploader = new StreamingMultipartUploader(s3client, transferExecutor,
+					transferConfig.getMinimumUploadPartSize(), transferConfig.getStreamingPartsInFlight());
+		}
+		if (transferConfig.isParallelDownloadEnabled()) {
+			rangedDownloader = new RangedParallelDownloader(s3client, transferExecutor,
+					transferConfig.getDownloadPartSize(), transferConfig.getDownloadRangesInFlight());
+		}
+		directoryDownloader = new DirectoryDownloader(s3client, transferExecutor, rangedDownloader,
+				transferConfig.getDirectoryFilesInFlight());
+		deleteBatchesInFlight = transferConfig.getDeleteBatchesInFlight();
+		deleteMaxRetries = transferConfig.getDeleteMaxRetries();
+		directorySynchronizer = new DirectorySynchronizer(s3client, transferMgr, transferExecutor,
+				transferConfig.getMultipartUploadThreshold(), transferConfig.getDirectoryFilesInFlight(),
+				deleteBatchesInFlight, deleteMaxRetries);
+		progressIntervalMillis = transferConfig.getProgressIntervalMillis();
+		resumableUploader = new ResumableUploader(transferExecutor, transferConfig.getStreamingPartsInFlight());
+		minimumUploadPartSize = transferConfig.getMinimumUploadPartSize();
+		streamingPartsInFlight = transferConfig.getStreamingPartsInFlight();
+		uploadStrategySelector = new UploadStrategySelector(transferConfig.getMultipartUploadThreshold(),
+				minimumUploadPartSize);
+		uploadJournalDirectory = transferConfig.getUploadJournalDirectory();
+		this.metricsCollector = metricsCollector;
+		if (NoOpMetricsCollector.isEnabled(metricsCollector)) {
+			if (s3client instanceof AmazonWebServiceClient) {
+				((AmazonWebServiceClient) s3client).addRequestHandler(new S3MetricsRequestHandler(metricsCollector));
+			} else {
+				LOGGER.warn("Metrics are not recorded, {} does not accept request handlers", s3client.getClass());
+			}
+		}
+		if (transferConfig.getCacheConfig() != null) {
+			initCaches(transferConfig.getCacheConfig());
+		}
+		if (requestThrottle != null) {
+			if (s3client instanceof AmazonWebServiceClient) {
+				((AmazonWebServiceClient) s3client).addRequestHandler(new ThrottlingRequestHandler(requestThrottle));
+			} else {
+				LOGGER.warn("Requests are not limited, {} does not accept request handlers", s3client.getClass());
+			}
+		}
+	}
+
+	/**
+	 * Inits the caches whose config is set.
+	 *
+	 * @param cacheConfig the cache config
+	 */
+	private void initCaches(final CacheConfig cacheConfig) {
+		if (cacheConfig.getObjectCacheConfig() != null) {
+			objectCache = new ObjectCache(cacheConfig.getObjectCacheConfig());
+		}
+		if (cacheConfig.getPresignedUrlCacheConfig() != null) {
+			presignedUrlCache = new PresignedUrlCache(cacheConfig.getPresignedUrlCacheConfig());
+		}
+		if (cacheConfig.getPermissionCacheConfig() != null) {
+			grantedPermissionCache = new PermissionCache<Set<Permission>>(cacheConfig.getPermissionCacheConfig());
+			writeProbeCache = new PermissionCache<Boolean>(cacheConfig.getPermissionCacheConfig());
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.s3.service.AwsS3IamService#getRequestThrottle()
+	 */
+	@Override
+	public RequestThrottle getRequestThrottle() {
+		return requestThrottle;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.s3.service.AwsS3IamService#getTransferPoolStats()
+	 */
+	@Override
+	public TransferPoolStats getTransferPoolStats() {
+		return new TransferPoolStats(transferExecutor);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.s3.service.AwsS3IamService#getConnectionPoolStats()
+	 */
+	@Override
+	public ConnectionPoolStats getConnectionPoolStats() {
+		if (s3client instanceof PooledAmazonS3Client) {
+			return ((PooledAmazonS3Client) s3client).getConnectionPoolStats();
+		}
+		return null;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.s3.service.AwsS3IamService#getObjectCacheStats()
+	 */
+	@Override
+	public ObjectCacheStats getObjectCacheStats() {
+		return objectCache == null ? null : objectCache.getStats();
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.s3.service.AwsS3IamService#getPresignedUrlCacheStats()
+	 */
+	@Override
+	public PresignedUrlCacheStats getPresignedUrlCacheStats() {
+		return presignedUrlCache == null ? null : presignedUrlCache.getStats();
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.s3.service.AwsS3IamService#getPermissionCacheStats()
+	 */
+	@Override
+	public PermissionCacheStats getPermissionCacheStats() {
+		return grantedPermissionCache == null ? null
+				: grantedPermissionCache.getStats().plus(writeProbeCache.getStats());
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.s3.service.AwsS3IamService#shutdown()
+	 */
+	@Override
+	public void shutdown() {
+		if (shutdownInvoked.compareAndSet(false, true)) {
+			LOGGER.info("shutdown invoked, releasing transfer pool and s3 client..");
+			// Shuts down the transfer executor as well as the s3 client
+			transferMgr.shutdownNow(true);
+			if (objectCache != null) {
+				objectCache.clear();
+			}
+			if (grantedPermissionCache != null) {
+				grantedPermissionCache.clear();
+				writeProbeCache.clear();
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.s3.service.AwsS3IamService#close()
+	 */
+	@Override
+	public void close() {
+		shutdown();
 	}
 
 	
@@ -182,6 +583,7 @@ public class AwsS3IamServiceImpl implements AwsS3IamService {
 	public void deleteBucket(final String bucketName) throws AmazonClientException, AmazonServiceException {
 		LOGGER.info("deleteBucket invoked, bucketName: {}",bucketName);
 		s3client.deleteBucket(bucketName);
+		invalidateCachedPermissions(bucketName);
 	}
 
 	/* (non-Javadoc)
@@ -191,7 +593,9 @@ public class AwsS3IamServiceImpl implements AwsS3IamService {
 	public PutObjectResult uploadObject(final PutObjectRequest putObjectRequest)
 			throws AmazonClientException, AmazonServiceException {
 		LOGGER.info("uploadObject invoked..");
-		return s3client.putObject(putObjectRequest);
+		final PutObjectResult putObjectResult = s3client.putObject(putObjectRequest);
+		invalidateCachedObject(putObjectRequest.getBucketName(), putObjectRequest.getKey());
+		return putObjectResult;
 	}
 
 	/* (non-Javadoc)
@@ -210,6 +614,13 @@ public class AwsS3IamServiceImpl implements AwsS3IamService {
 	public PutObjectResult uploadObject(final String bucketName, final String fileName, final InputStream inputStream,
 			final CannedAccessControlList cannedAcl) throws AmazonClientException, AmazonServiceException, IOException {
 		LOGGER.info("uploadObject invoked, bucketName: {} , fileName: {}, cannedAccessControlList: {}", bucketName, fileName, cannedAcl);
+		if (streamingUploader != null) {
+			// Push the parts to S3 while the stream is being read
+			final PutObjectResult putObjectResult = streamingUploader.upload(bucketName, fileName, inputStream,
+					cannedAcl);
+			invalidateCachedObject(bucketName, fileName);
+			return putObjectResult;
+		}
 		File tempFile = null;
 		PutObjectRequest putObjectRequest = null;
 		PutObjectResult uploadResult = null;
@@ -231,6 +642,13 @@ public class AwsS3IamServiceImpl implements AwsS3IamService {
 	public PutObjectResult uploadObject(final String bucketName, final String fileName, final InputStream inputStream,
 			final boolean isPublicAccessible) throws AmazonClientException, AmazonServiceException, IOException {
 		LOGGER.info("uploadObject invoked, bucketName: {} , fileName: {} and isPublicAccessible: {}", bucketName, fileName, isPublicAccessible);
+		if (streamingUploader != null) {
+			// Push the parts to S3 while the stream is being read
+			final PutObjectResult putObjectResult = streamingUploader.upload(bucketName, fileName, inputStream,
+					toCannedAcl(isPublicAccessible));
+			invalidateCachedObject(bucketName, fileName);
+			return putObjectResult;
+		}
 		File tempFile = null;
 		PutObjectRequest putObjectRequest = null;
 		PutObjectResult uploadResult = null;
@@ -265,6 +683,9 @@ public class AwsS3IamServiceImpl implements AwsS3IamService {
 			final InputStream inputStream, final CannedAccessControlList cannedAcl)
 			throws AmazonClientException, AmazonServiceException, IOException {
 		LOGGER.info("uploadObjectAndListenProgress invoked, bucketName: {} , fileName: {} and cannedAccessControlList: {}", bucketName, fileName, cannedAcl);
+		if (streamingUploader != null) {
+			return uploadStreamAndLogProgress(bucketName, fileName, inputStream, cannedAcl);
+		}
 		File tempFile = null;
 		PutObjectRequest putObjectRequest = null;
 		Upload upload = null;
@@ -272,7 +693,6 @@ public class AwsS3IamServiceImpl implements AwsS3IamService {
 			// Create temporary file from stream to avoid 'out of memory' exception
 			tempFile = AWSUtil.createTempFileFromStream(inputStream);
 			putObjectRequest = new PutObjectRequest(bucketName, fileName, tempFile).withCannedAcl(cannedAcl);
-			final TransferManager transferMgr = new TransferManager(s3client);
 			upload = transferMgr.upload(putObjectRequest);
 			// You can poll your transfer's status to check its progress
 			if (upload.isDone()) {
@@ -280,15 +700,8 @@ public class AwsS3IamServiceImpl implements AwsS3IamService {
 						upload.getState(), upload.getProgress().getPercentTransferred());
 			}
 			 
-			// Add progressListener to listen asynchronous notifications about your transfer's progress
-			// Uncomment below code snippet during development
-			/*upload.addProgressListener(new ProgressListener() {
-				public void progressChanged(ProgressEvent event) {
-					if (LOGGER.isDebugEnabled()) {
-						LOGGER.debug("Transferred bytes: " + (long) event.getBytesTransferred());
-					}
-	             }
-			});*/
+			// Log the progress of the transfer, throttled
+			newLoggingTracker(upload.getDescription()).attach(upload, transferExecutor);
 							
 			try {
 				//Block the current thread and wait for completion
@@ -297,6 +710,7 @@ public class AwsS3IamServiceImpl implements AwsS3IamService {
 			} catch (AmazonClientException | InterruptedException excp) {
 				LOGGER.error("Exception occured while waiting for transfer: ",excp);
 			}
+			invalidateCachedObject(bucketName, fileName);
 		} finally {
 			AWSUtil.deleteTempFile(tempFile); // Delete the temporary file once uploaded
 		}
@@ -313,6 +727,9 @@ public class AwsS3IamServiceImpl implements AwsS3IamService {
 			final InputStream inputStream, final boolean isPublicAccessible)
 			throws AmazonClientException, AmazonServiceException, IOException {
 		LOGGER.info("uploadObjectAndListenProgress invoked, bucketName: {} , fileName: {} and isPublicAccessible: {}", bucketName, fileName, isPublicAccessible);
+		if (streamingUploader != null) {
+			return uploadStreamAndLogProgress(bucketName, fileName, inputStream, toCannedAcl(isPublicAccessible));
+		}
 		File tempFile = null;
 		PutObjectRequest putObjectRequest = null;
 		Upload upload = null;
@@ -323,7 +740,6 @@ public class AwsS3IamServiceImpl implements AwsS3IamService {
 			if(isPublicAccessible){
 			  putObjectRequest.setCannedAcl(CannedAccessControlList.PublicRead);
 			}
-			final TransferManager transferMgr = new TransferManager(s3client);
 			upload = transferMgr.upload(putObjectRequest);
 			// You can poll your transfer's status to check its progress
 			if (upload.isDone()) {
@@ -331,15 +747,8 @@ public class AwsS3IamServiceImpl implements AwsS3IamService {
 						upload.getState(), upload.getProgress().getPercentTransferred());
 			}
 			 
-			// Add progressListener to listen asynchronous notifications about your transfer's progress
-			// Uncomment below code snippet during development
-			/*upload.addProgressListener(new ProgressListener() {
-				public void progressChanged(ProgressEvent event) {
-					if (LOGGER.isDebugEnabled()) {
-						LOGGER.debug("Transferred bytes: " + (long) event.getBytesTransferred());
-					}
-	             }
-			});*/
+			// Log the progress of the transfer, throttled
+			newLoggingTracker(upload.getDescription()).attach(upload, transferExecutor);
 							
 			try {
 				//Block the current thread and wait for completion
@@ -348,6 +757,7 @@ public class AwsS3IamServiceImpl implements AwsS3IamService {
 			} catch (AmazonClientException | InterruptedException excp) {
 				LOGGER.error("Exception occured while waiting for transfer: ",excp);
 			}
+			invalidateCachedObject(bucketName, fileName);
 		} finally {
 			AWSUtil.deleteTempFile(tempFile); // Delete the temporary file once uploaded
 		}
@@ -355,8 +765,59 @@ public class AwsS3IamServiceImpl implements AwsS3IamService {
 				upload.getState(), upload.getProgress().getPercentTransferred());
 		return upload.isDone();
 	}
-	
-	
+
+	/**
+	 * Upload stream and log progress.<br/>
+	 * Uploads the stream via streaming multipart uploader and waits for completion.
+	 *
+	 * @param bucketName the bucket name
+	 * @param fileName the file name
+	 * @param inputStream the input stream
+	 * @param cannedAcl the canned acl
+	 * @return true, if upload completed
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private boolean uploadStreamAndLogProgress(final String bucketName, final String fileName,
+			final InputStream inputStream, final CannedAccessControlList cannedAcl) throws IOException {
+		final long startTime = System.currentTimeMillis();
+		LOGGER.info("Start: Streaming upload to bucket {}, key: {}", bucketName, fileName);
+		boolean isDone = false;
+		final ThrottledProgressTracker tracker = newLoggingTracker("Streaming upload to " + bucketName + "/" + fileName);
+		try {
+			streamingUploader.upload(bucketName, fileName, inputStream, cannedAcl, tracker);
+			invalidateCachedObject(bucketName, fileName);
+			tracker.completed();
+			isDone = true;
+		} catch (AmazonClientException excp) {
+			tracker.failed(excp);
+		}
+		LOGGER.info("End: Streaming upload to bucket {}, key: {}, completed: {} in {} ms", bucketName, fileName,
+				isDone, System.currentTimeMillis() - startTime);
+		return isDone;
+	}
+
+	/**
+	 * New logging tracker, logs progress at most once per
+	 * {@link AWSUtilConstants#PROGRESS_LOG_INTERVAL_MILLIS}.
+	 *
+	 * @param description the description of the transfer
+	 * @return the throttled progress tracker
+	 */
+	private static ThrottledProgressTracker newLoggingTracker(final String description) {
+		return new ThrottledProgressTracker(description, new LoggingProgressListener(),
+				AWSUtilConstants.PROGRESS_LOG_INTERVAL_MILLIS, -1);
+	}
+
+	/**
+	 * To canned acl.
+	 *
+	 * @param isPublicAccessible the is public accessible
+	 * @return the PublicRead canned acl if public accessible, null otherwise
+	 */
+	private static CannedAccessControlList toCannedAcl(final boolean isPublicAccessible) {
+		return isPublicAccessible ? CannedAccessControlList.PublicRead : null;
+	}
+
 	/* (non-Javadoc)
 	 * @see com.github.abhinavmishra14.aws.s3.service.AwsS3IamService#uploadFileAsync(java.lang.String, java.lang.String, java.io.File)
 	 */
@@ -374,8 +835,7 @@ public class AwsS3IamServiceImpl implements AwsS3IamService {
 			final CannedAccessControlList cannedAcl) throws AmazonClientException, AmazonServiceException, IOException {
 		LOGGER.info("uploadObjectAsync invoked, bucketName: {} , fileName: {} and cannedAccessControlList: {}", bucketName, fileName, cannedAcl);
 		final PutObjectRequest putObjectRequest = new PutObjectRequest(bucketName, fileName, fileObj).withCannedAcl(cannedAcl);
-		final TransferManager transferMgr = new TransferManager(s3client);
-		return transferMgr.upload(putObjectRequest);
+		return invalidateWhenDone(transferMgr.upload(putObjectRequest), () -> invalidateCachedObject(bucketName, fileName));
 	}
 	
 	/* (non-Javadoc)
@@ -389,8 +849,24 @@ public class AwsS3IamServiceImpl implements AwsS3IamService {
 		if(isPublicAccessible){
 		  putObjectRequest.setCannedAcl(CannedAccessControlList.PublicRead);
 		}
-		final TransferManager transferMgr = new TransferManager(s3client);
-		return transferMgr.upload(putObjectRequest);
+		return invalidateWhenDone(transferMgr.upload(putObjectRequest), () -> invalidateCachedObject(bucketName, fileName));
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.s3.service.AwsS3IamService#uploadFileAsync(java.lang.String, java.lang.String, java.io.File, com.amazonaws.services.s3.model.CannedAccessControlList, com.github.abhinavmishra14.aws.util.TransferProgressListener)
+	 */
+	@Override
+	public Upload uploadFileAsync(final String bucketName, final String fileName, final File fileObj,
+			final CannedAccessControlList cannedAcl, final TransferProgressListener progressListener)
+			throws AmazonClientException, AmazonServiceException, IOException {
+		LOGGER.info("uploadFileAsync invoked, bucketName: {} , fileName: {} and cannedAccessControlList: {}", bucketName, fileName, cannedAcl);
+		AWSUtil.notNull(progressListener, "TransferProgressListener is null!");
+		final PutObjectRequest putObjectRequest = new PutObjectRequest(bucketName, fileName, fileObj).withCannedAcl(cannedAcl);
+		final Upload upload = invalidateWhenDone(transferMgr.upload(putObjectRequest),
+				() -> invalidateCachedObject(bucketName, fileName));
+		new ThrottledProgressTracker(upload.getDescription(), progressListener, progressIntervalMillis,
+				fileObj.length()).attach(upload, transferExecutor);
+		return upload;
 	}
 
 	
@@ -404,12 +880,13 @@ public class AwsS3IamServiceImpl implements AwsS3IamService {
 		LOGGER.info("uploadDirectoryOrFileAndWaitForCompletion invoked, bucketName: {} , Source: {}", bucketName,
 				source.getAbsolutePath());
 		Transfer transfer = null;
-		final TransferManager transferMgr = new TransferManager(s3client);
 		if (source.isFile()) {
-			transfer = transferMgr.upload(bucketName,source.getPath(),source);
+			transfer = invalidateWhenDone(transferMgr.upload(bucketName,source.getPath(),source),
+					() -> invalidateCachedObject(bucketName, source.getPath()));
 		} else if (source.isDirectory()) {
 			//upload recursively
-			transfer = transferMgr.uploadDirectory(bucketName, virtualDirectoryKeyPrefix, source, true);
+			transfer = invalidateWhenDone(uploadDirectoryInBulk(bucketName, virtualDirectoryKeyPrefix, source),
+					() -> invalidateCachedPrefix(bucketName, virtualDirectoryKeyPrefix));
 		} else {
 			throw new FileNotFoundException("File is neither a regular file nor a directory " + source);
 		}
@@ -421,15 +898,8 @@ public class AwsS3IamServiceImpl implements AwsS3IamService {
 			
 		}
 		 
-		// Add progressListener to listen asynchronous notifications about your transfer's progress
-		// Uncomment below code snippet during development
-		/*transfer.addProgressListener(new ProgressListener() {
-			public void progressChanged(ProgressEvent event) {
-				if (LOGGER.isDebugEnabled()) {
-					LOGGER.debug("Transferred bytes: " + (long) event.getBytesTransferred());
-				}
-             }
-		});*/
+		// Log the progress of the transfer, throttled
+		newLoggingTracker(transfer.getDescription()).attach(transfer, transferExecutor);
 	
 		try {
 			//Block the current thread and wait for completion
@@ -454,108 +924,604 @@ public class AwsS3IamServiceImpl implements AwsS3IamService {
 		LOGGER.info("uploadDirectoryOrFile invoked, bucketName: {} , Source: {}", bucketName,
 				source.getAbsolutePath());
 		Transfer transfer = null;
-		final TransferManager trMgr = new TransferManager(s3client);
 		if (source.isFile()) {
-			transfer = trMgr.upload(bucketName,source.getPath(),source);
+			transfer = invalidateWhenDone(transferMgr.upload(bucketName,source.getPath(),source),
+					() -> invalidateCachedObject(bucketName, source.getPath()));
 		} else if (source.isDirectory()) {
 			//Upload recursively
 			//virtualDirectoryKeyPrefix could be virtual directory name inside the bucket
-			transfer = trMgr.uploadDirectory(bucketName, virtualDirectoryKeyPrefix, source, true);
+			transfer = invalidateWhenDone(uploadDirectoryInBulk(bucketName, virtualDirectoryKeyPrefix, source),
+					() -> invalidateCachedPrefix(bucketName, virtualDirectoryKeyPrefix));
 		} else {
 			throw new FileNotFoundException("Source is neither a regular file nor a directory " + source);
 		}
 		return transfer;
 	}
-	
+
 	/* (non-Javadoc)
-	 * @see com.abhinav.aws.s3.service.AwsS3IamService#getObject(com.amazonaws.services.s3.model.GetObjectRequest)
+	 * @see com.github.abhinavmishra14.aws.s3.service.AwsS3IamService#uploadFileResumable(java.lang.String, java.lang.String, java.io.File, com.amazonaws.services.s3.model.CannedAccessControlList)
 	 */
 	@Override
-	public S3Object getObject(final GetObjectRequest getObjRequest)
-			throws AmazonClientException, AmazonServiceException {
-		LOGGER.info("getObject invoked..");
-		return s3client.getObject(getObjRequest);
+	public PutObjectResult uploadFileResumable(final String bucketName, final String fileName, final File fileObj,
+			final CannedAccessControlList cannedAcl) throws AmazonClientException, AmazonServiceException, IOException {
+		LOGGER.info("uploadFileResumable invoked, bucketName: {} , fileName: {} and cannedAccessControlList: {}", bucketName, fileName, cannedAcl);
+		if (!fileObj.isFile()) {
+			throw new FileNotFoundException("Source is not a regular file " + fileObj);
+		}
+		final long partSize = ResumableUploader.partSizeFor(fileObj.length(), minimumUploadPartSize);
+		if (fileObj.length() <= partSize) {
+			// Single request, nothing to resume
+			return uploadObject(new PutObjectRequest(bucketName, fileName, fileObj).withCannedAcl(cannedAcl));
+		}
+		final File journalDirectory = uploadJournalDirectory == null
+				? MultipartUploadJournal.defaultJournalDirectory() : uploadJournalDirectory;
+		final String eTag = uploadResumable(bucketName, fileName, fileObj, cannedAcl, partSize, journalDirectory);
+		invalidateCachedObject(bucketName, fileName);
+		final PutObjectResult putObjectResult = new PutObjectResult();
+		putObjectResult.setETag(eTag);
+		return putObjectResult;
 	}
 
-	
-	/* (non-Javadoc)
-	 * @see com.abhinav.aws.s3.service.AwsS3IamService#getObject(java.lang.String, java.lang.String)
+	/**
+	 * Upload a file as a multipart upload with parts sent concurrently. With a
+	 * journal directory its progress is journaled so that a later call uploads
+	 * only the missing parts, without one a failed upload is aborted.
+	 *
+	 * @param bucketName the bucket name
+	 * @param fileName the file name
+	 * @param fileObj the file obj
+	 * @param cannedAcl the canned acl
+	 * @param partSize the part size
+	 * @param journalDirectory the journal directory, null to upload without journal
+	 * @return the e tag of the object
+	 * @throws AmazonClientException the amazon client exception
+	 * @throws IOException Signals that an I/O exception has occurred.
 	 */
-	@Override
-	public InputStream getObject(final String bucketName, final String key)
-			throws AmazonClientException, AmazonServiceException {
-		LOGGER.info("getObject invoked, bucketName: {}, key: {}", bucketName, key);
-		final GetObjectRequest getObjRequest = new GetObjectRequest(bucketName, key);
-		final S3Object s3Object = getObject(getObjRequest);
-		return s3Object.getObjectContent();
+	private String uploadResumable(final String bucketName, final String fileName, final File fileObj,
+			final CannedAccessControlList cannedAcl, final long partSize, final File journalDirectory)
+			throws AmazonClientException, IOException {
+		final File journalFile = journalDirectory == null ? null
+				: MultipartUploadJournal.journalFileFor(journalDirectory, bucketName, fileName, fileObj);
+		try {
+			return resumableUploader.upload(new S3MultipartUploadAction(s3client, bucketName, fileName, cannedAcl),
+					bucketName, fileName, fileObj, journalFile, partSize);
+		} catch (InterruptedException intrEx) {
+			Thread.currentThread().interrupt();
+			throw new AmazonClientException("Interrupted while uploading " + fileName, intrEx);
+		} catch (Exception excp) {
+			if (excp instanceof AmazonClientException) {
+				throw (AmazonClientException) excp;
+			}
+			if (excp instanceof IOException) {
+				throw (IOException) excp;
+			}
+			if (excp instanceof IllegalArgumentException) {
+				throw (IllegalArgumentException) excp;
+			}
+			throw new AmazonClientException("Failed to upload " + fileName, excp);
+		}
 	}
 
-	
 	/* (non-Javadoc)
-	 * @see com.abhinav.aws.s3.service.AwsS3IamService#downloadObject(java.lang.String, java.lang.String, java.lang.String)
+	 * @see com.github.abhinavmishra14.aws.s3.service.AwsS3IamService#upload(java.lang.String, java.lang.String, java.io.File)
 	 */
 	@Override
-	public ObjectMetadata downloadObject(final String bucketName, final String key, final String filePath)
-			throws AmazonClientException, AmazonServiceException {
-		LOGGER.info("downloadObject invoked, bucketName: {}, key: {}, filePath: {}", bucketName, key, filePath);
-		final GetObjectRequest getObjRequest = new GetObjectRequest(bucketName, key);
-		return s3client.getObject(getObjRequest, new File(filePath));
+	public UploadResult upload(final String bucketName, final String key, final File source)
+			throws AmazonClientException, AmazonServiceException, IOException {
+		LOGGER.info("upload invoked, bucketName: {} , key: {} and source: {}", bucketName, key, source);
+		if (!source.isFile()) {
+			throw new FileNotFoundException("Source is not a regular file " + source);
+		}
+		final long startTime = System.currentTimeMillis();
+		final long contentLength = source.length();
+		final UploadStrategy strategy = uploadStrategySelector.select(contentLength, true);
+		final String eTag;
+		long partSize = 0;
+		if (strategy == UploadStrategy.SINGLE_PUT) {
+			eTag = s3client.putObject(new PutObjectRequest(bucketName, key, source)).getETag();
+		} else {
+			partSize = uploadStrategySelector.partSizeFor(contentLength);
+			// Journaled only when a journal directory is configured
+			eTag = uploadResumable(bucketName, key, source, null, partSize, uploadJournalDirectory);
+		}
+		return completeUpload(bucketName, key, eTag, contentLength, strategy, partSize, startTime);
 	}
 
 	/* (non-Javadoc)
-	 * @see com.github.abhinavmishra14.aws.s3.service.AwsS3IamService#createDirectory(java.lang.String, java.lang.String)
+	 * @see com.github.abhinavmishra14.aws.s3.service.AwsS3IamService#upload(java.lang.String, java.lang.String, java.io.InputStream, long)
 	 */
 	@Override
-	public PutObjectResult createDirectory(final String bucketName, final String dirName)
-			throws AmazonClientException, AmazonServiceException {
-		return createDirectory(bucketName, dirName,false);
+	public UploadResult upload(final String bucketName, final String key, final InputStream inputStream,
+			final long contentLength) throws AmazonClientException, AmazonServiceException, IOException {
+		LOGGER.info("upload invoked, bucketName: {} , key: {} and contentLength: {}", bucketName, key, contentLength);
+		final long startTime = System.currentTimeMillis();
+		final UploadStrategy strategy = uploadStrategySelector.select(contentLength, false);
+		if (strategy == UploadStrategy.SINGLE_PUT) {
+			final ObjectMetadata metadata = new ObjectMetadata();
+			metadata.setContentLength(contentLength);
+			final String eTag = s3client.putObject(new PutObjectRequest(bucketName, key, inputStream, metadata))
+					.getETag();
+			return completeUpload(bucketName, key, eTag, contentLength, strategy, 0, startTime);
+		}
+		if (streamingUploader == null) {
+			File tempFile = null;
+			try {
+				// Streaming uploads are disabled, the parts are read from a temporary file
+				tempFile = AWSUtil.createTempFileFromStream(inputStream);
+				return upload(bucketName, key, tempFile);
+			} finally {
+				AWSUtil.deleteTempFile(tempFile);
+			}
+		}
+		final long partSize = uploadStrategySelector.partSizeFor(contentLength);
+		final StreamingMultipartUploader uploader = partSize == minimumUploadPartSize ? streamingUploader
+				: new StreamingMultipartUploader(s3client, transferExecutor, partSize, streamingPartsInFlight);
+		final CountingInputStream countingStream = new CountingInputStream(inputStream);
+		final String eTag = uploader.upload(bucketName, key, countingStream, null).getETag();
+		return completeUpload(bucketName, key, eTag, countingStream.getByteCount(), strategy, partSize, startTime);
 	}
-	
+
+	/**
+	 * Complete an upload, the cached copy of the object is dropped and the
+	 * throughput of the upload is recorded for the next selections.
+	 *
+	 * @param bucketName the bucket name
+	 * @param key the key
+	 * @param eTag the e tag
+	 * @param contentLength the content length
+	 * @param strategy the strategy
+	 * @param partSize the part size, 0 for a single PUT
+	 * @param startTime the start time
+	 * @return the upload result
+	 */
+	private UploadResult completeUpload(final String bucketName, final String key, final String eTag,
+			final long contentLength, final UploadStrategy strategy, final long partSize, final long startTime) {
+		invalidateCachedObject(bucketName, key);
+		final long elapsedMillis = System.currentTimeMillis() - startTime;
+		uploadStrategySelector.recordUpload(strategy, contentLength, elapsedMillis);
+		final UploadResult uploadResult = new UploadResult(bucketName, key, eTag, contentLength, strategy, partSize,
+				elapsedMillis);
+		LOGGER.info("upload completed, {}", uploadResult);
+		return uploadResult;
+	}
+
 	/* (non-Javadoc)
-	 * @see com.github.abhinavmishra14.aws.s3.service.AwsS3IamService#createDirectory(java.lang.String, java.lang.String, com.amazonaws.services.s3.model.CannedAccessControlList)
+	 * @see com.github.abhinavmishra14.aws.s3.service.AwsS3IamService#abortMultipartUploads(java.lang.String, java.util.Date)
 	 */
 	@Override
-	public PutObjectResult createDirectory(final String bucketName, final String dirName, final CannedAccessControlList cannedAcl)
+	public int abortMultipartUploads(final String bucketName, final Date initiatedBefore)
 			throws AmazonClientException, AmazonServiceException {
-		LOGGER.info("createDirectory invoked, bucketName: {}, dirName: {} and cannedAccessControlList: {}", bucketName, dirName, cannedAcl);
-		final ObjectMetadata metadata = new ObjectMetadata();
-		metadata.setContentLength(0);
-		// Create empty content,since creating empty folder needs an empty content
-		final InputStream emptyContent = new ByteArrayInputStream(new byte[0]);
-		// Create a PutObjectRequest passing the directory name suffixed by '/'
-		final PutObjectRequest putObjectRequest = new PutObjectRequest(bucketName, dirName + AWSUtilConstants.SEPARATOR,
-				emptyContent, metadata).withCannedAcl(cannedAcl);
-		return s3client.putObject(putObjectRequest);
+		LOGGER.info("abortMultipartUploads invoked, bucketName: {} , initiatedBefore: {}", bucketName, initiatedBefore);
+		final ListMultipartUploadsRequest listUploadsRequest = new ListMultipartUploadsRequest(bucketName);
+		int aborted = 0;
+		MultipartUploadListing uploadListing;
+		do {
+			uploadListing = s3client.listMultipartUploads(listUploadsRequest);
+			for (final MultipartUpload upload : uploadListing.getMultipartUploads()) {
+				if (upload.getInitiated().before(initiatedBefore)) {
+					LOGGER.info("Aborting multipart upload of key: {} , uploadId: {} , initiated: {}", upload.getKey(),
+							upload.getUploadId(), upload.getInitiated());
+					s3client.abortMultipartUpload(new AbortMultipartUploadRequest(bucketName, upload.getKey(),
+							upload.getUploadId()));
+					aborted++;
+				}
+			}
+			listUploadsRequest.setKeyMarker(uploadListing.getNextKeyMarker());
+			listUploadsRequest.setUploadIdMarker(uploadListing.getNextUploadIdMarker());
+		} while (uploadListing.isTruncated());
+		LOGGER.info("abortMultipartUploads completed, bucketName: {} , uploads aborted: {}", bucketName, aborted);
+		return aborted;
 	}
-	
+
 	/* (non-Javadoc)
-	 * @see com.github.abhinavmishra14.aws.s3.service.AwsS3IamService#createDirectory(java.lang.String, java.lang.String, boolean)
+	 * @see com.github.abhinavmishra14.aws.s3.service.AwsS3IamService#uploadDirectoryOrFile(java.lang.String, java.io.File, java.lang.String, com.github.abhinavmishra14.aws.util.TransferProgressListener)
 	 */
 	@Override
-	public PutObjectResult createDirectory(final String bucketName, final String dirName,
-			final boolean isPublicAccessible) throws AmazonClientException, AmazonServiceException {
-		LOGGER.info("createDirectory invoked, bucketName: {}, dirName: {} and isPublicAccessible: {}", bucketName, dirName, isPublicAccessible);
-		final ObjectMetadata metadata = new ObjectMetadata();
-		metadata.setContentLength(0);
-		// Create empty content,since creating empty folder needs an empty content
-		final InputStream emptyContent = new ByteArrayInputStream(new byte[0]);
-		// Create a PutObjectRequest passing the directory name suffixed by '/'
-		final PutObjectRequest putObjectRequest = new PutObjectRequest(bucketName, dirName + AWSUtilConstants.SEPARATOR,
-				emptyContent, metadata);
-		if(isPublicAccessible){
-		  putObjectRequest.setCannedAcl(CannedAccessControlList.PublicRead);
-		}
-		return s3client.putObject(putObjectRequest);
+	public Transfer uploadDirectoryOrFile(final String bucketName, final File source,
+			final String virtualDirectoryKeyPrefix, final TransferProgressListener progressListener)
+			throws AmazonClientException, AmazonServiceException, IOException {
+		AWSUtil.notNull(progressListener, "TransferProgressListener is null!");
+		final Transfer transfer = uploadDirectoryOrFile(bucketName, source, virtualDirectoryKeyPrefix);
+		new ThrottledProgressTracker(transfer.getDescription(), progressListener, progressIntervalMillis, -1)
+				.attach(transfer, transferExecutor);
+		return transfer;
 	}
 	
 	/* (non-Javadoc)
-	 * @see com.abhinav.aws.s3.service.AwsS3IamService#deleteObject(java.lang.String, java.lang.String)
+	 * @see com.abhinav.aws.s3.service.AwsS3IamService#getObject(com.amazonaws.services.s3.model.GetObjectRequest)
 	 */
 	@Override
-	public void deleteObject(final String bucketName, final String fileName)
+	public S3Object getObject(final GetObjectRequest getObjRequest)
 			throws AmazonClientException, AmazonServiceException {
-		LOGGER.info("deleteObject invoked, bucketName: {}, fileName: {}", bucketName, fileName);
-		s3client.deleteObject(bucketName, fileName);
+		LOGGER.info("getObject invoked..");
+		return s3client.getObject(getObjRequest);
+	}
+
+	
+	/* (non-Javadoc)
+	 * @see com.abhinav.aws.s3.service.AwsS3IamService#getObject(java.lang.String, java.lang.String)
+	 */
+	@Override
+	public InputStream getObject(final String bucketName, final String key)
+			throws AmazonClientException, AmazonServiceException {
+		LOGGER.info("getObject invoked, bucketName: {}, key: {}", bucketName, key);
+		if (objectCache != null) {
+			return readThroughCache(bucketName, key);
+		}
+		final GetObjectRequest getObjRequest = new GetObjectRequest(bucketName, key);
+		final S3Object s3Object = getObject(getObjRequest);
+		return s3Object.getObjectContent();
+	}
+
+	/**
+	 * Reads an object through the object cache. A cached copy past its time to
+	 * live is revalidated with an If-None-Match request, S3 then answers 304 Not
+	 * Modified without the content if the object did not change.
+	 *
+	 * @param bucketName the bucket name
+	 * @param key the key
+	 * @return the input stream
+	 * @throws AmazonClientException the amazon client exception
+	 * @throws AmazonServiceException the amazon service exception
+	 */
+	private InputStream readThroughCache(final String bucketName, final String key)
+			throws AmazonClientException, AmazonServiceException {
+		try {
+			return objectCache.read(bucketName + AWSUtilConstants.SEPARATOR + key, cachedETag -> {
+				final GetObjectRequest getObjRequest = new GetObjectRequest(bucketName, key);
+				if (cachedETag != null) {
+					getObjRequest.setNonmatchingETagConstraints(Collections.singletonList(cachedETag));
+				}
+				// Null when the object still has the entity tag of the cached copy
+				final S3Object s3Object = s3client.getObject(getObjRequest);
+				return s3Object == null ? null
+						: new SourceObject(s3Object.getObjectContent(), s3Object.getObjectMetadata().getETag(),
+								s3Object.getObjectMetadata().getContentLength());
+			});
+		} catch (IOException ioex) {
+			throw new AmazonClientException("Failed to read " + key + " from " + bucketName, ioex);
+		}
+	}
+
+	/**
+	 * Drops the cached copy of an object which has been written or deleted.
+	 *
+	 * @param bucketName the bucket name
+	 * @param key the key
+	 */
+	private void invalidateCachedObject(final String bucketName, final String key) {
+		if (objectCache != null) {
+			objectCache.invalidate(bucketName + AWSUtilConstants.SEPARATOR + key);
+		}
+		if (grantedPermissionCache != null) {
+			// A new object comes with a new acl
+			grantedPermissionCache.invalidate(bucketName + AWSUtilConstants.SEPARATOR + key);
+		}
+	}
+
+	/**
+	 * Drops the cached copies and the cached acls of the objects under a prefix
+	 * which have been written or deleted.
+	 *
+	 * @param bucketName the bucket name
+	 * @param prefix the prefix, null for the whole bucket
+	 */
+	private void invalidateCachedPrefix(final String bucketName, final String prefix) {
+		final String keyPrefix = bucketName + AWSUtilConstants.SEPARATOR + (prefix == null ? "" : prefix);
+		if (objectCache != null) {
+			objectCache.invalidatePrefix(keyPrefix);
+		}
+		if (grantedPermissionCache != null) {
+			grantedPermissionCache.invalidatePrefix(keyPrefix);
+		}
+	}
+
+	/**
+	 * Drops the cached copies of the objects written by a TransferManager
+	 * transfer once it is over, completed or not.<br/>
+	 * The state listener is called by the transfer thread before
+	 * waitForCompletion returns, a read following it never gets the old bytes.
+	 * The progress events are delivered later, on the SDK publisher thread.
+	 *
+	 * @param <T> the type of the transfer
+	 * @param transfer the transfer
+	 * @param invalidation drops the cached copies
+	 * @return the transfer
+	 */
+	private <T extends Transfer> T invalidateWhenDone(final T transfer, final Runnable invalidation) {
+		if (objectCache == null && grantedPermissionCache == null) {
+			return transfer;
+		}
+		if (transfer instanceof AbstractTransfer) {
+			((AbstractTransfer) transfer).addStateChangeListener((changedTransfer, state) -> {
+				if (state == TransferState.Completed || state == TransferState.Failed
+						|| state == TransferState.Canceled) {
+					invalidation.run();
+				}
+			});
+		} else {
+			LOGGER.warn("Cached objects are dropped late, {} has no state listener", transfer.getClass());
+			transfer.addProgressListener((ProgressEvent progressEvent) -> {
+				final ProgressEventType eventType = progressEvent.getEventType();
+				if (eventType == ProgressEventType.TRANSFER_COMPLETED_EVENT
+						|| eventType == ProgressEventType.TRANSFER_FAILED_EVENT
+						|| eventType == ProgressEventType.TRANSFER_CANCELED_EVENT) {
+					invalidation.run();
+				}
+			});
+		}
+		if (transfer.isDone()) {
+			invalidation.run();
+		}
+		return transfer;
+	}
+
+	
+	/* (non-Javadoc)
+	 * @see com.abhinav.aws.s3.service.AwsS3IamService#downloadObject(java.lang.String, java.lang.String, java.lang.String)
+	 */
+	@Override
+	public ObjectMetadata downloadObject(final String bucketName, final String key, final String filePath)
+			throws AmazonClientException, AmazonServiceException {
+		LOGGER.info("downloadObject invoked, bucketName: {}, key: {}, filePath: {}", bucketName, key, filePath);
+		if (rangedDownloader != null) {
+			return rangedDownloader.download(bucketName, key, new File(filePath));
+		}
+		final GetObjectRequest getObjRequest = new GetObjectRequest(bucketName, key);
+		return s3client.getObject(getObjRequest, new File(filePath));
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.s3.service.AwsS3IamService#headObject(java.lang.String, java.lang.String)
+	 */
+	@Override
+	public ObjectMetadata headObject(final String bucketName, final String key)
+			throws AmazonClientException, AmazonServiceException {
+		LOGGER.info("headObject invoked, bucketName: {}, key: {}", bucketName, key);
+		try {
+			return s3client.getObjectMetadata(bucketName, key);
+		} catch (AmazonServiceException ase) {
+			if (ase.getStatusCode() == HttpStatus.SC_NOT_FOUND) {
+				return null;
+			}
+			throw ase;
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.s3.service.AwsS3IamService#getObjectIfModified(java.lang.String, java.lang.String, java.lang.String, java.util.Date)
+	 */
+	@Override
+	public S3Object getObjectIfModified(final String bucketName, final String key, final String eTag,
+			final Date modifiedSince) throws AmazonClientException, AmazonServiceException {
+		LOGGER.info("getObjectIfModified invoked, bucketName: {}, key: {}, eTag: {}, modifiedSince: {}", bucketName,
+				key, eTag, modifiedSince);
+		final GetObjectRequest getObjRequest = new GetObjectRequest(bucketName, key);
+		if (eTag != null) {
+			getObjRequest.setNonmatchingETagConstraints(Collections.singletonList(eTag));
+		}
+		if (modifiedSince != null) {
+			getObjRequest.setModifiedSinceConstraint(modifiedSince);
+		}
+		// The client returns null when S3 answers 304 Not Modified
+		return s3client.getObject(getObjRequest);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.s3.service.AwsS3IamService#downloadObjectIfChanged(java.lang.String, java.lang.String, java.lang.String)
+	 */
+	@Override
+	public ObjectMetadata downloadObjectIfChanged(final String bucketName, final String key, final String filePath)
+			throws AmazonClientException, AmazonServiceException {
+		LOGGER.info("downloadObjectIfChanged invoked, bucketName: {}, key: {}, filePath: {}", bucketName, key,
+				filePath);
+		final File localFile = new File(filePath);
+		final String localETag = localFile.isFile() ? md5ETagOf(localFile) : null;
+		final ObjectMetadata metadata;
+		if (rangedDownloader == null) {
+			final GetObjectRequest getObjRequest = new GetObjectRequest(bucketName, key);
+			if (localETag != null) {
+				getObjRequest.withNonmatchingETagConstraint(localETag);
+			}
+			metadata = s3client.getObject(getObjRequest, localFile);
+		} else {
+			metadata = rangedDownloader.download(bucketName, key, localFile, localETag);
+		}
+		// The client returns null when S3 answers 304 Not Modified
+		if (metadata == null) {
+			LOGGER.info("downloadObjectIfChanged skipped, {} is up to date", filePath);
+			return null;
+		}
+		if (metadata.getLastModified() != null && !localFile.setLastModified(metadata.getLastModified().getTime())) {
+			LOGGER.warn("Last modified time of {} could not be set", filePath);
+		}
+		return metadata;
+	}
+
+	/**
+	 * Gets the ETag an object holding the content of the file would have if it
+	 * was uploaded in one request.
+	 *
+	 * @param localFile the local file
+	 * @return the MD5 of the content in hex
+	 * @throws AmazonClientException the amazon client exception
+	 */
+	private static String md5ETagOf(final File localFile) throws AmazonClientException {
+		try {
+			return BinaryUtils.toHex(Md5Utils.computeMD5Hash(localFile));
+		} catch (IOException ioex) {
+			throw new AmazonClientException("Failed to compute the MD5 of " + localFile, ioex);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.s3.service.AwsS3IamService#syncDirectory(java.io.File, java.lang.String, java.lang.String)
+	 */
+	@Override
+	public DirectorySyncSummary syncDirectory(final File localDir, final String bucketName, final String prefix)
+			throws AmazonClientException, AmazonServiceException {
+		return syncDirectory(localDir, bucketName, prefix, new DirectorySyncOptions());
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.s3.service.AwsS3IamService#syncDirectory(java.io.File, java.lang.String, java.lang.String, com.github.abhinavmishra14.aws.util.DirectorySyncOptions)
+	 */
+	@Override
+	public DirectorySyncSummary syncDirectory(final File localDir, final String bucketName, final String prefix,
+			final DirectorySyncOptions options) throws AmazonClientException, AmazonServiceException {
+		LOGGER.info("syncDirectory invoked, localDir: {}, bucketName: {}, prefix: {}, options: {}", localDir,
+				bucketName, prefix, options);
+		AWSUtil.notNull(options, "DirectorySyncOptions is null!");
+		final RequestPriority callerPriority = markBulk();
+		try {
+			final DirectorySyncSummary summary = directorySynchronizer.sync(localDir, bucketName, prefix, options);
+			LOGGER.info("syncDirectory completed, {}", summary);
+			return summary;
+		} finally {
+			RequestPriority.setCurrent(callerPriority);
+			if (!options.isDryRun()) {
+				invalidateCachedPrefix(bucketName, prefix);
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.s3.service.AwsS3IamService#downloadDirectory(java.lang.String, java.lang.String, java.io.File)
+	 */
+	@Override
+	public DirectoryTransferSummary downloadDirectory(final String bucketName, final String prefix,
+			final File localDir) throws AmazonClientException, AmazonServiceException {
+		LOGGER.info("downloadDirectory invoked, bucketName: {}, prefix: {}, localDir: {}", bucketName, prefix,
+				localDir);
+		final RequestPriority callerPriority = markBulk();
+		try {
+			final DirectoryTransferSummary summary = directoryDownloader.download(bucketName, prefix, localDir);
+			LOGGER.info("downloadDirectory completed, {}", summary);
+			return summary;
+		} finally {
+			RequestPriority.setCurrent(callerPriority);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.s3.service.AwsS3IamService#createDirectory(java.lang.String, java.lang.String)
+	 */
+	@Override
+	public PutObjectResult createDirectory(final String bucketName, final String dirName)
+			throws AmazonClientException, AmazonServiceException {
+		return createDirectory(bucketName, dirName,false);
+	}
+	
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.s3.service.AwsS3IamService#createDirectory(java.lang.String, java.lang.String, com.amazonaws.services.s3.model.CannedAccessControlList)
+	 */
+	@Override
+	public PutObjectResult createDirectory(final String bucketName, final String dirName, final CannedAccessControlList cannedAcl)
+			throws AmazonClientException, AmazonServiceException {
+		LOGGER.info("createDirectory invoked, bucketName: {}, dirName: {} and cannedAccessControlList: {}", bucketName, dirName, cannedAcl);
+		final ObjectMetadata metadata = new ObjectMetadata();
+		metadata.setContentLength(0);
+		// Create empty content,since creating empty folder needs an empty content
+		final InputStream emptyContent = new ByteArrayInputStream(new byte[0]);
+		// Create a PutObjectRequest passing the directory name suffixed by '/'
+		final PutObjectRequest putObjectRequest = new PutObjectRequest(bucketName, dirName + AWSUtilConstants.SEPARATOR,
+				emptyContent, metadata).withCannedAcl(cannedAcl);
+		return s3client.putObject(putObjectRequest);
+	}
+	
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.s3.service.AwsS3IamService#createDirectory(java.lang.String, java.lang.String, boolean)
+	 */
+	@Override
+	public PutObjectResult createDirectory(final String bucketName, final String dirName,
+			final boolean isPublicAccessible) throws AmazonClientException, AmazonServiceException {
+		LOGGER.info("createDirectory invoked, bucketName: {}, dirName: {} and isPublicAccessible: {}", bucketName, dirName, isPublicAccessible);
+		final ObjectMetadata metadata = new ObjectMetadata();
+		metadata.setContentLength(0);
+		// Create empty content,since creating empty folder needs an empty content
+		final InputStream emptyContent = new ByteArrayInputStream(new byte[0]);
+		// Create a PutObjectRequest passing the directory name suffixed by '/'
+		final PutObjectRequest putObjectRequest = new PutObjectRequest(bucketName, dirName + AWSUtilConstants.SEPARATOR,
+				emptyContent, metadata);
+		if(isPublicAccessible){
+		  putObjectRequest.setCannedAcl(CannedAccessControlList.PublicRead);
+		}
+		return s3client.putObject(putObjectRequest);
+	}
+	
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.s3.service.AwsS3IamService#listObjects(java.lang.String, java.lang.String, java.lang.String)
+	 */
+	@Override
+	public Iterator<S3ObjectSummary> listObjects(final String bucketName, final String prefix,
+			final String delimiter) {
+		LOGGER.info("listObjects invoked, bucketName: {}, prefix: {}, delimiter: {}", bucketName, prefix, delimiter);
+		return new S3ObjectSummaryIterator(s3client, transferExecutor, bucketName, prefix, delimiter);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.s3.service.AwsS3IamService#listObjectsInParallel(java.lang.String, java.lang.String, int, boolean)
+	 */
+	@Override
+	public ShardedObjectIterator listObjectsInParallel(final String bucketName, final String prefix,
+			final int parallelism, final boolean ordered) throws AmazonClientException, AmazonServiceException {
+		LOGGER.info("listObjectsInParallel invoked, bucketName: {}, prefix: {}, parallelism: {}, ordered: {}",
+				bucketName, prefix, parallelism, ordered);
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("Parallelism must be greater than zero.");
+		}
+		// Leave a thread of the pool to the transfers
+		final int listingParallelism = Math.min(parallelism, Math.max(1, transferExecutor.getMaximumPoolSize() - 1));
+		return new ShardedObjectLister(s3client, transferExecutor, listingParallelism).list(bucketName, prefix,
+				AWSUtilConstants.SEPARATOR, ordered);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.s3.service.AwsS3IamService#listObjects(com.amazonaws.services.s3.model.ListObjectsRequest)
+	 */
+	@Override
+	public ObjectListing listObjects(final ListObjectsRequest listObjectsRequest)
+			throws AmazonClientException, AmazonServiceException {
+		LOGGER.info("listObjects invoked, bucketName: {}, prefix: {}", listObjectsRequest.getBucketName(),
+				listObjectsRequest.getPrefix());
+		return s3client.listObjects(listObjectsRequest);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.s3.service.AwsS3IamService#listNextBatchOfObjects(com.amazonaws.services.s3.model.ObjectListing)
+	 */
+	@Override
+	public ObjectListing listNextBatchOfObjects(final ObjectListing previousListing)
+			throws AmazonClientException, AmazonServiceException {
+		LOGGER.info("listNextBatchOfObjects invoked, bucketName: {}, marker: {}", previousListing.getBucketName(),
+				previousListing.getNextMarker());
+		return s3client.listNextBatchOfObjects(previousListing);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.s3.service.AwsS3IamService#copyObject(java.lang.String, java.lang.String, java.lang.String, java.lang.String)
+	 */
+	@Override
+	public CopyObjectResult copyObject(final String sourceBucketName, final String sourceKey,
+			final String destinationBucketName, final String destinationKey)
+			throws AmazonClientException, AmazonServiceException {
+		LOGGER.info("copyObject invoked, source: {}/{}, destination: {}/{}", sourceBucketName, sourceKey,
+				destinationBucketName, destinationKey);
+		final CopyObjectResult copyObjectResult = s3client.copyObject(sourceBucketName, sourceKey,
+				destinationBucketName, destinationKey);
+		invalidateCachedObject(destinationBucketName, destinationKey);
+		return copyObjectResult;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.abhinav.aws.s3.service.AwsS3IamService#deleteObject(java.lang.String, java.lang.String)
+	 */
+	@Override
+	public void deleteObject(final String bucketName, final String fileName)
+			throws AmazonClientException, AmazonServiceException {
+		LOGGER.info("deleteObject invoked, bucketName: {}, fileName: {}", bucketName, fileName);
+		s3client.deleteObject(bucketName, fileName);
+		invalidateCachedObject(bucketName, fileName);
 	}
 
 	
@@ -568,7 +1534,14 @@ public class AwsS3IamServiceImpl implements AwsS3IamService {
 		LOGGER.info("deleteObjects invoked, bucketName: {}, keys: {}", bucketName, keys);
 		final DeleteObjectsRequest deleteObjReq = new DeleteObjectsRequest(bucketName);
 		deleteObjReq.setKeys(keys);
-		return s3client.deleteObjects(deleteObjReq);
+		try {
+			return s3client.deleteObjects(deleteObjReq);
+		} finally {
+			// Some keys may be deleted even if the request fails
+			for (final KeyVersion keyVersion : keys) {
+				invalidateCachedObject(bucketName, keyVersion.getKey());
+			}
+		}
 	}
 
 	
@@ -576,14 +1549,13 @@ public class AwsS3IamServiceImpl implements AwsS3IamService {
 	 * @see com.abhinav.aws.s3.service.AwsS3IamService#deleteDirectory(java.lang.String, java.lang.String)
 	 */
 	@Override
-	public void deleteDirectory(final String bucketName, final String dirName)
+	public BulkDeleteSummary deleteDirectory(final String bucketName, final String dirName)
 			throws AmazonClientException, AmazonServiceException {
 		LOGGER.info("deleteDirectory invoked, bucketName: {}, dirName: {}", bucketName, dirName);
-		final List<S3ObjectSummary> listOfFiles = s3client.listObjects(bucketName, dirName).getObjectSummaries();
-		for (final S3ObjectSummary eachFile : listOfFiles) {
-			s3client.deleteObject(bucketName, eachFile.getKey());
-		}
+		final BulkDeleteSummary deleteSummary = deleteObjectsWithPrefix(bucketName, dirName);
 		s3client.deleteObject(bucketName, dirName);
+		LOGGER.info("deleteDirectory completed, {}", deleteSummary);
+		return deleteSummary;
 	}
 
 	
@@ -591,13 +1563,85 @@ public class AwsS3IamServiceImpl implements AwsS3IamService {
 	 * @see com.abhinav.aws.s3.service.AwsS3IamService#cleanAndDeleteBucket(java.lang.String)
 	 */
 	@Override
-	public void cleanAndDeleteBucket(final String bucketName) throws AmazonClientException, AmazonServiceException {
+	public BulkDeleteSummary cleanAndDeleteBucket(final String bucketName)
+			throws AmazonClientException, AmazonServiceException {
 		LOGGER.info("cleanAndDeleteBucket invoked, bucketName: {}", bucketName);
-		final List<S3ObjectSummary> listOfFiles = s3client.listObjects(bucketName).getObjectSummaries();
-		for (final S3ObjectSummary eachFile : listOfFiles) {
-			s3client.deleteObject(bucketName, eachFile.getKey());
+		final BulkDeleteSummary deleteSummary = deleteObjectsWithPrefix(bucketName, null);
+		LOGGER.info("cleanAndDeleteBucket objects deleted, {}", deleteSummary);
+		if (!deleteSummary.isComplete()) {
+			throw new AmazonClientException("Bucket '" + bucketName + "' not deleted, "
+					+ deleteSummary.getKeysFailed() + " objects could not be deleted, first failed keys: "
+					+ deleteSummary.getFailedKeys());
 		}
 		s3client.deleteBucket(bucketName);
+		return deleteSummary;
+	}
+
+	/**
+	 * Delete all the objects with the given prefix.<br/>
+	 * Keys are listed a page (1000 keys) at a time and each page is deleted with one
+	 * multi-object delete request on the shared transfer pool while the next page
+	 * is listed in the background.
+	 *
+	 * @param bucketName the bucket name
+	 * @param prefix the prefix, null for the whole bucket
+	 * @return the bulk delete summary
+	 * @throws AmazonClientException the amazon client exception
+	 * @throws AmazonServiceException the amazon service exception
+	 */
+	private BulkDeleteSummary deleteObjectsWithPrefix(final String bucketName, final String prefix)
+			throws AmazonClientException, AmazonServiceException {
+		final BulkDeleter bulkDeleter = new BulkDeleter(transferExecutor,
+				new S3BatchDeleteAction(s3client, bucketName), deleteBatchesInFlight, deleteMaxRetries);
+		final RequestPriority callerPriority = markBulk();
+		try {
+			final Iterator<S3ObjectSummary> objectSummaries = new S3ObjectSummaryIterator(s3client,
+					transferExecutor, bucketName, prefix, null);
+			while (objectSummaries.hasNext()) {
+				bulkDeleter.submit(objectSummaries.next().getKey());
+			}
+			return bulkDeleter.finish();
+		} catch (InterruptedException intrEx) {
+			Thread.currentThread().interrupt();
+			throw new AmazonClientException("Interrupted while deleting objects from " + bucketName, intrEx);
+		} finally {
+			bulkDeleter.awaitSubmitted();
+			RequestPriority.setCurrent(callerPriority);
+			invalidateCachedPrefix(bucketName, prefix);
+		}
+	}
+
+	/**
+	 * Uploads a directory with the bulk priority, the uploads are submitted to
+	 * the shared transfer pool by the calling thread.
+	 *
+	 * @param bucketName the bucket name
+	 * @param virtualDirectoryKeyPrefix the virtual directory key prefix
+	 * @param source the source directory
+	 * @return the multiple file upload
+	 */
+	private MultipleFileUpload uploadDirectoryInBulk(final String bucketName, final String virtualDirectoryKeyPrefix,
+			final File source) {
+		final RequestPriority callerPriority = markBulk();
+		try {
+			return transferMgr.uploadDirectory(bucketName, virtualDirectoryKeyPrefix, source, true);
+		} finally {
+			RequestPriority.setCurrent(callerPriority);
+		}
+	}
+
+	/**
+	 * Marks the calling thread bulk for a batch operation unless the caller
+	 * marked it with a priority of its own.
+	 *
+	 * @return the previous mark of the thread, to restore once the operation is done
+	 */
+	private static RequestPriority markBulk() {
+		final RequestPriority callerPriority = RequestPriority.mark(RequestPriority.BULK);
+		if (callerPriority != null) {
+			RequestPriority.setCurrent(callerPriority);
+		}
+		return callerPriority;
 	}
 
 	/* (non-Javadoc)
@@ -614,7 +1658,7 @@ public class AwsS3IamServiceImpl implements AwsS3IamService {
 	@Override
 	public String generateObjectUrlAsString(final String bucketName, final String fileName)
 			throws AmazonClientException, AmazonServiceException {
-		LOGGER.info("generateObjectUrlAsString invoked, bucketName: {}, fileName: {}", bucketName, fileName);
+		// Logged by generateObjectURL
 		return generateObjectURL(bucketName,fileName).toString();
 	}
 
@@ -624,9 +1668,11 @@ public class AwsS3IamServiceImpl implements AwsS3IamService {
 	@Override
 	public URL generateObjectURL(final String bucketName, final String fileName)
 			throws AmazonClientException, AmazonServiceException {
-		LOGGER.info("generateObjectURL invoked, bucketName: {}, fileName: {}", bucketName, fileName);
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("generateObjectURL invoked, bucketName: {}, fileName: {}", bucketName, fileName);
+		}
 		final GeneratePresignedUrlRequest presignedUrlReq = new GeneratePresignedUrlRequest(bucketName, fileName);
-		return s3client.generatePresignedUrl(presignedUrlReq);
+		return generatePresignedUrl(presignedUrlReq);
 	}
 
 
@@ -636,7 +1682,14 @@ public class AwsS3IamServiceImpl implements AwsS3IamService {
 	@Override
 	public String generateObjectUrlAsString(final String bucketName, final String fileName, final Date expires)
 			throws AmazonClientException, AmazonServiceException {
-		LOGGER.info("generateObjectUrlAsString invoked, bucketName: {}, fileName: {} and expires: {}", bucketName, fileName, expires);
+		if (isPresignedUrlCached(expires)) {
+			if (LOGGER.isDebugEnabled()) {
+				LOGGER.debug("generateObjectUrlAsString invoked, bucketName: {}, fileName: {} and expires: {}",
+						bucketName, fileName, expires);
+			}
+			return presignCached(bucketName, fileName, expires);
+		}
+		// Logged by generateObjectURL
 		return generateObjectURL(bucketName,fileName,expires).toString();
 	}
 
@@ -646,10 +1699,155 @@ public class AwsS3IamServiceImpl implements AwsS3IamService {
 	@Override
 	public URL generateObjectURL(final String bucketName, final String fileName, final Date expires)
 			throws AmazonClientException, AmazonServiceException {
-		LOGGER.info("generateObjectURL invoked, bucketName: {}, fileName: {} and expires: {}", bucketName, fileName, expires);
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("generateObjectURL invoked, bucketName: {}, fileName: {} and expires: {}", bucketName,
+					fileName, expires);
+		}
+		if (isPresignedUrlCached(expires)) {
+			try {
+				return new URL(presignCached(bucketName, fileName, expires));
+			} catch (MalformedURLException urlEx) {
+				throw new AmazonClientException("Invalid presigned url of " + fileName, urlEx);
+			}
+		}
 		final GeneratePresignedUrlRequest presignedUrlReq = new GeneratePresignedUrlRequest(bucketName, fileName);
 		presignedUrlReq.setExpiration(expires);
-		return s3client.generatePresignedUrl(presignedUrlReq);
+		return generatePresignedUrl(presignedUrlReq);
+	}
+
+	/**
+	 * Checks if the url expiring at the given date is cached.<br/>
+	 * Expirations whose window ends close to 7 days ahead are not rounded, a V4
+	 * signature is valid for at most 7 days.
+	 *
+	 * @param expires the expires
+	 * @return true, if urls are cached and the rounded expiration can be signed
+	 */
+	private boolean isPresignedUrlCached(final Date expires) {
+		return presignedUrlCache != null && expires != null
+				&& presignedUrlCache.roundExpiration(expires.getTime()) - System.currentTimeMillis()
+						< (BatchUrlPresigner.MAX_EXPIRES_SECONDS - 1) * 1000;
+	}
+
+	/**
+	 * Gets the url of an object from the presigned url cache, the url is signed
+	 * with the expiration rounded up to the end of its window when missing.
+	 *
+	 * @param bucketName the bucket name
+	 * @param key the key
+	 * @param expires the expires
+	 * @return the url
+	 */
+	private String presignCached(final String bucketName, final String key, final Date expires) {
+		final long windowEndMillis = presignedUrlCache.roundExpiration(expires.getTime());
+		String url = presignedUrlCache.get(bucketName, key, windowEndMillis);
+		if (url == null) {
+			final GeneratePresignedUrlRequest presignedUrlReq = new GeneratePresignedUrlRequest(bucketName, key);
+			presignedUrlReq.setExpiration(new Date(windowEndMillis));
+			url = generatePresignedUrl(presignedUrlReq).toString();
+			presignedUrlCache.put(bucketName, key, windowEndMillis, url);
+		}
+		return url;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.s3.service.AwsS3IamService#presign(java.lang.String, java.util.Collection, java.util.Date)
+	 */
+	@Override
+	public List<String> presign(final String bucketName, final Collection<String> keys, final Date expires)
+			throws AmazonClientException {
+		LOGGER.info("presign invoked, bucketName: {}, keys: {} and expires: {}", bucketName, keys.size(), expires);
+		if (!isPresignedUrlCached(expires)) {
+			return presignBatch(bucketName, keys, expires);
+		}
+		final long windowEndMillis = presignedUrlCache.roundExpiration(expires.getTime());
+		final List<String> urls = new ArrayList<String>(keys.size());
+		final List<String> missedKeys = new ArrayList<String>();
+		for (final String key : keys) {
+			final String url = presignedUrlCache.get(bucketName, key, windowEndMillis);
+			urls.add(url);
+			if (url == null) {
+				missedKeys.add(key);
+			}
+		}
+		if (missedKeys.isEmpty()) {
+			return urls;
+		}
+		// The missed urls are signed in one batch and put back at their position
+		final Iterator<String> signedUrls = presignBatch(bucketName, missedKeys, new Date(windowEndMillis))
+				.iterator();
+		final Iterator<String> missedKeyIterator = missedKeys.iterator();
+		for (int index = 0; index < urls.size(); index++) {
+			if (urls.get(index) == null) {
+				final String url = signedUrls.next();
+				presignedUrlCache.put(bucketName, missedKeyIterator.next(), windowEndMillis, url);
+				urls.set(index, url);
+			}
+		}
+		return urls;
+	}
+
+	/**
+	 * Presign the urls of the keys in one batch, with the batch url presigner
+	 * or one at a time with the client when the region of the bucket is unknown.
+	 *
+	 * @param bucketName the bucket name
+	 * @param keys the keys
+	 * @param expires the expires
+	 * @return the urls, in the order of the keys
+	 */
+	private List<String> presignBatch(final String bucketName, final Collection<String> keys, final Date expires) {
+		// Asked on every batch, the endpoint or the options of the client may have changed
+		final BatchUrlPresigner batchUrlPresigner = s3client instanceof PooledAmazonS3Client
+				? ((PooledAmazonS3Client) s3client).getBatchUrlPresigner(bucketName) : null;
+		if (batchUrlPresigner == null) {
+			final List<String> urls = new ArrayList<String>(keys.size());
+			for (final String key : keys) {
+				final GeneratePresignedUrlRequest presignedUrlReq = new GeneratePresignedUrlRequest(bucketName, key);
+				presignedUrlReq.setExpiration(expires);
+				urls.add(generatePresignedUrl(presignedUrlReq).toString());
+			}
+			return urls;
+		}
+		if (!NoOpMetricsCollector.isEnabled(metricsCollector)) {
+			return batchUrlPresigner.presign(bucketName, keys, expires);
+		}
+		// One operation per batch, no request is sent
+		final long startNanos = System.nanoTime();
+		metricsCollector.operationStarted(S3Operation.PRESIGN);
+		try {
+			final List<String> urls = batchUrlPresigner.presign(bucketName, keys, expires);
+			metricsCollector.operationSucceeded(S3Operation.PRESIGN, System.nanoTime() - startNanos, 0, 0);
+			return urls;
+		} catch (RuntimeException runtimeEx) {
+			metricsCollector.operationFailed(S3Operation.PRESIGN, System.nanoTime() - startNanos,
+					runtimeEx.getClass().getSimpleName());
+			throw runtimeEx;
+		}
+	}
+
+	/**
+	 * Generate presigned url, recording it with the metrics collector.<br/>
+	 * No request is sent, the client only signs the url.
+	 *
+	 * @param presignedUrlReq the presigned url request
+	 * @return the url
+	 */
+	private URL generatePresignedUrl(final GeneratePresignedUrlRequest presignedUrlReq) {
+		if (!NoOpMetricsCollector.isEnabled(metricsCollector)) {
+			return s3client.generatePresignedUrl(presignedUrlReq);
+		}
+		final long startNanos = System.nanoTime();
+		metricsCollector.operationStarted(S3Operation.PRESIGN);
+		try {
+			final URL url = s3client.generatePresignedUrl(presignedUrlReq);
+			metricsCollector.operationSucceeded(S3Operation.PRESIGN, System.nanoTime() - startNanos, 0, 0);
+			return url;
+		} catch (RuntimeException runtimeEx) {
+			metricsCollector.operationFailed(S3Operation.PRESIGN, System.nanoTime() - startNanos,
+					runtimeEx.getClass().getSimpleName());
+			throw runtimeEx;
+		}
 	}
 	
 	/* (non-Javadoc)
@@ -679,15 +1877,9 @@ public class AwsS3IamServiceImpl implements AwsS3IamService {
 			throws AmazonClientException, AmazonServiceException,
 			AmazonS3Exception {
 		LOGGER.info("Checking full controll permission on bucket..");
-		boolean hasFullControl = false;
-		final AccessControlList acl =  getBucketAccessControlList(bucketName);
-		final List<Grant> grantList = acl.getGrantsAsList();
-		for (final Grant grant : grantList) {
-			if(Permission.FullControl.equals(grant.getPermission())){
-				hasFullControl = true;
-				LOGGER.info("Permissions validated, hasFullControl: {}", hasFullControl);
-				break;
-			}
+		final boolean hasFullControl = getBucketGrantedPermissions(bucketName).contains(Permission.FullControl);
+		if (hasFullControl) {
+			LOGGER.info("Permissions validated, hasFullControl: {}", hasFullControl);
 		}
 		return hasFullControl;
 	}
@@ -699,15 +1891,9 @@ public class AwsS3IamServiceImpl implements AwsS3IamService {
 	public boolean checkBucketPermission(final String bucketName, final Permission permission)
 			throws AmazonClientException, AmazonServiceException, AmazonS3Exception {
 		LOGGER.info("Checking bucket permission..");
-		boolean hasPermission = false;
-		final AccessControlList acl =  getBucketAccessControlList(bucketName);
-		final List<Grant> grantList = acl.getGrantsAsList();
-		for (final Grant grant : grantList) {
-			if(permission.equals(grant.getPermission())){
-				hasPermission = true;
-				LOGGER.info("Permissions validated,hasPermission: {}",hasPermission);
-				break;
-			}
+		final boolean hasPermission = getBucketGrantedPermissions(bucketName).contains(permission);
+		if (hasPermission) {
+			LOGGER.info("Permissions validated,hasPermission: {}",hasPermission);
 		}
 		return hasPermission;
 	}
@@ -716,8 +1902,25 @@ public class AwsS3IamServiceImpl implements AwsS3IamService {
 	 * @see com.github.abhinavmishra14.aws.s3.service.AwsS3IamService#hasWritePermissionOnBucket(java.lang.String)
 	 */
 	@Override
-	public boolean hasWritePermissionOnBucket(final String bucketName) {
+	public boolean hasWritePermissionOnBucket(final String bucketName) throws AmazonClientException {
 		LOGGER.info("Checking bucket write permission..");
+		if (writeProbeCache == null) {
+			return probeWritePermission(bucketName);
+		}
+		return writeProbeCache.get(bucketName, () -> probeWritePermission(bucketName));
+	}
+
+	/**
+	 * Probes the write permission on a bucket by putting, then deleting, an
+	 * empty test object.<br/>
+	 * Only an access denied answer means no permission: other failures, e.g. a
+	 * timeout or a 5xx, are thrown so that they are not cached.
+	 *
+	 * @param bucketName the bucket name
+	 * @return true, if the test object could be put
+	 * @throws AmazonClientException the amazon client exception, if the probe failed without an answer on the permission
+	 */
+	private boolean probeWritePermission(final String bucketName) throws AmazonClientException {
 		boolean hasWritePermissions = false;
 		final ObjectMetadata metadata = new ObjectMetadata();
 		metadata.setContentLength(0);
@@ -727,15 +1930,22 @@ public class AwsS3IamServiceImpl implements AwsS3IamService {
 		final PutObjectRequest putObjectRequest = new PutObjectRequest(bucketName, AWSUtilConstants.SAMPLE_FILE_NAME,
 				emptyContent, metadata);
 		try {
-			if (s3client.putObject(putObjectRequest) != null) {
-				LOGGER.info("Permissions validated!");
-				//User has write permissions, TestPassed. 
-				hasWritePermissions = true;
-				//Delete the test object
+			hasWritePermissions = s3client.putObject(putObjectRequest) != null;
+		} catch (AmazonServiceException s3Ex) {
+			if (s3Ex.getStatusCode() != HttpStatus.SC_FORBIDDEN) {
+				throw s3Ex;
+			}
+			LOGGER.warn("Write permissions not available! {}", s3Ex.getMessage());
+		}
+		if (hasWritePermissions) {
+			LOGGER.info("Permissions validated!");
+			//User has write permissions, TestPassed. Delete the test object
+			try {
 				deleteObject(bucketName, AWSUtilConstants.SAMPLE_FILE_NAME);
+			} catch (AmazonClientException s3Ex) {
+				LOGGER.warn("Test object {} could not be deleted: {}", AWSUtilConstants.SAMPLE_FILE_NAME,
+						s3Ex.getMessage());
 			}
-		} catch (AmazonClientException s3Ex) {
-			LOGGER.warn("Write permissions not available!", s3Ex.getMessage());
 		}
 		return hasWritePermissions;
 	}
@@ -747,16 +1957,287 @@ public class AwsS3IamServiceImpl implements AwsS3IamService {
 	public boolean checkObjectPermission(final String bucketName, final String key, final Permission permission)
 			throws AmazonClientException, AmazonServiceException, AmazonS3Exception {
 		LOGGER.info("Checking object permission..");
-		boolean hasPermission = false;
-		final AccessControlList objectAcl = s3client.getObjectAcl(bucketName, key);
-		final List<Grant> grantList = objectAcl.getGrantsAsList();
-		for (final Grant grant : grantList) {
-			if(permission.equals(grant.getPermission())){
-				hasPermission = true;
-				LOGGER.info("Permissions validated,hasPermission: {}",hasPermission);
-				break;
-			}
+		final boolean hasPermission;
+		if (grantedPermissionCache == null) {
+			hasPermission = grantedPermissions(s3client.getObjectAcl(bucketName, key)).contains(permission);
+		} else {
+			hasPermission = grantedPermissionCache.get(bucketName + AWSUtilConstants.SEPARATOR + key,
+					() -> grantedPermissions(s3client.getObjectAcl(bucketName, key))).contains(permission);
+		}
+		if (hasPermission) {
+			LOGGER.info("Permissions validated,hasPermission: {}",hasPermission);
 		}
 		return hasPermission;
 	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.s3.service.AwsS3IamService#setBucketAcl(java.lang.String, com.amazonaws.services.s3.model.AccessControlList)
+	 */
+	@Override
+	public void setBucketAcl(final String bucketName, final AccessControlList acl)
+			throws AmazonClientException, AmazonServiceException {
+		LOGGER.info("setBucketAcl invoked, bucketName: {}", bucketName);
+		try {
+			s3client.setBucketAcl(bucketName, acl);
+		} finally {
+			invalidateCachedBucketPermissions(bucketName);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.s3.service.AwsS3IamService#setBucketAcl(java.lang.String, com.amazonaws.services.s3.model.CannedAccessControlList)
+	 */
+	@Override
+	public void setBucketAcl(final String bucketName, final CannedAccessControlList cannedAcl)
+			throws AmazonClientException, AmazonServiceException {
+		LOGGER.info("setBucketAcl invoked, bucketName: {}, cannedAcl: {}", bucketName, cannedAcl);
+		try {
+			s3client.setBucketAcl(bucketName, cannedAcl);
+		} finally {
+			invalidateCachedBucketPermissions(bucketName);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.s3.service.AwsS3IamService#setObjectAcl(java.lang.String, java.lang.String, com.amazonaws.services.s3.model.AccessControlList)
+	 */
+	@Override
+	public void setObjectAcl(final String bucketName, final String key, final AccessControlList acl)
+			throws AmazonClientException, AmazonServiceException {
+		LOGGER.info("setObjectAcl invoked, bucketName: {}, key: {}", bucketName, key);
+		try {
+			s3client.setObjectAcl(bucketName, key, acl);
+		} finally {
+			invalidateCachedObject(bucketName, key);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.s3.service.AwsS3IamService#setObjectAcl(java.lang.String, java.lang.String, com.amazonaws.services.s3.model.CannedAccessControlList)
+	 */
+	@Override
+	public void setObjectAcl(final String bucketName, final String key, final CannedAccessControlList cannedAcl)
+			throws AmazonClientException, AmazonServiceException {
+		LOGGER.info("setObjectAcl invoked, bucketName: {}, key: {}, cannedAcl: {}", bucketName, key, cannedAcl);
+		try {
+			s3client.setObjectAcl(bucketName, key, cannedAcl);
+		} finally {
+			invalidateCachedObject(bucketName, key);
+		}
+	}
+
+	/**
+	 * Gets the permissions granted by the acl of a bucket, from the cache when
+	 * permissions are cached.
+	 *
+	 * @param bucketName the bucket name
+	 * @return the granted permissions
+	 */
+	private Set<Permission> getBucketGrantedPermissions(final String bucketName) {
+		if (grantedPermissionCache == null) {
+			return grantedPermissions(getBucketAccessControlList(bucketName));
+		}
+		// The objects of the bucket are cached under bucketName/key, the bucket itself under bucketName/
+		return grantedPermissionCache.get(bucketName + AWSUtilConstants.SEPARATOR,
+				() -> grantedPermissions(getBucketAccessControlList(bucketName)));
+	}
+
+	/**
+	 * Gets the permissions granted by an acl, whoever the grantee is.
+	 *
+	 * @param acl the acl
+	 * @return the granted permissions, not modifiable
+	 */
+	private static Set<Permission> grantedPermissions(final AccessControlList acl) {
+		final Set<Permission> permissions = EnumSet.noneOf(Permission.class);
+		for (final Grant grant : acl.getGrantsAsList()) {
+			permissions.add(grant.getPermission());
+		}
+		return Collections.unmodifiableSet(permissions);
+	}
+
+	/**
+	 * Drops the cached acl and write probe of a bucket whose acl has changed.
+	 *
+	 * @param bucketName the bucket name
+	 */
+	private void invalidateCachedBucketPermissions(final String bucketName) {
+		if (grantedPermissionCache != null) {
+			grantedPermissionCache.invalidate(bucketName + AWSUtilConstants.SEPARATOR);
+			writeProbeCache.invalidate(bucketName);
+		}
+	}
+
+	/**
+	 * Drops all the cached permissions of a deleted bucket and of its objects.
+	 *
+	 * @param bucketName the bucket name
+	 */
+	private void invalidateCachedPermissions(final String bucketName) {
+		if (grantedPermissionCache != null) {
+			grantedPermissionCache.invalidatePrefix(bucketName + AWSUtilConstants.SEPARATOR);
+			writeProbeCache.invalidate(bucketName);
+		}
+	}
+
+	/**
+	 * The Class Builder.<br/>
+	 * Builds an AwsS3IamServiceImpl on top of a {@link PooledAmazonS3Client}
+	 * configured from a {@link ConnectionPoolConfig}. Without credentials the
+	 * client uses the default provider chain, i.e. the IAM role.
+	 */
+	public static final class Builder {
+
+		/** The access key. */
+		private String accessKey;
+
+		/** The secret key. */
+		private String secretKey;
+
+		/** The endpoint. */
+		private String endpoint;
+
+		/** The path style access flag. */
+		private boolean pathStyleAccess;
+
+		/** The connection pool config. */
+		private ConnectionPoolConfig connectionPoolConfig = new ConnectionPoolConfig();
+
+		/** The transfer config. */
+		private TransferConfig transferConfig = new TransferConfig();
+
+		/** The retry config, null for the retries of the SDK. */
+		private AdaptiveRetryConfig retryConfig;
+
+		/** The metrics collector. */
+		private S3MetricsCollector metricsCollector = NoOpMetricsCollector.INSTANCE;
+
+		/**
+		 * Instantiates a new builder.
+		 */
+		private Builder() {
+			super();
+		}
+
+		/**
+		 * With credentials.
+		 *
+		 * @param accessKey the access key
+		 * @param secretKey the secret key
+		 * @return the builder
+		 */
+		public Builder withCredentials(final String accessKey, final String secretKey) {
+			AWSUtil.notNull(accessKey, AWSUtilConstants.ERR_MSG_ACCESSKEY);
+			AWSUtil.notNull(secretKey, AWSUtilConstants.ERR_MSG_SECRETKEY);
+			this.accessKey = accessKey;
+			this.secretKey = secretKey;
+			return this;
+		}
+
+		/**
+		 * With endpoint.
+		 *
+		 * @param endpoint the endpoint, e.g. of a region or of a LocalS3Server
+		 * @return the builder
+		 */
+		public Builder withEndpoint(final String endpoint) {
+			this.endpoint = endpoint;
+			return this;
+		}
+
+		/**
+		 * With path style access.
+		 *
+		 * @param pathStyleAccess true, to put the bucket name in the path instead of the host name
+		 * @return the builder
+		 */
+		public Builder withPathStyleAccess(final boolean pathStyleAccess) {
+			this.pathStyleAccess = pathStyleAccess;
+			return this;
+		}
+
+		/**
+		 * With connection pool config.
+		 *
+		 * @param connectionPoolConfig the connection pool config
+		 * @return the builder
+		 */
+		public Builder withConnectionPoolConfig(final ConnectionPoolConfig connectionPoolConfig) {
+			AWSUtil.notNull(connectionPoolConfig, "ConnectionPoolConfig is null!");
+			this.connectionPoolConfig = connectionPoolConfig;
+			return this;
+		}
+
+		/**
+		 * With transfer config.
+		 *
+		 * @param transferConfig the transfer config
+		 * @return the builder
+		 */
+		public Builder withTransferConfig(final TransferConfig transferConfig) {
+			AWSUtil.notNull(transferConfig, "TransferConfig is null!");
+			this.transferConfig = transferConfig;
+			return this;
+		}
+
+		/**
+		 * With retry config.<br/>
+		 * Replaces the retries of the SDK by jittered retries within a retry budget
+		 * and paces the requests of the bucket prefixes which get throttled, see
+		 * {@link AdaptiveRetryHandler}.
+		 *
+		 * @param retryConfig the retry config
+		 * @return the builder
+		 */
+		public Builder withRetryConfig(final AdaptiveRetryConfig retryConfig) {
+			AWSUtil.notNull(retryConfig, "AdaptiveRetryConfig is null!");
+			this.retryConfig = retryConfig;
+			return this;
+		}
+
+		/**
+		 * With metrics collector.<br/>
+		 * Every request sent by the service, including the parts and ranges of the
+		 * transfers, is then reported to it. By default nothing is recorded and no
+		 * hook is installed on the client.
+		 *
+		 * @param metricsCollector the metrics collector
+		 * @return the builder
+		 */
+		public Builder withMetricsCollector(final S3MetricsCollector metricsCollector) {
+			AWSUtil.notNull(metricsCollector, "Metrics collector is null!");
+			this.metricsCollector = metricsCollector;
+			return this;
+		}
+
+		/**
+		 * Builds the service.
+		 *
+		 * @return the aws s3 iam service
+		 */
+		public AwsS3IamServiceImpl build() {
+			final AWSCredentialsProvider credentialsProvider = accessKey == null
+					? new DefaultAWSCredentialsProviderChain()
+					: new StaticCredentialsProvider(new BasicAWSCredentials(accessKey, secretKey));
+			final ClientConfiguration clientConfiguration = PooledAmazonS3Client
+					.newClientConfiguration(connectionPoolConfig);
+			final AdaptiveRetryHandler retryHandler = retryConfig == null ? null
+					: new AdaptiveRetryHandler(retryConfig);
+			if (retryHandler != null) {
+				clientConfiguration.setRetryPolicy(retryHandler.newRetryPolicy());
+			}
+			final PooledAmazonS3Client s3client = PooledAmazonS3Client.create(credentialsProvider,
+					clientConfiguration);
+			if (retryHandler != null) {
+				s3client.addRequestHandler(retryHandler);
+			}
+			if (endpoint != null) {
+				s3client.setEndpoint(endpoint);
+			}
+			if (pathStyleAccess) {
+				s3client.setS3ClientOptions(S3ClientOptions.builder().setPathStyleAccess(true).build());
+			}
+			return new AwsS3IamServiceImpl(s3client, transferConfig, metricsCollector);
+		}
+	}
 }
@@ -0,0 +1,206 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.s3.throttle;
+
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.Request;
+import com.amazonaws.Response;
+import com.amazonaws.event.ProgressEvent;
+import com.amazonaws.event.ProgressEventType;
+import com.amazonaws.event.ProgressListener;
+import com.amazonaws.event.ProgressListenerChain;
+import com.amazonaws.event.SyncProgressListener;
+import com.amazonaws.handlers.HandlerContextKey;
+import com.amazonaws.handlers.RequestHandler2;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectInputStream;
+import com.github.abhinavmishra14.aws.throttle.RequestPriority;
+import com.github.abhinavmishra14.aws.throttle.RequestThrottle;
+import com.github.abhinavmishra14.aws.throttle.ThrottledInputStream;
+import com.github.abhinavmishra14.aws.util.AWSUtilConstants;
+
+/**
+ * The Class ThrottlingRequestHandler.<br/>
+ * Applies the limits of a {@link RequestThrottle} to every request of an
+ * Amazon S3 client: the request waits for its request permit before it is
+ * sent, its body is paced while it is uploaded and the content of a downloaded
+ * object while it is read. A body sent again by a retry is paid again, from the
+ * progress events of the SDK. The priority is the one of the thread
+ * sending the request, see {@link RequestPriority#current()}.
+ *
+ * @author Abhinav kumar mishra
+ */
+public final class ThrottlingRequestHandler extends RequestHandler2 {
+
+	/** The Constant BUCKET_KEY. */
+	private static final HandlerContextKey<String> BUCKET_KEY = new HandlerContextKey<String>("ThrottledBucket");
+
+	/** The Constant PRIORITY_KEY. */
+	private static final HandlerContextKey<RequestPriority> PRIORITY_KEY = new HandlerContextKey<RequestPriority>(
+			"RequestPriority");
+
+	/** The Constant CALLER_LISTENER_KEY. Progress listener of the request before the handler chained its own. */
+	private static final HandlerContextKey<ProgressListener> CALLER_LISTENER_KEY = new HandlerContextKey<ProgressListener>(
+			"CallerProgressListener");
+
+	/** The Constant VIRTUAL_HOST_SUFFIX. Virtual hosted requests are sent to bucket.s3[-region].amazonaws.com */
+	private static final String VIRTUAL_HOST_SUFFIX = ".s3";
+
+	/** The request throttle. */
+	private final RequestThrottle requestThrottle;
+
+	/**
+	 * Instantiates a new throttling request handler.
+	 *
+	 * @param requestThrottle the request throttle
+	 */
+	public ThrottlingRequestHandler(final RequestThrottle requestThrottle) {
+		super();
+		this.requestThrottle = requestThrottle;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.amazonaws.handlers.RequestHandler2#beforeRequest(com.amazonaws.Request)
+	 */
+	@Override
+	public void beforeRequest(final Request<?> request) {
+		final String bucketName = bucketOf(request);
+		final RequestPriority priority = RequestPriority.current();
+		request.addHandlerContext(BUCKET_KEY, bucketName);
+		request.addHandlerContext(PRIORITY_KEY, priority);
+		requestThrottle.acquireRequest(bucketName, priority);
+		if (request.getContent() != null) {
+			request.setContent(new ThrottledInputStream(request.getContent(), requestThrottle, bucketName, priority));
+			final AmazonWebServiceRequest originalRequest = request.getOriginalRequest();
+			if (originalRequest != null) {
+				// Read by the client once the handlers ran, restored once the request is done
+				final ProgressListener callerListener = originalRequest.getGeneralProgressListener();
+				request.addHandlerContext(CALLER_LISTENER_KEY, callerListener);
+				originalRequest.setGeneralProgressListener(new ProgressListenerChain(callerListener,
+						new ResentBytesListener(bucketName, priority)));
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see com.amazonaws.handlers.RequestHandler2#afterResponse(com.amazonaws.Request, com.amazonaws.Response)
+	 */
+	@Override
+	public void afterResponse(final Request<?> request, final Response<?> response) {
+		restoreCallerListener(request);
+		if (response == null || !(response.getAwsResponse() instanceof S3Object)) {
+			return;
+		}
+		final S3Object s3Object = (S3Object) response.getAwsResponse();
+		final S3ObjectInputStream objectContent = s3Object.getObjectContent();
+		if (objectContent != null) {
+			// Read by the caller, possibly on another thread, with the priority of the request
+			s3Object.setObjectContent(new S3ObjectInputStream(new ThrottledInputStream(objectContent,
+					requestThrottle, request.getHandlerContext(BUCKET_KEY), request.getHandlerContext(PRIORITY_KEY)),
+					objectContent.getHttpRequest()));
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see com.amazonaws.handlers.RequestHandler2#afterError(com.amazonaws.Request, com.amazonaws.Response, java.lang.Exception)
+	 */
+	@Override
+	public void afterError(final Request<?> request, final Response<?> response, final Exception excp) {
+		restoreCallerListener(request);
+	}
+
+	/**
+	 * Sets back the progress listener the original request had before the handler chained its own.
+	 *
+	 * @param request the request
+	 */
+	private static void restoreCallerListener(final Request<?> request) {
+		final ProgressListener callerListener = request.getHandlerContext(CALLER_LISTENER_KEY);
+		if (callerListener != null) {
+			request.getOriginalRequest().setGeneralProgressListener(callerListener);
+		}
+	}
+
+	/**
+	 * Gets the bucket a request is sent to, from the host name of virtual hosted
+	 * requests or from the first segment of the resource path.
+	 *
+	 * @param request the request
+	 * @return the bucket name, null for requests outside of a bucket such as the bucket listing
+	 */
+	public static String bucketOf(final Request<?> request) {
+		final String host = request.getEndpoint() == null ? null : request.getEndpoint().getHost();
+		final int virtualHostEnd = host == null ? -1 : host.lastIndexOf(VIRTUAL_HOST_SUFFIX);
+		if (virtualHostEnd > 0) {
+			return host.substring(0, virtualHostEnd);
+		}
+		String resourcePath = request.getResourcePath() == null ? "" : request.getResourcePath();
+		if (resourcePath.startsWith(AWSUtilConstants.SEPARATOR)) {
+			resourcePath = resourcePath.substring(1);
+		}
+		final int bucketEnd = resourcePath.indexOf(AWSUtilConstants.SEPARATOR);
+		final String bucketName = bucketEnd < 0 ? resourcePath : resourcePath.substring(0, bucketEnd);
+		return bucketName.isEmpty() ? null : bucketName;
+	}
+
+	/**
+	 * The Class ResentBytesListener.<br/>
+	 * Pays the bytes of a request body sent again by a retry, the
+	 * {@link ThrottledInputStream} does not pay the bytes it reads again. The
+	 * signer resets the body it hashes too, only the reset followed by the retry
+	 * event of the client is paid. Called on the thread sending the request unless
+	 * the listener of the caller needs the events delivered asynchronously.
+	 */
+	private final class ResentBytesListener extends SyncProgressListener {
+
+		/** The bucket name. */
+		private final String bucketName;
+
+		/** The priority. */
+		private final RequestPriority priority;
+
+		/** The bytes read before the last reset of the body. */
+		private long resetBytes;
+
+		/**
+		 * Instantiates a new resent bytes listener.
+		 *
+		 * @param bucketName the bucket name
+		 * @param priority the priority of the request
+		 */
+		ResentBytesListener(final String bucketName, final RequestPriority priority) {
+			super();
+			this.bucketName = bucketName;
+			this.priority = priority;
+		}
+
+		/* (non-Javadoc)
+		 * @see com.amazonaws.event.ProgressListener#progressChanged(com.amazonaws.event.ProgressEvent)
+		 */
+		@Override
+		public void progressChanged(final ProgressEvent progressEvent) {
+			if (progressEvent.getEventType() == ProgressEventType.HTTP_REQUEST_CONTENT_RESET_EVENT) {
+				resetBytes = progressEvent.getBytes();
+			} else if (progressEvent.getEventType() == ProgressEventType.CLIENT_REQUEST_RETRY_EVENT
+					&& resetBytes > 0) {
+				requestThrottle.acquireBytes(bucketName, resetBytes, priority);
+				resetBytes = 0;
+			}
+		}
+	}
+}
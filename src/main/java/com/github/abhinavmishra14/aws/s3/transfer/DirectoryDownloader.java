@@ -0,0 +1,314 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.s3.transfer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.amazonaws.util.BinaryUtils;
+import com.amazonaws.util.Md5Utils;
+import com.github.abhinavmishra14.aws.s3.listing.S3ObjectSummaryIterator;
+import com.github.abhinavmishra14.aws.util.AWSUtil;
+import com.github.abhinavmishra14.aws.util.AWSUtilConstants;
+import com.github.abhinavmishra14.aws.util.BoundedTaskRunner;
+import com.github.abhinavmishra14.aws.util.DirectoryTransferCounters;
+import com.github.abhinavmishra14.aws.util.DirectoryTransferSummary;
+
+/**
+ * The Class DirectoryDownloader.<br/>
+ * Downloads every object under a prefix into a local directory, recreating the
+ * key hierarchy. The listing is streamed page by page and at most filesInFlight
+ * objects are downloaded at the same time on the executor, so no list of all the
+ * objects is ever built.<br/>
+ * Files whose size and ETag already match are skipped. For objects uploaded as
+ * multiparts the ETag is not the MD5 of the content, those are compared by size
+ * and last modified time, which is set to the time of the object after every
+ * download.<br/>
+ * Objects larger than the part size of the ranged downloader are downloaded on
+ * the calling thread, their ranges run on the executor, so tasks submitted to
+ * the executor never wait on other tasks.
+ *
+ * @author Abhinav kumar mishra
+ */
+public class DirectoryDownloader {
+
+	/** The Constant LOGGER. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(DirectoryDownloader.class);
+
+	/** The s3client. */
+	private final AmazonS3 s3client;
+
+	/** The executor. */
+	private final ExecutorService executor;
+
+	/** The ranged downloader, null to download every object with a single GET. */
+	private final RangedParallelDownloader rangedDownloader;
+
+	/** The files in flight. */
+	private final int filesInFlight;
+
+	/**
+	 * Instantiates a new directory downloader.
+	 *
+	 * @param s3client the s3client
+	 * @param executor the executor running the downloads
+	 * @param rangedDownloader the ranged downloader for large objects, may be null
+	 * @param filesInFlight the maximum number of files downloaded at the same time
+	 */
+	public DirectoryDownloader(final AmazonS3 s3client, final ExecutorService executor,
+			final RangedParallelDownloader rangedDownloader, final int filesInFlight) {
+		super();
+		this.s3client = s3client;
+		this.executor = executor;
+		this.rangedDownloader = rangedDownloader;
+		this.filesInFlight = filesInFlight;
+	}
+
+	/**
+	 * Download the objects under the prefix into the local directory.<br/>
+	 * The prefix is treated as a directory: key <code>prefix/a/b.txt</code> is saved
+	 * as <code>localDir/a/b.txt</code>. Failed files are counted in the summary and do
+	 * not stop the download of the others.
+	 *
+	 * @param bucketName the bucket name
+	 * @param prefix the prefix, null or empty for the whole bucket
+	 * @param localDir the local directory
+	 * @return the directory transfer summary
+	 * @throws AmazonClientException the amazon client exception, if listing fails
+	 */
+	public DirectoryTransferSummary download(final String bucketName, final String prefix, final File localDir)
+			throws AmazonClientException {
+		final String dirPrefix = AWSUtil.toDirectoryPrefix(prefix);
+		final DownloadRun downloadRun = new DownloadRun(bucketName, localDir);
+		try {
+			final Iterator<S3ObjectSummary> objectSummaries = new S3ObjectSummaryIterator(s3client, executor,
+					bucketName, dirPrefix.isEmpty() ? null : dirPrefix, null);
+			while (objectSummaries.hasNext()) {
+				final S3ObjectSummary objectSummary = objectSummaries.next();
+				downloadRun.submit(objectSummary, objectSummary.getKey().substring(dirPrefix.length()));
+				downloadRun.logProgress(false);
+			}
+			downloadRun.awaitCompletion();
+		} catch (InterruptedException intrEx) {
+			Thread.currentThread().interrupt();
+			throw new AmazonClientException("Interrupted while downloading " + dirPrefix, intrEx);
+		} finally {
+			downloadRun.awaitSubmitted();
+		}
+		downloadRun.logProgress(true);
+		return downloadRun.toSummary();
+	}
+
+	/**
+	 * Checks if the local file is the same as the object.
+	 *
+	 * @param localFile the local file
+	 * @param objectSummary the object summary
+	 * @return true, if up to date
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static boolean isUpToDate(final File localFile, final S3ObjectSummary objectSummary) throws IOException {
+		return isUpToDate(localFile, objectSummary.getSize(), objectSummary.getETag(),
+				objectSummary.getLastModified());
+	}
+
+	/**
+	 * Checks if the local file is the same as an object of the given size, ETag
+	 * and last modified time.<br/>
+	 * An ETag which is the MD5 of the content is compared to the MD5 of the file,
+	 * otherwise (multiparts, no ETag) the last modified time of the file is
+	 * compared, it is set to the time of the object after every download.
+	 *
+	 * @param localFile the local file
+	 * @param size the size of the object
+	 * @param eTag the ETag of the object, null if it is not the MD5 of the content
+	 * @param lastModified the last modified time of the object
+	 * @return true, if up to date
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public static boolean isUpToDate(final File localFile, final long size, final String eTag,
+			final Date lastModified) throws IOException {
+		if (!localFile.isFile() || localFile.length() != size) {
+			return false;
+		}
+		if (eTag != null && eTag.indexOf('-') < 0) {
+			return eTag.equalsIgnoreCase(BinaryUtils.toHex(Md5Utils.computeMD5Hash(localFile)));
+		}
+		return lastModified != null && localFile.lastModified() == lastModified.getTime();
+	}
+
+	/**
+	 * The Class DownloadRun.<br/>
+	 * State of one directory download.
+	 */
+	private final class DownloadRun {
+
+		/** The bucket name. */
+		private final String bucketName;
+
+		/** The local dir. */
+		private final File localDir;
+
+		/** The canonical path of the local dir. */
+		private final String localDirPath;
+
+		/** The downloads, at most filesInFlight at the same time. */
+		private final BoundedTaskRunner downloads = new BoundedTaskRunner(executor, filesInFlight);
+
+		/** The counters. */
+		private final DirectoryTransferCounters counters = new DirectoryTransferCounters();
+
+		/**
+		 * Instantiates a new download run.
+		 *
+		 * @param bucketName the bucket name
+		 * @param localDir the local dir
+		 */
+		DownloadRun(final String bucketName, final File localDir) {
+			this.bucketName = bucketName;
+			this.localDir = localDir;
+			try {
+				this.localDirPath = localDir.getCanonicalPath() + File.separator;
+			} catch (IOException ioex) {
+				throw new AmazonClientException("Invalid local directory " + localDir, ioex);
+			}
+		}
+
+		/**
+		 * Download one object.
+		 *
+		 * @param objectSummary the object summary
+		 * @param relativeKey the key relative to the directory prefix
+		 * @throws InterruptedException the interrupted exception
+		 */
+		public void submit(final S3ObjectSummary objectSummary, final String relativeKey) throws InterruptedException {
+			final File localFile = new File(localDir, relativeKey.replace(AWSUtilConstants.SEPARATOR, File.separator));
+			if (!isInsideLocalDir(localFile)) {
+				LOGGER.warn("Skipping key {}, it resolves outside of {}", objectSummary.getKey(), localDir);
+				counters.recordFailure(objectSummary.getKey());
+				return;
+			}
+			if (relativeKey.isEmpty() || relativeKey.endsWith(AWSUtilConstants.SEPARATOR)) {
+				// Directory placeholder
+				localFile.mkdirs();
+				return;
+			}
+			if (rangedDownloader != null && objectSummary.getSize() > rangedDownloader.getPartSize()) {
+				downloadFile(objectSummary, localFile);
+				return;
+			}
+			downloads.execute(() -> downloadFile(objectSummary, localFile));
+		}
+
+		/**
+		 * Download the object to the file unless it is up to date.
+		 *
+		 * @param objectSummary the object summary
+		 * @param localFile the local file
+		 */
+		private void downloadFile(final S3ObjectSummary objectSummary, final File localFile) {
+			final String key = objectSummary.getKey();
+			try {
+				if (isUpToDate(localFile, objectSummary)) {
+					counters.recordSkip();
+					return;
+				}
+				final File parentDir = localFile.getParentFile();
+				// Another download may create the same directory concurrently
+				if (parentDir != null && !parentDir.mkdirs() && !parentDir.isDirectory()) {
+					throw new IOException("Could not create directory " + parentDir);
+				}
+				if (rangedDownloader != null && objectSummary.getSize() > rangedDownloader.getPartSize()) {
+					rangedDownloader.download(bucketName, key, localFile);
+				} else {
+					s3client.getObject(new GetObjectRequest(bucketName, key), localFile);
+				}
+				if (objectSummary.getLastModified() != null) {
+					localFile.setLastModified(objectSummary.getLastModified().getTime());
+				}
+				counters.recordTransfer(objectSummary.getSize());
+			} catch (IOException | AmazonClientException excp) {
+				LOGGER.warn("Failed to download {}: {}", key, excp.getMessage());
+				counters.recordFailure(key);
+			}
+		}
+
+		/**
+		 * Checks if the file is inside the local directory.
+		 *
+		 * @param localFile the local file
+		 * @return true, if inside
+		 */
+		private boolean isInsideLocalDir(final File localFile) {
+			try {
+				return (localFile.getCanonicalPath() + File.separator).startsWith(localDirPath);
+			} catch (IOException ioex) {
+				return false;
+			}
+		}
+
+		/**
+		 * Log the progress, at most once per interval unless forced.
+		 *
+		 * @param force the force flag
+		 */
+		public void logProgress(final boolean force) {
+			if (counters.isProgressDue(force)) {
+				LOGGER.info("Download of bucket {}: {} files ({} bytes) downloaded, {} skipped, {} failed, {} bytes/s",
+						bucketName, counters.getFilesTransferred(), counters.getBytesTransferred(),
+						counters.getFilesSkipped(), counters.getFilesFailed(),
+						(long) counters.toSummary().getBytesPerSecond());
+			}
+		}
+
+		/**
+		 * Wait for all the downloads to complete.
+		 *
+		 * @throws InterruptedException the interrupted exception
+		 */
+		public void awaitCompletion() throws InterruptedException {
+			downloads.awaitCompletion();
+		}
+
+		/**
+		 * Wait for the submitted downloads, used when the listing failed.
+		 */
+		public void awaitSubmitted() {
+			downloads.awaitSubmitted();
+		}
+
+		/**
+		 * Snapshot of the counters.
+		 *
+		 * @return the directory transfer summary
+		 */
+		public DirectoryTransferSummary toSummary() {
+			return counters.toSummary();
+		}
+	}
+}
@@ -0,0 +1,448 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.s3.transfer;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.amazonaws.services.s3.transfer.TransferManager;
+import com.amazonaws.util.BinaryUtils;
+import com.amazonaws.util.Md5Utils;
+import com.github.abhinavmishra14.aws.s3.listing.S3ObjectSummaryIterator;
+import com.github.abhinavmishra14.aws.util.AWSUtil;
+import com.github.abhinavmishra14.aws.util.AWSUtilConstants;
+import com.github.abhinavmishra14.aws.util.BoundedTaskRunner;
+import com.github.abhinavmishra14.aws.util.BulkDeleteSummary;
+import com.github.abhinavmishra14.aws.util.BulkDeleter;
+import com.github.abhinavmishra14.aws.util.DirectorySyncOptions;
+import com.github.abhinavmishra14.aws.util.DirectorySyncSummary;
+import com.github.abhinavmishra14.aws.util.DirectoryTransferCounters;
+import com.github.abhinavmishra14.aws.util.SortedDirectoryWalker;
+
+/**
+ * The Class DirectorySynchronizer.<br/>
+ * Brings the objects under a prefix in line with a local directory, the way
+ * rsync does: only new and changed files are uploaded and, optionally, objects
+ * without a local file are deleted.<br/>
+ * The local walk and the object listing are both produced in key order and
+ * merged side by side, so neither the directory tree nor the listing is held in
+ * memory. A file is changed when its size differs from the object, or when it
+ * was modified after the object was written. With checksums enabled files of the
+ * same size are compared by MD5 instead of time, when the ETag is an MD5.<br/>
+ * At most filesInFlight files are compared and uploaded at the same time on the
+ * executor. Files larger than the multipart threshold are uploaded on the
+ * calling thread by the transfer manager, their parts run on the executor, so
+ * tasks submitted to the executor never wait on other tasks.
+ *
+ * @author Abhinav kumar mishra
+ */
+public class DirectorySynchronizer {
+
+	/** The Constant LOGGER. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(DirectorySynchronizer.class);
+
+	/** The s3client. */
+	private final AmazonS3 s3client;
+
+	/** The transfer manager, uploading the large files. */
+	private final TransferManager transferMgr;
+
+	/** The executor. */
+	private final ExecutorService executor;
+
+	/** The multipart upload threshold. */
+	private final long multipartUploadThreshold;
+
+	/** The files in flight. */
+	private final int filesInFlight;
+
+	/** The delete batches in flight. */
+	private final int deleteBatchesInFlight;
+
+	/** The delete max retries. */
+	private final int deleteMaxRetries;
+
+	/**
+	 * Instantiates a new directory synchronizer.
+	 *
+	 * @param s3client the s3client
+	 * @param transferMgr the transfer manager uploading the files larger than the threshold
+	 * @param executor the executor running the uploads
+	 * @param multipartUploadThreshold the size above which files are uploaded as multiparts
+	 * @param filesInFlight the maximum number of files uploaded at the same time
+	 * @param deleteBatchesInFlight the maximum number of delete batches in flight
+	 * @param deleteMaxRetries the maximum number of retries of the keys a batch failed to delete
+	 */
+	public DirectorySynchronizer(final AmazonS3 s3client, final TransferManager transferMgr,
+			final ExecutorService executor, final long multipartUploadThreshold, final int filesInFlight,
+			final int deleteBatchesInFlight, final int deleteMaxRetries) {
+		super();
+		this.s3client = s3client;
+		this.transferMgr = transferMgr;
+		this.executor = executor;
+		this.multipartUploadThreshold = multipartUploadThreshold;
+		this.filesInFlight = filesInFlight;
+		this.deleteBatchesInFlight = deleteBatchesInFlight;
+		this.deleteMaxRetries = deleteMaxRetries;
+	}
+
+	/**
+	 * Synchronize the objects under the prefix with the local directory.<br/>
+	 * The prefix is treated as a directory: file <code>localDir/a/b.txt</code> is
+	 * compared with key <code>prefix/a/b.txt</code>. Failed files are counted in the
+	 * summary and do not stop the synchronization of the others. A local
+	 * directory which cannot be listed fails the synchronization before any
+	 * object under it is deleted as an orphan.
+	 *
+	 * @param localDir the local directory
+	 * @param bucketName the bucket name
+	 * @param prefix the prefix, null or empty for the whole bucket
+	 * @param options the synchronization options
+	 * @return the directory sync summary
+	 * @throws AmazonClientException the amazon client exception, if the directory cannot be read or listing fails
+	 */
+	public DirectorySyncSummary sync(final File localDir, final String bucketName, final String prefix,
+			final DirectorySyncOptions options) throws AmazonClientException {
+		final SortedDirectoryWalker localFiles;
+		try {
+			localFiles = new SortedDirectoryWalker(localDir, options.getSymlinkPolicy());
+		} catch (FileNotFoundException fnfe) {
+			throw new AmazonClientException("Invalid local directory " + localDir, fnfe);
+		}
+		final String dirPrefix = AWSUtil.toDirectoryPrefix(prefix);
+		final SyncRun syncRun = new SyncRun(bucketName, options);
+		try {
+			final Iterator<S3ObjectSummary> objectSummaries = new S3ObjectSummaryIterator(s3client, executor,
+					bucketName, dirPrefix.isEmpty() ? null : dirPrefix, null);
+			String localKey = localFiles.hasNext() ? localFiles.next() : null;
+			S3ObjectSummary objectSummary = nextObject(objectSummaries, dirPrefix);
+			while (localKey != null || objectSummary != null) {
+				final int order;
+				if (localKey == null) {
+					order = 1;
+				} else if (objectSummary == null) {
+					order = -1;
+				} else {
+					order = SortedDirectoryWalker.compareKeys(localKey,
+							objectSummary.getKey().substring(dirPrefix.length()));
+				}
+				if (order > 0) {
+					syncRun.deleteOrphan(objectSummary.getKey());
+				} else {
+					syncRun.submit(dirPrefix + localKey, localFiles.getFile(localKey), order == 0 ? objectSummary
+							: null);
+					localKey = localFiles.hasNext() ? localFiles.next() : null;
+				}
+				if (order >= 0) {
+					objectSummary = nextObject(objectSummaries, dirPrefix);
+				}
+				syncRun.logProgress(false);
+			}
+			syncRun.awaitCompletion();
+		} catch (InterruptedException intrEx) {
+			Thread.currentThread().interrupt();
+			throw new AmazonClientException("Interrupted while synchronizing " + localDir, intrEx);
+		} catch (UncheckedIOException ioEx) {
+			// The keys under the directory are not compared, none of them was deleted
+			throw new AmazonClientException("Cannot read local directory " + localDir, ioEx);
+		} finally {
+			syncRun.awaitSubmitted();
+		}
+		syncRun.logProgress(true);
+		return syncRun.toSummary();
+	}
+
+	/**
+	 * Gets the next object, skipping the directory placeholders.
+	 *
+	 * @param objectSummaries the object summaries
+	 * @param dirPrefix the directory prefix
+	 * @return the next object summary, null when the listing is over
+	 */
+	private static S3ObjectSummary nextObject(final Iterator<S3ObjectSummary> objectSummaries,
+			final String dirPrefix) {
+		while (objectSummaries.hasNext()) {
+			final S3ObjectSummary objectSummary = objectSummaries.next();
+			final String key = objectSummary.getKey();
+			if (key.length() > dirPrefix.length() && !key.endsWith(AWSUtilConstants.SEPARATOR)) {
+				return objectSummary;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Checks if the local file differs from its object.
+	 *
+	 * @param localFile the local file
+	 * @param objectSummary the object summary
+	 * @param compareChecksums the compare checksums flag
+	 * @return true, if the file must be uploaded
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static boolean isChanged(final File localFile, final S3ObjectSummary objectSummary,
+			final boolean compareChecksums) throws IOException {
+		if (localFile.length() != objectSummary.getSize()) {
+			return true;
+		}
+		final String eTag = objectSummary.getETag();
+		if (compareChecksums && eTag != null && eTag.indexOf('-') < 0) {
+			return !eTag.equalsIgnoreCase(BinaryUtils.toHex(Md5Utils.computeMD5Hash(localFile)));
+		}
+		return objectSummary.getLastModified() == null
+				|| localFile.lastModified() > objectSummary.getLastModified().getTime();
+	}
+
+	/**
+	 * The Class SyncRun.<br/>
+	 * State of one directory synchronization.
+	 */
+	private final class SyncRun {
+
+		/** The bucket name. */
+		private final String bucketName;
+
+		/** The options. */
+		private final DirectorySyncOptions options;
+
+		/** The uploads, at most filesInFlight at the same time. */
+		private final BoundedTaskRunner uploads = new BoundedTaskRunner(executor, filesInFlight);
+
+		/** The bulk deleter of the orphans, null when they are kept or for a dry run. */
+		private final BulkDeleter bulkDeleter;
+
+		/** The counters, unchanged files are counted as skipped. */
+		private final DirectoryTransferCounters counters = new DirectoryTransferCounters();
+
+		/** The orphans found. */
+		private final AtomicLong orphansFound = new AtomicLong();
+
+		/** The uploaded keys sample. */
+		private final List<String> uploadedKeys = new ArrayList<String>();
+
+		/** The deleted keys sample. */
+		private final List<String> deletedKeys = new ArrayList<String>();
+
+		/** The summary of the deletes, null until they are over. */
+		private BulkDeleteSummary deleteSummary;
+
+		/**
+		 * Instantiates a new sync run.
+		 *
+		 * @param bucketName the bucket name
+		 * @param options the options
+		 */
+		SyncRun(final String bucketName, final DirectorySyncOptions options) {
+			this.bucketName = bucketName;
+			this.options = options;
+			if (options.isDeleteOrphans() && !options.isDryRun()) {
+				bulkDeleter = new BulkDeleter(executor, new S3BatchDeleteAction(s3client, bucketName),
+						deleteBatchesInFlight, deleteMaxRetries);
+			} else {
+				bulkDeleter = null;
+			}
+		}
+
+		/**
+		 * Compare one file with its object and upload it when changed.
+		 *
+		 * @param key the key of the file
+		 * @param localFile the local file
+		 * @param objectSummary the object summary, null when the object does not exist
+		 * @throws InterruptedException the interrupted exception
+		 */
+		public void submit(final String key, final File localFile, final S3ObjectSummary objectSummary)
+				throws InterruptedException {
+			if (localFile.length() > multipartUploadThreshold) {
+				syncLargeFile(key, localFile, objectSummary);
+				return;
+			}
+			uploads.execute(() -> syncFile(key, localFile, objectSummary));
+		}
+
+		/**
+		 * Upload the file with a single request unless it is up to date.
+		 *
+		 * @param key the key
+		 * @param localFile the local file
+		 * @param objectSummary the object summary, null when the object does not exist
+		 */
+		private void syncFile(final String key, final File localFile, final S3ObjectSummary objectSummary) {
+			try {
+				if (!needsUpload(key, localFile, objectSummary)) {
+					return;
+				}
+				s3client.putObject(new PutObjectRequest(bucketName, key, localFile));
+				recordUpload(key, localFile);
+			} catch (IOException | AmazonClientException excp) {
+				LOGGER.warn("Failed to upload {}: {}", key, excp.getMessage());
+				counters.recordFailure(key);
+			}
+		}
+
+		/**
+		 * Upload the file as multiparts unless it is up to date.
+		 *
+		 * @param key the key
+		 * @param localFile the local file
+		 * @param objectSummary the object summary, null when the object does not exist
+		 * @throws InterruptedException the interrupted exception
+		 */
+		private void syncLargeFile(final String key, final File localFile, final S3ObjectSummary objectSummary)
+				throws InterruptedException {
+			try {
+				if (!needsUpload(key, localFile, objectSummary)) {
+					return;
+				}
+				transferMgr.upload(new PutObjectRequest(bucketName, key, localFile)).waitForCompletion();
+				recordUpload(key, localFile);
+			} catch (IOException | AmazonClientException excp) {
+				LOGGER.warn("Failed to upload {}: {}", key, excp.getMessage());
+				counters.recordFailure(key);
+			}
+		}
+
+		/**
+		 * Checks if the file must be uploaded, a dry run records it as uploaded.
+		 *
+		 * @param key the key
+		 * @param localFile the local file
+		 * @param objectSummary the object summary, null when the object does not exist
+		 * @return true, if the file must be uploaded now
+		 * @throws IOException Signals that an I/O exception has occurred.
+		 */
+		private boolean needsUpload(final String key, final File localFile, final S3ObjectSummary objectSummary)
+				throws IOException {
+			if (objectSummary != null && !isChanged(localFile, objectSummary, options.isCompareChecksums())) {
+				counters.recordSkip();
+				return false;
+			}
+			if (options.isDryRun()) {
+				recordUpload(key, localFile);
+				return false;
+			}
+			return true;
+		}
+
+		/**
+		 * Delete an object without a local file, a dry run only records it.
+		 *
+		 * @param key the key
+		 * @throws InterruptedException the interrupted exception
+		 */
+		public void deleteOrphan(final String key) throws InterruptedException {
+			if (!options.isDeleteOrphans()) {
+				return;
+			}
+			orphansFound.incrementAndGet();
+			synchronized (deletedKeys) {
+				if (deletedKeys.size() < AWSUtilConstants.MAX_SYNC_KEYS_REPORTED) {
+					deletedKeys.add(key);
+				}
+			}
+			if (bulkDeleter != null) {
+				bulkDeleter.submit(key);
+			}
+		}
+
+		/**
+		 * Record an uploaded file.
+		 *
+		 * @param key the key
+		 * @param localFile the local file
+		 */
+		private void recordUpload(final String key, final File localFile) {
+			counters.recordTransfer(localFile.length());
+			synchronized (uploadedKeys) {
+				if (uploadedKeys.size() < AWSUtilConstants.MAX_SYNC_KEYS_REPORTED) {
+					uploadedKeys.add(key);
+				}
+			}
+		}
+
+		/**
+		 * Log the progress, at most once per interval unless forced.
+		 *
+		 * @param force the force flag
+		 */
+		public void logProgress(final boolean force) {
+			if (counters.isProgressDue(force)) {
+				LOGGER.info("Sync to bucket {}{}: {} files ({} bytes) uploaded, {} unchanged, {} failed, {} orphans",
+						bucketName, options.isDryRun() ? " (dry run)" : "", counters.getFilesTransferred(),
+						counters.getBytesTransferred(), counters.getFilesSkipped(), counters.getFilesFailed(),
+						orphansFound.get());
+			}
+		}
+
+		/**
+		 * Wait for all the uploads and deletes to complete.
+		 *
+		 * @throws InterruptedException the interrupted exception
+		 */
+		public void awaitCompletion() throws InterruptedException {
+			uploads.awaitCompletion();
+			if (bulkDeleter != null) {
+				deleteSummary = bulkDeleter.finish();
+				for (final String failedKey : deleteSummary.getFailedKeys()) {
+					counters.recordFailure(failedKey);
+				}
+				counters.recordFailures(deleteSummary.getKeysFailed() - deleteSummary.getFailedKeys().size());
+			}
+		}
+
+		/**
+		 * Wait for the submitted uploads and deletes, used when the walk or the listing failed.
+		 */
+		public void awaitSubmitted() {
+			uploads.awaitSubmitted();
+			if (bulkDeleter != null) {
+				bulkDeleter.awaitSubmitted();
+			}
+		}
+
+		/**
+		 * Snapshot of the counters.
+		 *
+		 * @return the directory sync summary
+		 */
+		public DirectorySyncSummary toSummary() {
+			final long objectsDeleted = deleteSummary == null ? orphansFound.get() : deleteSummary.getKeysDeleted();
+			// The deleted keys are only written by the thread driving the sync
+			synchronized (uploadedKeys) {
+				return new DirectorySyncSummary(counters.getFilesTransferred(), counters.getFilesSkipped(),
+						counters.getFilesFailed(), objectsDeleted, counters.getBytesTransferred(),
+						counters.getElapsedMillis(), options.isDryRun(), uploadedKeys, deletedKeys,
+						counters.getFailedKeys());
+			}
+		}
+	}
+}
@@ -0,0 +1,216 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.s3.transfer;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.BitSet;
+import java.util.Properties;
+
+import com.github.abhinavmishra14.aws.util.AWSUtilConstants;
+
+/**
+ * The Class DownloadCheckpoint.<br/>
+ * Sidecar file recording which ranges of a parallel download are already on
+ * disk, so that an interrupted download resumes instead of starting over. The
+ * checkpoint is bound to the ETag, length and part size of the object, a
+ * checkpoint recorded for another version of the object is ignored.<br/>
+ * Stored as a properties file next to the partial download, replaced
+ * atomically so that a crash never leaves a truncated checkpoint. Completed
+ * parts are recorded in batches, each batch once the downloaded data is forced
+ * to disk, so the checkpoint never names a part lost by a crash.
+ *
+ * @author Abhinav kumar mishra
+ */
+final class DownloadCheckpoint {
+
+	/** The Constant PROP_BUCKET. */
+	private static final String PROP_BUCKET = "bucket";
+
+	/** The Constant PROP_KEY. */
+	private static final String PROP_KEY = "key";
+
+	/** The Constant PROP_ETAG. */
+	private static final String PROP_ETAG = "eTag";
+
+	/** The Constant PROP_LENGTH. */
+	private static final String PROP_LENGTH = "contentLength";
+
+	/** The Constant PROP_PART_SIZE. */
+	private static final String PROP_PART_SIZE = "partSize";
+
+	/** The Constant PROP_COMPLETED_PARTS. */
+	private static final String PROP_COMPLETED_PARTS = "completedParts";
+
+	/** The checkpoint file. */
+	private final File checkpointFile;
+
+	/** The properties. */
+	private final Properties properties;
+
+	/** The completed parts. */
+	private final BitSet completedParts;
+
+	/** The parts completed since the last write of the checkpoint. */
+	private final BitSet pendingParts = new BitSet();
+
+	/**
+	 * Instantiates a new download checkpoint.
+	 *
+	 * @param checkpointFile the checkpoint file
+	 * @param properties the properties
+	 * @param completedParts the completed parts
+	 */
+	private DownloadCheckpoint(final File checkpointFile, final Properties properties, final BitSet completedParts) {
+		this.checkpointFile = checkpointFile;
+		this.properties = properties;
+		this.completedParts = completedParts;
+	}
+
+	/**
+	 * Load the checkpoint if it was recorded for the same object, otherwise start a new one.
+	 *
+	 * @param checkpointFile the checkpoint file
+	 * @param bucketName the bucket name
+	 * @param key the key
+	 * @param eTag the e tag
+	 * @param contentLength the content length
+	 * @param partSize the part size
+	 * @return the download checkpoint
+	 */
+	public static DownloadCheckpoint loadOrCreate(final File checkpointFile, final String bucketName, final String key,
+			final String eTag, final long contentLength, final long partSize) {
+		final Properties expected = new Properties();
+		expected.setProperty(PROP_BUCKET, bucketName);
+		expected.setProperty(PROP_KEY, key);
+		expected.setProperty(PROP_ETAG, String.valueOf(eTag));
+		expected.setProperty(PROP_LENGTH, String.valueOf(contentLength));
+		expected.setProperty(PROP_PART_SIZE, String.valueOf(partSize));
+		final BitSet completedParts = new BitSet();
+		if (checkpointFile.isFile()) {
+			final Properties stored = new Properties();
+			try (InputStream inStream = new FileInputStream(checkpointFile)) {
+				stored.load(inStream);
+				final String completed = stored.getProperty(PROP_COMPLETED_PARTS, "");
+				stored.remove(PROP_COMPLETED_PARTS);
+				if (stored.equals(expected)) {
+					for (final String part : completed.split(",")) {
+						if (!part.isEmpty()) {
+							completedParts.set(Integer.parseInt(part));
+						}
+					}
+				}
+			} catch (IOException | NumberFormatException excp) {
+				// Unreadable checkpoint, download again
+				completedParts.clear();
+			}
+		}
+		return new DownloadCheckpoint(checkpointFile, expected, completedParts);
+	}
+
+	/**
+	 * Checks if the part is completed.
+	 *
+	 * @param partIndex the part index
+	 * @return true, if completed
+	 */
+	public synchronized boolean isCompleted(final int partIndex) {
+		return completedParts.get(partIndex);
+	}
+
+	/**
+	 * Checks for completed parts.
+	 *
+	 * @return true, if any part is completed
+	 */
+	public synchronized boolean hasCompletedParts() {
+		return !completedParts.isEmpty();
+	}
+
+	/**
+	 * Record a completed part, the checkpoint is written once a batch of parts is
+	 * completed.
+	 *
+	 * @param partIndex the part index
+	 * @param dataChannel the channel the part was written to
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public synchronized void complete(final int partIndex, final FileChannel dataChannel) throws IOException {
+		pendingParts.set(partIndex);
+		if (pendingParts.cardinality() >= AWSUtilConstants.DOWNLOAD_CHECKPOINT_BATCH_PARTS) {
+			flush(dataChannel);
+		}
+	}
+
+	/**
+	 * Force the data of the completed parts to disk, then write the checkpoint.<br/>
+	 * The checkpoint is written to a temporary file first, then moved over the
+	 * previous one: a truncated list could name parts which are not complete.
+	 *
+	 * @param dataChannel the channel the parts were written to
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public synchronized void flush(final FileChannel dataChannel) throws IOException {
+		if (pendingParts.isEmpty()) {
+			return;
+		}
+		dataChannel.force(false);
+		completedParts.or(pendingParts);
+		pendingParts.clear();
+		final StringBuilder completed = new StringBuilder();
+		for (int part = completedParts.nextSetBit(0); part >= 0; part = completedParts.nextSetBit(part + 1)) {
+			if (completed.length() > 0) {
+				completed.append(',');
+			}
+			completed.append(part);
+		}
+		properties.setProperty(PROP_COMPLETED_PARTS, completed.toString());
+		final File tempFile = new File(checkpointFile.getPath() + ".tmp");
+		try (OutputStream outStream = new FileOutputStream(tempFile)) {
+			properties.store(outStream, "Parallel download checkpoint");
+		}
+		Files.move(tempFile.toPath(), checkpointFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Forget the completed parts and delete the checkpoint file.
+	 */
+	public synchronized void reset() {
+		completedParts.clear();
+		pendingParts.clear();
+		properties.remove(PROP_COMPLETED_PARTS);
+		delete();
+	}
+
+	/**
+	 * Delete the checkpoint file.
+	 */
+	public void delete() {
+		if (checkpointFile.exists() && !checkpointFile.delete()) {
+			checkpointFile.deleteOnExit();
+		}
+	}
+}
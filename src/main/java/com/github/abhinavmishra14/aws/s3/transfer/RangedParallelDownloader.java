@@ -0,0 +1,443 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.s3.transfer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.util.BinaryUtils;
+import com.amazonaws.util.Md5Utils;
+import com.github.abhinavmishra14.aws.util.AWSUtilConstants;
+
+/**
+ * The Class RangedParallelDownloader.<br/>
+ * Downloads an object with several ranged GET requests at the same time. The
+ * target file is preallocated and every range is written straight into its slot
+ * with positional {@link FileChannel} writes, no part is buffered in memory.<br/>
+ * Data is written to <code>&lt;file&gt;.s3part</code> and renamed to the target once
+ * verified against the ETag (MD5 of single part uploads) or the length. A
+ * <code>&lt;file&gt;.s3part.checkpoint</code> sidecar records the completed ranges,
+ * calling download again after a failure only fetches the first range and the
+ * missing ones.
+ * Ranges are requested with a matching ETag constraint, so an object replaced
+ * during the download fails the download instead of mixing two versions.<br/>
+ * No HEAD request is sent, objects not larger than one part are downloaded with
+ * a single GET. Tasks submitted to the executor never wait on other tasks.
+ *
+ * @author Abhinav kumar mishra
+ */
+public class RangedParallelDownloader {
+
+	/** The Constant LOGGER. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(RangedParallelDownloader.class);
+
+	/** The Constant PART_FILE_SUFFIX. */
+	public static final String PART_FILE_SUFFIX = ".s3part";
+
+	/** The Constant CHECKPOINT_FILE_SUFFIX. */
+	public static final String CHECKPOINT_FILE_SUFFIX = ".s3part.checkpoint";
+
+	/** The Constant RANGE_NOT_SATISFIABLE. */
+	private static final int RANGE_NOT_SATISFIABLE = 416;
+
+	/** The Constant COPY_BUFFER_SIZE. */
+	private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+	/** The s3client. */
+	private final AmazonS3 s3client;
+
+	/** The executor. */
+	private final ExecutorService executor;
+
+	/** The part size. */
+	private final long partSize;
+
+	/** The ranges in flight. */
+	private final int rangesInFlight;
+
+	/**
+	 * Instantiates a new ranged parallel downloader.
+	 *
+	 * @param s3client the s3client
+	 * @param executor the executor running the ranged requests
+	 * @param partSize the size in bytes of each range
+	 * @param rangesInFlight the maximum number of ranges downloaded at the same time per download
+	 */
+	public RangedParallelDownloader(final AmazonS3 s3client, final ExecutorService executor, final long partSize,
+			final int rangesInFlight) {
+		super();
+		this.s3client = s3client;
+		this.executor = executor;
+		this.partSize = partSize;
+		this.rangesInFlight = rangesInFlight;
+	}
+
+	/**
+	 * Gets the part size.
+	 *
+	 * @return the size in bytes of each range, objects not larger are downloaded with a single GET
+	 */
+	public long getPartSize() {
+		return partSize;
+	}
+
+	/**
+	 * Download the object to the file.<br/>
+	 * The first range is requested straight away, its Content-Range tells the
+	 * length and its ETag the version of the object, the other ranges are only
+	 * requested when the object is larger than one part.
+	 *
+	 * @param bucketName the bucket name
+	 * @param key the key
+	 * @param targetFile the target file
+	 * @return the object metadata
+	 * @throws AmazonClientException the amazon client exception
+	 */
+	public ObjectMetadata download(final String bucketName, final String key, final File targetFile)
+			throws AmazonClientException {
+		return download(bucketName, key, targetFile, null);
+	}
+
+	/**
+	 * Download the object to the file unless its ETag is the given one.<br/>
+	 * The condition is sent with the first range, the file is left untouched when
+	 * S3 answers 304 Not Modified.
+	 *
+	 * @param bucketName the bucket name
+	 * @param key the key
+	 * @param targetFile the target file
+	 * @param nonmatchingETag the ETag of the copy already held, null to always download
+	 * @return the object metadata, null if the object has the given ETag
+	 * @throws AmazonClientException the amazon client exception
+	 */
+	public ObjectMetadata download(final String bucketName, final String key, final File targetFile,
+			final String nonmatchingETag) throws AmazonClientException {
+		final S3Object firstPart = getFirstPart(bucketName, key, nonmatchingETag);
+		if (firstPart == null) {
+			return null;
+		}
+		final ObjectMetadata metadata = firstPart.getObjectMetadata();
+		final long firstPartLength = metadata.getContentLength();
+		final long contentLength = metadata.getInstanceLength();
+		metadata.setContentLength(contentLength);
+		final String eTag = metadata.getETag();
+		final int partCount = (int) ((contentLength + partSize - 1) / partSize);
+		final File partFile = new File(targetFile.getPath() + PART_FILE_SUFFIX);
+		final DownloadCheckpoint checkpoint = DownloadCheckpoint.loadOrCreate(
+				new File(targetFile.getPath() + CHECKPOINT_FILE_SUFFIX), bucketName, key, eTag, contentLength,
+				partSize);
+		if (checkpoint.hasCompletedParts() && partFile.length() == contentLength) {
+			LOGGER.info("Resuming download of {} from checkpoint", key);
+		} else {
+			checkpoint.reset();
+		}
+		try (InputStream firstContent = firstPart.getObjectContent();
+				RandomAccessFile randomAccessFile = new RandomAccessFile(partFile, "rw")) {
+			randomAccessFile.setLength(contentLength);
+			if (firstPartLength == contentLength) {
+				// The first range holds the whole object
+				writeRange(key, firstContent, 0, contentLength - 1, randomAccessFile.getChannel());
+			} else {
+				LOGGER.info("Downloading {} bytes of {} in {} ranges", contentLength, key, partCount);
+				downloadRanges(bucketName, key, eTag, contentLength, partCount, firstContent,
+						randomAccessFile.getChannel(), checkpoint);
+			}
+		} catch (InterruptedIOException intrEx) {
+			throw new AmazonClientException("Interrupted while downloading " + key, intrEx);
+		} catch (IOException ioex) {
+			throw new AmazonClientException("Failed to write " + partFile, ioex);
+		}
+		verify(key, metadata, partFile, checkpoint);
+		try {
+			Files.move(partFile.toPath(), targetFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException ioex) {
+			throw new AmazonClientException("Failed to move " + partFile + " to " + targetFile, ioex);
+		}
+		checkpoint.delete();
+		return metadata;
+	}
+
+	/**
+	 * Request the first range of the object.
+	 *
+	 * @param bucketName the bucket name
+	 * @param key the key
+	 * @param nonmatchingETag the ETag the object should not have, may be null
+	 * @return the first range, the whole object when it is empty, null if the object has the given ETag
+	 */
+	private S3Object getFirstPart(final String bucketName, final String key, final String nonmatchingETag) {
+		try {
+			return s3client.getObject(newGetObjectRequest(bucketName, key, nonmatchingETag).withRange(0,
+					partSize - 1));
+		} catch (AmazonS3Exception s3Ex) {
+			if (s3Ex.getStatusCode() != RANGE_NOT_SATISFIABLE) {
+				throw s3Ex;
+			}
+			// An empty object has no first byte
+			return s3client.getObject(newGetObjectRequest(bucketName, key, nonmatchingETag));
+		}
+	}
+
+	/**
+	 * Creates a get object request, conditional on the ETag of the object if one is given.
+	 *
+	 * @param bucketName the bucket name
+	 * @param key the key
+	 * @param nonmatchingETag the ETag the object should not have, may be null
+	 * @return the get object request
+	 */
+	private static GetObjectRequest newGetObjectRequest(final String bucketName, final String key,
+			final String nonmatchingETag) {
+		final GetObjectRequest getObjRequest = new GetObjectRequest(bucketName, key);
+		if (nonmatchingETag != null) {
+			getObjRequest.setNonmatchingETagConstraints(Collections.singletonList(nonmatchingETag));
+		}
+		return getObjRequest;
+	}
+
+	/**
+	 * Write the first range, then download the missing ones.<br/>
+	 * Failed ranges are recorded in one reference, checked before each range is
+	 * submitted and once all of them are done. The completed ranges are recorded
+	 * in the checkpoint when the download fails.
+	 *
+	 * @param bucketName the bucket name
+	 * @param key the key
+	 * @param eTag the e tag
+	 * @param contentLength the content length
+	 * @param partCount the part count
+	 * @param firstContent the content of the first range
+	 * @param channel the channel
+	 * @param checkpoint the checkpoint
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private void downloadRanges(final String bucketName, final String key, final String eTag,
+			final long contentLength, final int partCount, final InputStream firstContent, final FileChannel channel,
+			final DownloadCheckpoint checkpoint) throws IOException {
+		final Semaphore inFlightPermits = new Semaphore(rangesInFlight);
+		final AtomicReference<AmazonClientException> failure = new AtomicReference<AmazonClientException>();
+		final List<Future<?>> futures = new ArrayList<Future<?>>(partCount);
+		boolean downloaded = false;
+		try {
+			writeRange(key, firstContent, 0, partSize - 1, channel);
+			checkpoint.complete(0, channel);
+			for (int partIndex = 1; partIndex < partCount; partIndex++) {
+				if (checkpoint.isCompleted(partIndex)) {
+					continue;
+				}
+				final int part = partIndex;
+				final long start = part * partSize;
+				final long end = Math.min(contentLength, start + partSize) - 1;
+				inFlightPermits.acquire();
+				throwFailure(failure);
+				futures.add(executor.submit(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							downloadRange(bucketName, key, eTag, start, end, channel);
+							checkpoint.complete(part, channel);
+						} catch (IOException | RuntimeException excp) {
+							failure.compareAndSet(null, new AmazonClientException("Failed to download " + key
+									+ " bytes " + start + "-" + end + ": " + excp.getMessage(), excp));
+						} finally {
+							inFlightPermits.release();
+						}
+					}
+				}));
+			}
+			// Every range gives its permit back when done
+			inFlightPermits.acquire(rangesInFlight);
+			throwFailure(failure);
+			downloaded = true;
+		} catch (InterruptedException intrEx) {
+			Thread.currentThread().interrupt();
+			cancelAll(futures);
+			final InterruptedIOException interruptedIOEx = new InterruptedIOException("Interrupted while downloading "
+					+ key);
+			interruptedIOEx.initCause(intrEx);
+			throw interruptedIOEx;
+		} catch (RuntimeException runEx) {
+			cancelAll(futures);
+			throw runEx;
+		} finally {
+			if (!downloaded) {
+				saveCheckpoint(key, checkpoint, channel);
+			}
+		}
+	}
+
+	/**
+	 * Download one range into its slot of the file.
+	 *
+	 * @param bucketName the bucket name
+	 * @param key the key
+	 * @param eTag the e tag
+	 * @param start the first byte
+	 * @param end the last byte, inclusive
+	 * @param channel the channel
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private void downloadRange(final String bucketName, final String key, final String eTag, final long start,
+			final long end, final FileChannel channel) throws IOException {
+		final GetObjectRequest getObjRequest = new GetObjectRequest(bucketName, key).withRange(start, end)
+				.withMatchingETagConstraint(eTag);
+		final S3Object s3Object = s3client.getObject(getObjRequest);
+		if (s3Object == null) {
+			// Constraint not met, the object was replaced while downloading
+			throw new AmazonClientException("Object " + key + " changed during download, ETag is no longer " + eTag);
+		}
+		try (InputStream inStream = s3Object.getObjectContent()) {
+			writeRange(key, inStream, start, end, channel);
+		}
+	}
+
+	/**
+	 * Write the content of a range into its slot of the file.
+	 *
+	 * @param key the key
+	 * @param inStream the content of the range
+	 * @param start the first byte
+	 * @param end the last byte, inclusive
+	 * @param channel the channel
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static void writeRange(final String key, final InputStream inStream, final long start, final long end,
+			final FileChannel channel) throws IOException {
+		final byte[] buffer = new byte[COPY_BUFFER_SIZE];
+		long position = start;
+		int read;
+		while ((read = inStream.read(buffer)) != -1) {
+			final ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, read);
+			while (byteBuffer.hasRemaining()) {
+				position += channel.write(byteBuffer, position);
+			}
+		}
+		if (position != end + 1) {
+			throw new IOException("Range " + start + "-" + end + " of " + key + " ended at " + position);
+		}
+	}
+
+	/**
+	 * Record the completed ranges of a failed download, so that it resumes.
+	 *
+	 * @param key the key
+	 * @param checkpoint the checkpoint
+	 * @param channel the channel
+	 */
+	private static void saveCheckpoint(final String key, final DownloadCheckpoint checkpoint,
+			final FileChannel channel) {
+		try {
+			checkpoint.flush(channel);
+		} catch (IOException ioex) {
+			LOGGER.warn("Failed to record the completed ranges of {}", key, ioex);
+		}
+	}
+
+	/**
+	 * Verify the downloaded file.<br/>
+	 * The MD5 is compared for objects whose ETag is the MD5 of the content, that is
+	 * objects uploaded in a single part without KMS encryption. Other objects are
+	 * checked by length. A corrupt file and its checkpoint are deleted.
+	 *
+	 * @param key the key
+	 * @param metadata the metadata
+	 * @param partFile the part file
+	 * @param checkpoint the checkpoint
+	 */
+	private void verify(final String key, final ObjectMetadata metadata, final File partFile,
+			final DownloadCheckpoint checkpoint) {
+		String failure = null;
+		if (partFile.length() != metadata.getContentLength()) {
+			failure = "length " + partFile.length() + " instead of " + metadata.getContentLength();
+		} else if (isMd5ETag(metadata)) {
+			try {
+				final String md5 = BinaryUtils.toHex(Md5Utils.computeMD5Hash(partFile));
+				if (!md5.equalsIgnoreCase(metadata.getETag())) {
+					failure = "MD5 " + md5 + " instead of " + metadata.getETag();
+				}
+			} catch (IOException ioex) {
+				throw new AmazonClientException("Failed to verify " + partFile, ioex);
+			}
+		}
+		if (failure != null) {
+			checkpoint.delete();
+			if (!partFile.delete()) {
+				partFile.deleteOnExit();
+			}
+			throw new AmazonClientException("Download of " + key + " is corrupt, " + failure);
+		}
+	}
+
+	/**
+	 * Checks if the ETag is the MD5 of the content.
+	 *
+	 * @param metadata the metadata
+	 * @return true, if the ETag can be compared to the MD5
+	 */
+	private static boolean isMd5ETag(final ObjectMetadata metadata) {
+		final String eTag = metadata.getETag();
+		return eTag != null && eTag.indexOf('-') < 0
+				&& !AWSUtilConstants.SSE_KMS_ALGORITHM.equals(metadata.getSSEAlgorithm());
+	}
+
+	/**
+	 * Throw the failure of the first failed range, if any.
+	 *
+	 * @param failure the failure
+	 */
+	private static void throwFailure(final AtomicReference<AmazonClientException> failure) {
+		final AmazonClientException error = failure.get();
+		if (error != null) {
+			throw error;
+		}
+	}
+
+	/**
+	 * Cancel all the ranges.
+	 *
+	 * @param futures the futures
+	 */
+	private static void cancelAll(final List<Future<?>> futures) {
+		for (final Future<?> future : futures) {
+			future.cancel(true);
+		}
+	}
+}
@@ -0,0 +1,80 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.s3.transfer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest.KeyVersion;
+import com.amazonaws.services.s3.model.MultiObjectDeleteException;
+import com.amazonaws.services.s3.model.MultiObjectDeleteException.DeleteError;
+import com.github.abhinavmishra14.aws.util.BatchDeleteAction;
+
+/**
+ * The Class S3BatchDeleteAction.<br/>
+ * Deletes a batch of keys with one quiet DeleteObjects request, so that only
+ * the failed keys are sent back by Amazon S3.
+ *
+ * @author Abhinav kumar mishra
+ */
+public final class S3BatchDeleteAction implements BatchDeleteAction {
+
+	/** The s3client. */
+	private final AmazonS3 s3client;
+
+	/** The bucket name. */
+	private final String bucketName;
+
+	/**
+	 * Instantiates a new s3 batch delete action.
+	 *
+	 * @param s3client the s3client
+	 * @param bucketName the bucket name
+	 */
+	public S3BatchDeleteAction(final AmazonS3 s3client, final String bucketName) {
+		super();
+		this.s3client = s3client;
+		this.bucketName = bucketName;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.util.BatchDeleteAction#deleteBatch(java.util.List)
+	 */
+	@Override
+	public List<String> deleteBatch(final List<String> keys) {
+		final List<KeyVersion> keyVersions = new ArrayList<KeyVersion>(keys.size());
+		for (final String key : keys) {
+			keyVersions.add(new KeyVersion(key));
+		}
+		final DeleteObjectsRequest deleteObjReq = new DeleteObjectsRequest(bucketName).withKeys(keyVersions)
+				.withQuiet(true);
+		try {
+			s3client.deleteObjects(deleteObjReq);
+			return Collections.emptyList();
+		} catch (MultiObjectDeleteException multiDelEx) {
+			final List<String> failedKeys = new ArrayList<String>(multiDelEx.getErrors().size());
+			for (final DeleteError deleteError : multiDelEx.getErrors()) {
+				failedKeys.add(deleteError.getKey());
+			}
+			return failedKeys;
+		}
+	}
+}
@@ -0,0 +1,149 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.s3.transfer;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.CannedAccessControlList;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.ListPartsRequest;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.PartListing;
+import com.amazonaws.services.s3.model.PartSummary;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.github.abhinavmishra14.aws.util.MultipartUploadAction;
+import com.github.abhinavmishra14.aws.util.UploadedPart;
+
+/**
+ * The Class S3MultipartUploadAction.<br/>
+ * Multipart upload requests of one object through the AWS SDK, parts are read
+ * straight from the file.
+ *
+ * @author Abhinav kumar mishra
+ */
+public final class S3MultipartUploadAction implements MultipartUploadAction {
+
+	/** The Constant NO_SUCH_UPLOAD. */
+	private static final String NO_SUCH_UPLOAD = "NoSuchUpload";
+
+	/** The s3client. */
+	private final AmazonS3 s3client;
+
+	/** The bucket name. */
+	private final String bucketName;
+
+	/** The key. */
+	private final String key;
+
+	/** The canned acl. */
+	private final CannedAccessControlList cannedAcl;
+
+	/**
+	 * Instantiates a new s3 multipart upload action.
+	 *
+	 * @param s3client the s3client
+	 * @param bucketName the bucket name
+	 * @param key the key
+	 * @param cannedAcl the canned acl, can be null
+	 */
+	public S3MultipartUploadAction(final AmazonS3 s3client, final String bucketName, final String key,
+			final CannedAccessControlList cannedAcl) {
+		super();
+		this.s3client = s3client;
+		this.bucketName = bucketName;
+		this.key = key;
+		this.cannedAcl = cannedAcl;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.util.MultipartUploadAction#initiate()
+	 */
+	@Override
+	public String initiate() {
+		return s3client.initiateMultipartUpload(new InitiateMultipartUploadRequest(bucketName, key)
+				.withCannedACL(cannedAcl)).getUploadId();
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.util.MultipartUploadAction#listParts(java.lang.String)
+	 */
+	@Override
+	public Map<Integer, UploadedPart> listParts(final String uploadId) {
+		final Map<Integer, UploadedPart> uploadedParts = new TreeMap<Integer, UploadedPart>();
+		final ListPartsRequest listPartsRequest = new ListPartsRequest(bucketName, key, uploadId);
+		try {
+			PartListing partListing;
+			do {
+				partListing = s3client.listParts(listPartsRequest);
+				for (final PartSummary partSummary : partListing.getParts()) {
+					uploadedParts.put(partSummary.getPartNumber(), new UploadedPart(partSummary.getPartNumber(),
+							partSummary.getETag(), partSummary.getSize()));
+				}
+				listPartsRequest.setPartNumberMarker(partListing.getNextPartNumberMarker());
+			} while (partListing.isTruncated());
+		} catch (AmazonS3Exception s3Ex) {
+			if (NO_SUCH_UPLOAD.equals(s3Ex.getErrorCode())) {
+				return null;
+			}
+			throw s3Ex;
+		}
+		return uploadedParts;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.util.MultipartUploadAction#uploadPart(java.lang.String, int, java.io.File, long, long)
+	 */
+	@Override
+	public String uploadPart(final String uploadId, final int partNumber, final File file, final long offset,
+			final long length) {
+		final UploadPartRequest uploadPartRequest = new UploadPartRequest().withBucketName(bucketName).withKey(key)
+				.withUploadId(uploadId).withPartNumber(partNumber).withFile(file).withFileOffset(offset)
+				.withPartSize(length);
+		return s3client.uploadPart(uploadPartRequest).getPartETag().getETag();
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.util.MultipartUploadAction#complete(java.lang.String, java.util.SortedMap)
+	 */
+	@Override
+	public String complete(final String uploadId, final SortedMap<Integer, String> partETags) {
+		final List<PartETag> parts = new ArrayList<PartETag>(partETags.size());
+		for (final Map.Entry<Integer, String> partETag : partETags.entrySet()) {
+			parts.add(new PartETag(partETag.getKey(), partETag.getValue()));
+		}
+		return s3client.completeMultipartUpload(new CompleteMultipartUploadRequest(bucketName, key, uploadId, parts))
+				.getETag();
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.util.MultipartUploadAction#abort(java.lang.String)
+	 */
+	@Override
+	public void abort(final String uploadId) {
+		s3client.abortMultipartUpload(new AbortMultipartUploadRequest(bucketName, key, uploadId));
+	}
+}
@@ -0,0 +1,440 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.s3.transfer;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.event.ProgressListener;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CannedAccessControlList;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.PutObjectResult;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.github.abhinavmishra14.aws.util.AWSUtilConstants;
+
+/**
+ * The Class StreamingMultipartUploader.<br/>
+ * Uploads an {@link InputStream} of unknown length without spooling it to disk.
+ * The stream is read on the calling thread into a bounded set of reusable part
+ * buffers and every filled buffer is pushed to S3 as a multipart part on the
+ * transfer executor while the next one is being read.<br/>
+ * The part size doubles every {@link AWSUtilConstants#STREAMING_PARTS_PER_SIZE_STEP}
+ * parts, up to {@link AWSUtilConstants#MAX_STREAMING_PART_SIZE}, so that a long
+ * stream fits in 10,000 parts. Peak memory per upload is capped at the current
+ * part size times partsInFlight. If the stream ends before the first part is
+ * filled, a single PUT is issued instead.<br/>
+ * Tasks submitted to the executor never wait on other tasks, so it is safe to
+ * share the executor with TransferManager.
+ *
+ * @author Abhinav kumar mishra
+ */
+public class StreamingMultipartUploader {
+
+	/** The Constant LOGGER. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(StreamingMultipartUploader.class);
+
+	/** The s3client. */
+	private final AmazonS3 s3client;
+
+	/** The executor. */
+	private final ExecutorService executor;
+
+	/** The size of the first parts. */
+	private final int partSize;
+
+	/** The parts in flight. */
+	private final int partsInFlight;
+
+	/**
+	 * Instantiates a new streaming multipart uploader.
+	 *
+	 * @param s3client the s3client
+	 * @param executor the executor used to upload the parts
+	 * @param partSize the size in bytes of the first parts, at least 5 MB
+	 * @param partsInFlight the maximum number of part buffers alive at a time
+	 */
+	public StreamingMultipartUploader(final AmazonS3 s3client, final ExecutorService executor, final long partSize,
+			final int partsInFlight) {
+		super();
+		if (partSize < AWSUtilConstants.DEFAULT_MINIMUM_UPLOAD_PART_SIZE || partSize > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Part size must be between 5 MB and 2 GB: " + partSize);
+		}
+		if (partsInFlight < 1) {
+			throw new IllegalArgumentException("Parts in flight must be greater than zero.");
+		}
+		this.s3client = s3client;
+		this.executor = executor;
+		this.partSize = (int) partSize;
+		this.partsInFlight = partsInFlight;
+	}
+
+	/**
+	 * Upload the stream.<br/>
+	 * The stream is read till the end but it is not closed.
+	 *
+	 * @param bucketName the bucket name
+	 * @param key the key
+	 * @param inputStream the input stream
+	 * @param cannedAcl the canned acl, can be null
+	 * @return the put object result
+	 * @throws AmazonClientException the amazon client exception
+	 * @throws IOException Signals that an I/O exception has occurred while reading the stream.
+	 */
+	public PutObjectResult upload(final String bucketName, final String key, final InputStream inputStream,
+			final CannedAccessControlList cannedAcl) throws AmazonClientException, IOException {
+		return upload(bucketName, key, inputStream, cannedAcl, ProgressListener.NOOP);
+	}
+
+	/**
+	 * Upload the stream and report its progress.<br/>
+	 * The listener receives the byte events of every request and the
+	 * {@link com.amazonaws.event.ProgressEventType#TRANSFER_PART_COMPLETED_EVENT} the client
+	 * publishes per uploaded part, on the sdk publisher thread unless it is a
+	 * {@link com.amazonaws.event.SyncProgressListener}.
+	 *
+	 * @param bucketName the bucket name
+	 * @param key the key
+	 * @param inputStream the input stream
+	 * @param cannedAcl the canned acl, can be null
+	 * @param progressListener the progress listener
+	 * @return the put object result
+	 * @throws AmazonClientException the amazon client exception
+	 * @throws IOException Signals that an I/O exception has occurred while reading the stream.
+	 */
+	public PutObjectResult upload(final String bucketName, final String key, final InputStream inputStream,
+			final CannedAccessControlList cannedAcl, final ProgressListener progressListener)
+			throws AmazonClientException, IOException {
+		final BufferPool bufferPool = new BufferPool();
+		final byte[] firstPart = bufferPool.acquire(partSize);
+		final int firstPartLength = fill(inputStream, firstPart);
+		if (firstPartLength < partSize) {
+			// Whole stream fits into one part, no need of multipart upload
+			return putSinglePart(bucketName, key, firstPart, firstPartLength, cannedAcl, progressListener);
+		}
+
+		final InitiateMultipartUploadRequest initRequest = new InitiateMultipartUploadRequest(bucketName, key)
+				.withCannedACL(cannedAcl);
+		final String uploadId = s3client.initiateMultipartUpload(initRequest).getUploadId();
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("Streaming multipart upload started, key: {}, uploadId: {}", key, uploadId);
+		}
+		final List<Future<PartETag>> partFutures = new ArrayList<Future<PartETag>>();
+		try {
+			int partNumber = 1;
+			partFutures.add(submitPart(bucketName, key, uploadId, partNumber, firstPart, firstPartLength, bufferPool,
+					progressListener));
+			while (true) {
+				checkForFailedParts(partFutures);
+				final byte[] buffer = bufferPool.acquire(partSizeOf(partSize, partNumber + 1));
+				final int length = fill(inputStream, buffer);
+				if (length == 0) {
+					bufferPool.release(buffer);
+					break;
+				}
+				partNumber++;
+				if (partNumber > AWSUtilConstants.MAX_MULTIPART_PARTS) {
+					bufferPool.release(buffer);
+					throw new AmazonClientException("Stream is too large for first part size " + partSize
+							+ ", more than " + AWSUtilConstants.MAX_MULTIPART_PARTS + " parts are needed.");
+				}
+				partFutures.add(submitPart(bucketName, key, uploadId, partNumber, buffer, length, bufferPool,
+						progressListener));
+				if (length < buffer.length) {
+					break; // End of stream reached
+				}
+			}
+			final List<PartETag> partETags = waitForParts(partFutures);
+			final CompleteMultipartUploadResult completeResult = s3client.completeMultipartUpload(
+					new CompleteMultipartUploadRequest(bucketName, key, uploadId, partETags));
+			LOGGER.info("Streaming multipart upload completed, key: {}, parts: {}", key, partETags.size());
+			return toPutObjectResult(completeResult);
+		} catch (IOException | RuntimeException excp) {
+			abort(bucketName, key, uploadId, partFutures);
+			throw excp;
+		}
+	}
+
+	/**
+	 * Gets the size of a part of a streaming upload.
+	 *
+	 * @param firstPartSize the size of the first parts
+	 * @param partNumber the part number, starting at 1
+	 * @return the first part size, doubled every {@link AWSUtilConstants#STREAMING_PARTS_PER_SIZE_STEP}
+	 *         parts up to {@link AWSUtilConstants#MAX_STREAMING_PART_SIZE}
+	 */
+	public static int partSizeOf(final int firstPartSize, final int partNumber) {
+		final int step = Math.min((partNumber - 1) / AWSUtilConstants.STREAMING_PARTS_PER_SIZE_STEP, Integer.SIZE);
+		final long grownSize = Math.min((long) firstPartSize << step, AWSUtilConstants.MAX_STREAMING_PART_SIZE);
+		return (int) Math.max(firstPartSize, grownSize);
+	}
+
+	/**
+	 * Put single part.
+	 *
+	 * @param bucketName the bucket name
+	 * @param key the key
+	 * @param buffer the buffer
+	 * @param length the length
+	 * @param cannedAcl the canned acl
+	 * @param progressListener the progress listener
+	 * @return the put object result
+	 */
+	private PutObjectResult putSinglePart(final String bucketName, final String key, final byte[] buffer,
+			final int length, final CannedAccessControlList cannedAcl, final ProgressListener progressListener) {
+		final ObjectMetadata metadata = new ObjectMetadata();
+		metadata.setContentLength(length);
+		final PutObjectRequest putObjectRequest = new PutObjectRequest(bucketName, key,
+				new ByteArrayInputStream(buffer, 0, length), metadata).withCannedAcl(cannedAcl);
+		putObjectRequest.setGeneralProgressListener(progressListener);
+		return s3client.putObject(putObjectRequest);
+	}
+
+	/**
+	 * Submit part.
+	 *
+	 * @param bucketName the bucket name
+	 * @param key the key
+	 * @param uploadId the upload id
+	 * @param partNumber the part number
+	 * @param buffer the buffer
+	 * @param length the length
+	 * @param bufferPool the buffer pool
+	 * @param progressListener the progress listener
+	 * @return the future
+	 */
+	private Future<PartETag> submitPart(final String bucketName, final String key, final String uploadId,
+			final int partNumber, final byte[] buffer, final int length, final BufferPool bufferPool,
+			final ProgressListener progressListener) {
+		return executor.submit(new Callable<PartETag>() {
+			@Override
+			public PartETag call() {
+				try {
+					final UploadPartRequest uploadPartRequest = new UploadPartRequest().withBucketName(bucketName)
+							.withKey(key).withUploadId(uploadId).withPartNumber(partNumber)
+							.withInputStream(new ByteArrayInputStream(buffer, 0, length)).withPartSize(length)
+							.withGeneralProgressListener(progressListener);
+					// The client publishes the part events to the listener
+					return s3client.uploadPart(uploadPartRequest).getPartETag();
+				} finally {
+					bufferPool.release(buffer); // Buffer can be refilled now
+				}
+			}
+		});
+	}
+
+	/**
+	 * Check for failed parts, so that reading stops as soon as a part fails
+	 * instead of at the end of the stream.
+	 *
+	 * @param partFutures the part futures
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private void checkForFailedParts(final List<Future<PartETag>> partFutures) throws IOException {
+		for (final Future<PartETag> partFuture : partFutures) {
+			if (partFuture.isDone()) {
+				getPartETag(partFuture);
+			}
+		}
+	}
+
+	/**
+	 * Wait for parts.
+	 *
+	 * @param partFutures the part futures
+	 * @return the list of part etags sorted by part number
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private List<PartETag> waitForParts(final List<Future<PartETag>> partFutures) throws IOException {
+		final List<PartETag> partETags = new ArrayList<PartETag>(partFutures.size());
+		for (final Future<PartETag> partFuture : partFutures) {
+			partETags.add(getPartETag(partFuture));
+		}
+		Collections.sort(partETags, new Comparator<PartETag>() {
+			@Override
+			public int compare(final PartETag first, final PartETag second) {
+				return Integer.compare(first.getPartNumber(), second.getPartNumber());
+			}
+		});
+		return partETags;
+	}
+
+	/**
+	 * Gets the part etag, unwrapping the failure of the part upload if any.
+	 *
+	 * @param partFuture the part future
+	 * @return the part etag
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private PartETag getPartETag(final Future<PartETag> partFuture) throws IOException {
+		try {
+			return partFuture.get();
+		} catch (InterruptedException interruptedExcp) {
+			Thread.currentThread().interrupt();
+			final InterruptedIOException interruptedIOExcp = new InterruptedIOException(
+					"Interrupted while waiting for part upload");
+			interruptedIOExcp.initCause(interruptedExcp);
+			throw interruptedIOExcp;
+		} catch (ExecutionException execExcp) {
+			final Throwable cause = execExcp.getCause();
+			if (cause instanceof AmazonClientException) {
+				throw (AmazonClientException) cause;
+			}
+			throw new AmazonClientException("Part upload failed: " + cause.getMessage(), execExcp);
+		}
+	}
+
+	/**
+	 * Abort the multipart upload so that the uploaded parts are not billed.
+	 *
+	 * @param bucketName the bucket name
+	 * @param key the key
+	 * @param uploadId the upload id
+	 * @param partFutures the part futures
+	 */
+	private void abort(final String bucketName, final String key, final String uploadId,
+			final List<Future<PartETag>> partFutures) {
+		LOGGER.warn("Aborting streaming multipart upload, key: {}, uploadId: {}", key, uploadId);
+		for (final Future<PartETag> partFuture : partFutures) {
+			partFuture.cancel(true);
+		}
+		try {
+			s3client.abortMultipartUpload(new AbortMultipartUploadRequest(bucketName, key, uploadId));
+		} catch (AmazonClientException abortExcp) {
+			LOGGER.error("Failed to abort multipart upload, uploadId: {}", uploadId, abortExcp);
+		}
+	}
+
+	/**
+	 * Fills the buffer from the stream till the buffer is full or the stream ends.
+	 *
+	 * @param inputStream the input stream
+	 * @param buffer the buffer
+	 * @return the number of bytes read, 0 at the end of stream
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static int fill(final InputStream inputStream, final byte[] buffer) throws IOException {
+		int offset = 0;
+		while (offset < buffer.length) {
+			final int read = inputStream.read(buffer, offset, buffer.length - offset);
+			if (read < 0) {
+				break;
+			}
+			offset += read;
+		}
+		return offset;
+	}
+
+	/**
+	 * To put object result.
+	 *
+	 * @param completeResult the complete result
+	 * @return the put object result
+	 */
+	private static PutObjectResult toPutObjectResult(final CompleteMultipartUploadResult completeResult) {
+		final PutObjectResult putObjectResult = new PutObjectResult();
+		putObjectResult.setETag(completeResult.getETag());
+		putObjectResult.setVersionId(completeResult.getVersionId());
+		putObjectResult.setExpirationTime(completeResult.getExpirationTime());
+		putObjectResult.setExpirationTimeRuleId(completeResult.getExpirationTimeRuleId());
+		return putObjectResult;
+	}
+
+	/**
+	 * The Class BufferPool.<br/>
+	 * Hands out at most partsInFlight buffers, buffers are allocated on first use
+	 * and recycled once their part is uploaded.
+	 */
+	private final class BufferPool {
+
+		/** The free buffers. */
+		private final BlockingQueue<byte[]> freeBuffers = new ArrayBlockingQueue<byte[]>(partsInFlight);
+
+		/** The allocated count, only touched by the reading thread. */
+		private int allocated;
+
+		/**
+		 * Acquire a buffer, blocks while all the buffers are in flight. Buffers
+		 * smaller than the size asked for, left from the previous parts, are
+		 * dropped.
+		 *
+		 * @param size the size of the buffer
+		 * @return the byte[]
+		 * @throws InterruptedIOException the interrupted IO exception
+		 */
+		private byte[] acquire(final int size) throws InterruptedIOException {
+			byte[] buffer = freeBuffers.poll();
+			if (buffer != null && buffer.length != size) {
+				allocated--;
+				buffer = null;
+			}
+			if (buffer == null) {
+				if (allocated < partsInFlight) {
+					allocated++;
+					buffer = new byte[size];
+				} else {
+					try {
+						buffer = freeBuffers.take();
+					} catch (InterruptedException interruptedExcp) {
+						Thread.currentThread().interrupt();
+						final InterruptedIOException interruptedIOExcp = new InterruptedIOException(
+								"Interrupted while waiting for a free part buffer");
+						interruptedIOExcp.initCause(interruptedExcp);
+						throw interruptedIOExcp;
+					}
+					if (buffer.length != size) {
+						// Replaces a buffer of the previous parts
+						buffer = new byte[size];
+					}
+				}
+			}
+			return buffer;
+		}
+
+		/**
+		 * Release the buffer.
+		 *
+		 * @param buffer the buffer
+		 */
+		private void release(final byte[] buffer) {
+			freeBuffers.offer(buffer);
+		}
+	}
+}
@@ -0,0 +1,309 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.s3.transfer;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.event.ProgressEvent;
+import com.amazonaws.event.ProgressListener;
+import com.amazonaws.services.s3.transfer.Transfer;
+import com.amazonaws.services.s3.transfer.Transfer.TransferState;
+import com.amazonaws.services.s3.transfer.TransferProgress;
+import com.amazonaws.services.s3.transfer.internal.AbstractTransfer;
+import com.github.abhinavmishra14.aws.util.ProgressSnapshot;
+import com.github.abhinavmishra14.aws.util.TransferProgressListener;
+
+/**
+ * The Class ThrottledProgressTracker.<br/>
+ * Turns the SDK {@link ProgressEvent}s of a transfer into
+ * {@link TransferProgressListener} callbacks. Byte events are only summed up,
+ * the listener is called with a snapshot at most once per interval, by the
+ * thread whose event crosses the interval, so the hot path stays a couple of
+ * atomic operations.<br/>
+ * Completion and failure are reported once, either from the state of the
+ * attached transfer or explicitly through {@link #completed()} and
+ * {@link #failed(Exception)}. The terminal progress events are not trusted:
+ * each file of a directory upload sends its own completed event while the
+ * other files are still uploading. The failure of an attached transfer is
+ * read on the given executor, never on the thread of the state change.
+ *
+ * @author Abhinav kumar mishra
+ */
+public class ThrottledProgressTracker implements ProgressListener {
+
+	/** The Constant LOGGER. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(ThrottledProgressTracker.class);
+
+	/** The description. */
+	private final String description;
+
+	/** The listener. */
+	private final TransferProgressListener listener;
+
+	/** The interval nanos. */
+	private final long intervalNanos;
+
+	/** The start nanos. */
+	private final long startNanos = System.nanoTime();
+
+	/** The bytes counted from the events, used when there is no transfer progress. */
+	private final AtomicLong bytesTransferred = new AtomicLong();
+
+	/** The parts completed. */
+	private final AtomicInteger partsCompleted = new AtomicInteger();
+
+	/** The last emit nanos. */
+	private final AtomicLong lastEmitNanos = new AtomicLong(startNanos);
+
+	/** The finished flag. */
+	private final AtomicBoolean finished = new AtomicBoolean(false);
+
+	/** The total bytes, -1 when unknown. */
+	private volatile long totalBytes;
+
+	/** The progress kept by TransferManager, null for transfers not run by it. */
+	private volatile TransferProgress transferProgress;
+
+	/** The transfer, null for transfers not run by TransferManager. */
+	private volatile Transfer transfer;
+
+	/** The executor reading the failure of the transfer. */
+	private volatile Executor failureExecutor;
+
+	/**
+	 * Instantiates a new throttled progress tracker.
+	 *
+	 * @param description the description of the transfer
+	 * @param listener the listener
+	 * @param intervalMillis the minimum interval between two progress callbacks
+	 * @param totalBytes the total bytes, -1 when unknown
+	 */
+	public ThrottledProgressTracker(final String description, final TransferProgressListener listener,
+			final long intervalMillis, final long totalBytes) {
+		super();
+		this.description = description;
+		this.listener = listener;
+		this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+		this.totalBytes = totalBytes;
+	}
+
+	/**
+	 * Attach the tracker to a TransferManager transfer.<br/>
+	 * Bytes are then read from the transfer progress, which also counts the
+	 * bytes sent before the tracker was attached. The end of the transfer is
+	 * taken from its state, a transfer already over is reported at once.
+	 *
+	 * @param transfer the transfer
+	 * @param failureExecutor the executor waiting for the failure of the transfer to report it
+	 */
+	public void attach(final Transfer transfer, final Executor failureExecutor) {
+		this.transferProgress = transfer.getProgress();
+		this.transfer = transfer;
+		this.failureExecutor = failureExecutor;
+		transfer.addProgressListener(this);
+		if (transfer instanceof AbstractTransfer) {
+			((AbstractTransfer) transfer).addStateChangeListener((changedTransfer, state) -> {
+				if (state == TransferState.Completed || state == TransferState.Failed
+						|| state == TransferState.Canceled) {
+					finish(state);
+				}
+			});
+		}
+		if (transfer.isDone()) {
+			finish(transfer.getState());
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see com.amazonaws.event.ProgressListener#progressChanged(com.amazonaws.event.ProgressEvent)
+	 */
+	@Override
+	public void progressChanged(final ProgressEvent progressEvent) {
+		switch (progressEvent.getEventType()) {
+		case REQUEST_BYTE_TRANSFER_EVENT:
+			bytesTransferred.addAndGet(progressEvent.getBytes());
+			maybeEmit();
+			break;
+		case HTTP_REQUEST_CONTENT_RESET_EVENT:
+			// Request body is sent again on retry
+			bytesTransferred.addAndGet(-progressEvent.getBytes());
+			break;
+		case TRANSFER_PART_COMPLETED_EVENT:
+			partsCompleted.incrementAndGet();
+			notifyListener(ListenerEvent.PART_COMPLETED, null);
+			break;
+		case TRANSFER_COMPLETED_EVENT:
+		case TRANSFER_FAILED_EVENT:
+		case TRANSFER_CANCELED_EVENT:
+			// The event may come from one file of many, only the state of the transfer tells it is over
+			finishIfDone();
+			break;
+		default:
+			break;
+		}
+	}
+
+	/**
+	 * Report the completion of the transfer, ignored if already reported.
+	 */
+	public void completed() {
+		if (finished.compareAndSet(false, true)) {
+			notifyListener(ListenerEvent.COMPLETED, null);
+		}
+	}
+
+	/**
+	 * Report the failure of the transfer, ignored if already reported.
+	 *
+	 * @param excp the failure
+	 */
+	public void failed(final Exception excp) {
+		if (finished.compareAndSet(false, true)) {
+			notifyListener(ListenerEvent.FAILED, excp);
+		}
+	}
+
+	/**
+	 * Gets the snapshot of the progress.
+	 *
+	 * @return the progress snapshot
+	 */
+	public ProgressSnapshot getSnapshot() {
+		final TransferProgress progress = transferProgress;
+		final long bytes = progress != null ? progress.getBytesTransferred() : bytesTransferred.get();
+		final long total = progress != null ? progress.getTotalBytesToTransfer() : totalBytes;
+		return new ProgressSnapshot(description, bytes, total, partsCompleted.get(),
+				TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+	}
+
+	/**
+	 * Finish with the state of the attached transfer if it is over. Trackers
+	 * not attached are finished explicitly.
+	 */
+	private void finishIfDone() {
+		final Transfer attachedTransfer = transfer;
+		if (attachedTransfer != null && attachedTransfer.isDone()) {
+			finish(attachedTransfer.getState());
+		}
+	}
+
+	/**
+	 * Finish with the terminal state of the transfer.
+	 *
+	 * @param state the state
+	 */
+	private void finish(final TransferState state) {
+		if (state == TransferState.Completed) {
+			completed();
+			return;
+		}
+		final Transfer failedTransfer = transfer;
+		if (state != TransferState.Failed || failedTransfer == null || failureExecutor == null) {
+			failed(new AmazonClientException(description + " " + state));
+			return;
+		}
+		// Waiting for the cause from the callback of the transfer could dead lock, it is read on the executor
+		try {
+			failureExecutor.execute(() -> failed(waitForFailure(failedTransfer)));
+		} catch (RejectedExecutionException rejectEx) {
+			failed(new AmazonClientException(description + " " + state, rejectEx));
+		}
+	}
+
+	/**
+	 * Wait for the failure of the transfer.
+	 *
+	 * @param failedTransfer the failed transfer
+	 * @return the failure of the transfer
+	 */
+	private Exception waitForFailure(final Transfer failedTransfer) {
+		try {
+			final AmazonClientException cause = failedTransfer.waitForException();
+			return cause == null ? new AmazonClientException(description + " " + TransferState.Failed) : cause;
+		} catch (InterruptedException intrEx) {
+			Thread.currentThread().interrupt();
+			return new AmazonClientException("Interrupted while reading the failure of " + description, intrEx);
+		}
+	}
+
+	/**
+	 * Emit the progress if the interval elapsed since the last emit. Only the
+	 * thread winning the compare and set calls the listener.
+	 */
+	private void maybeEmit() {
+		final long now = System.nanoTime();
+		final long last = lastEmitNanos.get();
+		if (now - last >= intervalNanos && !finished.get() && lastEmitNanos.compareAndSet(last, now)) {
+			notifyListener(ListenerEvent.PROGRESS, null);
+		}
+	}
+
+	/**
+	 * Notify the listener, a failing listener must not fail the transfer.
+	 *
+	 * @param event the event
+	 * @param excp the failure, for FAILED only
+	 */
+	private void notifyListener(final ListenerEvent event, final Exception excp) {
+		try {
+			switch (event) {
+			case PROGRESS:
+				listener.onProgress(getSnapshot());
+				break;
+			case PART_COMPLETED:
+				listener.onPartCompleted(getSnapshot());
+				break;
+			case COMPLETED:
+				listener.onCompleted(getSnapshot());
+				break;
+			default:
+				listener.onFailed(getSnapshot(), excp);
+				break;
+			}
+		} catch (RuntimeException listenerExcp) {
+			LOGGER.warn("Progress listener failed on {} of {}", event, description, listenerExcp);
+		}
+	}
+
+	/**
+	 * The Enum ListenerEvent.
+	 */
+	private enum ListenerEvent {
+
+		/** The progress. */
+		PROGRESS,
+
+		/** The part completed. */
+		PART_COMPLETED,
+
+		/** The completed. */
+		COMPLETED,
+
+		/** The failed. */
+		FAILED
+	}
+}
@@ -0,0 +1,452 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.s3.transfer;
+
+import java.io.File;
+
+import com.github.abhinavmishra14.aws.cache.CacheConfig;
+import com.github.abhinavmishra14.aws.throttle.ThrottleConfig;
+import com.github.abhinavmishra14.aws.util.AWSUtil;
+import com.github.abhinavmishra14.aws.util.AWSUtilConstants;
+
+/**
+ * The Class TransferConfig.<br/>
+ * Holds the settings of the transfer engine which is shared by all the transfer
+ * operations of a service instance.<br/>
+ * The values are read once when the service is created, changing them afterwards
+ * has no effect on an already created service.
+ *
+ * @author Abhinav kumar mishra
+ */
+public class TransferConfig {
+
+	/** The thread count. */
+	private int threadCount = AWSUtilConstants.DEFAULT_TRANSFER_THREAD_COUNT;
+
+	/** The multipart upload threshold. */
+	private long multipartUploadThreshold = AWSUtilConstants.DEFAULT_MULTIPART_UPLOAD_THRESHOLD;
+
+	/** The minimum upload part size. */
+	private long minimumUploadPartSize = AWSUtilConstants.DEFAULT_MINIMUM_UPLOAD_PART_SIZE;
+
+	/** The streaming upload enabled flag. */
+	private boolean streamingUploadEnabled = true;
+
+	/** The streaming parts in flight. */
+	private int streamingPartsInFlight = AWSUtilConstants.DEFAULT_STREAMING_PARTS_IN_FLIGHT;
+
+	/** The parallel download enabled flag. */
+	private boolean parallelDownloadEnabled = true;
+
+	/** The download part size. */
+	private long downloadPartSize = AWSUtilConstants.DEFAULT_DOWNLOAD_PART_SIZE;
+
+	/** The download ranges in flight. */
+	private int downloadRangesInFlight = AWSUtilConstants.DEFAULT_DOWNLOAD_RANGES_IN_FLIGHT;
+
+	/** The directory files in flight. */
+	private int directoryFilesInFlight = AWSUtilConstants.DEFAULT_DIRECTORY_FILES_IN_FLIGHT;
+
+	/** The delete batches in flight. */
+	private int deleteBatchesInFlight = AWSUtilConstants.DEFAULT_DELETE_BATCHES_IN_FLIGHT;
+
+	/** The delete max retries. */
+	private int deleteMaxRetries = AWSUtilConstants.DEFAULT_DELETE_MAX_RETRIES;
+
+	/** The progress interval millis. */
+	private long progressIntervalMillis = AWSUtilConstants.DEFAULT_PROGRESS_INTERVAL_MILLIS;
+
+	/** The upload journal directory, null when not configured. */
+	private File uploadJournalDirectory;
+
+	/** The throttle config. */
+	private ThrottleConfig throttleConfig;
+
+	/** The cache config. */
+	private CacheConfig cacheConfig;
+
+	/**
+	 * Gets the thread count.
+	 *
+	 * @return the number of threads in the shared transfer pool
+	 */
+	public int getThreadCount() {
+		return threadCount;
+	}
+
+	/**
+	 * Sets the thread count.
+	 *
+	 * @param threadCount the number of threads in the shared transfer pool
+	 * @return the transfer config
+	 */
+	public TransferConfig setThreadCount(final int threadCount) {
+		if (threadCount < 1) {
+			throw new IllegalArgumentException("Thread count must be greater than zero.");
+		}
+		this.threadCount = threadCount;
+		return this;
+	}
+
+	/**
+	 * Gets the multipart upload threshold.
+	 *
+	 * @return the size in bytes above which uploads are sent as multiparts
+	 */
+	public long getMultipartUploadThreshold() {
+		return multipartUploadThreshold;
+	}
+
+	/**
+	 * Sets the multipart upload threshold.
+	 *
+	 * @param multipartUploadThreshold the size in bytes above which uploads are sent as multiparts
+	 * @return the transfer config
+	 */
+	public TransferConfig setMultipartUploadThreshold(final long multipartUploadThreshold) {
+		this.multipartUploadThreshold = multipartUploadThreshold;
+		return this;
+	}
+
+	/**
+	 * Gets the minimum upload part size.
+	 *
+	 * @return the minimum part size in bytes
+	 */
+	public long getMinimumUploadPartSize() {
+		return minimumUploadPartSize;
+	}
+
+	/**
+	 * Sets the minimum upload part size.<br/>
+	 * Amazon S3 rejects parts (other than the last one) smaller than 5 MB.
+	 *
+	 * @param minimumUploadPartSize the minimum part size in bytes
+	 * @return the transfer config
+	 */
+	public TransferConfig setMinimumUploadPartSize(final long minimumUploadPartSize) {
+		if (minimumUploadPartSize < AWSUtilConstants.DEFAULT_MINIMUM_UPLOAD_PART_SIZE) {
+			throw new IllegalArgumentException("Part size must be at least 5 MB.");
+		}
+		this.minimumUploadPartSize = minimumUploadPartSize;
+		return this;
+	}
+
+	/**
+	 * Checks if streaming upload is enabled.
+	 *
+	 * @return true, if stream uploads are pushed to S3 while the stream is read
+	 */
+	public boolean isStreamingUploadEnabled() {
+		return streamingUploadEnabled;
+	}
+
+	/**
+	 * Sets the streaming upload enabled flag.<br/>
+	 * When enabled (default) uploads from an {@link java.io.InputStream} are read
+	 * into part buffers and uploaded as multiparts while the stream is still
+	 * being read. When disabled the stream is first copied to a temporary file,
+	 * which is the fallback for callers who can not afford the part buffers in memory.
+	 *
+	 * @param streamingUploadEnabled the streaming upload enabled flag
+	 * @return the transfer config
+	 */
+	public TransferConfig setStreamingUploadEnabled(final boolean streamingUploadEnabled) {
+		this.streamingUploadEnabled = streamingUploadEnabled;
+		return this;
+	}
+
+	/**
+	 * Gets the streaming parts in flight.
+	 *
+	 * @return the maximum number of parts in flight per streaming or resumable upload
+	 */
+	public int getStreamingPartsInFlight() {
+		return streamingPartsInFlight;
+	}
+
+	/**
+	 * Sets the streaming parts in flight.<br/>
+	 * Peak memory of a streaming upload is minimumUploadPartSize * streamingPartsInFlight.
+	 * Resumable uploads read their parts from the file and use the same limit.
+	 *
+	 * @param streamingPartsInFlight the maximum number of parts in flight per streaming or resumable upload
+	 * @return the transfer config
+	 */
+	public TransferConfig setStreamingPartsInFlight(final int streamingPartsInFlight) {
+		if (streamingPartsInFlight < 1) {
+			throw new IllegalArgumentException("Parts in flight must be greater than zero.");
+		}
+		this.streamingPartsInFlight = streamingPartsInFlight;
+		return this;
+	}
+
+	/**
+	 * Checks if parallel download is enabled.
+	 *
+	 * @return true, if objects larger than the download part size are downloaded with ranged requests
+	 */
+	public boolean isParallelDownloadEnabled() {
+		return parallelDownloadEnabled;
+	}
+
+	/**
+	 * Sets the parallel download enabled flag.<br/>
+	 * When enabled (default) objects larger than the download part size are
+	 * downloaded with concurrent ranged requests and can resume after a failure.
+	 * When disabled every download is a single GET request.
+	 *
+	 * @param parallelDownloadEnabled the parallel download enabled flag
+	 * @return the transfer config
+	 */
+	public TransferConfig setParallelDownloadEnabled(final boolean parallelDownloadEnabled) {
+		this.parallelDownloadEnabled = parallelDownloadEnabled;
+		return this;
+	}
+
+	/**
+	 * Gets the download part size.
+	 *
+	 * @return the size in bytes of each ranged request
+	 */
+	public long getDownloadPartSize() {
+		return downloadPartSize;
+	}
+
+	/**
+	 * Sets the download part size.
+	 *
+	 * @param downloadPartSize the size in bytes of each ranged request
+	 * @return the transfer config
+	 */
+	public TransferConfig setDownloadPartSize(final long downloadPartSize) {
+		if (downloadPartSize < AWSUtilConstants.MEGABYTE) {
+			throw new IllegalArgumentException("Download part size must be at least 1 MB.");
+		}
+		this.downloadPartSize = downloadPartSize;
+		return this;
+	}
+
+	/**
+	 * Gets the download ranges in flight.
+	 *
+	 * @return the maximum number of concurrent ranged requests per download
+	 */
+	public int getDownloadRangesInFlight() {
+		return downloadRangesInFlight;
+	}
+
+	/**
+	 * Sets the download ranges in flight.
+	 *
+	 * @param downloadRangesInFlight the maximum number of concurrent ranged requests per download
+	 * @return the transfer config
+	 */
+	public TransferConfig setDownloadRangesInFlight(final int downloadRangesInFlight) {
+		if (downloadRangesInFlight < 1) {
+			throw new IllegalArgumentException("Download ranges in flight must be greater than zero.");
+		}
+		this.downloadRangesInFlight = downloadRangesInFlight;
+		return this;
+	}
+
+	/**
+	 * Gets the directory files in flight.
+	 *
+	 * @return the maximum number of files transferred at the same time by a directory transfer
+	 */
+	public int getDirectoryFilesInFlight() {
+		return directoryFilesInFlight;
+	}
+
+	/**
+	 * Sets the directory files in flight.
+	 *
+	 * @param directoryFilesInFlight the maximum number of files transferred at the same time by a directory transfer
+	 * @return the transfer config
+	 */
+	public TransferConfig setDirectoryFilesInFlight(final int directoryFilesInFlight) {
+		if (directoryFilesInFlight < 1) {
+			throw new IllegalArgumentException("Directory files in flight must be greater than zero.");
+		}
+		this.directoryFilesInFlight = directoryFilesInFlight;
+		return this;
+	}
+
+	/**
+	 * Gets the delete batches in flight.
+	 *
+	 * @return the maximum number of concurrent delete requests per bulk delete
+	 */
+	public int getDeleteBatchesInFlight() {
+		return deleteBatchesInFlight;
+	}
+
+	/**
+	 * Sets the delete batches in flight.<br/>
+	 * Each batch is one multi-object delete request of up to 1000 keys.
+	 *
+	 * @param deleteBatchesInFlight the maximum number of concurrent delete requests per bulk delete
+	 * @return the transfer config
+	 */
+	public TransferConfig setDeleteBatchesInFlight(final int deleteBatchesInFlight) {
+		if (deleteBatchesInFlight < 1) {
+			throw new IllegalArgumentException("Delete batches in flight must be greater than zero.");
+		}
+		this.deleteBatchesInFlight = deleteBatchesInFlight;
+		return this;
+	}
+
+	/**
+	 * Gets the delete max retries.
+	 *
+	 * @return the number of times the failed keys of a batch are retried
+	 */
+	public int getDeleteMaxRetries() {
+		return deleteMaxRetries;
+	}
+
+	/**
+	 * Sets the delete max retries.
+	 *
+	 * @param deleteMaxRetries the number of times the failed keys of a batch are retried
+	 * @return the transfer config
+	 */
+	public TransferConfig setDeleteMaxRetries(final int deleteMaxRetries) {
+		if (deleteMaxRetries < 0) {
+			throw new IllegalArgumentException("Delete retries must not be negative.");
+		}
+		this.deleteMaxRetries = deleteMaxRetries;
+		return this;
+	}
+
+	/**
+	 * Gets the progress interval millis.
+	 *
+	 * @return the minimum interval between two progress callbacks of a transfer
+	 */
+	public long getProgressIntervalMillis() {
+		return progressIntervalMillis;
+	}
+
+	/**
+	 * Sets the progress interval millis.<br/>
+	 * Progress listeners are called at most once per interval, whatever the
+	 * number of bytes events raised by the transfer.
+	 *
+	 * @param progressIntervalMillis the minimum interval between two progress callbacks of a transfer
+	 * @return the transfer config
+	 */
+	public TransferConfig setProgressIntervalMillis(final long progressIntervalMillis) {
+		if (progressIntervalMillis < 0) {
+			throw new IllegalArgumentException("Progress interval must not be negative.");
+		}
+		this.progressIntervalMillis = progressIntervalMillis;
+		return this;
+	}
+
+	/**
+	 * Gets the upload journal directory.
+	 *
+	 * @return the directory of the resumable upload journals, null when not configured
+	 */
+	public File getUploadJournalDirectory() {
+		return uploadJournalDirectory;
+	}
+
+	/**
+	 * Sets the upload journal directory.<br/>
+	 * Resumable uploads record their progress there, it must survive a restart
+	 * of the JVM for the uploads to resume. Once configured, the multipart
+	 * uploads of files are journaled too. When not configured, only the
+	 * uploads asked to be resumable are journaled, under
+	 * {@link com.github.abhinavmishra14.aws.util.MultipartUploadJournal#defaultJournalDirectory()}.
+	 *
+	 * @param uploadJournalDirectory the directory of the resumable upload journals
+	 * @return the transfer config
+	 */
+	public TransferConfig setUploadJournalDirectory(final File uploadJournalDirectory) {
+		AWSUtil.notNull(uploadJournalDirectory, "Upload journal directory is null!");
+		this.uploadJournalDirectory = uploadJournalDirectory;
+		return this;
+	}
+
+	/**
+	 * Gets the throttle config.
+	 *
+	 * @return the throttle config, null when nothing is limited
+	 */
+	public ThrottleConfig getThrottleConfig() {
+		return throttleConfig;
+	}
+
+	/**
+	 * Sets the throttle config.<br/>
+	 * Every request sent by the service then waits for the request and byte
+	 * limits of a throttle created from it. The directory transfers and the bulk
+	 * deletes are bulk requests, the parts and ranges sent from the shared
+	 * transfer pool keep the priority of the caller of the transfer. The limits
+	 * can be changed while the service runs through its request throttle. By
+	 * default nothing is limited and no hook is installed on the client.
+	 *
+	 * @param throttleConfig the throttle config, null to not limit anything
+	 * @return the transfer config
+	 */
+	public TransferConfig setThrottleConfig(final ThrottleConfig throttleConfig) {
+		this.throttleConfig = throttleConfig;
+		return this;
+	}
+
+	/**
+	 * Gets the cache config.
+	 *
+	 * @return the cache config, null when nothing is cached
+	 */
+	public CacheConfig getCacheConfig() {
+		return cacheConfig;
+	}
+
+	/**
+	 * Sets the cache config.<br/>
+	 * The objects, presigned urls and permission checks whose config is set in
+	 * it are then cached by the service. By default nothing is cached.
+	 *
+	 * @param cacheConfig the cache config, null to not cache anything
+	 * @return the transfer config
+	 */
+	public TransferConfig setCacheConfig(final CacheConfig cacheConfig) {
+		this.cacheConfig = cacheConfig;
+		return this;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "TransferConfig [threadCount=" + threadCount + ", multipartUploadThreshold="
+				+ multipartUploadThreshold + ", minimumUploadPartSize=" + minimumUploadPartSize
+				+ ", streamingUploadEnabled=" + streamingUploadEnabled + ", streamingPartsInFlight="
+				+ streamingPartsInFlight + ", parallelDownloadEnabled=" + parallelDownloadEnabled
+				+ ", downloadPartSize=" + downloadPartSize + ", downloadRangesInFlight=" + downloadRangesInFlight
+				+ ", directoryFilesInFlight=" + directoryFilesInFlight + ", deleteBatchesInFlight=" + deleteBatchesInFlight
+				+ ", deleteMaxRetries=" + deleteMaxRetries + ", progressIntervalMillis=" + progressIntervalMillis
+				+ ", uploadJournalDirectory=" + uploadJournalDirectory + ", throttleConfig=" + throttleConfig
+				+ ", cacheConfig=" + cacheConfig + "]";
+	}
+}
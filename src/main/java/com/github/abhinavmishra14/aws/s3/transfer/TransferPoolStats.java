@@ -0,0 +1,150 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.s3.transfer;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * The Class TransferPoolStats.<br/>
+ * Point in time snapshot of the shared transfer thread pool. A pool whose
+ * active count equals the maximum pool size while tasks are queued is
+ * saturated, either raise the thread count or slow down the producers.
+ *
+ * @author Abhinav kumar mishra
+ */
+public final class TransferPoolStats {
+
+	/** The pool size. */
+	private final int poolSize;
+
+	/** The maximum pool size. */
+	private final int maximumPoolSize;
+
+	/** The largest pool size. */
+	private final int largestPoolSize;
+
+	/** The active count. */
+	private final int activeCount;
+
+	/** The queued task count. */
+	private final int queuedTaskCount;
+
+	/** The completed task count. */
+	private final long completedTaskCount;
+
+	/** The shutdown flag. */
+	private final boolean shutdown;
+
+	/**
+	 * Instantiates a new transfer pool stats from the given executor.
+	 *
+	 * @param executor the executor
+	 */
+	public TransferPoolStats(final ThreadPoolExecutor executor) {
+		super();
+		this.poolSize = executor.getPoolSize();
+		this.maximumPoolSize = executor.getMaximumPoolSize();
+		this.largestPoolSize = executor.getLargestPoolSize();
+		this.activeCount = executor.getActiveCount();
+		this.queuedTaskCount = executor.getQueue().size();
+		this.completedTaskCount = executor.getCompletedTaskCount();
+		this.shutdown = executor.isShutdown();
+	}
+
+	/**
+	 * Gets the pool size.
+	 *
+	 * @return the number of threads currently in the pool
+	 */
+	public int getPoolSize() {
+		return poolSize;
+	}
+
+	/**
+	 * Gets the maximum pool size.
+	 *
+	 * @return the maximum pool size
+	 */
+	public int getMaximumPoolSize() {
+		return maximumPoolSize;
+	}
+
+	/**
+	 * Gets the largest pool size.
+	 *
+	 * @return the largest number of threads that have ever been in the pool
+	 */
+	public int getLargestPoolSize() {
+		return largestPoolSize;
+	}
+
+	/**
+	 * Gets the active count.
+	 *
+	 * @return the number of threads actively executing transfer tasks
+	 */
+	public int getActiveCount() {
+		return activeCount;
+	}
+
+	/**
+	 * Gets the queued task count.
+	 *
+	 * @return the number of tasks waiting for a thread
+	 */
+	public int getQueuedTaskCount() {
+		return queuedTaskCount;
+	}
+
+	/**
+	 * Gets the completed task count.
+	 *
+	 * @return the number of tasks completed so far
+	 */
+	public long getCompletedTaskCount() {
+		return completedTaskCount;
+	}
+
+	/**
+	 * Checks if the pool is shut down.
+	 *
+	 * @return true, if shut down
+	 */
+	public boolean isShutdown() {
+		return shutdown;
+	}
+
+	/**
+	 * Gets the saturation.
+	 *
+	 * @return the ratio of active threads to the maximum pool size, between 0 and 1
+	 */
+	public double getSaturation() {
+		return maximumPoolSize == 0 ? 0 : (double) activeCount / maximumPoolSize;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "TransferPoolStats [poolSize=" + poolSize + ", maximumPoolSize=" + maximumPoolSize
+				+ ", largestPoolSize=" + largestPoolSize + ", activeCount=" + activeCount + ", queuedTaskCount="
+				+ queuedTaskCount + ", completedTaskCount=" + completedTaskCount + ", shutdown=" + shutdown + "]";
+	}
+}
@@ -0,0 +1,69 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.throttle;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.github.abhinavmishra14.aws.util.AWSUtil;
+
+/**
+ * The Class PriorityThreadPoolExecutor.<br/>
+ * Thread pool whose tasks send their requests with the {@link RequestPriority}
+ * of the thread which submitted them, so that a read served to a user keeps its
+ * priority while its parts are sent by the pool. Tasks submitted by a task run
+ * with the priority of that task.
+ *
+ * @author Abhinav kumar mishra
+ */
+public final class PriorityThreadPoolExecutor extends ThreadPoolExecutor {
+
+	/**
+	 * Instantiates a new priority thread pool executor.
+	 *
+	 * @param corePoolSize the core pool size
+	 * @param maximumPoolSize the maximum pool size
+	 * @param keepAliveTime the keep alive time
+	 * @param unit the unit of the keep alive time
+	 * @param workQueue the work queue
+	 * @param threadFactory the thread factory
+	 */
+	public PriorityThreadPoolExecutor(final int corePoolSize, final int maximumPoolSize, final long keepAliveTime,
+			final TimeUnit unit, final BlockingQueue<Runnable> workQueue, final ThreadFactory threadFactory) {
+		super(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, threadFactory);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.util.concurrent.ThreadPoolExecutor#execute(java.lang.Runnable)
+	 */
+	@Override
+	public void execute(final Runnable command) {
+		AWSUtil.notNull(command, "Command is null!");
+		final RequestPriority priority = RequestPriority.current();
+		super.execute(() -> {
+			final RequestPriority previous = RequestPriority.mark(priority);
+			try {
+				command.run();
+			} finally {
+				RequestPriority.setCurrent(previous);
+			}
+		});
+	}
+}
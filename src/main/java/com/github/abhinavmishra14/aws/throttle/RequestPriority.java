@@ -0,0 +1,76 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.throttle;
+
+/**
+ * The Enum RequestPriority.<br/>
+ * Priority of the requests sent by a thread when they wait for a
+ * {@link TokenBucket}. Threads send interactive requests unless marked
+ * otherwise. The tasks of the shared transfer pool of a throttled service run
+ * with the priority of the thread which submitted them, its batch operations
+ * (directory transfers, bucket cleanups) are bulk unless the caller is marked.
+ *
+ * @author Abhinav kumar mishra
+ */
+public enum RequestPriority {
+
+	/** Latency sensitive requests, e.g. a read served to a user. */
+	INTERACTIVE,
+
+	/** Background requests of the batch jobs, e.g. directory uploads and bucket cleanups. */
+	BULK;
+
+	/** The Constant CURRENT. Priority of the requests sent by the current thread. */
+	private static final ThreadLocal<RequestPriority> CURRENT = new ThreadLocal<RequestPriority>();
+
+	/**
+	 * Gets the priority of the requests sent by the current thread.
+	 *
+	 * @return the priority, interactive unless the thread has been marked otherwise
+	 */
+	public static RequestPriority current() {
+		final RequestPriority priority = CURRENT.get();
+		return priority == null ? INTERACTIVE : priority;
+	}
+
+	/**
+	 * Marks the current thread, its requests are sent with the given priority.
+	 *
+	 * @param priority the priority, null to go back to interactive
+	 */
+	public static void setCurrent(final RequestPriority priority) {
+		if (priority == null) {
+			CURRENT.remove();
+		} else {
+			CURRENT.set(priority);
+		}
+	}
+
+	/**
+	 * Marks the current thread with the given priority and returns its previous
+	 * mark, to be restored with {@link #setCurrent(RequestPriority)}.
+	 *
+	 * @param priority the priority, null to go back to interactive
+	 * @return the previous mark, null if the thread was not marked
+	 */
+	public static RequestPriority mark(final RequestPriority priority) {
+		final RequestPriority previous = CURRENT.get();
+		setCurrent(priority);
+		return previous;
+	}
+}
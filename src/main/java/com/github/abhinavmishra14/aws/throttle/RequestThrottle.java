@@ -0,0 +1,270 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.throttle;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.github.abhinavmishra14.aws.util.AWSUtil;
+import com.github.abhinavmishra14.aws.util.AWSUtilConstants;
+
+/**
+ * The Class RequestThrottle.<br/>
+ * Client side limits of the requests per second and of the bytes per second,
+ * sent and received, globally and per bucket. A request waits for the limits of
+ * its bucket then for the global ones. Nothing is limited until a limit is set,
+ * the limits can be set, changed and removed while requests are running.<br/>
+ * Bulk requests leave a share of every limit to the interactive ones, see
+ * {@link RequestPriority}.
+ *
+ * @author Abhinav kumar mishra
+ */
+public final class RequestThrottle {
+
+	/** The bulk reserve fraction. */
+	private final double bulkReserveFraction;
+
+	/** The global requests bucket, null when not limited. */
+	private volatile TokenBucket globalRequests;
+
+	/** The global bytes bucket, null when not limited. */
+	private volatile TokenBucket globalBytes;
+
+	/** The requests buckets by bucket name. */
+	private final ConcurrentMap<String, TokenBucket> bucketRequests = new ConcurrentHashMap<String, TokenBucket>();
+
+	/** The bytes buckets by bucket name. */
+	private final ConcurrentMap<String, TokenBucket> bucketBytes = new ConcurrentHashMap<String, TokenBucket>();
+
+	/**
+	 * Instantiates a new request throttle without limits, bulk requests leave 20%
+	 * of each limit to the interactive ones.
+	 */
+	public RequestThrottle() {
+		this(AWSUtilConstants.DEFAULT_BULK_RESERVE_FRACTION);
+	}
+
+	/**
+	 * Instantiates a new request throttle without limits.
+	 *
+	 * @param bulkReserveFraction the share of each limit bulk requests leave to the interactive ones
+	 */
+	public RequestThrottle(final double bulkReserveFraction) {
+		super();
+		if (bulkReserveFraction < 0 || bulkReserveFraction >= 1) {
+			throw new IllegalArgumentException("Bulk reserve fraction must be between 0 and 1.");
+		}
+		this.bulkReserveFraction = bulkReserveFraction;
+	}
+
+	/**
+	 * Waits until a request may be sent to the given bucket.
+	 *
+	 * @param bucketName the bucket name, null for requests outside of a bucket
+	 * @param priority the priority of the request
+	 * @return the time waited in nanos
+	 */
+	public long acquireRequest(final String bucketName, final RequestPriority priority) {
+		return acquire(bucketName == null ? null : bucketRequests.get(bucketName), globalRequests, 1, priority);
+	}
+
+	/**
+	 * Waits until the given number of bytes may be transferred from or to the
+	 * given bucket.
+	 *
+	 * @param bucketName the bucket name, null for requests outside of a bucket
+	 * @param bytes the bytes
+	 * @param priority the priority of the request
+	 * @return the time waited in nanos
+	 */
+	public long acquireBytes(final String bucketName, final long bytes, final RequestPriority priority) {
+		return acquire(bucketName == null ? null : bucketBytes.get(bucketName), globalBytes, bytes, priority);
+	}
+
+	/**
+	 * Checks whether any limit is set.
+	 *
+	 * @return true, if requests or bytes are limited
+	 */
+	public boolean isLimited() {
+		return globalRequests != null || globalBytes != null || !bucketRequests.isEmpty() || !bucketBytes.isEmpty();
+	}
+
+	/**
+	 * Gets the global requests per second.
+	 *
+	 * @return the requests per second, 0 when not limited
+	 */
+	public double getGlobalRequestsPerSecond() {
+		return rateOf(globalRequests);
+	}
+
+	/**
+	 * Sets the global requests per second.
+	 *
+	 * @param requestsPerSecond the requests per second, 0 or less to remove the limit
+	 * @return the request throttle
+	 */
+	public synchronized RequestThrottle setGlobalRequestsPerSecond(final double requestsPerSecond) {
+		globalRequests = updated(globalRequests, requestsPerSecond);
+		return this;
+	}
+
+	/**
+	 * Gets the global bytes per second.
+	 *
+	 * @return the bytes per second sent and received, 0 when not limited
+	 */
+	public double getGlobalBytesPerSecond() {
+		return rateOf(globalBytes);
+	}
+
+	/**
+	 * Sets the global bytes per second.
+	 *
+	 * @param bytesPerSecond the bytes per second sent and received, 0 or less to remove the limit
+	 * @return the request throttle
+	 */
+	public synchronized RequestThrottle setGlobalBytesPerSecond(final double bytesPerSecond) {
+		globalBytes = updated(globalBytes, bytesPerSecond);
+		return this;
+	}
+
+	/**
+	 * Gets the requests per second of a bucket.
+	 *
+	 * @param bucketName the bucket name
+	 * @return the requests per second, 0 when not limited
+	 */
+	public double getBucketRequestsPerSecond(final String bucketName) {
+		return rateOf(bucketRequests.get(bucketName));
+	}
+
+	/**
+	 * Sets the requests per second of a bucket.
+	 *
+	 * @param bucketName the bucket name
+	 * @param requestsPerSecond the requests per second, 0 or less to remove the limit
+	 * @return the request throttle
+	 */
+	public synchronized RequestThrottle setBucketRequestsPerSecond(final String bucketName,
+			final double requestsPerSecond) {
+		updateBucket(bucketRequests, bucketName, requestsPerSecond);
+		return this;
+	}
+
+	/**
+	 * Gets the bytes per second of a bucket.
+	 *
+	 * @param bucketName the bucket name
+	 * @return the bytes per second sent and received, 0 when not limited
+	 */
+	public double getBucketBytesPerSecond(final String bucketName) {
+		return rateOf(bucketBytes.get(bucketName));
+	}
+
+	/**
+	 * Sets the bytes per second of a bucket.
+	 *
+	 * @param bucketName the bucket name
+	 * @param bytesPerSecond the bytes per second sent and received, 0 or less to remove the limit
+	 * @return the request throttle
+	 */
+	public synchronized RequestThrottle setBucketBytesPerSecond(final String bucketName,
+			final double bytesPerSecond) {
+		updateBucket(bucketBytes, bucketName, bytesPerSecond);
+		return this;
+	}
+
+	/**
+	 * Takes the permits from the bucket limit then from the global limit.
+	 *
+	 * @param bucketLimit the bucket limit, null when not limited
+	 * @param globalLimit the global limit, null when not limited
+	 * @param permits the permits
+	 * @param priority the priority
+	 * @return the time waited in nanos
+	 */
+	private static long acquire(final TokenBucket bucketLimit, final TokenBucket globalLimit, final long permits,
+			final RequestPriority priority) {
+		long waitNanos = 0;
+		if (bucketLimit != null) {
+			waitNanos += bucketLimit.acquire(permits, priority);
+		}
+		if (globalLimit != null) {
+			waitNanos += globalLimit.acquire(permits, priority);
+		}
+		return waitNanos;
+	}
+
+	/**
+	 * Updates the limit of a bucket.
+	 *
+	 * @param limits the limits by bucket name
+	 * @param bucketName the bucket name
+	 * @param rate the rate, 0 or less to remove the limit
+	 */
+	private void updateBucket(final ConcurrentMap<String, TokenBucket> limits, final String bucketName,
+			final double rate) {
+		AWSUtil.notNull(bucketName, "Bucket name is null!");
+		final TokenBucket limit = updated(limits.get(bucketName), rate);
+		if (limit == null) {
+			limits.remove(bucketName);
+		} else {
+			limits.put(bucketName, limit);
+		}
+	}
+
+	/**
+	 * Applies a new rate to a limit.
+	 *
+	 * @param limit the limit, null when not limited
+	 * @param rate the rate, 0 or less to remove the limit
+	 * @return the limit, null when not limited
+	 */
+	private TokenBucket updated(final TokenBucket limit, final double rate) {
+		if (rate <= 0) {
+			return null;
+		}
+		if (limit == null) {
+			return new TokenBucket(rate, bulkReserveFraction);
+		}
+		limit.setRate(rate);
+		return limit;
+	}
+
+	/**
+	 * Gets the rate of a limit.
+	 *
+	 * @param limit the limit, null when not limited
+	 * @return the rate, 0 when not limited
+	 */
+	private static double rateOf(final TokenBucket limit) {
+		return limit == null ? 0 : limit.getRate();
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "RequestThrottle [globalRequestsPerSecond=" + getGlobalRequestsPerSecond()
+				+ ", globalBytesPerSecond=" + getGlobalBytesPerSecond() + ", limitedBuckets="
+				+ (bucketRequests.size() + bucketBytes.size()) + ", bulkReserveFraction=" + bulkReserveFraction + "]";
+	}
+}
@@ -0,0 +1,182 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.throttle;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.github.abhinavmishra14.aws.util.AWSUtil;
+import com.github.abhinavmishra14.aws.util.AWSUtilConstants;
+
+/**
+ * The Class ThrottleConfig.<br/>
+ * Holds the settings of a {@link RequestThrottle}: the share of each limit bulk
+ * requests leave to the interactive ones and the limits set when it is created,
+ * globally and per bucket. A rate of 0 means not limited.<br/>
+ * The values are read once when the throttle is created, the limits of the
+ * created throttle can then be changed while requests are running.
+ *
+ * @author Abhinav kumar mishra
+ */
+public class ThrottleConfig {
+
+	/** The bulk reserve fraction. */
+	private double bulkReserveFraction = AWSUtilConstants.DEFAULT_BULK_RESERVE_FRACTION;
+
+	/** The global requests per second. */
+	private double globalRequestsPerSecond;
+
+	/** The global bytes per second. */
+	private double globalBytesPerSecond;
+
+	/** The requests per second by bucket name. */
+	private final Map<String, Double> bucketRequestsPerSecond = new LinkedHashMap<String, Double>();
+
+	/** The bytes per second by bucket name. */
+	private final Map<String, Double> bucketBytesPerSecond = new LinkedHashMap<String, Double>();
+
+	/**
+	 * Gets the bulk reserve fraction.
+	 *
+	 * @return the share of each limit bulk requests leave to the interactive ones
+	 */
+	public double getBulkReserveFraction() {
+		return bulkReserveFraction;
+	}
+
+	/**
+	 * Sets the bulk reserve fraction.
+	 *
+	 * @param bulkReserveFraction the share of each limit bulk requests leave to the interactive ones
+	 * @return the throttle config
+	 */
+	public ThrottleConfig setBulkReserveFraction(final double bulkReserveFraction) {
+		if (bulkReserveFraction < 0 || bulkReserveFraction >= 1) {
+			throw new IllegalArgumentException("Bulk reserve fraction must be between 0 and 1.");
+		}
+		this.bulkReserveFraction = bulkReserveFraction;
+		return this;
+	}
+
+	/**
+	 * Gets the global requests per second.
+	 *
+	 * @return the requests per second, 0 when not limited
+	 */
+	public double getGlobalRequestsPerSecond() {
+		return globalRequestsPerSecond;
+	}
+
+	/**
+	 * Sets the global requests per second.
+	 *
+	 * @param globalRequestsPerSecond the requests per second, 0 to not limit them
+	 * @return the throttle config
+	 */
+	public ThrottleConfig setGlobalRequestsPerSecond(final double globalRequestsPerSecond) {
+		this.globalRequestsPerSecond = checkedRate(globalRequestsPerSecond);
+		return this;
+	}
+
+	/**
+	 * Gets the global bytes per second.
+	 *
+	 * @return the bytes per second sent and received, 0 when not limited
+	 */
+	public double getGlobalBytesPerSecond() {
+		return globalBytesPerSecond;
+	}
+
+	/**
+	 * Sets the global bytes per second.
+	 *
+	 * @param globalBytesPerSecond the bytes per second sent and received, 0 to not limit them
+	 * @return the throttle config
+	 */
+	public ThrottleConfig setGlobalBytesPerSecond(final double globalBytesPerSecond) {
+		this.globalBytesPerSecond = checkedRate(globalBytesPerSecond);
+		return this;
+	}
+
+	/**
+	 * Sets the requests per second of a bucket.
+	 *
+	 * @param bucketName the bucket name
+	 * @param requestsPerSecond the requests per second, 0 to not limit them
+	 * @return the throttle config
+	 */
+	public ThrottleConfig setBucketRequestsPerSecond(final String bucketName, final double requestsPerSecond) {
+		AWSUtil.notNull(bucketName, "Bucket name is null!");
+		bucketRequestsPerSecond.put(bucketName, checkedRate(requestsPerSecond));
+		return this;
+	}
+
+	/**
+	 * Sets the bytes per second of a bucket.
+	 *
+	 * @param bucketName the bucket name
+	 * @param bytesPerSecond the bytes per second sent and received, 0 to not limit them
+	 * @return the throttle config
+	 */
+	public ThrottleConfig setBucketBytesPerSecond(final String bucketName, final double bytesPerSecond) {
+		AWSUtil.notNull(bucketName, "Bucket name is null!");
+		bucketBytesPerSecond.put(bucketName, checkedRate(bytesPerSecond));
+		return this;
+	}
+
+	/**
+	 * Creates a request throttle with the limits of this config.
+	 *
+	 * @return the request throttle
+	 */
+	public RequestThrottle newRequestThrottle() {
+		final RequestThrottle requestThrottle = new RequestThrottle(bulkReserveFraction)
+				.setGlobalRequestsPerSecond(globalRequestsPerSecond).setGlobalBytesPerSecond(globalBytesPerSecond);
+		for (final Map.Entry<String, Double> bucketLimit : bucketRequestsPerSecond.entrySet()) {
+			requestThrottle.setBucketRequestsPerSecond(bucketLimit.getKey(), bucketLimit.getValue());
+		}
+		for (final Map.Entry<String, Double> bucketLimit : bucketBytesPerSecond.entrySet()) {
+			requestThrottle.setBucketBytesPerSecond(bucketLimit.getKey(), bucketLimit.getValue());
+		}
+		return requestThrottle;
+	}
+
+	/**
+	 * Checks a rate.
+	 *
+	 * @param rate the rate
+	 * @return the rate
+	 */
+	private static double checkedRate(final double rate) {
+		if (rate < 0) {
+			throw new IllegalArgumentException("Rate must not be negative.");
+		}
+		return rate;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "ThrottleConfig [bulkReserveFraction=" + bulkReserveFraction + ", globalRequestsPerSecond="
+				+ globalRequestsPerSecond + ", globalBytesPerSecond=" + globalBytesPerSecond
+				+ ", bucketRequestsPerSecond=" + bucketRequestsPerSecond + ", bucketBytesPerSecond="
+				+ bucketBytesPerSecond + "]";
+	}
+}
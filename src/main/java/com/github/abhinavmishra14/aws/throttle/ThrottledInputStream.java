@@ -0,0 +1,135 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.throttle;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The Class ThrottledInputStream.<br/>
+ * Paces the bytes read from a request or response body to the byte limits of a
+ * {@link RequestThrottle}. The bytes are paid once read, mark and reset are
+ * passed through so that a request body can be sent again by a retry. Bytes
+ * read again after a reset are not paid twice, e.g. a body read by the signer to
+ * hash it then read again to send it.
+ *
+ * @author Abhinav kumar mishra
+ */
+public final class ThrottledInputStream extends FilterInputStream {
+
+	/** The request throttle. */
+	private final RequestThrottle requestThrottle;
+
+	/** The bucket name. */
+	private final String bucketName;
+
+	/** The priority. */
+	private final RequestPriority priority;
+
+	/** The position. */
+	private long position;
+
+	/** The mark position. */
+	private long markPosition;
+
+	/** The paid position. Bytes up to this position have been paid. */
+	private long paidPosition;
+
+	/**
+	 * Instantiates a new throttled input stream.
+	 *
+	 * @param inputStream the input stream
+	 * @param requestThrottle the request throttle
+	 * @param bucketName the bucket name, null for requests outside of a bucket
+	 * @param priority the priority of the request the stream belongs to
+	 */
+	public ThrottledInputStream(final InputStream inputStream, final RequestThrottle requestThrottle,
+			final String bucketName, final RequestPriority priority) {
+		super(inputStream);
+		this.requestThrottle = requestThrottle;
+		this.bucketName = bucketName;
+		this.priority = priority;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.io.FilterInputStream#read()
+	 */
+	@Override
+	public int read() throws IOException {
+		final int nextByte = super.read();
+		if (nextByte >= 0) {
+			advance(1);
+		}
+		return nextByte;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.io.FilterInputStream#read(byte[], int, int)
+	 */
+	@Override
+	public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+		final int bytesRead = super.read(buffer, offset, length);
+		if (bytesRead > 0) {
+			advance(bytesRead);
+		}
+		return bytesRead;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.io.FilterInputStream#skip(long)
+	 */
+	@Override
+	public long skip(final long bytes) throws IOException {
+		final long bytesSkipped = super.skip(bytes);
+		position += bytesSkipped;
+		paidPosition = Math.max(paidPosition, position);
+		return bytesSkipped;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.io.FilterInputStream#mark(int)
+	 */
+	@Override
+	public synchronized void mark(final int readLimit) {
+		super.mark(readLimit);
+		markPosition = position;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.io.FilterInputStream#reset()
+	 */
+	@Override
+	public synchronized void reset() throws IOException {
+		super.reset();
+		position = markPosition;
+	}
+
+	/**
+	 * Moves the position forward and pays the bytes read for the first time.
+	 *
+	 * @param bytesRead the bytes read
+	 */
+	private void advance(final long bytesRead) {
+		position += bytesRead;
+		if (position > paidPosition) {
+			requestThrottle.acquireBytes(bucketName, position - paidPosition, priority);
+			paidPosition = position;
+		}
+	}
+}
@@ -0,0 +1,162 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.throttle;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The Class TokenBucket.<br/>
+ * Limits a rate, of requests or of bytes, to a number of permits per second
+ * with bursts of up to one second of permits. Takes larger than the bucket are
+ * let through once it is full and paid back by the next ones, so a large
+ * transfer is slowed down and not blocked.<br/>
+ * Bulk takes leave a reserve in the bucket for the interactive ones and wait as
+ * long as an interactive take is waiting. The rate can be changed at any time,
+ * waiting takes then go on at the new rate.
+ *
+ * @author Abhinav kumar mishra
+ */
+public final class TokenBucket {
+
+	/** The Constant NANOS_PER_SECOND. */
+	private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	/** The bulk reserve fraction. */
+	private final double bulkReserveFraction;
+
+	/** The rate, permits per second. */
+	private double rate;
+
+	/** The tokens, negative while a large take is being paid back. */
+	private double tokens;
+
+	/** The last refill nanos. */
+	private long lastRefillNanos;
+
+	/** The interactive takes waiting. */
+	private int interactiveWaiters;
+
+	/**
+	 * Instantiates a new full token bucket.
+	 *
+	 * @param rate the permits per second
+	 * @param bulkReserveFraction the share of the bucket bulk takes leave to the interactive ones
+	 */
+	public TokenBucket(final double rate, final double bulkReserveFraction) {
+		super();
+		checkRate(rate);
+		if (bulkReserveFraction < 0 || bulkReserveFraction >= 1) {
+			throw new IllegalArgumentException("Bulk reserve fraction must be between 0 and 1.");
+		}
+		this.rate = rate;
+		this.bulkReserveFraction = bulkReserveFraction;
+		this.tokens = rate;
+		this.lastRefillNanos = System.nanoTime();
+	}
+
+	/**
+	 * Waits until the given number of permits can be taken and takes them. An
+	 * interrupt ends the wait early and is kept on the thread.
+	 *
+	 * @param permits the permits
+	 * @param priority the priority of the take
+	 * @return the time waited in nanos
+	 */
+	public synchronized long acquire(final long permits, final RequestPriority priority) {
+		final long startNanos = System.nanoTime();
+		final boolean interactive = priority != RequestPriority.BULK;
+		if (interactive) {
+			interactiveWaiters++;
+		}
+		try {
+			while (true) {
+				refill(System.nanoTime());
+				final double reserve = interactive ? 0 : rate * bulkReserveFraction;
+				final double missing = Math.min(permits, rate - reserve) + reserve - tokens;
+				if (missing <= 0 && (interactive || interactiveWaiters == 0)) {
+					tokens -= permits;
+					return System.nanoTime() - startNanos;
+				}
+				// Bulk takes behind an interactive one are woken up by it
+				final long waitNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(1),
+						(long) (Math.max(missing, 1) / rate * NANOS_PER_SECOND));
+				TimeUnit.NANOSECONDS.timedWait(this, waitNanos);
+			}
+		} catch (InterruptedException interruptedEx) {
+			Thread.currentThread().interrupt();
+			return System.nanoTime() - startNanos;
+		} finally {
+			if (interactive) {
+				interactiveWaiters--;
+				notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Gets the rate.
+	 *
+	 * @return the permits per second
+	 */
+	public synchronized double getRate() {
+		return rate;
+	}
+
+	/**
+	 * Sets the rate, waiting takes go on at the new rate.
+	 *
+	 * @param rate the permits per second
+	 */
+	public synchronized void setRate(final double rate) {
+		checkRate(rate);
+		refill(System.nanoTime());
+		this.rate = rate;
+		tokens = Math.min(tokens, rate);
+		notifyAll();
+	}
+
+	/**
+	 * Adds the tokens earned since the last refill, up to one second of permits.
+	 *
+	 * @param nowNanos the now nanos
+	 */
+	private void refill(final long nowNanos) {
+		tokens = Math.min(rate, tokens + (nowNanos - lastRefillNanos) * rate / NANOS_PER_SECOND);
+		lastRefillNanos = nowNanos;
+	}
+
+	/**
+	 * Checks the rate.
+	 *
+	 * @param rate the rate
+	 */
+	private static void checkRate(final double rate) {
+		if (rate <= 0) {
+			throw new IllegalArgumentException("Rate must be greater than zero.");
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public synchronized String toString() {
+		return "TokenBucket [rate=" + rate + ", tokens=" + tokens + ", bulkReserveFraction=" + bulkReserveFraction
+				+ "]";
+	}
+}
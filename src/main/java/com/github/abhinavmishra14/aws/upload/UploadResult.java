@@ -0,0 +1,154 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.upload;
+
+/**
+ * The Class UploadResult.<br/>
+ * Outcome of an upload: the object written, the strategy chosen to send it, the
+ * part size of a multipart upload and the time taken.
+ *
+ * @author Abhinav kumar mishra
+ */
+public final class UploadResult {
+
+	/** The bucket name. */
+	private final String bucketName;
+
+	/** The key. */
+	private final String key;
+
+	/** The e tag. */
+	private final String eTag;
+
+	/** The content length. */
+	private final long contentLength;
+
+	/** The strategy. */
+	private final UploadStrategy strategy;
+
+	/** The part size. */
+	private final long partSize;
+
+	/** The elapsed millis. */
+	private final long elapsedMillis;
+
+	/**
+	 * Instantiates a new upload result.
+	 *
+	 * @param bucketName the bucket name
+	 * @param key the key
+	 * @param eTag the e tag
+	 * @param contentLength the content length
+	 * @param strategy the strategy
+	 * @param partSize the part size, 0 for a single PUT
+	 * @param elapsedMillis the elapsed millis
+	 */
+	public UploadResult(final String bucketName, final String key, final String eTag, final long contentLength,
+			final UploadStrategy strategy, final long partSize, final long elapsedMillis) {
+		super();
+		this.bucketName = bucketName;
+		this.key = key;
+		this.eTag = eTag;
+		this.contentLength = contentLength;
+		this.strategy = strategy;
+		this.partSize = partSize;
+		this.elapsedMillis = elapsedMillis;
+	}
+
+	/**
+	 * Gets the bucket name.
+	 *
+	 * @return the bucket name
+	 */
+	public String getBucketName() {
+		return bucketName;
+	}
+
+	/**
+	 * Gets the key.
+	 *
+	 * @return the key
+	 */
+	public String getKey() {
+		return key;
+	}
+
+	/**
+	 * Gets the e tag.
+	 *
+	 * @return the e tag of the object
+	 */
+	public String getETag() {
+		return eTag;
+	}
+
+	/**
+	 * Gets the content length.
+	 *
+	 * @return the bytes uploaded, -1 when not known
+	 */
+	public long getContentLength() {
+		return contentLength;
+	}
+
+	/**
+	 * Gets the strategy.
+	 *
+	 * @return the strategy used to send the object
+	 */
+	public UploadStrategy getStrategy() {
+		return strategy;
+	}
+
+	/**
+	 * Gets the part size.
+	 *
+	 * @return the part size of a multipart upload, 0 for a single PUT
+	 */
+	public long getPartSize() {
+		return partSize;
+	}
+
+	/**
+	 * Gets the elapsed millis.
+	 *
+	 * @return the elapsed time in milliseconds
+	 */
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+
+	/**
+	 * Gets the throughput.
+	 *
+	 * @return the bytes uploaded per second
+	 */
+	public double getBytesPerSecond() {
+		return elapsedMillis == 0 ? contentLength : contentLength * 1000D / elapsedMillis;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "UploadResult [bucketName=" + bucketName + ", key=" + key + ", eTag=" + eTag + ", contentLength="
+				+ contentLength + ", strategy=" + strategy + ", partSize=" + partSize + ", elapsedMillis="
+				+ elapsedMillis + "]";
+	}
+}
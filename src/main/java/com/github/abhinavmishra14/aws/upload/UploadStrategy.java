@@ -0,0 +1,36 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.upload;
+
+/**
+ * The Enum UploadStrategy.<br/>
+ * How an object is sent to S3.
+ *
+ * @author Abhinav kumar mishra
+ */
+public enum UploadStrategy {
+
+	/** One PUT request. */
+	SINGLE_PUT,
+
+	/** Parts read from a file and uploaded concurrently, the upload can be resumed when journaled. */
+	PARALLEL_MULTIPART,
+
+	/** Parts buffered from a stream and uploaded while the next one is read. */
+	STREAMING_MULTIPART
+}
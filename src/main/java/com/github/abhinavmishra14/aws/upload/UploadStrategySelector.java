@@ -0,0 +1,151 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.upload;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import com.github.abhinavmishra14.aws.util.AWSUtilConstants;
+import com.github.abhinavmishra14.aws.util.ResumableUploader;
+
+/**
+ * The Class UploadStrategySelector.<br/>
+ * Picks how an object is uploaded from its length, whether the length is known
+ * and the throughput measured on the previous uploads:
+ * <ul>
+ * <li>a stream of unknown length is uploaded as a streaming multipart,</li>
+ * <li>an object of at most one part is uploaded with a single PUT,</li>
+ * <li>an object above the multipart threshold, above the 5 GB limit of a PUT or
+ * which would take more than {@link AWSUtilConstants#DEFAULT_SINGLE_PUT_MAX_SECONDS}
+ * to send at the throughput measured on the previous single PUTs is uploaded as
+ * a multipart, in parallel
+ * from a file or streaming from a stream,</li>
+ * <li>any other object is uploaded with a single PUT.</li>
+ * </ul>
+ * Parts of a slow upload are retried alone and sent concurrently, a failed PUT
+ * starts over. The throughput is measured separately for each strategy, the
+ * parts of a multipart are sent concurrently and say nothing of the time a PUT
+ * takes. The part size is raised above the minimum when the object would need
+ * more than {@link AWSUtilConstants#MAX_MULTIPART_PARTS} parts, a stream of
+ * unknown length starts with the minimum part size which grows as the stream
+ * goes on.<br/>
+ * This class is thread safe.
+ *
+ * @author Abhinav kumar mishra
+ */
+public final class UploadStrategySelector {
+
+	/** The multipart upload threshold. */
+	private final long multipartUploadThreshold;
+
+	/** The minimum part size. */
+	private final long minimumPartSize;
+
+	/** The measured throughput in bytes per second of each strategy, absent until measured. */
+	private final Map<UploadStrategy, Double> bytesPerSecond = new EnumMap<UploadStrategy, Double>(
+			UploadStrategy.class);
+
+	/**
+	 * Instantiates a new upload strategy selector.
+	 *
+	 * @param multipartUploadThreshold the size above which objects are uploaded as multiparts
+	 * @param minimumPartSize the minimum part size, at least 5 MB
+	 */
+	public UploadStrategySelector(final long multipartUploadThreshold, final long minimumPartSize) {
+		super();
+		if (minimumPartSize < AWSUtilConstants.DEFAULT_MINIMUM_UPLOAD_PART_SIZE) {
+			throw new IllegalArgumentException("Part size must be at least 5 MB.");
+		}
+		this.multipartUploadThreshold = multipartUploadThreshold;
+		this.minimumPartSize = minimumPartSize;
+	}
+
+	/**
+	 * Select the strategy of an upload.
+	 *
+	 * @param contentLength the content length, negative when unknown
+	 * @param fromFile true when the content is a file, its parts can then be read concurrently
+	 * @return the upload strategy
+	 */
+	public UploadStrategy select(final long contentLength, final boolean fromFile) {
+		if (contentLength < 0) {
+			return UploadStrategy.STREAMING_MULTIPART;
+		}
+		if (contentLength <= minimumPartSize || !needsMultipart(contentLength)) {
+			return UploadStrategy.SINGLE_PUT;
+		}
+		return fromFile ? UploadStrategy.PARALLEL_MULTIPART : UploadStrategy.STREAMING_MULTIPART;
+	}
+
+	/**
+	 * Checks if an object of at least one part should be uploaded as a multipart.
+	 *
+	 * @param contentLength the content length
+	 * @return true, if a single PUT is not allowed or would be too slow
+	 */
+	private boolean needsMultipart(final long contentLength) {
+		if (contentLength > multipartUploadThreshold || contentLength > AWSUtilConstants.MAX_SINGLE_PUT_SIZE) {
+			return true;
+		}
+		final double measuredBytesPerSecond = getBytesPerSecond(UploadStrategy.SINGLE_PUT);
+		return measuredBytesPerSecond > 0
+				&& contentLength / measuredBytesPerSecond > AWSUtilConstants.DEFAULT_SINGLE_PUT_MAX_SECONDS;
+	}
+
+	/**
+	 * Gets the part size of a multipart upload.
+	 *
+	 * @param contentLength the content length, negative when unknown
+	 * @return the minimum part size, raised so that the object fits in 10,000
+	 *         parts, the size of the first parts when the length is unknown
+	 */
+	public long partSizeFor(final long contentLength) {
+		return contentLength < 0 ? minimumPartSize : ResumableUploader.partSizeFor(contentLength, minimumPartSize);
+	}
+
+	/**
+	 * Record a completed upload in the measured throughput of its strategy.<br/>
+	 * Uploads smaller than {@link AWSUtilConstants#MIN_THROUGHPUT_SAMPLE_BYTES}
+	 * are ignored, their time is mostly latency.
+	 *
+	 * @param strategy the strategy of the upload
+	 * @param bytes the bytes uploaded
+	 * @param elapsedMillis the time taken
+	 */
+	public synchronized void recordUpload(final UploadStrategy strategy, final long bytes,
+			final long elapsedMillis) {
+		if (bytes < AWSUtilConstants.MIN_THROUGHPUT_SAMPLE_BYTES) {
+			return;
+		}
+		final double sample = bytes * 1000D / Math.max(1, elapsedMillis);
+		final Double measured = bytesPerSecond.get(strategy);
+		bytesPerSecond.put(strategy, measured == null ? sample : measured
+				+ AWSUtilConstants.THROUGHPUT_SMOOTHING * (sample - measured));
+	}
+
+	/**
+	 * Gets the measured throughput of a strategy.
+	 *
+	 * @param strategy the strategy
+	 * @return the smoothed bytes per second of the previous uploads with the strategy, 0 until measured
+	 */
+	public synchronized double getBytesPerSecond(final UploadStrategy strategy) {
+		final Double measured = bytesPerSecond.get(strategy);
+		return measured == null ? 0 : measured;
+	}
+}
@@ -20,6 +20,8 @@ package com.github.abhinavmishra14.aws.util;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Calendar;
 import java.util.Date;
 
@@ -67,6 +69,34 @@ public final class AWSUtil {
 		return isDeleted;
 	}
 	
+	/**
+	 * Gets the identity of a directory, used by the directory walks to detect
+	 * link cycles.
+	 *
+	 * @param dir the dir
+	 * @param attributes the attributes of the directory
+	 * @return the file key, or the real path when the file system has none
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public static Object fileKeyOf(final Path dir, final BasicFileAttributes attributes) throws IOException {
+		final Object fileKey = attributes.fileKey();
+		return fileKey == null ? dir.toRealPath() : fileKey;
+	}
+
+	/**
+	 * Append the separator to a non empty prefix, so it is treated as a
+	 * directory by the directory transfers.
+	 *
+	 * @param prefix the prefix
+	 * @return the directory prefix, empty for the root of the bucket
+	 */
+	public static String toDirectoryPrefix(final String prefix) {
+		if (prefix == null || prefix.isEmpty()) {
+			return "";
+		}
+		return prefix.endsWith(AWSUtilConstants.SEPARATOR) ? prefix : prefix + AWSUtilConstants.SEPARATOR;
+	}
+
 	/**
 	 * Not null.
 	 *
@@ -91,10 +121,38 @@ public final class AWSUtil {
 	 */
 	public static Date getExpiryDate(final int expireBy,
 			final int expireByValue) {
+		// Fields of a fixed length are added without a calendar, as Calendar.add does
+		final long fieldMillis = getFieldMillis(expireBy);
+		if (fieldMillis > 0) {
+			return new Date(System.currentTimeMillis() + fieldMillis * expireByValue);
+		}
 		final Date currentDate = new Date();
 	    final Calendar cal = Calendar.getInstance();
 	    cal.setTime(currentDate);
 	    cal.add(expireBy, expireByValue);
 		return cal.getTime();
 	}
+
+	/**
+	 * Gets the length of a calendar field which does not depend on the date or
+	 * the time zone.
+	 *
+	 * @param calendarField the calendar field
+	 * @return the millis of the field, 0 for the days, months and years
+	 */
+	private static long getFieldMillis(final int calendarField) {
+		switch (calendarField) {
+		case Calendar.MILLISECOND:
+			return 1;
+		case Calendar.SECOND:
+			return 1000;
+		case Calendar.MINUTE:
+			return 60 * 1000;
+		case Calendar.HOUR:
+		case Calendar.HOUR_OF_DAY:
+			return 60 * 60 * 1000;
+		default:
+			return 0;
+		}
+	}
 }
@@ -40,6 +40,210 @@ public final class AWSUtilConstants {
 	/** The Constant ERR_MSG_SECRETKEY. */
 	public static final String ERR_MSG_SECRETKEY = "SecretKey is null!";
 
+	/** The Constant ERR_MSG_SERVICE_SHUTDOWN. */
+	public static final String ERR_MSG_SERVICE_SHUTDOWN = "Service has been shut down!";
+
+	/** The Constant TRANSFER_THREAD_NAME_PREFIX. */
+	public static final String TRANSFER_THREAD_NAME_PREFIX = "s3-transfer-";
+
+	/** The Constant DEFAULT_TRANSFER_THREAD_COUNT. */
+	public static final int DEFAULT_TRANSFER_THREAD_COUNT = 10;
+
+	/** The Constant DEFAULT_TRANSFER_KEEP_ALIVE_SECONDS. */
+	public static final long DEFAULT_TRANSFER_KEEP_ALIVE_SECONDS = 60;
+
+	/** The Constant MEGABYTE. */
+	public static final long MEGABYTE = 1024L * 1024L;
+
+	/** The Constant DEFAULT_MULTIPART_UPLOAD_THRESHOLD, 16 MB. */
+	public static final long DEFAULT_MULTIPART_UPLOAD_THRESHOLD = 16 * MEGABYTE;
+
+	/** The Constant DEFAULT_MINIMUM_UPLOAD_PART_SIZE, 5 MB. Amazon S3 does not accept smaller parts. */
+	public static final long DEFAULT_MINIMUM_UPLOAD_PART_SIZE = 5 * MEGABYTE;
+
+	/** The Constant MAX_SINGLE_PUT_SIZE, 5 GB. Amazon S3 does not accept larger objects in a single PUT. */
+	public static final long MAX_SINGLE_PUT_SIZE = 5 * 1024 * MEGABYTE;
+
+	/** The Constant DEFAULT_SINGLE_PUT_MAX_SECONDS. Uploads expected to take longer at the measured throughput use multipart. */
+	public static final long DEFAULT_SINGLE_PUT_MAX_SECONDS = 30;
+
+	/** The Constant MIN_THROUGHPUT_SAMPLE_BYTES. Smaller uploads measure the latency more than the link. */
+	public static final long MIN_THROUGHPUT_SAMPLE_BYTES = MEGABYTE;
+
+	/** The Constant THROUGHPUT_SMOOTHING. Weight of the last upload in the measured throughput. */
+	public static final double THROUGHPUT_SMOOTHING = 0.3;
+
+	/** The Constant DEFAULT_STREAMING_PARTS_IN_FLIGHT. */
+	public static final int DEFAULT_STREAMING_PARTS_IN_FLIGHT = 4;
+
+	/** The Constant MAX_MULTIPART_PARTS. Amazon S3 accepts at most 10,000 parts per upload. */
+	public static final int MAX_MULTIPART_PARTS = 10000;
+
+	/** The Constant STREAMING_PARTS_PER_SIZE_STEP. Parts of a streaming upload sent before the part size doubles. */
+	public static final int STREAMING_PARTS_PER_SIZE_STEP = 1000;
+
+	/** The Constant MAX_STREAMING_PART_SIZE, 1 GB. The part size of a streaming upload stops growing there. */
+	public static final long MAX_STREAMING_PART_SIZE = 1024 * MEGABYTE;
+
+	/** The Constant MAX_KEYS_PER_REQUEST. Amazon S3 lists and deletes at most 1000 keys per request. */
+	public static final int MAX_KEYS_PER_REQUEST = 1000;
+
+	/** The Constant DEFAULT_DELETE_BATCHES_IN_FLIGHT. */
+	public static final int DEFAULT_DELETE_BATCHES_IN_FLIGHT = 4;
+
+	/** The Constant DEFAULT_DELETE_MAX_RETRIES. */
+	public static final int DEFAULT_DELETE_MAX_RETRIES = 3;
+
+	/** The Constant DELETE_RETRY_BASE_DELAY_MILLIS. */
+	public static final long DELETE_RETRY_BASE_DELAY_MILLIS = 200;
+
+	/** The Constant MAX_FAILED_KEYS_REPORTED. */
+	public static final int MAX_FAILED_KEYS_REPORTED = 1000;
+
+	/** The Constant DIRECTORY_WALK_THREAD_NAME_PREFIX. */
+	public static final String DIRECTORY_WALK_THREAD_NAME_PREFIX = "dir-walk-";
+
+	/** The Constant MAX_SYNC_KEYS_REPORTED. Keys uploaded and deleted listed by a directory synchronization. */
+	public static final int MAX_SYNC_KEYS_REPORTED = 1000;
+
+	/** The Constant MAX_DISCOVERY_DEPTH. Number of prefix levels looked into to shard a listing. */
+	public static final int MAX_DISCOVERY_DEPTH = 3;
+
+	/** The Constant MAX_DISCOVERY_OBJECTS. Levels with more objects are listed as one shard. */
+	public static final int MAX_DISCOVERY_OBJECTS = 10000;
+
+	/** The Constant MAX_DISCOVERY_PREFIXES. Levels with more common prefixes are listed as one shard. */
+	public static final int MAX_DISCOVERY_PREFIXES = 1000;
+
+	/** The Constant BUCKET_REGION_CACHE_SIZE. Number of bucket regions a client remembers, as the SDK does. */
+	public static final int BUCKET_REGION_CACHE_SIZE = 300;
+
+	/** The Constant LISTING_PAGES_BUFFERED. Pages buffered per shard by a sharded listing. */
+	public static final int LISTING_PAGES_BUFFERED = 2;
+
+	/** The Constant DEFAULT_DOWNLOAD_PART_SIZE, 16 MB. */
+	public static final long DEFAULT_DOWNLOAD_PART_SIZE = 16 * MEGABYTE;
+
+	/** The Constant DEFAULT_DOWNLOAD_RANGES_IN_FLIGHT. */
+	public static final int DEFAULT_DOWNLOAD_RANGES_IN_FLIGHT = 4;
+
+	/** The Constant DOWNLOAD_CHECKPOINT_BATCH_PARTS. Completed ranges recorded per write of a download checkpoint. */
+	public static final int DOWNLOAD_CHECKPOINT_BATCH_PARTS = 8;
+
+	/** The Constant DEFAULT_DIRECTORY_FILES_IN_FLIGHT. */
+	public static final int DEFAULT_DIRECTORY_FILES_IN_FLIGHT = 8;
+
+	/** The Constant PROGRESS_LOG_INTERVAL_MILLIS. */
+	public static final long PROGRESS_LOG_INTERVAL_MILLIS = 5000;
+
+	/** The Constant DEFAULT_PROGRESS_INTERVAL_MILLIS. Minimum interval between two progress callbacks. */
+	public static final long DEFAULT_PROGRESS_INTERVAL_MILLIS = 1000;
+
+	/** The Constant UPLOAD_JOURNAL_DIR_NAME. Directory under java.io.tmpdir holding the resumable upload journals by default. */
+	public static final String UPLOAD_JOURNAL_DIR_NAME = "s3-upload-journals";
+
+	/** The Constant SSE_KMS_ALGORITHM. ETags of KMS encrypted objects are not the MD5 of the content. */
+	public static final String SSE_KMS_ALGORITHM = "aws:kms";
+
+	/** The Constant ASYNC_THREAD_NAME_PREFIX. */
+	public static final String ASYNC_THREAD_NAME_PREFIX = "s3-async-";
+
+	/** The Constant DEFAULT_ASYNC_MAX_IN_FLIGHT. */
+	public static final int DEFAULT_ASYNC_MAX_IN_FLIGHT = 64;
+
+	/** The Constant LOCAL_S3_THREAD_NAME_PREFIX. */
+	public static final String LOCAL_S3_THREAD_NAME_PREFIX = "local-s3-";
+
+	/** The Constant JETS3_TRANSFER_THREAD_NAME_PREFIX. */
+	public static final String JETS3_TRANSFER_THREAD_NAME_PREFIX = "jets3-transfer-";
+
+	/** The Constant JETS3_BUILD_THREAD_NAME_PREFIX. Threads preparing the objects of a directory upload. */
+	public static final String JETS3_BUILD_THREAD_NAME_PREFIX = "jets3-build-";
+
+	/** The Constant JETS3_UPLOAD_THREAD_NAME_PREFIX. Threads uploading the objects of a directory upload. */
+	public static final String JETS3_UPLOAD_THREAD_NAME_PREFIX = "jets3-upload-";
+
+	/** The Constant DEFAULT_BUILD_THREAD_COUNT. */
+	public static final int DEFAULT_BUILD_THREAD_COUNT = 2;
+
+	/** The Constant DEFAULT_PIPELINE_QUEUE_CAPACITY. Files waiting between two stages of a directory upload. */
+	public static final int DEFAULT_PIPELINE_QUEUE_CAPACITY = 256;
+
+	/** The Constant DEFAULT_MAX_CONNECTIONS. Size of the http connection pool of a service. */
+	public static final int DEFAULT_MAX_CONNECTIONS = 50;
+
+	/** The Constant DEFAULT_CONNECTION_TIMEOUT_MILLIS. */
+	public static final int DEFAULT_CONNECTION_TIMEOUT_MILLIS = 10 * 1000;
+
+	/** The Constant DEFAULT_SOCKET_TIMEOUT_MILLIS. */
+	public static final int DEFAULT_SOCKET_TIMEOUT_MILLIS = 50 * 1000;
+
+	/** The Constant DEFAULT_CONNECTION_MAX_IDLE_MILLIS. Pooled connections idle for longer are closed. */
+	public static final long DEFAULT_CONNECTION_MAX_IDLE_MILLIS = 60 * 1000;
+
+	/** The Constant DEFAULT_MAX_ERROR_RETRIES. */
+	public static final int DEFAULT_MAX_ERROR_RETRIES = 5;
+
+	/** The Constant DEFAULT_RETRY_BASE_DELAY_MILLIS. */
+	public static final long DEFAULT_RETRY_BASE_DELAY_MILLIS = 100;
+
+	/** The Constant DEFAULT_THROTTLE_BASE_DELAY_MILLIS. Base delay of the retries after a 503 SlowDown. */
+	public static final long DEFAULT_THROTTLE_BASE_DELAY_MILLIS = 500;
+
+	/** The Constant DEFAULT_RETRY_MAX_DELAY_MILLIS. */
+	public static final long DEFAULT_RETRY_MAX_DELAY_MILLIS = 20 * 1000;
+
+	/** The Constant DEFAULT_RETRY_BUDGET_CAPACITY. Retries allowed in a row without a success in between. */
+	public static final int DEFAULT_RETRY_BUDGET_CAPACITY = 100;
+
+	/** The Constant DEFAULT_RETRY_BUDGET_REFILL. Retries earned by a success, one retry per ten requests. */
+	public static final double DEFAULT_RETRY_BUDGET_REFILL = 0.1;
+
+	/** The Constant DEFAULT_MAX_REQUESTS_PER_SECOND. Amazon S3 serves at least 5,500 GET requests per second per prefix. */
+	public static final double DEFAULT_MAX_REQUESTS_PER_SECOND = 5500;
+
+	/** The Constant DEFAULT_MIN_REQUESTS_PER_SECOND. */
+	public static final double DEFAULT_MIN_REQUESTS_PER_SECOND = 1;
+
+	/** The Constant DEFAULT_RATE_DECREASE_FACTOR. */
+	public static final double DEFAULT_RATE_DECREASE_FACTOR = 0.5;
+
+	/** The Constant DEFAULT_RATE_INCREASE_PER_SUCCESS. In requests per second. */
+	public static final double DEFAULT_RATE_INCREASE_PER_SUCCESS = 1;
+
+	/** The Constant DEFAULT_BULK_RESERVE_FRACTION. Share of a token bucket bulk requests leave to the interactive ones. */
+	public static final double DEFAULT_BULK_RESERVE_FRACTION = 0.2;
+
+	/** The Constant DEFAULT_CACHE_HEAP_BYTES, 64 MB. */
+	public static final long DEFAULT_CACHE_HEAP_BYTES = 64 * MEGABYTE;
+
+	/** The Constant DEFAULT_CACHE_DISK_BYTES, 1 GB. */
+	public static final long DEFAULT_CACHE_DISK_BYTES = 1024 * MEGABYTE;
+
+	/** The Constant DEFAULT_CACHE_MAX_HEAP_OBJECT_SIZE, 1 MB. Larger objects are cached on disk. */
+	public static final long DEFAULT_CACHE_MAX_HEAP_OBJECT_SIZE = MEGABYTE;
+
+	/** The Constant DEFAULT_CACHE_TTL_MILLIS. Cached objects older than this are revalidated before being served. */
+	public static final long DEFAULT_CACHE_TTL_MILLIS = 60 * 1000;
+
+	/** The Constant OBJECT_CACHE_DIR_NAME. Directory under java.io.tmpdir holding the disk tier of the object cache by default. */
+	public static final String OBJECT_CACHE_DIR_NAME = "s3-object-cache";
+
+	/** The Constant CACHE_FILL_THREAD_NAME_PREFIX. Threads writing the objects read to the disk tier of the object cache. */
+	public static final String CACHE_FILL_THREAD_NAME_PREFIX = "object-cache-fill-";
+
+	/** The Constant DEFAULT_PRESIGN_EXPIRY_WINDOW_MILLIS. Expirations of cached presigned urls are rounded up to 5 minutes. */
+	public static final long DEFAULT_PRESIGN_EXPIRY_WINDOW_MILLIS = 5 * 60 * 1000;
+
+	/** The Constant DEFAULT_PRESIGN_CACHE_MAX_ENTRIES. */
+	public static final int DEFAULT_PRESIGN_CACHE_MAX_ENTRIES = 10000;
+
+	/** The Constant DEFAULT_PERMISSION_CACHE_TTL_MILLIS. Cached acls and write probes are checked again after a minute. */
+	public static final long DEFAULT_PERMISSION_CACHE_TTL_MILLIS = 60 * 1000;
+
+	/** The Constant DEFAULT_PERMISSION_CACHE_MAX_ENTRIES. */
+	public static final int DEFAULT_PERMISSION_CACHE_MAX_ENTRIES = 10000;
+
 	/**
 	 * Instantiates a new AWS Util Constants.
 	 */
@@ -0,0 +1,171 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.util;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * The Class AbstractPrefetchingPageIterator.<br/>
+ * Lazy iterator over a paginated listing. The first page is fetched on the first
+ * call to {@link #hasNext()}, every following page is fetched on the given
+ * executor while the caller iterates the current one, so at most two pages are
+ * held in memory whatever the size of the listing.<br/>
+ * Pages are always fetched one after another, subclasses keep the continuation
+ * marker in their own fields without synchronization.<br/>
+ * Listing failures are thrown from {@link #hasNext()}: runtime exceptions as they
+ * are, checked exceptions wrapped in an {@link IllegalStateException}.<br/>
+ * The iterator is not thread safe.
+ *
+ * @author Abhinav kumar mishra
+ * @param <T> the element type
+ */
+public abstract class AbstractPrefetchingPageIterator<T> implements Iterator<T> {
+
+	/** The executor. */
+	private final ExecutorService executor;
+
+	/** The current page. */
+	private Iterator<T> currentPage;
+
+	/** The next page, null when there are no more pages. */
+	private Future<List<T>> nextPage;
+
+	/**
+	 * Instantiates a new prefetching page iterator.
+	 *
+	 * @param executor the executor used to fetch the next page
+	 */
+	protected AbstractPrefetchingPageIterator(final ExecutorService executor) {
+		super();
+		this.executor = executor;
+	}
+
+	/**
+	 * Fetch the next page.
+	 *
+	 * @return the elements of the page, may be empty
+	 * @throws Exception the exception
+	 */
+	protected abstract List<T> fetchPage() throws Exception;
+
+	/**
+	 * Checks for more pages, called after each {@link #fetchPage()}.
+	 *
+	 * @return true, if there is another page to fetch
+	 */
+	protected abstract boolean hasMorePages();
+
+	/* (non-Javadoc)
+	 * @see java.util.Iterator#hasNext()
+	 */
+	@Override
+	public boolean hasNext() {
+		if (currentPage == null) {
+			currentPage = firstPage().iterator();
+			prefetch();
+		}
+		while (!currentPage.hasNext()) {
+			if (nextPage == null) {
+				return false;
+			}
+			currentPage = awaitNextPage().iterator();
+			prefetch();
+		}
+		return true;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.util.Iterator#next()
+	 */
+	@Override
+	public T next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		return currentPage.next();
+	}
+
+	/* (non-Javadoc)
+	 * @see java.util.Iterator#remove()
+	 */
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException("Listing is read only");
+	}
+
+	/**
+	 * Fetch the first page on the calling thread.
+	 *
+	 * @return the first page
+	 */
+	private List<T> firstPage() {
+		try {
+			return fetchPage();
+		} catch (Exception excp) {
+			if (excp instanceof RuntimeException) {
+				throw (RuntimeException) excp;
+			}
+			throw new IllegalStateException("Failed to list objects", excp);
+		}
+	}
+
+	/**
+	 * Start fetching the next page if there is one.
+	 */
+	private void prefetch() {
+		if (!hasMorePages()) {
+			nextPage = null;
+			return;
+		}
+		nextPage = executor.submit(new Callable<List<T>>() {
+			@Override
+			public List<T> call() throws Exception {
+				return fetchPage();
+			}
+		});
+	}
+
+	/**
+	 * Wait for the page being prefetched.
+	 *
+	 * @return the page
+	 */
+	private List<T> awaitNextPage() {
+		try {
+			final List<T> page = nextPage.get();
+			return page == null ? Collections.<T> emptyList() : page;
+		} catch (InterruptedException intrEx) {
+			Thread.currentThread().interrupt();
+			nextPage.cancel(true);
+			throw new IllegalStateException("Interrupted while listing objects", intrEx);
+		} catch (ExecutionException execEx) {
+			final Throwable cause = execEx.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new IllegalStateException("Failed to list objects", execEx);
+		}
+	}
+}
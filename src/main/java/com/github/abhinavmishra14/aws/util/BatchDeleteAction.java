@@ -0,0 +1,39 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.util;
+
+import java.util.List;
+
+/**
+ * The Interface BatchDeleteAction.<br/>
+ * Deletes one batch of keys with a single multi-object delete request, it is
+ * implemented for each SDK and driven by {@link BulkDeleter}.
+ *
+ * @author Abhinav kumar mishra
+ */
+public interface BatchDeleteAction {
+
+	/**
+	 * Delete the batch of keys.
+	 *
+	 * @param keys the keys, at most 1000
+	 * @return the keys which could not be deleted, empty if all were deleted
+	 * @throws Exception if the whole request failed, all the keys are retried in that case
+	 */
+	List<String> deleteBatch(final List<String> keys) throws Exception;
+}
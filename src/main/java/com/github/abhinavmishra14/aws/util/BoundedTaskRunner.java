@@ -0,0 +1,115 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.util;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * The Class BoundedTaskRunner.<br/>
+ * Runs tasks on a shared executor with at most maxInFlight of them running at
+ * the same time, {@link #execute(Runnable)} blocks the caller when the limit is
+ * reached. The directory transfers and the bulk deletes use it so a long
+ * listing or walk never queues more work than it has slots for.
+ *
+ * @author Abhinav kumar mishra
+ */
+public final class BoundedTaskRunner {
+
+	/** The executor. */
+	private final ExecutorService executor;
+
+	/** The max in flight. */
+	private final int maxInFlight;
+
+	/** The in flight permits. */
+	private final Semaphore inFlightPermits;
+
+	/**
+	 * Instantiates a new bounded task runner.
+	 *
+	 * @param executor the executor running the tasks
+	 * @param maxInFlight the maximum number of tasks running at the same time
+	 */
+	public BoundedTaskRunner(final ExecutorService executor, final int maxInFlight) {
+		super();
+		AWSUtil.notNull(executor, "Executor is null!");
+		if (maxInFlight < 1) {
+			throw new IllegalArgumentException("Max in flight must be at least 1.");
+		}
+		this.executor = executor;
+		this.maxInFlight = maxInFlight;
+		this.inFlightPermits = new Semaphore(maxInFlight);
+	}
+
+	/**
+	 * Run the task on the executor, waits while maxInFlight tasks are running.
+	 *
+	 * @param task the task
+	 * @throws InterruptedException the interrupted exception
+	 * @throws RejectedExecutionException if the executor does not accept the task
+	 */
+	public void execute(final Runnable task) throws InterruptedException {
+		inFlightPermits.acquire();
+		try {
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						task.run();
+					} finally {
+						inFlightPermits.release();
+					}
+				}
+			});
+		} catch (RejectedExecutionException rejEx) {
+			inFlightPermits.release();
+			throw rejEx;
+		}
+	}
+
+	/**
+	 * Wait for all the tasks to complete.
+	 *
+	 * @throws InterruptedException the interrupted exception
+	 */
+	public void awaitCompletion() throws InterruptedException {
+		inFlightPermits.acquire(maxInFlight);
+		inFlightPermits.release(maxInFlight);
+	}
+
+	/**
+	 * Wait for the submitted tasks without being interrupted.<br/>
+	 * Used when the caller failed, so that no task is left running after it
+	 * has returned.
+	 */
+	public void awaitSubmitted() {
+		inFlightPermits.acquireUninterruptibly(maxInFlight);
+		inFlightPermits.release(maxInFlight);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "BoundedTaskRunner [maxInFlight=" + maxInFlight + ", running="
+				+ (maxInFlight - inFlightPermits.availablePermits()) + "]";
+	}
+}
@@ -0,0 +1,116 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The Class BulkDeleteSummary.<br/>
+ * Outcome of a bulk delete: number of keys deleted and failed, a sample of the
+ * failed keys and the time taken.
+ *
+ * @author Abhinav kumar mishra
+ */
+public final class BulkDeleteSummary {
+
+	/** The keys deleted. */
+	private final long keysDeleted;
+
+	/** The keys failed. */
+	private final long keysFailed;
+
+	/** The failed keys sample. */
+	private final List<String> failedKeys;
+
+	/** The elapsed millis. */
+	private final long elapsedMillis;
+
+	/**
+	 * Instantiates a new bulk delete summary.
+	 *
+	 * @param keysDeleted the keys deleted
+	 * @param keysFailed the keys failed
+	 * @param failedKeys the failed keys sample
+	 * @param elapsedMillis the elapsed millis
+	 */
+	public BulkDeleteSummary(final long keysDeleted, final long keysFailed, final List<String> failedKeys,
+			final long elapsedMillis) {
+		super();
+		this.keysDeleted = keysDeleted;
+		this.keysFailed = keysFailed;
+		this.failedKeys = Collections.unmodifiableList(new ArrayList<String>(failedKeys));
+		this.elapsedMillis = elapsedMillis;
+	}
+
+	/**
+	 * Gets the keys deleted.
+	 *
+	 * @return the number of keys deleted
+	 */
+	public long getKeysDeleted() {
+		return keysDeleted;
+	}
+
+	/**
+	 * Gets the keys failed.
+	 *
+	 * @return the number of keys which could not be deleted after all retries
+	 */
+	public long getKeysFailed() {
+		return keysFailed;
+	}
+
+	/**
+	 * Gets the failed keys.<br/>
+	 * Only the first {@link AWSUtilConstants#MAX_FAILED_KEYS_REPORTED} failed keys are kept.
+	 *
+	 * @return the failed keys sample
+	 */
+	public List<String> getFailedKeys() {
+		return failedKeys;
+	}
+
+	/**
+	 * Gets the elapsed millis.
+	 *
+	 * @return the elapsed time in milliseconds
+	 */
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+
+	/**
+	 * Checks if every key was deleted.
+	 *
+	 * @return true, if no key failed
+	 */
+	public boolean isComplete() {
+		return keysFailed == 0;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "BulkDeleteSummary [keysDeleted=" + keysDeleted + ", keysFailed=" + keysFailed + ", elapsedMillis="
+				+ elapsedMillis + "]";
+	}
+}
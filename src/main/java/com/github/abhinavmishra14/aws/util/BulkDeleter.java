@@ -0,0 +1,192 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The Class BulkDeleter.<br/>
+ * Groups keys into batches of 1000 and deletes the batches on the given executor
+ * while the caller keeps listing, so a bucket or prefix is deleted page by page
+ * without holding the whole listing in memory.<br/>
+ * At most batchesInFlight batches run at the same time, {@link #submit(String)}
+ * blocks the caller when the limit is reached. Keys reported as failed are
+ * retried with exponential back-off, keys still failing after maxRetries are
+ * counted in the {@link BulkDeleteSummary}.<br/>
+ * An instance is used for one bulk delete by a single calling thread.
+ *
+ * @author Abhinav kumar mishra
+ */
+public final class BulkDeleter {
+
+	/** The Constant LOGGER. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(BulkDeleter.class);
+
+	/** The delete action. */
+	private final BatchDeleteAction deleteAction;
+
+	/** The max retries. */
+	private final int maxRetries;
+
+	/** The delete requests, at most batchesInFlight at the same time. */
+	private final BoundedTaskRunner deletes;
+
+	/** The keys deleted. */
+	private final AtomicLong keysDeleted = new AtomicLong();
+
+	/** The keys failed. */
+	private final AtomicLong keysFailed = new AtomicLong();
+
+	/** The failed keys sample. */
+	private final List<String> failedKeys = new ArrayList<String>();
+
+	/** The start time. */
+	private final long startTime = System.currentTimeMillis();
+
+	/** The pending keys of the batch being filled. */
+	private List<String> pendingKeys = new ArrayList<String>(AWSUtilConstants.MAX_KEYS_PER_REQUEST);
+
+	/**
+	 * Instantiates a new bulk deleter.
+	 *
+	 * @param executor the executor running the delete requests
+	 * @param deleteAction the SDK specific delete action
+	 * @param batchesInFlight the maximum number of concurrent delete requests
+	 * @param maxRetries the number of times failed keys are retried
+	 */
+	public BulkDeleter(final ExecutorService executor, final BatchDeleteAction deleteAction,
+			final int batchesInFlight, final int maxRetries) {
+		super();
+		this.deleteAction = deleteAction;
+		this.maxRetries = maxRetries;
+		this.deletes = new BoundedTaskRunner(executor, batchesInFlight);
+	}
+
+	/**
+	 * Submit a key for deletion.<br/>
+	 * The key is deleted once its batch is full or when {@link #finish()} is called.
+	 *
+	 * @param key the key
+	 * @throws InterruptedException the interrupted exception
+	 */
+	public void submit(final String key) throws InterruptedException {
+		pendingKeys.add(key);
+		if (pendingKeys.size() >= AWSUtilConstants.MAX_KEYS_PER_REQUEST) {
+			flush();
+		}
+	}
+
+	/**
+	 * Delete the remaining keys and wait for all the batches to complete.
+	 *
+	 * @return the bulk delete summary
+	 * @throws InterruptedException the interrupted exception
+	 */
+	public BulkDeleteSummary finish() throws InterruptedException {
+		flush();
+		deletes.awaitCompletion();
+		final long elapsed = System.currentTimeMillis() - startTime;
+		synchronized (failedKeys) {
+			return new BulkDeleteSummary(keysDeleted.get(), keysFailed.get(), failedKeys, elapsed);
+		}
+	}
+
+	/**
+	 * Wait for the batches already submitted without deleting the pending keys.<br/>
+	 * Used when listing failed, so that no request is left running after the
+	 * bulk delete has returned.
+	 */
+	public void awaitSubmitted() {
+		deletes.awaitSubmitted();
+	}
+
+	/**
+	 * Hand the pending keys to the executor as one batch.
+	 *
+	 * @throws InterruptedException the interrupted exception
+	 */
+	private void flush() throws InterruptedException {
+		if (pendingKeys.isEmpty()) {
+			return;
+		}
+		final List<String> batch = pendingKeys;
+		pendingKeys = new ArrayList<String>(AWSUtilConstants.MAX_KEYS_PER_REQUEST);
+		deletes.execute(() -> deleteWithRetries(batch));
+	}
+
+	/**
+	 * Delete the batch, retrying the failed keys.
+	 *
+	 * @param batch the batch
+	 */
+	private void deleteWithRetries(final List<String> batch) {
+		List<String> remaining = batch;
+		int attempt = 0;
+		while (true) {
+			List<String> failedNow;
+			try {
+				failedNow = deleteAction.deleteBatch(remaining);
+			} catch (Exception excp) {
+				LOGGER.warn("Delete request for {} keys failed: {}", remaining.size(), excp.getMessage());
+				failedNow = remaining;
+			}
+			keysDeleted.addAndGet(remaining.size() - failedNow.size());
+			if (failedNow.isEmpty()) {
+				return;
+			}
+			if (attempt >= maxRetries) {
+				recordFailures(failedNow);
+				return;
+			}
+			try {
+				TimeUnit.MILLISECONDS.sleep(AWSUtilConstants.DELETE_RETRY_BASE_DELAY_MILLIS << attempt);
+			} catch (InterruptedException intrEx) {
+				Thread.currentThread().interrupt();
+				recordFailures(failedNow);
+				return;
+			}
+			attempt++;
+			remaining = new ArrayList<String>(failedNow);
+		}
+	}
+
+	/**
+	 * Record the keys which could not be deleted.
+	 *
+	 * @param keys the keys
+	 */
+	private void recordFailures(final List<String> keys) {
+		LOGGER.warn("{} keys could not be deleted after {} retries", keys.size(), maxRetries);
+		keysFailed.addAndGet(keys.size());
+		synchronized (failedKeys) {
+			for (final String key : keys) {
+				if (failedKeys.size() >= AWSUtilConstants.MAX_FAILED_KEYS_REPORTED) {
+					break;
+				}
+				failedKeys.add(key);
+			}
+		}
+	}
+}
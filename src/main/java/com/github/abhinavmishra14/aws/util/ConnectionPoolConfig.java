@@ -0,0 +1,275 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.util;
+
+/**
+ * The Class ConnectionPoolConfig.<br/>
+ * Holds the settings of the http connection pool and of the sockets of a
+ * service, for the AWS SDK as well as the JetS3t services.<br/>
+ * Each transfer holds a connection for as long as it runs, size the pool for
+ * the number of concurrent transfers (threads times parts or ranges in flight)
+ * and watch {@link ConnectionPoolStats} to see whether requests wait for a
+ * connection.<br/>
+ * The values are read once when the service is built, changing them afterwards
+ * has no effect on an already created service.
+ *
+ * @author Abhinav kumar mishra
+ */
+public class ConnectionPoolConfig {
+
+	/** The max connections. */
+	private int maxConnections = AWSUtilConstants.DEFAULT_MAX_CONNECTIONS;
+
+	/** The connection timeout millis. */
+	private int connectionTimeoutMillis = AWSUtilConstants.DEFAULT_CONNECTION_TIMEOUT_MILLIS;
+
+	/** The socket timeout millis. */
+	private int socketTimeoutMillis = AWSUtilConstants.DEFAULT_SOCKET_TIMEOUT_MILLIS;
+
+	/** The connection ttl millis. */
+	private long connectionTtlMillis = -1;
+
+	/** The connection max idle millis. */
+	private long connectionMaxIdleMillis = AWSUtilConstants.DEFAULT_CONNECTION_MAX_IDLE_MILLIS;
+
+	/** The tcp keep alive flag. */
+	private boolean tcpKeepAlive;
+
+	/** The tcp no delay flag. */
+	private boolean tcpNoDelay = true;
+
+	/** The socket send buffer size. */
+	private int socketSendBufferSize;
+
+	/** The socket receive buffer size. */
+	private int socketReceiveBufferSize;
+
+	/**
+	 * Gets the max connections.
+	 *
+	 * @return the maximum number of open connections of the service
+	 */
+	public int getMaxConnections() {
+		return maxConnections;
+	}
+
+	/**
+	 * Sets the max connections.
+	 *
+	 * @param maxConnections the maximum number of open connections of the service
+	 * @return the connection pool config
+	 */
+	public ConnectionPoolConfig setMaxConnections(final int maxConnections) {
+		if (maxConnections < 1) {
+			throw new IllegalArgumentException("Max connections must be greater than zero.");
+		}
+		this.maxConnections = maxConnections;
+		return this;
+	}
+
+	/**
+	 * Gets the connection timeout millis.
+	 *
+	 * @return the time to wait for a connection to be established, 0 waits forever
+	 */
+	public int getConnectionTimeoutMillis() {
+		return connectionTimeoutMillis;
+	}
+
+	/**
+	 * Sets the connection timeout millis.
+	 *
+	 * @param connectionTimeoutMillis the time to wait for a connection to be established, 0 waits forever
+	 * @return the connection pool config
+	 */
+	public ConnectionPoolConfig setConnectionTimeoutMillis(final int connectionTimeoutMillis) {
+		if (connectionTimeoutMillis < 0) {
+			throw new IllegalArgumentException("Connection timeout must not be negative.");
+		}
+		this.connectionTimeoutMillis = connectionTimeoutMillis;
+		return this;
+	}
+
+	/**
+	 * Gets the socket timeout millis.
+	 *
+	 * @return the time to wait for data on an open connection, 0 waits forever
+	 */
+	public int getSocketTimeoutMillis() {
+		return socketTimeoutMillis;
+	}
+
+	/**
+	 * Sets the socket timeout millis.
+	 *
+	 * @param socketTimeoutMillis the time to wait for data on an open connection, 0 waits forever
+	 * @return the connection pool config
+	 */
+	public ConnectionPoolConfig setSocketTimeoutMillis(final int socketTimeoutMillis) {
+		if (socketTimeoutMillis < 0) {
+			throw new IllegalArgumentException("Socket timeout must not be negative.");
+		}
+		this.socketTimeoutMillis = socketTimeoutMillis;
+		return this;
+	}
+
+	/**
+	 * Gets the connection ttl millis.
+	 *
+	 * @return the time after which a pooled connection is closed even if in use, -1 for no limit
+	 */
+	public long getConnectionTtlMillis() {
+		return connectionTtlMillis;
+	}
+
+	/**
+	 * Sets the connection ttl millis.<br/>
+	 * A limited lifetime makes long running services pick up DNS changes of the endpoint.
+	 *
+	 * @param connectionTtlMillis the time after which a pooled connection is not reused, -1 for no limit
+	 * @return the connection pool config
+	 */
+	public ConnectionPoolConfig setConnectionTtlMillis(final long connectionTtlMillis) {
+		this.connectionTtlMillis = connectionTtlMillis;
+		return this;
+	}
+
+	/**
+	 * Gets the connection max idle millis.
+	 *
+	 * @return the time after which an idle pooled connection is closed
+	 */
+	public long getConnectionMaxIdleMillis() {
+		return connectionMaxIdleMillis;
+	}
+
+	/**
+	 * Sets the connection max idle millis.<br/>
+	 * Keep it below the idle timeout of the server (about 20 seconds for Amazon S3
+	 * keep-alive) to avoid reusing connections the server has already closed.
+	 *
+	 * @param connectionMaxIdleMillis the time after which an idle pooled connection is closed
+	 * @return the connection pool config
+	 */
+	public ConnectionPoolConfig setConnectionMaxIdleMillis(final long connectionMaxIdleMillis) {
+		if (connectionMaxIdleMillis < 1) {
+			throw new IllegalArgumentException("Connection max idle time must be greater than zero.");
+		}
+		this.connectionMaxIdleMillis = connectionMaxIdleMillis;
+		return this;
+	}
+
+	/**
+	 * Checks if tcp keep alive is enabled.
+	 *
+	 * @return true, if SO_KEEPALIVE is set on the sockets
+	 */
+	public boolean isTcpKeepAlive() {
+		return tcpKeepAlive;
+	}
+
+	/**
+	 * Sets the tcp keep alive flag.
+	 *
+	 * @param tcpKeepAlive true, to set SO_KEEPALIVE on the sockets
+	 * @return the connection pool config
+	 */
+	public ConnectionPoolConfig setTcpKeepAlive(final boolean tcpKeepAlive) {
+		this.tcpKeepAlive = tcpKeepAlive;
+		return this;
+	}
+
+	/**
+	 * Checks if tcp no delay is enabled.
+	 *
+	 * @return true, if TCP_NODELAY is set on the sockets
+	 */
+	public boolean isTcpNoDelay() {
+		return tcpNoDelay;
+	}
+
+	/**
+	 * Sets the tcp no delay flag.<br/>
+	 * Applies to the JetS3t services, the AWS SDK always sets TCP_NODELAY.
+	 *
+	 * @param tcpNoDelay true, to set TCP_NODELAY on the sockets
+	 * @return the connection pool config
+	 */
+	public ConnectionPoolConfig setTcpNoDelay(final boolean tcpNoDelay) {
+		this.tcpNoDelay = tcpNoDelay;
+		return this;
+	}
+
+	/**
+	 * Gets the socket send buffer size.
+	 *
+	 * @return the SO_SNDBUF hint in bytes, 0 for the system default
+	 */
+	public int getSocketSendBufferSize() {
+		return socketSendBufferSize;
+	}
+
+	/**
+	 * Sets the socket send buffer size.
+	 *
+	 * @param socketSendBufferSize the SO_SNDBUF hint in bytes, 0 for the system default
+	 * @return the connection pool config
+	 */
+	public ConnectionPoolConfig setSocketSendBufferSize(final int socketSendBufferSize) {
+		if (socketSendBufferSize < 0) {
+			throw new IllegalArgumentException("Socket buffer size must not be negative.");
+		}
+		this.socketSendBufferSize = socketSendBufferSize;
+		return this;
+	}
+
+	/**
+	 * Gets the socket receive buffer size.
+	 *
+	 * @return the SO_RCVBUF hint in bytes, 0 for the system default
+	 */
+	public int getSocketReceiveBufferSize() {
+		return socketReceiveBufferSize;
+	}
+
+	/**
+	 * Sets the socket receive buffer size.
+	 *
+	 * @param socketReceiveBufferSize the SO_RCVBUF hint in bytes, 0 for the system default
+	 * @return the connection pool config
+	 */
+	public ConnectionPoolConfig setSocketReceiveBufferSize(final int socketReceiveBufferSize) {
+		if (socketReceiveBufferSize < 0) {
+			throw new IllegalArgumentException("Socket buffer size must not be negative.");
+		}
+		this.socketReceiveBufferSize = socketReceiveBufferSize;
+		return this;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "ConnectionPoolConfig [maxConnections=" + maxConnections + ", connectionTimeoutMillis="
+				+ connectionTimeoutMillis + ", socketTimeoutMillis=" + socketTimeoutMillis + ", connectionTtlMillis="
+				+ connectionTtlMillis + ", connectionMaxIdleMillis=" + connectionMaxIdleMillis + ", tcpKeepAlive="
+				+ tcpKeepAlive + ", tcpNoDelay=" + tcpNoDelay + ", socketSendBufferSize=" + socketSendBufferSize
+				+ ", socketReceiveBufferSize=" + socketReceiveBufferSize + "]";
+	}
+}
@@ -0,0 +1,112 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.util;
+
+import org.apache.http.pool.ConnPoolControl;
+import org.apache.http.pool.PoolStats;
+
+/**
+ * The Class ConnectionPoolStats.<br/>
+ * Point in time snapshot of the http connection pool of a service. Requests
+ * pending while all the connections are leased wait for a connection, either
+ * raise the max connections or run fewer transfers at once.
+ *
+ * @author Abhinav kumar mishra
+ */
+public final class ConnectionPoolStats {
+
+	/** The leased count. */
+	private final int leasedCount;
+
+	/** The pending count. */
+	private final int pendingCount;
+
+	/** The available count. */
+	private final int availableCount;
+
+	/** The max connections. */
+	private final int maxConnections;
+
+	/**
+	 * Instantiates a new connection pool stats from the given pool.
+	 *
+	 * @param connectionPool the connection pool
+	 */
+	public ConnectionPoolStats(final ConnPoolControl<?> connectionPool) {
+		super();
+		final PoolStats totalStats = connectionPool.getTotalStats();
+		this.leasedCount = totalStats.getLeased();
+		this.pendingCount = totalStats.getPending();
+		this.availableCount = totalStats.getAvailable();
+		this.maxConnections = totalStats.getMax();
+	}
+
+	/**
+	 * Gets the leased count.
+	 *
+	 * @return the number of connections in use by a request
+	 */
+	public int getLeasedCount() {
+		return leasedCount;
+	}
+
+	/**
+	 * Gets the pending count.
+	 *
+	 * @return the number of requests waiting for a connection
+	 */
+	public int getPendingCount() {
+		return pendingCount;
+	}
+
+	/**
+	 * Gets the available count.
+	 *
+	 * @return the number of idle connections kept open for reuse
+	 */
+	public int getAvailableCount() {
+		return availableCount;
+	}
+
+	/**
+	 * Gets the max connections.
+	 *
+	 * @return the maximum number of open connections
+	 */
+	public int getMaxConnections() {
+		return maxConnections;
+	}
+
+	/**
+	 * Gets the utilization.
+	 *
+	 * @return the ratio of leased connections to the max connections, between 0 and 1
+	 */
+	public double getUtilization() {
+		return maxConnections == 0 ? 0 : (double) leasedCount / maxConnections;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "ConnectionPoolStats [leasedCount=" + leasedCount + ", pendingCount=" + pendingCount
+				+ ", availableCount=" + availableCount + ", maxConnections=" + maxConnections + "]";
+	}
+}
@@ -0,0 +1,145 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.util;
+
+/**
+ * The Class DirectorySyncOptions.<br/>
+ * Holds the settings of a directory synchronization: whether the content of
+ * files with the same size is compared by MD5, whether objects without a local
+ * file are deleted and whether the synchronization only reports what it would
+ * do, and how symbolic links under the directory are treated.<br/>
+ * By default files are compared by size and modification time, orphan objects
+ * are kept, changes are applied and links are followed.
+ *
+ * @author Abhinav kumar mishra
+ */
+public class DirectorySyncOptions {
+
+	/** The compare checksums flag. */
+	private boolean compareChecksums;
+
+	/** The delete orphans flag. */
+	private boolean deleteOrphans;
+
+	/** The dry run flag. */
+	private boolean dryRun;
+
+	/** The symlink policy. */
+	private SymlinkPolicy symlinkPolicy = SymlinkPolicy.FOLLOW;
+
+	/**
+	 * Checks if checksums are compared.
+	 *
+	 * @return true, if the MD5 of files having the size of their object is compared with its ETag
+	 */
+	public boolean isCompareChecksums() {
+		return compareChecksums;
+	}
+
+	/**
+	 * Sets the compare checksums flag.<br/>
+	 * Every file having the size of its object is read to compute its MD5, which
+	 * detects changes keeping the size and the modification time. Objects uploaded
+	 * as multiparts, whose ETag is not an MD5, are compared by time. The ETags of
+	 * SSE-KMS encrypted objects are not their MD5 either but cannot be told apart
+	 * in a listing, do not compare checksums on such buckets.
+	 *
+	 * @param compareChecksums the compare checksums flag
+	 * @return the directory sync options
+	 */
+	public DirectorySyncOptions setCompareChecksums(final boolean compareChecksums) {
+		this.compareChecksums = compareChecksums;
+		return this;
+	}
+
+	/**
+	 * Checks if orphans are deleted.
+	 *
+	 * @return true, if objects under the prefix without a local file are deleted
+	 */
+	public boolean isDeleteOrphans() {
+		return deleteOrphans;
+	}
+
+	/**
+	 * Sets the delete orphans flag.
+	 *
+	 * @param deleteOrphans the delete orphans flag
+	 * @return the directory sync options
+	 */
+	public DirectorySyncOptions setDeleteOrphans(final boolean deleteOrphans) {
+		this.deleteOrphans = deleteOrphans;
+		return this;
+	}
+
+	/**
+	 * Checks if is dry run.
+	 *
+	 * @return true, if nothing is uploaded nor deleted
+	 */
+	public boolean isDryRun() {
+		return dryRun;
+	}
+
+	/**
+	 * Sets the dry run flag.<br/>
+	 * A dry run compares both sides and reports the files it would upload and the
+	 * objects it would delete without changing the bucket.
+	 *
+	 * @param dryRun the dry run flag
+	 * @return the directory sync options
+	 */
+	public DirectorySyncOptions setDryRun(final boolean dryRun) {
+		this.dryRun = dryRun;
+		return this;
+	}
+
+	/**
+	 * Gets the symlink policy.
+	 *
+	 * @return the symlink policy
+	 */
+	public SymlinkPolicy getSymlinkPolicy() {
+		return symlinkPolicy;
+	}
+
+	/**
+	 * Sets the symlink policy.<br/>
+	 * A file not walked because of the policy is not uploaded and, with
+	 * {@link #setDeleteOrphans(boolean)}, its object is deleted.
+	 *
+	 * @param symlinkPolicy the symlink policy
+	 * @return the directory sync options
+	 */
+	public DirectorySyncOptions setSymlinkPolicy(final SymlinkPolicy symlinkPolicy) {
+		if (symlinkPolicy == null) {
+			throw new IllegalArgumentException("Symlink policy should not be null.");
+		}
+		this.symlinkPolicy = symlinkPolicy;
+		return this;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "DirectorySyncOptions [compareChecksums=" + compareChecksums + ", deleteOrphans=" + deleteOrphans
+				+ ", dryRun=" + dryRun + ", symlinkPolicy=" + symlinkPolicy + "]";
+	}
+}
@@ -0,0 +1,206 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The Class DirectorySyncSummary.<br/>
+ * Outcome of a directory synchronization: files uploaded, unchanged and failed,
+ * orphan objects deleted, bytes uploaded and time taken. The keys uploaded and
+ * deleted are reported as well, for a dry run they are the keys which would have
+ * been.
+ *
+ * @author Abhinav kumar mishra
+ */
+public final class DirectorySyncSummary {
+
+	/** The files uploaded. */
+	private final long filesUploaded;
+
+	/** The files unchanged. */
+	private final long filesUnchanged;
+
+	/** The files failed. */
+	private final long filesFailed;
+
+	/** The objects deleted. */
+	private final long objectsDeleted;
+
+	/** The bytes uploaded. */
+	private final long bytesUploaded;
+
+	/** The elapsed millis. */
+	private final long elapsedMillis;
+
+	/** The dry run flag. */
+	private final boolean dryRun;
+
+	/** The uploaded keys sample. */
+	private final List<String> uploadedKeys;
+
+	/** The deleted keys sample. */
+	private final List<String> deletedKeys;
+
+	/** The failed keys sample. */
+	private final List<String> failedKeys;
+
+	/**
+	 * Instantiates a new directory sync summary.
+	 *
+	 * @param filesUploaded the files uploaded
+	 * @param filesUnchanged the files unchanged
+	 * @param filesFailed the files failed
+	 * @param objectsDeleted the objects deleted
+	 * @param bytesUploaded the bytes uploaded
+	 * @param elapsedMillis the elapsed millis
+	 * @param dryRun the dry run flag
+	 * @param uploadedKeys the uploaded keys sample
+	 * @param deletedKeys the deleted keys sample
+	 * @param failedKeys the failed keys sample
+	 */
+	public DirectorySyncSummary(final long filesUploaded, final long filesUnchanged, final long filesFailed,
+			final long objectsDeleted, final long bytesUploaded, final long elapsedMillis, final boolean dryRun,
+			final List<String> uploadedKeys, final List<String> deletedKeys, final List<String> failedKeys) {
+		super();
+		this.filesUploaded = filesUploaded;
+		this.filesUnchanged = filesUnchanged;
+		this.filesFailed = filesFailed;
+		this.objectsDeleted = objectsDeleted;
+		this.bytesUploaded = bytesUploaded;
+		this.elapsedMillis = elapsedMillis;
+		this.dryRun = dryRun;
+		this.uploadedKeys = Collections.unmodifiableList(new ArrayList<String>(uploadedKeys));
+		this.deletedKeys = Collections.unmodifiableList(new ArrayList<String>(deletedKeys));
+		this.failedKeys = Collections.unmodifiableList(new ArrayList<String>(failedKeys));
+	}
+
+	/**
+	 * Gets the files uploaded.
+	 *
+	 * @return the number of new or changed files uploaded, or to upload for a dry run
+	 */
+	public long getFilesUploaded() {
+		return filesUploaded;
+	}
+
+	/**
+	 * Gets the files unchanged.
+	 *
+	 * @return the number of files skipped because their object is up to date
+	 */
+	public long getFilesUnchanged() {
+		return filesUnchanged;
+	}
+
+	/**
+	 * Gets the files failed.
+	 *
+	 * @return the number of files which could not be uploaded and orphans which could not be deleted
+	 */
+	public long getFilesFailed() {
+		return filesFailed;
+	}
+
+	/**
+	 * Gets the objects deleted.
+	 *
+	 * @return the number of orphan objects deleted, or to delete for a dry run
+	 */
+	public long getObjectsDeleted() {
+		return objectsDeleted;
+	}
+
+	/**
+	 * Gets the bytes uploaded.
+	 *
+	 * @return the bytes uploaded, or to upload for a dry run
+	 */
+	public long getBytesUploaded() {
+		return bytesUploaded;
+	}
+
+	/**
+	 * Gets the elapsed millis.
+	 *
+	 * @return the elapsed time in milliseconds
+	 */
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+
+	/**
+	 * Checks if is dry run.
+	 *
+	 * @return true, if the bucket was left unchanged
+	 */
+	public boolean isDryRun() {
+		return dryRun;
+	}
+
+	/**
+	 * Gets the uploaded keys.<br/>
+	 * Only the first {@link AWSUtilConstants#MAX_SYNC_KEYS_REPORTED} keys are kept.
+	 *
+	 * @return the uploaded keys sample
+	 */
+	public List<String> getUploadedKeys() {
+		return uploadedKeys;
+	}
+
+	/**
+	 * Gets the deleted keys.<br/>
+	 * Only the first {@link AWSUtilConstants#MAX_SYNC_KEYS_REPORTED} keys are kept.
+	 *
+	 * @return the deleted keys sample
+	 */
+	public List<String> getDeletedKeys() {
+		return deletedKeys;
+	}
+
+	/**
+	 * Gets the failed keys.<br/>
+	 * Only the first {@link AWSUtilConstants#MAX_FAILED_KEYS_REPORTED} failed keys are kept.
+	 *
+	 * @return the failed keys sample
+	 */
+	public List<String> getFailedKeys() {
+		return failedKeys;
+	}
+
+	/**
+	 * Checks if every change was applied.
+	 *
+	 * @return true, if no upload nor delete failed
+	 */
+	public boolean isComplete() {
+		return filesFailed == 0;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "DirectorySyncSummary [filesUploaded=" + filesUploaded + ", filesUnchanged=" + filesUnchanged
+				+ ", filesFailed=" + filesFailed + ", objectsDeleted=" + objectsDeleted + ", bytesUploaded="
+				+ bytesUploaded + ", elapsedMillis=" + elapsedMillis + ", dryRun=" + dryRun + "]";
+	}
+}
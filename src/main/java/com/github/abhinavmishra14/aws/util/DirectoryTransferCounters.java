@@ -0,0 +1,186 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The Class DirectoryTransferCounters.<br/>
+ * Counters of one directory transfer, updated by the transfer threads: files
+ * transferred, skipped and failed, bytes transferred and a sample of the failed
+ * keys (at most {@link AWSUtilConstants#MAX_FAILED_KEYS_REPORTED}). Also paces
+ * the progress log of the thread driving the transfer.
+ *
+ * @author Abhinav kumar mishra
+ */
+public final class DirectoryTransferCounters {
+
+	/** The files transferred. */
+	private final AtomicLong filesTransferred = new AtomicLong();
+
+	/** The files skipped. */
+	private final AtomicLong filesSkipped = new AtomicLong();
+
+	/** The files failed. */
+	private final AtomicLong filesFailed = new AtomicLong();
+
+	/** The bytes transferred. */
+	private final AtomicLong bytesTransferred = new AtomicLong();
+
+	/** The failed keys sample. */
+	private final List<String> failedKeys = new ArrayList<String>();
+
+	/** The start time. */
+	private final long startTime = System.currentTimeMillis();
+
+	/** The last progress log time, only read and written by the driving thread. */
+	private long lastProgressLog = startTime;
+
+	/**
+	 * Record a transferred file.
+	 *
+	 * @param bytes the bytes of the file
+	 */
+	public void recordTransfer(final long bytes) {
+		filesTransferred.incrementAndGet();
+		bytesTransferred.addAndGet(bytes);
+	}
+
+	/**
+	 * Record a file skipped because it is up to date.
+	 */
+	public void recordSkip() {
+		filesSkipped.incrementAndGet();
+	}
+
+	/**
+	 * Record a failed key.
+	 *
+	 * @param key the key
+	 */
+	public void recordFailure(final String key) {
+		filesFailed.incrementAndGet();
+		synchronized (failedKeys) {
+			if (failedKeys.size() < AWSUtilConstants.MAX_FAILED_KEYS_REPORTED) {
+				failedKeys.add(key);
+			}
+		}
+	}
+
+	/**
+	 * Record failures whose keys are not known, e.g. past the sample of another summary.
+	 *
+	 * @param count the count
+	 */
+	public void recordFailures(final long count) {
+		filesFailed.addAndGet(count);
+	}
+
+	/**
+	 * Gets the files transferred.
+	 *
+	 * @return the files transferred
+	 */
+	public long getFilesTransferred() {
+		return filesTransferred.get();
+	}
+
+	/**
+	 * Gets the files skipped.
+	 *
+	 * @return the files skipped
+	 */
+	public long getFilesSkipped() {
+		return filesSkipped.get();
+	}
+
+	/**
+	 * Gets the files failed.
+	 *
+	 * @return the files failed
+	 */
+	public long getFilesFailed() {
+		return filesFailed.get();
+	}
+
+	/**
+	 * Gets the bytes transferred.
+	 *
+	 * @return the bytes transferred
+	 */
+	public long getBytesTransferred() {
+		return bytesTransferred.get();
+	}
+
+	/**
+	 * Gets the failed keys.
+	 *
+	 * @return a copy of the failed keys sample
+	 */
+	public List<String> getFailedKeys() {
+		synchronized (failedKeys) {
+			return new ArrayList<String>(failedKeys);
+		}
+	}
+
+	/**
+	 * Gets the elapsed millis.
+	 *
+	 * @return the millis since the transfer started
+	 */
+	public long getElapsedMillis() {
+		return System.currentTimeMillis() - startTime;
+	}
+
+	/**
+	 * Checks if the progress is to be logged, at most once per
+	 * {@link AWSUtilConstants#PROGRESS_LOG_INTERVAL_MILLIS} unless forced.
+	 *
+	 * @param force the force flag
+	 * @return true, if the progress is to be logged now
+	 */
+	public boolean isProgressDue(final boolean force) {
+		final long now = System.currentTimeMillis();
+		if (force || now - lastProgressLog >= AWSUtilConstants.PROGRESS_LOG_INTERVAL_MILLIS) {
+			lastProgressLog = now;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Snapshot of the counters.
+	 *
+	 * @return the directory transfer summary
+	 */
+	public DirectoryTransferSummary toSummary() {
+		return new DirectoryTransferSummary(filesTransferred.get(), filesSkipped.get(), filesFailed.get(),
+				bytesTransferred.get(), getElapsedMillis(), getFailedKeys());
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "DirectoryTransferCounters [filesTransferred=" + filesTransferred + ", filesSkipped=" + filesSkipped
+				+ ", filesFailed=" + filesFailed + ", bytesTransferred=" + bytesTransferred + "]";
+	}
+}
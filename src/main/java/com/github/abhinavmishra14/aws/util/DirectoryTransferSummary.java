@@ -0,0 +1,154 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The Class DirectoryTransferSummary.<br/>
+ * Outcome of a directory transfer: files transferred, skipped because already
+ * up to date and failed, bytes transferred, time taken and throughput.
+ *
+ * @author Abhinav kumar mishra
+ */
+public final class DirectoryTransferSummary {
+
+	/** The files transferred. */
+	private final long filesTransferred;
+
+	/** The files skipped. */
+	private final long filesSkipped;
+
+	/** The files failed. */
+	private final long filesFailed;
+
+	/** The bytes transferred. */
+	private final long bytesTransferred;
+
+	/** The elapsed millis. */
+	private final long elapsedMillis;
+
+	/** The failed keys sample. */
+	private final List<String> failedKeys;
+
+	/**
+	 * Instantiates a new directory transfer summary.
+	 *
+	 * @param filesTransferred the files transferred
+	 * @param filesSkipped the files skipped
+	 * @param filesFailed the files failed
+	 * @param bytesTransferred the bytes transferred
+	 * @param elapsedMillis the elapsed millis
+	 * @param failedKeys the failed keys sample
+	 */
+	public DirectoryTransferSummary(final long filesTransferred, final long filesSkipped, final long filesFailed,
+			final long bytesTransferred, final long elapsedMillis, final List<String> failedKeys) {
+		super();
+		this.filesTransferred = filesTransferred;
+		this.filesSkipped = filesSkipped;
+		this.filesFailed = filesFailed;
+		this.bytesTransferred = bytesTransferred;
+		this.elapsedMillis = elapsedMillis;
+		this.failedKeys = Collections.unmodifiableList(new ArrayList<String>(failedKeys));
+	}
+
+	/**
+	 * Gets the files transferred.
+	 *
+	 * @return the number of files transferred
+	 */
+	public long getFilesTransferred() {
+		return filesTransferred;
+	}
+
+	/**
+	 * Gets the files skipped.
+	 *
+	 * @return the number of files skipped because they were already up to date
+	 */
+	public long getFilesSkipped() {
+		return filesSkipped;
+	}
+
+	/**
+	 * Gets the files failed.
+	 *
+	 * @return the number of files which could not be transferred
+	 */
+	public long getFilesFailed() {
+		return filesFailed;
+	}
+
+	/**
+	 * Gets the bytes transferred.
+	 *
+	 * @return the bytes transferred
+	 */
+	public long getBytesTransferred() {
+		return bytesTransferred;
+	}
+
+	/**
+	 * Gets the elapsed millis.
+	 *
+	 * @return the elapsed time in milliseconds
+	 */
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+
+	/**
+	 * Gets the failed keys.<br/>
+	 * Only the first {@link AWSUtilConstants#MAX_FAILED_KEYS_REPORTED} failed keys are kept.
+	 *
+	 * @return the failed keys sample
+	 */
+	public List<String> getFailedKeys() {
+		return failedKeys;
+	}
+
+	/**
+	 * Gets the throughput.
+	 *
+	 * @return the bytes transferred per second
+	 */
+	public double getBytesPerSecond() {
+		return elapsedMillis == 0 ? bytesTransferred : bytesTransferred * 1000D / elapsedMillis;
+	}
+
+	/**
+	 * Checks if every file was transferred or skipped.
+	 *
+	 * @return true, if no file failed
+	 */
+	public boolean isComplete() {
+		return filesFailed == 0;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "DirectoryTransferSummary [filesTransferred=" + filesTransferred + ", filesSkipped=" + filesSkipped
+				+ ", filesFailed=" + filesFailed + ", bytesTransferred=" + bytesTransferred + ", elapsedMillis="
+				+ elapsedMillis + ", bytesPerSecond=" + (long) getBytesPerSecond() + "]";
+	}
+}
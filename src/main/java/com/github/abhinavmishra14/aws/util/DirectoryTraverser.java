@@ -27,7 +27,9 @@ import java.util.Set;
 
 /**
  * This class DirectoryTraverser.<br/>
- * It returns set of files by traversing directories recursively.
+ * It returns set of files by traversing directories recursively.<br/>
+ * The whole tree is collected before returning, {@link ParallelDirectoryWalker}
+ * streams the files of large trees to a consumer instead.
  *
  * @author Abhinav Kumar Mishra
  * @since 2015
@@ -40,7 +42,9 @@ public final class DirectoryTraverser {
 	 * @param startDir the start dir
 	 * @return the file uris
 	 * @throws FileNotFoundException the file not found exception
+	 * @deprecated the whole tree is held in memory, walk it with {@link ParallelDirectoryWalker}
 	 */
+	@Deprecated
 	public static Set<File> getFileUris(final File startDir) throws FileNotFoundException {
 		checkDirectories(startDir); // throw exception if not valid.
 		return getUrisRecursive(startDir);
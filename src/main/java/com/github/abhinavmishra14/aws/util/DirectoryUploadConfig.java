@@ -0,0 +1,227 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.util;
+
+import java.io.File;
+
+/**
+ * The Class DirectoryUploadConfig.<br/>
+ * Holds the settings of a staged directory upload: how the tree is walked, the
+ * number of threads preparing and uploading the objects, the capacity of the
+ * queues between the stages, the size above which files are uploaded as
+ * multiparts and where their uploads are journaled.
+ *
+ * @author Abhinav kumar mishra
+ */
+public class DirectoryUploadConfig {
+
+	/** The walk config. */
+	private DirectoryWalkConfig walkConfig = new DirectoryWalkConfig();
+
+	/** The build threads. */
+	private int buildThreads = AWSUtilConstants.DEFAULT_BUILD_THREAD_COUNT;
+
+	/** The upload threads. */
+	private int uploadThreads = AWSUtilConstants.DEFAULT_DIRECTORY_FILES_IN_FLIGHT;
+
+	/** The queue capacity. */
+	private int queueCapacity = AWSUtilConstants.DEFAULT_PIPELINE_QUEUE_CAPACITY;
+
+	/** The multipart upload threshold. */
+	private long multipartUploadThreshold = AWSUtilConstants.DEFAULT_MULTIPART_UPLOAD_THRESHOLD;
+
+	/** The minimum part size. */
+	private long minimumPartSize = AWSUtilConstants.DEFAULT_MINIMUM_UPLOAD_PART_SIZE;
+
+	/** The upload journal directory. */
+	private File uploadJournalDirectory = MultipartUploadJournal.defaultJournalDirectory();
+
+	/**
+	 * Gets the walk config.
+	 *
+	 * @return the walk config, globs, symlink policy and walk threads
+	 */
+	public DirectoryWalkConfig getWalkConfig() {
+		return walkConfig;
+	}
+
+	/**
+	 * Sets the walk config.
+	 *
+	 * @param walkConfig the walk config
+	 * @return the directory upload config
+	 */
+	public DirectoryUploadConfig setWalkConfig(final DirectoryWalkConfig walkConfig) {
+		AWSUtil.notNull(walkConfig, "DirectoryWalkConfig is null!");
+		this.walkConfig = walkConfig;
+		return this;
+	}
+
+	/**
+	 * Gets the build threads.
+	 *
+	 * @return the number of threads preparing the objects, reading the MD5 of the small files
+	 */
+	public int getBuildThreads() {
+		return buildThreads;
+	}
+
+	/**
+	 * Sets the build threads.
+	 *
+	 * @param buildThreads the number of threads preparing the objects
+	 * @return the directory upload config
+	 */
+	public DirectoryUploadConfig setBuildThreads(final int buildThreads) {
+		if (buildThreads < 1) {
+			throw new IllegalArgumentException("Build threads must be at least 1.");
+		}
+		this.buildThreads = buildThreads;
+		return this;
+	}
+
+	/**
+	 * Gets the upload threads.
+	 *
+	 * @return the number of files uploaded at the same time
+	 */
+	public int getUploadThreads() {
+		return uploadThreads;
+	}
+
+	/**
+	 * Sets the upload threads.
+	 *
+	 * @param uploadThreads the number of files uploaded at the same time
+	 * @return the directory upload config
+	 */
+	public DirectoryUploadConfig setUploadThreads(final int uploadThreads) {
+		if (uploadThreads < 1) {
+			throw new IllegalArgumentException("Upload threads must be at least 1.");
+		}
+		this.uploadThreads = uploadThreads;
+		return this;
+	}
+
+	/**
+	 * Gets the queue capacity.
+	 *
+	 * @return the number of files waiting between two stages
+	 */
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+
+	/**
+	 * Sets the queue capacity.<br/>
+	 * A full queue holds back the stage before it, so a fast walk does not pile
+	 * up objects waiting for upload.
+	 *
+	 * @param queueCapacity the number of files waiting between two stages
+	 * @return the directory upload config
+	 */
+	public DirectoryUploadConfig setQueueCapacity(final int queueCapacity) {
+		if (queueCapacity < 1) {
+			throw new IllegalArgumentException("Queue capacity must be at least 1.");
+		}
+		this.queueCapacity = queueCapacity;
+		return this;
+	}
+
+	/**
+	 * Gets the multipart upload threshold.
+	 *
+	 * @return the size above which files are uploaded as multiparts
+	 */
+	public long getMultipartUploadThreshold() {
+		return multipartUploadThreshold;
+	}
+
+	/**
+	 * Sets the multipart upload threshold.
+	 *
+	 * @param multipartUploadThreshold the size above which files are uploaded as multiparts
+	 * @return the directory upload config
+	 */
+	public DirectoryUploadConfig setMultipartUploadThreshold(final long multipartUploadThreshold) {
+		if (multipartUploadThreshold < AWSUtilConstants.DEFAULT_MINIMUM_UPLOAD_PART_SIZE) {
+			throw new IllegalArgumentException("Multipart upload threshold must be at least 5 MB.");
+		}
+		this.multipartUploadThreshold = multipartUploadThreshold;
+		return this;
+	}
+
+	/**
+	 * Gets the minimum part size.
+	 *
+	 * @return the minimum part size of the multipart uploads
+	 */
+	public long getMinimumPartSize() {
+		return minimumPartSize;
+	}
+
+	/**
+	 * Sets the minimum part size.<br/>
+	 * The part size of a file is raised when it would need more than
+	 * {@link AWSUtilConstants#MAX_MULTIPART_PARTS} parts.
+	 *
+	 * @param minimumPartSize the minimum part size of the multipart uploads
+	 * @return the directory upload config
+	 */
+	public DirectoryUploadConfig setMinimumPartSize(final long minimumPartSize) {
+		if (minimumPartSize < AWSUtilConstants.DEFAULT_MINIMUM_UPLOAD_PART_SIZE) {
+			throw new IllegalArgumentException("Part size must be at least 5 MB.");
+		}
+		this.minimumPartSize = minimumPartSize;
+		return this;
+	}
+
+	/**
+	 * Gets the upload journal directory.
+	 *
+	 * @return the directory of the journals of the multipart uploads
+	 */
+	public File getUploadJournalDirectory() {
+		return uploadJournalDirectory;
+	}
+
+	/**
+	 * Sets the upload journal directory.<br/>
+	 * Multipart uploads record their progress there, it must survive a restart
+	 * of the JVM for the uploads to resume.
+	 *
+	 * @param uploadJournalDirectory the upload journal directory, under java.io.tmpdir by default
+	 * @return the directory upload config
+	 */
+	public DirectoryUploadConfig setUploadJournalDirectory(final File uploadJournalDirectory) {
+		AWSUtil.notNull(uploadJournalDirectory, "Upload journal directory is null!");
+		this.uploadJournalDirectory = uploadJournalDirectory;
+		return this;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "DirectoryUploadConfig [walkConfig=" + walkConfig + ", buildThreads=" + buildThreads
+				+ ", uploadThreads=" + uploadThreads + ", queueCapacity=" + queueCapacity
+				+ ", multipartUploadThreshold=" + multipartUploadThreshold + ", minimumPartSize=" + minimumPartSize
+				+ ", uploadJournalDirectory=" + uploadJournalDirectory + "]";
+	}
+}
@@ -0,0 +1,164 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.util;
+
+import java.nio.file.FileSystems;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The Class DirectoryWalkConfig.<br/>
+ * Holds the settings of a {@link ParallelDirectoryWalker}: the include and
+ * exclude globs, the symbolic link policy and the number of threads walking the
+ * tree.<br/>
+ * Globs use the syntax of {@link java.nio.file.FileSystem#getPathMatcher(String)}
+ * and are matched against the path relative to the walked directory, so
+ * <code>*.log</code> only matches at the top level and <code>**&#47;*.log</code>
+ * only below it. A directory matching an exclude glob is not walked at all.
+ *
+ * @author Abhinav kumar mishra
+ */
+public class DirectoryWalkConfig {
+
+	/** The include globs, empty to include every file. */
+	private List<String> includes = Collections.emptyList();
+
+	/** The exclude globs. */
+	private List<String> excludes = Collections.emptyList();
+
+	/** The symlink policy. */
+	private SymlinkPolicy symlinkPolicy = SymlinkPolicy.SKIP;
+
+	/** The parallelism. */
+	private int parallelism = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * Gets the includes.
+	 *
+	 * @return the include globs, empty when every file is included
+	 */
+	public List<String> getIncludes() {
+		return includes;
+	}
+
+	/**
+	 * Sets the includes.<br/>
+	 * A file is returned when it matches one of the globs.
+	 *
+	 * @param includes the include globs, none to include every file
+	 * @return the directory walk config
+	 */
+	public DirectoryWalkConfig setIncludes(final String... includes) {
+		this.includes = toGlobs(includes);
+		return this;
+	}
+
+	/**
+	 * Gets the excludes.
+	 *
+	 * @return the exclude globs
+	 */
+	public List<String> getExcludes() {
+		return excludes;
+	}
+
+	/**
+	 * Sets the excludes.<br/>
+	 * Files and directories matching one of the globs are skipped, excludes win
+	 * over includes.
+	 *
+	 * @param excludes the exclude globs
+	 * @return the directory walk config
+	 */
+	public DirectoryWalkConfig setExcludes(final String... excludes) {
+		this.excludes = toGlobs(excludes);
+		return this;
+	}
+
+	/**
+	 * Gets the symlink policy.
+	 *
+	 * @return the symlink policy
+	 */
+	public SymlinkPolicy getSymlinkPolicy() {
+		return symlinkPolicy;
+	}
+
+	/**
+	 * Sets the symlink policy.
+	 *
+	 * @param symlinkPolicy the symlink policy, links are skipped by default
+	 * @return the directory walk config
+	 */
+	public DirectoryWalkConfig setSymlinkPolicy(final SymlinkPolicy symlinkPolicy) {
+		AWSUtil.notNull(symlinkPolicy, "SymlinkPolicy is null!");
+		this.symlinkPolicy = symlinkPolicy;
+		return this;
+	}
+
+	/**
+	 * Gets the parallelism.
+	 *
+	 * @return the number of threads walking the tree
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Sets the parallelism.
+	 *
+	 * @param parallelism the number of threads walking the tree, the number of processors by default
+	 * @return the directory walk config
+	 */
+	public DirectoryWalkConfig setParallelism(final int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("Parallelism must be at least 1.");
+		}
+		this.parallelism = parallelism;
+		return this;
+	}
+
+	/**
+	 * Check the globs compile.
+	 *
+	 * @param globs the globs
+	 * @return the globs
+	 */
+	private static List<String> toGlobs(final String... globs) {
+		AWSUtil.notNull(globs, "Globs are null!");
+		final List<String> globList = new ArrayList<String>(Arrays.asList(globs));
+		for (final String glob : globList) {
+			AWSUtil.notNull(glob, "Glob is null!");
+			// Throws a PatternSyntaxException, an IllegalArgumentException, when invalid
+			FileSystems.getDefault().getPathMatcher("glob:" + glob);
+		}
+		return Collections.unmodifiableList(globList);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "DirectoryWalkConfig [includes=" + includes + ", excludes=" + excludes + ", symlinkPolicy="
+				+ symlinkPolicy + ", parallelism=" + parallelism + "]";
+	}
+}
@@ -0,0 +1,62 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The Class LoggingProgressListener.<br/>
+ * Logs the progress, the completion and the failure of a transfer.
+ *
+ * @author Abhinav kumar mishra
+ */
+public class LoggingProgressListener implements TransferProgressListener {
+
+	/** The Constant LOGGER. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(LoggingProgressListener.class);
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.util.TransferProgressListener#onProgress(com.github.abhinavmishra14.aws.util.ProgressSnapshot)
+	 */
+	@Override
+	public void onProgress(final ProgressSnapshot progress) {
+		LOGGER.info("Progress: {} , Transferred bytes: {} of {} , Progress (%): {} , Bytes/s: {} , ETA (ms): {}",
+				progress.getDescription(), progress.getBytesTransferred(), progress.getTotalBytes(),
+				progress.getPercentTransferred(), progress.getBytesPerSecond(), progress.getEtaMillis());
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.util.TransferProgressListener#onCompleted(com.github.abhinavmishra14.aws.util.ProgressSnapshot)
+	 */
+	@Override
+	public void onCompleted(final ProgressSnapshot progress) {
+		LOGGER.info("Completed: {} , Transferred bytes: {} , Parts: {} in {} ms , Bytes/s: {}",
+				progress.getDescription(), progress.getBytesTransferred(), progress.getPartsCompleted(),
+				progress.getElapsedMillis(), progress.getBytesPerSecond());
+	}
+
+	/* (non-Javadoc)
+	 * @see com.github.abhinavmishra14.aws.util.TransferProgressListener#onFailed(com.github.abhinavmishra14.aws.util.ProgressSnapshot, java.lang.Exception)
+	 */
+	@Override
+	public void onFailed(final ProgressSnapshot progress, final Exception excp) {
+		LOGGER.error("Failed: {} , Transferred bytes: {} in {} ms", progress.getDescription(),
+				progress.getBytesTransferred(), progress.getElapsedMillis(), excp);
+	}
+}
@@ -0,0 +1,82 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.util;
+
+import java.io.File;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * The Interface MultipartUploadAction.<br/>
+ * The multipart upload requests of one object, it is implemented for each SDK
+ * and driven by {@link ResumableUploader}. Part uploads are called
+ * concurrently.
+ *
+ * @author Abhinav kumar mishra
+ */
+public interface MultipartUploadAction {
+
+	/**
+	 * Initiate a new multipart upload.
+	 *
+	 * @return the upload id
+	 * @throws Exception the exception
+	 */
+	String initiate() throws Exception;
+
+	/**
+	 * List the parts already uploaded, following all the pages.
+	 *
+	 * @param uploadId the upload id
+	 * @return the parts by part number, null if the upload does not exist anymore
+	 * @throws Exception the exception
+	 */
+	Map<Integer, UploadedPart> listParts(final String uploadId) throws Exception;
+
+	/**
+	 * Upload one part read from the file.
+	 *
+	 * @param uploadId the upload id
+	 * @param partNumber the part number, starting at 1
+	 * @param file the file
+	 * @param offset the offset of the part in the file
+	 * @param length the length of the part
+	 * @return the e tag of the part
+	 * @throws Exception the exception
+	 */
+	String uploadPart(final String uploadId, final int partNumber, final File file, final long offset,
+			final long length) throws Exception;
+
+	/**
+	 * Complete the upload.
+	 *
+	 * @param uploadId the upload id
+	 * @param partETags the e tags by part number
+	 * @return the e tag of the object
+	 * @throws Exception the exception
+	 */
+	String complete(final String uploadId, final SortedMap<Integer, String> partETags) throws Exception;
+
+	/**
+	 * Abort the upload so that its parts are not billed anymore.
+	 *
+	 * @param uploadId the upload id
+	 * @throws Exception the exception
+	 */
+	void abort(final String uploadId) throws Exception;
+}
@@ -0,0 +1,304 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * The Class MultipartUploadJournal.<br/>
+ * Local record of a multipart upload in progress: upload id and e tag of every
+ * part uploaded, so that an upload interrupted by a failure or a JVM exit
+ * resumes with the missing parts only. The journal is bound to the bucket, key,
+ * part size and to the length and modification time of the source file, a
+ * journal recorded for another version of the file is stale.<br/>
+ * Stored as a properties file. The upload is written atomically when it starts,
+ * then every uploaded part appends one line, which is replayed when the journal
+ * is loaded. A last line cut short by a crash is ignored, its part is uploaded
+ * again.<br/>
+ * A journal without file keeps the upload in memory only, for uploads which
+ * are not resumed.
+ *
+ * @author Abhinav kumar mishra
+ */
+public final class MultipartUploadJournal {
+
+	/** The Constant JOURNAL_FILE_SUFFIX. */
+	public static final String JOURNAL_FILE_SUFFIX = ".upload.journal";
+
+	/** The Constant PROP_BUCKET. */
+	private static final String PROP_BUCKET = "bucket";
+
+	/** The Constant PROP_KEY. */
+	private static final String PROP_KEY = "key";
+
+	/** The Constant PROP_SOURCE_LENGTH. */
+	private static final String PROP_SOURCE_LENGTH = "sourceLength";
+
+	/** The Constant PROP_SOURCE_LAST_MODIFIED. */
+	private static final String PROP_SOURCE_LAST_MODIFIED = "sourceLastModified";
+
+	/** The Constant PROP_PART_SIZE. */
+	private static final String PROP_PART_SIZE = "partSize";
+
+	/** The Constant PROP_UPLOAD_ID. */
+	private static final String PROP_UPLOAD_ID = "uploadId";
+
+	/** The Constant PROP_PART_PREFIX. */
+	private static final String PROP_PART_PREFIX = "part.";
+
+	/** The journal file, null when the upload is not recorded. */
+	private final File journalFile;
+
+	/** The properties. */
+	private final Properties properties;
+
+	/** The part e tags. */
+	private final Map<Integer, String> partETags;
+
+	/** The upload id of a stale journal, to be aborted. */
+	private final String staleUploadId;
+
+	/**
+	 * Instantiates a new multipart upload journal.
+	 *
+	 * @param journalFile the journal file
+	 * @param properties the properties
+	 * @param partETags the part e tags
+	 * @param staleUploadId the stale upload id
+	 */
+	private MultipartUploadJournal(final File journalFile, final Properties properties,
+			final Map<Integer, String> partETags, final String staleUploadId) {
+		this.journalFile = journalFile;
+		this.properties = properties;
+		this.partETags = partETags;
+		this.staleUploadId = staleUploadId;
+	}
+
+	/**
+	 * Gets the default journal directory.
+	 *
+	 * @return the {@link AWSUtilConstants#UPLOAD_JOURNAL_DIR_NAME} directory under java.io.tmpdir
+	 */
+	public static File defaultJournalDirectory() {
+		return new File(System.getProperty("java.io.tmpdir"), AWSUtilConstants.UPLOAD_JOURNAL_DIR_NAME);
+	}
+
+	/**
+	 * Gets the journal file of an upload.<br/>
+	 * The name is derived from the bucket, the key and the source path, so
+	 * the same upload started again finds its journal.
+	 *
+	 * @param journalDir the journal directory
+	 * @param bucketName the bucket name
+	 * @param key the key
+	 * @param source the source file
+	 * @return the journal file
+	 */
+	public static File journalFileFor(final File journalDir, final String bucketName, final String key,
+			final File source) {
+		final String identity = bucketName + '\n' + key + '\n' + source.getAbsolutePath();
+		return new File(journalDir, UUID.nameUUIDFromBytes(identity.getBytes(StandardCharsets.UTF_8))
+				+ JOURNAL_FILE_SUFFIX);
+	}
+
+	/**
+	 * Load the journal if it was recorded for the same upload, otherwise start a new one.
+	 *
+	 * @param journalFile the journal file, null to keep the upload in memory only
+	 * @param bucketName the bucket name
+	 * @param key the key
+	 * @param source the source file
+	 * @param partSize the part size
+	 * @return the multipart upload journal
+	 */
+	public static MultipartUploadJournal loadOrCreate(final File journalFile, final String bucketName,
+			final String key, final File source, final long partSize) {
+		final Properties expected = new Properties();
+		expected.setProperty(PROP_BUCKET, bucketName);
+		expected.setProperty(PROP_KEY, key);
+		expected.setProperty(PROP_SOURCE_LENGTH, String.valueOf(source.length()));
+		expected.setProperty(PROP_SOURCE_LAST_MODIFIED, String.valueOf(source.lastModified()));
+		expected.setProperty(PROP_PART_SIZE, String.valueOf(partSize));
+		final Map<Integer, String> partETags = new TreeMap<Integer, String>();
+		String staleUploadId = null;
+		if (journalFile != null && journalFile.isFile()) {
+			final Properties stored = new Properties();
+			try {
+				stored.load(new StringReader(readCompleteLines(journalFile)));
+			} catch (IOException ioex) {
+				// Unreadable journal, upload again
+				stored.clear();
+			}
+			final Properties binding = new Properties();
+			String uploadId = null;
+			final Map<Integer, String> storedETags = new TreeMap<Integer, String>();
+			try {
+				for (final String name : stored.stringPropertyNames()) {
+					if (name.startsWith(PROP_PART_PREFIX)) {
+						storedETags.put(Integer.valueOf(name.substring(PROP_PART_PREFIX.length())),
+								stored.getProperty(name));
+					} else if (PROP_UPLOAD_ID.equals(name)) {
+						uploadId = stored.getProperty(name);
+					} else {
+						binding.setProperty(name, stored.getProperty(name));
+					}
+				}
+			} catch (NumberFormatException nfex) {
+				binding.clear();
+			}
+			if (uploadId != null && binding.equals(expected)) {
+				expected.setProperty(PROP_UPLOAD_ID, uploadId);
+				partETags.putAll(storedETags);
+			} else {
+				staleUploadId = uploadId;
+			}
+		}
+		return new MultipartUploadJournal(journalFile, expected, partETags, staleUploadId);
+	}
+
+	/**
+	 * Read the complete lines of the journal, a line not ended by a crash is
+	 * dropped.
+	 *
+	 * @param journalFile the journal file
+	 * @return the complete lines
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static String readCompleteLines(final File journalFile) throws IOException {
+		final String content = new String(Files.readAllBytes(journalFile.toPath()), StandardCharsets.ISO_8859_1);
+		return content.substring(0, content.lastIndexOf('\n') + 1);
+	}
+
+	/**
+	 * Checks if the upload is recorded in a file.
+	 *
+	 * @return true, if the upload can be resumed from the journal file
+	 */
+	public boolean isRecorded() {
+		return journalFile != null;
+	}
+
+	/**
+	 * Gets the upload id.
+	 *
+	 * @return the upload id, null if the upload is not started yet
+	 */
+	public synchronized String getUploadId() {
+		return properties.getProperty(PROP_UPLOAD_ID);
+	}
+
+	/**
+	 * Gets the stale upload id.
+	 *
+	 * @return the upload id of a journal recorded for another version of the source, null if none
+	 */
+	public String getStaleUploadId() {
+		return staleUploadId;
+	}
+
+	/**
+	 * Gets the e tag recorded for a part.
+	 *
+	 * @param partNumber the part number
+	 * @return the e tag, null if the part is not recorded
+	 */
+	public synchronized String getPartETag(final int partNumber) {
+		return partETags.get(partNumber);
+	}
+
+	/**
+	 * Record the start of the upload and write the journal.
+	 *
+	 * @param uploadId the upload id
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public synchronized void start(final String uploadId) throws IOException {
+		partETags.clear();
+		properties.setProperty(PROP_UPLOAD_ID, uploadId);
+		write();
+	}
+
+	/**
+	 * Record an uploaded part, one line is appended to the journal.
+	 *
+	 * @param partNumber the part number
+	 * @param eTag the e tag
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public synchronized void partCompleted(final int partNumber, final String eTag) throws IOException {
+		partETags.put(partNumber, eTag);
+		if (journalFile == null) {
+			return;
+		}
+		final String line = PROP_PART_PREFIX + partNumber + '=' + eTag + '\n';
+		try (OutputStream outStream = new FileOutputStream(journalFile, true)) {
+			outStream.write(line.getBytes(StandardCharsets.ISO_8859_1));
+		}
+	}
+
+	/**
+	 * Forget the upload and delete the journal file.
+	 */
+	public synchronized void reset() {
+		partETags.clear();
+		properties.remove(PROP_UPLOAD_ID);
+		delete();
+	}
+
+	/**
+	 * Delete the journal file.
+	 */
+	public void delete() {
+		if (journalFile != null && journalFile.exists() && !journalFile.delete()) {
+			journalFile.deleteOnExit();
+		}
+	}
+
+	/**
+	 * Write the upload to a temporary file moved over the journal, so that a
+	 * crash while writing never leaves a truncated journal.
+	 *
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private void write() throws IOException {
+		if (journalFile == null) {
+			return;
+		}
+		final File journalDir = journalFile.getAbsoluteFile().getParentFile();
+		if (!journalDir.mkdirs() && !journalDir.isDirectory()) {
+			throw new IOException("Could not create journal directory " + journalDir);
+		}
+		final File tempFile = new File(journalDir, journalFile.getName() + ".tmp");
+		try (OutputStream outStream = new FileOutputStream(tempFile)) {
+			properties.store(outStream, "Multipart upload journal");
+		}
+		Files.move(tempFile.toPath(), journalFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+}
@@ -0,0 +1,300 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.util;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The Class ParallelDirectoryWalker.<br/>
+ * Walks a directory tree with a fork join pool, every directory being listed by
+ * its own task, and hands each regular file with its attributes to a consumer as
+ * soon as it is found. Nothing is collected, so the consumer can start uploads
+ * while the walk goes on and the tree never has to fit in memory.<br/>
+ * The consumer is called concurrently from the walking threads, in no particular
+ * order. Directories which cannot be listed are logged and skipped.
+ *
+ * @author Abhinav kumar mishra
+ */
+public final class ParallelDirectoryWalker {
+
+	/** The Constant LOGGER. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(ParallelDirectoryWalker.class);
+
+	/** The Constant NO_LINK_OPTIONS. Follows links. */
+	private static final LinkOption[] NO_LINK_OPTIONS = new LinkOption[0];
+
+	/** The config. */
+	private final DirectoryWalkConfig config;
+
+	/**
+	 * Instantiates a new parallel directory walker.
+	 *
+	 * @param config the config
+	 */
+	public ParallelDirectoryWalker(final DirectoryWalkConfig config) {
+		super();
+		AWSUtil.notNull(config, "DirectoryWalkConfig is null!");
+		this.config = config;
+	}
+
+	/**
+	 * Walk the directory and pass every selected file to the consumer.<br/>
+	 * Returns once the whole tree was walked. A runtime exception thrown by the
+	 * consumer ends the walk and is rethrown.
+	 *
+	 * @param startDir the directory to walk
+	 * @param consumer the consumer of the files and their attributes, called from several threads
+	 * @return the number of files passed to the consumer
+	 * @throws IOException Signals that an I/O exception has occurred, if the directory cannot be read
+	 */
+	public long walk(final Path startDir, final BiConsumer<Path, BasicFileAttributes> consumer) throws IOException {
+		AWSUtil.notNull(startDir, "Directory should not be null.");
+		AWSUtil.notNull(consumer, "Consumer is null!");
+		if (!Files.exists(startDir)) {
+			throw new FileNotFoundException("Directory does not exist: " + startDir);
+		}
+		final BasicFileAttributes rootAttributes = Files.readAttributes(startDir, BasicFileAttributes.class);
+		if (!rootAttributes.isDirectory()) {
+			throw new IllegalArgumentException("Is not a directory: " + startDir);
+		}
+		final Walk walk = new Walk(startDir, consumer);
+		final ForkJoinPool pool = new ForkJoinPool(config.getParallelism(), (forkJoinPool) -> {
+			final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory
+					.newThread(forkJoinPool);
+			thread.setName(AWSUtilConstants.DIRECTORY_WALK_THREAD_NAME_PREFIX + thread.getPoolIndex());
+			thread.setDaemon(true);
+			return thread;
+		}, null, false);
+		try {
+			pool.invoke(walk.new DirectoryTask(startDir,
+					new Ancestor(AWSUtil.fileKeyOf(startDir, rootAttributes), null)));
+		} finally {
+			pool.shutdown();
+		}
+		return walk.filesVisited.get();
+	}
+
+	/**
+	 * The Class Ancestor.<br/>
+	 * A directory on the path from the start directory, innermost first.
+	 */
+	private static final class Ancestor {
+
+		/** The file key. */
+		private final Object fileKey;
+
+		/** The parent. */
+		private final Ancestor parent;
+
+		/**
+		 * Instantiates a new ancestor.
+		 *
+		 * @param fileKey the file key
+		 * @param parent the parent
+		 */
+		Ancestor(final Object fileKey, final Ancestor parent) {
+			this.fileKey = fileKey;
+			this.parent = parent;
+		}
+
+		/**
+		 * Checks if the directory is on this path.
+		 *
+		 * @param dirKey the file key of the directory
+		 * @return true, if a link to it would be a cycle
+		 */
+		public boolean contains(final Object dirKey) {
+			for (Ancestor ancestor = this; ancestor != null; ancestor = ancestor.parent) {
+				if (ancestor.fileKey.equals(dirKey)) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * The Class Walk.<br/>
+	 * State of one walk.
+	 */
+	private final class Walk {
+
+		/** The start dir. */
+		private final Path startDir;
+
+		/** The consumer. */
+		private final BiConsumer<Path, BasicFileAttributes> consumer;
+
+		/** The include matchers. */
+		private final List<PathMatcher> includes;
+
+		/** The exclude matchers. */
+		private final List<PathMatcher> excludes;
+
+		/** The files visited. */
+		private final AtomicLong filesVisited = new AtomicLong();
+
+		/**
+		 * Instantiates a new walk.
+		 *
+		 * @param startDir the start dir
+		 * @param consumer the consumer
+		 */
+		Walk(final Path startDir, final BiConsumer<Path, BasicFileAttributes> consumer) {
+			this.startDir = startDir;
+			this.consumer = consumer;
+			this.includes = toMatchers(startDir.getFileSystem(), config.getIncludes());
+			this.excludes = toMatchers(startDir.getFileSystem(), config.getExcludes());
+		}
+
+		/**
+		 * Compile the globs.
+		 *
+		 * @param fileSystem the file system
+		 * @param globs the globs
+		 * @return the path matchers
+		 */
+		private List<PathMatcher> toMatchers(final FileSystem fileSystem, final List<String> globs) {
+			final List<PathMatcher> matchers = new ArrayList<PathMatcher>(globs.size());
+			for (final String glob : globs) {
+				matchers.add(fileSystem.getPathMatcher("glob:" + glob));
+			}
+			return matchers;
+		}
+
+		/**
+		 * Checks if the relative path matches one of the matchers.
+		 *
+		 * @param matchers the matchers
+		 * @param relativePath the relative path
+		 * @return true, if it matches
+		 */
+		private boolean matches(final List<PathMatcher> matchers, final Path relativePath) {
+			for (final PathMatcher matcher : matchers) {
+				if (matcher.matches(relativePath)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		/**
+		 * Visit one entry of a directory.
+		 *
+		 * @param entry the entry
+		 * @param ancestors the directories from the parent of the entry up to the start directory
+		 * @param subTasks the tasks of the sub directories, added to
+		 * @throws IOException Signals that an I/O exception has occurred.
+		 */
+		private void visit(final Path entry, final Ancestor ancestors, final List<DirectoryTask> subTasks)
+				throws IOException {
+			final Path relativePath = startDir.relativize(entry);
+			if (matches(excludes, relativePath)) {
+				return;
+			}
+			BasicFileAttributes attributes = Files.readAttributes(entry, BasicFileAttributes.class,
+					LinkOption.NOFOLLOW_LINKS);
+			if (attributes.isSymbolicLink()) {
+				if (config.getSymlinkPolicy() == SymlinkPolicy.SKIP) {
+					return;
+				}
+				attributes = Files.readAttributes(entry, BasicFileAttributes.class, NO_LINK_OPTIONS);
+				if (attributes.isDirectory() && config.getSymlinkPolicy() != SymlinkPolicy.FOLLOW) {
+					return;
+				}
+			}
+			if (attributes.isDirectory()) {
+				final Object dirKey = AWSUtil.fileKeyOf(entry, attributes);
+				if (ancestors.contains(dirKey)) {
+					LOGGER.warn("Skipping {}, it links to one of its parent directories", entry);
+					return;
+				}
+				subTasks.add(new DirectoryTask(entry, new Ancestor(dirKey, ancestors)));
+			} else if (attributes.isRegularFile() && (includes.isEmpty() || matches(includes, relativePath))) {
+				consumer.accept(entry, attributes);
+				filesVisited.incrementAndGet();
+			}
+		}
+
+		/**
+		 * The Class DirectoryTask.<br/>
+		 * Lists one directory and forks a task per sub directory.
+		 */
+		private final class DirectoryTask extends RecursiveAction {
+
+			/** The Constant serialVersionUID. */
+			private static final long serialVersionUID = 1L;
+
+			/** The dir. */
+			private final transient Path dir;
+
+			/** The directories from this one up to the start directory. */
+			private final transient Ancestor ancestors;
+
+			/**
+			 * Instantiates a new directory task.
+			 *
+			 * @param dir the dir
+			 * @param ancestors the ancestors, starting with the directory itself
+			 */
+			DirectoryTask(final Path dir, final Ancestor ancestors) {
+				super();
+				this.dir = dir;
+				this.ancestors = ancestors;
+			}
+
+			/* (non-Javadoc)
+			 * @see java.util.concurrent.RecursiveAction#compute()
+			 */
+			@Override
+			protected void compute() {
+				final List<DirectoryTask> subTasks = new ArrayList<DirectoryTask>();
+				try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+					for (final Path entry : entries) {
+						try {
+							visit(entry, ancestors, subTasks);
+						} catch (IOException ioex) {
+							LOGGER.warn("Skipping {}: {}", entry, ioex.getMessage());
+						}
+					}
+				} catch (IOException ioex) {
+					LOGGER.warn("Skipping directory {}, it cannot be listed: {}", dir, ioex.getMessage());
+				}
+				invokeAll(subTasks);
+			}
+		}
+	}
+}
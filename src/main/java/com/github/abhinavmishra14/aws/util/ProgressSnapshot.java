@@ -0,0 +1,152 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.util;
+
+/**
+ * The Class ProgressSnapshot.<br/>
+ * Point in time view of a transfer handed to a {@link TransferProgressListener}:
+ * bytes and parts transferred so far, time taken, throughput and estimated time
+ * left.
+ *
+ * @author Abhinav kumar mishra
+ */
+public final class ProgressSnapshot {
+
+	/** The description. */
+	private final String description;
+
+	/** The bytes transferred. */
+	private final long bytesTransferred;
+
+	/** The total bytes, -1 when unknown. */
+	private final long totalBytes;
+
+	/** The parts completed. */
+	private final int partsCompleted;
+
+	/** The elapsed millis. */
+	private final long elapsedMillis;
+
+	/**
+	 * Instantiates a new progress snapshot.
+	 *
+	 * @param description the description of the transfer
+	 * @param bytesTransferred the bytes transferred
+	 * @param totalBytes the total bytes, -1 when unknown
+	 * @param partsCompleted the parts completed
+	 * @param elapsedMillis the elapsed millis
+	 */
+	public ProgressSnapshot(final String description, final long bytesTransferred, final long totalBytes,
+			final int partsCompleted, final long elapsedMillis) {
+		super();
+		this.description = description;
+		this.bytesTransferred = bytesTransferred;
+		this.totalBytes = totalBytes;
+		this.partsCompleted = partsCompleted;
+		this.elapsedMillis = elapsedMillis;
+	}
+
+	/**
+	 * Gets the description.
+	 *
+	 * @return the description of the transfer
+	 */
+	public String getDescription() {
+		return description;
+	}
+
+	/**
+	 * Gets the bytes transferred.
+	 *
+	 * @return the bytes transferred
+	 */
+	public long getBytesTransferred() {
+		return bytesTransferred;
+	}
+
+	/**
+	 * Gets the total bytes.
+	 *
+	 * @return the total bytes, -1 when unknown (stream uploads)
+	 */
+	public long getTotalBytes() {
+		return totalBytes;
+	}
+
+	/**
+	 * Gets the parts completed.
+	 *
+	 * @return the multipart parts completed
+	 */
+	public int getPartsCompleted() {
+		return partsCompleted;
+	}
+
+	/**
+	 * Gets the elapsed millis.
+	 *
+	 * @return the time taken so far in milliseconds
+	 */
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+
+	/**
+	 * Gets the percent transferred.
+	 *
+	 * @return the percent transferred, -1 when the total is unknown
+	 */
+	public double getPercentTransferred() {
+		if (totalBytes <= 0) {
+			return totalBytes == 0 ? 100 : -1;
+		}
+		return Math.min(100, bytesTransferred * 100.0 / totalBytes);
+	}
+
+	/**
+	 * Gets the bytes per second.
+	 *
+	 * @return the average throughput in bytes per second
+	 */
+	public long getBytesPerSecond() {
+		return elapsedMillis > 0 ? bytesTransferred * 1000 / elapsedMillis : 0;
+	}
+
+	/**
+	 * Gets the estimated time left.
+	 *
+	 * @return the estimated millis left at the average throughput, -1 when unknown
+	 */
+	public long getEtaMillis() {
+		final long bytesPerSecond = getBytesPerSecond();
+		if (totalBytes < 0 || bytesPerSecond == 0) {
+			return -1;
+		}
+		return Math.max(0, totalBytes - bytesTransferred) * 1000 / bytesPerSecond;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "ProgressSnapshot [description=" + description + ", bytesTransferred=" + bytesTransferred
+				+ ", totalBytes=" + totalBytes + ", partsCompleted=" + partsCompleted + ", elapsedMillis="
+				+ elapsedMillis + ", bytesPerSecond=" + getBytesPerSecond() + ", etaMillis=" + getEtaMillis() + "]";
+	}
+}
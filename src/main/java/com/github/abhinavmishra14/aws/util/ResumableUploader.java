@@ -0,0 +1,323 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.util;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The Class ResumableUploader.<br/>
+ * Uploads a file as a multipart upload which survives failures and JVM exits.
+ * Upload id and part e tags are recorded in a {@link MultipartUploadJournal};
+ * when the same file is uploaded again the parts are listed from Amazon S3 and
+ * only the missing ones are sent. A failed upload is left in place, not
+ * aborted, so that it can be resumed, orphans are cleaned up by aborting the
+ * multipart uploads older than a threshold. Without journal file the parts are
+ * uploaded the same way, a failed upload is then aborted.<br/>
+ * Parts are read straight from the file and uploaded on the executor, at most
+ * partsInFlight at a time per upload. Tasks never wait on other tasks, so the
+ * executor can be shared with the other transfers.
+ *
+ * @author Abhinav kumar mishra
+ */
+public class ResumableUploader {
+
+	/** The Constant LOGGER. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(ResumableUploader.class);
+
+	/** The executor. */
+	private final ExecutorService executor;
+
+	/** The parts in flight. */
+	private final int partsInFlight;
+
+	/**
+	 * Instantiates a new resumable uploader.
+	 *
+	 * @param executor the executor used to upload the parts
+	 * @param partsInFlight the maximum number of parts uploaded at a time per upload
+	 */
+	public ResumableUploader(final ExecutorService executor, final int partsInFlight) {
+		super();
+		if (partsInFlight < 1) {
+			throw new IllegalArgumentException("Parts in flight must be greater than zero.");
+		}
+		this.executor = executor;
+		this.partsInFlight = partsInFlight;
+	}
+
+	/**
+	 * Gets the part size of a file, the minimum part size raised so that the
+	 * file fits in {@link AWSUtilConstants#MAX_MULTIPART_PARTS} parts.
+	 *
+	 * @param fileLength the file length
+	 * @param minimumPartSize the minimum part size
+	 * @return the part size
+	 */
+	public static long partSizeFor(final long fileLength, final long minimumPartSize) {
+		final long partsLimitSize = (fileLength + AWSUtilConstants.MAX_MULTIPART_PARTS - 1)
+				/ AWSUtilConstants.MAX_MULTIPART_PARTS;
+		return Math.max(minimumPartSize, partsLimitSize);
+	}
+
+	/**
+	 * Upload the file, resuming the upload recorded in the journal if any.<br/>
+	 * The journal is deleted once the upload is completed.
+	 *
+	 * @param action the multipart upload requests of the object
+	 * @param bucketName the bucket name
+	 * @param key the key
+	 * @param source the source file
+	 * @param journalFile the journal file, null to upload without journal, a failed upload is then aborted
+	 * @param partSize the part size
+	 * @return the e tag of the object
+	 * @throws Exception the failure of the first failed request, the upload can be resumed
+	 */
+	public String upload(final MultipartUploadAction action, final String bucketName, final String key,
+			final File source, final File journalFile, final long partSize) throws Exception {
+		final long length = source.length();
+		final long partCount = (length + partSize - 1) / partSize;
+		if (partCount > AWSUtilConstants.MAX_MULTIPART_PARTS) {
+			throw new IllegalArgumentException("File is too large for part size " + partSize + ", more than "
+					+ AWSUtilConstants.MAX_MULTIPART_PARTS + " parts are needed.");
+		}
+		final MultipartUploadJournal journal = MultipartUploadJournal.loadOrCreate(journalFile, bucketName, key,
+				source, partSize);
+		if (journal.getStaleUploadId() != null) {
+			LOGGER.info("Source of key {} changed since upload {} started, starting over", key,
+					journal.getStaleUploadId());
+			abortQuietly(action, journal.getStaleUploadId());
+		}
+		String uploadId = journal.getUploadId();
+		Map<Integer, UploadedPart> uploadedParts = null;
+		if (uploadId != null) {
+			uploadedParts = action.listParts(uploadId);
+			if (uploadedParts == null) {
+				LOGGER.info("Upload {} of key {} does not exist anymore, starting over", uploadId, key);
+				journal.reset();
+				uploadId = null;
+			} else {
+				LOGGER.info("Resuming upload {} of key {}, {} of {} parts already uploaded", uploadId, key,
+						uploadedParts.size(), partCount);
+			}
+		}
+		if (uploadId == null) {
+			uploadId = action.initiate();
+			journal.start(uploadId);
+			uploadedParts = Collections.emptyMap();
+		}
+
+		final SortedMap<Integer, String> partETags = new ConcurrentSkipListMap<Integer, String>();
+		final List<Future<Void>> partFutures = new ArrayList<Future<Void>>();
+		final Semaphore permits = new Semaphore(partsInFlight);
+		final String eTag;
+		try {
+			for (int partNumber = 1; partNumber <= partCount; partNumber++) {
+				final long offset = (partNumber - 1) * partSize;
+				final long partLength = Math.min(partSize, length - offset);
+				final UploadedPart uploadedPart = uploadedParts.get(partNumber);
+				final String recordedETag = journal.getPartETag(partNumber);
+				if (uploadedPart != null && uploadedPart.getSize() == partLength
+						&& (recordedETag == null || sameETag(recordedETag, uploadedPart.getETag()))) {
+					partETags.put(partNumber, uploadedPart.getETag());
+					if (recordedETag == null) {
+						// Uploaded before the journal could be written
+						journal.partCompleted(partNumber, uploadedPart.getETag());
+					}
+					continue;
+				}
+				checkForFailedParts(partFutures);
+				permits.acquire();
+				try {
+					partFutures.add(executor.submit(new PartUpload(action, uploadId, partNumber, source, offset,
+							partLength, journal, partETags, permits)));
+				} catch (RejectedExecutionException rejEx) {
+					permits.release();
+					throw rejEx;
+				}
+			}
+			for (final Future<Void> partFuture : partFutures) {
+				getPartResult(partFuture);
+			}
+			eTag = action.complete(uploadId, partETags);
+		} catch (Exception excp) {
+			// Parts already running complete and are recorded, queued ones are dropped
+			for (final Future<Void> partFuture : partFutures) {
+				partFuture.cancel(false);
+			}
+			if (!journal.isRecorded()) {
+				LOGGER.warn("Upload {} of key {} failed, aborting it", uploadId, key);
+				abortQuietly(action, uploadId);
+				throw excp;
+			}
+			LOGGER.warn("Upload {} of key {} stopped, {} of {} parts uploaded, it resumes on next upload", uploadId,
+					key, partETags.size(), partCount);
+			throw excp;
+		}
+		journal.delete();
+		LOGGER.info("Upload {} of key {} completed, {} parts, {} uploaded now", uploadId, key, partCount,
+				partFutures.size());
+		return eTag;
+	}
+
+	/**
+	 * Check for failed parts, so that no more parts are submitted once a part failed.
+	 *
+	 * @param partFutures the part futures
+	 * @throws Exception the exception
+	 */
+	private static void checkForFailedParts(final List<Future<Void>> partFutures) throws Exception {
+		for (final Future<Void> partFuture : partFutures) {
+			if (partFuture.isDone()) {
+				getPartResult(partFuture);
+			}
+		}
+	}
+
+	/**
+	 * Gets the part result, unwrapping the failure of the part upload if any.
+	 *
+	 * @param partFuture the part future
+	 * @throws Exception the exception
+	 */
+	private static void getPartResult(final Future<Void> partFuture) throws Exception {
+		try {
+			partFuture.get();
+		} catch (ExecutionException execEx) {
+			final Throwable cause = execEx.getCause();
+			if (cause instanceof Exception) {
+				throw (Exception) cause;
+			}
+			throw execEx;
+		}
+	}
+
+	/**
+	 * Abort the upload, failures are only logged.
+	 *
+	 * @param action the action
+	 * @param uploadId the upload id
+	 */
+	private static void abortQuietly(final MultipartUploadAction action, final String uploadId) {
+		try {
+			action.abort(uploadId);
+		} catch (Exception excp) {
+			LOGGER.warn("Failed to abort multipart upload {}", uploadId, excp);
+		}
+	}
+
+	/**
+	 * Compare e tags ignoring the quotes some responses keep around them.
+	 *
+	 * @param first the first
+	 * @param second the second
+	 * @return true, if same e tag
+	 */
+	private static boolean sameETag(final String first, final String second) {
+		return second != null && first.replace("\"", "").equalsIgnoreCase(second.replace("\"", ""));
+	}
+
+	/**
+	 * The Class PartUpload.
+	 */
+	private static final class PartUpload implements Callable<Void> {
+
+		/** The action. */
+		private final MultipartUploadAction action;
+
+		/** The upload id. */
+		private final String uploadId;
+
+		/** The part number. */
+		private final int partNumber;
+
+		/** The source. */
+		private final File source;
+
+		/** The offset. */
+		private final long offset;
+
+		/** The length. */
+		private final long length;
+
+		/** The journal. */
+		private final MultipartUploadJournal journal;
+
+		/** The part e tags. */
+		private final SortedMap<Integer, String> partETags;
+
+		/** The permits. */
+		private final Semaphore permits;
+
+		/**
+		 * Instantiates a new part upload.
+		 *
+		 * @param action the action
+		 * @param uploadId the upload id
+		 * @param partNumber the part number
+		 * @param source the source
+		 * @param offset the offset
+		 * @param length the length
+		 * @param journal the journal
+		 * @param partETags the part e tags
+		 * @param permits the permits
+		 */
+		private PartUpload(final MultipartUploadAction action, final String uploadId, final int partNumber,
+				final File source, final long offset, final long length, final MultipartUploadJournal journal,
+				final SortedMap<Integer, String> partETags, final Semaphore permits) {
+			this.action = action;
+			this.uploadId = uploadId;
+			this.partNumber = partNumber;
+			this.source = source;
+			this.offset = offset;
+			this.length = length;
+			this.journal = journal;
+			this.partETags = partETags;
+			this.permits = permits;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.util.concurrent.Callable#call()
+		 */
+		@Override
+		public Void call() throws Exception {
+			try {
+				final String eTag = action.uploadPart(uploadId, partNumber, source, offset, length);
+				journal.partCompleted(partNumber, eTag);
+				partETags.put(partNumber, eTag);
+				return null;
+			} finally {
+				permits.release();
+			}
+		}
+	}
+}
@@ -0,0 +1,313 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.util;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The Class SortedDirectoryWalker.<br/>
+ * Lazily walks a local directory and returns the paths of its files relative to
+ * the directory, with <code>/</code> as separator, in the order Amazon S3 lists
+ * the matching keys (see {@link #compareKeys(String, String)}). It can therefore
+ * be merged with an object listing without loading either side in memory.<br/>
+ * Only the entries of the directories on the current path are held: siblings are
+ * sorted by name, directories by their name followed by the separator, so a
+ * depth first walk yields the keys in order.<br/>
+ * Symbolic links are treated as the {@link SymlinkPolicy} says, a link to one of
+ * the directories being walked is ignored so cycles end.<br/>
+ * A directory which cannot be listed fails the walk with an
+ * {@link UncheckedIOException}: skipping it would make its files look deleted.
+ *
+ * @author Abhinav kumar mishra
+ */
+public final class SortedDirectoryWalker implements Iterator<String> {
+
+	/** The Constant LOGGER. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(SortedDirectoryWalker.class);
+
+	/** The Constant NO_LINK_OPTIONS. Follows links. */
+	private static final LinkOption[] NO_LINK_OPTIONS = new LinkOption[0];
+
+	/** The root dir. */
+	private final File rootDir;
+
+	/** The symlink policy. */
+	private final SymlinkPolicy symlinkPolicy;
+
+	/** The directories being walked, innermost first. */
+	private final Deque<DirectoryListing> pendingDirs = new ArrayDeque<DirectoryListing>();
+
+	/** The next key, null when not yet looked up. */
+	private String nextKey;
+
+	/**
+	 * Instantiates a new sorted directory walker which follows the links, see
+	 * {@link SymlinkPolicy#FOLLOW}.
+	 *
+	 * @param rootDir the root dir
+	 * @throws FileNotFoundException the file not found exception, if the directory does not exist
+	 * @throws UncheckedIOException if the directory cannot be listed
+	 */
+	public SortedDirectoryWalker(final File rootDir) throws FileNotFoundException {
+		this(rootDir, SymlinkPolicy.FOLLOW);
+	}
+
+	/**
+	 * Instantiates a new sorted directory walker.
+	 *
+	 * @param rootDir the root dir
+	 * @param symlinkPolicy the symlink policy
+	 * @throws FileNotFoundException the file not found exception, if the directory does not exist
+	 * @throws UncheckedIOException if the directory cannot be listed
+	 */
+	public SortedDirectoryWalker(final File rootDir, final SymlinkPolicy symlinkPolicy)
+			throws FileNotFoundException {
+		super();
+		if (rootDir == null) {
+			throw new IllegalArgumentException("Directory should not be null.");
+		}
+		AWSUtil.notNull(symlinkPolicy, "SymlinkPolicy is null!");
+		if (!rootDir.exists()) {
+			throw new FileNotFoundException("Directory does not exist: " + rootDir);
+		}
+		if (!rootDir.isDirectory()) {
+			throw new IllegalArgumentException("Is not a directory: " + rootDir);
+		}
+		this.rootDir = rootDir;
+		this.symlinkPolicy = symlinkPolicy;
+		final Path rootPath = rootDir.toPath();
+		try {
+			final Object rootKey = AWSUtil.fileKeyOf(rootPath,
+					Files.readAttributes(rootPath, BasicFileAttributes.class));
+			pendingDirs.push(new DirectoryListing(rootKey, listSorted(rootPath, "")));
+		} catch (IOException ioex) {
+			throw new UncheckedIOException(ioex);
+		}
+	}
+
+	/**
+	 * Compare two keys the way Amazon S3 orders them.<br/>
+	 * S3 sorts keys by their UTF-8 bytes, which is the order of their code points.
+	 * {@link String#compareTo(String)} compares UTF-16 chars and puts supplementary
+	 * characters before <code>U+E000</code> to <code>U+FFFF</code>.
+	 *
+	 * @param first the first key
+	 * @param second the second key
+	 * @return a negative number, zero or a positive number as the first key sorts before, with or after the second
+	 */
+	public static int compareKeys(final String first, final String second) {
+		int firstIndex = 0;
+		int secondIndex = 0;
+		while (firstIndex < first.length() && secondIndex < second.length()) {
+			final int firstCodePoint = first.codePointAt(firstIndex);
+			final int secondCodePoint = second.codePointAt(secondIndex);
+			if (firstCodePoint != secondCodePoint) {
+				return Integer.compare(firstCodePoint, secondCodePoint);
+			}
+			firstIndex += Character.charCount(firstCodePoint);
+			secondIndex += Character.charCount(secondCodePoint);
+		}
+		return Integer.compare(first.length() - firstIndex, second.length() - secondIndex);
+	}
+
+	/**
+	 * Gets the file of a key returned by this walker.
+	 *
+	 * @param key the relative key
+	 * @return the file
+	 */
+	public File getFile(final String key) {
+		return new File(rootDir, key.replace(AWSUtilConstants.SEPARATOR, File.separator));
+	}
+
+	/* (non-Javadoc)
+	 * @see java.util.Iterator#hasNext()
+	 */
+	@Override
+	public boolean hasNext() {
+		while (nextKey == null && !pendingDirs.isEmpty()) {
+			final Iterator<WalkEntry> entries = pendingDirs.peek().entries;
+			if (!entries.hasNext()) {
+				pendingDirs.pop();
+				continue;
+			}
+			final WalkEntry entry = entries.next();
+			if (entry.dirKey == null) {
+				nextKey = entry.sortKey;
+			} else if (isBeingWalked(entry.dirKey)) {
+				LOGGER.warn("Skipping {}, it links to one of its parent directories", entry.path);
+			} else {
+				pendingDirs.push(new DirectoryListing(entry.dirKey, listSorted(entry.path, entry.sortKey)));
+			}
+		}
+		return nextKey != null;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.util.Iterator#next()
+	 */
+	@Override
+	public String next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		final String key = nextKey;
+		nextKey = null;
+		return key;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.util.Iterator#remove()
+	 */
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException("remove");
+	}
+
+	/**
+	 * Checks if a directory is one of the directories being walked.
+	 *
+	 * @param dirKey the file key of the directory
+	 * @return true, if walking it would be a cycle
+	 */
+	private boolean isBeingWalked(final Object dirKey) {
+		for (final DirectoryListing pendingDir : pendingDirs) {
+			if (pendingDir.dirKey.equals(dirKey)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * List the files and directories of a directory in key order.<br/>
+	 * Entries are read without following links, links are then kept or dropped
+	 * as the symlink policy says. A link whose target does not exist is dropped.
+	 *
+	 * @param dir the dir
+	 * @param keyPrefix the key of the directory followed by the separator, empty for the root
+	 * @return the sorted entries
+	 * @throws UncheckedIOException if the directory cannot be listed, e.g. it is not readable
+	 */
+	private Iterator<WalkEntry> listSorted(final Path dir, final String keyPrefix) {
+		final List<WalkEntry> entries = new ArrayList<WalkEntry>();
+		try (DirectoryStream<Path> children = Files.newDirectoryStream(dir)) {
+			for (final Path child : children) {
+				final String name = child.getFileName().toString();
+				BasicFileAttributes attributes = Files.readAttributes(child, BasicFileAttributes.class,
+						LinkOption.NOFOLLOW_LINKS);
+				if (attributes.isSymbolicLink()) {
+					if (symlinkPolicy == SymlinkPolicy.SKIP) {
+						continue;
+					}
+					try {
+						attributes = Files.readAttributes(child, BasicFileAttributes.class, NO_LINK_OPTIONS);
+					} catch (NoSuchFileException brokenLink) {
+						LOGGER.warn("Skipping {}, the target of the link does not exist", child);
+						continue;
+					}
+					if (attributes.isDirectory() && symlinkPolicy != SymlinkPolicy.FOLLOW) {
+						continue;
+					}
+				}
+				if (attributes.isDirectory()) {
+					entries.add(new WalkEntry(child, keyPrefix + name + AWSUtilConstants.SEPARATOR,
+							AWSUtil.fileKeyOf(child, attributes)));
+				} else if (attributes.isRegularFile()) {
+					entries.add(new WalkEntry(child, keyPrefix + name, null));
+				}
+			}
+		} catch (IOException ioex) {
+			throw new UncheckedIOException("Directory cannot be listed: " + dir, ioex);
+		}
+		Collections.sort(entries, (first, second) -> compareKeys(first.sortKey, second.sortKey));
+		return entries.iterator();
+	}
+
+	/**
+	 * The Class DirectoryListing.<br/>
+	 * A directory being walked and its entries not walked yet.
+	 */
+	private static final class DirectoryListing {
+
+		/** The file key of the directory. */
+		private final Object dirKey;
+
+		/** The sorted entries left. */
+		private final Iterator<WalkEntry> entries;
+
+		/**
+		 * Instantiates a new directory listing.
+		 *
+		 * @param dirKey the file key of the directory
+		 * @param entries the sorted entries
+		 */
+		DirectoryListing(final Object dirKey, final Iterator<WalkEntry> entries) {
+			this.dirKey = dirKey;
+			this.entries = entries;
+		}
+	}
+
+	/**
+	 * The Class WalkEntry.<br/>
+	 * A file or directory to be walked.
+	 */
+	private static final class WalkEntry {
+
+		/** The path. */
+		private final Path path;
+
+		/** The key of the file, or of the directory followed by the separator. */
+		private final String sortKey;
+
+		/** The file key of the directory, null for a file. */
+		private final Object dirKey;
+
+		/**
+		 * Instantiates a new walk entry.
+		 *
+		 * @param path the path
+		 * @param sortKey the sort key
+		 * @param dirKey the file key of the directory, null for a file
+		 */
+		WalkEntry(final Path path, final String sortKey, final Object dirKey) {
+			this.path = path;
+			this.sortKey = sortKey;
+			this.dirKey = dirKey;
+		}
+	}
+}
@@ -0,0 +1,36 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.util;
+
+/**
+ * The Enum SymlinkPolicy.<br/>
+ * How a directory walk treats symbolic links.
+ *
+ * @author Abhinav kumar mishra
+ */
+public enum SymlinkPolicy {
+
+	/** Links are ignored. */
+	SKIP,
+
+	/** Links to files are returned as files, links to directories are ignored. */
+	FOLLOW_FILES,
+
+	/** Links are followed, a link to one of its own ancestors is ignored so cycles end. */
+	FOLLOW
+}
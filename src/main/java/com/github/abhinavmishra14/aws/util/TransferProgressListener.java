@@ -0,0 +1,67 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.util;
+
+/**
+ * The Interface TransferProgressListener.<br/>
+ * Receives the progress of a transfer. Callbacks run on the threads doing the
+ * transfer, so they must return quickly and never wait on the transfer itself.
+ * {@link #onProgress(ProgressSnapshot)} is throttled, it is called at most once
+ * per progress interval whatever the number of bytes events.<br/>
+ * Exactly one of {@link #onCompleted(ProgressSnapshot)} and
+ * {@link #onFailed(ProgressSnapshot, Exception)} is called once the transfer is over.
+ *
+ * @author Abhinav kumar mishra
+ */
+public interface TransferProgressListener {
+
+	/**
+	 * Called with the progress of the transfer, throttled.
+	 *
+	 * @param progress the progress
+	 */
+	void onProgress(final ProgressSnapshot progress);
+
+	/**
+	 * Called each time a multipart part is uploaded, not throttled.
+	 *
+	 * @param progress the progress
+	 */
+	default void onPartCompleted(final ProgressSnapshot progress) {
+		// Nothing to do by default
+	}
+
+	/**
+	 * Called once when the transfer completed.
+	 *
+	 * @param progress the final progress
+	 */
+	default void onCompleted(final ProgressSnapshot progress) {
+		// Nothing to do by default
+	}
+
+	/**
+	 * Called once when the transfer failed or was canceled.
+	 *
+	 * @param progress the progress when the transfer stopped
+	 * @param excp the failure
+	 */
+	default void onFailed(final ProgressSnapshot progress, final Exception excp) {
+		// Nothing to do by default
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.util;
+
+/**
+ * The Class UploadedPart.<br/>
+ * A part of a multipart upload as listed by Amazon S3.
+ *
+ * @author Abhinav kumar mishra
+ */
+public final class UploadedPart {
+
+	/** The part number. */
+	private final int partNumber;
+
+	/** The e tag. */
+	private final String eTag;
+
+	/** The size. */
+	private final long size;
+
+	/**
+	 * Instantiates a new uploaded part.
+	 *
+	 * @param partNumber the part number
+	 * @param eTag the e tag
+	 * @param size the size in bytes
+	 */
+	public UploadedPart(final int partNumber, final String eTag, final long size) {
+		super();
+		this.partNumber = partNumber;
+		this.eTag = eTag;
+		this.size = size;
+	}
+
+	/**
+	 * Gets the part number.
+	 *
+	 * @return the part number
+	 */
+	public int getPartNumber() {
+		return partNumber;
+	}
+
+	/**
+	 * Gets the e tag.
+	 *
+	 * @return the e tag
+	 */
+	public String getETag() {
+		return eTag;
+	}
+
+	/**
+	 * Gets the size.
+	 *
+	 * @return the size in bytes
+	 */
+	public long getSize() {
+		return size;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "UploadedPart [partNumber=" + partNumber + ", eTag=" + eTag + ", size=" + size + "]";
+	}
+}
@@ -0,0 +1,461 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.SequenceInputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.abhinavmishra14.aws.local.LocalS3Server;
+import com.github.abhinavmishra14.aws.s3.service.AwsS3IamService;
+import com.github.abhinavmishra14.aws.s3.service.impl.AwsS3IamServiceImpl;
+import com.github.abhinavmishra14.aws.s3.transfer.TransferConfig;
+
+/**
+ * The Class ObjectCacheTest.<br/>
+ * Checks the eviction, the tiers and the revalidation of the cache, alone and
+ * behind a service talking to the in-process server.
+ *
+ * @author Abhinav kumar mishra
+ */
+public class ObjectCacheTest {
+
+	/** The Constant BUCKET. */
+	private static final String BUCKET = "cache-test";
+
+	/** The temporary folder. */
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	/** The server. */
+	private LocalS3Server server;
+
+	/** The objects of the fake store by key. */
+	private final Map<String, String> storeObjects = new HashMap<String, String>();
+
+	/** The number of objects sent by the fake store. */
+	private int objectsSent;
+
+	/**
+	 * Sets the up.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+		server = new LocalS3Server().start();
+	}
+
+	/**
+	 * Test the least recently used object is evicted from the heap.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testLeastRecentlyUsedIsEvicted() throws Exception {
+		final ObjectCache objectCache = new ObjectCache(new ObjectCacheConfig().setMaxHeapBytes(10)
+				.setMaxHeapObjectSize(10).setMaxDiskBytes(0));
+		storeObjects.put("a", "aaaa");
+		storeObjects.put("b", "bbbb");
+		storeObjects.put("c", "cccc");
+		assertEquals("aaaa", read(objectCache, "a"));
+		assertEquals("bbbb", read(objectCache, "b"));
+		assertEquals("aaaa", read(objectCache, "a"));
+		assertEquals("cccc", read(objectCache, "c"));
+		ObjectCacheStats stats = objectCache.getStats();
+		assertEquals(1, stats.getHitCount());
+		assertEquals(3, stats.getMissCount());
+		assertEquals(1, stats.getEvictionCount());
+		assertEquals(8, stats.getHeapBytes());
+		// b was evicted, a is still cached
+		read(objectCache, "b");
+		read(objectCache, "c");
+		stats = objectCache.getStats();
+		assertEquals(4, stats.getMissCount());
+		assertEquals(2, stats.getHitCount());
+		assertEquals(4, objectsSent);
+	}
+
+	/**
+	 * Test large objects go to disk and objects larger than the disk tier are not cached.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testLargeObjectsAreCachedOnDisk() throws Exception {
+		final File diskDirectory = temporaryFolder.newFolder("cache");
+		final ObjectCache objectCache = new ObjectCache(new ObjectCacheConfig().setMaxHeapObjectSize(2)
+				.setMaxDiskBytes(8).setDiskDirectory(diskDirectory));
+		storeObjects.put("small", "s");
+		storeObjects.put("large", "large");
+		storeObjects.put("huge", "hugeobject");
+		for (int round = 0; round < 2; round++) {
+			assertEquals("s", read(objectCache, "small"));
+			assertEquals("large", read(objectCache, "large"));
+			assertEquals("hugeobject", read(objectCache, "huge"));
+		}
+		final ObjectCacheStats stats = objectCache.getStats();
+		assertEquals(1, stats.getHeapEntryCount());
+		assertEquals(1, stats.getDiskEntryCount());
+		assertEquals(5, stats.getDiskBytes());
+		assertEquals(2, stats.getHitCount());
+		assertEquals(4, stats.getMissCount());
+		assertEquals(1, diskDirectory.list().length);
+		objectCache.clear();
+		assertEquals(0, diskDirectory.list().length);
+	}
+
+	/**
+	 * Test expired objects are revalidated and downloaded again only once changed.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testExpiredObjectsAreRevalidated() throws Exception {
+		final ObjectCache objectCache = new ObjectCache(new ObjectCacheConfig().setTimeToLiveMillis(0)
+				.setMaxDiskBytes(0));
+		storeObjects.put("config", "v1");
+		assertEquals("v1", read(objectCache, "config"));
+		assertEquals("v1", read(objectCache, "config"));
+		assertEquals(1, objectsSent);
+		storeObjects.put("config", "v2");
+		assertEquals("v2", read(objectCache, "config"));
+		final ObjectCacheStats stats = objectCache.getStats();
+		assertEquals(0, stats.getHitCount());
+		assertEquals(1, stats.getRevalidationCount());
+		assertEquals(2, stats.getMissCount());
+		assertEquals(1.0 / 3, stats.getHitRatio(), 0.001);
+	}
+
+	/**
+	 * Test an object invalidated while it is read is not cached, a later read
+	 * gets the new version from the store.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testReadRacingInvalidate() throws Exception {
+		final ObjectCache objectCache = new ObjectCache(new ObjectCacheConfig().setTimeToLiveMillis(60000)
+				.setMaxDiskBytes(0));
+		final CountDownLatch opened = new CountDownLatch(1);
+		final CountDownLatch invalidated = new CountDownLatch(1);
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			// The reader got the old version, then the object is written and invalidated
+			final Future<String> staleRead = executor.submit(() -> toString(objectCache.read("config",
+					cachedETag -> {
+						opened.countDown();
+						await(invalidated);
+						return new SourceObject(toStream("v1"), "v1", 2);
+					})));
+			assertTrue(opened.await(10, TimeUnit.SECONDS));
+			storeObjects.put("config", "v2");
+			objectCache.invalidate("config");
+			invalidated.countDown();
+			assertEquals("v1", staleRead.get(10, TimeUnit.SECONDS));
+			assertEquals("v2", read(objectCache, "config"));
+			assertEquals(1, objectsSent);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Test concurrent misses of an object share one read of the store.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testConcurrentMissesShareOneRead() throws Exception {
+		final ObjectCache objectCache = new ObjectCache(new ObjectCacheConfig().setMaxDiskBytes(0));
+		final AtomicInteger opens = new AtomicInteger();
+		final CountDownLatch opened = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final ObjectSource source = cachedETag -> {
+			opens.incrementAndGet();
+			opened.countDown();
+			await(release);
+			return new SourceObject(toStream("shared"), "shared", 6);
+		};
+		final FutureTask<String> leader = new FutureTask<String>(() -> toString(objectCache.read("key", source)));
+		final FutureTask<String> follower = new FutureTask<String>(
+				() -> toString(objectCache.read("key", source)));
+		new Thread(leader).start();
+		assertTrue(opened.await(10, TimeUnit.SECONDS));
+		final Thread followerThread = new Thread(follower);
+		followerThread.start();
+		// The follower waits for the load of the leader
+		while (followerThread.getState() != Thread.State.WAITING) {
+			assertTrue(followerThread.isAlive());
+			Thread.sleep(10);
+		}
+		release.countDown();
+		assertEquals("shared", leader.get(10, TimeUnit.SECONDS));
+		assertEquals("shared", follower.get(10, TimeUnit.SECONDS));
+		assertEquals(1, opens.get());
+		assertEquals(1, objectCache.getStats().getMissCount());
+		assertEquals(1, objectCache.getStats().getHitCount());
+	}
+
+	/**
+	 * Test the first bytes of an object going to disk are served before the
+	 * object is read completely.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testDiskReadServesFirstBytesEarly() throws Exception {
+		final ObjectCache objectCache = new ObjectCache(new ObjectCacheConfig().setMaxHeapObjectSize(2)
+				.setMaxDiskBytes(100).setDiskDirectory(temporaryFolder.newFolder("early")));
+		final CountDownLatch release = new CountDownLatch(1);
+		final InputStream blockedTail = new InputStream() {
+
+			/* (non-Javadoc)
+			 * @see java.io.InputStream#read()
+			 */
+			@Override
+			public int read() throws IOException {
+				await(release);
+				return -1;
+			}
+		};
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			final Future<InputStream> opening = executor.submit(() -> objectCache.read("large",
+					cachedETag -> new SourceObject(new SequenceInputStream(toStream("first"), blockedTail),
+							"first", 5)));
+			try (InputStream content = opening.get(10, TimeUnit.SECONDS)) {
+				final byte[] head = new byte[5];
+				assertEquals(5, content.read(head));
+				assertEquals("first", new String(head, StandardCharsets.UTF_8));
+				release.countDown();
+				assertEquals(-1, content.read());
+			}
+			assertEquals(1, objectCache.getStats().getDiskEntryCount());
+			assertEquals("first", toString(objectCache.read("large", cachedETag -> null)));
+		} finally {
+			release.countDown();
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Test the cache files left by an earlier JVM are deleted.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testStaleFilesAreDeleted() throws Exception {
+		final File diskDirectory = temporaryFolder.newFolder("stale");
+		final File staleFile = new File(diskDirectory, "object123.cache");
+		final File otherFile = new File(diskDirectory, "notes.txt");
+		FileUtils.writeStringToFile(staleFile, "stale", StandardCharsets.UTF_8);
+		FileUtils.writeStringToFile(otherFile, "kept", StandardCharsets.UTF_8);
+		final long beforeStart = ManagementFactory.getRuntimeMXBean().getStartTime() - 60000;
+		assertTrue(staleFile.setLastModified(beforeStart));
+		assertTrue(otherFile.setLastModified(beforeStart));
+		new ObjectCache(new ObjectCacheConfig().setDiskDirectory(diskDirectory));
+		assertFalse(staleFile.exists());
+		assertTrue(otherFile.exists());
+	}
+
+	/**
+	 * Test the service caches the objects and revalidates them with S3.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testServiceReadsThroughCache() throws Exception {
+		final AwsS3IamService awsS3IamService = new AwsS3IamServiceImpl(server.newAmazonS3Client(),
+				new TransferConfig().setCacheConfig(new CacheConfig().setObjectCacheConfig(new ObjectCacheConfig()
+						.setTimeToLiveMillis(0).setDiskDirectory(temporaryFolder.newFolder("service-cache")))));
+		try {
+			awsS3IamService.createBucket(BUCKET);
+			awsS3IamService.uploadObject(BUCKET, "app/config.json", toStream("{\"version\":1}"));
+			assertEquals("{\"version\":1}", readObject(awsS3IamService, "app/config.json"));
+			assertEquals("{\"version\":1}", readObject(awsS3IamService, "app/config.json"));
+			ObjectCacheStats stats = awsS3IamService.getObjectCacheStats();
+			assertEquals(1, stats.getMissCount());
+			assertEquals(1, stats.getRevalidationCount());
+
+			// Writes through the service drop the cached copy
+			awsS3IamService.uploadObject(BUCKET, "app/config.json", toStream("{\"version\":2}"));
+			assertEquals("{\"version\":2}", readObject(awsS3IamService, "app/config.json"));
+			awsS3IamService.deleteObject(BUCKET, "app/config.json");
+			stats = awsS3IamService.getObjectCacheStats();
+			assertEquals(2, stats.getMissCount());
+			assertEquals(0, stats.getHeapEntryCount());
+		} finally {
+			awsS3IamService.shutdown();
+		}
+	}
+
+	/**
+	 * Test the TransferManager uploads drop the cached copies once they are over.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testTransferUploadsDropCachedCopies() throws Exception {
+		final AwsS3IamService awsS3IamService = new AwsS3IamServiceImpl(server.newAmazonS3Client(),
+				new TransferConfig().setCacheConfig(new CacheConfig().setObjectCacheConfig(new ObjectCacheConfig()
+						.setTimeToLiveMillis(60000).setDiskDirectory(temporaryFolder.newFolder("transfer-cache")))));
+		try {
+			awsS3IamService.createBucket(BUCKET);
+			awsS3IamService.uploadObject(BUCKET, "app/config.json", toStream("{\"version\":1}"));
+			assertEquals("{\"version\":1}", readObject(awsS3IamService, "app/config.json"));
+
+			final File file = temporaryFolder.newFile("config.json");
+			FileUtils.writeStringToFile(file, "{\"version\":2}", StandardCharsets.UTF_8);
+			awsS3IamService.uploadFileAsync(BUCKET, "app/config.json", file).waitForCompletion();
+			assertEquals("{\"version\":2}", readObject(awsS3IamService, "app/config.json"));
+
+			final File dir = temporaryFolder.newFolder("app");
+			FileUtils.writeStringToFile(new File(dir, "config.json"), "{\"version\":3}", StandardCharsets.UTF_8);
+			awsS3IamService.uploadDirectoryOrFile(BUCKET, dir, "app").waitForCompletion();
+			assertEquals("{\"version\":3}", readObject(awsS3IamService, "app/config.json"));
+			assertEquals(3, awsS3IamService.getObjectCacheStats().getMissCount());
+		} finally {
+			awsS3IamService.shutdown();
+		}
+	}
+
+	/**
+	 * Test the service without cache config has no cache.
+	 */
+	@Test
+	public void testServiceWithoutCache() {
+		final AwsS3IamService awsS3IamService = new AwsS3IamServiceImpl(server.newAmazonS3Client());
+		try {
+			assertNull(awsS3IamService.getObjectCacheStats());
+		} finally {
+			awsS3IamService.shutdown();
+		}
+	}
+
+	/**
+	 * Reads an object from the fake store through the cache.
+	 *
+	 * @param objectCache the object cache
+	 * @param key the key
+	 * @return the content
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private String read(final ObjectCache objectCache, final String key) throws IOException {
+		try (InputStream content = objectCache.read(key, cachedETag -> {
+			final String value = storeObjects.get(key);
+			// The content is its entity tag
+			if (value.equals(cachedETag)) {
+				return null;
+			}
+			objectsSent++;
+			return new SourceObject(toStream(value), value, value.length());
+		})) {
+			return IOUtils.toString(content, StandardCharsets.UTF_8);
+		}
+	}
+
+	/**
+	 * Reads an object with the service.
+	 *
+	 * @param awsS3IamService the aws s3 iam service
+	 * @param key the key
+	 * @return the content
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static String readObject(final AwsS3IamService awsS3IamService, final String key) throws IOException {
+		try (InputStream content = awsS3IamService.getObject(BUCKET, key)) {
+			return IOUtils.toString(content, StandardCharsets.UTF_8);
+		}
+	}
+
+	/**
+	 * Reads a content and closes it.
+	 *
+	 * @param content the content
+	 * @return the content as a string
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static String toString(final InputStream content) throws IOException {
+		try (InputStream in = content) {
+			return IOUtils.toString(in, StandardCharsets.UTF_8);
+		}
+	}
+
+	/**
+	 * Waits for a latch in a source.
+	 *
+	 * @param latch the latch
+	 * @throws InterruptedIOException if interrupted or not counted down in time
+	 */
+	private static void await(final CountDownLatch latch) throws InterruptedIOException {
+		try {
+			if (!latch.await(10, TimeUnit.SECONDS)) {
+				throw new InterruptedIOException("Latch not counted down");
+			}
+		} catch (InterruptedException intrEx) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted");
+		}
+	}
+
+	/**
+	 * To stream.
+	 *
+	 * @param value the value
+	 * @return the input stream
+	 */
+	private static InputStream toStream(final String value) {
+		return new ByteArrayInputStream(value.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Tear down.
+	 */
+	@After
+	public void tearDown() {
+		server.stop();
+	}
+}
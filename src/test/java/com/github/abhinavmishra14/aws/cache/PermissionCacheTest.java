@@ -0,0 +1,205 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.services.s3.model.CannedAccessControlList;
+import com.amazonaws.services.s3.model.Permission;
+import com.github.abhinavmishra14.aws.local.LocalS3Server;
+import com.github.abhinavmishra14.aws.s3.service.AwsS3IamService;
+import com.github.abhinavmishra14.aws.s3.service.impl.AwsS3IamServiceImpl;
+import com.github.abhinavmishra14.aws.s3.transfer.TransferConfig;
+
+/**
+ * The Class PermissionCacheTest.<br/>
+ * Checks the expiry, the single check of concurrent lookups and the
+ * invalidation of the cache, alone and behind a service talking to the
+ * in-process server.
+ *
+ * @author Abhinav kumar mishra
+ */
+public class PermissionCacheTest {
+
+	/** The Constant BUCKET. */
+	private static final String BUCKET = "permission-cache-test";
+
+	/**
+	 * Test the checks are reused until they expire and failed checks are not cached.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testTimeToLive() throws Exception {
+		final PermissionCache<Integer> cache = new PermissionCache<Integer>(
+				new PermissionCacheConfig().setTimeToLiveMillis(50));
+		final AtomicInteger checks = new AtomicInteger();
+		assertEquals(Integer.valueOf(1), cache.get("key", checks::incrementAndGet));
+		assertEquals(Integer.valueOf(1), cache.get("key", checks::incrementAndGet));
+		TimeUnit.MILLISECONDS.sleep(100);
+		assertEquals(Integer.valueOf(2), cache.get("key", checks::incrementAndGet));
+		cache.invalidate("key");
+		assertEquals(Integer.valueOf(3), cache.get("key", checks::incrementAndGet));
+
+		try {
+			cache.get("failing", () -> {
+				throw new IllegalStateException("AccessDenied");
+			});
+			fail("The failure of the check is expected");
+		} catch (IllegalStateException expected) {
+			assertEquals("AccessDenied", expected.getMessage());
+		}
+		assertEquals(Integer.valueOf(4), cache.get("failing", checks::incrementAndGet));
+
+		final PermissionCacheStats stats = cache.getStats();
+		assertEquals(1, stats.getHitCount());
+		assertEquals(5, stats.getMissCount());
+		assertEquals(2, stats.getEntryCount());
+	}
+
+	/**
+	 * Test concurrent lookups of a key wait for a single check.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testConcurrentLookupsShareOneCheck() throws Exception {
+		final PermissionCache<Boolean> cache = new PermissionCache<Boolean>(new PermissionCacheConfig());
+		final int threadCount = 8;
+		final AtomicInteger checks = new AtomicInteger();
+		final CountDownLatch checkStarted = new CountDownLatch(1);
+		final CountDownLatch releaseCheck = new CountDownLatch(1);
+		final ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+		try {
+			final List<Future<Boolean>> lookups = new ArrayList<Future<Boolean>>();
+			for (int thread = 0; thread < threadCount; thread++) {
+				lookups.add(executor.submit(() -> cache.get(BUCKET, () -> {
+					checks.incrementAndGet();
+					checkStarted.countDown();
+					try {
+						releaseCheck.await();
+					} catch (InterruptedException intEx) {
+						Thread.currentThread().interrupt();
+					}
+					return Boolean.TRUE;
+				})));
+			}
+			assertTrue(checkStarted.await(10, TimeUnit.SECONDS));
+			// Let the other lookups reach the check in flight
+			TimeUnit.MILLISECONDS.sleep(100);
+			releaseCheck.countDown();
+			for (final Future<Boolean> lookup : lookups) {
+				assertTrue(lookup.get(10, TimeUnit.SECONDS));
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		assertEquals(1, checks.get());
+		assertEquals(1, cache.getStats().getMissCount());
+		assertEquals(threadCount - 1, cache.getStats().getHitCount());
+	}
+
+	/**
+	 * Test the service reuses its checks and drops them when an acl is set.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testServiceInvalidatesOnSetAcl() throws Exception {
+		final LocalS3Server server = new LocalS3Server().start();
+		final AwsS3IamService awsS3IamService = new AwsS3IamServiceImpl(server.newAmazonS3Client(),
+				new TransferConfig().setCacheConfig(
+						new CacheConfig().setPermissionCacheConfig(new PermissionCacheConfig())));
+		try {
+			awsS3IamService.createBucket(BUCKET);
+			awsS3IamService.uploadObject(BUCKET, "logo.png", new ByteArrayInputStream(new byte[1]));
+			assertTrue(awsS3IamService.hasFullControlPermission(BUCKET));
+			assertFalse(awsS3IamService.checkBucketPermission(BUCKET, Permission.Read));
+			assertFalse(awsS3IamService.checkObjectPermission(BUCKET, "logo.png", Permission.Read));
+			assertTrue(awsS3IamService.hasWritePermissionOnBucket(BUCKET));
+			assertTrue(awsS3IamService.hasWritePermissionOnBucket(BUCKET));
+			assertEquals(3, awsS3IamService.getPermissionCacheStats().getMissCount());
+
+			awsS3IamService.setBucketAcl(BUCKET, CannedAccessControlList.PublicRead);
+			awsS3IamService.setObjectAcl(BUCKET, "logo.png", CannedAccessControlList.PublicRead);
+			assertTrue(awsS3IamService.checkBucketPermission(BUCKET, Permission.Read));
+			assertTrue(awsS3IamService.checkObjectPermission(BUCKET, "logo.png", Permission.Read));
+			assertTrue(awsS3IamService.hasWritePermissionOnBucket(BUCKET));
+
+			final PermissionCacheStats stats = awsS3IamService.getPermissionCacheStats();
+			assertEquals(6, stats.getMissCount());
+			assertEquals(2, stats.getHitCount());
+			assertEquals(3, stats.getEntryCount());
+		} finally {
+			awsS3IamService.cleanAndDeleteBucket(BUCKET);
+			awsS3IamService.shutdown();
+			server.stop();
+		}
+	}
+
+	/**
+	 * Test a write probe failing with a server error is thrown and not cached as no permission.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testTransientProbeFailureIsNotCached() throws Exception {
+		final LocalS3Server server = new LocalS3Server().start();
+		final AwsS3IamService awsS3IamService = new AwsS3IamServiceImpl(
+				server.newAmazonS3Client(new ClientConfiguration().withMaxErrorRetry(0)),
+				new TransferConfig().setCacheConfig(
+						new CacheConfig().setPermissionCacheConfig(new PermissionCacheConfig())));
+		try {
+			awsS3IamService.createBucket(BUCKET);
+			server.getFaultInjector().failNextRequests(1, 503);
+			try {
+				awsS3IamService.hasWritePermissionOnBucket(BUCKET);
+				fail("The failure of the probe is expected");
+			} catch (AmazonServiceException expected) {
+				assertEquals(503, expected.getStatusCode());
+			}
+			assertTrue(awsS3IamService.hasWritePermissionOnBucket(BUCKET));
+			assertTrue(awsS3IamService.hasWritePermissionOnBucket(BUCKET));
+
+			final PermissionCacheStats stats = awsS3IamService.getPermissionCacheStats();
+			assertEquals(2, stats.getMissCount());
+			assertEquals(1, stats.getHitCount());
+		} finally {
+			awsS3IamService.cleanAndDeleteBucket(BUCKET);
+			awsS3IamService.shutdown();
+			server.stop();
+		}
+	}
+}
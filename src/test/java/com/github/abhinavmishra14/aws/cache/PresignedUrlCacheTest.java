@@ -0,0 +1,129 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.github.abhinavmishra14.aws.local.LocalS3Server;
+import com.github.abhinavmishra14.aws.s3.service.AwsS3IamService;
+import com.github.abhinavmishra14.aws.s3.service.impl.AwsS3IamServiceImpl;
+import com.github.abhinavmishra14.aws.s3.transfer.TransferConfig;
+import com.github.abhinavmishra14.aws.util.AWSUtil;
+
+/**
+ * The Class PresignedUrlCacheTest.<br/>
+ * Checks the rounding of the expirations and the eviction of the cache, alone
+ * and behind a service talking to the in-process server.
+ *
+ * @author Abhinav kumar mishra
+ */
+public class PresignedUrlCacheTest {
+
+	/** The Constant BUCKET. */
+	private static final String BUCKET = "presign-cache-test";
+
+	/** The Constant WINDOW_MILLIS. */
+	private static final long WINDOW_MILLIS = 5 * 60 * 1000L;
+
+	/**
+	 * Test the expirations are rounded up to the end of their window.
+	 */
+	@Test
+	public void testRoundExpiration() {
+		final PresignedUrlCache cache = new PresignedUrlCache(new PresignedUrlCacheConfig());
+		assertEquals(WINDOW_MILLIS, cache.roundExpiration(1));
+		assertEquals(WINDOW_MILLIS, cache.roundExpiration(WINDOW_MILLIS));
+		assertEquals(2 * WINDOW_MILLIS, cache.roundExpiration(WINDOW_MILLIS + 1));
+	}
+
+	/**
+	 * Test the least recently used urls are evicted and expired urls are not served.
+	 */
+	@Test
+	public void testEviction() {
+		final PresignedUrlCache cache = new PresignedUrlCache(new PresignedUrlCacheConfig().setMaxEntries(2));
+		final long windowEnd = cache.roundExpiration(System.currentTimeMillis() + WINDOW_MILLIS);
+		cache.put(BUCKET, "a", windowEnd, "url-a");
+		cache.put(BUCKET, "b", windowEnd, "url-b");
+		assertEquals("url-a", cache.get(BUCKET, "a", windowEnd));
+		cache.put(BUCKET, "c", windowEnd, "url-c");
+		// b was the least recently used
+		assertNull(cache.get(BUCKET, "b", windowEnd));
+		assertEquals("url-c", cache.get(BUCKET, "c", windowEnd));
+		// Another window is another url
+		assertNull(cache.get(BUCKET, "c", windowEnd + WINDOW_MILLIS));
+		cache.put(BUCKET, "expired", 1, "url-expired");
+		assertNull(cache.get(BUCKET, "expired", 1));
+
+		final PresignedUrlCacheStats stats = cache.getStats();
+		assertEquals(2, stats.getHitCount());
+		assertEquals(3, stats.getMissCount());
+		assertEquals(2, stats.getEvictionCount());
+		assertEquals(1, stats.getEntryCount());
+		assertEquals(0.4, stats.getHitRatio(), 0.001);
+	}
+
+	/**
+	 * Test the service serves the urls of a window from the cache.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testServiceCachesUrls() throws Exception {
+		final LocalS3Server server = new LocalS3Server().start();
+		final AwsS3IamService awsS3IamService = new AwsS3IamServiceImpl(server.newAmazonS3Client(),
+				new TransferConfig().setCacheConfig(
+						new CacheConfig().setPresignedUrlCacheConfig(new PresignedUrlCacheConfig())));
+		try {
+			final Date expires = AWSUtil.getExpiryDate(Calendar.HOUR, 1);
+			assertTrue(Math.abs(expires.getTime() - System.currentTimeMillis() - 60 * 60 * 1000L) < 1000);
+			// Both expirations fall in the same window
+			final long windowEnd = (expires.getTime() / WINDOW_MILLIS + 1) * WINDOW_MILLIS;
+			final String url = awsS3IamService.generateObjectUrlAsString(BUCKET, "logo.png",
+					new Date(windowEnd - 2000));
+			assertEquals(url, awsS3IamService.generateObjectURL(BUCKET, "logo.png", new Date(windowEnd - 1000))
+					.toString());
+			assertNotEquals(url, awsS3IamService.generateObjectUrlAsString(BUCKET, "logo.png",
+					new Date(windowEnd + 1000)));
+
+			final List<String> urls = awsS3IamService.presign(BUCKET, Arrays.asList("logo.png", "style.css"),
+					new Date(windowEnd));
+			assertEquals(url, urls.get(0));
+			assertEquals(urls, awsS3IamService.presign(BUCKET, Arrays.asList("logo.png", "style.css"),
+					new Date(windowEnd - 1)));
+
+			final PresignedUrlCacheStats stats = awsS3IamService.getPresignedUrlCacheStats();
+			assertEquals(4, stats.getHitCount());
+			assertEquals(3, stats.getMissCount());
+			assertEquals(3, stats.getEntryCount());
+		} finally {
+			awsS3IamService.shutdown();
+			server.stop();
+		}
+	}
+}
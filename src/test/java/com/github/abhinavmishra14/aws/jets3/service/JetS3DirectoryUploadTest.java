@@ -0,0 +1,172 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.jets3.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.jets3t.service.model.StorageObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.abhinavmishra14.aws.jets3.service.impl.JetS3RESTServiceImpl;
+import com.github.abhinavmishra14.aws.local.LocalS3Server;
+import com.github.abhinavmishra14.aws.util.AWSUtilConstants;
+import com.github.abhinavmishra14.aws.util.DirectoryTransferSummary;
+import com.github.abhinavmishra14.aws.util.DirectoryUploadConfig;
+import com.github.abhinavmishra14.aws.util.DirectoryWalkConfig;
+
+/**
+ * The Class JetS3DirectoryUploadTest.<br/>
+ * Uploads a directory through the staged pipeline of the JetS3t service against
+ * the in-process server.
+ *
+ * @author Abhinav kumar mishra
+ */
+public class JetS3DirectoryUploadTest {
+
+	/** The Constant BUCKET. */
+	private static final String BUCKET = "jets3-dir-test";
+
+	/** The folder. */
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	/** The server. */
+	private LocalS3Server server;
+
+	/** The jet s3 rest service. */
+	private JetS3RESTService jetS3RESTService;
+
+	/** The directory uploaded. */
+	private File uploadDir;
+
+	/**
+	 * Sets the up.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+		server = new LocalS3Server().start();
+		jetS3RESTService = new JetS3RESTServiceImpl(LocalS3Server.ACCESS_KEY, LocalS3Server.SECRET_KEY,
+				server.newJets3tProperties());
+		jetS3RESTService.createBucket(BUCKET);
+		uploadDir = folder.newFolder("upload");
+		FileUtils.writeStringToFile(new File(uploadDir, "en/data.txt"), "hello", StandardCharsets.UTF_8);
+		FileUtils.writeStringToFile(new File(uploadDir, "fr/data.txt"), "bonjour", StandardCharsets.UTF_8);
+		FileUtils.writeStringToFile(new File(uploadDir, "tmp/scratch.txt"), "skip", StandardCharsets.UTF_8);
+		final byte[] large = new byte[(int) (6 * AWSUtilConstants.MEGABYTE)];
+		for (int index = 0; index < large.length; index++) {
+			large[index] = (byte) index;
+		}
+		FileUtils.writeByteArrayToFile(new File(uploadDir, "video.bin"), large);
+	}
+
+	/**
+	 * Test files with the same name in different directories keep their own key.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testUploadDirectoryAsMultiparts() throws Exception {
+		jetS3RESTService.uploadDirectoryAsMultiparts(BUCKET, uploadDir);
+		assertEquals(Arrays.asList("en/data.txt", "fr/data.txt", "tmp/scratch.txt", "video.bin"), listKeys());
+		try (InputStream in = jetS3RESTService.getObjectAsStream(BUCKET, "fr/data.txt")) {
+			assertEquals("bonjour", IOUtils.toString(in, StandardCharsets.UTF_8));
+		}
+	}
+
+	/**
+	 * Test the pipeline with small queues, a prefix, an exclude glob and a multipart file.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testUploadDirectory() throws Exception {
+		final DirectoryUploadConfig config = new DirectoryUploadConfig()
+				.setWalkConfig(new DirectoryWalkConfig().setExcludes("tmp").setParallelism(2)).setBuildThreads(1)
+				.setUploadThreads(2).setQueueCapacity(1)
+				.setMultipartUploadThreshold(AWSUtilConstants.DEFAULT_MINIMUM_UPLOAD_PART_SIZE);
+		final DirectoryTransferSummary summary = jetS3RESTService.uploadDirectory(BUCKET, uploadDir, "site",
+				config);
+		assertTrue(summary.isComplete());
+		assertEquals(3, summary.getFilesTransferred());
+		assertEquals(Arrays.asList("site/en/data.txt", "site/fr/data.txt", "site/video.bin"), listKeys());
+		// The two text files hold 12 bytes, the rest is the multipart upload
+		assertEquals(6 * AWSUtilConstants.MEGABYTE, summary.getBytesTransferred() - 12);
+	}
+
+	/**
+	 * Test the multipart uploads are journaled in the directory of the config.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testUploadJournalDirectory() throws Exception {
+		// A file in place of the journal directory fails the multipart upload only
+		final DirectoryUploadConfig config = new DirectoryUploadConfig()
+				.setMultipartUploadThreshold(AWSUtilConstants.DEFAULT_MINIMUM_UPLOAD_PART_SIZE)
+				.setUploadJournalDirectory(folder.newFile("journals"));
+		final DirectoryTransferSummary summary = jetS3RESTService.uploadDirectory(BUCKET, uploadDir, null, config);
+		assertEquals(3, summary.getFilesTransferred());
+		assertEquals(Arrays.asList("video.bin"), summary.getFailedKeys());
+		assertEquals(Arrays.asList("en/data.txt", "fr/data.txt", "tmp/scratch.txt"), listKeys());
+	}
+
+	/**
+	 * List the keys of the bucket.
+	 *
+	 * @return the keys
+	 */
+	private List<String> listKeys() {
+		final List<String> keys = new ArrayList<String>();
+		final Iterator<StorageObject> objects = jetS3RESTService.listObjects(BUCKET, null, null);
+		while (objects.hasNext()) {
+			keys.add(objects.next().getKey());
+		}
+		return keys;
+	}
+
+	/**
+	 * Tear down.
+	 *
+	 * @throws Exception the exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+		try {
+			jetS3RESTService.shutdown();
+		} finally {
+			server.stop();
+		}
+	}
+}
@@ -23,6 +23,8 @@ import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.InputStream;
+import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
 
 import org.jets3t.service.acl.AccessControlList;
@@ -93,6 +95,22 @@ public class JetS3RESTServiceTest {
 		assertEquals(true, putObj);		
 	}
 	
+	/**
+	 * Test list objects.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testListObjects() throws Exception {
+		s3RESTService.createBucket(AWS_S3_BUCKET);//create bucket for test
+		s3RESTService.putObject(AWS_S3_BUCKET,new File(JetS3RESTServiceTest.class.getResource(
+				"/sample-file/TestPutObject.txt").getPath()));
+		final Iterator<StorageObject> objects = s3RESTService.listObjects(AWS_S3_BUCKET, null, null);
+		assertEquals(true, objects.hasNext());
+		assertEquals("TestPutObject.txt", objects.next().getKey());
+		assertEquals(false, objects.hasNext());
+	}
+	
 	/**
 	 * Test get bucket acl.
 	 *
@@ -149,6 +167,31 @@ public class JetS3RESTServiceTest {
 		}
 	}
 	
+	/**
+	 * Test upload object as multiparts resumable.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testUploadObjectAsMultipartsResumable() throws Exception {
+		s3RESTService.createBucket(AWS_S3_BUCKET);//create bucket for test
+		// Create a large (11 MB) file
+		File file = File.createTempFile("testLargeFile", ".txt");
+		BufferedOutputStream bos = new BufferedOutputStream(new FileOutputStream(file));
+		int offset = 0;
+		while (offset < 11 * 1024 * 1024) {
+			bos.write((offset++ % 256));
+		}
+		bos.close();
+
+		StorageObject objectKey = new StorageObject(file);
+		s3RESTService.uploadObjectAsMultipartsResumable(AWS_S3_BUCKET, objectKey, MultipartUtils.MIN_PART_SIZE);
+		S3Object s3Obj = s3RESTService.getObject(AWS_S3_BUCKET, objectKey.getKey());
+		assertEquals(file.length(), s3Obj.getContentLength());
+		assertEquals(0, s3RESTService.abortMultipartUploads(AWS_S3_BUCKET, new Date()));
+		file.delete();//Delete when operation completes.
+	}
+	
 	/**
 	 * Test get all buckets.
 	 *
@@ -202,6 +245,10 @@ public class JetS3RESTServiceTest {
 	 */
 	@After
 	public void tearDown() throws Exception {
-		s3RESTService.cleanAndDeleteBucket(AWS_S3_BUCKET);
+		try {
+			s3RESTService.cleanAndDeleteBucket(AWS_S3_BUCKET);
+		} finally {
+			s3RESTService.shutdown();
+		}
 	}
 }
@@ -0,0 +1,113 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.jets3.service;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+
+import org.apache.commons.io.FileUtils;
+import org.jets3t.service.ServiceException;
+import org.jets3t.service.model.S3Object;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.abhinavmishra14.aws.jets3.service.impl.JetS3RESTServiceImpl;
+import com.github.abhinavmishra14.aws.local.LocalS3Server;
+import com.github.abhinavmishra14.aws.util.AWSUtilConstants;
+import com.github.abhinavmishra14.aws.util.MultipartUploadJournal;
+
+/**
+ * The Class JetS3ResumableUploadTest.<br/>
+ * Runs resumable uploads of the JetS3t service against the in-process server.
+ *
+ * @author Abhinav kumar mishra
+ */
+public class JetS3ResumableUploadTest {
+
+	/** The Constant BUCKET. */
+	private static final String BUCKET = "jets3-resumable-test";
+
+	/** The Constant KEY. */
+	private static final String KEY = "video.bin";
+
+	/** The folder. */
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	/** The server. */
+	private LocalS3Server server;
+
+	/** The jet s3 rest service. */
+	private JetS3RESTService jetS3RESTService;
+
+	/** The journal directory. */
+	private File journalDir;
+
+	/**
+	 * Sets the up.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+		// Parts of 5 MB are rejected when the upload completes, leaving the journal behind
+		server = new LocalS3Server().setMinimumPartSize(7 * AWSUtilConstants.MEGABYTE).start();
+		journalDir = new File(folder.getRoot(), "journals");
+		jetS3RESTService = JetS3RESTServiceImpl.builder()
+				.withCredentials(LocalS3Server.ACCESS_KEY, LocalS3Server.SECRET_KEY)
+				.withJets3tProperties(server.newJets3tProperties()).withUploadJournalDirectory(journalDir).build();
+		jetS3RESTService.createBucket(BUCKET);
+	}
+
+	/**
+	 * Tear down.
+	 *
+	 * @throws Exception the exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+		jetS3RESTService.shutdown();
+		server.stop();
+	}
+
+	/**
+	 * Test a failed upload keeps its journal in the directory of the service.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testJournalInConfiguredDirectory() throws Exception {
+		final File source = folder.newFile(KEY);
+		FileUtils.writeByteArrayToFile(source, new byte[(int) (6 * AWSUtilConstants.MEGABYTE)]);
+		try {
+			jetS3RESTService.uploadObjectAsMultipartsResumable(BUCKET, new S3Object(source),
+					AWSUtilConstants.DEFAULT_MINIMUM_UPLOAD_PART_SIZE);
+			fail("Parts smaller than the minimum of the server were accepted");
+		} catch (ServiceException expected) {
+			assertTrue(MultipartUploadJournal.journalFileFor(journalDir, BUCKET, KEY, source).isFile());
+			assertFalse(MultipartUploadJournal.journalFileFor(MultipartUploadJournal.defaultJournalDirectory(),
+					BUCKET, KEY, source).exists());
+		}
+	}
+}
@@ -0,0 +1,364 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.local;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.jets3t.service.acl.AccessControlList;
+import org.jets3t.service.acl.Permission;
+import org.jets3t.service.model.S3Bucket;
+import org.jets3t.service.model.S3Object;
+import org.jets3t.service.model.StorageObject;
+import org.jets3t.service.utils.MultipartUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.event.ProgressEvent;
+import com.amazonaws.event.ProgressEventType;
+import com.amazonaws.event.SyncProgressListener;
+import com.amazonaws.services.s3.AmazonS3Client;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.CannedAccessControlList;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ListMultipartUploadsRequest;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectResult;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.github.abhinavmishra14.aws.jets3.service.JetS3RESTService;
+import com.github.abhinavmishra14.aws.jets3.service.impl.JetS3RESTServiceImpl;
+import com.github.abhinavmishra14.aws.s3.service.AwsS3IamService;
+import com.github.abhinavmishra14.aws.s3.service.impl.AwsS3IamServiceImpl;
+import com.github.abhinavmishra14.aws.s3.transfer.StreamingMultipartUploader;
+import com.github.abhinavmishra14.aws.s3.transfer.TransferConfig;
+import com.github.abhinavmishra14.aws.util.AWSUtilConstants;
+
+/**
+ * The Class LocalS3ServerTest.<br/>
+ * Runs both services against the in-process server, no credentials needed.
+ *
+ * @author Abhinav kumar mishra
+ */
+public class LocalS3ServerTest {
+
+	/** The Constant BUCKET. */
+	private static final String BUCKET = "local-s3-test";
+
+	/** The server. */
+	private LocalS3Server server;
+
+	/** The aws s3 service. */
+	private AwsS3IamService awsS3IamService;
+
+	/**
+	 * Sets the up.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+		server = new LocalS3Server().start();
+		awsS3IamService = new AwsS3IamServiceImpl(server.newAmazonS3Client(),
+				new TransferConfig().setParallelDownloadEnabled(true).setDownloadPartSize(AWSUtilConstants.MEGABYTE));
+		awsS3IamService.createBucket(BUCKET);
+	}
+
+	/**
+	 * Test upload, download, copy and delete with the aws sdk service.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testAwsS3IamService() throws Exception {
+		final byte[] content = randomBytes(3 * (int) AWSUtilConstants.MEGABYTE + 17);
+		awsS3IamService.uploadObject(BUCKET, "dir/data.bin", new ByteArrayInputStream(content));
+		try (InputStream in = awsS3IamService.getObject(BUCKET, "dir/data.bin")) {
+			assertArrayEquals(content, IOUtils.toByteArray(in));
+		}
+		final File downloaded = File.createTempFile("local-s3", ".bin");
+		try {
+			awsS3IamService.downloadObject(BUCKET, "dir/data.bin", downloaded.getAbsolutePath());
+			assertArrayEquals(content, FileUtils.readFileToByteArray(downloaded));
+		} finally {
+			downloaded.delete();
+		}
+		final com.amazonaws.services.s3.model.S3Object range = awsS3IamService
+				.getObject(new GetObjectRequest(BUCKET, "dir/data.bin").withRange(10, 19));
+		try (InputStream in = range.getObjectContent()) {
+			assertEquals(10, IOUtils.toByteArray(in).length);
+		}
+		awsS3IamService.copyObject(BUCKET, "dir/data.bin", BUCKET, "dir/copy.bin");
+		final Iterator<S3ObjectSummary> objects = awsS3IamService.listObjects(BUCKET, "dir/", null);
+		assertEquals("dir/copy.bin", objects.next().getKey());
+		assertEquals("dir/data.bin", objects.next().getKey());
+		assertEquals(false, objects.hasNext());
+		assertEquals(true, awsS3IamService.hasFullControlPermission(BUCKET));
+		assertEquals(2, awsS3IamService.deleteDirectory(BUCKET, "dir").getKeysDeleted());
+		assertEquals(false, awsS3IamService.listObjects(BUCKET, null, null).hasNext());
+	}
+
+	/**
+	 * Test multipart upload through the resumable uploader.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testMultipartUpload() throws Exception {
+		final File file = File.createTempFile("local-s3", ".bin");
+		try {
+			final byte[] content = randomBytes(11 * (int) AWSUtilConstants.MEGABYTE);
+			FileUtils.writeByteArrayToFile(file, content);
+			final PutObjectResult result = awsS3IamService.uploadFileResumable(BUCKET, "large.bin", file,
+					CannedAccessControlList.Private);
+			assertEquals(true, result.getETag().endsWith("-3"));
+			try (InputStream in = awsS3IamService.getObject(BUCKET, "large.bin")) {
+				assertArrayEquals(content, IOUtils.toByteArray(in));
+			}
+			assertEquals(0, awsS3IamService.abortMultipartUploads(BUCKET, new Date()));
+		} finally {
+			file.delete();
+		}
+	}
+
+	/**
+	 * Test a stream larger than two parts is uploaded as a streaming multipart
+	 * upload, and a failed part aborts it.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testStreamingMultipartUpload() throws Exception {
+		final int partSize = (int) AWSUtilConstants.DEFAULT_MINIMUM_UPLOAD_PART_SIZE;
+		final AmazonS3Client noRetryClient = server.newAmazonS3Client(new ClientConfiguration().withMaxErrorRetry(0));
+		final ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			final StreamingMultipartUploader uploader = new StreamingMultipartUploader(noRetryClient, executor,
+					partSize, 2);
+			final byte[] content = randomBytes(2 * partSize + 17);
+			final AtomicInteger partsCompleted = new AtomicInteger();
+			final PutObjectResult result = uploader.upload(BUCKET, "streamed.bin", new ByteArrayInputStream(content),
+					null, new SyncProgressListener() {
+						@Override
+						public void progressChanged(final ProgressEvent progressEvent) {
+							if (progressEvent.getEventType() == ProgressEventType.TRANSFER_PART_COMPLETED_EVENT) {
+								partsCompleted.incrementAndGet();
+							}
+						}
+					});
+			assertEquals(true, result.getETag().endsWith("-3"));
+			assertEquals(3, partsCompleted.get());
+			try (InputStream in = awsS3IamService.getObject(BUCKET, "streamed.bin")) {
+				assertArrayEquals(content, IOUtils.toByteArray(in));
+			}
+
+			// The upload is initiated once the first part is read, the next request is a part
+			final InputStream failingStream = new FilterInputStream(new ByteArrayInputStream(content)) {
+				private long position;
+
+				@Override
+				public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+					if (position > partSize && server.getFaultInjector().getInjectedErrorCount() == 0) {
+						server.getFaultInjector().failNextRequests(1, 500);
+					}
+					final int read = super.read(buffer, offset, length);
+					position += Math.max(read, 0);
+					return read;
+				}
+			};
+			try {
+				uploader.upload(BUCKET, "failed.bin", failingStream, null);
+				fail("Injected part failure was not reported");
+			} catch (AmazonClientException expected) {
+				assertEquals(1, server.getFaultInjector().getInjectedErrorCount());
+			}
+			assertEquals(true, noRetryClient.listMultipartUploads(new ListMultipartUploadsRequest(BUCKET))
+					.getMultipartUploads().isEmpty());
+			assertEquals(false, noRetryClient.doesObjectExist(BUCKET, "failed.bin"));
+		} finally {
+			executor.shutdownNow();
+			noRetryClient.shutdown();
+		}
+	}
+
+	/**
+	 * Test paged listing with a delimiter.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testListingWithDelimiter() throws Exception {
+		for (final String key : new String[] { "a/1", "a/2", "b/1", "c d+e", "f" }) {
+			awsS3IamService.uploadObject(BUCKET, key, new ByteArrayInputStream(new byte[0]));
+		}
+		final List<String> listed = new ArrayList<String>();
+		ObjectListing listing = awsS3IamService.listObjects(new ListObjectsRequest().withBucketName(BUCKET)
+				.withDelimiter("/").withMaxKeys(2));
+		while (true) {
+			listed.addAll(listing.getCommonPrefixes());
+			for (final S3ObjectSummary summary : listing.getObjectSummaries()) {
+				listed.add(summary.getKey());
+			}
+			if (!listing.isTruncated()) {
+				break;
+			}
+			listing = awsS3IamService.listNextBatchOfObjects(listing);
+		}
+		assertEquals("[a/, b/, c d+e, f]", listed.toString());
+	}
+
+	/**
+	 * Test the jets3t service.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testJetS3RESTService() throws Exception {
+		final JetS3RESTService s3RESTService = new JetS3RESTServiceImpl(LocalS3Server.ACCESS_KEY,
+				LocalS3Server.SECRET_KEY, server.newJets3tProperties());
+		final File file = File.createTempFile("testLargeFile", ".txt");
+		try {
+			s3RESTService.createBucket("jets3-test");
+			assertEquals(true, s3RESTService.putObject("jets3-test", new File(LocalS3ServerTest.class.getResource(
+					"/sample-file/TestPutObject.txt").getPath())));
+			final Iterator<StorageObject> objects = s3RESTService.listObjects("jets3-test", null, null);
+			assertEquals("TestPutObject.txt", objects.next().getKey());
+			assertEquals(false, objects.hasNext());
+			final AccessControlList acl = s3RESTService.getBucketAcl(new S3Bucket("jets3-test"));
+			assertEquals(Permission.PERMISSION_FULL_CONTROL, acl.getGrantAndPermissions()[0].getPermission());
+
+			FileUtils.writeByteArrayToFile(file, randomBytes(11 * (int) AWSUtilConstants.MEGABYTE));
+			final StorageObject objectKey = new StorageObject(file);
+			s3RESTService.uploadObjectAsMultiparts("jets3-test", objectKey, MultipartUtils.MIN_PART_SIZE);
+			final S3Object s3Obj = s3RESTService.getObject("jets3-test", objectKey.getKey());
+			assertEquals(file.length(), s3Obj.getContentLength());
+			s3Obj.closeDataInputStream();
+			s3RESTService.cleanAndDeleteBucket("jets3-test");
+			assertEquals(1, s3RESTService.getAllBuckets().size());
+		} finally {
+			file.delete();
+			s3RESTService.shutdown();
+		}
+	}
+
+	/**
+	 * Test injected errors are retried by the sdk, or surface when retries are disabled.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testFaultInjection() throws Exception {
+		awsS3IamService.uploadObject(BUCKET, "retried", new ByteArrayInputStream(new byte[] { 1 }));
+		server.getFaultInjector().reset().failNextRequests(2, 503);
+		final ObjectMetadata metadata = server.newAmazonS3Client().getObjectMetadata(BUCKET, "retried");
+		assertEquals(1, metadata.getContentLength());
+		assertEquals(2, server.getFaultInjector().getInjectedErrorCount());
+		assertEquals(3, server.getFaultInjector().getRequestCount());
+
+		final AmazonS3Client noRetryClient = server.newAmazonS3Client(new ClientConfiguration().withMaxErrorRetry(0));
+		server.getFaultInjector().reset().failNextRequests(1, 500);
+		try {
+			noRetryClient.getObjectMetadata(BUCKET, "retried");
+			fail("Injected error was not reported");
+		} catch (AmazonS3Exception s3Ex) {
+			assertEquals(500, s3Ex.getStatusCode());
+		} finally {
+			noRetryClient.shutdown();
+		}
+	}
+
+	/**
+	 * Test the disk store serves the objects it kept once restarted.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testDiskObjectStoreSurvivesRestart() throws Exception {
+		final File rootDir = Files.createTempDirectory("local-s3").toFile();
+		try {
+			final byte[] content = randomBytes(1024);
+			try (LocalS3Server diskServer = new LocalS3Server(new DiskObjectStore(rootDir)).start()) {
+				final AmazonS3Client s3client = diskServer.newAmazonS3Client();
+				s3client.createBucket(BUCKET);
+				s3client.putObject(BUCKET, "kept", new ByteArrayInputStream(content), new ObjectMetadata());
+				s3client.putObject(BUCKET, "kept", new ByteArrayInputStream(content), new ObjectMetadata());
+				s3client.shutdown();
+			}
+			try (LocalS3Server diskServer = new LocalS3Server(new DiskObjectStore(rootDir)).start()) {
+				final AmazonS3Client s3client = diskServer.newAmazonS3Client();
+				try (InputStream in = s3client.getObject(BUCKET, "kept").getObjectContent()) {
+					assertArrayEquals(content, IOUtils.toByteArray(in));
+				}
+				assertEquals(1, s3client.listObjects(BUCKET).getObjectSummaries().size());
+				s3client.shutdown();
+			}
+		} finally {
+			FileUtils.deleteDirectory(rootDir);
+		}
+	}
+
+	/**
+	 * Tear down.
+	 *
+	 * @throws Exception the exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+		try {
+			assertNotNull(awsS3IamService.cleanAndDeleteBucket(BUCKET));
+		} finally {
+			awsS3IamService.shutdown();
+			server.stop();
+		}
+	}
+
+	/**
+	 * Random bytes.
+	 *
+	 * @param length the length
+	 * @return the bytes
+	 */
+	private static byte[] randomBytes(final int length) {
+		final byte[] bytes = new byte[length];
+		new Random(length).nextBytes(bytes);
+		return bytes;
+	}
+}
@@ -0,0 +1,187 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.jets3t.service.S3ServiceException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.github.abhinavmishra14.aws.jets3.service.JetS3RESTService;
+import com.github.abhinavmishra14.aws.jets3.service.impl.JetS3RESTServiceImpl;
+import com.github.abhinavmishra14.aws.local.LocalS3Server;
+import com.github.abhinavmishra14.aws.s3.service.AwsS3IamService;
+import com.github.abhinavmishra14.aws.s3.service.impl.AwsS3IamServiceImpl;
+import com.github.abhinavmishra14.aws.s3.transfer.TransferConfig;
+
+/**
+ * The Class InMemoryMetricsCollectorTest.<br/>
+ * Checks the metrics recorded for both services against the in-process server.
+ *
+ * @author Abhinav kumar mishra
+ */
+public class InMemoryMetricsCollectorTest {
+
+	/** The Constant BUCKET. */
+	private static final String BUCKET = "metrics-test";
+
+	/** The folder. */
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	/** The server. */
+	private LocalS3Server server;
+
+	/** The metrics collector. */
+	private InMemoryMetricsCollector metricsCollector;
+
+	/**
+	 * Sets the up.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+		server = new LocalS3Server().start();
+		metricsCollector = new InMemoryMetricsCollector();
+	}
+
+	/**
+	 * Test the operations of the aws sdk service are recorded.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testAwsS3IamServiceMetrics() throws Exception {
+		final AwsS3IamService awsS3IamService = new AwsS3IamServiceImpl(server.newAmazonS3Client(),
+				new TransferConfig(), metricsCollector);
+		try {
+			awsS3IamService.createBucket(BUCKET);
+			awsS3IamService.uploadObject(BUCKET, "data.bin", new ByteArrayInputStream(new byte[100]));
+			try (InputStream in = awsS3IamService.getObject(BUCKET, "data.bin")) {
+				assertEquals(100, IOUtils.toByteArray(in).length);
+			}
+			awsS3IamService.listObjects(BUCKET, null, null).hasNext();
+			awsS3IamService.getBucketAccessControlList(BUCKET);
+			awsS3IamService.generateObjectURL(BUCKET, "data.bin");
+
+			server.getFaultInjector().failNextRequests(1, 503);
+			awsS3IamService.getObject(BUCKET, "data.bin").close();
+			try {
+				awsS3IamService.getObject(BUCKET, "missing.bin");
+				fail("Missing object was found");
+			} catch (AmazonS3Exception s3Ex) {
+				assertEquals("NoSuchKey", s3Ex.getErrorCode());
+			}
+		} finally {
+			awsS3IamService.shutdown();
+		}
+		assertEquals(1, metricsCollector.getStats(S3Operation.BUCKET).getCount());
+		final OperationStats put = metricsCollector.getStats(S3Operation.PUT);
+		assertEquals(1, put.getCount());
+		assertEquals(100, put.getBytesSent());
+		final OperationStats get = metricsCollector.getStats(S3Operation.GET);
+		assertEquals(3, get.getCount());
+		assertEquals(200, get.getBytesReceived());
+		assertEquals(1, get.getRetryCount());
+		assertEquals(1, get.getErrorCount());
+		assertEquals(Long.valueOf(1), get.getErrorCounts().get("NoSuchKey"));
+		assertEquals(0, get.getInFlight());
+		assertEquals(1, metricsCollector.getStats(S3Operation.LIST).getCount());
+		assertEquals(1, metricsCollector.getStats(S3Operation.ACL).getCount());
+		assertEquals(1, metricsCollector.getStats(S3Operation.PRESIGN).getCount());
+		assertTrue(get.getLatencyPercentileMillis(0.99) > 0);
+	}
+
+	/**
+	 * Test the operations of the jets3t service are recorded.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testJetS3RESTServiceMetrics() throws Exception {
+		final JetS3RESTService jetS3RESTService = new JetS3RESTServiceImpl(LocalS3Server.ACCESS_KEY,
+				LocalS3Server.SECRET_KEY, server.newJets3tProperties(), metricsCollector);
+		try {
+			jetS3RESTService.createBucket(BUCKET);
+			final File file = folder.newFile("data.txt");
+			FileUtils.writeStringToFile(file, "metrics", "UTF-8");
+			jetS3RESTService.putObject(BUCKET, file);
+			server.getFaultInjector().failNextRequests(1, 500);
+			try (InputStream in = jetS3RESTService.getObject(BUCKET, "data.txt").getDataInputStream()) {
+				assertEquals("metrics", IOUtils.toString(in, "UTF-8"));
+			}
+			try {
+				jetS3RESTService.getObject(BUCKET, "missing.txt");
+				fail("Missing object was found");
+			} catch (S3ServiceException s3Ex) {
+				assertEquals("NoSuchKey", s3Ex.getErrorCode());
+			}
+			jetS3RESTService.deleteObject(BUCKET, "data.txt");
+		} finally {
+			jetS3RESTService.shutdown();
+		}
+		assertEquals(1, metricsCollector.getStats(S3Operation.PUT).getCount());
+		assertEquals(7, metricsCollector.getStats(S3Operation.PUT).getBytesSent());
+		final OperationStats get = metricsCollector.getStats(S3Operation.GET);
+		assertEquals(2, get.getCount());
+		assertEquals(1, get.getRetryCount());
+		assertEquals(Long.valueOf(1), get.getErrorCounts().get("NoSuchKey"));
+		assertEquals(0, get.getInFlight());
+		assertEquals(1, metricsCollector.getStats(S3Operation.DELETE).getCount());
+	}
+
+	/**
+	 * Test the latency percentiles are within the histogram precision.
+	 */
+	@Test
+	public void testLatencyPercentiles() {
+		final OperationStats stats = new OperationStats(S3Operation.GET);
+		assertEquals(0, stats.getLatencyPercentileMillis(0.99), 0);
+		for (int millis = 1; millis <= 1000; millis++) {
+			stats.recordStarted();
+			stats.recordSucceeded(TimeUnit.MILLISECONDS.toNanos(millis), 0, 0);
+		}
+		assertEquals(500, stats.getLatencyPercentileMillis(0.5), 500 * 0.125);
+		assertEquals(990, stats.getLatencyPercentileMillis(0.99), 990 * 0.125);
+		assertEquals(500.5, stats.getMeanLatencyMillis(), 0.001);
+		assertEquals(0, stats.getInFlight());
+	}
+
+	/**
+	 * Tear down.
+	 */
+	@After
+	public void tearDown() {
+		server.stop();
+	}
+}
@@ -0,0 +1,265 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.retry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.services.s3.AmazonS3Client;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.github.abhinavmishra14.aws.local.LocalS3Server;
+import com.github.abhinavmishra14.aws.s3.retry.AdaptiveRetryHandler;
+import com.github.abhinavmishra14.aws.s3.service.AwsS3IamService;
+import com.github.abhinavmishra14.aws.s3.service.impl.AwsS3IamServiceImpl;
+import com.github.abhinavmishra14.aws.util.AWSUtilConstants;
+
+/**
+ * The Class AdaptiveRetryTest.<br/>
+ * Checks the backoff, the retry budget and the rate limiter, alone and on a
+ * client of the in-process server.
+ *
+ * @author Abhinav kumar mishra
+ */
+public class AdaptiveRetryTest {
+
+	/** The Constant BUCKET. */
+	private static final String BUCKET = "retry-test";
+
+	/** The Constant KEY. */
+	private static final String KEY = "logs/2016/data.bin";
+
+	/** The server. */
+	private LocalS3Server server;
+
+	/** The retry config. */
+	private AdaptiveRetryConfig retryConfig;
+
+	/**
+	 * Sets the up.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+		server = new LocalS3Server().start();
+		retryConfig = new AdaptiveRetryConfig().setBaseDelayMillis(5).setThrottleBaseDelayMillis(10)
+				.setMaxDelayMillis(50).setMinRequestsPerSecond(100);
+	}
+
+	/**
+	 * Test the delays stay between the base delay and three times the previous delay.
+	 */
+	@Test
+	public void testDecorrelatedJitterBackoff() {
+		final DecorrelatedJitterBackoff backoff = new DecorrelatedJitterBackoff(100, 5000);
+		long previousDelay = 0;
+		for (int retry = 0; retry < 1000; retry++) {
+			final long delay = backoff.nextDelayMillis(previousDelay);
+			assertTrue(delay >= 100);
+			assertTrue(delay <= Math.min(5000, Math.max(100, previousDelay) * 3));
+			previousDelay = delay;
+		}
+	}
+
+	/**
+	 * Test the budget refuses retries once spent and is refilled by successes.
+	 */
+	@Test
+	public void testRetryBudget() {
+		final RetryBudget retryBudget = new RetryBudget(2, 0.5);
+		assertTrue(retryBudget.tryAcquire());
+		assertTrue(retryBudget.tryAcquire());
+		assertFalse(retryBudget.tryAcquire());
+		retryBudget.onSuccess();
+		assertFalse(retryBudget.tryAcquire());
+		retryBudget.onSuccess();
+		assertTrue(retryBudget.tryAcquire());
+		assertEquals(2, retryBudget.getRejectedCount());
+		for (int success = 0; success < 10; success++) {
+			retryBudget.onSuccess();
+		}
+		assertEquals(2, retryBudget.getAvailableRetries(), 0);
+	}
+
+	/**
+	 * Test a throttled partition is paced and recovers with the successes.
+	 */
+	@Test
+	public void testAimdRateLimiter() {
+		final AimdRateLimiter rateLimiter = new AimdRateLimiter(100, 1, 0.5, 10);
+		for (int request = 0; request < 40; request++) {
+			assertEquals(0, rateLimiter.acquire("bucket/logs"));
+		}
+		rateLimiter.onThrottle("bucket/logs");
+		assertEquals(20, rateLimiter.getRate("bucket/logs"), 0);
+		assertEquals(Double.POSITIVE_INFINITY, rateLimiter.getRate("bucket/images"), 0);
+		// Throttles of requests sent together decrease the rate once
+		rateLimiter.onThrottle("bucket/logs");
+		assertEquals(20, rateLimiter.getRate("bucket/logs"), 0);
+
+		rateLimiter.acquire("bucket/logs");
+		final long waitNanos = rateLimiter.acquire("bucket/logs");
+		assertTrue(waitNanos > TimeUnit.MILLISECONDS.toNanos(40));
+		assertEquals(1, rateLimiter.getLimitedPartitionCount());
+		for (int success = 0; success < 8; success++) {
+			rateLimiter.onSuccess("bucket/logs");
+		}
+		assertEquals(Double.POSITIVE_INFINITY, rateLimiter.getRate("bucket/logs"), 0);
+		assertEquals(0, rateLimiter.getLimitedPartitionCount());
+	}
+
+	/**
+	 * Test throttled requests are retried and limit their partition.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testThrottledRequestsAreRetried() throws Exception {
+		final AdaptiveRetryHandler retryHandler = new AdaptiveRetryHandler(retryConfig);
+		final AwsS3IamService awsS3IamService = newService(retryHandler);
+		try {
+			awsS3IamService.createBucket(BUCKET);
+			awsS3IamService.uploadObject(BUCKET, KEY, new ByteArrayInputStream(new byte[10]));
+			server.getFaultInjector().failNextRequests(2, 503);
+			try (InputStream in = awsS3IamService.getObject(BUCKET, KEY)) {
+				assertEquals(10, IOUtils.toByteArray(in).length);
+			}
+			assertEquals(1, retryHandler.getRateLimiter().getLimitedPartitionCount());
+			assertEquals(Double.POSITIVE_INFINITY, retryHandler.getRateLimiter()
+					.getRate(server.getHost() + "/" + BUCKET), 0);
+			assertTrue(retryHandler.getRateLimiter().getRate(server.getHost() + "/" + BUCKET + "/logs")
+					< AWSUtilConstants.DEFAULT_MAX_REQUESTS_PER_SECOND);
+			assertTrue(retryHandler.getRetryBudget().getAvailableRetries() < 100);
+		} finally {
+			awsS3IamService.shutdown();
+		}
+	}
+
+	/**
+	 * Test the requests fail fast once the retry budget is spent.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testRetryBudgetStopsRetries() throws Exception {
+		final AdaptiveRetryHandler retryHandler = new AdaptiveRetryHandler(
+				retryConfig.setRetryBudgetCapacity(1).setRetryBudgetRefill(0));
+		final AwsS3IamService awsS3IamService = newService(retryHandler);
+		try {
+			awsS3IamService.createBucket(BUCKET);
+			awsS3IamService.uploadObject(BUCKET, KEY, new ByteArrayInputStream(new byte[10]));
+			server.getFaultInjector().reset().failNextRequests(3, 503);
+			try {
+				awsS3IamService.getObject(BUCKET, KEY);
+				fail("Throttled request succeeded");
+			} catch (AmazonS3Exception s3Ex) {
+				assertEquals("SlowDown", s3Ex.getErrorCode());
+			}
+			assertEquals(2, server.getFaultInjector().getInjectedErrorCount());
+			assertEquals(1, retryHandler.getRetryBudget().getRejectedCount());
+		} finally {
+			awsS3IamService.shutdown();
+		}
+	}
+
+	/**
+	 * Test the retries of a throttled request are paced by the rate of its partition.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testRetriesArePaced() throws Exception {
+		final int minRequestsPerSecond = 5;
+		final int throttles = 6;
+		final AdaptiveRetryHandler retryHandler = new AdaptiveRetryHandler(retryConfig
+				.setMinRequestsPerSecond(minRequestsPerSecond).setMaxRequestsPerSecond(10).setMaxErrorRetries(8));
+		final AwsS3IamService awsS3IamService = newService(retryHandler);
+		try {
+			awsS3IamService.createBucket(BUCKET);
+			awsS3IamService.uploadObject(BUCKET, KEY, new ByteArrayInputStream(new byte[10]));
+			server.getFaultInjector().reset().failNextRequests(throttles, 503);
+			final long startNanos = System.nanoTime();
+			try (InputStream in = awsS3IamService.getObject(BUCKET, KEY)) {
+				assertEquals(10, IOUtils.toByteArray(in).length);
+			}
+			final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+			assertEquals(throttles + 1, server.getFaultInjector().getRequestCount());
+			// The first retry takes the free slot, the next ones wait for theirs
+			final double requestsPerSecond = (throttles - 1) * 1000.0 / elapsedMillis;
+			assertTrue("Retries sent at " + requestsPerSecond + " requests per second",
+					requestsPerSecond <= minRequestsPerSecond * 1.1);
+		} finally {
+			awsS3IamService.shutdown();
+		}
+	}
+
+	/**
+	 * Test the builder installs the adaptive retries.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testBuilderWithRetryConfig() throws Exception {
+		final AwsS3IamService awsS3IamService = AwsS3IamServiceImpl.builder()
+				.withCredentials(LocalS3Server.ACCESS_KEY, LocalS3Server.SECRET_KEY)
+				.withEndpoint(server.getEndpoint()).withPathStyleAccess(true)
+				.withRetryConfig(retryConfig.setMaxErrorRetries(4)).build();
+		try {
+			awsS3IamService.createBucket(BUCKET);
+			server.getFaultInjector().failNextRequests(4, 503);
+			awsS3IamService.uploadObject(BUCKET, KEY, new ByteArrayInputStream(new byte[10]));
+			assertEquals(4, server.getFaultInjector().getInjectedErrorCount());
+		} finally {
+			awsS3IamService.shutdown();
+		}
+	}
+
+	/**
+	 * Creates a service whose client uses the given retry handler.
+	 *
+	 * @param retryHandler the retry handler
+	 * @return the aws s3 iam service
+	 */
+	private AwsS3IamService newService(final AdaptiveRetryHandler retryHandler) {
+		final ClientConfiguration clientConfiguration = new ClientConfiguration();
+		clientConfiguration.setRetryPolicy(retryHandler.newRetryPolicy());
+		final AmazonS3Client s3client = server.newAmazonS3Client(clientConfiguration);
+		s3client.addRequestHandler(retryHandler);
+		return new AwsS3IamServiceImpl(s3client);
+	}
+
+	/**
+	 * Tear down.
+	 */
+	@After
+	public void tearDown() {
+		server.stop();
+	}
+}
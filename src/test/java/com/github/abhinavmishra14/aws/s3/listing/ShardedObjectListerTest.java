@@ -0,0 +1,218 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.s3.listing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.github.abhinavmishra14.aws.local.LocalS3Server;
+import com.github.abhinavmishra14.aws.util.AWSUtilConstants;
+
+/**
+ * The Class ShardedObjectListerTest.<br/>
+ * Lists buckets of the in-process server with several shards and checks the
+ * objects returned and the requests sent to discover the key space.
+ *
+ * @author Abhinav kumar mishra
+ */
+public class ShardedObjectListerTest {
+
+	/** The Constant BUCKET. */
+	private static final String BUCKET = "sharded-listing-test";
+
+	/** The server. */
+	private LocalS3Server server;
+
+	/** The s3client. */
+	private AmazonS3 s3client;
+
+	/** The executor. */
+	private ExecutorService executor;
+
+	/**
+	 * Sets the up.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+		server = new LocalS3Server().start();
+		s3client = server.newAmazonS3Client();
+		s3client.createBucket(BUCKET);
+		executor = Executors.newFixedThreadPool(4);
+	}
+
+	/**
+	 * Test the keys under a prefix are all listed, in key order or as they arrive.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testOrderedAndUnorderedListings() throws Exception {
+		final List<String> keys = Arrays.asList("data/a.txt", "data/dir1/b.txt", "data/dir1/sub/c.txt",
+				"data/dir2/d.txt", "data/e.txt", "data/z/f.txt");
+		putObjects(keys);
+		putObjects(Arrays.asList("root.txt", "other/g.txt"));
+		assertEquals(keys, list("data/", 3, true));
+		assertEquals(new HashSet<String>(keys), new HashSet<String>(list("data/", 3, false)));
+		assertEquals(keys.size() + 2, list(null, 2, true).size());
+	}
+
+	/**
+	 * Test no level is listed once there are as many shards as the parallelism.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testDiscoveryStopsAtParallelism() throws Exception {
+		final List<String> keys = new ArrayList<String>();
+		for (final String top : Arrays.asList("a/", "b/")) {
+			for (int index = 0; index < 10; index++) {
+				keys.add(top + index + "/file.txt");
+			}
+		}
+		putObjects(keys);
+		final long requestsBefore = server.getFaultInjector().getRequestCount();
+		assertEquals(keys, list(null, 4, true));
+		// The root and a/ are listed to discover the shards, b/ is already one of them.
+		// Then each of the 10 shards under a/ is listed, plus b/.
+		assertEquals(2 + 10 + 1, server.getFaultInjector().getRequestCount() - requestsBefore);
+	}
+
+	/**
+	 * Test a level with more common prefixes than the discovery allows is listed as one shard.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testWideLevelIsListedAsOneShard() throws Exception {
+		final List<String> keys = new ArrayList<String>();
+		for (int index = 0; index <= AWSUtilConstants.MAX_DISCOVERY_PREFIXES; index++) {
+			keys.add(String.format("%05d/file.txt", index));
+		}
+		putObjects(keys);
+		final long requestsBefore = server.getFaultInjector().getRequestCount();
+		assertEquals(keys, list(null, 4, true));
+		// Two pages of common prefixes to give up on the root, two pages to list it
+		assertEquals(4, server.getFaultInjector().getRequestCount() - requestsBefore);
+	}
+
+	/**
+	 * Test shards with full queues give their pool thread back, other tasks of
+	 * the pool run while the listing is not read.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testFullQueuesDoNotHoldThePool() throws Exception {
+		final List<String> keys = new ArrayList<String>();
+		for (final String top : Arrays.asList("a/", "b/")) {
+			for (int index = 0; index < (AWSUtilConstants.LISTING_PAGES_BUFFERED + 1)
+					* AWSUtilConstants.MAX_KEYS_PER_REQUEST; index++) {
+				keys.add(String.format("%s%05d.txt", top, index));
+			}
+		}
+		putObjects(keys);
+		final ExecutorService singleThread = Executors.newSingleThreadExecutor();
+		try (ShardedObjectIterator summaries = new ShardedObjectLister(s3client, singleThread, 2).list(BUCKET, null,
+				AWSUtilConstants.SEPARATOR, true)) {
+			// Both shards fill their queues and park, the pool thread is free again
+			assertNull(singleThread.submit(() -> null).get(10, TimeUnit.SECONDS));
+			final List<String> listed = new ArrayList<String>();
+			while (summaries.hasNext()) {
+				listed.add(summaries.next().getKey());
+			}
+			assertEquals(keys, listed);
+		} finally {
+			singleThread.shutdownNow();
+		}
+	}
+
+	/**
+	 * Test the segments are sorted the way S3 lists keys, by code point.
+	 */
+	@Test
+	public void testSegmentsSortedByCodePoint() {
+		// U+E000 sorts after U+1F600 as UTF-16 chars, before it as code points
+		final ListingSegment emoji = ListingSegment.forShard("\uD83D\uDE00/");
+		final ListingSegment privateUse = ListingSegment.forShard("\uE000/");
+		final ListingSegment ascii = ListingSegment.forShard("z/");
+		final List<ListingSegment> segments = new ArrayList<ListingSegment>(Arrays.asList(emoji, privateUse, ascii));
+		Collections.sort(segments);
+		assertEquals(Arrays.asList(ascii, privateUse, emoji), segments);
+	}
+
+	/**
+	 * Put the objects, straight into the store of the server.
+	 *
+	 * @param keys the keys
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private void putObjects(final List<String> keys) throws IOException {
+		for (final String key : keys) {
+			server.getObjectStore().putObject(BUCKET, key,
+					new ByteArrayInputStream(key.getBytes(StandardCharsets.UTF_8)),
+					Collections.<String, String> emptyMap(), null);
+		}
+	}
+
+	/**
+	 * List the keys under the prefix.
+	 *
+	 * @param prefix the prefix
+	 * @param parallelism the parallelism
+	 * @param ordered the ordered
+	 * @return the keys
+	 */
+	private List<String> list(final String prefix, final int parallelism, final boolean ordered) {
+		final List<String> keys = new ArrayList<String>();
+		try (ShardedObjectIterator summaries = new ShardedObjectLister(s3client, executor, parallelism).list(BUCKET,
+				prefix, AWSUtilConstants.SEPARATOR, ordered)) {
+			while (summaries.hasNext()) {
+				keys.add(summaries.next().getKey());
+			}
+		}
+		return keys;
+	}
+
+	/**
+	 * Tear down.
+	 */
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+		server.stop();
+	}
+}
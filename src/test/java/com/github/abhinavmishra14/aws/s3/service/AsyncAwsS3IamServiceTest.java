@@ -0,0 +1,159 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.s3.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.PutObjectResult;
+import com.github.abhinavmishra14.aws.local.LocalS3Server;
+import com.github.abhinavmishra14.aws.s3.service.impl.AsyncAwsS3IamServiceImpl;
+import com.github.abhinavmishra14.aws.s3.service.impl.AwsS3IamServiceImpl;
+import com.github.abhinavmishra14.aws.util.AWSUtilConstants;
+
+/**
+ * The Class AsyncAwsS3IamServiceTest.<br/>
+ * Runs the asynchronous service against the in-process server.
+ *
+ * @author Abhinav kumar mishra
+ */
+public class AsyncAwsS3IamServiceTest {
+
+	/** The server. */
+	private LocalS3Server server;
+
+	/** The aws s3 iam service. */
+	private AwsS3IamService awsS3IamService;
+
+	/** The async aws s3 iam service. */
+	private AsyncAwsS3IamService asyncAwsS3IamService;
+
+	/** The Constant AWS_S3_BUCKET. */
+	private static final String AWS_S3_BUCKET = "s3-publishing-test";
+
+	/**
+	 * Sets the up.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+		server = new LocalS3Server().start();
+		awsS3IamService = new AwsS3IamServiceImpl(server.newAmazonS3Client());
+		asyncAwsS3IamService = new AsyncAwsS3IamServiceImpl(awsS3IamService, 2);
+		awsS3IamService.createBucket(AWS_S3_BUCKET);//create bucket for test
+	}
+
+	/**
+	 * Test upload, copy and list chained without blocking.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testUploadCopyAndList() throws Exception {
+		final InputStream inStream = AsyncAwsS3IamServiceTest.class
+				.getResourceAsStream("/sample-file/TestPutObject.txt");
+		final CompletableFuture<ObjectListing> listing = asyncAwsS3IamService
+				.uploadObject(AWS_S3_BUCKET, AWSUtilConstants.SAMPLE_FILE_NAME, inStream)
+				.thenCompose((final PutObjectResult putResult) -> asyncAwsS3IamService.copyObject(AWS_S3_BUCKET,
+						AWSUtilConstants.SAMPLE_FILE_NAME, AWS_S3_BUCKET, "copy/" + AWSUtilConstants.SAMPLE_FILE_NAME))
+				.thenCompose(copyResult -> asyncAwsS3IamService
+						.listObjects(new ListObjectsRequest().withBucketName(AWS_S3_BUCKET)));
+		assertEquals(2, listing.get().getObjectSummaries().size());
+		assertTrue(asyncAwsS3IamService.hasFullControlPermission(AWS_S3_BUCKET).get());
+	}
+
+	/**
+	 * Test that operations over the in flight limit are rejected.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testMaxInFlight() throws Exception {
+		// Slow requests keep the first two operations in flight
+		server.getFaultInjector().setLatency(500, 500);
+		final CompletableFuture<?> first = asyncAwsS3IamService.hasWritePermissionOnBucket(AWS_S3_BUCKET);
+		final CompletableFuture<?> second = asyncAwsS3IamService.hasWritePermissionOnBucket(AWS_S3_BUCKET);
+		final CompletableFuture<?> third = asyncAwsS3IamService.hasWritePermissionOnBucket(AWS_S3_BUCKET);
+		try {
+			third.get();
+			fail("The operation over the in flight limit is expected to be rejected");
+		} catch (ExecutionException execEx) {
+			assertTrue(execEx.getCause() instanceof RejectedExecutionException);
+		}
+		first.get();
+		second.get();
+		assertEquals(0, asyncAwsS3IamService.getInFlightCount());
+	}
+
+	/**
+	 * Test a cancelled operation holds its slot until its call returns.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testCancelKeepsSlotUntilDone() throws Exception {
+		server.getFaultInjector().setLatency(500, 500);
+		final CompletableFuture<?> first = asyncAwsS3IamService.hasWritePermissionOnBucket(AWS_S3_BUCKET);
+		final CompletableFuture<?> second = asyncAwsS3IamService.hasWritePermissionOnBucket(AWS_S3_BUCKET);
+		assertTrue(first.cancel(true));
+		// The cancelled call is still running on its thread
+		assertEquals(2, asyncAwsS3IamService.getInFlightCount());
+		try {
+			asyncAwsS3IamService.hasWritePermissionOnBucket(AWS_S3_BUCKET).get();
+			fail("The operation over the in flight limit is expected to be rejected");
+		} catch (ExecutionException execEx) {
+			assertTrue(execEx.getCause() instanceof RejectedExecutionException);
+		}
+		second.get();
+		final long deadline = System.currentTimeMillis() + 5000;
+		while (asyncAwsS3IamService.getInFlightCount() > 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(0, asyncAwsS3IamService.getInFlightCount());
+	}
+
+	/**
+	 * Tear down.
+	 */
+	@After
+	public void tearDown() {
+		server.getFaultInjector().reset();
+		try {
+			awsS3IamService.cleanAndDeleteBucket(AWS_S3_BUCKET);
+		} catch (Exception excp) {
+			System.out.println("TearDown: " + excp.getMessage());
+		} finally {
+			asyncAwsS3IamService.shutdown();
+			awsS3IamService.shutdown();
+			server.stop();
+		}
+	}
+}
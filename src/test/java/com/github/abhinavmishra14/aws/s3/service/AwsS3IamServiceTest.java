@@ -19,13 +19,21 @@ package com.github.abhinavmishra14.aws.s3.service;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.junit.After;
 import org.junit.Before;
@@ -34,6 +42,7 @@ import org.junit.Test;
 import com.amazonaws.services.s3.model.AmazonS3Exception;
 import com.amazonaws.services.s3.model.Bucket;
 import com.amazonaws.services.s3.model.CannedAccessControlList;
+import com.amazonaws.services.s3.model.CopyObjectResult;
 import com.amazonaws.services.s3.model.DeleteObjectsRequest.KeyVersion;
 import com.amazonaws.services.s3.model.DeleteObjectsResult;
 import com.amazonaws.services.s3.model.GetObjectRequest;
@@ -42,11 +51,18 @@ import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.Permission;
 import com.amazonaws.services.s3.model.PutObjectResult;
 import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
 import com.amazonaws.services.s3.transfer.Upload;
 import com.amazonaws.util.StringUtils;
+import com.github.abhinavmishra14.aws.s3.listing.ShardedObjectIterator;
 import com.github.abhinavmishra14.aws.s3.service.impl.AwsS3IamServiceImpl;
+import com.github.abhinavmishra14.aws.s3.transfer.TransferPoolStats;
 import com.github.abhinavmishra14.aws.util.AWSUtil;
 import com.github.abhinavmishra14.aws.util.AWSUtilConstants;
+import com.github.abhinavmishra14.aws.util.BulkDeleteSummary;
+import com.github.abhinavmishra14.aws.util.DirectoryTransferSummary;
+import com.github.abhinavmishra14.aws.util.ProgressSnapshot;
+import com.github.abhinavmishra14.aws.util.TransferProgressListener;
 
 /**
  * The Class AwsS3IamServiceTest.
@@ -226,6 +242,60 @@ public class AwsS3IamServiceTest{
 		assertEquals(true,upload.isDone());
 	}
 	
+	/**
+     * Test method for {@link com.github.abhinavmishra14.aws.s3.service.AwsS3IamService#uploadFileAsync(java.lang.String, java.lang.String, java.io.File, com.amazonaws.services.s3.model.CannedAccessControlList, com.github.abhinavmishra14.aws.util.TransferProgressListener)}.
+     *
+     * @throws Exception the exception
+     */
+	@Test
+	public void testUploadFileAsyncWithProgressListener() throws Exception{
+		awsS3IamService.createBucket(AWS_S3_BUCKET);//create bucket for test
+		InputStream inStream = AwsS3IamServiceTest.class
+				.getResourceAsStream("/sample-file/TestPutObject.txt");
+		final File tempFile = AWSUtil.createTempFileFromStream(inStream);
+		final CountDownLatch completed = new CountDownLatch(1);
+		final AtomicLong bytesTransferred = new AtomicLong();
+		awsS3IamService.uploadFileAsync(AWS_S3_BUCKET, AWSUtilConstants.SAMPLE_FILE_NAME, tempFile, null,
+				new TransferProgressListener() {
+					@Override
+					public void onProgress(final ProgressSnapshot progress) {
+						// Only the final snapshot is checked
+					}
+
+					@Override
+					public void onCompleted(final ProgressSnapshot progress) {
+						bytesTransferred.set(progress.getBytesTransferred());
+						completed.countDown();
+					}
+				});
+		assertTrue(completed.await(60, TimeUnit.SECONDS));
+		assertEquals(tempFile.length(), bytesTransferred.get());
+	}
+	
+	/**
+     * Test method for {@link com.github.abhinavmishra14.aws.s3.service.AwsS3IamService#uploadFileResumable(java.lang.String, java.lang.String, java.io.File, com.amazonaws.services.s3.model.CannedAccessControlList)}.
+     *
+     * @throws Exception the exception
+     */
+	@Test
+	public void testUploadFileResumable() throws Exception{
+		awsS3IamService.createBucket(AWS_S3_BUCKET);//create bucket for test
+		// Create a large (11 MB) file, uploaded as 3 parts
+		final File file = File.createTempFile("testLargeFile", ".txt");
+		try (BufferedOutputStream bos = new BufferedOutputStream(new FileOutputStream(file))) {
+			for (int offset = 0; offset < 11 * 1024 * 1024; offset++) {
+				bos.write(offset % 256);
+			}
+		}
+		try {
+			final PutObjectResult putResult = awsS3IamService.uploadFileResumable(AWS_S3_BUCKET, "large.txt", file, null);
+			assertTrue(putResult.getETag().endsWith("-3"));
+			assertEquals(0, awsS3IamService.abortMultipartUploads(AWS_S3_BUCKET, new Date()));
+		} finally {
+			file.delete();
+		}
+	}
+	
 	/**
      * Test method for {@link com.github.abhinavmishra14.aws.s3.service.AwsS3IamService#uploadFileAsync(java.lang.String, java.lang.String, java.io.File,boolean)}.
      *
@@ -363,6 +433,25 @@ public class AwsS3IamServiceTest{
 		assertNotNull(objMetadata);
 		assertEquals(true, objMetadata.getContentLength()>0);// check if content available
 	}
+
+	/**
+	 * Test download directory.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testDownloadDirectory() throws Exception {
+		awsS3IamService.createBucket(AWS_S3_BUCKET);//create bucket for test
+		uploadObjectForTest("test/" + AWSUtilConstants.SAMPLE_FILE_NAME);
+		uploadObjectForTest("test/sub/" + AWSUtilConstants.SAMPLE_FILE_NAME);
+		final File localDir = new File(System.getProperty("java.io.tmpdir"), "s3-download-test");
+		DirectoryTransferSummary summary = awsS3IamService.downloadDirectory(AWS_S3_BUCKET, "test", localDir);
+		assertEquals(2, summary.getFilesTransferred());
+		assertTrue(new File(localDir, "sub/" + AWSUtilConstants.SAMPLE_FILE_NAME).isFile());
+		// Second run finds the files up to date
+		summary = awsS3IamService.downloadDirectory(AWS_S3_BUCKET, "test", localDir);
+		assertEquals(2, summary.getFilesSkipped());
+	}
 		
 	/**
 	 * Test method for {@link com.github.abhinavmishra14.aws.s3.service.AwsS3IamService#createDirectory(java.lang.String, java.lang.String)}.
@@ -440,6 +529,81 @@ public class AwsS3IamServiceTest{
 		assertNotNull(delResp);
 	}
 	
+	/**
+	 * Test method for {@link com.github.abhinavmishra14.aws.s3.service.AwsS3IamService#listObjects(java.lang.String, java.lang.String, java.lang.String)}.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testListObjects() throws Exception {
+		awsS3IamService.createBucket(AWS_S3_BUCKET);//create bucket for test
+		uploadObjectForTest(AWSUtilConstants.SAMPLE_FILE_NAME);
+		uploadObjectForTest("test/" + AWSUtilConstants.SAMPLE_FILE_NAME);
+		int count = 0;
+		final Iterator<S3ObjectSummary> summaries = awsS3IamService.listObjects(AWS_S3_BUCKET, null, null);
+		while (summaries.hasNext()) {
+			assertNotNull(summaries.next().getKey());
+			count++;
+		}
+		assertEquals(2, count);
+		// Only the top level object with the delimiter
+		final Iterator<S3ObjectSummary> topLevel = awsS3IamService.listObjects(AWS_S3_BUCKET, null,
+				AWSUtilConstants.SEPARATOR);
+		assertEquals(AWSUtilConstants.SAMPLE_FILE_NAME, topLevel.next().getKey());
+		assertTrue(!topLevel.hasNext());
+	}
+
+	/**
+	 * Test method for {@link com.github.abhinavmishra14.aws.s3.service.AwsS3IamService#listObjectsInParallel(java.lang.String, java.lang.String, int, boolean)}.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testListObjectsInParallel() throws Exception {
+		awsS3IamService.createBucket(AWS_S3_BUCKET);//create bucket for test
+		uploadObjectForTest(AWSUtilConstants.SAMPLE_FILE_NAME);
+		uploadObjectForTest("dir1/" + AWSUtilConstants.SAMPLE_FILE_NAME);
+		uploadObjectForTest("dir2/" + AWSUtilConstants.SAMPLE_FILE_NAME);
+		final List<String> keys = new ArrayList<String>();
+		try (ShardedObjectIterator summaries = awsS3IamService.listObjectsInParallel(AWS_S3_BUCKET, null, 2, true)) {
+			while (summaries.hasNext()) {
+				keys.add(summaries.next().getKey());
+			}
+		}
+		assertEquals(3, keys.size());
+		assertEquals(AWSUtilConstants.SAMPLE_FILE_NAME, keys.get(0));
+		assertEquals("dir1/" + AWSUtilConstants.SAMPLE_FILE_NAME, keys.get(1));
+	}
+
+	/**
+	 * Test method for {@link com.github.abhinavmishra14.aws.s3.service.AwsS3IamService#deleteDirectory(java.lang.String, java.lang.String)}.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testDeleteDirectory() throws Exception {
+		awsS3IamService.createBucket(AWS_S3_BUCKET);//create bucket for test
+		awsS3IamService.createDirectory(AWS_S3_BUCKET, "test");
+		uploadObjectForTest("test/" + AWSUtilConstants.SAMPLE_FILE_NAME);
+		final BulkDeleteSummary deleteSummary = awsS3IamService.deleteDirectory(AWS_S3_BUCKET, "test");
+		assertTrue(deleteSummary.isComplete());
+		assertEquals(2, deleteSummary.getKeysDeleted());
+	}
+
+	/**
+	 * Test method for {@link com.github.abhinavmishra14.aws.s3.service.AwsS3IamService#copyObject(java.lang.String, java.lang.String, java.lang.String, java.lang.String)}.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testCopyObject() throws Exception {
+		awsS3IamService.createBucket(AWS_S3_BUCKET);//create bucket for test
+		final PutObjectResult putResult = uploadObjectForTest(AWSUtilConstants.SAMPLE_FILE_NAME);
+		final CopyObjectResult copyResult = awsS3IamService.copyObject(AWS_S3_BUCKET,
+				AWSUtilConstants.SAMPLE_FILE_NAME, AWS_S3_BUCKET, "copy/" + AWSUtilConstants.SAMPLE_FILE_NAME);
+		assertEquals(putResult.getETag(), copyResult.getETag());
+	}
+
 	/**
 	 * Test method for {@link com.github.abhinavmishra14.aws.s3.service.AwsS3IamService#isBucketExists(java.lang.String)}.
 	 *
@@ -480,6 +644,23 @@ public class AwsS3IamServiceTest{
 		assertEquals(true,url.getPath().contains(AWSUtilConstants.SAMPLE_FILE_NAME));
 	}
 	
+	/**
+	 * Test method for {@link com.github.abhinavmishra14.aws.s3.service.AwsS3IamService#getTransferPoolStats()}.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testGetTransferPoolStats() throws Exception {
+		awsS3IamService.createBucket(AWS_S3_BUCKET);//create bucket for test
+		InputStream inStream = AwsS3IamServiceTest.class.getResourceAsStream("/sample-file/TestPutObject.txt");
+		awsS3IamService.uploadObjectAndListenProgress(AWS_S3_BUCKET, AWSUtilConstants.SAMPLE_FILE_NAME, inStream);
+		TransferPoolStats poolStats = awsS3IamService.getTransferPoolStats();
+		assertNotNull(poolStats);
+		assertEquals(AWSUtilConstants.DEFAULT_TRANSFER_THREAD_COUNT, poolStats.getMaximumPoolSize());
+		assertEquals(true, poolStats.getCompletedTaskCount() > 0);
+		assertEquals(false, poolStats.isShutdown());
+	}
+
 	/**
 	 * Upload object for test.
 	 *
@@ -503,6 +684,8 @@ public class AwsS3IamServiceTest{
 			awsS3IamService.cleanAndDeleteBucket(AWS_S3_BUCKET);
 		} catch (Exception excp) {
 			System.out.println("TearDown: "+excp.getMessage());
+		} finally {
+			awsS3IamService.shutdown();
 		}
 	}
 }
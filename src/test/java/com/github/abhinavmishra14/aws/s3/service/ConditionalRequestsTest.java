@@ -0,0 +1,176 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.s3.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
+import com.github.abhinavmishra14.aws.local.LocalS3Server;
+import com.github.abhinavmishra14.aws.s3.service.impl.AwsS3IamServiceImpl;
+import com.github.abhinavmishra14.aws.s3.transfer.TransferConfig;
+
+/**
+ * The Class ConditionalRequestsTest.<br/>
+ * Checks the HEAD and conditional GET methods of the service against the
+ * in-process server.
+ *
+ * @author Abhinav kumar mishra
+ */
+public class ConditionalRequestsTest {
+
+	/** The Constant BUCKET. */
+	private static final String BUCKET = "conditional-test";
+
+	/** The Constant KEY. */
+	private static final String KEY = "reports/daily.csv";
+
+	/** The temporary folder. */
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	/** The server. */
+	private LocalS3Server server;
+
+	/** The aws s3 iam service. */
+	private AwsS3IamService awsS3IamService;
+
+	/**
+	 * Sets the up.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+		server = new LocalS3Server().start();
+		awsS3IamService = new AwsS3IamServiceImpl(server.newAmazonS3Client());
+		awsS3IamService.createBucket(BUCKET);
+		upload("a,b,c");
+	}
+
+	/**
+	 * Test head object.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testHeadObject() throws Exception {
+		final ObjectMetadata metadata = awsS3IamService.headObject(BUCKET, KEY);
+		assertEquals(5, metadata.getContentLength());
+		assertNotNull(metadata.getETag());
+		assertNull(awsS3IamService.headObject(BUCKET, "reports/missing.csv"));
+	}
+
+	/**
+	 * Test get object if modified.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testGetObjectIfModified() throws Exception {
+		final ObjectMetadata metadata = awsS3IamService.headObject(BUCKET, KEY);
+		assertNull(awsS3IamService.getObjectIfModified(BUCKET, KEY, metadata.getETag(), null));
+		assertNull(awsS3IamService.getObjectIfModified(BUCKET, KEY, null, metadata.getLastModified()));
+		upload("d,e,f");
+		try (S3Object s3Object = awsS3IamService.getObjectIfModified(BUCKET, KEY, metadata.getETag(), null)) {
+			assertEquals("d,e,f", IOUtils.toString(s3Object.getObjectContent(), StandardCharsets.UTF_8));
+		}
+	}
+
+	/**
+	 * Test download object if changed.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testDownloadObjectIfChanged() throws Exception {
+		final File localFile = new File(temporaryFolder.getRoot(), "daily.csv");
+		assertNotNull(awsS3IamService.downloadObjectIfChanged(BUCKET, KEY, localFile.getPath()));
+		server.getFaultInjector().reset();
+		assertNull(awsS3IamService.downloadObjectIfChanged(BUCKET, KEY, localFile.getPath()));
+		// One conditional GET answered 304
+		assertEquals(1, server.getFaultInjector().getRequestCount());
+		// Same size, other content
+		upload("d,e,f");
+		server.getFaultInjector().reset();
+		assertNotNull(awsS3IamService.downloadObjectIfChanged(BUCKET, KEY, localFile.getPath()));
+		assertEquals(1, server.getFaultInjector().getRequestCount());
+		assertEquals("d,e,f", FileUtils.readFileToString(localFile, StandardCharsets.UTF_8));
+		assertNull(awsS3IamService.downloadObjectIfChanged(BUCKET, KEY, localFile.getPath()));
+	}
+
+	/**
+	 * Test download object if changed without the ranged parallel downloads.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testDownloadObjectIfChangedInOneRequest() throws Exception {
+		final AwsS3IamService singleGetService = new AwsS3IamServiceImpl(server.newAmazonS3Client(),
+				new TransferConfig().setParallelDownloadEnabled(false));
+		try {
+			final File localFile = new File(temporaryFolder.getRoot(), "daily.csv");
+			assertNotNull(singleGetService.downloadObjectIfChanged(BUCKET, KEY, localFile.getPath()));
+			assertEquals("a,b,c", FileUtils.readFileToString(localFile, StandardCharsets.UTF_8));
+			server.getFaultInjector().reset();
+			assertNull(singleGetService.downloadObjectIfChanged(BUCKET, KEY, localFile.getPath()));
+			assertEquals(1, server.getFaultInjector().getRequestCount());
+			upload("d,e,f");
+			assertNotNull(singleGetService.downloadObjectIfChanged(BUCKET, KEY, localFile.getPath()));
+			assertEquals("d,e,f", FileUtils.readFileToString(localFile, StandardCharsets.UTF_8));
+		} finally {
+			singleGetService.shutdown();
+		}
+	}
+
+	/**
+	 * Uploads the content of the test object.
+	 *
+	 * @param content the content
+	 * @throws Exception the exception
+	 */
+	private void upload(final String content) throws Exception {
+		awsS3IamService.uploadObject(BUCKET, KEY, new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	/**
+	 * Tear down.
+	 */
+	@After
+	public void tearDown() {
+		try {
+			awsS3IamService.shutdown();
+		} finally {
+			server.stop();
+		}
+	}
+}
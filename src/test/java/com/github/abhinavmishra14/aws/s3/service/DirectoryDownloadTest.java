@@ -0,0 +1,161 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.s3.service;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Random;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.github.abhinavmishra14.aws.local.LocalS3Server;
+import com.github.abhinavmishra14.aws.s3.service.impl.AwsS3IamServiceImpl;
+import com.github.abhinavmishra14.aws.s3.transfer.TransferConfig;
+import com.github.abhinavmishra14.aws.util.AWSUtilConstants;
+import com.github.abhinavmishra14.aws.util.DirectoryTransferSummary;
+
+/**
+ * The Class DirectoryDownloadTest.<br/>
+ * Downloads a prefix of the in-process server into a local directory and checks
+ * the files written, skipped and failed.
+ *
+ * @author Abhinav kumar mishra
+ */
+public class DirectoryDownloadTest {
+
+	/** The Constant BUCKET. */
+	private static final String BUCKET = "download-test";
+
+	/** The temporary folder. */
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	/** The server. */
+	private LocalS3Server server;
+
+	/** The aws s3 iam service. */
+	private AwsS3IamService awsS3IamService;
+
+	/** The content of the object downloaded in ranges. */
+	private byte[] largeContent;
+
+	/**
+	 * Sets the up.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+		server = new LocalS3Server().start();
+		// Objects larger than 1 MB are downloaded in ranges
+		awsS3IamService = new AwsS3IamServiceImpl(server.newAmazonS3Client(),
+				new TransferConfig().setDownloadPartSize(AWSUtilConstants.MEGABYTE).setDirectoryFilesInFlight(2));
+		awsS3IamService.createBucket(BUCKET);
+		putObject("test/a.txt", "a".getBytes(StandardCharsets.UTF_8));
+		putObject("test/sub/b.txt", "b".getBytes(StandardCharsets.UTF_8));
+		largeContent = new byte[(int) (2.5 * AWSUtilConstants.MEGABYTE)];
+		new Random(1).nextBytes(largeContent);
+		putObject("test/sub/large.bin", largeContent);
+		putObject("other/c.txt", "c".getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Test the key hierarchy is recreated and files up to date are skipped.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testDownloadDirectory() throws Exception {
+		final File localDir = temporaryFolder.newFolder("local");
+		DirectoryTransferSummary summary = awsS3IamService.downloadDirectory(BUCKET, "test", localDir);
+		assertTrue(summary.isComplete());
+		assertEquals(3, summary.getFilesTransferred());
+		assertEquals(2 + largeContent.length, summary.getBytesTransferred());
+		assertEquals("a", FileUtils.readFileToString(new File(localDir, "a.txt"), StandardCharsets.UTF_8));
+		assertEquals("b", FileUtils.readFileToString(new File(localDir, "sub/b.txt"), StandardCharsets.UTF_8));
+		assertArrayEquals(largeContent, Files.readAllBytes(new File(localDir, "sub/large.bin").toPath()));
+		assertFalse(new File(localDir, "c.txt").exists());
+
+		// Second run finds the files up to date
+		summary = awsS3IamService.downloadDirectory(BUCKET, "test", localDir);
+		assertEquals(0, summary.getFilesTransferred());
+		assertEquals(3, summary.getFilesSkipped());
+
+		// Only the changed file is downloaded again
+		FileUtils.writeStringToFile(new File(localDir, "a.txt"), "changed", StandardCharsets.UTF_8);
+		summary = awsS3IamService.downloadDirectory(BUCKET, "test", localDir);
+		assertEquals(1, summary.getFilesTransferred());
+		assertEquals(2, summary.getFilesSkipped());
+		assertEquals("a", FileUtils.readFileToString(new File(localDir, "a.txt"), StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Test a file which cannot be written is reported and the others are downloaded.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testFailedFileDoesNotStopTheOthers() throws Exception {
+		final File localDir = temporaryFolder.newFolder("local");
+		// A directory where the file of test/a.txt goes
+		assertTrue(new File(localDir, "a.txt").mkdirs());
+		final DirectoryTransferSummary summary = awsS3IamService.downloadDirectory(BUCKET, "test", localDir);
+		assertFalse(summary.isComplete());
+		assertEquals(1, summary.getFilesFailed());
+		assertEquals(Collections.singletonList("test/a.txt"), summary.getFailedKeys());
+		assertEquals(2, summary.getFilesTransferred());
+		assertArrayEquals(largeContent, Files.readAllBytes(new File(localDir, "sub/large.bin").toPath()));
+	}
+
+	/**
+	 * Put the object.
+	 *
+	 * @param key the key
+	 * @param content the content
+	 * @throws Exception the exception
+	 */
+	private void putObject(final String key, final byte[] content) throws Exception {
+		final ObjectMetadata metadata = new ObjectMetadata();
+		metadata.setContentLength(content.length);
+		awsS3IamService.uploadObject(new PutObjectRequest(BUCKET, key, new ByteArrayInputStream(content), metadata));
+	}
+
+	/**
+	 * Tear down.
+	 */
+	@After
+	public void tearDown() {
+		awsS3IamService.shutdown();
+		server.stop();
+	}
+}
@@ -0,0 +1,313 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.s3.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.github.abhinavmishra14.aws.local.LocalS3Server;
+import com.github.abhinavmishra14.aws.s3.service.impl.AwsS3IamServiceImpl;
+import com.github.abhinavmishra14.aws.util.DirectorySyncOptions;
+import com.github.abhinavmishra14.aws.util.DirectorySyncSummary;
+import com.github.abhinavmishra14.aws.util.SortedDirectoryWalker;
+import com.github.abhinavmishra14.aws.util.SymlinkPolicy;
+
+/**
+ * The Class DirectorySyncTest.<br/>
+ * Synchronizes a local directory with the in-process server and checks that
+ * only the changes are applied.
+ *
+ * @author Abhinav kumar mishra
+ */
+public class DirectorySyncTest {
+
+	/** The Constant BUCKET. */
+	private static final String BUCKET = "sync-test";
+
+	/** The Constant PREFIX. */
+	private static final String PREFIX = "site";
+
+	/** The temporary folder. */
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	/** The server. */
+	private LocalS3Server server;
+
+	/** The aws s3 iam service. */
+	private AwsS3IamService awsS3IamService;
+
+	/** The local dir. */
+	private File localDir;
+
+	/** The time of the local files, before any upload. */
+	private long fileTime;
+
+	/**
+	 * Sets the up.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+		server = new LocalS3Server().start();
+		awsS3IamService = new AwsS3IamServiceImpl(server.newAmazonS3Client());
+		awsS3IamService.createBucket(BUCKET);
+		localDir = temporaryFolder.newFolder("site");
+		fileTime = (System.currentTimeMillis() / 1000 - 60) * 1000;
+		write("index.html", "<html/>");
+		write("css/main.css", "body {}");
+		write("css-old.css", "p {}");
+		write("img/logo.svg", "<svg/>");
+	}
+
+	/**
+	 * Test the walker returns the files in the order of the listing.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testWalkerOrder() throws Exception {
+		final List<String> keys = new ArrayList<String>();
+		final Iterator<String> walker = new SortedDirectoryWalker(localDir);
+		while (walker.hasNext()) {
+			keys.add(walker.next());
+		}
+		// '-' sorts before '/', so css-old.css comes before the files of css/
+		assertEquals(Arrays.asList("css-old.css", "css/main.css", "img/logo.svg", "index.html"), keys);
+		// S3 sorts by UTF-8 bytes, a supplementary character comes after U+FFFD
+		assertTrue(SortedDirectoryWalker.compareKeys("\uFFFD", "\uD83D\uDE00") < 0);
+	}
+
+	/**
+	 * Test only the new and changed files are uploaded.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testSyncUploadsChanges() throws Exception {
+		DirectorySyncSummary summary = awsS3IamService.syncDirectory(localDir, BUCKET, PREFIX);
+		assertEquals(4, summary.getFilesUploaded());
+		assertEquals(Arrays.asList("site/css-old.css", "site/css/main.css", "site/img/logo.svg", "site/index.html"),
+				listKeys());
+
+		summary = awsS3IamService.syncDirectory(localDir, BUCKET, PREFIX);
+		assertEquals(0, summary.getFilesUploaded());
+		assertEquals(4, summary.getFilesUnchanged());
+
+		write("index.html", "<html></html>");
+		write("js/app.js", "run();");
+		// Same size and time, only the checksum tells the change
+		write("css/main.css", "body{ }");
+		summary = awsS3IamService.syncDirectory(localDir, BUCKET, PREFIX);
+		assertEquals(Arrays.asList("site/index.html", "site/js/app.js"), sorted(summary.getUploadedKeys()));
+		summary = awsS3IamService.syncDirectory(localDir, BUCKET, PREFIX,
+				new DirectorySyncOptions().setCompareChecksums(true));
+		assertEquals(Arrays.asList("site/css/main.css"), summary.getUploadedKeys());
+		assertTrue(summary.isComplete());
+	}
+
+	/**
+	 * Test orphans are deleted and a dry run changes nothing.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testDeleteOrphansAndDryRun() throws Exception {
+		awsS3IamService.syncDirectory(localDir, BUCKET, PREFIX);
+		FileUtils.forceDelete(new File(localDir, "img"));
+		write("about.html", "<p/>");
+
+		DirectorySyncSummary summary = awsS3IamService.syncDirectory(localDir, BUCKET, PREFIX,
+				new DirectorySyncOptions().setDeleteOrphans(true).setDryRun(true));
+		assertTrue(summary.isDryRun());
+		assertEquals(Arrays.asList("site/about.html"), summary.getUploadedKeys());
+		assertEquals(Arrays.asList("site/img/logo.svg"), summary.getDeletedKeys());
+		assertEquals(4, listKeys().size());
+
+		// Orphans are kept by default
+		summary = awsS3IamService.syncDirectory(localDir, BUCKET, PREFIX);
+		assertEquals(0, summary.getObjectsDeleted());
+		summary = awsS3IamService.syncDirectory(localDir, BUCKET, PREFIX,
+				new DirectorySyncOptions().setDeleteOrphans(true));
+		assertEquals(1, summary.getObjectsDeleted());
+		assertEquals(Arrays.asList("site/about.html", "site/css-old.css", "site/css/main.css", "site/index.html"),
+				listKeys());
+	}
+
+	/**
+	 * Test a directory which cannot be listed fails the walk instead of being skipped.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testWalkerFailsOnUnlistableDirectory() throws Exception {
+		final List<String> keys = new ArrayList<String>();
+		final Iterator<String> walker = new SortedDirectoryWalker(localDir);
+		// The root is listed, img/ is listed when the walk reaches it
+		FileUtils.forceDelete(new File(localDir, "img"));
+		try {
+			while (walker.hasNext()) {
+				keys.add(walker.next());
+			}
+			fail("The walk of a directory which cannot be listed is expected to fail");
+		} catch (UncheckedIOException expected) {
+			assertEquals(Arrays.asList("css-old.css", "css/main.css"), keys);
+		}
+	}
+
+	/**
+	 * Test the walker treats the links as its policy says and a link to a parent
+	 * directory does not loop.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testWalkerSymlinkPolicy() throws Exception {
+		final Path root = localDir.toPath();
+		try {
+			Files.createSymbolicLink(root.resolve("home.html"), root.resolve("index.html"));
+			Files.createSymbolicLink(root.resolve("css/loop"), root);
+			Files.createSymbolicLink(root.resolve("pics"), root.resolve("img"));
+		} catch (IOException | UnsupportedOperationException excp) {
+			Assume.assumeNoException(excp);
+		}
+		assertEquals(Arrays.asList("css-old.css", "css/main.css", "img/logo.svg", "index.html"),
+				walk(SymlinkPolicy.SKIP));
+		assertEquals(Arrays.asList("css-old.css", "css/main.css", "home.html", "img/logo.svg", "index.html"),
+				walk(SymlinkPolicy.FOLLOW_FILES));
+		assertEquals(Arrays.asList("css-old.css", "css/main.css", "home.html", "img/logo.svg", "index.html",
+				"pics/logo.svg"), walk(SymlinkPolicy.FOLLOW));
+	}
+
+	/**
+	 * Test an unreadable directory fails the sync and its objects are not deleted as orphans.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testUnreadableDirectoryKeepsOrphans() throws Exception {
+		awsS3IamService.syncDirectory(localDir, BUCKET, PREFIX);
+		final File imgDir = new File(localDir, "img");
+		imgDir.setReadable(false);
+		try {
+			// Permissions do not apply to root
+			Assume.assumeTrue("The directory is still readable", imgDir.listFiles() == null);
+			awsS3IamService.syncDirectory(localDir, BUCKET, PREFIX, new DirectorySyncOptions().setDeleteOrphans(true));
+			fail("The sync of an unreadable directory is expected to fail");
+		} catch (AmazonClientException expected) {
+			assertEquals(Arrays.asList("site/css-old.css", "site/css/main.css", "site/img/logo.svg",
+					"site/index.html"), listKeys());
+		} finally {
+			imgDir.setReadable(true);
+		}
+	}
+
+	/**
+	 * Write a local file dated before the uploads.
+	 *
+	 * @param path the relative path
+	 * @param content the content
+	 * @throws Exception the exception
+	 */
+	private void write(final String path, final String content) throws Exception {
+		final File file = new File(localDir, path);
+		final boolean existed = file.exists();
+		FileUtils.writeStringToFile(file, content, StandardCharsets.UTF_8);
+		// Changed files get a later time, except the one only a checksum detects
+		file.setLastModified(existed && !"css/main.css".equals(path) ? System.currentTimeMillis() + 60000 : fileTime);
+	}
+
+	/**
+	 * List the keys of the bucket.
+	 *
+	 * @return the keys, in listing order
+	 */
+	private List<String> listKeys() {
+		final List<String> keys = new ArrayList<String>();
+		final Iterator<S3ObjectSummary> objectSummaries = awsS3IamService.listObjects(BUCKET, null, null);
+		while (objectSummaries.hasNext()) {
+			keys.add(objectSummaries.next().getKey());
+		}
+		return keys;
+	}
+
+	/**
+	 * Sort the keys.
+	 *
+	 * @param keys the keys
+	 * @return the sorted keys
+	 */
+	private static List<String> sorted(final List<String> keys) {
+		final List<String> sortedKeys = new ArrayList<String>(keys);
+		sortedKeys.sort(null);
+		return sortedKeys;
+	}
+
+	/**
+	 * Walks the local directory.
+	 *
+	 * @param symlinkPolicy the symlink policy
+	 * @return the keys in walk order
+	 * @throws Exception the exception
+	 */
+	private List<String> walk(final SymlinkPolicy symlinkPolicy) throws Exception {
+		final List<String> keys = new ArrayList<String>();
+		final Iterator<String> walker = new SortedDirectoryWalker(localDir, symlinkPolicy);
+		while (walker.hasNext()) {
+			keys.add(walker.next());
+		}
+		return keys;
+	}
+
+	/**
+	 * Tear down.
+	 *
+	 * @throws Exception the exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+		try {
+			awsS3IamService.shutdown();
+		} finally {
+			server.stop();
+		}
+	}
+}
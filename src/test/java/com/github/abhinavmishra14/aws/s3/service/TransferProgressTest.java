@@ -0,0 +1,261 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.s3.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.github.abhinavmishra14.aws.local.LocalS3Server;
+import com.github.abhinavmishra14.aws.s3.service.impl.AwsS3IamServiceImpl;
+import com.github.abhinavmishra14.aws.s3.transfer.TransferConfig;
+import com.github.abhinavmishra14.aws.util.AWSUtilConstants;
+import com.github.abhinavmishra14.aws.util.ProgressSnapshot;
+import com.github.abhinavmishra14.aws.util.TransferProgressListener;
+
+/**
+ * The Class TransferProgressTest.<br/>
+ * Uploads to the in-process server with a {@link TransferProgressListener} and
+ * checks the callbacks received, including the failure of an upload.
+ *
+ * @author Abhinav kumar mishra
+ */
+public class TransferProgressTest {
+
+	/** The Constant BUCKET. */
+	private static final String BUCKET = "progress-test";
+
+	/** The temporary folder. */
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	/** The server. */
+	private LocalS3Server server;
+
+	/** The aws s3 iam service. */
+	private AwsS3IamService awsS3IamService;
+
+	/**
+	 * Sets the up.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+		server = new LocalS3Server().start();
+		awsS3IamService = new AwsS3IamServiceImpl(server.newAmazonS3Client(), new TransferConfig()
+				.setMultipartUploadThreshold(AWSUtilConstants.DEFAULT_MINIMUM_UPLOAD_PART_SIZE)
+				.setMinimumUploadPartSize(AWSUtilConstants.DEFAULT_MINIMUM_UPLOAD_PART_SIZE));
+		awsS3IamService.createBucket(BUCKET);
+	}
+
+	/**
+	 * Test a single part upload reports its completion with all the bytes.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testUploadFileAsyncCompleted() throws Exception {
+		final File file = temporaryFolder.newFile("small.txt");
+		FileUtils.writeStringToFile(file, "progress of a small file", StandardCharsets.UTF_8);
+		final RecordingListener listener = new RecordingListener();
+		awsS3IamService.uploadFileAsync(BUCKET, "small.txt", file, null, listener);
+		final ProgressSnapshot completed = listener.awaitCompleted();
+		assertEquals(file.length(), completed.getBytesTransferred());
+		assertEquals(file.length(), completed.getTotalBytes());
+		assertEquals(0, listener.partsCompleted.get());
+	}
+
+	/**
+	 * Test a multipart upload reports each part, then its completion.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testMultipartUploadReportsParts() throws Exception {
+		// 11 MB, uploaded as 3 parts
+		final File file = temporaryFolder.newFile("large.bin");
+		try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+			randomAccessFile.setLength(11 * AWSUtilConstants.MEGABYTE);
+		}
+		final RecordingListener listener = new RecordingListener();
+		awsS3IamService.uploadFileAsync(BUCKET, "large.bin", file, null, listener);
+		final ProgressSnapshot completed = listener.awaitCompleted();
+		assertEquals(file.length(), completed.getBytesTransferred());
+		assertEquals(3, listener.partsCompleted.get());
+		assertEquals(3, completed.getPartsCompleted());
+	}
+
+	/**
+	 * Test a directory upload reports its completion once all its files are stored.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testUploadDirectoryCompleted() throws Exception {
+		// The small file is stored long before the multipart one
+		final File dir = temporaryFolder.newFolder("dir");
+		FileUtils.writeStringToFile(new File(dir, "a.txt"), "first file", StandardCharsets.UTF_8);
+		final File large = new File(dir, "sub/b.bin");
+		FileUtils.writeByteArrayToFile(large, new byte[(int) (6 * AWSUtilConstants.MEGABYTE)]);
+		final AtomicInteger objectsAtCompletion = new AtomicInteger(-1);
+		final RecordingListener listener = new RecordingListener() {
+
+			/* (non-Javadoc)
+			 * @see com.github.abhinavmishra14.aws.s3.service.TransferProgressTest.RecordingListener#onCompleted(com.github.abhinavmishra14.aws.util.ProgressSnapshot)
+			 */
+			@Override
+			public void onCompleted(final ProgressSnapshot progress) {
+				objectsAtCompletion.set(awsS3IamService.listObjects(
+						new ListObjectsRequest(BUCKET, "dir/", null, null, null)).getObjectSummaries().size());
+				super.onCompleted(progress);
+			}
+		};
+		awsS3IamService.uploadDirectoryOrFile(BUCKET, dir, "dir", listener);
+		final ProgressSnapshot completed = listener.awaitCompleted();
+		assertEquals(2, objectsAtCompletion.get());
+		assertEquals(FileUtils.sizeOfDirectory(dir), completed.getBytesTransferred());
+	}
+
+	/**
+	 * Test a failed upload reports the failure returned by the server.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testUploadFileAsyncFailed() throws Exception {
+		final AwsS3IamService noRetryService = new AwsS3IamServiceImpl(
+				server.newAmazonS3Client(new ClientConfiguration().withMaxErrorRetry(0)));
+		try {
+			final File file = temporaryFolder.newFile("failed.txt");
+			FileUtils.writeStringToFile(file, "never stored", StandardCharsets.UTF_8);
+			server.getFaultInjector().failNextRequests(1, 503);
+			final RecordingListener listener = new RecordingListener();
+			noRetryService.uploadFileAsync(BUCKET, "failed.txt", file, null, listener);
+			final Exception failure = listener.awaitFailed();
+			assertTrue(String.valueOf(failure), failure instanceof AmazonServiceException);
+			assertEquals(503, ((AmazonServiceException) failure).getStatusCode());
+		} finally {
+			noRetryService.shutdown();
+		}
+	}
+
+	/**
+	 * Tear down.
+	 */
+	@After
+	public void tearDown() {
+		awsS3IamService.shutdown();
+		server.stop();
+	}
+
+	/**
+	 * The Class RecordingListener.<br/>
+	 * Records the callbacks of a transfer.
+	 */
+	private static class RecordingListener implements TransferProgressListener {
+
+		/** The parts completed. */
+		private final AtomicInteger partsCompleted = new AtomicInteger();
+
+		/** The completed snapshot. */
+		private final AtomicReference<ProgressSnapshot> completed = new AtomicReference<ProgressSnapshot>();
+
+		/** The failure. */
+		private final AtomicReference<Exception> failure = new AtomicReference<Exception>();
+
+		/** The finished latch. */
+		private final CountDownLatch finished = new CountDownLatch(1);
+
+		/* (non-Javadoc)
+		 * @see com.github.abhinavmishra14.aws.util.TransferProgressListener#onProgress(com.github.abhinavmishra14.aws.util.ProgressSnapshot)
+		 */
+		@Override
+		public void onProgress(final ProgressSnapshot progress) {
+			// Throttled, not counted
+		}
+
+		/* (non-Javadoc)
+		 * @see com.github.abhinavmishra14.aws.util.TransferProgressListener#onPartCompleted(com.github.abhinavmishra14.aws.util.ProgressSnapshot)
+		 */
+		@Override
+		public void onPartCompleted(final ProgressSnapshot progress) {
+			partsCompleted.incrementAndGet();
+		}
+
+		/* (non-Javadoc)
+		 * @see com.github.abhinavmishra14.aws.util.TransferProgressListener#onCompleted(com.github.abhinavmishra14.aws.util.ProgressSnapshot)
+		 */
+		@Override
+		public void onCompleted(final ProgressSnapshot progress) {
+			completed.set(progress);
+			finished.countDown();
+		}
+
+		/* (non-Javadoc)
+		 * @see com.github.abhinavmishra14.aws.util.TransferProgressListener#onFailed(com.github.abhinavmishra14.aws.util.ProgressSnapshot, java.lang.Exception)
+		 */
+		@Override
+		public void onFailed(final ProgressSnapshot progress, final Exception excp) {
+			failure.set(excp);
+			finished.countDown();
+		}
+
+		/**
+		 * Wait for the transfer to complete.
+		 *
+		 * @return the completed snapshot
+		 * @throws InterruptedException the interrupted exception
+		 */
+		public ProgressSnapshot awaitCompleted() throws InterruptedException {
+			assertTrue(finished.await(60, TimeUnit.SECONDS));
+			assertNull(failure.get());
+			return completed.get();
+		}
+
+		/**
+		 * Wait for the transfer to fail.
+		 *
+		 * @return the failure
+		 * @throws InterruptedException the interrupted exception
+		 */
+		public Exception awaitFailed() throws InterruptedException {
+			assertTrue(finished.await(60, TimeUnit.SECONDS));
+			assertNull(completed.get());
+			return failure.get();
+		}
+	}
+}
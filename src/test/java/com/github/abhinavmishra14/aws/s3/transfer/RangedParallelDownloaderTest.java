@@ -0,0 +1,302 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.s3.transfer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.github.abhinavmishra14.aws.local.FaultInjector;
+import com.github.abhinavmishra14.aws.local.LocalS3Server;
+
+/**
+ * The Class RangedParallelDownloaderTest.<br/>
+ * Fails a range of a download against the in-process server, then checks the
+ * checkpoint left behind, the resume of the missing ranges and the fresh
+ * download of an object replaced between the two runs.
+ *
+ * @author Abhinav kumar mishra
+ */
+public class RangedParallelDownloaderTest {
+
+	/** The Constant BUCKET. */
+	private static final String BUCKET = "ranged-download-test";
+
+	/** The Constant KEY. */
+	private static final String KEY = "data/large.bin";
+
+	/** The Constant PART_SIZE. */
+	private static final int PART_SIZE = 16 * 1024;
+
+	/** The Constant PART_COUNT. */
+	private static final int PART_COUNT = 4;
+
+	/** The Constant FAILED_RANGE, the last one so that no range is in flight when it fails. */
+	private static final int FAILED_RANGE = PART_COUNT - 1;
+
+	/** The temporary folder. */
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	/** The server. */
+	private LocalS3Server server;
+
+	/** The s3client, without retries so that an injected failure fails the range. */
+	private AmazonS3 s3client;
+
+	/** The ranges submitted to the executor. */
+	private final AtomicInteger rangesSubmitted = new AtomicInteger();
+
+	/** The range submitted to the executor which fails, -1 for none. */
+	private volatile int rangeToFail = -1;
+
+	/** The executor, failing the request of {@link #rangeToFail}. */
+	private ExecutorService executor;
+
+	/**
+	 * Sets the up.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+		server = new LocalS3Server().start();
+		s3client = server.newAmazonS3Client(new ClientConfiguration().withMaxErrorRetry(0));
+		s3client.createBucket(BUCKET);
+		final FaultInjector faultInjector = server.getFaultInjector();
+		// One range in flight at a time, the next request is the submitted range
+		executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>()) {
+			@Override
+			public void execute(final Runnable command) {
+				if (rangesSubmitted.getAndIncrement() == rangeToFail) {
+					faultInjector.failNextRequests(1, 500);
+				}
+				super.execute(command);
+			}
+		};
+	}
+
+	/**
+	 * Test a failed range names the key and the range, and leaves a checkpoint
+	 * of the completed ranges written in one piece.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testFailedRangeLeavesCheckpoint() throws Exception {
+		putObject(randomContent(1));
+		final File targetFile = new File(temporaryFolder.getRoot(), "large.bin");
+		failDownload(targetFile);
+
+		final File checkpointFile = new File(targetFile.getPath() + RangedParallelDownloader.CHECKPOINT_FILE_SUFFIX);
+		assertTrue(checkpointFile.isFile());
+		assertFalse(new File(checkpointFile.getPath() + ".tmp").exists());
+		final Properties checkpoint = new Properties();
+		try (InputStream inStream = new FileInputStream(checkpointFile)) {
+			checkpoint.load(inStream);
+		}
+		assertEquals(BUCKET, checkpoint.getProperty("bucket"));
+		assertEquals(KEY, checkpoint.getProperty("key"));
+		assertEquals(String.valueOf(PART_SIZE), checkpoint.getProperty("partSize"));
+		assertEquals("0,1,2", checkpoint.getProperty("completedParts"));
+		assertTrue(new File(targetFile.getPath() + RangedParallelDownloader.PART_FILE_SUFFIX).isFile());
+		assertFalse(targetFile.exists());
+	}
+
+	/**
+	 * Test a download resumed after a failed range only fetches the missing ranges.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testResumeFetchesMissingRanges() throws Exception {
+		final byte[] content = randomContent(2);
+		putObject(content);
+		final File targetFile = new File(temporaryFolder.getRoot(), "large.bin");
+		failDownload(targetFile);
+
+		final long requestsBefore = server.getFaultInjector().getRequestCount();
+		newDownloader().download(BUCKET, KEY, targetFile);
+		// The first range and the range not completed by the first run
+		assertEquals(1 + PART_COUNT - FAILED_RANGE, server.getFaultInjector().getRequestCount() - requestsBefore);
+		assertArrayEquals(content, Files.readAllBytes(targetFile.toPath()));
+		assertNoLeftovers(targetFile);
+	}
+
+	/**
+	 * Test an object replaced between two runs discards the checkpoint and is
+	 * downloaded again from the start.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testChangedObjectDiscardsCheckpoint() throws Exception {
+		putObject(randomContent(3));
+		final File targetFile = new File(temporaryFolder.getRoot(), "large.bin");
+		failDownload(targetFile);
+
+		// Same length, another ETag
+		final byte[] replaced = randomContent(4);
+		putObject(replaced);
+		final long requestsBefore = server.getFaultInjector().getRequestCount();
+		newDownloader().download(BUCKET, KEY, targetFile);
+		assertEquals(PART_COUNT, server.getFaultInjector().getRequestCount() - requestsBefore);
+		assertArrayEquals(replaced, Files.readAllBytes(targetFile.toPath()));
+		assertNoLeftovers(targetFile);
+	}
+
+	/**
+	 * Test an object of one part is downloaded with a single request, and a
+	 * larger one with one request per range.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testOneRequestPerRange() throws Exception {
+		final byte[] small = new byte[PART_SIZE];
+		new Random(5).nextBytes(small);
+		putObject(small);
+		final File targetFile = new File(temporaryFolder.getRoot(), "small.bin");
+		long requestsBefore = server.getFaultInjector().getRequestCount();
+		final ObjectMetadata smallMetadata = newDownloader().download(BUCKET, KEY, targetFile);
+		assertEquals(1, server.getFaultInjector().getRequestCount() - requestsBefore);
+		assertEquals(PART_SIZE, smallMetadata.getContentLength());
+		assertArrayEquals(small, Files.readAllBytes(targetFile.toPath()));
+		assertNoLeftovers(targetFile);
+
+		final byte[] large = randomContent(6);
+		putObject(large);
+		requestsBefore = server.getFaultInjector().getRequestCount();
+		final ObjectMetadata largeMetadata = newDownloader().download(BUCKET, KEY, targetFile);
+		assertEquals(PART_COUNT, server.getFaultInjector().getRequestCount() - requestsBefore);
+		assertEquals(large.length, largeMetadata.getContentLength());
+		assertArrayEquals(large, Files.readAllBytes(targetFile.toPath()));
+		assertNoLeftovers(targetFile);
+	}
+
+	/**
+	 * Test an empty object is downloaded.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testEmptyObject() throws Exception {
+		putObject(new byte[0]);
+		final File targetFile = new File(temporaryFolder.getRoot(), "empty.bin");
+		assertEquals(0, newDownloader().download(BUCKET, KEY, targetFile).getContentLength());
+		assertEquals(0, targetFile.length());
+		assertNoLeftovers(targetFile);
+	}
+
+	/**
+	 * Run a download whose range {@link #FAILED_RANGE} fails.
+	 *
+	 * @param targetFile the target file
+	 */
+	private void failDownload(final File targetFile) {
+		// The first range is requested by the caller, not submitted
+		rangeToFail = rangesSubmitted.get() + FAILED_RANGE - 1;
+		try {
+			newDownloader().download(BUCKET, KEY, targetFile);
+			fail("The injected failure of the range is expected");
+		} catch (AmazonClientException expected) {
+			final long start = (long) FAILED_RANGE * PART_SIZE;
+			assertTrue(expected.getMessage(), expected.getMessage().startsWith(
+					"Failed to download " + KEY + " bytes " + start + "-" + (start + PART_SIZE - 1)));
+		}
+		rangeToFail = -1;
+	}
+
+	/**
+	 * Assert the part file and the checkpoint are gone.
+	 *
+	 * @param targetFile the target file
+	 */
+	private static void assertNoLeftovers(final File targetFile) {
+		assertFalse(new File(targetFile.getPath() + RangedParallelDownloader.PART_FILE_SUFFIX).exists());
+		assertFalse(new File(targetFile.getPath() + RangedParallelDownloader.CHECKPOINT_FILE_SUFFIX).exists());
+		assertFalse(new File(targetFile.getPath() + RangedParallelDownloader.CHECKPOINT_FILE_SUFFIX + ".tmp")
+				.exists());
+	}
+
+	/**
+	 * New downloader.
+	 *
+	 * @return the ranged parallel downloader
+	 */
+	private RangedParallelDownloader newDownloader() {
+		return new RangedParallelDownloader(s3client, executor, PART_SIZE, 1);
+	}
+
+	/**
+	 * Put the object.
+	 *
+	 * @param content the content
+	 */
+	private void putObject(final byte[] content) {
+		final ObjectMetadata metadata = new ObjectMetadata();
+		metadata.setContentLength(content.length);
+		s3client.putObject(BUCKET, KEY, new ByteArrayInputStream(content), metadata);
+	}
+
+	/**
+	 * Random content of {@link #PART_COUNT} parts.
+	 *
+	 * @param seed the seed
+	 * @return the content
+	 */
+	private static byte[] randomContent(final long seed) {
+		final byte[] content = new byte[PART_COUNT * PART_SIZE];
+		new Random(seed).nextBytes(content);
+		return content;
+	}
+
+	/**
+	 * Tear down.
+	 */
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+		server.stop();
+	}
+}
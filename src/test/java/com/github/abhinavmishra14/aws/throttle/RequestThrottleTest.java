@@ -0,0 +1,233 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.throttle;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.github.abhinavmishra14.aws.local.LocalS3Server;
+import com.github.abhinavmishra14.aws.s3.service.AwsS3IamService;
+import com.github.abhinavmishra14.aws.s3.service.impl.AwsS3IamServiceImpl;
+import com.github.abhinavmishra14.aws.s3.transfer.TransferConfig;
+
+/**
+ * The Class RequestThrottleTest.<br/>
+ * Checks the token buckets alone and the limits applied to a service talking to
+ * the in-process server.
+ *
+ * @author Abhinav kumar mishra
+ */
+public class RequestThrottleTest {
+
+	/** The Constant BUCKET. */
+	private static final String BUCKET = "throttle-test";
+
+	/** The Constant KEY. */
+	private static final String KEY = "data/object.bin";
+
+	/** The server. */
+	private LocalS3Server server;
+
+	/**
+	 * Sets the up.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+		server = new LocalS3Server().start();
+	}
+
+	/**
+	 * Test a full bucket lets a burst through and paces the next takes.
+	 */
+	@Test
+	public void testTokenBucketPacesTakes() {
+		final TokenBucket tokenBucket = new TokenBucket(100, 0.2);
+		assertEquals(0, TimeUnit.NANOSECONDS.toMillis(tokenBucket.acquire(100, RequestPriority.INTERACTIVE)), 20);
+		final long waitMillis = TimeUnit.NANOSECONDS.toMillis(tokenBucket.acquire(30, RequestPriority.INTERACTIVE));
+		assertTrue("Waited " + waitMillis, waitMillis >= 250);
+	}
+
+	/**
+	 * Test bulk takes leave the reserve to the interactive ones.
+	 */
+	@Test
+	public void testBulkTakesLeaveReserve() {
+		final TokenBucket tokenBucket = new TokenBucket(10, 0.5);
+		assertEquals(0, TimeUnit.NANOSECONDS.toMillis(tokenBucket.acquire(5, RequestPriority.BULK)), 20);
+		assertEquals(0, TimeUnit.NANOSECONDS.toMillis(tokenBucket.acquire(5, RequestPriority.INTERACTIVE)), 20);
+		tokenBucket.setRate(100);
+		// Bulk waits for the reserve of 50 tokens to be back
+		final long waitMillis = TimeUnit.NANOSECONDS.toMillis(tokenBucket.acquire(1, RequestPriority.BULK));
+		assertTrue("Waited " + waitMillis, waitMillis >= 400);
+	}
+
+	/**
+	 * Test the limits can be set and removed at runtime.
+	 */
+	@Test
+	public void testLimitsChangeAtRuntime() {
+		final RequestThrottle requestThrottle = new RequestThrottle();
+		assertFalse(requestThrottle.isLimited());
+		requestThrottle.setGlobalRequestsPerSecond(2).setBucketBytesPerSecond(BUCKET, 1000);
+		assertTrue(requestThrottle.isLimited());
+		assertEquals(1000, requestThrottle.getBucketBytesPerSecond(BUCKET), 0);
+		assertEquals(0, requestThrottle.getBucketBytesPerSecond("other"), 0);
+		requestThrottle.acquireRequest(BUCKET, RequestPriority.INTERACTIVE);
+		requestThrottle.acquireRequest(BUCKET, RequestPriority.INTERACTIVE);
+		requestThrottle.setGlobalRequestsPerSecond(1000);
+		assertTrue(requestThrottle.acquireRequest(BUCKET, RequestPriority.INTERACTIVE) < TimeUnit.MILLISECONDS
+				.toNanos(100));
+		requestThrottle.setGlobalRequestsPerSecond(0).setBucketBytesPerSecond(BUCKET, 0);
+		assertFalse(requestThrottle.isLimited());
+	}
+
+	/**
+	 * Test a throttle created from a config starts with its limits.
+	 */
+	@Test
+	public void testThrottleConfig() {
+		assertFalse(new ThrottleConfig().newRequestThrottle().isLimited());
+		final RequestThrottle requestThrottle = new ThrottleConfig().setGlobalBytesPerSecond(1000)
+				.setBucketRequestsPerSecond(BUCKET, 5).newRequestThrottle();
+		assertEquals(1000, requestThrottle.getGlobalBytesPerSecond(), 0);
+		assertEquals(0, requestThrottle.getGlobalRequestsPerSecond(), 0);
+		assertEquals(5, requestThrottle.getBucketRequestsPerSecond(BUCKET), 0);
+		assertEquals(0, requestThrottle.getBucketRequestsPerSecond("other"), 0);
+	}
+
+	/**
+	 * Test the bytes of the uploads and downloads of a bucket are limited.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testServiceTransfersAreLimited() throws Exception {
+		final AwsS3IamService awsS3IamService = new AwsS3IamServiceImpl(server.newAmazonS3Client(),
+				new TransferConfig().setThrottleConfig(new ThrottleConfig()));
+		try {
+			awsS3IamService.createBucket(BUCKET);
+			awsS3IamService.getRequestThrottle().setBucketBytesPerSecond(BUCKET, 20 * 1024);
+			final byte[] content = new byte[30 * 1024];
+			long startNanos = System.nanoTime();
+			awsS3IamService.uploadObject(newPutObjectRequest(BUCKET, content));
+			assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos) >= 400);
+
+			startNanos = System.nanoTime();
+			try (InputStream in = awsS3IamService.getObject(BUCKET, KEY)) {
+				assertEquals(content.length, IOUtils.toByteArray(in).length);
+			}
+			assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos) >= 500);
+
+			// Other buckets are not limited
+			awsS3IamService.createBucket(BUCKET + "-other");
+			startNanos = System.nanoTime();
+			awsS3IamService.uploadObject(newPutObjectRequest(BUCKET + "-other", content));
+			assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos) < 1000);
+		} finally {
+			awsS3IamService.shutdown();
+		}
+	}
+
+	/**
+	 * Test a request body sent again by a retry is paid again.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testResentBodyIsPaid() throws Exception {
+		final AwsS3IamService awsS3IamService = new AwsS3IamServiceImpl(server.newAmazonS3Client(),
+				new TransferConfig().setThrottleConfig(
+						new ThrottleConfig().setBucketBytesPerSecond(BUCKET, 20 * 1024)));
+		try {
+			awsS3IamService.createBucket(BUCKET);
+			final byte[] content = new byte[30 * 1024];
+			server.getFaultInjector().failNextRequests(1, 503);
+			final long startNanos = System.nanoTime();
+			awsS3IamService.uploadObject(newPutObjectRequest(BUCKET, content));
+			final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+			// 30 KB then at least 16 KB sent again, 20 KB of burst
+			assertTrue("Sent in " + elapsedMillis + " ms", elapsedMillis >= 1200);
+		} finally {
+			awsS3IamService.shutdown();
+		}
+	}
+
+	/**
+	 * Test the tasks of the transfer pool keep the priority of the thread which submitted them.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testPoolTasksKeepSubmitterPriority() throws Exception {
+		final PriorityThreadPoolExecutor executor = new PriorityThreadPoolExecutor(1, 1, 1, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), Executors.defaultThreadFactory());
+		try {
+			final Callable<RequestPriority> currentPriority = () -> RequestPriority.current();
+			assertEquals(RequestPriority.INTERACTIVE, executor.submit(currentPriority).get());
+			final RequestPriority previous = RequestPriority.mark(RequestPriority.BULK);
+			try {
+				assertEquals(RequestPriority.BULK, executor.submit(currentPriority).get());
+				// Tasks submitted by a task run with its priority
+				assertEquals(RequestPriority.BULK, executor.submit(() -> executor.submit(currentPriority)).get().get());
+			} finally {
+				RequestPriority.setCurrent(previous);
+			}
+			assertEquals(RequestPriority.INTERACTIVE, executor.submit(currentPriority).get());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Creates a put object request of the given content.
+	 *
+	 * @param bucketName the bucket name
+	 * @param content the content
+	 * @return the put object request
+	 */
+	private static PutObjectRequest newPutObjectRequest(final String bucketName, final byte[] content) {
+		final ObjectMetadata metadata = new ObjectMetadata();
+		metadata.setContentLength(content.length);
+		return new PutObjectRequest(bucketName, KEY, new ByteArrayInputStream(content), metadata);
+	}
+
+	/**
+	 * Tear down.
+	 */
+	@After
+	public void tearDown() {
+		server.stop();
+	}
+}
@@ -0,0 +1,281 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.upload;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.RandomAccessFile;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.model.ListMultipartUploadsRequest;
+import com.github.abhinavmishra14.aws.jets3.service.JetS3RESTService;
+import com.github.abhinavmishra14.aws.jets3.service.impl.JetS3RESTServiceImpl;
+import com.github.abhinavmishra14.aws.local.LocalS3Server;
+import com.github.abhinavmishra14.aws.s3.service.AwsS3IamService;
+import com.github.abhinavmishra14.aws.s3.service.impl.AwsS3IamServiceImpl;
+import com.github.abhinavmishra14.aws.s3.transfer.StreamingMultipartUploader;
+import com.github.abhinavmishra14.aws.s3.transfer.TransferConfig;
+import com.github.abhinavmishra14.aws.util.AWSUtilConstants;
+import com.github.abhinavmishra14.aws.util.MultipartUploadJournal;
+
+/**
+ * The Class UploadStrategyTest.<br/>
+ * Checks the strategy picked for an upload and uploads with each strategy to
+ * the in-process server.
+ *
+ * @author Abhinav kumar mishra
+ */
+public class UploadStrategyTest {
+
+	/** The Constant BUCKET. */
+	private static final String BUCKET = "upload-strategy-test";
+
+	/** The Constant PART_SIZE. */
+	private static final long PART_SIZE = AWSUtilConstants.DEFAULT_MINIMUM_UPLOAD_PART_SIZE;
+
+	/** The temporary folder. */
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	/** The server. */
+	private LocalS3Server server;
+
+	/** The aws s3 iam service, objects above one part are uploaded as multiparts. */
+	private AwsS3IamService awsS3IamService;
+
+	/** The content of 6 MB, a bit more than one part. */
+	private byte[] content;
+
+	/**
+	 * Sets the up.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+		server = new LocalS3Server().start();
+		awsS3IamService = new AwsS3IamServiceImpl(server.newAmazonS3Client(), new TransferConfig()
+				.setMultipartUploadThreshold(PART_SIZE).setUploadJournalDirectory(folder.newFolder("journal")));
+		awsS3IamService.createBucket(BUCKET);
+		content = new byte[(int) (6 * AWSUtilConstants.MEGABYTE)];
+		for (int index = 0; index < content.length; index++) {
+			content[index] = (byte) index;
+		}
+	}
+
+	/**
+	 * Test the strategy picked from the length, the source and the throughput.
+	 */
+	@Test
+	public void testSelect() {
+		final UploadStrategySelector selector = new UploadStrategySelector(
+				AWSUtilConstants.DEFAULT_MULTIPART_UPLOAD_THRESHOLD, PART_SIZE);
+		assertEquals(UploadStrategy.STREAMING_MULTIPART, selector.select(-1, false));
+		assertEquals(UploadStrategy.SINGLE_PUT, selector.select(0, true));
+		assertEquals(UploadStrategy.SINGLE_PUT, selector.select(10 * AWSUtilConstants.MEGABYTE, true));
+		assertEquals(UploadStrategy.PARALLEL_MULTIPART, selector.select(20 * AWSUtilConstants.MEGABYTE, true));
+		assertEquals(UploadStrategy.STREAMING_MULTIPART, selector.select(20 * AWSUtilConstants.MEGABYTE, false));
+
+		// A slow multipart says nothing of the time a PUT takes
+		selector.recordUpload(UploadStrategy.PARALLEL_MULTIPART, 20 * AWSUtilConstants.MEGABYTE, 80000);
+		assertEquals(0, selector.getBytesPerSecond(UploadStrategy.SINGLE_PUT), 0);
+		assertEquals(UploadStrategy.SINGLE_PUT, selector.select(10 * AWSUtilConstants.MEGABYTE, true));
+
+		// 10 MB in 40 seconds, a PUT of 10 MB would now take longer than allowed
+		selector.recordUpload(UploadStrategy.SINGLE_PUT, 10 * AWSUtilConstants.MEGABYTE, 40000);
+		assertEquals(256 * 1024, selector.getBytesPerSecond(UploadStrategy.SINGLE_PUT), 1);
+		assertEquals(UploadStrategy.PARALLEL_MULTIPART, selector.select(10 * AWSUtilConstants.MEGABYTE, true));
+		assertEquals(UploadStrategy.SINGLE_PUT, selector.select(PART_SIZE, true));
+		// Small uploads are mostly latency, they do not change the measure
+		selector.recordUpload(UploadStrategy.SINGLE_PUT, 1024, 1);
+		assertEquals(256 * 1024, selector.getBytesPerSecond(UploadStrategy.SINGLE_PUT), 1);
+		assertEquals(256 * 1024, selector.getBytesPerSecond(UploadStrategy.PARALLEL_MULTIPART), 1);
+	}
+
+	/**
+	 * Test the part size is raised to stay within 10,000 parts.
+	 */
+	@Test
+	public void testPartSize() {
+		final UploadStrategySelector selector = new UploadStrategySelector(
+				AWSUtilConstants.DEFAULT_MULTIPART_UPLOAD_THRESHOLD, PART_SIZE);
+		assertEquals(PART_SIZE, selector.partSizeFor(-1));
+		assertEquals(PART_SIZE, selector.partSizeFor(20 * AWSUtilConstants.MEGABYTE));
+		final long length = 100L * 1024 * AWSUtilConstants.MEGABYTE;
+		final long partSize = selector.partSizeFor(length);
+		assertEquals(true, partSize > PART_SIZE);
+		assertEquals(true, (length + partSize - 1) / partSize <= AWSUtilConstants.MAX_MULTIPART_PARTS);
+	}
+
+	/**
+	 * Test the parts of a stream of unknown length grow, so that a long stream
+	 * fits in 10,000 parts.
+	 */
+	@Test
+	public void testStreamingPartSizeGrows() {
+		final int firstPartSize = (int) PART_SIZE;
+		assertEquals(firstPartSize, StreamingMultipartUploader.partSizeOf(firstPartSize, 1));
+		assertEquals(firstPartSize, StreamingMultipartUploader.partSizeOf(firstPartSize,
+				AWSUtilConstants.STREAMING_PARTS_PER_SIZE_STEP));
+		assertEquals(2 * firstPartSize, StreamingMultipartUploader.partSizeOf(firstPartSize,
+				AWSUtilConstants.STREAMING_PARTS_PER_SIZE_STEP + 1));
+		assertEquals(AWSUtilConstants.MAX_STREAMING_PART_SIZE, StreamingMultipartUploader.partSizeOf(firstPartSize,
+				AWSUtilConstants.MAX_MULTIPART_PARTS));
+		long streamLength = 0;
+		for (int partNumber = 1; partNumber <= AWSUtilConstants.MAX_MULTIPART_PARTS; partNumber++) {
+			streamLength += StreamingMultipartUploader.partSizeOf(firstPartSize, partNumber);
+		}
+		// 5 MB parts only would stop at 50 GB
+		assertTrue(streamLength > 1024L * 1024 * AWSUtilConstants.MEGABYTE);
+	}
+
+	/**
+	 * Test a multipart upload of a file is journaled only when a journal
+	 * directory is configured, otherwise a failed upload is aborted.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testJournalOnlyWhenConfigured() throws Exception {
+		// Parts of 5 MB are rejected when the upload completes
+		final LocalS3Server strictServer = new LocalS3Server().setMinimumPartSize(7 * AWSUtilConstants.MEGABYTE)
+				.start();
+		final File journalDir = new File(folder.getRoot(), "journals");
+		final AwsS3IamService unjournaled = new AwsS3IamServiceImpl(strictServer.newAmazonS3Client(),
+				new TransferConfig().setMultipartUploadThreshold(PART_SIZE));
+		final AwsS3IamService journaled = new AwsS3IamServiceImpl(strictServer.newAmazonS3Client(),
+				new TransferConfig().setMultipartUploadThreshold(PART_SIZE).setUploadJournalDirectory(journalDir));
+		try {
+			unjournaled.createBucket(BUCKET);
+			final File file = folder.newFile("video.bin");
+			FileUtils.writeByteArrayToFile(file, content);
+			failUpload(unjournaled, file);
+			assertFalse(MultipartUploadJournal.journalFileFor(MultipartUploadJournal.defaultJournalDirectory(),
+					BUCKET, "video.bin", file).exists());
+			assertTrue(strictServer.newAmazonS3Client().listMultipartUploads(
+					new ListMultipartUploadsRequest(BUCKET)).getMultipartUploads().isEmpty());
+
+			failUpload(journaled, file);
+			assertTrue(MultipartUploadJournal.journalFileFor(journalDir, BUCKET, "video.bin", file).isFile());
+			assertEquals(1, strictServer.newAmazonS3Client().listMultipartUploads(
+					new ListMultipartUploadsRequest(BUCKET)).getMultipartUploads().size());
+		} finally {
+			unjournaled.shutdown();
+			journaled.shutdown();
+			strictServer.stop();
+		}
+	}
+
+	/**
+	 * Upload a file the server rejects as a multipart.
+	 *
+	 * @param service the service
+	 * @param file the file
+	 * @throws Exception the exception
+	 */
+	private static void failUpload(final AwsS3IamService service, final File file) throws Exception {
+		try {
+			service.upload(BUCKET, "video.bin", file);
+			fail("Parts smaller than the minimum of the server were accepted");
+		} catch (AmazonClientException expected) {
+			// Completion is rejected
+		}
+	}
+
+	/**
+	 * Test files and streams are uploaded with the strategy reported.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testUpload() throws Exception {
+		final File file = folder.newFile("video.bin");
+		FileUtils.writeByteArrayToFile(file, content);
+		UploadResult result = awsS3IamService.upload(BUCKET, "file.bin", file);
+		assertEquals(UploadStrategy.PARALLEL_MULTIPART, result.getStrategy());
+		assertEquals(PART_SIZE, result.getPartSize());
+		assertEquals(content.length, awsS3IamService.headObject(BUCKET, "file.bin").getContentLength());
+
+		result = awsS3IamService.upload(BUCKET, "known.bin", new ByteArrayInputStream(content), content.length);
+		assertEquals(UploadStrategy.STREAMING_MULTIPART, result.getStrategy());
+		assertEquals(content.length, awsS3IamService.headObject(BUCKET, "known.bin").getContentLength());
+
+		// The length of a stream read till the end is reported
+		result = awsS3IamService.upload(BUCKET, "unknown.bin", new ByteArrayInputStream(content), -1);
+		assertEquals(UploadStrategy.STREAMING_MULTIPART, result.getStrategy());
+		assertEquals(content.length, result.getContentLength());
+
+		result = awsS3IamService.upload(BUCKET, "small.txt", new ByteArrayInputStream(new byte[] { 1, 2, 3 }), 3);
+		assertEquals(UploadStrategy.SINGLE_PUT, result.getStrategy());
+		assertEquals(0, result.getPartSize());
+		assertEquals(3, awsS3IamService.headObject(BUCKET, "small.txt").getContentLength());
+	}
+
+	/**
+	 * Test the JetS3t service uploads with the strategy reported.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testJetS3Upload() throws Exception {
+		final JetS3RESTService jetS3RESTService = new JetS3RESTServiceImpl(LocalS3Server.ACCESS_KEY,
+				LocalS3Server.SECRET_KEY, server.newJets3tProperties());
+		try {
+			// Above the default threshold of the JetS3t service
+			final File file = folder.newFile("archive.bin");
+			try (RandomAccessFile archive = new RandomAccessFile(file, "rw")) {
+				archive.setLength(17 * AWSUtilConstants.MEGABYTE);
+			}
+			UploadResult result = jetS3RESTService.upload(BUCKET, "jets3.bin", file);
+			assertEquals(UploadStrategy.PARALLEL_MULTIPART, result.getStrategy());
+			// Streams of unknown length are spooled and uploaded as a file
+			result = jetS3RESTService.upload(BUCKET, "jets3.txt", new ByteArrayInputStream(new byte[] { 1, 2 }), -1);
+			assertEquals(UploadStrategy.SINGLE_PUT, result.getStrategy());
+			assertEquals(2, awsS3IamService.headObject(BUCKET, "jets3.txt").getContentLength());
+			assertEquals(file.length(), awsS3IamService.headObject(BUCKET, "jets3.bin").getContentLength());
+		} finally {
+			jetS3RESTService.shutdown();
+		}
+	}
+
+	/**
+	 * Tear down.
+	 *
+	 * @throws Exception the exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+		try {
+			awsS3IamService.shutdown();
+		} finally {
+			server.stop();
+		}
+	}
+}
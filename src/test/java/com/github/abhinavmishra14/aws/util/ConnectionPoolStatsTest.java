@@ -0,0 +1,141 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.abhinavmishra14.aws.jets3.service.JetS3RESTService;
+import com.github.abhinavmishra14.aws.jets3.service.impl.JetS3RESTServiceImpl;
+import com.github.abhinavmishra14.aws.local.LocalS3Server;
+import com.github.abhinavmishra14.aws.s3.service.AwsS3IamService;
+import com.github.abhinavmishra14.aws.s3.service.impl.AwsS3IamServiceImpl;
+
+/**
+ * The Class ConnectionPoolStatsTest.<br/>
+ * Checks the services built with a connection pool config against the in-process server.
+ *
+ * @author Abhinav kumar mishra
+ */
+public class ConnectionPoolStatsTest {
+
+	/** The Constant BUCKET. */
+	private static final String BUCKET = "pool-test";
+
+	/** The folder. */
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	/** The server. */
+	private LocalS3Server server;
+
+	/** The connection pool config. */
+	private ConnectionPoolConfig connectionPoolConfig;
+
+	/**
+	 * Sets the up.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+		server = new LocalS3Server().start();
+		connectionPoolConfig = new ConnectionPoolConfig().setMaxConnections(4).setConnectionTimeoutMillis(2000)
+				.setSocketTimeoutMillis(5000).setConnectionMaxIdleMillis(20000).setTcpKeepAlive(true)
+				.setSocketSendBufferSize(64 * 1024).setSocketReceiveBufferSize(64 * 1024);
+	}
+
+	/**
+	 * Test the pool of a built aws sdk service.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testAwsS3IamServiceBuilder() throws Exception {
+		final AwsS3IamService awsS3IamService = AwsS3IamServiceImpl.builder()
+				.withCredentials(LocalS3Server.ACCESS_KEY, LocalS3Server.SECRET_KEY)
+				.withEndpoint(server.getEndpoint()).withPathStyleAccess(true)
+				.withConnectionPoolConfig(connectionPoolConfig).build();
+		try {
+			awsS3IamService.createBucket(BUCKET);
+			awsS3IamService.uploadObject(BUCKET, "data.bin", new ByteArrayInputStream(new byte[10]));
+			try (InputStream in = awsS3IamService.getObject(BUCKET, "data.bin")) {
+				assertEquals(10, IOUtils.toByteArray(in).length);
+			}
+			final ConnectionPoolStats stats = awsS3IamService.getConnectionPoolStats();
+			assertNotNull(stats);
+			assertEquals(4, stats.getMaxConnections());
+			assertEquals(0, stats.getLeasedCount());
+			assertEquals(0, stats.getPendingCount());
+			assertTrue(stats.getAvailableCount() >= 1);
+			assertEquals(0, stats.getUtilization(), 0);
+		} finally {
+			awsS3IamService.shutdown();
+		}
+	}
+
+	/**
+	 * Test the pool of a built jets3t service.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testJetS3RESTServiceBuilder() throws Exception {
+		final JetS3RESTService jetS3RESTService = JetS3RESTServiceImpl.builder()
+				.withCredentials(LocalS3Server.ACCESS_KEY, LocalS3Server.SECRET_KEY)
+				.withJets3tProperties(server.newJets3tProperties()).withConnectionPoolConfig(connectionPoolConfig)
+				.build();
+		try {
+			jetS3RESTService.createBucket(BUCKET);
+			final File file = folder.newFile("data.txt");
+			FileUtils.writeStringToFile(file, "pooled", "UTF-8");
+			jetS3RESTService.putObject(BUCKET, file);
+			try (InputStream in = jetS3RESTService.getObjectAsStream(BUCKET, "data.txt")) {
+				assertEquals("pooled", IOUtils.toString(in, "UTF-8"));
+			}
+			final ConnectionPoolStats stats = jetS3RESTService.getConnectionPoolStats();
+			assertNotNull(stats);
+			assertEquals(4, stats.getMaxConnections());
+			assertEquals(0, stats.getLeasedCount());
+			assertTrue(stats.getAvailableCount() >= 1);
+		} finally {
+			jetS3RESTService.shutdown();
+		}
+	}
+
+	/**
+	 * Tear down.
+	 */
+	@After
+	public void tearDown() {
+		server.stop();
+	}
+}
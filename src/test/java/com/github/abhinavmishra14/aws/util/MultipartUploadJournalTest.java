@@ -0,0 +1,110 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * The Class MultipartUploadJournalTest.<br/>
+ * Records parts in a journal, then checks what a resumed upload replays from
+ * the journal file.
+ *
+ * @author Abhinav kumar mishra
+ */
+public class MultipartUploadJournalTest {
+
+	/** The Constant BUCKET. */
+	private static final String BUCKET = "journal-test";
+
+	/** The Constant KEY. */
+	private static final String KEY = "data/large.bin";
+
+	/** The Constant PART_SIZE. */
+	private static final long PART_SIZE = 5 * 1024 * 1024;
+
+	/** The folder. */
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * Test each part appends one line, replayed when the journal is loaded
+	 * again, and a line cut short by a crash is ignored.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testPartsAreAppendedAndReplayed() throws Exception {
+		final File source = folder.newFile("large.bin");
+		FileUtils.writeStringToFile(source, "content", StandardCharsets.UTF_8);
+		final File journalFile = MultipartUploadJournal.journalFileFor(folder.newFolder("journal"), BUCKET, KEY,
+				source);
+		final MultipartUploadJournal journal = MultipartUploadJournal.loadOrCreate(journalFile, BUCKET, KEY, source,
+				PART_SIZE);
+		journal.start("upload-1");
+		final int headerLines = FileUtils.readLines(journalFile, StandardCharsets.ISO_8859_1).size();
+		journal.partCompleted(2, "\"etag-2\"");
+		journal.partCompleted(1, "\"etag-1\"");
+		final List<String> lines = FileUtils.readLines(journalFile, StandardCharsets.ISO_8859_1);
+		assertEquals(headerLines + 2, lines.size());
+		assertEquals("part.1=\"etag-1\"", lines.get(lines.size() - 1));
+
+		// A crash while the third part is appended
+		FileUtils.writeStringToFile(journalFile, "part.3=\"eta", StandardCharsets.ISO_8859_1, true);
+		final MultipartUploadJournal resumed = MultipartUploadJournal.loadOrCreate(journalFile, BUCKET, KEY,
+				source, PART_SIZE);
+		assertEquals("upload-1", resumed.getUploadId());
+		assertEquals("\"etag-1\"", resumed.getPartETag(1));
+		assertEquals("\"etag-2\"", resumed.getPartETag(2));
+		assertNull(resumed.getPartETag(3));
+		assertNull(resumed.getStaleUploadId());
+	}
+
+	/**
+	 * Test a journal recorded for another version of the source is stale.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testJournalOfChangedSourceIsStale() throws Exception {
+		final File source = folder.newFile("large.bin");
+		FileUtils.writeStringToFile(source, "content", StandardCharsets.UTF_8);
+		final File journalFile = MultipartUploadJournal.journalFileFor(folder.getRoot(), BUCKET, KEY, source);
+		final MultipartUploadJournal journal = MultipartUploadJournal.loadOrCreate(journalFile, BUCKET, KEY, source,
+				PART_SIZE);
+		journal.start("upload-1");
+		journal.partCompleted(1, "\"etag-1\"");
+		FileUtils.writeStringToFile(source, "changed content", StandardCharsets.UTF_8);
+		final MultipartUploadJournal stale = MultipartUploadJournal.loadOrCreate(journalFile, BUCKET, KEY, source,
+				PART_SIZE);
+		assertNull(stale.getUploadId());
+		assertNull(stale.getPartETag(1));
+		assertEquals("upload-1", stale.getStaleUploadId());
+		assertTrue(journalFile.isFile());
+	}
+}
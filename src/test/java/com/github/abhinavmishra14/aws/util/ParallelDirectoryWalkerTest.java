@@ -0,0 +1,165 @@
+/*
+ * Created By: Abhinav Kumar Mishra
+ * Copyright &copy; 2015. Abhinav Kumar Mishra.
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.abhinavmishra14.aws.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * The Class ParallelDirectoryWalkerTest.<br/>
+ * Walks a temporary tree with filters and symbolic links.
+ *
+ * @author Abhinav kumar mishra
+ */
+public class ParallelDirectoryWalkerTest {
+
+	/** The folder. */
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	/** The root of the walked tree. */
+	private Path root;
+
+	/**
+	 * Sets the up.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+		root = folder.newFolder("tree").toPath();
+		for (int dir = 0; dir < 20; dir++) {
+			for (int file = 0; file < 5; file++) {
+				write("data/d" + dir + "/f" + file + ".csv", "a,b");
+			}
+		}
+		write("data/d0/notes.txt", "text");
+		write("build/out.csv", "x,y");
+		write("readme.txt", "read me");
+	}
+
+	/**
+	 * Test every file is returned once with its attributes.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testWalkAll() throws Exception {
+		final Map<String, Long> files = walk(new DirectoryWalkConfig().setParallelism(4));
+		assertEquals(103, files.size());
+		assertEquals(Long.valueOf(7), files.get("readme.txt"));
+		assertEquals(Long.valueOf(3), files.get("data/d19/f4.csv"));
+	}
+
+	/**
+	 * Test the include and exclude globs.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testGlobs() throws Exception {
+		Map<String, Long> files = walk(new DirectoryWalkConfig().setIncludes("**/*.csv").setExcludes("build"));
+		assertEquals(100, files.size());
+		assertTrue(files.containsKey("data/d7/f2.csv"));
+		files = walk(new DirectoryWalkConfig().setIncludes("*.txt", "**/*.txt"));
+		assertEquals(Arrays.asList("data/d0/notes.txt", "readme.txt"), Arrays.asList(files.keySet().toArray()));
+	}
+
+	/**
+	 * Test the symlink policies, a link to a parent directory does not loop.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testSymlinkPolicy() throws Exception {
+		try {
+			Files.createSymbolicLink(root.resolve("linked.txt"), root.resolve("readme.txt"));
+			Files.createSymbolicLink(root.resolve("data/d1/loop"), root.resolve("data"));
+			Files.createSymbolicLink(root.resolve("build-link"), root.resolve("build"));
+		} catch (IOException | UnsupportedOperationException excp) {
+			Assume.assumeNoException(excp);
+		}
+		assertEquals(103, walk(new DirectoryWalkConfig()).size());
+		final Map<String, Long> files = walk(new DirectoryWalkConfig().setSymlinkPolicy(SymlinkPolicy.FOLLOW_FILES));
+		assertEquals(104, files.size());
+		assertTrue(files.containsKey("linked.txt"));
+		final Map<String, Long> followed = walk(new DirectoryWalkConfig().setSymlinkPolicy(SymlinkPolicy.FOLLOW));
+		assertEquals(105, followed.size());
+		assertTrue(followed.containsKey("build-link/out.csv"));
+	}
+
+	/**
+	 * Test a missing directory is reported.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test(expected = java.io.FileNotFoundException.class)
+	public void testMissingDirectory() throws Exception {
+		new ParallelDirectoryWalker(new DirectoryWalkConfig()).walk(Paths.get(root.toString(), "missing"),
+				(file, attributes) -> {
+				});
+	}
+
+	/**
+	 * Walk the tree.
+	 *
+	 * @param config the config
+	 * @return the sizes of the files by relative path
+	 * @throws Exception the exception
+	 */
+	private Map<String, Long> walk(final DirectoryWalkConfig config) throws Exception {
+		final Map<String, Long> files = new TreeMap<String, Long>();
+		final long count = new ParallelDirectoryWalker(config).walk(root, (file, attributes) -> {
+			synchronized (files) {
+				final Long previous = files.put(root.relativize(file).toString().replace(File.separatorChar, '/'),
+						attributes.size());
+				assertEquals(null, previous);
+			}
+		});
+		assertEquals(files.size(), count);
+		return files;
+	}
+
+	/**
+	 * Write a file of the tree.
+	 *
+	 * @param path the relative path
+	 * @param content the content
+	 * @throws Exception the exception
+	 */
+	private void write(final String path, final String content) throws Exception {
+		FileUtils.writeStringToFile(root.resolve(path).toFile(), content, StandardCharsets.UTF_8);
+	}
+}